@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.csv.CSVFormat;
+import org.openjdk.jmh.annotations.*;
+import smile.data.DataFrame;
+import smile.io.CSV;
+import smile.io.Write;
+
+/**
+ * CSV parsing benchmarks, including the schema inference. The file
+ * is generated once per trial in the temporary directory.
+ *
+ * @author Haifeng Li
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CSVBenchmark {
+    /** The number of rows. */
+    @Param({"100000"})
+    public int n;
+    /** The number of numeric columns. */
+    @Param({"20"})
+    public int p;
+
+    /** The CSV file. */
+    private Path path;
+    /** The CSV parser. */
+    private CSV csv;
+
+    @Setup
+    public void setup() throws IOException {
+        File file = File.createTempFile("smile-bench", ".csv");
+        file.deleteOnExit();
+        path = file.toPath();
+        Write.csv(SyntheticData.classification(n, p, 5, SyntheticData.SEED), path);
+        csv = new CSV(CSVFormat.DEFAULT.withFirstRecordAsHeader());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public DataFrame read() throws IOException {
+        return csv.read(path);
+    }
+
+    @Benchmark
+    public DataFrame readParallel() throws IOException {
+        return csv.readParallel(path);
+    }
+}
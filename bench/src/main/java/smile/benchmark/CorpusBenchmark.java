@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import smile.nlp.CompactCorpus;
+import smile.nlp.SimpleCorpus;
+import smile.nlp.Text;
+import smile.nlp.relevance.BM25;
+import smile.nlp.relevance.Relevance;
+
+/**
+ * Text corpus indexing and search benchmarks. The documents follow
+ * the Zipf's law so that the queries of frequent and rare words
+ * have very different posting list lengths.
+ *
+ * @author Haifeng Li
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CorpusBenchmark {
+    /** The number of documents. */
+    @Param({"10000"})
+    public int n;
+    /** The query terms. */
+    @Param({"w10", "w1000"})
+    public String term;
+
+    /** The documents. */
+    private String[] docs;
+    /** The corpus. */
+    private SimpleCorpus corpus;
+    /** The compact corpus. */
+    private CompactCorpus compact;
+    /** The relevance ranker. */
+    private final BM25 ranker = new BM25();
+
+    @Setup
+    public void setup() {
+        docs = SyntheticData.documents(n, 200, 50000, SyntheticData.SEED);
+        corpus = index();
+        compact = new CompactCorpus();
+        for (String doc : docs) {
+            compact.add(new Text(doc));
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SimpleCorpus index() {
+        SimpleCorpus corpus = new SimpleCorpus();
+        for (String doc : docs) {
+            corpus.add(new Text(doc));
+        }
+        return corpus;
+    }
+
+    @Benchmark
+    public void search(Blackhole bh) {
+        Iterator<Text> hits = corpus.search(term);
+        while (hits.hasNext()) {
+            bh.consume(hits.next());
+        }
+    }
+
+    @Benchmark
+    public void rank(Blackhole bh) {
+        Iterator<Relevance> hits = corpus.search(ranker, term);
+        while (hits.hasNext()) {
+            bh.consume(hits.next());
+        }
+    }
+
+    @Benchmark
+    public void rankCompact(Blackhole bh) {
+        Iterator<Relevance> hits = compact.search(ranker, term);
+        while (hits.hasNext()) {
+            bh.consume(hits.next());
+        }
+    }
+
+    @Benchmark
+    public void top10(Blackhole bh) {
+        Iterator<Relevance> hits = compact.search(ranker, new String[]{term, "w1", "w100"}, 10);
+        while (hits.hasNext()) {
+            bh.consume(hits.next());
+        }
+    }
+}
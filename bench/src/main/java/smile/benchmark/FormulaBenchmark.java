@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import smile.data.DataFrame;
+import smile.data.formula.Formula;
+import static smile.data.formula.Terms.*;
+
+/**
+ * Model formula benchmarks. <code>frame</code> selects the columns
+ * as is while <code>expression</code> evaluates the function and
+ * arithmetic terms.
+ *
+ * @author Haifeng Li
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FormulaBenchmark {
+    /** The number of rows. */
+    @Param({"100000"})
+    public int n;
+    /** The number of predictors. */
+    @Param({"20"})
+    public int p;
+
+    /** The formula of all columns. */
+    private final Formula all = Formula.lhs("y");
+    /** The formula of expressions. */
+    private final Formula expression = Formula.of("y", $("V1"), exp("V2"), abs("V3"), mul("V4", "V5"), add("V6", "V7"));
+    /** The data frame. */
+    private DataFrame data;
+
+    @Setup
+    public void setup() {
+        data = SyntheticData.regression(n, p, SyntheticData.SEED);
+    }
+
+    @Benchmark
+    public DataFrame frame() {
+        return all.frame(data);
+    }
+
+    @Benchmark
+    public DataFrame expression() {
+        return expression.frame(data);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import smile.neighbor.KDTree;
+
+/**
+ * KD-tree construction and k-nearest neighbor search benchmarks.
+ * The search benchmark runs 1000 queries drawn from the same
+ * distribution as the data.
+ *
+ * @author Haifeng Li
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class KDTreeBenchmark {
+    /** The number of samples. */
+    @Param({"100000"})
+    public int n;
+    /** The dimension of samples. */
+    @Param({"4", "16"})
+    public int p;
+    /** The number of nearest neighbors. */
+    @Param({"10"})
+    public int k;
+
+    /** The samples. */
+    private double[][] data;
+    /** The queries. */
+    private double[][] queries;
+    /** The KD-tree. */
+    private KDTree<double[]> tree;
+
+    @Setup
+    public void setup() {
+        data = SyntheticData.gaussianMixture(n, p, 10, SyntheticData.SEED);
+        queries = SyntheticData.gaussianMixture(1000, p, 10, SyntheticData.SEED + 1);
+        tree = new KDTree<>(data, data);
+    }
+
+    @Benchmark
+    public KDTree<double[]> build() {
+        return new KDTree<>(data, data);
+    }
+
+    @Benchmark
+    public void knn(Blackhole bh) {
+        for (double[] q : queries) {
+            bh.consume(tree.knn(q, k));
+        }
+    }
+}
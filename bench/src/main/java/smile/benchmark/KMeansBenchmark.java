@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import smile.clustering.KMeans;
+import smile.math.MathEx;
+
+/**
+ * K-Means clustering benchmark.
+ *
+ * @author Haifeng Li
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class KMeansBenchmark {
+    /** The number of samples. */
+    @Param({"10000", "100000"})
+    public int n;
+    /** The dimension of samples. */
+    @Param({"16"})
+    public int p;
+    /** The number of clusters. */
+    @Param({"10"})
+    public int k;
+
+    /** The samples. */
+    private double[][] data;
+
+    @Setup
+    public void setup() {
+        data = SyntheticData.gaussianMixture(n, p, k, SyntheticData.SEED);
+    }
+
+    @Benchmark
+    public KMeans fit() {
+        // The seeding of K-Means++ is random.
+        MathEx.setSeed(SyntheticData.SEED);
+        return KMeans.fit(data, k, 100, 1E-4);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import smile.math.blas.Layout;
+import smile.math.blas.Transpose;
+import smile.math.blas.jvm.JavaBLAS;
+import smile.math.matrix.Matrix;
+
+/**
+ * Matrix multiplication benchmarks. <code>mm</code> and <code>mv</code>
+ * run on the default BLAS engine (OpenBLAS, or MKL if smile-mkl is on
+ * the class path). <code>jvmMm</code> and <code>jvmMv</code> run on the
+ * pure Java BLAS engine, which is the fallback when the native libraries
+ * are not available. <code>javaMm</code> and <code>javaMv</code> are the
+ * naive Java loops of the same operations on the same data as the
+ * baseline.
+ *
+ * @author Haifeng Li
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MatrixBenchmark {
+    /** The order of square matrices. */
+    @Param({"128", "512", "1024"})
+    public int n;
+
+    /** The row-major arrays of matrices. */
+    private double[][] a, b;
+    /** The matrices. */
+    private Matrix A, B;
+    /** The vector. */
+    private double[] x;
+    /** The column major arrays of matrices. */
+    private double[] ac, bc;
+    /** The pure Java BLAS engine. */
+    private final JavaBLAS blas = new JavaBLAS();
+
+    @Setup
+    public void setup() {
+        a = SyntheticData.uniform(n, n, SyntheticData.SEED);
+        b = SyntheticData.uniform(n, n, SyntheticData.SEED + 1);
+        x = SyntheticData.uniform(1, n, SyntheticData.SEED + 2)[0];
+        A = Matrix.of(a);
+        B = Matrix.of(b);
+
+        ac = new double[n * n];
+        bc = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                ac[i + j * n] = a[i][j];
+                bc[i + j * n] = b[i][j];
+            }
+        }
+    }
+
+    @Benchmark
+    public Matrix mm() {
+        return A.mm(B);
+    }
+
+    @Benchmark
+    public double[] mv() {
+        return A.mv(x);
+    }
+
+    @Benchmark
+    public double[] jvmMm() {
+        double[] c = new double[n * n];
+        blas.gemm(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, Transpose.NO_TRANSPOSE, n, n, n, 1.0, ac, n, bc, n, 0.0, c, n);
+        return c;
+    }
+
+    @Benchmark
+    public double[] jvmMv() {
+        double[] y = new double[n];
+        blas.gemv(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, n, n, 1.0, ac, n, x, 1, 0.0, y, 1);
+        return y;
+    }
+
+    @Benchmark
+    public double[][] javaMm() {
+        double[][] c = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            double[] ai = a[i];
+            double[] ci = c[i];
+            for (int k = 0; k < n; k++) {
+                double aik = ai[k];
+                double[] bk = b[k];
+                for (int j = 0; j < n; j++) {
+                    ci[j] += aik * bk[j];
+                }
+            }
+        }
+        return c;
+    }
+
+    @Benchmark
+    public double[] javaMv() {
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            double[] ai = a[i];
+            double yi = 0.0;
+            for (int j = 0; j < n; j++) {
+                yi += ai[j] * x[j];
+            }
+            y[i] = yi;
+        }
+        return y;
+    }
+}
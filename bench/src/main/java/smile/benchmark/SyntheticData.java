@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import smile.data.DataFrame;
+import smile.data.vector.DoubleVector;
+import smile.data.vector.IntVector;
+
+/**
+ * Reproducible synthetic data generators for benchmarks. The same seed
+ * always generates the same data so that the benchmark results are
+ * comparable over time.
+ *
+ * @author Haifeng Li
+ */
+public class SyntheticData {
+    /** The default seed of random number generator. */
+    public static final long SEED = 19650218L;
+
+    /** Private constructor to prevent object creation. */
+    private SyntheticData() {
+
+    }
+
+    /**
+     * Returns a matrix of uniform random numbers in [-1, 1].
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @param seed the seed of random number generator.
+     * @return the random matrix.
+     */
+    public static double[][] uniform(int m, int n, long seed) {
+        Random random = new Random(seed);
+        double[][] x = new double[m][n];
+        for (double[] xi : x) {
+            for (int j = 0; j < n; j++) {
+                xi[j] = 2 * random.nextDouble() - 1;
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Returns the samples of a Gaussian mixture with unit variance.
+     * The centers of components are uniformly distributed in
+     * [-10, 10]<sup>p</sup>.
+     * @param n the number of samples.
+     * @param p the dimension of samples.
+     * @param k the number of mixture components.
+     * @param seed the seed of random number generator.
+     * @return the samples.
+     */
+    public static double[][] gaussianMixture(int n, int p, int k, long seed) {
+        double[][] x = new double[n][];
+        mixture(x, new int[n], p, k, seed);
+        return x;
+    }
+
+    /**
+     * Returns a data frame of Gaussian mixture samples, of which the
+     * component index is the class label in the column "y". The
+     * predictors are named "V1", "V2", ....
+     * @param n the number of samples.
+     * @param p the dimension of samples.
+     * @param k the number of classes.
+     * @param seed the seed of random number generator.
+     * @return the data frame.
+     */
+    public static DataFrame classification(int n, int p, int k, long seed) {
+        double[][] x = new double[n][];
+        int[] y = new int[n];
+        mixture(x, y, p, k, seed);
+        return DataFrame.of(x).merge(IntVector.of("y", y));
+    }
+
+    /**
+     * Returns a data frame of linear regression samples with Gaussian
+     * noise. The response is the column "y" and the predictors are
+     * named "V1", "V2", ....
+     * @param n the number of samples.
+     * @param p the number of predictors.
+     * @param seed the seed of random number generator.
+     * @return the data frame.
+     */
+    public static DataFrame regression(int n, int p, long seed) {
+        Random random = new Random(seed);
+        double[] w = new double[p];
+        for (int j = 0; j < p; j++) {
+            w[j] = 2 * random.nextDouble() - 1;
+        }
+
+        double[][] x = new double[n][p];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            double yi = random.nextGaussian();
+            for (int j = 0; j < p; j++) {
+                x[i][j] = random.nextGaussian();
+                yi += w[j] * x[i][j];
+            }
+            y[i] = yi;
+        }
+
+        return DataFrame.of(x).merge(DoubleVector.of("y", y));
+    }
+
+    /**
+     * Returns documents of which the words follow the Zipf's law
+     * as natural language. The word of rank r is "w&lt;r&gt;", e.g.
+     * "w1" is the most frequent word.
+     * @param n the number of documents.
+     * @param length the number of words per document.
+     * @param vocabulary the size of vocabulary.
+     * @param seed the seed of random number generator.
+     * @return the documents.
+     */
+    public static String[] documents(int n, int length, int vocabulary, long seed) {
+        double[] cdf = new double[vocabulary];
+        double sum = 0.0;
+        for (int r = 0; r < vocabulary; r++) {
+            sum += 1.0 / (r + 1);
+            cdf[r] = sum;
+        }
+
+        Random random = new Random(seed);
+        String[] docs = new String[n];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.setLength(0);
+            for (int j = 0; j < length; j++) {
+                int r = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+                if (r < 0) r = -r - 1;
+                if (j > 0) sb.append(j % 20 == 0 ? ". " : " ");
+                sb.append('w').append(r + 1);
+            }
+            docs[i] = sb.append('.').toString();
+        }
+        return docs;
+    }
+
+    /**
+     * Generates the samples of a Gaussian mixture.
+     * @param x the output samples.
+     * @param y the output component index.
+     * @param p the dimension of samples.
+     * @param k the number of mixture components.
+     * @param seed the seed of random number generator.
+     */
+    private static void mixture(double[][] x, int[] y, int p, int k, long seed) {
+        Random random = new Random(seed);
+        double[][] centers = new double[k][p];
+        for (double[] center : centers) {
+            for (int j = 0; j < p; j++) {
+                center[j] = 20 * random.nextDouble() - 10;
+            }
+        }
+
+        for (int i = 0; i < x.length; i++) {
+            int c = random.nextInt(k);
+            double[] xi = new double[p];
+            for (int j = 0; j < p; j++) {
+                xi[j] = centers[c][j] + random.nextGaussian();
+            }
+            x[i] = xi;
+            y[i] = c;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import smile.nlp.TextPipeline;
+import smile.nlp.tokenizer.DFATokenizer;
+import smile.nlp.tokenizer.SimpleTokenizer;
+
+/**
+ * Text processing throughput benchmarks. The corpus is a text file of
+ * one document per line, which is streamed from the disk in the pipeline
+ * benchmarks. Set the parameter corpus to the path of a large corpus,
+ * e.g. -p corpus=/data/corpus.txt, to measure the throughput at scale.
+ * By default, a synthetic corpus is generated in the temporary directory.
+ *
+ * @author Haifeng Li
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TextPipelineBenchmark {
+    /** The path of corpus file. Empty for a synthetic corpus. */
+    @Param({""})
+    public String corpus;
+    /** The number of synthetic documents. */
+    @Param({"100000"})
+    public int n;
+
+    /** The corpus file. */
+    private Path path;
+    /** True if the corpus file is generated. */
+    private boolean temporary;
+    /** The sample of documents in memory. */
+    private String[] docs;
+    /** The tokenizer with regular expressions. */
+    private final SimpleTokenizer simple = new SimpleTokenizer();
+    /** The DFA tokenizer. */
+    private final DFATokenizer dfa = DFATokenizer.getInstance();
+    /** The text pipeline. */
+    private final TextPipeline pipeline = new TextPipeline();
+
+    @Setup
+    public void setup() throws IOException {
+        if (corpus.isEmpty()) {
+            File file = File.createTempFile("smile-bench", ".txt");
+            file.deleteOnExit();
+            path = file.toPath();
+            temporary = true;
+            String[] texts = SyntheticData.documents(n, 100, 50000, SyntheticData.SEED);
+            Files.write(path, Arrays.asList(texts));
+        } else {
+            path = Paths.get(corpus);
+        }
+
+        try (Stream<String> lines = Files.lines(path)) {
+            docs = lines.limit(10000).toArray(String[]::new);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (temporary) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Benchmark
+    public void tokenizeSimple(Blackhole bh) {
+        for (String doc : docs) {
+            bh.consume(simple.split(doc));
+        }
+    }
+
+    @Benchmark
+    public void tokenizeDFA(Blackhole bh) {
+        for (String doc : docs) {
+            bh.consume(dfa.split(doc));
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long pipeline() throws IOException {
+        try (Stream<String> lines = Files.lines(path)) {
+            return lines.sequential().map(pipeline).mapToLong(terms -> terms.length).sum();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long pipelineParallel() throws IOException {
+        try (Stream<String> lines = Files.lines(path)) {
+            return pipeline.apply(lines).mapToLong(terms -> terms.length).sum();
+        }
+    }
+}
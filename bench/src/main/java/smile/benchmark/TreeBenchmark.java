@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import smile.base.cart.SplitRule;
+import smile.classification.DecisionTree;
+import smile.classification.RandomForest;
+import smile.data.DataFrame;
+import smile.data.formula.Formula;
+
+/**
+ * Decision tree training and random forest prediction benchmarks.
+ *
+ * @author Haifeng Li
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TreeBenchmark {
+    /** The number of samples. */
+    @Param({"10000", "100000"})
+    public int n;
+    /** The number of predictors. */
+    @Param({"20"})
+    public int p;
+
+    /** The model formula. */
+    private final Formula formula = Formula.lhs("y");
+    /** The training data. */
+    private DataFrame data;
+    /** The random forest. */
+    private RandomForest forest;
+
+    @Setup
+    public void setup() {
+        data = SyntheticData.classification(n, p, 5, SyntheticData.SEED);
+        forest = RandomForest.fit(formula, SyntheticData.classification(10000, p, 5, SyntheticData.SEED), 100,
+                (int) Math.sqrt(p), SplitRule.GINI, 20, 500, 5, 1.0);
+    }
+
+    @Benchmark
+    public DecisionTree cart() {
+        return DecisionTree.fit(formula, data);
+    }
+
+    @Benchmark
+    public void randomForestPredict(Blackhole bh) {
+        for (int i = 0; i < n; i++) {
+            bh.consume(forest.predict(data.get(i)));
+        }
+    }
+}
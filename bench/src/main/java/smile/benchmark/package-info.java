@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+/**
+ * JMH micro-benchmarks of the hot paths of Smile. The benchmarks run
+ * on reproducible synthetic data so that the results of different runs
+ * and versions are comparable. Run all benchmarks with
+ * <pre>
+ *     sbt bench
+ * </pre>
+ * which writes the results in JSON to
+ * <code>bench/target/jmh-result.json</code>. The usual JMH options
+ * are accepted, e.g. <code>sbt "bench -p n=1024 MatrixBenchmark"</code>.
+ *
+ * @author Haifeng Li
+ */
+package smile.benchmark;
@@ -17,6 +17,7 @@
 
 package smile.anomaly;
 
+import smile.base.svm.KernelCache;
 import smile.base.svm.KernelMachine;
 import smile.base.svm.OCSVM;
 import smile.math.kernel.MercerKernel;
@@ -71,6 +72,24 @@ public class SVM<T> extends KernelMachine<T>  {
      * @return the model.
      */
     public static <T> SVM<T> fit(T[] x, MercerKernel<T> kernel, double nu, double tol) {
+        return fit(x, kernel, nu, tol, KernelCache.DEFAULT_SIZE);
+    }
+
+    /**
+     * Fits an one-class SVM.
+     * @param x training samples.
+     * @param kernel the kernel function.
+     * @param nu the parameter sets an upper bound on the fraction of outliers
+     *           (training examples regarded out-of-class) and it is a lower
+     *           bound on the number of training examples used as Support Vector.
+     * @param tol the tolerance of convergence test.
+     * @param cacheSize the memory budget of kernel cache in bytes.
+     *                  The least recently used rows of kernel matrix
+     *                  are evicted when the budget is exceeded.
+     * @param <T> the data type.
+     * @return the model.
+     */
+    public static <T> SVM<T> fit(T[] x, MercerKernel<T> kernel, double nu, double tol, long cacheSize) {
         if (nu <= 0 || nu > 1) {
             throw new IllegalArgumentException("Invalid nu: " + nu);
         }
@@ -79,7 +98,7 @@ public class SVM<T> extends KernelMachine<T>  {
             throw new IllegalArgumentException("Invalid tol: " + tol);
         }
 
-        OCSVM<T> svm = new OCSVM<>(kernel, nu, tol);
+        OCSVM<T> svm = new OCSVM<>(kernel, nu, tol, cacheSize);
         KernelMachine<T> model = svm.fit(x);
         return new SVM<>(model.kernel(), model.vectors(), model.weights(), model.intercept());
     }
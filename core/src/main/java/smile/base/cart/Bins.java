@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.base.cart;
+
+import java.util.stream.IntStream;
+import smile.data.DataFrame;
+import smile.data.measure.NominalScale;
+import smile.data.type.StructType;
+import smile.sort.QuickSort;
+
+/**
+ * The quantized values of numeric columns for histogram-based split
+ * finding. Each numeric column is discretized once into at most 256
+ * bins of approximately equal frequency and the bin of each sample is
+ * stored as a byte code. Tree learners then accumulate the per-node
+ * statistics into small histograms over bins instead of walking the
+ * presorted sample index, which replaces the O(n p) integer workspace
+ * with O(n p) bytes and reduces the split search to O(bins) per column.
+ * <p>
+ * The bins never separate the samples with same value. The split
+ * threshold between two adjacent bins is the midpoint of the largest
+ * value in the lower bin and the smallest value in the upper bin so
+ * that the resulting {@link OrdinalNode} partitions the training
+ * data exactly as the bin codes do.
+ *
+ * @author Haifeng Li
+ */
+public class Bins {
+    /** The maximum number of bins per column. */
+    public static final int MAX_BINS = 256;
+
+    /**
+     * The bin codes of samples. Only numeric columns are quantized.
+     * Non-numeric columns have a null in the corresponding place.
+     */
+    private final byte[][] code;
+
+    /**
+     * The split thresholds between adjacent bins, i.e. threshold[j][b]
+     * is the split value between bin b and b+1 of column j.
+     */
+    private final double[][] threshold;
+
+    /**
+     * Constructor.
+     * @param code the bin codes of samples.
+     * @param threshold the split thresholds between adjacent bins.
+     */
+    private Bins(byte[][] code, double[][] threshold) {
+        this.code = code;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Quantizes the numeric columns of a data frame.
+     * @param x the predictors.
+     * @param maxBins the maximum number of bins per column,
+     *                which should be in [2, 256].
+     * @return the quantized data.
+     */
+    public static Bins of(DataFrame x, int maxBins) {
+        if (maxBins < 2 || maxBins > MAX_BINS) {
+            throw new IllegalArgumentException("Invalid maximum number of bins: " + maxBins);
+        }
+
+        int p = x.ncol();
+        StructType schema = x.schema();
+        byte[][] code = new byte[p][];
+        double[][] threshold = new double[p][];
+
+        IntStream.range(0, p).parallel().forEach(j -> {
+            if (!(schema.field(j).measure instanceof NominalScale)) {
+                double[] a = x.column(j).toDoubleArray(new double[x.size()]);
+                int[] order = QuickSort.sort(a);
+                code[j] = new byte[a.length];
+                threshold[j] = quantize(a, order, maxBins, code[j]);
+            }
+        });
+
+        return new Bins(code, threshold);
+    }
+
+    /**
+     * Discretizes a sorted column into equal frequency bins.
+     * @param a the sorted values.
+     * @param order the original index of sorted values.
+     * @param maxBins the maximum number of bins.
+     * @param code the output bin codes.
+     * @return the split thresholds between adjacent bins.
+     */
+    private static double[] quantize(double[] a, int[] order, int maxBins, byte[] code) {
+        int n = a.length;
+        double[] cut = new double[maxBins];
+
+        int bin = 0;
+        int binSize = 0;
+        for (int i = 0; i < n; ) {
+            // the run of equal values always falls into the same bin.
+            int end = i + 1;
+            while (end < n && a[end] == a[i]) end++;
+
+            for (int k = i; k < end; k++) {
+                code[order[k]] = (byte) bin;
+            }
+            binSize += end - i;
+
+            // close the bin if it reaches the target size, which is
+            // recalculated so that the remaining samples spread evenly
+            // over the remaining bins.
+            if (end < n && bin < maxBins - 1) {
+                int target = (n - end + binSize) / (maxBins - bin);
+                if (binSize >= target) {
+                    cut[bin++] = (a[end - 1] + a[end]) / 2;
+                    binSize = 0;
+                }
+            }
+
+            i = end;
+        }
+
+        double[] threshold = new double[bin];
+        System.arraycopy(cut, 0, threshold, 0, bin);
+        return threshold;
+    }
+
+    /**
+     * Returns the number of bins of a column.
+     * @param j the column index.
+     * @return the number of bins. Returns 0 for non-numeric columns.
+     */
+    public int size(int j) {
+        return threshold[j] == null ? 0 : threshold[j].length + 1;
+    }
+
+    /**
+     * Returns the bin of a sample.
+     * @param j the column index.
+     * @param i the sample index.
+     * @return the bin of sample i in column j.
+     */
+    public int bin(int j, int i) {
+        return code[j][i] & 0xFF;
+    }
+
+    /**
+     * Returns the split value between bin b and b+1.
+     * @param j the column index.
+     * @param b the bin index.
+     * @return the split value.
+     */
+    public double threshold(int j, int b) {
+        return threshold[j][b];
+    }
+}
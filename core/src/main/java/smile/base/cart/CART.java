@@ -31,6 +31,9 @@ import smile.sort.QuickSort;
 import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.AbstractMap.SimpleEntry;
 
@@ -43,6 +46,13 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
     private static final long serialVersionUID = 2L;
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CART.class);
 
+    /**
+     * The minimum number of sample-column pairs in a node to search the
+     * columns in parallel. Smaller nodes are searched serially because
+     * the fork-join overhead would dominate.
+     */
+    private static final int PARALLEL_THRESHOLD = 32768;
+
     /** The model formula. */
     protected Formula formula;
 
@@ -107,6 +117,18 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
      */
     protected transient int[][] order;
 
+    /**
+     * The quantized training data for histogram-based split finding.
+     * If it is not null, the numeric columns are split on the bins
+     * and {@link #order} is not used.
+     */
+    protected transient Bins bins;
+
+    /**
+     * The histograms of leaf nodes to split in histogram mode.
+     */
+    private transient Map<LeafNode, Histogram> histograms;
+
     /**
      * The working buffer for reordering {@link #index} array.
      */
@@ -149,6 +171,28 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
      *              that only numeric attributes need be sorted.
      */
     public CART(DataFrame x, StructField y, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, int[][] order) {
+        this(x, y, maxDepth, maxNodes, nodeSize, mtry, samples, order, null);
+    }
+
+    /**
+     * Constructor.
+     * @param x the data frame of the explanatory variable.
+     * @param y the response variables.
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the minimum size of leaf nodes.
+     * @param mtry the number of input variables to pick to split on at each
+     *             node. It seems that sqrt(p) give generally good performance,
+     *             where p is the number of variables.
+     * @param samples the sample set of instances for stochastic learning.
+     *               samples[i] is the number of sampling for instance i.
+     * @param order the index of training values in ascending order. Note
+     *              that only numeric attributes need be sorted.
+     * @param bins the quantized training data. If not null, the numeric
+     *             columns are split by histograms over bins and the
+     *             parameter order is ignored.
+     */
+    public CART(DataFrame x, StructField y, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, int[][] order, Bins bins) {
         this.x = x;
         this.response = y;
         this.schema = x.schema();
@@ -190,7 +234,10 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
 
         buffer  = new int[index.length];
 
-        if (order == null) {
+        if (bins != null) {
+            this.bins = bins;
+            this.histograms = Collections.synchronizedMap(new IdentityHashMap<>());
+        } else if (order == null) {
             this.order = order(x);
         } else {
             this.order = new int[order.length][];
@@ -259,6 +306,72 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
         this.index = null;
         this.samples = null;
         this.buffer = null;
+        this.bins = null;
+        this.histograms = null;
+    }
+
+    /**
+     * Grows the tree from the best split of root node. If the tree
+     * is grown in best-first order and the columns are not sampled
+     * randomly, the splits of the leading frontier leaves are expanded
+     * in parallel ahead of time. The expansions are committed to the
+     * tree in the best-first order so that the tree is identical to
+     * the one grown sequentially.
+     *
+     * @param split the best split of root node.
+     */
+    protected void grow(Optional<Split> split) {
+        if (maxNodes == Integer.MAX_VALUE) {
+            // deep-first split
+            split.ifPresent(s -> split(s, null));
+            return;
+        }
+
+        // best-first split
+        PriorityQueue<Split> queue = new PriorityQueue<>(2 * maxNodes, Split.comparator.reversed());
+        split.ifPresent(queue::add);
+
+        // random forest draws random columns and is in parallel already.
+        int parallelism = mtry < schema.length() ? 1 : parallelism();
+        Map<Split, Expansion> expansions = new IdentityHashMap<>();
+
+        for (int leaves = 1; leaves < this.maxNodes && !queue.isEmpty(); ) {
+            Split best = queue.poll();
+            if (parallelism == 1) {
+                if (split(best, queue)) leaves++;
+                continue;
+            }
+
+            if (!expansions.containsKey(best)) {
+                List<Split> frontier = new ArrayList<>();
+                frontier.add(best);
+                queue.stream()
+                        .filter(s -> !expansions.containsKey(s))
+                        .sorted(queue.comparator())
+                        .limit(Math.min(parallelism, this.maxNodes - leaves) - 1)
+                        .forEach(frontier::add);
+
+                List<Expansion> results = frontier.parallelStream().map(this::expand).collect(Collectors.toList());
+                for (int i = 0; i < frontier.size(); i++) {
+                    expansions.put(frontier.get(i), results.get(i));
+                }
+            }
+
+            Expansion expansion = expansions.remove(best);
+            if (expansion != null) {
+                commit(best, expansion, queue);
+                leaves++;
+            }
+        }
+    }
+
+    /**
+     * Returns the parallelism of the fork-join pool that runs the
+     * current task, or of the common pool if not in a fork-join pool.
+     */
+    private static int parallelism() {
+        ForkJoinPool pool = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+        return pool.getParallelism();
     }
 
     /**
@@ -269,19 +382,62 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
      * @return true if split success.
      */
     protected boolean split(final Split split, PriorityQueue<Split> queue) {
+        Expansion expansion = expand(split);
+        if (expansion == null) {
+            return false;
+        }
+
+        commit(split, expansion, queue);
+        return true;
+    }
+
+    /**
+     * The split of a leaf node and the best splits of its children,
+     * which are not attached to the tree yet.
+     */
+    private static class Expansion {
+        /** The internal node to replace the leaf node. */
+        final InternalNode node;
+        /** The best split of true branch child. */
+        final Optional<Split> trueSplit;
+        /** The best split of false branch child. */
+        final Optional<Split> falseSplit;
+
+        /**
+         * Constructor.
+         * @param node the internal node to replace the leaf node.
+         * @param trueSplit the best split of true branch child.
+         * @param falseSplit the best split of false branch child.
+         */
+        Expansion(InternalNode node, Optional<Split> trueSplit, Optional<Split> falseSplit) {
+            this.node = node;
+            this.trueSplit = trueSplit;
+            this.falseSplit = falseSplit;
+        }
+    }
+
+    /**
+     * Partitions the samples of a leaf node and finds the best splits
+     * of its children. It only touches the data partition of the node
+     * so that the leaf nodes may be expanded concurrently.
+     *
+     * @param split the split candidate.
+     * @return the expansion of split, or null if the node should not be split.
+     */
+    private Expansion expand(final Split split) {
         if (split.feature < 0) {
             throw new IllegalStateException("Split a node with invalid feature.");
         }
 
         if (split.depth >= maxDepth) {
             logger.debug("Reach maximum depth");
-            return false;
+            return null;
         }
 
         if (split.trueCount < nodeSize || split.falseCount < nodeSize) {
             // We should not reach here as findBestSplit filters this situation out.
             logger.debug("Node size is too small after splitting");
-            return false;
+            return null;
         }
 
         int[] trueSamples = Arrays.stream(index, split.lo, split.hi).filter(i -> split.predicate().test(i)).toArray();
@@ -304,14 +460,57 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
 
         shuffle(split.lo, mid, split.hi, trues);
 
-        Optional<Split> trueSplit = findBestSplit(trueChild, split.lo, mid, split.unsplittable.clone());
-        Optional<Split> falseSplit = findBestSplit(falseChild, mid, split.hi, split.unsplittable); // reuse parent's array
+        Optional<Split> trueSplit;
+        Optional<Split> falseSplit;
+        if (bins == null) {
+            trueSplit = findBestSplit(trueChild, split.lo, mid, split.unsplittable.clone());
+            falseSplit = findBestSplit(falseChild, mid, split.hi, split.unsplittable); // reuse parent's array
+        } else {
+            // Builds the histograms of the child with fewer samples and
+            // derives those of its sibling by histogram subtraction.
+            Histogram parent = histograms.remove(split.leaf);
+            Histogram trueHist = new Histogram(split.lo, mid);
+            Histogram falseHist = new Histogram(mid, split.hi);
+            histograms.put(trueChild, trueHist);
+            histograms.put(falseChild, falseHist);
+
+            boolean[] unsplittable = split.unsplittable.clone();
+            if (mid - split.lo <= split.hi - mid) {
+                falseHist.derive(parent, trueHist);
+                trueSplit = findBestSplit(trueChild, split.lo, mid, unsplittable);
+                falseSplit = findBestSplit(falseChild, mid, split.hi, split.unsplittable);
+            } else {
+                trueHist.derive(parent, falseHist);
+                falseSplit = findBestSplit(falseChild, mid, split.hi, split.unsplittable);
+                trueSplit = findBestSplit(trueChild, split.lo, mid, unsplittable);
+            }
+
+            trueHist.derive(null, null);
+            falseHist.derive(null, null);
+            if (!trueSplit.isPresent()) histograms.remove(trueChild);
+            if (!falseSplit.isPresent()) histograms.remove(falseChild);
+        }
 
         // Prune the branch if both children are leaf nodes and of same output value.
         if (trueChild.equals(falseChild) && !trueSplit.isPresent() && !falseSplit.isPresent()) {
-            return false;
+            return null;
         }
 
+        return new Expansion(node, trueSplit, falseSplit);
+    }
+
+    /**
+     * Attaches the expansion of a split to the tree.
+     *
+     * @param split the split candidate.
+     * @param expansion the expansion of split.
+     * @param queue the queue of splits.
+     */
+    private void commit(final Split split, Expansion expansion, PriorityQueue<Split> queue) {
+        InternalNode node = expansion.node;
+        Optional<Split> trueSplit = expansion.trueSplit;
+        Optional<Split> falseSplit = expansion.falseSplit;
+
         if (split.parent == null) {
             this.root = node;
         } else if (split.parent.trueChild == split.leaf) {
@@ -335,8 +534,6 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
             trueSplit.ifPresent(queue::add);
             falseSplit.ifPresent(queue::add);
         }
-
-        return true;
     }
 
     /**
@@ -358,6 +555,10 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
             return Optional.empty(); // all the samples in the node have the same response
         }
 
+        if (bins != null) {
+            histograms.putIfAbsent(node, new Histogram(lo, hi));
+        }
+
         // skip the unsplittable columns
         int p = schema.length();
         int[] columns = IntStream.range(0, p).filter(i -> !unsplittable[i]).toArray();
@@ -367,8 +568,10 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
             MathEx.permutate(columns);
         }
 
+        // random forest is in parallel already.
+        boolean parallel = mtry == p && (long) (hi - lo) * columns.length >= PARALLEL_THRESHOLD;
         IntStream stream = Arrays.stream(columns).limit(mtry);
-        Optional<Split> split = (mtry < p ? stream : stream.parallel()) // random forest is in parallel already
+        Optional<Split> split = (parallel ? stream.parallel() : stream)
                 .mapToObj(j -> {
                     Optional<Split> s = findBestSplit(node, j, impurity, lo, hi);
                     if (!s.isPresent()) unsplittable[j] = true;
@@ -407,6 +610,110 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
      */
     protected abstract Optional<Split> findBestSplit(LeafNode node, int column, double impurity, int lo, int hi);
 
+    /**
+     * Returns the number of statistics of each bin in the histograms.
+     * @return the number of statistics of each bin.
+     */
+    protected abstract int binStride();
+
+    /**
+     * Accumulates the statistics of a sample into a histogram bin.
+     * @param histogram the histogram.
+     * @param offset the offset of bin in the histogram.
+     * @param i the index of sample.
+     */
+    protected abstract void accumulate(double[] histogram, int offset, int i);
+
+    /**
+     * Returns the histogram of a numeric column in the node to split,
+     * which has {@link #binStride()} statistics per bin. It should be
+     * called only in histogram mode, i.e. {@link #bins} is not null.
+     * @param node the node to split.
+     * @param column the column to split on.
+     * @return the histogram of column in the node.
+     */
+    protected double[] histogram(LeafNode node, int column) {
+        return histograms.get(node).get(column);
+    }
+
+    /**
+     * Builds the histogram of a column over a data partition.
+     * @param column the column index.
+     * @param lo the inclusive lower bound of the data partition.
+     * @param hi the exclusive upper bound of the data partition.
+     * @return the histogram.
+     */
+    private double[] histogram(int column, int lo, int hi) {
+        int stride = binStride();
+        double[] histogram = new double[bins.size(column) * stride];
+        for (int i = lo; i < hi; i++) {
+            int o = index[i];
+            accumulate(histogram, bins.bin(column, o) * stride, o);
+        }
+        return histogram;
+    }
+
+    /**
+     * The per-column histograms of a node, which are built lazily as
+     * columns are chosen to split on. If the histograms of parent and
+     * sibling are available, a histogram is derived by subtraction
+     * rather than by a pass over the samples.
+     */
+    private class Histogram {
+        /** The histograms of columns. */
+        final double[][] columns;
+        /** The inclusive lower bound of the data partition. */
+        final int lo;
+        /** The exclusive upper bound of the data partition. */
+        final int hi;
+        /** The histograms of parent node. */
+        Histogram parent;
+        /** The histograms of sibling node. */
+        Histogram sibling;
+
+        /**
+         * Constructor.
+         * @param lo the inclusive lower bound of the data partition.
+         * @param hi the exclusive upper bound of the data partition.
+         */
+        Histogram(int lo, int hi) {
+            this.columns = new double[schema.length()][];
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        /**
+         * Sets the histograms from which this one is derived by subtraction.
+         * @param parent the histograms of parent node.
+         * @param sibling the histograms of sibling node.
+         */
+        void derive(Histogram parent, Histogram sibling) {
+            this.parent = parent;
+            this.sibling = sibling;
+        }
+
+        /**
+         * Returns the histogram of a column.
+         * @param j the column index.
+         * @return the histogram.
+         */
+        double[] get(int j) {
+            if (columns[j] == null) {
+                if (parent != null && parent.columns[j] != null) {
+                    double[] h = parent.columns[j].clone();
+                    double[] s = sibling.get(j);
+                    for (int b = 0; b < h.length; b++) {
+                        h[b] -= s[b];
+                    }
+                    columns[j] = h;
+                } else {
+                    columns[j] = histogram(j, lo, hi);
+                }
+            }
+            return columns[j];
+        }
+    }
+
     /**
      * Returns the variable importance. Every time a split of a node is made
      * on variable the (GINI, information gain, etc.) impurity criterion for
@@ -492,7 +799,9 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
      *                  the right side of the partition.
      */
     private void shuffle(int low, int split, int high, boolean[] predicate) {
-        Arrays.stream(order).filter(Objects::nonNull).forEach(o -> shuffle(o, low, split, high, predicate));
+        if (order != null) {
+            Arrays.stream(order).filter(Objects::nonNull).forEach(o -> shuffle(o, low, split, high, predicate));
+        }
         shuffle(index, low, split, high, predicate);
     }
 
@@ -516,7 +825,9 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
      *                  the right side of the partition.
      */
     private void shuffle(int[] a, int low, int split, int high, boolean[] predicate) {
-        int k = 0;
+        // Uses the same range of buffer so that the disjoint
+        // partitions may be shuffled concurrently.
+        int k = low;
         for (int i = low, j = low; i < high; i++) {
             if (predicate[a[i]]) {
                 a[j++] = a[i];
@@ -525,8 +836,8 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
             }
         }
 
-        assert(split + k == high);
-        System.arraycopy(buffer, 0, a, split, k);
+        assert(split + k - low == high);
+        System.arraycopy(buffer, low, a, split, k - low);
     }
 
     /**
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.base.cart;
+
+import java.io.Serializable;
+import java.util.stream.IntStream;
+import smile.util.DoubleArrayList;
+import smile.util.IntArrayList;
+
+/**
+ * A forest of trees compiled into contiguous arrays for fast inference.
+ * The object graph of {@link InternalNode} and {@link LeafNode} is
+ * flattened into a struct-of-arrays layout, i.e. the split feature,
+ * split value and children offsets of internal nodes and the outputs
+ * of leaf nodes. The nodes of each tree are laid out in preorder so
+ * that the true branch child immediately follows its parent.
+ * <p>
+ * The batch methods score the input rows in blocks. For each block,
+ * the trees are applied one after another so that the nodes of a tree
+ * stay in cache while the rows of the block are routed through it.
+ * The blocks are processed in parallel. Because the outputs of trees
+ * are accumulated in the same order as the tree-at-a-time ensemble
+ * methods, the results are identical to those of the original models.
+ * <p>
+ * The input rows are the predictors in the order of the tree schema,
+ * where nominal features are given by their integer codes, e.g. the
+ * rows of <code>formula.x(data).toArray()</code>.
+ *
+ * @author Haifeng Li
+ */
+public class FlatForest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** The number of rows scored together in a block. */
+    private static final int BLOCK_SIZE = 256;
+
+    /**
+     * The root node of each tree. A negative value
+     * {@code -(l+1)} refers to the leaf node l.
+     */
+    private final int[] root;
+    /** The split feature of internal nodes. */
+    private final int[] feature;
+    /** The split value of internal nodes. */
+    private final double[] value;
+    /** True if the internal node tests a nominal feature for equality. */
+    private final boolean[] nominal;
+    /**
+     * The true branch child of internal nodes. A negative
+     * value {@code -(l+1)} refers to the leaf node l.
+     */
+    private final int[] trueChild;
+    /**
+     * The false branch child of internal nodes. A negative
+     * value {@code -(l+1)} refers to the leaf node l.
+     */
+    private final int[] falseChild;
+    /**
+     * The output of leaf nodes, which is the predicted value of
+     * regression nodes or the class label of decision nodes.
+     */
+    private final double[] output;
+    /**
+     * The a posteriori probabilities of decision leaf nodes,
+     * stored in row major of size leaves x k. It is null if
+     * the trees are regression trees.
+     */
+    private final double[] posteriori;
+    /** The number of classes. It is 1 for regression trees. */
+    private final int k;
+
+    /**
+     * Constructor.
+     * @param trees the trees.
+     */
+    public FlatForest(CART... trees) {
+        int ntrees = trees.length;
+        if (ntrees == 0) {
+            throw new IllegalArgumentException("Empty forest");
+        }
+
+        Node node = trees[0].root();
+        while (node instanceof InternalNode) {
+            node = ((InternalNode) node).trueChild;
+        }
+        k = node instanceof DecisionNode ? ((DecisionNode) node).count().length : 1;
+
+        Builder builder = new Builder();
+        root = new int[ntrees];
+        for (int t = 0; t < ntrees; t++) {
+            root[t] = builder.add(trees[t].root());
+        }
+
+        feature = builder.feature.toArray();
+        value = builder.value.toArray();
+        trueChild = builder.trueChild.toArray();
+        falseChild = builder.falseChild.toArray();
+        output = builder.output.toArray();
+        posteriori = k > 1 ? builder.posteriori.toArray() : null;
+
+        nominal = new boolean[feature.length];
+        for (int i = 0; i < nominal.length; i++) {
+            nominal[i] = builder.nominal.get(i) != 0;
+        }
+    }
+
+    /** The buffers to flatten the trees. */
+    private class Builder {
+        final IntArrayList feature = new IntArrayList();
+        final DoubleArrayList value = new DoubleArrayList();
+        final IntArrayList nominal = new IntArrayList();
+        final IntArrayList trueChild = new IntArrayList();
+        final IntArrayList falseChild = new IntArrayList();
+        final DoubleArrayList output = new DoubleArrayList();
+        final DoubleArrayList posteriori = new DoubleArrayList();
+
+        /**
+         * Appends a subtree in preorder.
+         * @param node the root of subtree.
+         * @return the reference to the root of subtree.
+         */
+        int add(Node node) {
+            if (node instanceof InternalNode) {
+                int id = feature.size();
+                InternalNode split = (InternalNode) node;
+                feature.add(split.feature);
+                if (split instanceof NominalNode) {
+                    value.add(((NominalNode) split).value);
+                    nominal.add(1);
+                } else {
+                    value.add(((OrdinalNode) split).value);
+                    nominal.add(0);
+                }
+
+                trueChild.add(0);
+                falseChild.add(0);
+                trueChild.set(id, add(split.trueChild));
+                falseChild.set(id, add(split.falseChild));
+                return id;
+            }
+
+            int id = output.size();
+            if (node instanceof DecisionNode) {
+                DecisionNode leaf = (DecisionNode) node;
+                output.add(leaf.output());
+                double[] prob = leaf.posteriori(new double[k]);
+                for (double p : prob) posteriori.add(p);
+            } else {
+                output.add(((RegressionNode) node).output());
+            }
+            return -(id + 1);
+        }
+    }
+
+    /**
+     * Returns the number of trees.
+     * @return the number of trees.
+     */
+    public int size() {
+        return root.length;
+    }
+
+    /**
+     * Returns the number of internal nodes of all trees.
+     * @return the number of internal nodes.
+     */
+    public int internalNodes() {
+        return feature.length;
+    }
+
+    /**
+     * Returns the number of leaf nodes of all trees.
+     * @return the number of leaf nodes.
+     */
+    public int leafNodes() {
+        return output.length;
+    }
+
+    /**
+     * Returns the leaf node that an instance falls into.
+     * @param tree the index of tree.
+     * @param x the instance.
+     * @return the index of leaf node.
+     */
+    public int leaf(int tree, double[] x) {
+        int node = root[tree];
+        while (node >= 0) {
+            double xj = x[feature[node]];
+            boolean branch = nominal[node] ? (int) xj == (int) value[node] : xj <= value[node];
+            node = branch ? trueChild[node] : falseChild[node];
+        }
+        return -(node + 1);
+    }
+
+    /**
+     * Returns the output of a tree, i.e. the predicted value of
+     * regression tree or the class label of decision tree.
+     * @param tree the index of tree.
+     * @param x the instance.
+     * @return the output of tree.
+     */
+    public double predict(int tree, double[] x) {
+        return output[leaf(tree, x)];
+    }
+
+    /**
+     * Returns the weighted sum of tree outputs. It is computed as
+     * {@code y += weight * output} in the order of trees.
+     * @param x the instance.
+     * @param from the index of first tree, inclusive.
+     * @param to the index of last tree, exclusive.
+     * @param weight the weight of tree outputs.
+     * @param y the initial value of sum.
+     * @return the weighted sum of tree outputs.
+     */
+    public double sum(double[] x, int from, int to, double weight, double y) {
+        for (int t = from; t < to; t++) {
+            y += weight * output[leaf(t, x)];
+        }
+        return y;
+    }
+
+    /**
+     * Accumulates the weighted outputs of trees in blocks of rows.
+     * For each row i, {@code y[i] += weight * output} in the order
+     * of trees.
+     * @param x the instances.
+     * @param from the index of first tree, inclusive.
+     * @param to the index of last tree, exclusive.
+     * @param weight the weight of tree outputs.
+     * @param y the sums on input and output.
+     */
+    public void sum(double[][] x, int from, int to, double weight, double[] y) {
+        blocks(x.length).forEach(block -> {
+            int lo = block * BLOCK_SIZE;
+            int hi = Math.min(x.length, lo + BLOCK_SIZE);
+            for (int t = from; t < to; t++) {
+                for (int i = lo; i < hi; i++) {
+                    y[i] += weight * output[leaf(t, x[i])];
+                }
+            }
+        });
+    }
+
+    /**
+     * Counts the votes of decision trees.
+     * @param x the instance.
+     * @param votes the vote counts of classes on output.
+     */
+    public void vote(double[] x, int[] votes) {
+        for (int t = 0; t < root.length; t++) {
+            votes[(int) output[leaf(t, x)]]++;
+        }
+    }
+
+    /**
+     * Counts the votes of decision trees in blocks of rows.
+     * @param x the instances.
+     * @param votes the vote counts of classes of each row on output.
+     */
+    public void vote(double[][] x, int[][] votes) {
+        blocks(x.length).forEach(block -> {
+            int lo = block * BLOCK_SIZE;
+            int hi = Math.min(x.length, lo + BLOCK_SIZE);
+            for (int t = 0; t < root.length; t++) {
+                for (int i = lo; i < hi; i++) {
+                    votes[i][(int) output[leaf(t, x[i])]]++;
+                }
+            }
+        });
+    }
+
+    /**
+     * Accumulates the weighted a posteriori probabilities of decision trees.
+     * For each class c, {@code p[c] += weight[t] * posteriori} in the order
+     * of trees.
+     * @param x the instance.
+     * @param weight the weight of each tree.
+     * @param p the sums of weighted probabilities on output.
+     */
+    public void posteriori(double[] x, double[] weight, double[] p) {
+        for (int t = 0; t < root.length; t++) {
+            int offset = leaf(t, x) * k;
+            for (int c = 0; c < k; c++) {
+                p[c] += weight[t] * posteriori[offset + c];
+            }
+        }
+    }
+
+    /**
+     * Accumulates the weighted a posteriori probabilities of decision
+     * trees in blocks of rows.
+     * @param x the instances.
+     * @param weight the weight of each tree.
+     * @param p the sums of weighted probabilities of each row on output.
+     */
+    public void posteriori(double[][] x, double[] weight, double[][] p) {
+        blocks(x.length).forEach(block -> {
+            int lo = block * BLOCK_SIZE;
+            int hi = Math.min(x.length, lo + BLOCK_SIZE);
+            for (int t = 0; t < root.length; t++) {
+                double w = weight[t];
+                for (int i = lo; i < hi; i++) {
+                    int offset = leaf(t, x[i]) * k;
+                    double[] pi = p[i];
+                    for (int c = 0; c < k; c++) {
+                        pi[c] += w * posteriori[offset + c];
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the stream of row block indices.
+     * @param n the number of rows.
+     * @return the stream of block indices.
+     */
+    private static IntStream blocks(int n) {
+        int blocks = (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        IntStream stream = IntStream.range(0, blocks);
+        return blocks > 1 ? stream.parallel() : stream;
+    }
+}
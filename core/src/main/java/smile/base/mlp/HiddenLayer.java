@@ -17,6 +17,8 @@
 
 package smile.base.mlp;
 
+import smile.math.matrix.Precision;
+
 /**
  * A hidden layer in the neural network.
  *
@@ -39,6 +41,18 @@ public class HiddenLayer extends Layer {
         this.activation = activation;
     }
 
+    /**
+     * Constructor.
+     * @param n the number of neurons.
+     * @param p the number of input variables (not including bias value).
+     * @param activation the activation function.
+     * @param precision the precision of weights and their gradients.
+     */
+    public HiddenLayer(int n, int p, ActivationFunction activation, Precision precision) {
+        super(n, p, 0.0, precision);
+        this.activation = activation;
+    }
+
     @Override
     public String toString() {
         if (dropout > 0.0) {
@@ -60,7 +74,7 @@ public class HiddenLayer extends Layer {
 
         activation.g(outputGradient, output);
         if (lowerLayerGradient != null) {
-            weight.tv(outputGradient, lowerLayerGradient);
+            tv(outputGradient, lowerLayerGradient);
         }
     }
 }
\ No newline at end of file
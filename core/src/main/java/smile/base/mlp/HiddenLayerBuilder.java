@@ -17,6 +17,8 @@
 
 package smile.base.mlp;
 
+import smile.math.matrix.Precision;
+
 /**
  * The builder of hidden layers.
  *
@@ -47,4 +49,9 @@ public class HiddenLayerBuilder extends LayerBuilder {
     public HiddenLayer build(int p) {
         return new HiddenLayer(neurons, p, activation);
     }
+
+    @Override
+    public HiddenLayer build(int p, Precision precision) {
+        return new HiddenLayer(neurons, p, activation, precision);
+    }
 }
@@ -27,6 +27,7 @@ import java.util.regex.Pattern;
 
 import smile.math.MathEx;
 import smile.math.matrix.Matrix;
+import smile.math.matrix.Precision;
 import smile.util.Regex;
 
 /**
@@ -53,6 +54,12 @@ public abstract class Layer implements Serializable {
      * The affine transformation matrix.
      */
     protected Matrix weight;
+    /**
+     * The affine transformation matrix in single precision. If not null,
+     * it is used instead of weight, and so are the single precision
+     * gradients and updates.
+     */
+    protected smile.math.matrix.fp32.Matrix weight32;
     /**
      * The bias.
      */
@@ -101,6 +108,26 @@ public abstract class Layer implements Serializable {
      * The dropout mask.
      */
     protected transient ThreadLocal<byte[]> mask;
+    /**
+     * The weight gradient in single precision.
+     */
+    protected transient ThreadLocal<smile.math.matrix.fp32.Matrix> weightGradient32;
+    /**
+     * The second moment of weight gradient in single precision.
+     */
+    protected transient ThreadLocal<smile.math.matrix.fp32.Matrix> weightGradientMoment32;
+    /**
+     * The weight update in single precision.
+     */
+    protected transient ThreadLocal<smile.math.matrix.fp32.Matrix> weightUpdate32;
+    /**
+     * The single precision copy of input vector.
+     */
+    private transient ThreadLocal<float[]> input32;
+    /**
+     * The single precision copy of output vector or gradient.
+     */
+    private transient ThreadLocal<float[]> output32;
 
     /**
      * Constructor for input layer.
@@ -145,6 +172,34 @@ public abstract class Layer implements Serializable {
         this(Matrix.rand(n, p, -Math.sqrt(6.0 / (n+p)), Math.sqrt(6.0 / (n+p))), new double[n], dropout);
     }
 
+    /**
+     * Constructor. Randomly initialized weights and zero bias.
+     *
+     * @param n the number of neurons.
+     * @param p the number of input variables (not including bias value).
+     * @param dropout the dropout rate.
+     * @param precision the precision of weights and their gradients.
+     *                  The single precision halves the memory of weights,
+     *                  gradients and updates. The layer output and
+     *                  gradient vectors and the bias are always in
+     *                  double precision.
+     */
+    public Layer(int n, int p, double dropout, Precision precision) {
+        this(precision == Precision.FLOAT ? null : Matrix.rand(n, p, -Math.sqrt(6.0 / (n+p)), Math.sqrt(6.0 / (n+p))),
+             precision == Precision.FLOAT ? smile.math.matrix.fp32.Matrix.rand(n, p, (float) -Math.sqrt(6.0 / (n+p)), (float) Math.sqrt(6.0 / (n+p))) : null,
+             new double[n], dropout);
+    }
+
+    /**
+     * Constructor.
+     * @param weight the single precision weight matrix.
+     * @param bias the bias vector.
+     * @param dropout the dropout rate.
+     */
+    public Layer(smile.math.matrix.fp32.Matrix weight, double[] bias, double dropout) {
+        this(null, weight, bias, dropout);
+    }
+
     /**
      * Constructor.
      * @param weight the weight matrix.
@@ -161,13 +216,25 @@ public abstract class Layer implements Serializable {
      * @param dropout the dropout rate.
      */
     public Layer(Matrix weight, double[] bias, double dropout) {
+        this(weight, null, bias, dropout);
+    }
+
+    /**
+     * Constructor.
+     * @param weight the weight matrix, or null if weight32 is not null.
+     * @param weight32 the single precision weight matrix, or null if weight is not null.
+     * @param bias the bias vector.
+     * @param dropout the dropout rate.
+     */
+    private Layer(Matrix weight, smile.math.matrix.fp32.Matrix weight32, double[] bias, double dropout) {
         if (dropout < 0.0 || dropout >= 1.0) {
             throw new IllegalArgumentException("Invalid dropout rate: " + dropout);
         }
 
-        this.n = weight.nrow();
-        this.p = weight.ncol();
+        this.n = weight != null ? weight.nrow() : weight32.nrow();
+        this.p = weight != null ? weight.ncol() : weight32.ncol();
         this.weight = weight;
+        this.weight32 = weight32;
         this.bias = bias;
         this.dropout = dropout;
 
@@ -200,6 +267,14 @@ public abstract class Layer implements Serializable {
         weightUpdate = ThreadLocal.withInitial(() -> new Matrix(n, p));
         biasUpdate = ThreadLocal.withInitial(() -> new double[n]);
 
+        if (weight32 != null) {
+            weightGradient32 = ThreadLocal.withInitial(() -> new smile.math.matrix.fp32.Matrix(n, p));
+            weightGradientMoment32 = ThreadLocal.withInitial(() -> new smile.math.matrix.fp32.Matrix(n, p));
+            weightUpdate32 = ThreadLocal.withInitial(() -> new smile.math.matrix.fp32.Matrix(n, p));
+            input32 = ThreadLocal.withInitial(() -> new float[p]);
+            output32 = ThreadLocal.withInitial(() -> new float[n]);
+        }
+
         if (dropout > 0.0) {
             mask = ThreadLocal.withInitial(() -> new byte[n]);
         }
@@ -221,6 +296,14 @@ public abstract class Layer implements Serializable {
         return p;
     }
 
+    /**
+     * Returns the precision of weights.
+     * @return the precision of weights.
+     */
+    public Precision precision() {
+        return weight32 != null ? Precision.FLOAT : Precision.DOUBLE;
+    }
+
     /**
      * Returns the output vector.
      * @return the output vector.
@@ -243,11 +326,54 @@ public abstract class Layer implements Serializable {
      */
     public void propagate(double[] x) {
         double[] output = this.output.get();
-        System.arraycopy(bias, 0, output, 0, n);
-        weight.mv(1.0, x, 1.0, output);
+        if (weight32 != null) {
+            float[] y = output32.get();
+            for (int i = 0; i < n; i++) {
+                y[i] = (float) bias[i];
+            }
+
+            weight32.mv(1.0f, copy(x, input32.get()), 1.0f, y);
+            for (int i = 0; i < n; i++) {
+                output[i] = y[i];
+            }
+        } else {
+            System.arraycopy(bias, 0, output, 0, n);
+            weight.mv(1.0, x, 1.0, output);
+        }
         transform(output);
     }
 
+    /**
+     * Propagates the gradient through the weights, i.e.
+     * {@code y = W' * x}.
+     * @param x the output gradient of this layer.
+     * @param y the gradient of lower layer.
+     */
+    protected void tv(double[] x, double[] y) {
+        if (weight32 != null) {
+            float[] y32 = input32.get();
+            weight32.tv(copy(x, output32.get()), y32);
+            for (int i = 0; i < p; i++) {
+                y[i] = y32[i];
+            }
+        } else {
+            weight.tv(x, y);
+        }
+    }
+
+    /**
+     * Copies a vector to the single precision buffer.
+     * @param x the vector.
+     * @param buffer the buffer.
+     * @return the buffer.
+     */
+    private static float[] copy(double[] x, float[] buffer) {
+        for (int i = 0; i < x.length; i++) {
+            buffer[i] = (float) x[i];
+        }
+        return buffer;
+    }
+
     /**
      * Propagates the output signals through the implicit dropout layer.
      * Dropout randomly sets output units to 0. It should only be applied
@@ -301,6 +427,11 @@ public abstract class Layer implements Serializable {
      * @param decay weight decay factor.
      */
     public void computeGradientUpdate(double[] x, double learningRate, double momentum, double decay) {
+        if (weight32 != null) {
+            computeGradientUpdate32(x, learningRate, momentum, decay);
+            return;
+        }
+
         double[] outputGradient = this.outputGradient.get();
 
         if (momentum > 0.0 && momentum < 1.0) {
@@ -328,6 +459,44 @@ public abstract class Layer implements Serializable {
         }
     }
 
+    /**
+     * Computes the parameter gradient and update the weights in single precision.
+     *
+     * @param x the input vector.
+     * @param learningRate the learning rate.
+     * @param momentum the momentum factor.
+     * @param decay weight decay factor.
+     */
+    private void computeGradientUpdate32(double[] x, double learningRate, double momentum, double decay) {
+        double[] outputGradient = this.outputGradient.get();
+        float[] g = copy(outputGradient, output32.get());
+        float[] x32 = copy(x, input32.get());
+
+        if (momentum > 0.0 && momentum < 1.0) {
+            smile.math.matrix.fp32.Matrix weightUpdate = this.weightUpdate32.get();
+            double[] biasUpdate = this.biasUpdate.get();
+
+            weightUpdate.mul((float) momentum);
+            weightUpdate.add((float) learningRate, g, x32);
+            weight32.add(weightUpdate);
+
+            for (int i = 0; i < n; i++) {
+                double b = momentum * biasUpdate[i] + learningRate * outputGradient[i];
+                biasUpdate[i] = b;
+                bias[i] += b;
+            }
+        } else {
+            weight32.add((float) learningRate, g, x32);
+            for (int i = 0; i < n; i++) {
+                bias[i] += learningRate * outputGradient[i];
+            }
+        }
+
+        if (decay > 0.9 && decay < 1.0) {
+            weight32.mul((float) decay);
+        }
+    }
+
     /**
      * Computes the parameter gradient for a sample of (mini-)batch.
      *
@@ -335,10 +504,14 @@ public abstract class Layer implements Serializable {
      */
     public void computeGradient(double[] x) {
         double[] outputGradient = this.outputGradient.get();
-        Matrix weightGradient = this.weightGradient.get();
         double[] biasGradient = this.biasGradient.get();
 
-        weightGradient.add(1.0, outputGradient, x);
+        if (weight32 != null) {
+            weightGradient32.get().add(1.0f, copy(outputGradient, output32.get()), copy(x, input32.get()));
+        } else {
+            weightGradient.get().add(1.0, outputGradient, x);
+        }
+
         for (int i = 0; i < n; i++) {
             biasGradient[i] += outputGradient[i];
         }
@@ -355,6 +528,11 @@ public abstract class Layer implements Serializable {
      * @param epsilon a small constant for numerical stability.
      */
     public void update(int m, double learningRate, double momentum, double decay, double rho, double epsilon) {
+        if (weight32 != null) {
+            update32(m, learningRate, momentum, decay, rho, epsilon);
+            return;
+        }
+
         Matrix weightGradient = this.weightGradient.get();
         double[] biasGradient = this.biasGradient.get();
 
@@ -424,6 +602,76 @@ public abstract class Layer implements Serializable {
         Arrays.fill(biasGradient, 0.0);
     }
 
+    /**
+     * Adjust network weights in single precision by back-propagation algorithm.
+     *
+     * @param m the size of mini-batch.
+     * @param learningRate the learning rate.
+     * @param momentum the momentum factor.
+     * @param decay weight decay factor.
+     * @param rho RMSProp discounting factor for the history/coming gradient.
+     * @param epsilon a small constant for numerical stability.
+     */
+    private void update32(int m, double learningRate, double momentum, double decay, double rho, double epsilon) {
+        smile.math.matrix.fp32.Matrix weightGradient = this.weightGradient32.get();
+        double[] biasGradient = this.biasGradient.get();
+
+        double eta = learningRate / m;
+
+        if (rho > 0.0 && rho < 1.0) {
+            eta = learningRate;
+            weightGradient.div(m);
+            for (int i = 0; i < n; i++) {
+                biasGradient[i] /= m;
+            }
+
+            smile.math.matrix.fp32.Matrix rmsWeightGradient = this.weightGradientMoment32.get();
+            double[] rmsBiasGradient = this.biasGradientMoment2.get();
+
+            float rho32 = (float) rho;
+            float rho1 = (float) (1.0 - rho);
+            float epsilon32 = (float) epsilon;
+            for (int j = 0; j < p; j++) {
+                for (int i = 0; i < n; i++) {
+                    float g = weightGradient.get(i, j);
+                    float r = rho32 * rmsWeightGradient.get(i, j) + rho1 * g * g;
+                    rmsWeightGradient.set(i, j, r);
+                    weightGradient.set(i, j, g / (float) Math.sqrt(epsilon32 + r));
+                }
+            }
+
+            for (int i = 0; i < n; i++) {
+                rmsBiasGradient[i] = rho * rmsBiasGradient[i] + (1.0 - rho) * MathEx.pow2(biasGradient[i]);
+                biasGradient[i] /= Math.sqrt(epsilon + rmsBiasGradient[i]);
+            }
+        }
+
+        if (momentum > 0.0 && momentum < 1.0) {
+            smile.math.matrix.fp32.Matrix weightUpdate = this.weightUpdate32.get();
+            double[] biasUpdate = this.biasUpdate.get();
+
+            weightUpdate.add((float) momentum, (float) eta, weightGradient);
+            for (int i = 0; i < n; i++) {
+                biasUpdate[i] = momentum * biasUpdate[i] + eta * biasGradient[i];
+            }
+
+            weight32.add(weightUpdate);
+            MathEx.add(bias, biasUpdate);
+        } else {
+            weight32.add((float) eta, weightGradient);
+            for (int i = 0; i < n; i++) {
+                bias[i] += eta * biasGradient[i];
+            }
+        }
+
+        if (decay > 0.9 && decay < 1.0) {
+            weight32.mul((float) decay);
+        }
+
+        weightGradient.fill(0.0f);
+        Arrays.fill(biasGradient, 0.0);
+    }
+
     /**
      * Returns a hidden layer.
      * @param activation the activation function.
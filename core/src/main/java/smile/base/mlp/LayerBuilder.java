@@ -17,6 +17,8 @@
 
 package smile.base.mlp;
 
+import smile.math.matrix.Precision;
+
 /**
  * The builder of layers.
  *
@@ -54,4 +56,17 @@ public abstract class LayerBuilder {
      * @return a layer.
      */
     public abstract Layer build(int p);
+
+    /**
+     * Builds a layer of which the weights are in the given precision.
+     * The default implementation ignores the precision, which is for
+     * the layers without weights such as the input layer.
+     *
+     * @param p the number of input variables (not including bias value).
+     * @param precision the precision of weights and their gradients.
+     * @return a layer.
+     */
+    public Layer build(int p, Precision precision) {
+        return build(p);
+    }
 }
\ No newline at end of file
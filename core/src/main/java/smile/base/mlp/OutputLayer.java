@@ -17,6 +17,8 @@
 
 package smile.base.mlp;
 
+import smile.math.matrix.Precision;
+
 /**
  * The output layer in the neural network.
  *
@@ -38,7 +40,19 @@ public class OutputLayer extends Layer {
      * @param cost the cost function.
      */
     public OutputLayer(int n, int p, OutputFunction activation, Cost cost) {
-        super(n, p);
+        this(n, p, activation, cost, Precision.DOUBLE);
+    }
+
+    /**
+     * Constructor.
+     * @param n the number of neurons.
+     * @param p the number of input variables (not including bias value).
+     * @param activation the output activation function.
+     * @param cost the cost function.
+     * @param precision the precision of weights and their gradients.
+     */
+    public OutputLayer(int n, int p, OutputFunction activation, Cost cost, Precision precision) {
+        super(n, p, 0.0, precision);
 
         switch (cost) {
             case MEAN_SQUARED_ERROR:
@@ -78,7 +92,7 @@ public class OutputLayer extends Layer {
 
     @Override
     public void backpropagate(double[] lowerLayerGradient) {
-        weight.tv(outputGradient.get(), lowerLayerGradient);
+        tv(outputGradient.get(), lowerLayerGradient);
     }
 
     /**
@@ -17,6 +17,8 @@
 
 package smile.base.mlp;
 
+import smile.math.matrix.Precision;
+
 /**
  * The builder of output layers.
  *
@@ -50,4 +52,9 @@ public class OutputLayerBuilder extends LayerBuilder {
     public OutputLayer build(int p) {
         return new OutputLayer(neurons, p, output, cost);
     }
+
+    @Override
+    public OutputLayer build(int p, Precision precision) {
+        return new OutputLayer(neurons, p, output, cost, precision);
+    }
 }
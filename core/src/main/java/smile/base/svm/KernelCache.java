@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.base.svm;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The cache of kernel matrix rows with a fixed memory budget. When the
+ * budget is exhausted, the least recently used rows are evicted, similar
+ * to the kernel cache of LIBSVM. The rows are indexed by the training
+ * samples. The cache keeps the counters of hits, misses and evictions.
+ *
+ * @author Haifeng Li
+ */
+public class KernelCache implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** The default memory budget in bytes, i.e. 1 GB. */
+    public static final long DEFAULT_SIZE = 1L << 30;
+
+    /** The memory budget in bytes. */
+    private final long capacity;
+    /** The memory used by the cached rows in bytes. */
+    private long size = 0;
+    /** The cached rows. */
+    private final double[][] rows;
+    /** The previous (more recently used) row in the LRU list. */
+    private final int[] prev;
+    /** The next (less recently used) row in the LRU list. */
+    private final int[] next;
+    /** The most recently used row. */
+    private int head = -1;
+    /** The least recently used row. */
+    private int tail = -1;
+    /** The number of cache hits. */
+    private long hits = 0;
+    /** The number of cache misses. */
+    private long misses = 0;
+    /** The number of evicted rows. */
+    private long evictions = 0;
+
+    /**
+     * Constructor.
+     * @param n the number of rows, i.e. the number of training samples.
+     * @param capacity the memory budget in bytes.
+     */
+    public KernelCache(int n, long capacity) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Invalid number of rows: " + n);
+        }
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid kernel cache size: " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.rows = new double[n][];
+        this.prev = new int[n];
+        this.next = new int[n];
+        Arrays.fill(prev, -1);
+        Arrays.fill(next, -1);
+    }
+
+    /**
+     * Returns the cached row and marks it as the most recently used.
+     * @param i the index of row.
+     * @return the cached row or null if the row is not in the cache.
+     */
+    public double[] get(int i) {
+        double[] row = rows[i];
+        if (row == null) {
+            misses++;
+        } else {
+            hits++;
+            unlink(i);
+            link(i);
+        }
+        return row;
+    }
+
+    /**
+     * Adds a row to the cache. The least recently used rows
+     * are evicted if the memory budget is exceeded. The row
+     * is not cached if it is larger than the budget.
+     * @param i the index of row.
+     * @param row the kernel matrix row.
+     * @return the row.
+     */
+    public double[] put(int i, double[] row) {
+        remove(i);
+
+        long bytes = 8L * row.length;
+        if (bytes > capacity) return row;
+
+        while (size + bytes > capacity) {
+            remove(tail);
+            evictions++;
+        }
+
+        rows[i] = row;
+        size += bytes;
+        link(i);
+        return row;
+    }
+
+    /**
+     * Removes a row from the cache.
+     * @param i the index of row.
+     */
+    public void remove(int i) {
+        if (rows[i] != null) {
+            size -= 8L * rows[i].length;
+            rows[i] = null;
+            unlink(i);
+        }
+    }
+
+    /** Removes all rows from the cache. */
+    public void clear() {
+        while (tail >= 0) {
+            remove(tail);
+        }
+    }
+
+    /**
+     * Returns the memory budget in bytes.
+     * @return the memory budget in bytes.
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the memory used by the cached rows in bytes.
+     * @return the memory used by the cached rows in bytes.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of cache hits.
+     * @return the number of cache hits.
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of cache misses.
+     * @return the number of cache misses.
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of evicted rows.
+     * @return the number of evicted rows.
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("KernelCache(%d/%d MB, %d hits, %d misses, %d evictions)", size >> 20, capacity >> 20, hits, misses, evictions);
+    }
+
+    /** Inserts a row at the head of LRU list. */
+    private void link(int i) {
+        prev[i] = -1;
+        next[i] = head;
+        if (head >= 0) prev[head] = i;
+        head = i;
+        if (tail < 0) tail = i;
+    }
+
+    /** Removes a row from the LRU list. */
+    private void unlink(int i) {
+        if (prev[i] >= 0) next[prev[i]] = next[i]; else head = next[i];
+        if (next[i] >= 0) prev[next[i]] = prev[i]; else tail = prev[i];
+        prev[i] = -1;
+        next[i] = -1;
+    }
+}
@@ -59,6 +59,10 @@ public class LASVM<T> implements Serializable {
      * The tolerance of convergence test.
      */
     private final double tol;
+    /**
+     * The memory budget of kernel cache in bytes.
+     */
+    private final long cacheSize;
     /**
      * Support vectors.
      */
@@ -93,9 +97,9 @@ public class LASVM<T> implements Serializable {
      */
     private T[] x;
     /**
-     * The kernel matrix.
+     * The cache of kernel matrix rows of support vectors.
      */
-    private double[][] K;
+    private KernelCache K;
 
     /**
      * Constructor.
@@ -115,6 +119,18 @@ public class LASVM<T> implements Serializable {
      * @param tol the tolerance of convergence test.
      */
     public LASVM(MercerKernel<T> kernel, double Cp, double Cn, double tol) {
+        this(kernel, Cp, Cn, tol, KernelCache.DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param kernel the kernel.
+     * @param Cp the soft margin penalty parameter for positive instances.
+     * @param Cn the soft margin penalty parameter for negative instances.
+     * @param tol the tolerance of convergence test.
+     * @param cacheSize the memory budget of kernel cache in bytes.
+     */
+    public LASVM(MercerKernel<T> kernel, double Cp, double Cn, double tol, long cacheSize) {
         if (Cp < 0) {
             throw new IllegalArgumentException("Invalid C: " + Cp);
         }
@@ -127,10 +143,24 @@ public class LASVM<T> implements Serializable {
             throw new IllegalArgumentException("Invalid tol: " + tol);
         }
 
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("Invalid kernel cache size: " + cacheSize);
+        }
+
         this.kernel = kernel;
         this.Cp = Cp;
         this.Cn = Cn;
         this.tol = tol;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Returns the kernel cache of last training, which provides
+     * the counters of cache hits and misses.
+     * @return the kernel cache.
+     */
+    public KernelCache cache() {
+        return K;
     }
 
     /**
@@ -142,7 +172,7 @@ public class LASVM<T> implements Serializable {
      */
     public KernelMachine<T>  fit(T[] x, int[] y, int epochs) {
         this.x = x;
-        this.K = new double[x.length][];
+        this.K = new KernelCache(x.length, cacheSize);
 
         // pick initial support vectors.
         init(x, y);
@@ -222,22 +252,35 @@ public class LASVM<T> implements Serializable {
         minmaxflag = true;
     }
 
+    /**
+     * Returns the cached kernel matrix row of a support vector.
+     * If the row was evicted, an empty row is added to the cache,
+     * which will be filled lazily.
+     * @param i the index of support vector.
+     * @return the kernel matrix row.
+     */
+    private double[] row(int i) {
+        double[] ki = K.get(i);
+        if (ki == null) {
+            ki = new double[x.length];
+            Arrays.fill(ki, Double.NaN);
+            K.put(i, ki);
+        }
+        return ki;
+    }
+
     /**
      * Returns the cached kernel value.
+     * @param ki the kernel matrix row of support vector i.
      * @param i the index of support vector.
      * @param j the index of support vector.
      * @return the kernel value.
      */
-    private double k(int i, int j) {
-        double k = Double.NaN;
-        double[] ki = K[i];
-        if (ki != null) {
-            k = ki[j];
-        }
-
+    private double k(double[] ki, int i, int j) {
+        double k = ki[j];
         if (Double.isNaN(k)) {
             k = kernel.k(x[i], x[j]);
-            if (ki != null) ki[j] = k;
+            ki[j] = k;
         }
 
         return k;
@@ -271,9 +314,10 @@ public class LASVM<T> implements Serializable {
             double km = v1.k;
             double gm = v1.g;
             double best = 0.0;
+            double[] k1 = row(v1.i);
             for (SupportVector<T> v : vectors) {
                 double Z = v.g - gm;
-                double k = k(v1.i, v.i);
+                double k = k(k1, v1.i, v.i);
                 double curv = km + v.k - 2.0 * k;
                 if (curv <= 0.0) curv = TAU;
                 double mu = Z / curv;
@@ -293,9 +337,10 @@ public class LASVM<T> implements Serializable {
             double km = v2.k;
             double gm = v2.g;
             double best = 0.0;
+            double[] k2 = row(v2.i);
             for (SupportVector<T> v : vectors) {
                 double Z = gm - v.g;
-                double k = k(v2.i, v.i);
+                double k = k(k2, v2.i, v.i);
                 double curv = km + v.k - 2.0 * k;
                 if (curv <= 0.0) curv = TAU;
 
@@ -349,8 +394,10 @@ public class LASVM<T> implements Serializable {
         // Perform update
         v1.alpha -= step;
         v2.alpha += step;
+        double[] k1 = row(v1.i);
+        double[] k2 = row(v2.i);
         for (SupportVector<T> v : vectors) {
-            v.g -= step * (k(v2.i, v.i) - k(v1.i, v.i));
+            v.g -= step * (k(k2, v2.i, v.i) - k(k1, v1.i, v.i));
         }
 
         // optimality test
@@ -375,7 +422,7 @@ public class LASVM<T> implements Serializable {
             if (v.x == x) return false;
         }
 
-        double[] cache = new double[K.length];
+        double[] cache = new double[this.x.length];
         Arrays.fill(cache, Double.NaN);
 
         // Compute gradient
@@ -402,7 +449,7 @@ public class LASVM<T> implements Serializable {
         // Insert
         SupportVector<T> v = new SupportVector<>(i, x, y, 0.0, g, Cp, Cn, kernel.k(x, x));
         vectors.add(v);
-        K[i] = cache;
+        K.put(i, cache);
 
         // Process
         if (y > 0) {
@@ -440,6 +487,7 @@ public class LASVM<T> implements Serializable {
         }
 
         logger.info("{} samples, {} support vectors, {} bounded", x.length, vectors.size(), bsv);
+        logger.info("{}", K);
 
     }
 
@@ -473,7 +521,7 @@ public class LASVM<T> implements Serializable {
         vectors.removeIf(v -> {
             if (MathEx.isZero(v.alpha, 1E-4)) {
                 if ((v.g >= gmax && 0 >= v.cmax) || (v.g <= gmin && 0 <= v.cmin)) {
-                    K[v.i] = null;
+                    K.remove(v.i);
                     return true;
                 }
             }
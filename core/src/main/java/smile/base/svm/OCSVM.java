@@ -48,6 +48,10 @@ public class OCSVM<T> {
      * The tolerance of convergence test.
      */
     private final double tol;
+    /**
+     * The memory budget of kernel cache in bytes.
+     */
+    private final long cacheSize;
     /**
      * The upper bound of Lagrangian multiplier 1 / (nu * n).
      */
@@ -69,9 +73,13 @@ public class OCSVM<T> {
      */
     private double[] O;
     /**
-     * The kernel matrix.
+     * The cache of kernel matrix rows.
      */
-    private double[][] K;
+    private KernelCache K;
+    /**
+     * The diagonal of kernel matrix.
+     */
+    private double[] diag;
     /**
      * Most violating pair.
      * argmin gi of m_i < alpha_i
@@ -93,6 +101,19 @@ public class OCSVM<T> {
      * @param tol the tolerance of convergence test.
      */
     public OCSVM(MercerKernel<T> kernel, double nu, double tol) {
+        this(kernel, nu, tol, KernelCache.DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param kernel the kernel function.
+     * @param nu the parameter sets an upper bound on the fraction of outliers
+     *           (training examples regarded out-of-class) and it is a lower
+     *           bound on the number of training examples used as Support Vector.
+     * @param tol the tolerance of convergence test.
+     * @param cacheSize the memory budget of kernel cache in bytes.
+     */
+    public OCSVM(MercerKernel<T> kernel, double nu, double tol, long cacheSize) {
         if (nu <= 0 || nu > 1) {
             throw new IllegalArgumentException("Invalid nu: " + nu);
         }
@@ -101,9 +122,40 @@ public class OCSVM<T> {
             throw new IllegalArgumentException("Invalid tolerance of convergence test:" + tol);
         }
 
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("Invalid kernel cache size: " + cacheSize);
+        }
+
         this.kernel = kernel;
         this.nu = nu;
         this.tol = tol;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Returns the kernel cache of last training, which provides
+     * the counters of cache hits and misses.
+     * @return the kernel cache.
+     */
+    public KernelCache cache() {
+        return K;
+    }
+
+    /**
+     * Returns the kernel matrix row of a sample.
+     * @param i the index of sample.
+     * @return the kernel matrix row.
+     */
+    private double[] row(int i) {
+        double[] Ki = K.get(i);
+        if (Ki == null) {
+            int n = x.length;
+            T xi = x[i];
+            double[] row = new double[n];
+            IntStream.range(0, n).parallel().forEach(j -> row[j] = kernel.k(xi, x[j]));
+            Ki = K.put(i, row);
+        }
+        return Ki;
     }
 
     /**
@@ -114,14 +166,9 @@ public class OCSVM<T> {
     public KernelMachine<T> fit(T[] x) {
         this.x = x;
         int n = x.length;
-        K = new double[n][n];
-        IntStream.range(0, n).parallel().forEach(i -> {
-            T xi = x[i];
-            double[] Ki = K[i];
-            for (int j = 0; j < n; j++) {
-                Ki[j] = kernel.k(xi, x[j]);
-            }
-        });
+        K = new KernelCache(n, cacheSize);
+        diag = new double[n];
+        IntStream.range(0, n).parallel().forEach(i -> diag[i] = kernel.k(x[i], x[i]));
 
         // Initialize support vectors.
         int vl = (int) Math.round(nu * n);
@@ -133,14 +180,20 @@ public class OCSVM<T> {
             alpha[index[i]] = C;
         }
 
+        // Only the rows of initial support vectors are needed
+        // as the kernel matrix is symmetric.
         O = new double[n];
-        rho = Double.NEGATIVE_INFINITY;
-        for (int i = 0; i < n; i++) {
-            double[] Ki = K[i];
-            for (int j = 0; j < n; j++) {
-                O[i] += Ki[j] * alpha[j];
+        for (int j = 0; j < n; j++) {
+            if (alpha[j] > 0) {
+                double[] Kj = row(j);
+                for (int i = 0; i < n; i++) {
+                    O[i] += Kj[i] * alpha[j];
+                }
             }
+        }
 
+        rho = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
             if (alpha[i] > 0 && rho < O[i]) {
                 rho = O[i];
             }
@@ -183,6 +236,7 @@ public class OCSVM<T> {
         }
 
         logger.info("{} samples, {} support vectors, {} bounded", n, nsv, bsv);
+        logger.info("{}", K);
 
         return new KernelMachine<>(kernel, vectors, weight, b);
     }
@@ -223,12 +277,12 @@ public class OCSVM<T> {
         if (v2 < 0) {
             // determine imax
             double O1 = O[v1];
-            double[] K1 = K[v1];
-            double k11 = K1[v1];
+            double[] K1 = row(v1);
+            double k11 = diag[v1];
             double best = 0.0;
             for (int i = 0; i < n; i++) {
                 double Z = O[i] - O1;
-                double curv = k11 + K[i][i] - 2 * K1[i];
+                double curv = k11 + diag[i] - 2 * K1[i];
                 if (curv <= 0.0) curv = TAU;
 
                 double mu = Z / curv;
@@ -245,12 +299,12 @@ public class OCSVM<T> {
         if (v1 < 0) {
             // determine imin
             double O2 = O[v2];
-            double[] K2 = K[v2];
-            double k22 = K2[v2];
+            double[] K2 = row(v2);
+            double k22 = diag[v2];
             double best = 0.0;
             for (int i = 0; i < n; i++) {
                 double Z = O2 - O[i];
-                double curv = k22 + K[i][i] - 2.0 * K2[i];
+                double curv = k22 + diag[i] - 2.0 * K2[i];
                 if (curv <= 0.0) curv = TAU;
 
                 double mu = Z / curv;
@@ -268,11 +322,11 @@ public class OCSVM<T> {
 
         double old_alpha1 = alpha[v1];
         double old_alpha2 = alpha[v2];
-        double[] k1 = K[v1];
-        double[] k2 = K[v2];
+        double[] k1 = row(v1);
+        double[] k2 = row(v2);
 
         // Determine curvature
-        double curv = K[v1][v1] + K[v2][v2] - 2 * K[v1][v2];
+        double curv = diag[v1] + diag[v2] - 2 * k1[v2];
         if (curv <= 0.0) curv = TAU;
         double delta = (O[v1] - O[v2]) / curv;
         double sum = alpha[v1] + alpha[v2];
@@ -67,6 +67,10 @@ public class SVR<T> {
      * The tolerance of convergence test.
      */
     private final double tol;
+    /**
+     * The memory budget of kernel cache in bytes.
+     */
+    private final long cacheSize;
     /**
      * Support vectors.
      */
@@ -90,9 +94,9 @@ public class SVR<T> {
     private int gmaxindex;
 
     /**
-     * The kernel matrix.
+     * The cache of kernel matrix rows.
      */
-    private double[][] K;
+    private KernelCache K;
 
     /**
      * Support vector.
@@ -142,6 +146,18 @@ public class SVR<T> {
      * @param tol the tolerance of convergence test.
      */
     public SVR(MercerKernel<T> kernel, double eps, double C, double tol) {
+        this(kernel, eps, C, tol, KernelCache.DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param kernel the kernel function.
+     * @param eps the loss function error threshold.
+     * @param C the soft margin penalty parameter.
+     * @param tol the tolerance of convergence test.
+     * @param cacheSize the memory budget of kernel cache in bytes.
+     */
+    public SVR(MercerKernel<T> kernel, double eps, double C, double tol, long cacheSize) {
         if (eps <= 0) {
             throw new IllegalArgumentException("Invalid error threshold: " + eps);
         }
@@ -154,10 +170,24 @@ public class SVR<T> {
             throw new IllegalArgumentException("Invalid tolerance of convergence test:" + tol);
         }
 
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("Invalid kernel cache size: " + cacheSize);
+        }
+
         this.kernel = kernel;
         this.eps = eps;
         this.C = C;
         this.tol = tol;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Returns the kernel cache of last training, which provides
+     * the counters of cache hits and misses.
+     * @return the kernel cache.
+     */
+    public KernelCache cache() {
+        return K;
     }
 
     /**
@@ -172,7 +202,7 @@ public class SVR<T> {
         }
 
         int n = x.length;
-        K = new double[n][];
+        K = new KernelCache(n, cacheSize);
 
         // Initialize support vectors.
         vectors = new ArrayList<>(n);
@@ -216,6 +246,7 @@ public class SVR<T> {
         }
 
         logger.info("{} samples, {} support vectors, {} bounded", n, nsv, bsv);
+        logger.info("{}", K);
 
         return new KernelMachine<>(kernel, sv, alpha, b);
     }
@@ -261,12 +292,13 @@ public class SVR<T> {
      * @param v data vector to evaluate kernel matrix.
      */
     private double[] gram(SupportVector v) {
-        if (K[v.i] == null) {
-            double[] ki = new double[vectors.size()];
-            vectors.stream().parallel().forEach(vi -> ki[vi.i] = kernel.k(v.x, vi.x));
-            K[v.i] = ki;
+        double[] ki = K.get(v.i);
+        if (ki == null) {
+            double[] row = new double[vectors.size()];
+            vectors.stream().parallel().forEach(vi -> row[vi.i] = kernel.k(v.x, vi.x));
+            ki = K.put(v.i, row);
         }
-        return K[v.i];
+        return ki;
     }
 
     /**
@@ -134,6 +134,16 @@ public class DecisionTree extends CART implements Classifier<Tuple>, DataFrameCl
         return new DecisionNode(count);
     }
 
+    @Override
+    protected int binStride() {
+        return k;
+    }
+
+    @Override
+    protected void accumulate(double[] histogram, int offset, int i) {
+        histogram[offset + y[i]] += samples[i];
+    }
+
     @Override
     protected Optional<Split> findBestSplit(LeafNode leaf, int j, double impurity, int lo, int hi) {
         DecisionNode node = (DecisionNode) leaf;
@@ -186,6 +196,44 @@ public class DecisionTree extends CART implements Classifier<Tuple>, DataFrameCl
                 final int value = splitValue;
                 split = new NominalSplit(leaf, j, splitValue, splitScore, lo, hi, splitTrueCount, splitFalseCount, (int o) -> xj.getInt(o) == value);
             }
+        } else if (bins != null) {
+            int splitBin = -1;
+            int tc = 0;
+            int[] trueCount = new int[k];
+            double[] histogram = histogram(leaf, j);
+
+            for (int b = 0, offset = 0; b < bins.size(j) - 1; b++, offset += k) {
+                for (int l = 0; l < k; l++) {
+                    int count = (int) histogram[offset + l];
+                    trueCount[l] += count;
+                    tc += count;
+                }
+
+                int fc = node.size() - tc;
+
+                // If either side is too small, skip this bin.
+                if (tc >= nodeSize && fc >= nodeSize) {
+                    for (int l = 0; l < k; l++) {
+                        falseCount[l] = node.count()[l] - trueCount[l];
+                    }
+
+                    double gain = impurity - (double) tc / node.size() * DecisionNode.impurity(rule, tc, trueCount) - (double) fc / node.size() * DecisionNode.impurity(rule, fc, falseCount);
+
+                    // new best split
+                    if (gain > splitScore) {
+                        splitBin = b;
+                        splitTrueCount = tc;
+                        splitFalseCount = fc;
+                        splitScore = gain;
+                    }
+                }
+            }
+
+            if (splitScore > 0.0) {
+                final int bin = splitBin;
+                final Bins bins = this.bins;
+                split = new OrdinalSplit(leaf, j, bins.threshold(j, bin), splitScore, lo, hi, splitTrueCount, splitFalseCount, (int o) -> bins.bin(j, o) <= bin);
+            }
         } else {
             double splitValue = 0.0;
             int[] trueCount = new int[k];
@@ -258,7 +306,32 @@ public class DecisionTree extends CART implements Classifier<Tuple>, DataFrameCl
      *              that only numeric attributes need be sorted.
      */
     public DecisionTree(DataFrame x, int[] y, StructField response, int k, SplitRule rule, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, int[][] order) {
-        super(x, response, maxDepth, maxNodes, nodeSize, mtry, samples, order);
+        this(x, y, response, k, rule, maxDepth, maxNodes, nodeSize, mtry, samples, order, null);
+    }
+
+    /**
+     * Constructor. Fits a classification tree for AdaBoost and Random Forest.
+     * @param x the data frame of the explanatory variable.
+     * @param y the response variables.
+     * @param response the metadata of response variable.
+     * @param k the number of classes.
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the minimum size of leaf nodes.
+     * @param mtry the number of input variables to pick to split on at each
+     *             node. It seems that sqrt(p) give generally good performance,
+     *             where p is the number of variables.
+     * @param rule the splitting rule.
+     * @param samples the sample set of instances for stochastic learning.
+     *               samples[i] is the number of sampling for instance i.
+     * @param order the index of training values in ascending order. Note
+     *              that only numeric attributes need be sorted.
+     * @param bins the quantized training data for histogram-based split
+     *             finding. If null, the splits are searched on the exact
+     *             values in the order of training values.
+     */
+    public DecisionTree(DataFrame x, int[] y, StructField response, int k, SplitRule rule, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, int[][] order, Bins bins) {
+        super(x, response, maxDepth, maxNodes, nodeSize, mtry, samples, order, bins);
         this.k = k;
         this.y = y;
         this.rule = rule;
@@ -274,18 +347,7 @@ public class DecisionTree extends CART implements Classifier<Tuple>, DataFrameCl
 
         Optional<Split> split = findBestSplit(node, 0, index.length, new boolean[x.ncol()]);
 
-        if (maxNodes == Integer.MAX_VALUE) {
-            // deep-first split
-            split.ifPresent(s -> split(s, null));
-        } else {
-            // best-first split
-            PriorityQueue<Split> queue = new PriorityQueue<>(2 * maxNodes, Split.comparator.reversed());
-            split.ifPresent(queue::add);
-
-            for (int leaves = 1; leaves < this.maxNodes && !queue.isEmpty(); ) {
-                if (split(queue.poll(), queue)) leaves++;
-            }
-        }
+        grow(split);
 
         // merge the sister leaves that produce the same output.
         this.root = this.root.merge();
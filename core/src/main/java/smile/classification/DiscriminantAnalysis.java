@@ -165,6 +165,35 @@ class DiscriminantAnalysis {
         return St;
     }
 
+    /**
+     * Computes the covariance matrix of all samples in single precision
+     * with the rank-k update of centered samples.
+     */
+    public static smile.math.matrix.fp32.Matrix St32(double[][] x, double[] mean, int k, double tol) {
+        int n = x.length;
+        int p = x[0].length;
+
+        smile.math.matrix.fp32.Matrix X = new smile.math.matrix.fp32.Matrix(n, p);
+        for (int i = 0; i < n; i++) {
+            double[] xi = x[i];
+            for (int j = 0; j < p; j++) {
+                X.set(i, j, (float) (xi[j] - mean[j]));
+            }
+        }
+
+        smile.math.matrix.fp32.Matrix St = X.ata();
+        St.div(n - k);
+
+        tol = tol * tol;
+        for (int j = 0; j < p; j++) {
+            if (St.get(j, j) < tol) {
+                throw new IllegalArgumentException(String.format("Covariance matrix (column %d) is close to singular.", j));
+            }
+        }
+
+        return St;
+    }
+
     /** Computes the covariance matrix of each class. */
     public static Matrix[] cov(double[][] x, int[] y, double[][] mu, int[] ni) {
         int n = x.length;
@@ -19,6 +19,7 @@ package smile.classification;
 
 import java.util.Arrays;
 import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.IntStream;
 
 import smile.base.cart.*;
@@ -233,7 +234,9 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
         int nodeSize = Integer.parseInt(params.getProperty("smile.gradient_boost.node_size", "5"));
         double shrinkage = Double.parseDouble(params.getProperty("smile.gradient_boost.shrinkage", "0.05"));
         double subsample = Double.parseDouble(params.getProperty("smile.gradient_boost.sampling_rate", "0.7"));
-        return fit(formula, data, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample);
+        int maxBins = Integer.parseInt(params.getProperty("smile.gradient_boost.max_bins", "0"));
+        int threads = Integer.parseInt(params.getProperty("smile.gradient_boost.threads", "0"));
+        return fit(formula, data, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample, maxBins, threads);
     }
 
     /**
@@ -252,6 +255,55 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
      */
     public static GradientTreeBoost fit(Formula formula, DataFrame data, int ntrees, int maxDepth,
                                         int maxNodes, int nodeSize, double shrinkage, double subsample) {
+        return fit(formula, data, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample, 0);
+    }
+
+    /**
+     * Fits a gradient tree boosting for classification.
+     *
+     * @param formula   a symbolic description of the model to be fitted.
+     * @param data      the data frame of the explanatory and response variables.
+     * @param ntrees    the number of iterations (trees).
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize  the number of instances in a node below which the tree will
+     *                  not split, setting nodeSize = 5 generally gives good results.
+     * @param shrinkage the shrinkage parameter in (0, 1] controls the learning rate of procedure.
+     * @param subsample the sampling fraction for stochastic tree boosting.
+     * @param maxBins   the maximum number of bins of numeric variables for
+     *                  histogram-based split finding, which should be at
+     *                  most 256. If 0, the trees are split on the exact
+     *                  values of presorted numeric variables.
+     * @return the model.
+     */
+    public static GradientTreeBoost fit(Formula formula, DataFrame data, int ntrees, int maxDepth,
+                                        int maxNodes, int nodeSize, double shrinkage, double subsample, int maxBins) {
+        return fit(formula, data, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample, maxBins, 0);
+    }
+
+    /**
+     * Fits a gradient tree boosting for classification.
+     *
+     * @param formula   a symbolic description of the model to be fitted.
+     * @param data      the data frame of the explanatory and response variables.
+     * @param ntrees    the number of iterations (trees).
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize  the number of instances in a node below which the tree will
+     *                  not split, setting nodeSize = 5 generally gives good results.
+     * @param shrinkage the shrinkage parameter in (0, 1] controls the learning rate of procedure.
+     * @param subsample the sampling fraction for stochastic tree boosting.
+     * @param maxBins   the maximum number of bins of numeric variables for
+     *                  histogram-based split finding, which should be at
+     *                  most 256. If 0, the trees are split on the exact
+     *                  values of presorted numeric variables.
+     * @param threads   the number of threads to grow the trees. If 0, the
+     *                  trees are grown in the common fork-join pool. The
+     *                  model doesn't depend on the number of threads.
+     * @return the model.
+     */
+    public static GradientTreeBoost fit(Formula formula, DataFrame data, int ntrees, int maxDepth,
+                                        int maxNodes, int nodeSize, double shrinkage, double subsample, int maxBins, int threads) {
         if (ntrees < 1) {
             throw new IllegalArgumentException("Invalid number of trees: " + ntrees);
         }
@@ -264,17 +316,27 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
             throw new IllegalArgumentException("Invalid sampling fraction: " + subsample);
         }
 
+        if (threads < 0) {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
+
         formula = formula.expand(data.schema());
         DataFrame x = formula.x(data);
         BaseVector<?, ?, ?> y = formula.y(data);
 
-        int[][] order = CART.order(x);
+        Bins bins = maxBins > 0 ? Bins.of(x, maxBins) : null;
+        int[][] order = bins == null ? CART.order(x) : null;
         ClassLabels codec = ClassLabels.fit(y);
 
-        if (codec.k == 2) {
-            return train2(formula, x, codec, order, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample);
-        } else {
-            return traink(formula, x, codec, order, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample);
+        ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : null;
+        try {
+            if (codec.k == 2) {
+                return train2(formula, x, codec, order, bins, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample, pool);
+            } else {
+                return traink(formula, x, codec, order, bins, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample, pool);
+            }
+        } finally {
+            if (pool != null) pool.shutdown();
         }
     }
 
@@ -305,9 +367,9 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
     }
 
     /**
-     * Train L2 tree boost.
+     * Train L2 tree boost. The trees are grown in the pool if it is not null.
      */
-    private static GradientTreeBoost train2(Formula formula, DataFrame x, ClassLabels codec, int[][] order, int ntrees, int maxDepth, int maxNodes, int nodeSize, double shrinkage, double subsample) {
+    private static GradientTreeBoost train2(Formula formula, DataFrame x, ClassLabels codec, int[][] order, Bins bins, int ntrees, int maxDepth, int maxNodes, int nodeSize, double shrinkage, double subsample, ForkJoinPool pool) {
         int n = x.nrow();
         int k = codec.k;
         int[] y = codec.y;
@@ -329,7 +391,9 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
             sampling(samples, permutation, nc, y, subsample);
 
             logger.info("Training {} tree", Strings.ordinal(t+1));
-            RegressionTree tree = new RegressionTree(x, loss, field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, order);
+            RegressionTree tree = pool == null ?
+                    new RegressionTree(x, loss, field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, order, bins) :
+                    pool.submit(() -> new RegressionTree(x, loss, field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, order, bins)).join();
             trees[t] = tree;
 
             for (int i = 0; i < n; i++) {
@@ -349,11 +413,12 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
     }
 
     /**
-     * Train L-k tree boost.
+     * Train L-k tree boost. The k trees of each round are grown in parallel,
+     * in the pool if it is not null.
      */
-    private static GradientTreeBoost traink(Formula formula, DataFrame x, ClassLabels codec, int[][] order,
+    private static GradientTreeBoost traink(Formula formula, DataFrame x, ClassLabels codec, int[][] order, Bins bins,
                                             int ntrees, int maxDepth, int maxNodes, int nodeSize,
-                                            double shrinkage, double subsample) {
+                                            double shrinkage, double subsample, ForkJoinPool pool) {
         int n = x.nrow();
         int k = codec.k;
         int[] y = codec.y;
@@ -373,7 +438,7 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
         }
 
         int[] permutation = IntStream.range(0, n).toArray();
-        int[] samples = new int[n];
+        int[][] samples = new int[k][n];
 
         for (int t = 0; t < ntrees; t++) {
             logger.info("Training {} tree", Strings.ordinal(t+1));
@@ -384,16 +449,29 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
                 MathEx.softmax(p[i]);
             }
 
+            // The samples are drawn in this thread so that the random
+            // numbers don't depend on the order that the trees are grown.
             for (int j = 0; j < k; j++) {
-                sampling(samples, permutation, nc, y, subsample);
+                sampling(samples[j], permutation, nc, y, subsample);
+            }
 
-                RegressionTree tree = new RegressionTree(x, loss[j], field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, order);
-                forest[j][t] = tree;
+            // The tree of each class depends only on the posteriori
+            // probabilities of last round.
+            final int round = t;
+            Runnable task = () -> IntStream.range(0, k).parallel().forEach(j -> {
+                RegressionTree tree = new RegressionTree(x, loss[j], field, maxDepth, maxNodes, nodeSize, x.ncol(), samples[j], order, bins);
+                forest[j][round] = tree;
 
                 double[] hj = h[j];
                 for (int i = 0; i < n; i++) {
                     hj[i] += shrinkage * tree.predict(x.get(i));
                 }
+            });
+
+            if (pool == null) {
+                task.run();
+            } else {
+                pool.submit(task).join();
             }
         }
 
@@ -567,6 +645,119 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
         }
     }
 
+    /**
+     * Compiles the trees into a flat array layout for fast inference.
+     * The compiled model takes the predictors in the order of the model
+     * schema, e.g. the rows of <code>formula.x(data).toArray()</code>,
+     * and gives the same predictions as this model. Its batch method
+     * scores the rows in parallel blocks.
+     *
+     * @return the compiled model.
+     */
+    public Classifier<double[]> compile() {
+        // The trees of class j are [j * ntrees, (j+1) * ntrees) in multi-class case.
+        FlatForest flat = new FlatForest(k == 2 ? trees : Arrays.stream(forest).flatMap(Arrays::stream).toArray(RegressionTree[]::new));
+        int ntrees = k == 2 ? trees.length : forest[0].length;
+        int k = this.k;
+        double b = this.b;
+        double shrinkage = this.shrinkage;
+
+        return new AbstractClassifier<double[]>(classes) {
+            @Override
+            public int predict(double[] x) {
+                if (k == 2) {
+                    double y = flat.sum(x, 0, ntrees, shrinkage, b);
+                    return classes.valueOf(y > 0 ? 1 : 0);
+                } else {
+                    double max = Double.NEGATIVE_INFINITY;
+                    int y = -1;
+                    for (int j = 0; j < k; j++) {
+                        double yj = flat.sum(x, j * ntrees, (j + 1) * ntrees, shrinkage, 0.0);
+                        if (yj > max) {
+                            max = yj;
+                            y = j;
+                        }
+                    }
+
+                    return classes.valueOf(y);
+                }
+            }
+
+            @Override
+            public int[] predict(double[][] x) {
+                int n = x.length;
+                int[] y = new int[n];
+                if (k == 2) {
+                    double[] f = new double[n];
+                    Arrays.fill(f, b);
+                    flat.sum(x, 0, ntrees, shrinkage, f);
+                    for (int i = 0; i < n; i++) {
+                        y[i] = classes.valueOf(f[i] > 0 ? 1 : 0);
+                    }
+                } else {
+                    double[][] f = new double[k][n];
+                    for (int j = 0; j < k; j++) {
+                        flat.sum(x, j * ntrees, (j + 1) * ntrees, shrinkage, f[j]);
+                    }
+
+                    for (int i = 0; i < n; i++) {
+                        double max = Double.NEGATIVE_INFINITY;
+                        int yi = -1;
+                        for (int j = 0; j < k; j++) {
+                            if (f[j][i] > max) {
+                                max = f[j][i];
+                                yi = j;
+                            }
+                        }
+                        y[i] = classes.valueOf(yi);
+                    }
+                }
+                return y;
+            }
+
+            @Override
+            public boolean soft() {
+                return true;
+            }
+
+            @Override
+            public int predict(double[] x, double[] posteriori) {
+                if (posteriori.length != k) {
+                    throw new IllegalArgumentException(String.format("Invalid posteriori vector size: %d, expected: %d", posteriori.length, k));
+                }
+
+                if (k == 2) {
+                    double y = flat.sum(x, 0, ntrees, shrinkage, b);
+                    posteriori[0] = 1.0 / (1.0 + Math.exp(2 * y));
+                    posteriori[1] = 1.0 - posteriori[0];
+                    return classes.valueOf(y > 0 ? 1 : 0);
+                } else {
+                    double max = Double.NEGATIVE_INFINITY;
+                    int y = -1;
+                    for (int j = 0; j < k; j++) {
+                        posteriori[j] = flat.sum(x, j * ntrees, (j + 1) * ntrees, shrinkage, 0.0);
+                        if (posteriori[j] > max) {
+                            max = posteriori[j];
+                            y = j;
+                        }
+                    }
+
+                    double Z = 0.0;
+                    for (int i = 0; i < k; i++) {
+                        posteriori[i] = Math.exp(posteriori[i] - max);
+                        Z += posteriori[i];
+                    }
+
+                    for (int i = 0; i < k; i++) {
+                        posteriori[i] /= Z;
+                    }
+
+                    return classes.valueOf(y);
+                }
+            }
+        };
+    }
+
     /**
      * Test the model on a validation dataset.
      *
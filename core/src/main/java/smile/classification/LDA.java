@@ -20,6 +20,7 @@ package smile.classification;
 import java.util.Properties;
 import smile.math.MathEx;
 import smile.math.matrix.Matrix;
+import smile.math.matrix.Precision;
 import smile.util.IntSet;
 import smile.util.Strings;
 
@@ -144,7 +145,8 @@ public class LDA extends AbstractClassifier<double[]> {
     public static LDA fit(double[][] x, int[] y, Properties params) {
         double[] priori = Strings.parseDoubleArray(params.getProperty("smile.lda.priori"));
         double tol = Double.parseDouble(params.getProperty("smile.lda.tolerance", "1E-4"));
-        return fit(x, y, priori, tol);
+        Precision precision = Precision.valueOf(params.getProperty("smile.lda.precision", "double").toUpperCase());
+        return fit(x, y, priori, tol, precision);
     }
 
     /**
@@ -158,18 +160,50 @@ public class LDA extends AbstractClassifier<double[]> {
      * @return the model.
      */
     public static LDA fit(double[][] x, int[] y, double[] priori, double tol) {
+        return fit(x, y, priori, tol, Precision.DOUBLE);
+    }
+
+    /**
+     * Fits linear discriminant analysis.
+     * @param x training samples.
+     * @param y training labels.
+     * @param priori the priori probability of each class. If null, it will be
+     * estimated from the training data.
+     * @param tol a tolerance to decide if a covariance matrix is singular; it
+     * will reject variables whose variance is less than tol<sup>2</sup>.
+     * @param precision the precision of covariance matrix and its eigen
+     * decomposition. In single precision, the covariance matrix is computed
+     * with a BLAS rank-k update.
+     * @return the model.
+     */
+    public static LDA fit(double[][] x, int[] y, double[] priori, double tol, Precision precision) {
         DiscriminantAnalysis da = DiscriminantAnalysis.fit(x, y, priori, tol);
-        Matrix St = DiscriminantAnalysis.St(x, da.mean, da.k, tol);
-        Matrix.EVD eigen = St.eigen(false, true, true).sort();
+
+        double[] eigen;
+        Matrix scaling;
+        if (precision == Precision.FLOAT) {
+            smile.math.matrix.fp32.Matrix St = DiscriminantAnalysis.St32(x, da.mean, da.k, tol);
+            smile.math.matrix.fp32.Matrix.EVD evd = St.eigen(false, true, true).sort();
+            eigen = new double[evd.wr.length];
+            for (int i = 0; i < eigen.length; i++) {
+                eigen[i] = evd.wr[i];
+            }
+            scaling = Matrix.of(evd.Vr);
+        } else {
+            Matrix St = DiscriminantAnalysis.St(x, da.mean, da.k, tol);
+            Matrix.EVD evd = St.eigen(false, true, true).sort();
+            eigen = evd.wr;
+            scaling = evd.Vr;
+        }
 
         tol = tol * tol;
-        for (double s : eigen.wr) {
+        for (double s : eigen) {
             if (s < tol) {
                 throw new IllegalArgumentException("The covariance matrix is close to singular.");
             }
         }
 
-        return new LDA(da.priori, da.mu, eigen.wr, eigen.Vr, da.labels);
+        return new LDA(da.priori, da.mu, eigen, scaling, da.labels);
     }
 
     /**
@@ -23,6 +23,7 @@ import java.util.Properties;
 
 import smile.base.mlp.*;
 import smile.math.MathEx;
+import smile.math.matrix.Precision;
 import smile.util.IntSet;
 import smile.util.Strings;
 
@@ -126,11 +127,7 @@ public class MLP extends MultilayerPerceptron implements Classifier<double[]>, S
      * @param builders the builders of layers from bottom to top.
      */
     public MLP(LayerBuilder... builders) {
-        super(net(builders));
-
-        int outSize = output.getOutputSize();
-        this.k = outSize == 1 ? 2 : outSize;
-        this.classes = IntSet.of(k);
+        this(null, Precision.DOUBLE, builders);
     }
 
     /**
@@ -140,21 +137,44 @@ public class MLP extends MultilayerPerceptron implements Classifier<double[]>, S
      * @param builders the builders of layers from bottom to top.
      */
     public MLP(IntSet classes, LayerBuilder... builders) {
-        super(net(builders));
+        this(classes, Precision.DOUBLE, builders);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param precision the precision of layer weights and their gradients.
+     *                  The single precision halves the memory of weights
+     *                  and speeds up the matrix-vector operations.
+     * @param builders the builders of layers from bottom to top.
+     */
+    public MLP(Precision precision, LayerBuilder... builders) {
+        this(null, precision, builders);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param classes the class labels.
+     * @param precision the precision of layer weights and their gradients.
+     * @param builders the builders of layers from bottom to top.
+     */
+    public MLP(IntSet classes, Precision precision, LayerBuilder... builders) {
+        super(net(precision, builders));
 
         int outSize = output.getOutputSize();
         this.k = outSize == 1 ? 2 : outSize;
-        this.classes = classes;
+        this.classes = classes == null ? IntSet.of(k) : classes;
     }
 
     /** Builds the layers. */
-    private static Layer[] net(LayerBuilder... builders) {
+    private static Layer[] net(Precision precision, LayerBuilder... builders) {
         int p = 0;
         int l = builders.length;
         Layer[] net = new Layer[l];
 
         for (int i = 0; i < l; i++) {
-            net[i] = builders[i].build(p);
+            net[i] = builders[i].build(p, precision);
             p = builders[i].neurons();
         }
 
@@ -258,7 +278,8 @@ public class MLP extends MultilayerPerceptron implements Classifier<double[]>, S
         int k = MathEx.max(y) + 1;
 
         LayerBuilder[] layers = Layer.of(k, p, params.getProperty("smile.mlp.layers", "ReLU(100)"));
-        MLP model = new MLP(layers);
+        Precision precision = Precision.valueOf(params.getProperty("smile.mlp.precision", "double").toUpperCase());
+        MLP model = new MLP(precision, layers);
         model.setParameters(params);
 
         int epochs = Integer.parseInt(params.getProperty("smile.mlp.epochs", "100"));
@@ -20,7 +20,9 @@ package smile.classification;
 import java.io.Serializable;
 import java.util.*;
 import java.util.stream.LongStream;
+import smile.base.cart.Bins;
 import smile.base.cart.CART;
+import smile.base.cart.FlatForest;
 import smile.base.cart.SplitRule;
 import smile.data.DataFrame;
 import smile.data.Tuple;
@@ -192,7 +194,8 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
         int nodeSize = Integer.parseInt(params.getProperty("smile.random_forest.node_size", "5"));
         double subsample = Double.parseDouble(params.getProperty("smile.random_forest.sampling_rate", "1.0"));
         int[] classWeight = Strings.parseIntArray(params.getProperty("smile.random_forest.class_weight"));
-        return fit(formula, data, ntrees, mtry, rule, maxDepth, maxNodes, nodeSize, subsample, classWeight, null);
+        int maxBins = Integer.parseInt(params.getProperty("smile.random_forest.max_bins", "0"));
+        return fit(formula, data, ntrees, mtry, rule, maxDepth, maxNodes, nodeSize, subsample, classWeight, maxBins, null);
     }
 
     /**
@@ -282,6 +285,43 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
     public static RandomForest fit(Formula formula, DataFrame data, int ntrees, int mtry,
                                    SplitRule rule, int maxDepth, int maxNodes, int nodeSize,
                                    double subsample, int[] classWeight, LongStream seeds) {
+        return fit(formula, data, ntrees, mtry, rule, maxDepth, maxNodes, nodeSize, subsample, classWeight, 0, seeds);
+    }
+
+    /**
+     * Fits a random forest for classification.
+     *
+     * @param formula a symbolic description of the model to be fitted.
+     * @param data the data frame of the explanatory and response variables.
+     * @param ntrees the number of trees.
+     * @param mtry the number of input variables to be used to determine the
+     *             decision at a node of the tree. floor(sqrt(p)) generally
+     *             gives good performance, where p is the number of variables.
+     * @param rule Decision tree split rule.
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the number of instances in a node below which the tree
+     *                 will not split, nodeSize = 5 generally gives good
+     *                 results.
+     * @param subsample the sampling rate for training tree. 1.0 means sampling
+     *                  with replacement. {@code < 1.0} means sampling without
+     *                  replacement.
+     * @param classWeight Priors of the classes. The weight of each class
+     *                    is roughly the ratio of samples in each class.
+     *                    For example, if there are 400 positive samples
+     *                    and 100 negative samples, the classWeight should
+     *                    be [1, 4] (assuming label 0 is of negative, label 1 is of
+     *                    positive).
+     * @param maxBins the maximum number of bins of numeric variables for
+     *                histogram-based split finding, which should be at
+     *                most 256. If 0, the trees are split on the exact
+     *                values of presorted numeric variables.
+     * @param seeds optional RNG seeds for each regression tree.
+     * @return the model.
+     */
+    public static RandomForest fit(Formula formula, DataFrame data, int ntrees, int mtry,
+                                   SplitRule rule, int maxDepth, int maxNodes, int nodeSize,
+                                   double subsample, int[] classWeight, int maxBins, LongStream seeds) {
         if (ntrees < 1) {
             throw new IllegalArgumentException("Invalid number of trees: " + ntrees);
         }
@@ -306,7 +346,8 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
 
         final int[] weight = classWeight != null ? classWeight : Collections.nCopies(k, 1).stream().mapToInt(i -> i).toArray();
 
-        final int[][] order = CART.order(x);
+        final Bins bins = maxBins > 0 ? Bins.of(x, maxBins) : null;
+        final int[][] order = bins == null ? CART.order(x) : null;
         final int[][] prediction = new int[n][k]; // out-of-bag prediction
 
         // generate seeds with sequential stream
@@ -367,7 +408,7 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
             }
 
             long start = System.nanoTime();
-            DecisionTree tree = new DecisionTree(x, codec.y, y.field(), k, rule, maxDepth, maxNodes, nodeSize, mtryFinal, samples, order);
+            DecisionTree tree = new DecisionTree(x, codec.y, y.field(), k, rule, maxDepth, maxNodes, nodeSize, mtryFinal, samples, order, bins);
             double fitTime = (System.nanoTime() - start) / 1E6;
 
             // estimate OOB metrics
@@ -617,6 +658,83 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
         return classes.valueOf(MathEx.whichMax(posteriori));
     }
 
+    /**
+     * Compiles the forest into a flat array layout for fast inference.
+     * The compiled model takes the predictors in the order of the model
+     * schema, e.g. the rows of <code>formula.x(data).toArray()</code>,
+     * and gives the same predictions as this model. Its batch methods
+     * score the rows in parallel blocks.
+     *
+     * @return the compiled model.
+     */
+    public Classifier<double[]> compile() {
+        FlatForest forest = new FlatForest(trees());
+        double[] weight = Arrays.stream(models).mapToDouble(model -> model.weight).toArray();
+        int k = this.k;
+
+        return new AbstractClassifier<double[]>(classes) {
+            @Override
+            public int predict(double[] x) {
+                int[] votes = new int[k];
+                forest.vote(x, votes);
+                return classes.valueOf(MathEx.whichMax(votes));
+            }
+
+            @Override
+            public int[] predict(double[][] x) {
+                int n = x.length;
+                int[][] votes = new int[n][k];
+                forest.vote(x, votes);
+
+                int[] y = new int[n];
+                for (int i = 0; i < n; i++) {
+                    y[i] = classes.valueOf(MathEx.whichMax(votes[i]));
+                }
+                return y;
+            }
+
+            @Override
+            public boolean soft() {
+                return true;
+            }
+
+            @Override
+            public int predict(double[] x, double[] posteriori) {
+                if (posteriori.length != k) {
+                    throw new IllegalArgumentException(String.format("Invalid posteriori vector size: %d, expected: %d", posteriori.length, k));
+                }
+
+                Arrays.fill(posteriori, 0.0);
+                forest.posteriori(x, weight, posteriori);
+                MathEx.unitize1(posteriori);
+                return classes.valueOf(MathEx.whichMax(posteriori));
+            }
+
+            @Override
+            public int[] predict(double[][] x, double[][] posteriori) {
+                int n = x.length;
+                for (int i = 0; i < n; i++) {
+                    if (posteriori[i] == null) {
+                        posteriori[i] = new double[k];
+                    } else if (posteriori[i].length != k) {
+                        throw new IllegalArgumentException(String.format("Invalid posteriori vector size: %d, expected: %d", posteriori[i].length, k));
+                    } else {
+                        Arrays.fill(posteriori[i], 0.0);
+                    }
+                }
+
+                forest.posteriori(x, weight, posteriori);
+
+                int[] y = new int[n];
+                for (int i = 0; i < n; i++) {
+                    MathEx.unitize1(posteriori[i]);
+                    y[i] = classes.valueOf(MathEx.whichMax(posteriori[i]));
+                }
+                return y;
+            }
+        };
+    }
+
     /**
      * Predict and estimate the probability by voting.
      *
@@ -19,6 +19,7 @@ package smile.classification;
 
 import java.util.Arrays;
 import java.util.Properties;
+import smile.base.svm.KernelCache;
 import smile.base.svm.KernelMachine;
 import smile.base.svm.LinearKernelMachine;
 import smile.base.svm.LASVM;
@@ -141,7 +142,21 @@ public class SVM<T> extends KernelMachine<T> implements Classifier<T> {
      * @return the model.
      */
     public static Classifier<double[]> fit(double[][] x, int[] y, double C, double tol, int epochs) {
-        LASVM<double[]> lasvm = new LASVM<>(new LinearKernel(), C, tol);
+        return fit(x, y, C, tol, epochs, KernelCache.DEFAULT_SIZE);
+    }
+
+    /**
+     * Fits a binary linear SVM.
+     * @param x training samples.
+     * @param y training labels of {-1, +1}.
+     * @param C the soft margin penalty parameter.
+     * @param tol the tolerance of convergence test.
+     * @param epochs the number of epochs, usually 1 or 2 is sufficient.
+     * @param cacheSize the memory budget of kernel cache in bytes.
+     * @return the model.
+     */
+    public static Classifier<double[]> fit(double[][] x, int[] y, double C, double tol, int epochs, long cacheSize) {
+        LASVM<double[]> lasvm = new LASVM<>(new LinearKernel(), C, C, tol, cacheSize);
         KernelMachine<double[]> svm = lasvm.fit(x, y, epochs);
 
         IntSet labels = new IntSet(new int[]{-1, +1});
@@ -257,7 +272,25 @@ public class SVM<T> extends KernelMachine<T> implements Classifier<T> {
      * @return the model.
      */
     public static <T> SVM<T> fit(T[] x, int[] y, MercerKernel<T> kernel, double C, double tol, int epochs) {
-        LASVM<T> lasvm = new LASVM<>(kernel, C, tol);
+        return fit(x, y, kernel, C, tol, epochs, KernelCache.DEFAULT_SIZE);
+    }
+
+    /**
+     * Fits a binary SVM.
+     * @param x training samples.
+     * @param y training labels of {-1, +1}.
+     * @param kernel the kernel function.
+     * @param C the soft margin penalty parameter.
+     * @param tol the tolerance of convergence test.
+     * @param epochs the number of epochs, usually 1 or 2 is sufficient.
+     * @param cacheSize the memory budget of kernel cache in bytes.
+     *                  The least recently used rows of kernel matrix
+     *                  are evicted when the budget is exceeded.
+     * @param <T> the data type.
+     * @return the model.
+     */
+    public static <T> SVM<T> fit(T[] x, int[] y, MercerKernel<T> kernel, double C, double tol, int epochs, long cacheSize) {
+        LASVM<T> lasvm = new LASVM<>(kernel, C, C, tol, cacheSize);
         KernelMachine<T> model = lasvm.fit(x, y, epochs);
         return new SVM<>(model.kernel(), model.vectors(), model.weights(), model.intercept());
     }
@@ -274,21 +307,22 @@ public class SVM<T> extends KernelMachine<T> implements Classifier<T> {
         double C = Double.parseDouble(params.getProperty("smile.svm.C", "1.0"));
         double tol = Double.parseDouble(params.getProperty("smile.svm.tolerance", "1E-3"));
         int epochs = Integer.parseInt(params.getProperty("smile.svm.epochs", "1"));
+        long cacheSize = Long.parseLong(params.getProperty("smile.svm.cache_size", "1024")) << 20;
 
         int[] classes = MathEx.unique(y);
         String trainer = params.getProperty("smile.svm.type", classes.length == 2 ? "binary" : "ovr").toLowerCase();
         switch (trainer) {
             case "ovr":
                 if (kernel instanceof LinearKernel) {
-                    return OneVersusRest.fit(x, y, (xi, yi) -> SVM.fit(xi, yi, C, tol, epochs));
+                    return OneVersusRest.fit(x, y, (xi, yi) -> SVM.fit(xi, yi, C, tol, epochs, cacheSize));
                 } else {
-                    return OneVersusRest.fit(x, y, (xi, yi) -> SVM.fit(xi, yi, kernel, C, tol, epochs));
+                    return OneVersusRest.fit(x, y, (xi, yi) -> SVM.fit(xi, yi, kernel, C, tol, epochs, cacheSize));
                 }
             case "ovo":
                 if (kernel instanceof LinearKernel) {
-                    return OneVersusOne.fit(x, y, (xi, yi) -> SVM.fit(xi, yi, C, tol, epochs));
+                    return OneVersusOne.fit(x, y, (xi, yi) -> SVM.fit(xi, yi, C, tol, epochs, cacheSize));
                 } else {
-                    return OneVersusOne.fit(x, y, (xi, yi) -> SVM.fit(xi, yi, kernel, C, tol, epochs));
+                    return OneVersusOne.fit(x, y, (xi, yi) -> SVM.fit(xi, yi, kernel, C, tol, epochs, cacheSize));
                 }
             case "binary":
                 Arrays.sort(classes);
@@ -299,9 +333,9 @@ public class SVM<T> extends KernelMachine<T> implements Classifier<T> {
                     }
                 }
                 if (kernel instanceof LinearKernel) {
-                    return SVM.fit(x, y, C, tol, epochs);
+                    return SVM.fit(x, y, C, tol, epochs, cacheSize);
                 } else {
-                    return SVM.fit(x, y, kernel, C, tol, epochs);
+                    return SVM.fit(x, y, kernel, C, tol, epochs, cacheSize);
                 }
             default:
                 throw new IllegalArgumentException("Unknown SVM type: " + trainer);
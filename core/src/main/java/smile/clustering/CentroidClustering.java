@@ -17,9 +17,11 @@
 
 package smile.clustering;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.function.ToDoubleBiFunction;
 import java.util.stream.IntStream;
+import smile.math.MathEx;
 
 /**
  * In centroid-based clustering, clusters are represented by a central vector,
@@ -50,6 +52,7 @@ import java.util.stream.IntStream;
  */
 public abstract class CentroidClustering<T, U> extends PartitionClustering implements Comparable<CentroidClustering<T, U>> {
     private static final long serialVersionUID = 2L;
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CentroidClustering.class);
 
     /**
      * The total distortion.
@@ -110,6 +113,145 @@ public abstract class CentroidClustering<T, U> extends PartitionClustering imple
         return String.format("Cluster distortion: %.5f%n", distortion) + super.toString();
     }
 
+    /**
+     * Initialize cluster membership of input objects with K-Means||
+     * algorithm, a parallel version of K-Means++. K-Means++ is inherently
+     * sequential as it makes k passes over the data, one for each new
+     * center. Instead, K-Means|| samples O(l) points in each round
+     * independently with probability proportional to their distance
+     * squared to the current candidates, where l is the oversampling
+     * factor. After a few rounds, the candidates are weighted by the
+     * number of points closest to them and reclustered into k centers
+     * with weighted greedy K-Means++.
+     * <p>
+     * Each round is a single parallel pass over the data. In practice,
+     * about 5 rounds with l = 2k give as good seeds as K-Means++.
+     *
+     * <h2>References</h2>
+     * <ol>
+     * <li> B. Bahmani, B. Moseley, A. Vattani, R. Kumar and S. Vassilvitskii. Scalable K-Means++. VLDB, 2012.</li>
+     * </ol>
+     *
+     * @param <T> the type of input object.
+     * @param data data objects array of size n.
+     * @param medoids an array of size k to store cluster medoids on output.
+     * @param y an array of size n to store cluster labels on output.
+     * @param distance the distance function.
+     * @param rounds the number of sampling rounds.
+     * @param oversampling the oversampling factor, i.e. the expected
+     *                     number of candidates sampled in each round.
+     * @return an array of size n to store the distance of each observation to nearest medoid.
+     */
+    public static <T> double[] seed(T[] data, T[] medoids, int[] y, ToDoubleBiFunction<T, T> distance, int rounds, double oversampling) {
+        if (rounds <= 0) {
+            throw new IllegalArgumentException("Invalid number of rounds: " + rounds);
+        }
+
+        if (oversampling <= 0) {
+            throw new IllegalArgumentException("Invalid oversampling factor: " + oversampling);
+        }
+
+        int n = data.length;
+        int k = medoids.length;
+        double[] d = new double[n];
+        Arrays.fill(d, Double.MAX_VALUE);
+
+        // y[i] is the index of nearest candidate during sampling.
+        ArrayList<T> candidates = new ArrayList<>();
+        candidates.add(data[MathEx.randomInt(n)]);
+        for (int round = 0, from = 0; round <= rounds; round++) {
+            final int start = from;
+            final int end = candidates.size();
+            IntStream.range(0, n).parallel().forEach(i -> {
+                for (int c = start; c < end; c++) {
+                    double dist = distance.applyAsDouble(data[i], candidates.get(c));
+                    if (dist < d[i]) {
+                        d[i] = dist;
+                        y[i] = c;
+                    }
+                }
+            });
+            from = end;
+
+            double cost = MathEx.sum(d);
+            if (round == rounds || cost == 0.0) break;
+
+            for (int i = 0; i < n; i++) {
+                if (MathEx.random() * cost < oversampling * d[i]) {
+                    candidates.add(data[i]);
+                }
+            }
+        }
+
+        int m = candidates.size();
+        if (m <= k) {
+            logger.info("K-Means|| sampled {} candidates, fall back to K-Means++", m);
+            return seed(data, medoids, y, distance);
+        }
+
+        // Recluster the weighted candidates with greedy K-Means++,
+        // which picks the best of several sampled centers in each step.
+        double[] weight = new double[m];
+        for (int i = 0; i < n; i++) {
+            weight[y[i]]++;
+        }
+
+        medoids[0] = candidates.get(sample(weight));
+        double[] dc = candidates.stream().parallel().mapToDouble(c -> distance.applyAsDouble(c, medoids[0])).toArray();
+        double[] prob = new double[m];
+        int trials = 2 + (int) Math.log(k);
+        for (int j = 1; j < k; j++) {
+            for (int c = 0; c < m; c++) {
+                prob[c] = weight[c] * dc[c];
+            }
+
+            double best = Double.MAX_VALUE;
+            double[] bestd = dc;
+            for (int t = 0; t < trials; t++) {
+                T medoid = candidates.get(sample(prob));
+                final double[] prev = dc;
+                double[] trial = IntStream.range(0, m).parallel()
+                        .mapToDouble(c -> Math.min(prev[c], distance.applyAsDouble(candidates.get(c), medoid)))
+                        .toArray();
+
+                double cost = MathEx.dot(weight, trial);
+                if (cost < best) {
+                    best = cost;
+                    bestd = trial;
+                    medoids[j] = medoid;
+                }
+            }
+            dc = bestd;
+        }
+
+        double distortion = assign(y, data, medoids, distance, d);
+        logger.info(String.format("K-Means|| reclustered %d candidates, distortion: %.4f", m, distortion));
+        return d;
+    }
+
+    /**
+     * Samples an index with probability proportional to the nonnegative
+     * weights, which need not sum to 1.
+     * @param weight the unnormalized weights.
+     * @return the sampled index.
+     */
+    static int sample(double[] weight) {
+        double cost = 0.0;
+        double cutoff = MathEx.random() * MathEx.sum(weight);
+        for (int i = 0; i < weight.length; i++) {
+            cost += weight[i];
+            if (cost >= cutoff && weight[i] > 0.0) {
+                return i;
+            }
+        }
+
+        // Round-off may leave the cutoff slightly above the total.
+        for (int i = weight.length; i-- > 0; ) {
+            if (weight[i] > 0.0) return i;
+        }
+        return MathEx.randomInt(weight.length);
+    }
+
     /**
      * Assigns each observation to the nearest centroid.
      */
@@ -129,6 +271,28 @@ public abstract class CentroidClustering<T, U> extends PartitionClustering imple
         }).sum();
     }
 
+    /**
+     * Assigns each observation to the nearest centroid.
+     * @param d an array of size n to store the distance of each
+     *          observation to nearest centroid on output.
+     */
+    static <T> double assign(int[] y, T[] data, T[] centroids, ToDoubleBiFunction<T, T> distance, double[] d) {
+        int k = centroids.length;
+
+        return IntStream.range(0, data.length).parallel().mapToDouble(i -> {
+            double nearest = Double.MAX_VALUE;
+            for (int j = 0; j < k; j++) {
+                double dist = distance.applyAsDouble(data[i], centroids[j]);
+                if (nearest > dist) {
+                    nearest = dist;
+                    y[i] = j;
+                }
+            }
+            d[i] = nearest;
+            return nearest;
+        }).sum();
+    }
+
     /**
      * Calculates the new centroids in the new clusters.
      */
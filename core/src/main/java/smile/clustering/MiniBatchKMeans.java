@@ -0,0 +1,531 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.clustering;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import smile.data.SparseDataset;
+import smile.math.MathEx;
+import smile.util.SparseArray;
+import smile.vq.VectorQuantizer;
+
+/**
+ * Mini-batch K-Means clustering. Instead of a full pass over the data per
+ * iteration as Lloyd's algorithm, each iteration takes a small random
+ * batch of observations, assigns them to the nearest centroids, and moves
+ * the centroids toward the batch with per-centroid learning rates that
+ * decrease as the inverse of the number of assigned observations. It
+ * converges to a slightly worse solution than the full-batch algorithm
+ * but orders of magnitude faster on large data. As the model is updated
+ * incrementally with {@link #update(double[][])}, it also clusters data
+ * streams that don't fit in memory.
+ * <p>
+ * Both dense and sparse observations are supported. With sparse input,
+ * the centroids are kept dense but scaled lazily so that each update costs
+ * only the number of nonzero entries of observations. The observations are
+ * never densified.
+ * <p>
+ * The initial centroids are chosen with K-Means|| on a random sample
+ * of data.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li> D. Sculley. Web-scale k-means clustering. WWW, 2010.</li>
+ * <li> B. Bahmani, B. Moseley, A. Vattani, R. Kumar and S. Vassilvitskii. Scalable K-Means++. VLDB, 2012.</li>
+ * </ol>
+ *
+ * @see KMeans
+ *
+ * @author Haifeng Li
+ */
+public class MiniBatchKMeans implements VectorQuantizer {
+    private static final long serialVersionUID = 1L;
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(MiniBatchKMeans.class);
+
+    /** The smallest scale before it is folded into the centroid. */
+    private static final double MIN_SCALE = 1E-10;
+
+    /**
+     * The number of clusters.
+     */
+    public final int k;
+    /**
+     * The dimension of observations.
+     */
+    public final int d;
+    /**
+     * The unscaled centroids. The centroid i is scale[i] * v[i].
+     */
+    private final double[][] v;
+    /**
+     * The scale of centroids.
+     */
+    private final double[] scale;
+    /**
+     * The squared norm of unscaled centroids.
+     */
+    private final double[] norm;
+    /**
+     * The number of observations assigned to each cluster so far.
+     */
+    private final long[] count;
+
+    /**
+     * Constructor.
+     * @param centroids the initial centroids.
+     */
+    public MiniBatchKMeans(double[][] centroids) {
+        if (centroids.length < 2) {
+            throw new IllegalArgumentException("Invalid number of clusters: " + centroids.length);
+        }
+
+        this.k = centroids.length;
+        this.d = centroids[0].length;
+        this.v = new double[k][];
+        this.scale = new double[k];
+        this.norm = new double[k];
+        this.count = new long[k];
+
+        for (int i = 0; i < k; i++) {
+            if (centroids[i].length != d) {
+                throw new IllegalArgumentException(String.format("Centroid %d has %d dimensions != %d", i, centroids[i].length, d));
+            }
+
+            v[i] = centroids[i].clone();
+            scale[i] = 1.0;
+            norm[i] = MathEx.dot(v[i], v[i]);
+        }
+    }
+
+    /**
+     * Returns the centroids.
+     * @return the centroids.
+     */
+    public double[][] centroids() {
+        double[][] centroids = new double[k][];
+        for (int i = 0; i < k; i++) {
+            centroids[i] = centroid(i);
+        }
+        return centroids;
+    }
+
+    /**
+     * Returns the number of observations assigned to each cluster
+     * by the updates so far.
+     * @return the cluster sizes.
+     */
+    public long[] size() {
+        return count.clone();
+    }
+
+    /**
+     * Returns the centroid of a cluster.
+     * @param i the cluster index.
+     * @return the centroid.
+     */
+    private double[] centroid(int i) {
+        double[] centroid = v[i].clone();
+        double s = scale[i];
+        if (s != 1.0) {
+            for (int j = 0; j < d; j++) {
+                centroid[j] *= s;
+            }
+        }
+        return centroid;
+    }
+
+    /**
+     * Returns the squared distance between an observation and a centroid.
+     * @param x the observation.
+     * @param i the cluster index.
+     * @return the squared distance.
+     */
+    private double distance(double[] x, int i) {
+        double[] vi = v[i];
+        double s = scale[i];
+        double dist = 0.0;
+        for (int j = 0; j < d; j++) {
+            double diff = s * vi[j] - x[j];
+            dist += diff * diff;
+        }
+        return dist;
+    }
+
+    /**
+     * Returns the squared distance between a sparse observation
+     * and a centroid.
+     * @param x the observation.
+     * @param xx the squared norm of observation.
+     * @param i the cluster index.
+     * @return the squared distance.
+     */
+    private double distance(SparseArray x, double xx, int i) {
+        double[] vi = v[i];
+        double s = scale[i];
+        double dot = 0.0;
+        for (SparseArray.Entry e : x) {
+            dot += vi[e.i] * e.x;
+        }
+        return Math.max(0.0, s * s * norm[i] - 2 * s * dot + xx);
+    }
+
+    /**
+     * Returns the squared norm of a sparse array.
+     * @param x the sparse array.
+     * @return the squared norm.
+     */
+    private static double norm(SparseArray x) {
+        double norm = 0.0;
+        for (SparseArray.Entry e : x) {
+            norm += e.x * e.x;
+        }
+        return norm;
+    }
+
+    /**
+     * Classifies a new observation.
+     * @param x a new observation.
+     * @return the cluster label.
+     */
+    public int predict(double[] x) {
+        double nearest = Double.MAX_VALUE;
+        int label = 0;
+        for (int i = 0; i < k; i++) {
+            double dist = distance(x, i);
+            if (dist < nearest) {
+                nearest = dist;
+                label = i;
+            }
+        }
+        return label;
+    }
+
+    /**
+     * Classifies a new sparse observation.
+     * @param x a new observation.
+     * @return the cluster label.
+     */
+    public int predict(SparseArray x) {
+        double xx = norm(x);
+        double nearest = Double.MAX_VALUE;
+        int label = 0;
+        for (int i = 0; i < k; i++) {
+            double dist = distance(x, xx, i);
+            if (dist < nearest) {
+                nearest = dist;
+                label = i;
+            }
+        }
+        return label;
+    }
+
+    @Override
+    public double[] quantize(double[] x) {
+        return centroid(predict(x));
+    }
+
+    @Override
+    public void update(double[] x) {
+        update(new double[][]{x});
+    }
+
+    /**
+     * Updates the centroids with a new sparse observation.
+     * @param x a new observation.
+     */
+    public void update(SparseArray x) {
+        update(new SparseArray[]{x});
+    }
+
+    /**
+     * Updates the centroids with a mini-batch of observations. Each
+     * centroid moves to the weighted average of itself, weighted by the
+     * number of previously assigned observations, and the batch
+     * observations assigned to it.
+     * @param batch the mini-batch of observations.
+     * @return the distortion of batch before the update.
+     */
+    public double update(double[][] batch) {
+        int n = batch.length;
+        int[] y = new int[n];
+        double distortion = IntStream.range(0, n).parallel().mapToDouble(i -> {
+            double nearest = Double.MAX_VALUE;
+            for (int j = 0; j < k; j++) {
+                double dist = distance(batch[i], j);
+                if (dist < nearest) {
+                    nearest = dist;
+                    y[i] = j;
+                }
+            }
+            return nearest;
+        }).sum();
+
+        int[] size = new int[k];
+        for (int yi : y) {
+            size[yi]++;
+        }
+
+        IntStream.range(0, k).parallel().filter(c -> size[c] > 0).forEach(c -> {
+            long total = count[c] + size[c];
+            double[] vc = v[c];
+            double a = scale[c] * count[c] / total;
+            for (int j = 0; j < d; j++) {
+                vc[j] *= a;
+            }
+
+            for (int i = 0; i < n; i++) {
+                if (y[i] == c) {
+                    double[] x = batch[i];
+                    for (int j = 0; j < d; j++) {
+                        vc[j] += x[j] / total;
+                    }
+                }
+            }
+
+            scale[c] = 1.0;
+            norm[c] = MathEx.dot(vc, vc);
+            count[c] = total;
+        });
+
+        return distortion;
+    }
+
+    /**
+     * Updates the centroids with a mini-batch of sparse observations.
+     * The cost is proportional to the number of nonzero entries of batch
+     * except the first update of each cluster.
+     * @param batch the mini-batch of observations.
+     * @return the distortion of batch before the update.
+     */
+    public double update(SparseArray[] batch) {
+        int n = batch.length;
+        int[] y = new int[n];
+        double distortion = IntStream.range(0, n).parallel().mapToDouble(i -> {
+            SparseArray x = batch[i];
+            double xx = norm(x);
+            double nearest = Double.MAX_VALUE;
+            for (int j = 0; j < k; j++) {
+                double dist = distance(x, xx, j);
+                if (dist < nearest) {
+                    nearest = dist;
+                    y[i] = j;
+                }
+            }
+            return nearest;
+        }).sum();
+
+        int[] size = new int[k];
+        for (int yi : y) {
+            size[yi]++;
+        }
+
+        // Scale down the old centroid lazily.
+        for (int c = 0; c < k; c++) {
+            if (size[c] == 0) continue;
+
+            double s = scale[c] * count[c] / (count[c] + size[c]);
+            if (s < MIN_SCALE) {
+                double[] vc = v[c];
+                for (int j = 0; j < d; j++) {
+                    vc[j] *= s;
+                }
+                s = 1.0;
+                norm[c] = MathEx.dot(vc, vc);
+            }
+            scale[c] = s;
+        }
+
+        for (int i = 0; i < n; i++) {
+            int c = y[i];
+            double[] vc = v[c];
+            double w = 1.0 / ((count[c] + size[c]) * scale[c]);
+            double nc = norm[c];
+            for (SparseArray.Entry e : batch[i]) {
+                double delta = w * e.x;
+                nc += delta * (2 * vc[e.i] + delta);
+                vc[e.i] += delta;
+            }
+            norm[c] = nc;
+        }
+
+        for (int c = 0; c < k; c++) {
+            count[c] += size[c];
+        }
+
+        return distortion;
+    }
+
+    /**
+     * Partitions data into k clusters with mini-batches of 1024
+     * observations up to 100 iterations.
+     * @param data the input data of which each row is an observation.
+     * @param k the number of clusters.
+     * @return the model.
+     */
+    public static MiniBatchKMeans fit(double[][] data, int k) {
+        return fit(data, k, 1024, 100);
+    }
+
+    /**
+     * Partitions data into k clusters.
+     * @param data the input data of which each row is an observation.
+     * @param k the number of clusters.
+     * @param batchSize the number of observations in each mini-batch.
+     * @param maxIter the maximum number of iterations, i.e. mini-batches.
+     * @return the model.
+     */
+    public static MiniBatchKMeans fit(double[][] data, int k, int batchSize, int maxIter) {
+        int[] index = check(data.length, k, batchSize, maxIter);
+
+        double[][] sample = new double[Math.min(data.length, Math.max(3 * batchSize, 10 * k))][];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = data[index[i]];
+        }
+
+        double[][] medoids = new double[k][];
+        double distortion = MathEx.sum(CentroidClustering.seed(sample, medoids, new int[sample.length], MathEx::squaredDistance, 5, 2 * k));
+        logger.info(String.format("Distortion of %d samples after initialization: %.4f", sample.length, distortion));
+
+        MiniBatchKMeans model = new MiniBatchKMeans(medoids);
+        double[][] batch = new double[Math.min(batchSize, data.length)][];
+        for (int iter = 1, offset = 0; iter <= maxIter; iter++) {
+            for (int i = 0; i < batch.length; i++, offset++) {
+                if (offset == index.length) {
+                    index = MathEx.permutate(data.length);
+                    offset = 0;
+                }
+                batch[i] = data[index[offset]];
+            }
+
+            distortion = model.update(batch);
+            logger.info(String.format("Distortion of mini-batch %3d: %.4f", iter, distortion));
+        }
+
+        return model;
+    }
+
+    /**
+     * Partitions sparse data into k clusters with mini-batches of 1024
+     * observations up to 100 iterations.
+     * @param data the input data of which each row is an observation.
+     * @param k the number of clusters.
+     * @return the model.
+     */
+    public static MiniBatchKMeans fit(SparseDataset data, int k) {
+        return fit(data, k, 1024, 100);
+    }
+
+    /**
+     * Partitions sparse data into k clusters.
+     * @param data the input data of which each row is an observation.
+     * @param k the number of clusters.
+     * @param batchSize the number of observations in each mini-batch.
+     * @param maxIter the maximum number of iterations, i.e. mini-batches.
+     * @return the model.
+     */
+    public static MiniBatchKMeans fit(SparseDataset data, int k, int batchSize, int maxIter) {
+        return fit(data.stream().toArray(SparseArray[]::new), data.ncol(), k, batchSize, maxIter);
+    }
+
+    /**
+     * Partitions sparse data into k clusters.
+     * @param data the input data of which each row is an observation.
+     * @param p the dimension of input vector.
+     * @param k the number of clusters.
+     * @param batchSize the number of observations in each mini-batch.
+     * @param maxIter the maximum number of iterations, i.e. mini-batches.
+     * @return the model.
+     */
+    public static MiniBatchKMeans fit(SparseArray[] data, int p, int k, int batchSize, int maxIter) {
+        int[] index = check(data.length, k, batchSize, maxIter);
+
+        SparseArray[] sample = new SparseArray[Math.min(data.length, Math.max(3 * batchSize, 10 * k))];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = data[index[i]];
+        }
+
+        SparseArray[] medoids = new SparseArray[k];
+        double distortion = MathEx.sum(CentroidClustering.seed(sample, medoids, new int[sample.length], MathEx::squaredDistance, 5, 2 * k));
+        logger.info(String.format("Distortion of %d samples after initialization: %.4f", sample.length, distortion));
+
+        double[][] centroids = new double[k][p];
+        for (int i = 0; i < k; i++) {
+            for (SparseArray.Entry e : medoids[i]) {
+                centroids[i][e.i] = e.x;
+            }
+        }
+
+        MiniBatchKMeans model = new MiniBatchKMeans(centroids);
+        SparseArray[] batch = new SparseArray[Math.min(batchSize, data.length)];
+        for (int iter = 1, offset = 0; iter <= maxIter; iter++) {
+            for (int i = 0; i < batch.length; i++, offset++) {
+                if (offset == index.length) {
+                    index = MathEx.permutate(data.length);
+                    offset = 0;
+                }
+                batch[i] = data[index[offset]];
+            }
+
+            distortion = model.update(batch);
+            logger.info(String.format("Distortion of mini-batch %3d: %.4f", iter, distortion));
+        }
+
+        return model;
+    }
+
+    /**
+     * Checks the parameters and returns a random permutation of data.
+     * @param n the number of observations.
+     * @param k the number of clusters.
+     * @param batchSize the number of observations in each mini-batch.
+     * @param maxIter the maximum number of iterations.
+     * @return a random permutation of observation index.
+     */
+    private static int[] check(int n, int k, int batchSize, int maxIter) {
+        if (k < 2) {
+            throw new IllegalArgumentException("Invalid number of clusters: " + k);
+        }
+
+        if (n < k) {
+            throw new IllegalArgumentException(String.format("The number of observations %d < k = %d", n, k));
+        }
+
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid mini-batch size: " + batchSize);
+        }
+
+        if (maxIter <= 0) {
+            throw new IllegalArgumentException("Invalid maximum number of iterations: " + maxIter);
+        }
+
+        return MathEx.permutate(n);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        long n = Arrays.stream(count).sum();
+        sb.append(String.format("Mini-batch K-Means of %d clusters after %d updates:%n", k, n));
+        for (int i = 0; i < k; i++) {
+            double r = n == 0 ? 0.0 : 100.0 * count[i] / n;
+            sb.append(String.format("Cluster %4d %10d (%4.1f%%)%n", i+1, count[i], r));
+        }
+        return sb.toString();
+    }
+}
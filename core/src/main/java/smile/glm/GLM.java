@@ -24,6 +24,7 @@ import java.util.stream.IntStream;
 import smile.data.CategoricalEncoder;
 import smile.data.DataFrame;
 import smile.data.Tuple;
+import smile.data.formula.CompiledFormula;
 import smile.data.formula.Formula;
 import smile.glm.model.Model;
 import smile.math.MathEx;
@@ -79,6 +80,10 @@ public class GLM implements Serializable {
      * The symbolic description of the model to be fitted.
      */
     protected Formula formula;
+    /**
+     * The formula compiled against the schema of last input tuple.
+     */
+    private transient CompiledFormula compiled;
     /**
      * The predictors of design matrix.
      */
@@ -229,13 +234,27 @@ public class GLM implements Serializable {
         return ModelSelection.BIC(logLikelihood, beta.length, mu.length);
     }
 
+    /**
+     * Returns the formula compiled against the schema of tuple.
+     * @param x the input tuple.
+     * @return the compiled formula.
+     */
+    private CompiledFormula compile(Tuple x) {
+        CompiledFormula compiled = this.compiled;
+        if (compiled == null || compiled.schema() != x.schema()) {
+            compiled = formula.compile(x.schema(), true, CategoricalEncoder.DUMMY);
+            this.compiled = compiled;
+        }
+        return compiled;
+    }
+
     /**
      * Predicts the mean response.
      * @param x the instance.
      * @return the mean response.
      */
     public double predict(Tuple x) {
-        double[] a = formula.x(x).toArray(true, CategoricalEncoder.DUMMY);
+        double[] a = compile(x).apply(x);
         int p = beta.length;
         double dot = 0.0;
         for (int i = 0; i < p; i++) {
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.manifold;
+
+import java.util.Arrays;
+
+/**
+ * The space-partitioning tree for the Barnes-Hut approximation of the
+ * repulsive forces in t-SNE, i.e. a quadtree in 2 dimensional space and
+ * an octree in 3 dimensional space. Each cell keeps the center of mass
+ * and the number of points in it. When a cell is small and far enough
+ * from a point, all points in the cell are summarized by the center of
+ * mass in the computation of forces.
+ * <p>
+ * The nodes are stored in flat arrays, which are reused when the tree
+ * is rebuilt in each iteration.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li>L.J.P. van der Maaten. Accelerating t-SNE using Tree-Based Algorithms.
+ *     Journal of Machine Learning Research 15(Oct):3221-3245, 2014. </li>
+ * <li>J. Barnes and P. Hut. A hierarchical O(N log N) force-calculation algorithm. Nature 324:446-449, 1986.</li>
+ * </ol>
+ *
+ * @author Haifeng Li
+ */
+class BarnesHutTree {
+    /** The dimension of space. */
+    private final int d;
+    /** The number of children of a cell, i.e. 2<sup>d</sup>. */
+    private final int c;
+    /** The number of nodes. */
+    private int nodes;
+    /** The center of cells. */
+    private double[] center;
+    /** The half width of cells. */
+    private double[] width;
+    /** The center of mass of cells. */
+    private double[] mass;
+    /** The number of points in cells. */
+    private int[] size;
+    /** The first child of cells, or -1 for leaves. */
+    private int[] child;
+    /** The point in a leaf, or -1 for empty leaves. */
+    private int[] point;
+    /** The coordinates of points. */
+    private double[][] Y;
+
+    /**
+     * Constructor.
+     * @param d the dimension of space.
+     */
+    public BarnesHutTree(int d) {
+        this.d = d;
+        this.c = 1 << d;
+        allocate(1024);
+    }
+
+    /** Allocates the node arrays. */
+    private void allocate(int capacity) {
+        center = new double[capacity * d];
+        width = new double[capacity * d];
+        mass = new double[capacity * d];
+        size = new int[capacity];
+        child = new int[capacity];
+        point = new int[capacity];
+    }
+
+    /** Grows the node arrays. */
+    private void grow(int capacity) {
+        capacity = Math.max(capacity, 2 * size.length);
+        center = Arrays.copyOf(center, capacity * d);
+        width = Arrays.copyOf(width, capacity * d);
+        mass = Arrays.copyOf(mass, capacity * d);
+        size = Arrays.copyOf(size, capacity);
+        child = Arrays.copyOf(child, capacity);
+        point = Arrays.copyOf(point, capacity);
+    }
+
+    /**
+     * Rebuilds the tree of points.
+     * @param Y the coordinates of points.
+     */
+    public void build(double[][] Y) {
+        this.Y = Y;
+        int n = Y.length;
+
+        double[] min = new double[d];
+        double[] max = new double[d];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        for (double[] y : Y) {
+            for (int k = 0; k < d; k++) {
+                min[k] = Math.min(min[k], y[k]);
+                max[k] = Math.max(max[k], y[k]);
+            }
+        }
+
+        nodes = 0;
+        int root = node();
+        for (int k = 0; k < d; k++) {
+            center[k] = (min[k] + max[k]) / 2;
+            // Slightly enlarged so that all points are strictly inside.
+            width[k] = Math.max((max[k] - min[k]) / 2, 1E-5) * (1 + 1E-5);
+        }
+
+        for (int i = 0; i < n; i++) {
+            insert(root, i);
+        }
+    }
+
+    /** Creates an empty leaf and returns its index. */
+    private int node() {
+        if (nodes == size.length) {
+            grow(nodes + 1);
+        }
+
+        int node = nodes++;
+        Arrays.fill(mass, node * d, node * d + d, 0.0);
+        size[node] = 0;
+        child[node] = -1;
+        point[node] = -1;
+        return node;
+    }
+
+    /** Inserts a point into the tree. */
+    private void insert(int node, int i) {
+        double[] y = Y[i];
+        while (true) {
+            int offset = node * d;
+            int count = ++size[node];
+            for (int k = 0; k < d; k++) {
+                mass[offset + k] += (y[k] - mass[offset + k]) / count;
+            }
+
+            if (child[node] < 0) {
+                int p = point[node];
+                if (p < 0) {
+                    point[node] = i;
+                    return;
+                }
+
+                // The duplicates are counted in the leaf.
+                if (Arrays.equals(Y[p], y)) {
+                    return;
+                }
+
+                split(node);
+                int leaf = child[node] + quadrant(node, Y[p]);
+                size[leaf] = count - 1;
+                point[leaf] = p;
+                System.arraycopy(Y[p], 0, mass, leaf * d, d);
+                point[node] = -1;
+            }
+
+            node = child[node] + quadrant(node, y);
+        }
+    }
+
+    /** Splits a leaf into 2<sup>d</sup> children. */
+    private void split(int node) {
+        int first = nodes;
+        for (int q = 0; q < c; q++) {
+            int leaf = node();
+            int offset = node * d;
+            for (int k = 0; k < d; k++) {
+                double half = width[offset + k] / 2;
+                width[leaf * d + k] = half;
+                center[leaf * d + k] = center[offset + k] + ((q & (1 << k)) != 0 ? half : -half);
+            }
+        }
+        child[node] = first;
+    }
+
+    /** Returns the child cell of a point. */
+    private int quadrant(int node, double[] y) {
+        int offset = node * d;
+        int q = 0;
+        for (int k = 0; k < d; k++) {
+            if (y[k] > center[offset + k]) {
+                q |= 1 << k;
+            }
+        }
+        return q;
+    }
+
+    /**
+     * Computes the (unnormalized) repulsive force on a point. This method
+     * is thread safe after the tree is built.
+     * @param i the index of point.
+     * @param theta the accuracy trade-off parameter. A cell is summarized
+     *              by its center of mass if its half width divided by the
+     *              distance to the point is less than theta.
+     * @param force the output force, which is accumulated to.
+     * @return the sum of unnormalized Student-t kernel values of the point
+     *         to all others, which is the contribution to the normalization
+     *         constant.
+     */
+    public double force(int i, double theta, double[] force) {
+        return force(0, Y[i], theta * theta, force);
+    }
+
+    /** Computes the repulsive force in a cell recursively. */
+    private double force(int node, double[] y, double theta2, double[] force) {
+        int count = size[node];
+        if (count == 0) return 0.0;
+
+        int offset = node * d;
+        double dist = 0.0;
+        double maxWidth = 0.0;
+        for (int k = 0; k < d; k++) {
+            double diff = y[k] - mass[offset + k];
+            dist += diff * diff;
+            maxWidth = Math.max(maxWidth, width[offset + k]);
+        }
+
+        boolean leaf = child[node] < 0;
+        if (leaf || maxWidth * maxWidth < theta2 * dist) {
+            // The point itself (and its duplicates) yield no force.
+            if (leaf && dist == 0.0) count--;
+            double q = 1.0 / (1.0 + dist);
+            double sum = count * q;
+            double mult = sum * q;
+            for (int k = 0; k < d; k++) {
+                force[k] += mult * (y[k] - mass[offset + k]);
+            }
+            return sum;
+        }
+
+        double sum = 0.0;
+        int first = child[node];
+        for (int q = 0; q < c; q++) {
+            sum += force(first + q, y, theta2, force);
+        }
+        return sum;
+    }
+}
@@ -19,6 +19,7 @@ package smile.manifold;
 
 import java.io.Serializable;
 import smile.graph.AdjacencyList;
+import smile.graph.CSRGraph;
 import smile.graph.Graph.Edge;
 import smile.math.MathEx;
 import smile.math.blas.UPLO;
@@ -145,13 +146,34 @@ public class IsoMap implements Serializable {
      * @return the model.
      */
     public static <T> IsoMap of(T[] data, Distance<T> distance, int k, int d, boolean conformal) {
+        return of(data, distance, k, d, conformal, false);
+    }
+
+    /**
+     * Runs the Isomap algorithm.
+     * @param data the input data.
+     * @param distance the distance function.
+     * @param k k-nearest neighbor.
+     * @param d the dimension of the manifold.
+     * @param conformal C-Isomap algorithm if true, otherwise standard algorithm.
+     * @param approximate if true, the nearest neighbor graph is approximated
+     *                    with the NN-Descent algorithm for large data.
+     * @param <T> the data type of points.
+     * @return the model.
+     */
+    public static <T> IsoMap of(T[] data, Distance<T> distance, int k, int d, boolean conformal, boolean approximate) {
         AdjacencyList graph;
         if (!conformal) {
-            graph = NearestNeighborGraph.of(data, distance, k, false, null);
+            graph = approximate ?
+                    NearestNeighborGraph.descent(data, distance, k, false, null) :
+                    NearestNeighborGraph.of(data, distance, k, false, null);
         } else {
             int n = data.length;
             double[] M = new double[n];
-            graph = NearestNeighborGraph.of(data, distance, k, false, (v1, v2, weight, j) -> M[v1] += weight);
+            NearestNeighborGraph.EdgeConsumer consumer = (v1, v2, weight, j) -> M[v1] += weight;
+            graph = approximate ?
+                    NearestNeighborGraph.descent(data, distance, k, false, consumer) :
+                    NearestNeighborGraph.of(data, distance, k, false, consumer);
 
             for (int i = 0; i < n; i++) {
                 M[i] = Math.sqrt(M[i] / k);
@@ -169,7 +191,8 @@ public class IsoMap implements Serializable {
         int n = index.length;
         graph = nng.graph;
 
-        double[][] D = graph.dijkstra();
+        // All pairs shortest paths on the compact graph in parallel.
+        double[][] D = CSRGraph.of(graph).dijkstra();
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < i; j++) {
                 D[i][j] = -0.5 * D[i][j] * D[i][j];
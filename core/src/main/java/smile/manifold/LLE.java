@@ -22,6 +22,7 @@ import java.util.Arrays;
 import smile.graph.AdjacencyList;
 import smile.math.MathEx;
 import smile.math.blas.Transpose;
+import smile.math.distance.EuclideanDistance;
 import smile.math.matrix.ARPACK;
 import smile.math.matrix.IMatrix;
 import smile.math.matrix.Matrix;
@@ -98,6 +99,19 @@ public class LLE implements Serializable {
      * @return the model.
      */
     public static LLE of(double[][] data, int k, int d) {
+        return of(data, k, d, false);
+    }
+
+    /**
+     * Runs the LLE algorithm.
+     * @param data the input data.
+     * @param d the dimension of the manifold.
+     * @param k k-nearest neighbor.
+     * @param approximate if true, the nearest neighbor graph is approximated
+     *                    with the NN-Descent algorithm for large data.
+     * @return the model.
+     */
+    public static LLE of(double[][] data, int k, int d, boolean approximate) {
         int D = data[0].length;
 
         double tol = 0.0;
@@ -108,7 +122,10 @@ public class LLE implements Serializable {
 
         // Use largest connected component of nearest neighbor graph.
         int[][] N = new int[data.length][k];
-        AdjacencyList graph = NearestNeighborGraph.of(data, k, false, (v1, v2, weight, j) -> N[v1][j] = v2);
+        NearestNeighborGraph.EdgeConsumer consumer = (v1, v2, weight, j) -> N[v1][j] = v2;
+        AdjacencyList graph = approximate ?
+                NearestNeighborGraph.descent(data, new EuclideanDistance(), k, false, consumer) :
+                NearestNeighborGraph.of(data, k, false, consumer);
         NearestNeighborGraph nng = NearestNeighborGraph.largest(graph);
 
         int[] index = nng.index;
@@ -144,8 +144,27 @@ public class LaplacianEigenmap implements Serializable {
      * @return the model.
      */
     public static <T> LaplacianEigenmap of(T[] data, Distance<T> distance, int k, int d, double t) {
+        return of(data, distance, k, d, t, false);
+    }
+
+    /**
+     * Laplacian Eigenmap with Gaussian kernel.
+     * @param data the input data.
+     * @param distance the distance function.
+     * @param k k-nearest neighbor.
+     * @param d the dimension of the manifold.
+     * @param t the smooth/width parameter of heat kernel exp(-||x-y||<sup>2</sup> / t).
+     *          Non-positive value means discrete weights.
+     * @param approximate if true, the nearest neighbor graph is approximated
+     *                    with the NN-Descent algorithm for large data.
+     * @param <T> the data type of points.
+     * @return the model.
+     */
+    public static <T> LaplacianEigenmap of(T[] data, Distance<T> distance, int k, int d, double t, boolean approximate) {
         // Use largest connected component of nearest neighbor graph.
-        AdjacencyList graph = NearestNeighborGraph.of(data, distance, k, false, null);
+        AdjacencyList graph = approximate ?
+                NearestNeighborGraph.descent(data, distance, k, false, null) :
+                NearestNeighborGraph.of(data, distance, k, false, null);
         NearestNeighborGraph nng = NearestNeighborGraph.largest(graph);
 
         int[] index = nng.index;
@@ -17,11 +17,16 @@
 
 package smile.manifold;
 
+import java.util.Arrays;
+import java.util.stream.IntStream;
 import smile.graph.AdjacencyList;
+import smile.math.MathEx;
 import smile.math.distance.Distance;
 import smile.math.distance.EuclideanDistance;
+import smile.neighbor.KNNSearch;
 import smile.neighbor.LinearSearch;
 import smile.neighbor.Neighbor;
+import smile.sort.QuickSort;
 
 /**
  * Nearest neighbor graph builder.
@@ -85,32 +90,383 @@ class NearestNeighborGraph {
      */
     public static <T> AdjacencyList of(T[] data, Distance<T> distance, int k, boolean digraph, EdgeConsumer consumer) {
         // This is actually faster on many core systems.
-        LinearSearch<T> knn = new LinearSearch<>(data, distance);
+        return of(data, new LinearSearch<>(data, distance), k, digraph, consumer);
+    }
+
+    /**
+     * Creates a nearest neighbor graph with a k-nearest neighbor search
+     * algorithm, e.g. HNSW for approximate nearest neighbor graph of
+     * large data.
+     *
+     * @param data the dataset.
+     * @param knn the k-nearest neighbor search data structure of dataset,
+     *            which should exclude the query object itself.
+     * @param k k-nearest neighbor.
+     * @param digraph flag to create a directed graph.
+     * @param consumer an optional lambda to perform some side effect operations.
+     */
+    public static <T> AdjacencyList of(T[] data, KNNSearch<T, T> knn, int k, boolean digraph, EdgeConsumer consumer) {
+        int n = data.length;
+        AdjacencyList graph = new AdjacencyList(n, digraph);
+
+        // The queries are independent and run in parallel.
+        // The graph is built serially as AdjacencyList is not thread safe.
+        @SuppressWarnings("unchecked")
+        Neighbor<T, T>[][] neighbors = new Neighbor[n][];
+        IntStream.range(0, n).parallel().forEach(i -> neighbors[i] = knn.knn(data[i], k));
+
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < neighbors[i].length; j++) {
+                Neighbor<T, T> neighbor = neighbors[i][j];
+                graph.setWeight(i, neighbor.index, neighbor.distance);
+                if (consumer != null) {
+                    consumer.accept(i, neighbor.index, neighbor.distance, j);
+                }
+            }
+        }
+
+        return graph;
+    }
 
+    /**
+     * Creates an approximate nearest neighbor graph with the NN-Descent
+     * algorithm. It is much faster than the exact graph on large data
+     * with a small loss of recall.
+     *
+     * @param data the dataset.
+     * @param distance the distance function.
+     * @param k k-nearest neighbor.
+     * @param digraph flag to create a directed graph.
+     * @param consumer an optional lambda to perform some side effect operations.
+     */
+    public static <T> AdjacencyList descent(T[] data, Distance<T> distance, int k, boolean digraph, EdgeConsumer consumer) {
+        int maxCandidates = Math.min(60, 3 * k);
+        int maxIter = Math.max(5, (int) Math.round(MathEx.log2(data.length)));
+        return descent(data, distance, k, maxCandidates, maxIter, 0.001, digraph, consumer);
+    }
+
+    /**
+     * Creates an approximate nearest neighbor graph with the NN-Descent
+     * algorithm.
+     *
+     * @param data the dataset.
+     * @param distance the distance function.
+     * @param k k-nearest neighbor.
+     * @param maxCandidates the maximum number of new and old candidates
+     *                      of each point in the local join.
+     * @param maxIter the maximum number of iterations.
+     * @param delta the early termination threshold. The algorithm stops
+     *              when less than <code>delta * n * k</code> neighbors
+     *              are updated in an iteration.
+     * @param digraph flag to create a directed graph.
+     * @param consumer an optional lambda to perform some side effect operations.
+     */
+    public static <T> AdjacencyList descent(T[] data, Distance<T> distance, int k, int maxCandidates, int maxIter, double delta, boolean digraph, EdgeConsumer consumer) {
         int n = data.length;
+        int[][] neighbors = new int[n][k];
+        double[][] distances = new double[n][k];
+        descent(data, distance, maxCandidates, maxIter, delta, neighbors, distances);
+
         AdjacencyList graph = new AdjacencyList(n, digraph);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < k; j++) {
+                graph.setWeight(i, neighbors[i][j], distances[i][j]);
+                if (consumer != null) {
+                    consumer.accept(i, neighbors[i][j], distances[i][j], j);
+                }
+            }
+        }
+
+        return graph;
+    }
+
+    /**
+     * Finds the approximate k-nearest neighbors of each point with the
+     * NN-Descent algorithm. Starting from random neighbors, it iteratively
+     * improves the graph by the local join, i.e. comparing the neighbors
+     * (and reverse neighbors) of each point with each other, based on the
+     * principle that a neighbor of a neighbor is likely to be a neighbor.
+     * The new and old candidates are sampled as in PyNNDescent. The local
+     * join runs in parallel.
+     *
+     * <h2>References</h2>
+     * <ol>
+     * <li>Wei Dong, Moses Charikar, and Kai Li. Efficient k-nearest neighbor graph construction for generic similarity measures. WWW, 2011.</li>
+     * </ol>
+     *
+     * @param data the dataset.
+     * @param distance the distance function.
+     * @param maxCandidates the maximum number of new and old candidates
+     *                      of each point in the local join.
+     * @param maxIter the maximum number of iterations.
+     * @param delta the early termination threshold.
+     * @param neighbors the output k-nearest neighbors of each point in
+     *                  ascending order of distance. The length of rows
+     *                  is k.
+     * @param distances the output distance to the k-nearest neighbors.
+     */
+    static <T> void descent(T[] data, Distance<T> distance, int maxCandidates, int maxIter, double delta, int[][] neighbors, double[][] distances) {
+        int n = data.length;
+        int k = neighbors[0].length;
+        if (k >= n) {
+            throw new IllegalArgumentException("k must be less than the data size: " + k);
+        }
+        if (maxCandidates <= 0) {
+            throw new IllegalArgumentException("Invalid maxCandidates: " + maxCandidates);
+        }
+        if (maxIter <= 0) {
+            throw new IllegalArgumentException("Invalid maxIter: " + maxIter);
+        }
+
+        NeighborHeap[] heaps = new NeighborHeap[n];
+        for (int i = 0; i < n; i++) {
+            heaps[i] = new NeighborHeap(k);
+            int[] index = heaps[i].index;
+            for (int j = 0; j < k; j++) {
+                int r;
+                do {
+                    r = MathEx.randomInt(n);
+                } while (r == i || contains(index, j, r));
+                index[j] = r;
+            }
+        }
+
+        // Random initialization.
+        IntStream.range(0, n).parallel().forEach(i -> {
+            NeighborHeap heap = heaps[i];
+            int[] index = heap.index.clone();
+            Arrays.fill(heap.index, -1);
+            for (int j : index) {
+                heap.add(j, distance.d(data[i], data[j]), true);
+            }
+        });
+
+        CandidateHeap[] fresh = new CandidateHeap[n];
+        CandidateHeap[] old = new CandidateHeap[n];
+        for (int i = 0; i < n; i++) {
+            fresh[i] = new CandidateHeap(maxCandidates);
+            old[i] = new CandidateHeap(maxCandidates);
+        }
+
+        for (int iter = 1; iter <= maxIter; iter++) {
+            // Samples the new and old candidates of neighbors and
+            // reverse neighbors with random priorities.
+            for (int i = 0; i < n; i++) {
+                fresh[i].clear();
+                old[i].clear();
+            }
 
-        if (consumer != null) {
             for (int i = 0; i < n; i++) {
-                Neighbor<T, T>[] neighbors = knn.knn(data[i], k);
-
-                int v1 = i;
-                for (int j = 0; j < neighbors.length; j++) {
-                    int v2 = neighbors[j].index;
-                    double weight = neighbors[j].distance;
-                    graph.setWeight(v1, v2, weight);
-                    consumer.accept(v1, v2, weight, j);
+                NeighborHeap heap = heaps[i];
+                for (int j = 0; j < k; j++) {
+                    int u = heap.index[j];
+                    double priority = MathEx.random();
+                    CandidateHeap[] candidates = heap.fresh[j] ? fresh : old;
+                    candidates[i].add(u, priority);
+                    candidates[u].add(i, priority);
                 }
             }
-        } else {
+
+            // The sampled new candidates become old.
             for (int i = 0; i < n; i++) {
-                for (Neighbor<T, T> neighbor : knn.knn(data[i], k)) {
-                    graph.setWeight(i, neighbor.index, neighbor.distance);
+                NeighborHeap heap = heaps[i];
+                CandidateHeap candidates = fresh[i];
+                for (int j = 0; j < k; j++) {
+                    if (heap.fresh[j] && contains(candidates.index, candidates.size, heap.index[j])) {
+                        heap.fresh[j] = false;
+                    }
                 }
             }
+
+            // Local join.
+            int updates = IntStream.range(0, n).parallel().map(i -> {
+                int c = 0;
+                CandidateHeap newer = fresh[i];
+                CandidateHeap older = old[i];
+                for (int a = 0; a < newer.size; a++) {
+                    int u1 = newer.index[a];
+                    for (int b = a + 1; b < newer.size; b++) {
+                        int u2 = newer.index[b];
+                        double d = distance.d(data[u1], data[u2]);
+                        if (heaps[u1].push(u2, d)) c++;
+                        if (heaps[u2].push(u1, d)) c++;
+                    }
+
+                    for (int b = 0; b < older.size; b++) {
+                        int u2 = older.index[b];
+                        if (u1 == u2) continue;
+                        double d = distance.d(data[u1], data[u2]);
+                        if (heaps[u1].push(u2, d)) c++;
+                        if (heaps[u2].push(u1, d)) c++;
+                    }
+                }
+                return c;
+            }).sum();
+
+            logger.info("NN-Descent iteration {}: {} updates", iter, updates);
+            if (updates <= delta * n * k) {
+                break;
+            }
         }
 
-        return graph;
+        for (int i = 0; i < n; i++) {
+            NeighborHeap heap = heaps[i];
+            System.arraycopy(heap.index, 0, neighbors[i], 0, k);
+            System.arraycopy(heap.distance, 0, distances[i], 0, k);
+            QuickSort.sort(distances[i], neighbors[i]);
+        }
+    }
+
+    /**
+     * Returns true if the first n elements of array contains the value.
+     */
+    private static boolean contains(int[] array, int n, int value) {
+        for (int i = 0; i < n; i++) {
+            if (array[i] == value) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The max-heap of k-nearest neighbors of a point in NN-Descent.
+     * The flag of each neighbor indicates if it is new, i.e. not
+     * yet participated in the local join.
+     */
+    private static class NeighborHeap {
+        /** The index of neighbors. */
+        final int[] index;
+        /** The distance to neighbors. */
+        final double[] distance;
+        /** The flag if a neighbor is new. */
+        final boolean[] fresh;
+
+        /**
+         * Constructor.
+         * @param k the number of neighbors.
+         */
+        NeighborHeap(int k) {
+            index = new int[k];
+            distance = new double[k];
+            fresh = new boolean[k];
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        }
+
+        /**
+         * Pushes a new neighbor to the heap if it is closer than the
+         * farthest neighbor. This method is thread safe.
+         * @param j the index of neighbor.
+         * @param d the distance to neighbor.
+         * @return true if the heap is updated.
+         */
+        boolean push(int j, double d) {
+            // The root distance never increases. So the unsynchronized
+            // check never rejects a closer neighbor.
+            if (d >= distance[0]) return false;
+
+            synchronized (this) {
+                return add(j, d, true);
+            }
+        }
+
+        /**
+         * Pushes a neighbor to the heap if it is closer than the farthest
+         * neighbor and not in the heap yet.
+         * @param j the index of neighbor.
+         * @param d the distance to neighbor.
+         * @param isNew the flag if the neighbor is new.
+         * @return true if the heap is updated.
+         */
+        boolean add(int j, double d, boolean isNew) {
+            if (d >= distance[0] || contains(index, index.length, j)) {
+                return false;
+            }
+
+            // Sifts down the hole at the root so that the root distance
+            // only decreases, which is required by push().
+            int k = index.length;
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= k) break;
+                if (child + 1 < k && distance[child + 1] > distance[child]) child++;
+                if (distance[child] <= d) break;
+                index[i] = index[child];
+                distance[i] = distance[child];
+                fresh[i] = fresh[child];
+                i = child;
+            }
+
+            index[i] = j;
+            distance[i] = d;
+            fresh[i] = isNew;
+            return true;
+        }
+    }
+
+    /**
+     * The bounded max-heap of candidates with random priorities, which
+     * keeps a uniform sample of the candidates in NN-Descent.
+     */
+    private static class CandidateHeap {
+        /** The index of candidates. */
+        final int[] index;
+        /** The random priority of candidates. */
+        final double[] priority;
+        /** The number of candidates. */
+        int size;
+
+        /**
+         * Constructor.
+         * @param capacity the maximum number of candidates.
+         */
+        CandidateHeap(int capacity) {
+            index = new int[capacity];
+            priority = new double[capacity];
+        }
+
+        /** Removes all candidates. */
+        void clear() {
+            size = 0;
+        }
+
+        /**
+         * Adds a candidate if its priority is among the smallest ones.
+         * @param j the index of candidate.
+         * @param p the random priority.
+         */
+        void add(int j, double p) {
+            int capacity = index.length;
+            if (size == capacity && p >= priority[0]) return;
+            if (contains(index, size, j)) return;
+
+            if (size < capacity) {
+                // Sifts up.
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) / 2;
+                    if (priority[parent] >= p) break;
+                    index[i] = index[parent];
+                    priority[i] = priority[parent];
+                    i = parent;
+                }
+                index[i] = j;
+                priority[i] = p;
+            } else {
+                // Replaces the root and sifts down.
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) break;
+                    if (child + 1 < size && priority[child + 1] > priority[child]) child++;
+                    if (priority[child] <= p) break;
+                    index[i] = index[child];
+                    priority[i] = priority[child];
+                    i = child;
+                }
+                index[i] = j;
+                priority[i] = p;
+            }
+        }
     }
 
     /**
@@ -21,6 +21,8 @@ import java.io.Serializable;
 import java.util.Arrays;
 import java.util.stream.IntStream;
 import smile.math.MathEx;
+import smile.math.distance.EuclideanDistance;
+import smile.sort.QuickSort;
 import smile.stat.distribution.GaussianDistribution;
 
 /**
@@ -42,6 +44,14 @@ import smile.stat.distribution.GaussianDistribution;
  * of the points in the map. Note that while the original algorithm uses
  * the Euclidean distance between objects as the base of its similarity
  * metric, this should be changed as appropriate.
+ * <p>
+ * The exact algorithm takes O(n<sup>2</sup>) time and memory. For large
+ * data, the Barnes-Hut approximation computes the input similarities
+ * only between the <code>3 * perplexity</code> nearest neighbors of each
+ * point, which are found by NN-Descent, and approximates the repulsive
+ * forces with a quadtree (octree in 3 dimensional space). It takes
+ * O(n log n) time per iteration and O(n) memory. The gradient is
+ * computed in parallel over points.
  *
  * <h2>References</h2>
  * <ol>
@@ -97,12 +107,23 @@ public class TSNE implements Serializable {
      */
     private final double minGain         = .01;
 
+    /**
+     * The accuracy trade-off parameter of Barnes-Hut approximation.
+     * 0 for the exact algorithm.
+     */
+    private final double theta;
     /** The gain matrix. */
     private final double[][] gains; // adjust learning rate for each point
     /** The probability matrix of the distances in the input space. */
     private final double[][] P;
     /** The probability matrix of the distances in the feature space. */
     private final double[][] Q;
+    /** The row pointers of sparse P matrix in Barnes-Hut approximation. */
+    private final int[] rowPtr;
+    /** The column indices of sparse P matrix in Barnes-Hut approximation. */
+    private final int[] colIndex;
+    /** The nonzero values of sparse P matrix in Barnes-Hut approximation. */
+    private final double[] nonzeros;
     /** The sum of Q matrix. */
     private double Qsum;
     /** The cost function value. */
@@ -119,6 +140,9 @@ public class TSNE implements Serializable {
     }
 
     /** Constructor. Train t-SNE for given number of iterations.
+     * The Barnes-Hut approximation with theta = 0.5 is employed
+     * if there are more than 5000 samples and the embedding space
+     * is 2 or 3 dimensional.
      *
      * @param X the input data. If X is a square matrix, it is assumed to be
      *         the squared distance/dissimilarity matrix.
@@ -128,31 +152,143 @@ public class TSNE implements Serializable {
      * @param iterations the number of iterations.
      */
     public TSNE(double[][] X, int d, double perplexity, double eta, int iterations) {
-        this.eta = eta;
-        int n = X.length;
+        this(X, d, perplexity, eta, iterations, X.length > 5000 && d <= 3 ? 0.5 : 0.0);
+    }
 
-        double[][] D;
-        if (X.length == X[0].length) {
-            D = X;
-        } else {
-            D = new double[n][n];
-            MathEx.pdist(X, D, MathEx::squaredDistance);
+    /** Constructor. Train t-SNE for given number of iterations.
+     *
+     * @param X the input data. If X is a square matrix, it is assumed to be
+     *         the squared distance/dissimilarity matrix.
+     * @param d the dimension of embedding space.
+     * @param perplexity the perplexity of the conditional distribution.
+     * @param eta the learning rate.
+     * @param iterations the number of iterations.
+     * @param theta the accuracy trade-off parameter of Barnes-Hut
+     *              approximation, which is only supported in 2 or 3
+     *              dimensional embedding space. Smaller values are more
+     *              accurate but slower. 0 for the exact algorithm.
+     *              The typical value is 0.5.
+     */
+    public TSNE(double[][] X, int d, double perplexity, double eta, int iterations, double theta) {
+        if (theta < 0.0) {
+            throw new IllegalArgumentException("Invalid theta: " + theta);
+        }
+        if (theta > 0.0 && (d < 2 || d > 3)) {
+            throw new IllegalArgumentException("Barnes-Hut approximation supports only 2 or 3 dimensional embedding: " + d);
         }
 
+        this.eta = eta;
+        this.theta = theta;
+        int n = X.length;
+
         coordinates = new double[n][d];
-        double[][] Y = coordinates;
         gains = new double[n][d]; // adjust learning rate for each point
 
         // Initialize Y randomly by N(0, 0.0001)
         GaussianDistribution gaussian = new GaussianDistribution(0.0, 0.0001);
         for (int i = 0; i < n; i++) {
             Arrays.fill(gains[i], 1.0);
-            double[] Yi = Y[i];
+            double[] Yi = coordinates[i];
             for (int j = 0; j < d; j++) {
                 Yi[j] = gaussian.rand();
             }
         }
 
+        if (theta > 0.0) {
+            P = null;
+            Q = null;
+
+            int k = Math.min(n - 1, (int) (3 * perplexity));
+            int[][] neighbors = new int[n][k];
+            double[][] distances = new double[n][k];
+            if (X.length == X[0].length) {
+                knn(X, neighbors, distances);
+            } else {
+                int maxCandidates = Math.min(60, 3 * k);
+                int maxIter = Math.max(5, (int) Math.round(MathEx.log2(n)));
+                NearestNeighborGraph.descent(X, new EuclideanDistance(), maxCandidates, maxIter, 0.001, neighbors, distances);
+                for (double[] row : distances) {
+                    for (int j = 0; j < k; j++) {
+                        row[j] *= row[j];
+                    }
+                }
+            }
+            logger.info("Finish the nearest neighbor search");
+
+            // Large tolerance to speed up the search of Gaussian kernel width
+            // A small difference of kernel width is not important.
+            expknn(distances, perplexity, 1E-3);
+
+            // Make P symmetric in the compressed sparse row format.
+            // sum(P) = 2 * n as each row of P is normalized
+            rowPtr = new int[n + 1];
+            for (int i = 0; i < n; i++) {
+                rowPtr[i + 1] += k;
+                for (int j : neighbors[i]) {
+                    rowPtr[j + 1]++;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                rowPtr[i + 1] += rowPtr[i];
+            }
+
+            int[] pos = Arrays.copyOf(rowPtr, n);
+            int[] cols = new int[rowPtr[n]];
+            double[] vals = new double[rowPtr[n]];
+            double Psum = 2 * n;
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < k; j++) {
+                    int l = neighbors[i][j];
+                    double p = 12.0 * distances[i][j] / Psum;
+                    cols[pos[i]] = l;
+                    vals[pos[i]++] = p;
+                    cols[pos[l]] = i;
+                    vals[pos[l]++] = p;
+                }
+            }
+
+            // Merge the duplicate entries of mutual neighbors.
+            int nz = 0;
+            for (int i = 0; i < n; i++) {
+                int begin = rowPtr[i];
+                int end = rowPtr[i + 1];
+                rowPtr[i] = nz;
+
+                int[] index = Arrays.copyOfRange(cols, begin, end);
+                double[] value = Arrays.copyOfRange(vals, begin, end);
+                QuickSort.sort(index, value);
+                for (int j = 0; j < index.length; j++) {
+                    if (j > 0 && index[j] == index[j-1]) {
+                        vals[nz - 1] += value[j];
+                    } else {
+                        cols[nz] = index[j];
+                        vals[nz++] = value[j];
+                    }
+                }
+            }
+            rowPtr[n] = nz;
+            colIndex = Arrays.copyOf(cols, nz);
+            nonzeros = Arrays.copyOf(vals, nz);
+            for (int i = 0; i < nz; i++) {
+                if (Double.isNaN(nonzeros[i]) || nonzeros[i] < 1E-16) nonzeros[i] = 1E-16;
+            }
+
+            update(iterations);
+            return;
+        }
+
+        rowPtr = null;
+        colIndex = null;
+        nonzeros = null;
+
+        double[][] D;
+        if (X.length == X[0].length) {
+            D = X;
+        } else {
+            D = new double[n][n];
+            MathEx.pdist(X, D, MathEx::squaredDistance);
+        }
+
         // Large tolerance to speed up the search of Gaussian kernel width
         // A small difference of kernel width is not important.
         P = expd(D, perplexity, 1E-3);
@@ -192,11 +328,24 @@ public class TSNE implements Serializable {
         int d = Y[0].length;
         double[][] dY = new double[n][d];
         double[][] dC = new double[n][d];
+        BarnesHutTree tree = theta > 0.0 ? new BarnesHutTree(d) : null;
 
         for (int iter = 1; iter <= iterations; iter++, totalIter++) {
-            Qsum = computeQ(Y, Q);
-
-            IntStream.range(0, n).parallel().forEach(i -> sne(i, dY[i], dC[i]));
+            if (tree != null) {
+                tree.build(Y);
+
+                // The repulsive forces and normalization constant.
+                double[] rowSum = IntStream.range(0, n).parallel().mapToDouble(i -> {
+                    Arrays.fill(dC[i], 0.0);
+                    return tree.force(i, theta, dC[i]);
+                }).toArray();
+                Qsum = MathEx.sum(rowSum);
+
+                IntStream.range(0, n).parallel().forEach(i -> bhsne(i, dY[i], dC[i]));
+            } else {
+                Qsum = computeQ(Y, Q);
+                IntStream.range(0, n).parallel().forEach(i -> sne(i, dY[i], dC[i]));
+            }
 
             // gradient update with momentum and gains
             IntStream.range(0, n).parallel().forEach(i -> {
@@ -212,17 +361,23 @@ public class TSNE implements Serializable {
 
             if (totalIter == momentumSwitchIter) {
                 momentum = finalMomentum;
-                for (int i = 0; i < n; i++) {
-                    double[] Pi = P[i];
-                    for (int j = 0; j < n; j++) {
-                        Pi[j] /= 12.0;
+                if (nonzeros != null) {
+                    for (int i = 0; i < nonzeros.length; i++) {
+                        nonzeros[i] /= 12.0;
+                    }
+                } else {
+                    for (int i = 0; i < n; i++) {
+                        double[] Pi = P[i];
+                        for (int j = 0; j < n; j++) {
+                            Pi[j] /= 12.0;
+                        }
                     }
                 }
             }
 
             // Compute current value of cost function
             if (iter % 100 == 0)   {
-                cost = computeCost(P, Q);
+                cost = computeCost();
                 logger.info("Error after {} iterations: {}", iter, cost);
             }
         }
@@ -237,7 +392,7 @@ public class TSNE implements Serializable {
         });
 
         if (iterations % 100 != 0)   {
-            cost = computeCost(P, Q);
+            cost = computeCost();
             logger.info("Error after {} iterations: {}", iterations, cost);
         }
     }
@@ -267,7 +422,39 @@ public class TSNE implements Serializable {
             }
         }
 
-        // Update gains
+        updateGains(g, dY, dC);
+    }
+
+    /**
+     * Computes the gradients with Barnes-Hut approximation.
+     * On input, dC contains the unnormalized repulsive forces.
+     */
+    private void bhsne(int i, double[] dY, double[] dC) {
+        double[][] Y = coordinates;
+        int d = Y[0].length;
+        double[] Yi = Y[i];
+
+        // The attractive forces between nearest neighbors.
+        double[] attraction = new double[d];
+        for (int l = rowPtr[i]; l < rowPtr[i + 1]; l++) {
+            double[] Yj = Y[colIndex[l]];
+            double q = 1.0 / (1.0 + MathEx.squaredDistance(Yi, Yj));
+            double z = nonzeros[l] * q;
+            for (int k = 0; k < d; k++) {
+                attraction[k] += (Yi[k] - Yj[k]) * z;
+            }
+        }
+
+        for (int k = 0; k < d; k++) {
+            dC[k] = 4.0 * (attraction[k] - dC[k] / Qsum);
+        }
+
+        updateGains(gains[i], dY, dC);
+    }
+
+    /** Updates the gains. */
+    private void updateGains(double[] g, double[] dY, double[] dC) {
+        int d = g.length;
         for (int k = 0; k < d; k++) {
             g[k] = (Math.signum(dC[k]) != Math.signum(dY[k])) ? (g[k] + .2) : (g[k] * .8);
             if (g[k] < minGain) g[k] = minGain;
@@ -337,6 +524,79 @@ public class TSNE implements Serializable {
         return P;
     }
 
+    /**
+     * Computes the conditional probabilities of nearest neighbors in place
+     * (search the width of Gaussian kernel for given perplexity).
+     * @param D the squared distances to the nearest neighbors on input,
+     *          and the conditional probabilities on output.
+     */
+    private void expknn(double[][] D, double perplexity, double tol) {
+        IntStream.range(0, D.length).parallel().forEach(i -> {
+            double logU = MathEx.log2(perplexity);
+
+            double[] Di = D[i];
+            int k = Di.length;
+            double[] Pi = new double[k];
+
+            // Use sqrt(1 / avg of distance) to initialize beta
+            double DiSum = MathEx.sum(Di);
+            double beta = DiSum > 0.0 ? Math.sqrt(k / DiSum) : 1.0;
+            double betamin = 0.0;
+            double betamax = Double.POSITIVE_INFINITY;
+
+            double Pisum = 0.0;
+            double Hdiff = Double.MAX_VALUE;
+            for (int iter = 0; Math.abs(Hdiff) > tol && iter < 50; iter++) {
+                Pisum = 0.0;
+                double H = 0.0;
+                for (int j = 0; j < k; j++) {
+                    double d = beta * Di[j];
+                    double p = Math.exp(-d);
+                    Pi[j] = p;
+                    Pisum += p;
+                    H += p * d;
+                }
+
+                H = MathEx.log2(Pisum) + H / Pisum;
+                Hdiff = H - logU;
+
+                if (Math.abs(Hdiff) > tol) {
+                    if (Hdiff > 0) {
+                        betamin = beta;
+                        if (Double.isInfinite(betamax))
+                            beta *= 2.0;
+                        else
+                            beta = (beta + betamax) / 2;
+                    } else {
+                        betamax = beta;
+                        beta = (beta + betamin) / 2;
+                    }
+                }
+            }
+
+            // normalize by row
+            for (int j = 0; j < k; j++) {
+                Di[j] = Pi[j] / Pisum;
+            }
+        });
+    }
+
+    /**
+     * Finds the k-nearest neighbors from the squared distance matrix.
+     */
+    private static void knn(double[][] D, int[][] neighbors, double[][] distances) {
+        IntStream.range(0, D.length).parallel().forEach(i -> {
+            int n = D.length;
+            int k = neighbors[i].length;
+            double[] Di = D[i].clone();
+            int[] index = IntStream.range(0, n).toArray();
+            Di[i] = Double.POSITIVE_INFINITY;
+            QuickSort.sort(Di, index);
+            System.arraycopy(index, 0, neighbors[i], 0, k);
+            System.arraycopy(Di, 0, distances[i], 0, k);
+        });
+    }
+
     /**
      * Computes the Q matrix.
      */
@@ -364,7 +624,21 @@ public class TSNE implements Serializable {
     /**
      * Computes the cost function.
      */
-    private double computeCost(double[][] P, double[][] Q) {
+    private double computeCost() {
+        if (nonzeros != null) {
+            double[][] Y = coordinates;
+            return IntStream.range(0, Y.length).parallel().mapToDouble(i -> {
+                double C = 0.0;
+                for (int l = rowPtr[i]; l < rowPtr[i + 1]; l++) {
+                    double p = nonzeros[l];
+                    double q = 1.0 / (1.0 + MathEx.squaredDistance(Y[i], Y[colIndex[l]])) / Qsum;
+                    if (Double.isNaN(q) || q < 1E-16) q = 1E-16;
+                    C += p * MathEx.log2(p / q);
+                }
+                return C;
+            }).sum();
+        }
+
         return 2 * IntStream.range(0, Q.length).parallel().mapToDouble(i -> {
             double[] Pi = P[i];
             double[] Qi = Q[i];
@@ -18,7 +18,9 @@
 package smile.manifold;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.IntStream;
 import smile.graph.AdjacencyList;
 import smile.graph.Graph.Edge;
@@ -30,6 +32,8 @@ import smile.math.distance.EuclideanDistance;
 import smile.math.matrix.ARPACK;
 import smile.math.matrix.Matrix;
 import smile.math.matrix.SparseMatrix;
+import smile.neighbor.LinearSearch;
+import smile.neighbor.Neighbor;
 import smile.stat.distribution.GaussianDistribution;
 
 /**
@@ -73,6 +77,40 @@ public class UMAP implements Serializable {
      * The nearest neighbor graph.
      */
     public final AdjacencyList graph;
+    /**
+     * The training samples in the order of coordinates, which are
+     * the reference of out-of-sample embedding. It is null if the
+     * model doesn't support out-of-sample embedding.
+     */
+    private final double[][] data;
+    /**
+     * The distance function of samples.
+     */
+    private final Distance<double[]> distance;
+    /**
+     * The number of nearest neighbors.
+     */
+    private final int k;
+    /**
+     * The parameters of differentiable curve.
+     */
+    private final double[] curve;
+    /**
+     * The number of iterations of layout optimization.
+     */
+    private final int iterations;
+    /**
+     * The initial learning rate.
+     */
+    private final double learningRate;
+    /**
+     * The number of negative samples per positive sample.
+     */
+    private final int negativeSamples;
+    /**
+     * The weight of negative samples.
+     */
+    private final double repulsionStrength;
 
     /**
      * Constructor.
@@ -81,9 +119,36 @@ public class UMAP implements Serializable {
      * @param graph the nearest neighbor graph.
      */
     public UMAP(int[] index, double[][] coordinates, AdjacencyList graph) {
+        this(index, coordinates, graph, null, null, 0, null, 0, 0.0, 0, 0.0);
+    }
+
+    /**
+     * Constructor of the model that supports out-of-sample embedding.
+     * @param index the original sample index.
+     * @param coordinates the coordinates.
+     * @param graph the nearest neighbor graph.
+     * @param data the training samples in the order of coordinates.
+     * @param distance the distance function.
+     * @param k the number of nearest neighbors.
+     * @param curve the parameters of differentiable curve.
+     * @param iterations the number of iterations.
+     * @param learningRate the initial learning rate.
+     * @param negativeSamples the number of negative samples per positive sample.
+     * @param repulsionStrength the weight of negative samples.
+     */
+    private UMAP(int[] index, double[][] coordinates, AdjacencyList graph, double[][] data, Distance<double[]> distance,
+                 int k, double[] curve, int iterations, double learningRate, int negativeSamples, double repulsionStrength) {
         this.index = index;
         this.coordinates = coordinates;
         this.graph = graph;
+        this.data = data;
+        this.distance = distance;
+        this.k = k;
+        this.curve = curve;
+        this.iterations = iterations;
+        this.learningRate = learningRate;
+        this.negativeSamples = negativeSamples;
+        this.repulsionStrength = repulsionStrength;
     }
 
     /**
@@ -215,6 +280,50 @@ public class UMAP implements Serializable {
      * @return the model.
      */
     public static <T> UMAP of(T[] data, Distance<T> distance, int k, int d, int iterations, double learningRate, double minDist, double spread, int negativeSamples, double repulsionStrength) {
+        return of(data, distance, k, d, iterations, learningRate, minDist, spread, negativeSamples, repulsionStrength, false);
+    }
+
+    /**
+     * Runs the UMAP algorithm.
+     *
+     * @param data               the input data.
+     * @param distance           the distance function.
+     * @param k                  k-nearest neighbor. Larger values result in more global views
+     *                           of the manifold, while smaller values result in more local data
+     *                           being preserved. Generally in the range 2 to 100.
+     * @param d                  The target embedding dimensions. defaults to 2 to provide easy
+     *                           visualization, but can reasonably be set to any integer value
+     *                           in the range 2 to 100.
+     * @param iterations         The number of iterations to optimize the
+     *                           low-dimensional representation. Larger values result in more
+     *                           accurate embedding. Muse be at least 10. Choose wise value
+     *                           based on the size of the input data, e.g, 200 for large
+     *                           data (1000+ samples), 500 for small.
+     * @param learningRate       The initial learning rate for the embedding optimization,
+     *                           default 1.
+     * @param minDist            The desired separation between close points in the embedding
+     *                           space. Smaller values will result in a more clustered/clumped
+     *                           embedding where nearby points on the manifold are drawn closer
+     *                           together, while larger values will result on a more even
+     *                           disperse of points. The value should be set no-greater than
+     *                           and relative to the spread value, which determines the scale
+     *                           at which embedded points will be spread out. default 0.1.
+     * @param spread             The effective scale of embedded points. In combination with
+     *                           minDist, this determines how clustered/clumped the embedded
+     *                           points are. default 1.0.
+     * @param negativeSamples    The number of negative samples to select per positive sample
+     *                           in the optimization process. Increasing this value will result
+     *                           in greater repulsive force being applied, greater optimization
+     *                           cost, but slightly more accuracy, default 5.
+     * @param repulsionStrength  Weighting applied to negative samples in low dimensional
+     *                           embedding optimization. Values higher than one will result in
+     *                           greater weight being given to negative samples, default 1.0.
+     * @param approximate      if true, the nearest neighbor graph is approximated
+     *                           with the NN-Descent algorithm for large data.
+     * @param <T> the data type of points.
+     * @return the model.
+     */
+    public static <T> UMAP of(T[] data, Distance<T> distance, int k, int d, int iterations, double learningRate, double minDist, double spread, int negativeSamples, double repulsionStrength, boolean approximate) {
         if (d < 2) {
             throw new IllegalArgumentException("d must be greater than 1: " + d);
         }
@@ -240,7 +349,9 @@ public class UMAP implements Serializable {
         // Construct the local fuzzy simplicial set by locally approximating
         // geodesic distance at each point, and then combining all the local
         // fuzzy simplicial sets into a global one via a fuzzy union.
-        AdjacencyList graph = NearestNeighborGraph.of(data, distance, k, true,null);
+        AdjacencyList graph = approximate ?
+                NearestNeighborGraph.descent(data, distance, k, true, null) :
+                NearestNeighborGraph.of(data, distance, k, true, null);
         NearestNeighborGraph nng = NearestNeighborGraph.largest(graph);
 
         graph = computeFuzzySimplicialSet(nng.graph, k, 64);
@@ -256,12 +367,110 @@ public class UMAP implements Serializable {
         logger.info("Finish fitting the curve parameters");
 
         // Optimizing the embedding
-        SparseMatrix epochs = computeEpochPerSample(conorm, iterations);
+        int size = (int) conorm.size();
+        int[] head = new int[size];
+        int[] tail = new int[size];
+        double[] epochs = new double[size];
+        int e = 0;
+        for (SparseMatrix.Entry entry : conorm) {
+            head[e] = entry.i;
+            tail[e] = entry.j;
+            epochs[e++] = entry.x;
+        }
+        computeEpochPerSample(epochs, iterations);
+
         logger.info("Start optimizing the layout");
-        optimizeLayout(coordinates, curve, epochs, iterations, learningRate, negativeSamples, repulsionStrength);
+        double[] embedding = flatten(coordinates);
+        optimizeLayout(embedding, embedding, d, head, tail, epochs, curve, iterations, learningRate, negativeSamples, repulsionStrength);
+        unflatten(embedding, coordinates);
+
+        if (data instanceof double[][]) {
+            int n = nng.index.length;
+            double[][] samples = new double[n][];
+            for (int i = 0; i < n; i++) {
+                samples[i] = (double[]) data[nng.index[i]];
+            }
+
+            @SuppressWarnings("unchecked")
+            Distance<double[]> metric = (Distance<double[]>) distance;
+            return new UMAP(nng.index, coordinates, graph, samples, metric, k, curve, iterations, learningRate, negativeSamples, repulsionStrength);
+        }
+
         return new UMAP(nng.index, coordinates, graph);
     }
 
+    /**
+     * Embeds new data into the existing embedding space without refitting.
+     * The new samples are initialized at the weighted average of their
+     * nearest neighbors in the training data, and then optimized with
+     * the training embedding fixed.
+     *
+     * @param x the new data.
+     * @return the coordinates of new data in the embedding space.
+     */
+    public double[][] transform(double[][] x) {
+        if (data == null) {
+            throw new UnsupportedOperationException("The model is not fitted on double[][] data");
+        }
+
+        int n = x.length;
+        int d = coordinates[0].length;
+        final double EPSILON = 1E-8;
+        final double MIN_SCALE = 1E-3;
+
+        LinearSearch<double[]> search = new LinearSearch<>(data, distance);
+        @SuppressWarnings("unchecked")
+        Neighbor<double[], double[]>[][] neighbors = new Neighbor[n][];
+        IntStream.range(0, n).parallel().forEach(i -> neighbors[i] = search.knn(x[i], k));
+
+        double avg = Arrays.stream(neighbors)
+                .flatMapToDouble(knn -> Arrays.stream(knn).mapToDouble(neighbor -> neighbor.distance))
+                .filter(w -> !MathEx.isZero(w, EPSILON))
+                .average().orElse(0.0);
+
+        // The membership strength of 1-simplices from the new samples
+        // to their nearest neighbors.
+        int[] head = new int[n * k];
+        int[] tail = new int[n * k];
+        double[] epochs = new double[n * k];
+        double[] embedding = new double[n * d];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            double[] dist = Arrays.stream(neighbors[i])
+                    .mapToDouble(neighbor -> neighbor.distance)
+                    .filter(w -> !MathEx.isZero(w, EPSILON))
+                    .toArray();
+
+            double rho = dist.length == 0 ? 0.0 : MathEx.min(dist);
+            double sigma = smoothKnnDist(dist, rho, MathEx.log2(k), 64);
+            sigma = Math.max(sigma, MIN_SCALE * (rho > 0.0 ? MathEx.mean(dist) : avg));
+
+            double sum = 0.0;
+            for (int j = 0; j < neighbors[i].length; j++) {
+                Neighbor<double[], double[]> neighbor = neighbors[i][j];
+                double w = Math.exp(-Math.max(0.0, neighbor.distance - rho) / sigma);
+                int e = i * k + j;
+                head[e] = i;
+                tail[e] = neighbor.index;
+                epochs[e] = w;
+
+                double[] y = coordinates[neighbor.index];
+                for (int l = 0; l < d; l++) {
+                    embedding[i * d + l] += w * y[l];
+                }
+                sum += w;
+            }
+
+            for (int l = 0; l < d; l++) {
+                embedding[i * d + l] /= sum;
+            }
+        });
+
+        int epochsOfTransform = Math.max(10, iterations / 3);
+        computeEpochPerSample(epochs, epochsOfTransform);
+        optimizeLayout(embedding, flatten(coordinates), d, head, tail, epochs, curve, epochsOfTransform, learningRate / 4, negativeSamples, repulsionStrength);
+        return unflatten(embedding, new double[n][d]);
+    }
+
     /**
      * The curve function:
      * <p>
@@ -334,7 +543,6 @@ public class UMAP implements Serializable {
         // Algorithm 2 Constructing a local fuzzy simplicial set
         final double LogK = MathEx.log2(k);
         final double EPSILON = 1E-8;
-        final double TOLERANCE = 1E-5;
         final double MIN_SCALE = 1E-3;
 
         int n = nng.getNumVertices();
@@ -349,47 +557,13 @@ public class UMAP implements Serializable {
                 .average().orElse(0.0);
 
         for (int i = 0; i < n; i++) {
-            double lo = 0.0;
-            double hi = Double.POSITIVE_INFINITY;
-            double mid = 1.0;
-
             Collection<Edge> knn = nng.getEdges(i);
-            rho[i] = knn.stream()
+            double[] dist = knn.stream()
                     .mapToDouble(edge -> edge.weight)
                     .filter(w -> !MathEx.isZero(w, EPSILON))
-                    .min().orElse(0.0);
-
-            // Algorithm 3 Compute the normalizing factor for distances
-            // function SmoothKNNDist() by binary search
-            for (int iter = 0; iter < iterations; iter++) {
-                double psum = 0.0;
-                for (Edge edge : knn) {
-                    if (!MathEx.isZero(edge.weight, EPSILON)) {
-                        double d = edge.weight - rho[i];
-                        psum += d > 0.0 ? Math.exp(-d / mid) : 1.0;
-                    }
-                }
-
-                if (Math.abs(psum - LogK) < TOLERANCE) {
-                    break;
-                }
-                // Given that it is a parameterized function
-                // and the whole thing is monotonic
-                // a simply binary search is actually quite efficient.
-                if (psum > LogK) {
-                    hi = mid;
-                    mid = (lo + hi) / 2.0;
-                } else {
-                    lo = mid;
-                    if (Double.isInfinite(hi)) {
-                        mid *= 2;
-                    } else {
-                        mid = (lo + hi) / 2.0;
-                    }
-                }
-            }
-
-            sigma[i] = mid;
+                    .toArray();
+            rho[i] = dist.length == 0 ? 0.0 : MathEx.min(dist);
+            sigma[i] = smoothKnnDist(dist, rho[i], LogK, iterations);
 
             if (rho[i] > 0.0) {
                 double avgi = knn.stream()
@@ -425,6 +599,53 @@ public class UMAP implements Serializable {
         return G;
     }
 
+    /**
+     * Algorithm 3 Computes the normalizing factor for distances, i.e.
+     * function SmoothKNNDist(), by binary search so that the cardinality
+     * of fuzzy set is log2(k).
+     *
+     * @param dist the (non-zero) distances to the nearest neighbors.
+     * @param rho the distance to the nearest neighbor.
+     * @param LogK log2(k).
+     * @param iterations the max number of iterations of binary search.
+     * @return the smooth approximator to knn-distance.
+     */
+    private static double smoothKnnDist(double[] dist, double rho, double LogK, int iterations) {
+        final double TOLERANCE = 1E-5;
+
+        double lo = 0.0;
+        double hi = Double.POSITIVE_INFINITY;
+        double mid = 1.0;
+
+        for (int iter = 0; iter < iterations; iter++) {
+            double psum = 0.0;
+            for (double w : dist) {
+                double d = w - rho;
+                psum += d > 0.0 ? Math.exp(-d / mid) : 1.0;
+            }
+
+            if (Math.abs(psum - LogK) < TOLERANCE) {
+                break;
+            }
+            // Given that it is a parameterized function
+            // and the whole thing is monotonic
+            // a simply binary search is actually quite efficient.
+            if (psum > LogK) {
+                hi = mid;
+                mid = (lo + hi) / 2.0;
+            } else {
+                lo = mid;
+                if (Double.isInfinite(hi)) {
+                    mid *= 2;
+                } else {
+                    mid = (lo + hi) / 2.0;
+                }
+            }
+        }
+
+        return mid;
+    }
+
     /**
      * Computes the spectral embedding of the graph, which is
      * the eigenvectors of the (normalized) Laplacian of the graph.
@@ -508,62 +729,90 @@ public class UMAP implements Serializable {
      * and low dimensional fuzzy simplicial sets. In practice this is done by
      * sampling edges based on their membership strength (with the (1-p) terms
      * coming from negative sampling similar to word2vec).
+     * <p>
+     * The edges are partitioned across threads, which update the shared
+     * embedding without locks (Hogwild!). As the embedding is sparsely
+     * updated, the conflicts are rare and have little impact on the
+     * convergence. Each partition has its own random number generator
+     * for negative sampling.
      *
-     * @param embedding          The embeddings to be optimized
-     * @param curve              The curve parameters
+     * @param head               The embedding of head vertices of edges in row-major
+     *                           order, which is optimized.
+     * @param tail               The embedding of tail vertices of edges in row-major order,
+     *                           which is also the source of negative samples. It is the same
+     *                           array as head when fitting the model and is not updated otherwise.
+     * @param d                  The dimension of embedding space.
+     * @param heads              The head vertices of edges.
+     * @param tails              The tail vertices of edges.
      * @param epochsPerSample    The number of epochs per 1-simplex between
      *                           (ith, jth) data points. 1-simplices with weaker membership
      *                           strength will have more epochs between being sampled.
-     * @param negativeSamples    The number of negative samples (with membership strength 0).
+     * @param curve              The curve parameters
+     * @param iterations         The number of iterations.
      * @param initialAlpha       The initial learning rate for the SGD
+     * @param negativeSamples    The number of negative samples (with membership strength 0).
      * @param gamma              The weight of negative samples
-     * @param iterations         The number of iterations.
      */
-    private static void optimizeLayout(double[][] embedding, double[] curve, SparseMatrix epochsPerSample,
-                                       int iterations, double initialAlpha, int negativeSamples, double gamma) {
-        int n = embedding.length;
-        int d = embedding[0].length;
+    private static void optimizeLayout(double[] head, double[] tail, int d, int[] heads, int[] tails, double[] epochsPerSample,
+                                       double[] curve, int iterations, double initialAlpha, int negativeSamples, double gamma) {
+        int m = heads.length;
+        int n = tail.length / d;
+        boolean moveOther = head == tail;
         double a = curve[0];
         double b = curve[1];
-        double alpha = initialAlpha;
 
-        SparseMatrix epochsPerNegativeSample = epochsPerSample.clone();
-        epochsPerNegativeSample.nonzeros().forEach(w -> w.update(w.x / negativeSamples));
-        SparseMatrix epochNextNegativeSample = epochsPerNegativeSample.clone();
-        SparseMatrix epochNextSample = epochsPerSample.clone();
+        double[] epochsPerNegativeSample = new double[m];
+        for (int e = 0; e < m; e++) {
+            epochsPerNegativeSample[e] = epochsPerSample[e] / negativeSamples;
+        }
+        double[] epochNextNegativeSample = epochsPerNegativeSample.clone();
+        double[] epochNextSample = epochsPerSample.clone();
+
+        int partitions = Math.max(1, Math.min(m / 1024, 4 * ForkJoinPool.getCommonPoolParallelism()));
+        smile.math.Random[] rng = new smile.math.Random[partitions];
+        for (int p = 0; p < partitions; p++) {
+            rng[p] = new smile.math.Random(MathEx.randomLong());
+        }
 
+        double alpha = initialAlpha;
         for (int iter = 1; iter <= iterations; iter++) {
-            for (SparseMatrix.Entry edge : epochNextSample) {
-                if (edge.x > 0 && edge.x <= iter) {
-                    int j = edge.i;
-                    int k = edge.j;
-                    int index = edge.index;
+            final int epoch = iter;
+            final double rate = alpha;
+            IntStream.range(0, partitions).parallel().forEach(p -> {
+                smile.math.Random random = rng[p];
+                int begin = (int) ((long) m * p / partitions);
+                int end = (int) ((long) m * (p + 1) / partitions);
 
-                    double[] current = embedding[j];
-                    double[] other = embedding[k];
+                for (int e = begin; e < end; e++) {
+                    if (epochNextSample[e] <= 0 || epochNextSample[e] > epoch) continue;
 
-                    double distSquared = MathEx.squaredDistance(current, other);
+                    int current = heads[e] * d;
+                    int other = tails[e] * d;
+
+                    double distSquared = squaredDistance(head, current, tail, other, d);
                     if (distSquared > 0.0) {
                         double gradCoeff = -2.0 * a * b * Math.pow(distSquared, b - 1.0);
                         gradCoeff /= a * Math.pow(distSquared, b) + 1.0;
 
                         for (int i = 0; i < d; i++) {
-                            double gradD = clamp(gradCoeff * (current[i] - other[i]));
-                            current[i] += gradD * alpha;
-                            other[i]   -= gradD * alpha;
+                            double gradD = clamp(gradCoeff * (head[current + i] - tail[other + i]));
+                            head[current + i] += gradD * rate;
+                            if (moveOther) {
+                                tail[other + i] -= gradD * rate;
+                            }
                         }
                     }
 
-                    edge.update(edge.x + epochsPerSample.get(index));
+                    epochNextSample[e] += epochsPerSample[e];
 
                     // negative sampling
-                    int negSamples = (int) ((iter - epochNextNegativeSample.get(index)) / epochsPerNegativeSample.get(index));
+                    int negSamples = (int) ((epoch - epochNextNegativeSample[e]) / epochsPerNegativeSample[e]);
 
-                    for (int p = 0; p < negSamples; p++) {
-                        k = MathEx.randomInt(n);
-                        if (j == k) continue;
-                        other = embedding[k];
-                        distSquared = MathEx.squaredDistance(current, other);
+                    for (int s = 0; s < negSamples; s++) {
+                        int k = random.nextInt(n);
+                        if (moveOther && heads[e] == k) continue;
+                        other = k * d;
+                        distSquared = squaredDistance(head, current, tail, other, d);
 
                         double gradCoeff = 0.0;
                         if (distSquared > 0.0) {
@@ -574,37 +823,72 @@ public class UMAP implements Serializable {
                         for (int i = 0; i < d; i++) {
                             double gradD = 4.0;
                             if (gradCoeff > 0.0) {
-                                gradD = clamp(gradCoeff * (current[i] - other[i]));
+                                gradD = clamp(gradCoeff * (head[current + i] - tail[other + i]));
                             }
-                            current[i] += gradD * alpha;
+                            head[current + i] += gradD * rate;
                         }
                     }
 
-                    epochNextNegativeSample.set(index, epochNextNegativeSample.get(index) + epochsPerNegativeSample.get(index) * negSamples);
+                    epochNextNegativeSample[e] += epochsPerNegativeSample[e] * negSamples;
                 }
-            }
+            });
 
             logger.info(String.format("The learning rate at %3d iterations: %.5f", iter, alpha));
             alpha = initialAlpha * (1.0 - (double) iter / iterations);
         }
     }
 
+    /**
+     * Returns the squared distance between two points in flat arrays.
+     */
+    private static double squaredDistance(double[] x, int i, double[] y, int j, int d) {
+        double sum = 0.0;
+        for (int l = 0; l < d; l++) {
+            double diff = x[i + l] - y[j + l];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
     /**
      * Computes the number of epochs per sample, one for each 1-simplex.
      *
-     * @param strength   The strength matrix.
+     * @param strength   The membership strength of 1-simplices on input,
+     *                   and the number of epochs per sample on output.
+     *                   The 1-simplices of weak strength are set to 0
+     *                   and never sampled.
      * @param iterations The number of iterations.
-     * @return An array of number of epochs per sample, one for each 1-simplex
-     * between (ith, jth) sample point.
      */
-    private static SparseMatrix computeEpochPerSample(SparseMatrix strength, int iterations) {
-        double max = strength.nonzeros().mapToDouble(w -> w.x).max().orElse(0.0);
+    private static void computeEpochPerSample(double[] strength, int iterations) {
+        double max = MathEx.max(strength);
         double min = max / iterations;
-        strength.nonzeros().forEach(w -> {
-            if (w.x < min) w.update(0.0);
-            else w.update(max / w.x);
-        });
-        return strength;
+        for (int i = 0; i < strength.length; i++) {
+            double w = strength[i];
+            strength[i] = w < min ? 0.0 : max / w;
+        }
+    }
+
+    /**
+     * Returns the row-major flat array of a matrix.
+     */
+    private static double[] flatten(double[][] x) {
+        int d = x[0].length;
+        double[] y = new double[x.length * d];
+        for (int i = 0; i < x.length; i++) {
+            System.arraycopy(x[i], 0, y, i * d, d);
+        }
+        return y;
+    }
+
+    /**
+     * Copies a row-major flat array to a matrix.
+     */
+    private static double[][] unflatten(double[] x, double[][] y) {
+        int d = y[0].length;
+        for (int i = 0; i < y.length; i++) {
+            System.arraycopy(x, i * d, y[i], 0, d);
+        }
+        return y;
     }
 
     /**
@@ -0,0 +1,644 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.neighbor;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+import smile.math.MathEx;
+import smile.math.distance.Distance;
+
+/**
+ * Hierarchical Navigable Small World graphs for approximate nearest
+ * neighbor search. HNSW builds a multi-layer proximity graph where each
+ * layer is a subset of the lower one. The layer of a node is drawn from
+ * an exponentially decaying distribution, so that the upper layers are
+ * sparse long-range links and the bottom layer contains all the nodes.
+ * A search starts at the top layer, greedily descends toward the query,
+ * and performs a beam search of width <code>efSearch</code> on the bottom
+ * layer. The search complexity scales logarithmically with the data size,
+ * and the recall/latency trade-off is much better than tree and hashing
+ * based methods on high-dimensional data such as embeddings.
+ * <p>
+ * The parameter <code>M</code> is the number of links per node (2M on
+ * the bottom layer). Larger M gives better recall on high-dimensional
+ * data at the cost of memory. <code>efConstruction</code> is the beam
+ * width during the construction, which controls the index quality.
+ * <code>efSearch</code> can be tuned at any time to trade recall for
+ * speed. Nodes may be added concurrently from multiple threads while
+ * searching. Any distance function may be used although HNSW works best
+ * with metrics.
+ * <p>
+ * By default, the query object (reference equality) is excluded from
+ * the neighborhood, as in {@link LinearSearch}.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li> Yu. A. Malkov and D. A. Yashunin. Efficient and robust approximate nearest neighbor search using Hierarchical Navigable Small World graphs. IEEE TPAMI, 42(4):824-836, 2020.</li>
+ * </ol>
+ *
+ * @param <T> the type of data objects.
+ *
+ * @author Haifeng Li
+ */
+public class HNSW<T> implements NearestNeighborSearch<T,T>, KNNSearch<T,T>, RNNSearch<T,T>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Orders the candidates from the nearest. */
+    private static final Comparator<Candidate> NEAREST = (a, b) -> Double.compare(a.distance, b.distance);
+    /** Orders the candidates from the farthest. */
+    private static final Comparator<Candidate> FARTHEST = (a, b) -> Double.compare(b.distance, a.distance);
+
+    /**
+     * The distance function used to determine nearest neighbors.
+     */
+    private final Distance<T> distance;
+    /**
+     * The maximum number of links per node on the upper layers.
+     */
+    private final int M;
+    /**
+     * The maximum number of links per node on the bottom layer.
+     */
+    private final int M0;
+    /**
+     * The size of dynamic candidate list during construction.
+     */
+    private final int efConstruction;
+    /**
+     * The size of dynamic candidate list during search.
+     */
+    private volatile int efSearch = 50;
+    /**
+     * The normalization factor of level generation.
+     */
+    private final double mL;
+    /**
+     * The graph nodes.
+     */
+    private volatile Node<T>[] nodes;
+    /**
+     * The number of nodes.
+     */
+    private volatile int size = 0;
+    /**
+     * The entry point of search.
+     */
+    private volatile int entry = -1;
+    /**
+     * The top layer of graph.
+     */
+    private volatile int maxLevel = -1;
+    /**
+     * The lock of inserting a node above the top layer.
+     */
+    private final ReentrantLock levelLock = new ReentrantLock();
+    /**
+     * The per-thread visited node marks.
+     */
+    private transient volatile ThreadLocal<Visited> visited;
+
+    /**
+     * A graph node.
+     */
+    private static class Node<T> implements Serializable {
+        private static final long serialVersionUID = 1L;
+        /** The key object. */
+        final T key;
+        /** The links on each layer. */
+        final int[][] links;
+        /** The number of links on each layer. */
+        final int[] degree;
+
+        /**
+         * Constructor.
+         * @param key the key object.
+         * @param level the top layer of node.
+         * @param M the maximum number of links on the upper layers.
+         * @param M0 the maximum number of links on the bottom layer.
+         */
+        Node(T key, int level, int M, int M0) {
+            this.key = key;
+            this.links = new int[level + 1][];
+            this.degree = new int[level + 1];
+            links[0] = new int[M0];
+            for (int i = 1; i <= level; i++) {
+                links[i] = new int[M];
+            }
+        }
+
+        /**
+         * Returns the top layer of node.
+         * @return the top layer of node.
+         */
+        int level() {
+            return links.length - 1;
+        }
+
+        /**
+         * Returns a snapshot of the links on a layer.
+         * @param level the layer.
+         * @return the links.
+         */
+        synchronized int[] neighbors(int level) {
+            return Arrays.copyOf(links[level], degree[level]);
+        }
+    }
+
+    /**
+     * A search candidate.
+     */
+    private static class Candidate {
+        /** The node id. */
+        final int id;
+        /** The distance to the query. */
+        final double distance;
+
+        /**
+         * Constructor.
+         * @param id the node id.
+         * @param distance the distance to the query.
+         */
+        Candidate(int id, double distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * The visited node marks, which are reset in constant time
+     * by increasing the generation.
+     */
+    private static class Visited {
+        /** The generation when the node is visited. */
+        int[] marks = new int[0];
+        /** The current generation. */
+        int generation = 0;
+
+        /**
+         * Starts a new search.
+         * @param n the number of nodes.
+         */
+        void reset(int n) {
+            if (marks.length < n) {
+                marks = new int[n];
+            }
+
+            if (++generation == 0) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * Marks a node as visited.
+         * @param id the node id.
+         * @return true if the node was not visited before.
+         */
+        boolean visit(int id) {
+            if (id >= marks.length) {
+                marks = Arrays.copyOf(marks, Math.max(id + 1, 2 * marks.length));
+            }
+
+            if (marks[id] == generation) return false;
+            marks[id] = generation;
+            return true;
+        }
+    }
+
+    /**
+     * Constructor of an empty index with M = 16 and efConstruction = 200.
+     * @param distance the distance function.
+     */
+    public HNSW(Distance<T> distance) {
+        this(distance, 16, 200);
+    }
+
+    /**
+     * Constructor of an empty index.
+     * @param distance the distance function.
+     * @param M the maximum number of links per node on the upper layers.
+     *          The bottom layer has up to 2M links per node.
+     * @param efConstruction the size of dynamic candidate list during
+     *                       construction.
+     */
+    @SuppressWarnings("unchecked")
+    public HNSW(Distance<T> distance, int M, int efConstruction) {
+        if (M < 2) {
+            throw new IllegalArgumentException("Invalid M: " + M);
+        }
+
+        if (efConstruction < M) {
+            throw new IllegalArgumentException("Invalid efConstruction: " + efConstruction);
+        }
+
+        this.distance = distance;
+        this.M = M;
+        this.M0 = 2 * M;
+        this.efConstruction = efConstruction;
+        this.mL = 1.0 / Math.log(M);
+        this.nodes = (Node<T>[]) new Node[1024];
+    }
+
+    /**
+     * Constructor with M = 16 and efConstruction = 200. The index is
+     * built in parallel.
+     * @param data the data set.
+     * @param distance the distance function.
+     */
+    public HNSW(T[] data, Distance<T> distance) {
+        this(data, distance, 16, 200);
+    }
+
+    /**
+     * Constructor. The index is built in parallel. The neighbor index
+     * is the index of data in the array.
+     * @param data the data set.
+     * @param distance the distance function.
+     * @param M the maximum number of links per node on the upper layers.
+     *          The bottom layer has up to 2M links per node.
+     * @param efConstruction the size of dynamic candidate list during
+     *                       construction.
+     */
+    public HNSW(T[] data, Distance<T> distance, int M, int efConstruction) {
+        this(distance, M, efConstruction);
+        for (T key : data) {
+            allocate(key);
+        }
+        IntStream.range(0, data.length).parallel().forEach(this::insert);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HNSW(M = %d, efConstruction = %d, efSearch = %d, %s)", M, efConstruction, efSearch, distance);
+    }
+
+    /**
+     * Returns the number of indexed objects.
+     * @return the number of indexed objects.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the size of dynamic candidate list during search.
+     * @return the size of dynamic candidate list during search.
+     */
+    public int efSearch() {
+        return efSearch;
+    }
+
+    /**
+     * Sets the size of dynamic candidate list during search. Larger
+     * value gives higher recall and slower search. The effective value
+     * is at least k + 1 for k-nearest neighbor search.
+     * @param ef the size of dynamic candidate list during search.
+     * @return this object.
+     */
+    public HNSW<T> efSearch(int ef) {
+        if (ef <= 0) {
+            throw new IllegalArgumentException("Invalid efSearch: " + ef);
+        }
+
+        this.efSearch = ef;
+        return this;
+    }
+
+    /**
+     * Adds an object to the index. This method is thread safe.
+     * @param key the object.
+     * @return the index of object, which is the index of neighbor
+     *         in the search results.
+     */
+    public int add(T key) {
+        int id = allocate(key);
+        insert(id);
+        return id;
+    }
+
+    /**
+     * Allocates a node with a random level.
+     * @param key the object.
+     * @return the node id.
+     */
+    private int allocate(T key) {
+        int level = (int) (-Math.log(1.0 - MathEx.random()) * mL);
+        Node<T> node = new Node<>(key, level, M, M0);
+        synchronized (this) {
+            int id = size;
+            if (id == nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * id);
+            }
+            nodes[id] = node;
+            size = id + 1;
+            return id;
+        }
+    }
+
+    /**
+     * Links a node into the graph.
+     * @param id the node id.
+     */
+    private void insert(int id) {
+        Node<T> node = nodes[id];
+        T q = node.key;
+        int level = node.level();
+
+        // Only one insertion above the top layer at a time.
+        boolean top = level > maxLevel;
+        if (top) levelLock.lock();
+        try {
+            // Read the top layer before the entry point as the entry
+            // point is updated before the top layer.
+            int L = maxLevel;
+            int ep = entry;
+            if (ep < 0) {
+                entry = id;
+                maxLevel = level;
+                return;
+            }
+
+            Candidate cur = new Candidate(ep, distance.d(q, nodes[ep].key));
+            for (int layer = L; layer > level; layer--) {
+                cur = greedy(q, cur, layer);
+            }
+
+            for (int layer = Math.min(level, L); layer >= 0; layer--) {
+                List<Candidate> candidates = searchLayer(q, cur, efConstruction, layer);
+                for (Candidate c : select(candidates, M)) {
+                    connect(id, c.id, c.distance, layer);
+                    connect(c.id, id, c.distance, layer);
+                }
+                cur = candidates.get(0);
+            }
+
+            if (level > L) {
+                entry = id;
+                maxLevel = level;
+            }
+        } finally {
+            if (top) levelLock.unlock();
+        }
+    }
+
+    /**
+     * Adds a link to a node. If the node has too many links, they are
+     * pruned with the neighbor selection heuristic.
+     * @param from the node to add the link.
+     * @param to the linked node.
+     * @param dist the distance between the nodes.
+     * @param layer the layer of link.
+     */
+    private void connect(int from, int to, double dist, int layer) {
+        Node<T> node = nodes[from];
+        synchronized (node) {
+            int[] links = node.links[layer];
+            int degree = node.degree[layer];
+            if (degree < links.length) {
+                links[degree] = to;
+                node.degree[layer] = degree + 1;
+                return;
+            }
+
+            List<Candidate> candidates = new ArrayList<>(degree + 1);
+            candidates.add(new Candidate(to, dist));
+            for (int i = 0; i < degree; i++) {
+                candidates.add(new Candidate(links[i], distance.d(node.key, nodes[links[i]].key)));
+            }
+            candidates.sort(NEAREST);
+
+            List<Candidate> selected = select(candidates, links.length);
+            for (int i = 0; i < selected.size(); i++) {
+                links[i] = selected.get(i).id;
+            }
+            node.degree[layer] = selected.size();
+        }
+    }
+
+    /**
+     * Selects the neighbors with the heuristic that keeps a candidate
+     * only if it is closer to the base than to any selected neighbor.
+     * It favors the links in diverse directions, which keeps the graph
+     * connected on clustered data.
+     * @param candidates the candidates in ascending order of distance.
+     * @param m the maximum number of neighbors.
+     * @return the selected neighbors.
+     */
+    private List<Candidate> select(List<Candidate> candidates, int m) {
+        List<Candidate> selected = new ArrayList<>(m);
+        for (Candidate c : candidates) {
+            if (selected.size() >= m) break;
+
+            T key = nodes[c.id].key;
+            boolean good = true;
+            for (Candidate s : selected) {
+                if (distance.d(key, nodes[s.id].key) < c.distance) {
+                    good = false;
+                    break;
+                }
+            }
+
+            if (good) selected.add(c);
+        }
+        return selected;
+    }
+
+    /**
+     * Greedily moves to the nearest neighbor on a layer.
+     * @param q the query.
+     * @param cur the starting point.
+     * @param layer the layer.
+     * @return the local nearest neighbor of query.
+     */
+    private Candidate greedy(T q, Candidate cur, int layer) {
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (int e : nodes[cur.id].neighbors(layer)) {
+                double d = distance.d(q, nodes[e].key);
+                if (d < cur.distance) {
+                    cur = new Candidate(e, d);
+                    changed = true;
+                }
+            }
+        }
+        return cur;
+    }
+
+    /**
+     * Returns the per-thread visited marks of a new search.
+     * @return the visited marks.
+     */
+    private Visited visited() {
+        ThreadLocal<Visited> local = visited;
+        if (local == null) {
+            synchronized (this) {
+                if (visited == null) {
+                    visited = ThreadLocal.withInitial(Visited::new);
+                }
+                local = visited;
+            }
+        }
+
+        Visited marks = local.get();
+        marks.reset(size);
+        return marks;
+    }
+
+    /**
+     * Beam search on a layer.
+     * @param q the query.
+     * @param ep the entry point.
+     * @param ef the size of dynamic candidate list.
+     * @param layer the layer.
+     * @return up to ef nearest neighbors in ascending order of distance.
+     */
+    private List<Candidate> searchLayer(T q, Candidate ep, int ef, int layer) {
+        Visited visited = visited();
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(NEAREST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(FARTHEST);
+        visited.visit(ep.id);
+        candidates.add(ep);
+        results.add(ep);
+
+        while (!candidates.isEmpty()) {
+            Candidate c = candidates.poll();
+            if (c.distance > results.peek().distance && results.size() >= ef) break;
+
+            for (int e : nodes[c.id].neighbors(layer)) {
+                if (visited.visit(e)) {
+                    double d = distance.d(q, nodes[e].key);
+                    if (results.size() < ef || d < results.peek().distance) {
+                        Candidate n = new Candidate(e, d);
+                        candidates.add(n);
+                        results.add(n);
+                        if (results.size() > ef) results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> list = new ArrayList<>(results);
+        list.sort(NEAREST);
+        return list;
+    }
+
+    /**
+     * Searches the nearest neighbors on the bottom layer.
+     * @param q the query.
+     * @param ef the size of dynamic candidate list.
+     * @return up to ef nearest neighbors in ascending order of distance.
+     */
+    private List<Candidate> search(T q, int ef) {
+        int L = maxLevel;
+        int ep = entry;
+        if (ep < 0) return new ArrayList<>();
+
+        Candidate cur = new Candidate(ep, distance.d(q, nodes[ep].key));
+        for (int layer = L; layer > 0; layer--) {
+            cur = greedy(q, cur, layer);
+        }
+        return searchLayer(q, cur, ef, 0);
+    }
+
+    @Override
+    public Neighbor<T, T> nearest(T q) {
+        return knn(q, 1)[0];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Neighbor<T, T>[] knn(T q, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Invalid k: " + k);
+        }
+
+        if (k > size) {
+            throw new IllegalArgumentException("Neighbor array length is larger than the data size");
+        }
+
+        List<Candidate> candidates = search(q, Math.max(efSearch, k + 1));
+        Node<T>[] nodes = this.nodes;
+        return candidates.stream()
+                .filter(c -> nodes[c.id].key != q)
+                .limit(k)
+                .map(c -> Neighbor.of(nodes[c.id].key, c.id, c.distance))
+                .toArray(Neighbor[]::new);
+    }
+
+    /**
+     * Search the neighbors in the given radius of query object. The
+     * search is approximate. It starts from the approximate nearest
+     * neighbors and expands through the links of the neighbors in the
+     * radius on the bottom layer.
+     *
+     * @param q the query key.
+     * @param radius the radius of search range from target.
+     * @param neighbors the list to store found neighbors in the given range on output.
+     */
+    @Override
+    public void range(T q, double radius, List<Neighbor<T, T>> neighbors) {
+        if (radius <= 0.0) {
+            throw new IllegalArgumentException("Invalid radius: " + radius);
+        }
+
+        List<Candidate> candidates = search(q, efSearch);
+        Visited visited = visited();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (Candidate c : candidates) {
+            visited.visit(c.id);
+            if (c.distance <= radius) {
+                queue.add(c.id);
+                add(q, c.id, c.distance, neighbors);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            for (int e : nodes[queue.poll()].neighbors(0)) {
+                if (visited.visit(e)) {
+                    double d = distance.d(q, nodes[e].key);
+                    if (d <= radius) {
+                        queue.add(e);
+                        add(q, e, d, neighbors);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a neighbor to the list unless it is the query object.
+     * @param q the query.
+     * @param id the node id.
+     * @param dist the distance to query.
+     * @param neighbors the list of neighbors.
+     */
+    private void add(T q, int id, double dist, List<Neighbor<T, T>> neighbors) {
+        T key = nodes[id].key;
+        if (key != q) {
+            neighbors.add(Neighbor.of(key, id, dist));
+        }
+    }
+}
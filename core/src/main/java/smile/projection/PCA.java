@@ -18,9 +18,12 @@
 package smile.projection;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import smile.math.MathEx;
 import smile.math.blas.UPLO;
+import smile.math.matrix.IMatrix;
 import smile.math.matrix.Matrix;
+import smile.math.matrix.RandomizedSVD;
 
 /**
  * Principal component analysis. PCA is an orthogonal
@@ -183,6 +186,154 @@ public class PCA implements LinearProjection, Serializable {
         return new PCA(mu, eigvalues, eigvectors);
     }
 
+    /**
+     * Fits principal component analysis with covariance matrix in single
+     * precision, which takes half memory and runs about twice as fast as
+     * {@link #fit(double[][])}. The sample mean is accumulated in double
+     * precision. The resulting model works in double precision.
+     * @param data training data of which each row is a sample.
+     * @return the model.
+     */
+    public static PCA fit(float[][] data) {
+        int m = data.length;
+        int n = data[0].length;
+
+        double[] mu = new double[n];
+        for (float[] x : data) {
+            for (int j = 0; j < n; j++) {
+                mu[j] += x[j];
+            }
+        }
+
+        for (int j = 0; j < n; j++) {
+            mu[j] /= m;
+        }
+
+        smile.math.matrix.fp32.Matrix X = new smile.math.matrix.fp32.Matrix(m, n);
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                X.set(i, j, (float) (data[i][j] - mu[j]));
+            }
+        }
+
+        float[] eigvalues;
+        smile.math.matrix.fp32.Matrix eigvectors;
+        if (m > n) {
+            smile.math.matrix.fp32.Matrix.SVD svd = X.svd(true, true);
+            eigvalues = svd.s;
+            for (int i = 0; i < eigvalues.length; i++) {
+                eigvalues[i] *= eigvalues[i];
+            }
+
+            eigvectors = svd.V;
+        } else {
+            smile.math.matrix.fp32.Matrix cov = X.ata();
+            cov.div(m); // divide m instead of m-1 for S-PLUS compatibility
+            smile.math.matrix.fp32.Matrix.EVD eigen = cov.eigen(false, true, true).sort();
+
+            eigvalues = eigen.wr;
+            eigvectors = eigen.Vr;
+        }
+
+        double[] lambda = new double[eigvalues.length];
+        for (int i = 0; i < lambda.length; i++) {
+            lambda[i] = eigvalues[i];
+        }
+
+        return new PCA(mu, lambda, Matrix.of(eigvectors));
+    }
+
+    /**
+     * Fits truncated principal component analysis with randomized SVD,
+     * which computes only the top k principal components. It is much
+     * faster than {@link #fit(double[][])} when k is much smaller than
+     * the data dimension. Note that the proportions of variance are
+     * relative to the total variance of the k principal components.
+     * @param data training data of which each row is a sample.
+     * @param k the number of principal components.
+     * @return the model.
+     */
+    public static PCA fit(double[][] data, int k) {
+        return fit(Matrix.of(data), k);
+    }
+
+    /**
+     * Fits truncated principal component analysis with randomized SVD,
+     * which computes only the top k principal components. The data are
+     * centered implicitly so that the sparsity of data matrix is kept,
+     * e.g. TF-IDF vectors in <code>SparseMatrix</code>.
+     * Note that the proportions of variance are relative to the total
+     * variance of the k principal components.
+     * @param data training data of which each row is a sample.
+     * @param k the number of principal components.
+     * @return the model.
+     */
+    public static PCA fit(IMatrix data, int k) {
+        int m = data.nrow();
+        double[] ones = new double[m];
+        Arrays.fill(ones, 1.0);
+        double[] mu = data.tv(ones);
+        for (int j = 0; j < mu.length; j++) {
+            mu[j] /= m;
+        }
+
+        Matrix.SVD svd = RandomizedSVD.of(data, mu, k, 10, 2);
+        return of(mu, svd);
+    }
+
+    /**
+     * Fits truncated principal component analysis with randomized SVD
+     * on the data that don't fit in memory. The row blocks of data are
+     * scanned once to compute the sample mean and once per power
+     * iteration of randomized SVD.
+     * Note that the proportions of variance are relative to the total
+     * variance of the k principal components.
+     * @param blocks the row blocks of training data, of which each row
+     *               is a sample. The blocks may be iterated multiple
+     *               times, e.g. read from disk on each pass.
+     * @param k the number of principal components.
+     * @return the model.
+     */
+    public static PCA fit(Iterable<Matrix> blocks, int k) {
+        int m = 0;
+        double[] mu = null;
+        for (Matrix block : blocks) {
+            double[] sum = block.colSums();
+            if (mu == null) {
+                mu = sum;
+            } else {
+                MathEx.add(mu, sum);
+            }
+            m += block.nrow();
+        }
+
+        if (mu == null) {
+            throw new IllegalArgumentException("Empty row blocks");
+        }
+
+        for (int j = 0; j < mu.length; j++) {
+            mu[j] /= m;
+        }
+
+        Matrix.SVD svd = RandomizedSVD.of(blocks, mu, k, 10, 2);
+        return of(mu, svd);
+    }
+
+    /**
+     * Returns the model of truncated SVD of centered data.
+     * @param mu the sample mean.
+     * @param svd the truncated SVD of centered data.
+     * @return the model.
+     */
+    private static PCA of(double[] mu, Matrix.SVD svd) {
+        double[] eigvalues = svd.s;
+        for (int i = 0; i < eigvalues.length; i++) {
+            eigvalues[i] *= eigvalues[i];
+        }
+
+        return new PCA(mu, eigvalues, svd.V);
+    }
+
     /**
      * Fits principal component analysis with correlation matrix.
      * @param data training data of which each row is a sample.
@@ -299,7 +450,7 @@ public class PCA implements LinearProjection, Serializable {
      * @param p choose top p principal components used for projection.
      */
     public void setProjection(int p) {
-        if (p < 1 || p > n) {
+        if (p < 1 || p > eigvectors.ncol()) {
             throw new IllegalArgumentException("Invalid dimension of feature space: " + p);
         }
 
@@ -324,7 +475,7 @@ public class PCA implements LinearProjection, Serializable {
             throw new IllegalArgumentException("Invalid percentage of variance: " + p);
         }
 
-        for (int k = 0; k < n; k++) {
+        for (int k = 0; k < cumulativeProportion.length; k++) {
             if (cumulativeProportion[k] >= p) {
                 setProjection(k + 1);
                 break;
@@ -19,11 +19,14 @@ package smile.regression;
 
 import java.util.Arrays;
 import java.util.Properties;
+import java.util.stream.IntStream;
 import smile.math.BFGS;
 import smile.math.DifferentiableMultivariateFunction;
 import smile.math.MathEx;
+import smile.math.blas.UPLO;
 import smile.math.kernel.MercerKernel;
 import smile.math.matrix.Matrix;
+import smile.math.matrix.Precision;
 import smile.stat.distribution.MultivariateGaussianDistribution;
 
 /**
@@ -113,6 +116,17 @@ public class GaussianProcessRegression<T> implements Regression<T> {
      * The Cholesky decomposition of kernel matrix.
      */
     private final Matrix.Cholesky cholesky;
+    /**
+     * The single precision Cholesky decomposition of kernel matrix.
+     */
+    private final smile.math.matrix.fp32.Matrix.Cholesky cholesky32;
+    /**
+     * The maximum condition number of kernel matrix for single precision.
+     * The relative error of Cholesky decomposition is in the order of
+     * the condition number times the machine epsilon, i.e. about 1%
+     * at this bound.
+     */
+    private static final double MAX_FLOAT_CONDITION = 0.01 / Math.ulp(1.0f);
 
     /** The joint prediction of multiple data points. */
     public class JointPrediction {
@@ -197,6 +211,23 @@ public class GaussianProcessRegression<T> implements Regression<T> {
      * @param L The log marginal likelihood.
      */
     public GaussianProcessRegression(MercerKernel<T> kernel, T[] regressors, double[] weight, double noise, double mean, double sd, Matrix.Cholesky cholesky, double L) {
+        this(kernel, regressors, weight, noise, mean, sd, cholesky, null, L);
+    }
+
+    /**
+     * Constructor.
+     * @param kernel Kernel function.
+     * @param regressors The regressors.
+     * @param weight The weights of regressors.
+     * @param noise The variance of noise.
+     * @param mean The mean of responsible variable.
+     * @param sd The standard deviation of responsible variable.
+     * @param cholesky The Cholesky decomposition of kernel matrix.
+     * @param cholesky32 The single precision Cholesky decomposition of kernel matrix.
+     * @param L The log marginal likelihood.
+     */
+    private GaussianProcessRegression(MercerKernel<T> kernel, T[] regressors, double[] weight, double noise, double mean, double sd,
+                                      Matrix.Cholesky cholesky, smile.math.matrix.fp32.Matrix.Cholesky cholesky32, double L) {
         if (noise < 0.0) {
             throw new IllegalArgumentException("Invalid noise variance: " + noise);
         }
@@ -208,6 +239,7 @@ public class GaussianProcessRegression<T> implements Regression<T> {
         this.mean = mean;
         this.sd = sd;
         this.cholesky = cholesky;
+        this.cholesky32 = cholesky32;
         this.L = L;
     }
 
@@ -230,7 +262,7 @@ public class GaussianProcessRegression<T> implements Regression<T> {
      * @return the estimated mean value.
      */
     public double predict(T x, double[] estimation) {
-        if (cholesky == null) {
+        if (cholesky == null && cholesky32 == null) {
             throw new UnsupportedOperationException("The Cholesky decomposition of kernel matrix is not available.");
         }
 
@@ -240,7 +272,21 @@ public class GaussianProcessRegression<T> implements Regression<T> {
             k[i] = kernel.k(x, regressors[i]);
         }
 
-        double[] Kx = cholesky.solve(k);
+        double[] Kx;
+        if (cholesky != null) {
+            Kx = cholesky.solve(k);
+        } else {
+            float[] k32 = new float[n];
+            for (int i = 0; i < n; i++) {
+                k32[i] = (float) k[i];
+            }
+
+            float[] x32 = cholesky32.solve(k32);
+            Kx = new double[n];
+            for (int i = 0; i < n; i++) {
+                Kx[i] = x32[i];
+            }
+        }
         double mu = MathEx.dot(w, k);
         double sd = Math.sqrt(kernel.k(x, x) - MathEx.dot(Kx, k));
 
@@ -259,7 +305,7 @@ public class GaussianProcessRegression<T> implements Regression<T> {
      * @return The mean, standard deviation and covariances of GP at query points.
      */
     public JointPrediction query(T[] samples) {
-        if (cholesky == null) {
+        if (cholesky == null && cholesky32 == null) {
             throw new UnsupportedOperationException("The Cholesky decomposition of kernel matrix is not available.");
         }
 
@@ -267,7 +313,13 @@ public class GaussianProcessRegression<T> implements Regression<T> {
         Matrix Kt = kernel.K(samples, regressors);
 
         Matrix Kv = Kt.transpose(false);
-        cholesky.solve(Kv);
+        if (cholesky != null) {
+            cholesky.solve(Kv);
+        } else {
+            smile.math.matrix.fp32.Matrix Kv32 = smile.math.matrix.fp32.Matrix.of(Kv);
+            cholesky32.solve(Kv32);
+            Kv = Matrix.of(Kv32);
+        }
         Matrix cov = Kx.sub(Kt.mm(Kv));
         cov.mul(sd * sd);
 
@@ -310,7 +362,8 @@ public class GaussianProcessRegression<T> implements Regression<T> {
         boolean normalize = Boolean.parseBoolean(params.getProperty("smile.gaussian_process.normalize", "true"));
         double tol = Double.parseDouble(params.getProperty("smile.gaussian_process.tolerance", "1E-5"));
         int maxIter = Integer.parseInt(params.getProperty("smile.gaussian_process.iterations", "0"));
-        return fit(x, y, kernel, noise, normalize, tol, maxIter);
+        Precision precision = Precision.valueOf(params.getProperty("smile.gaussian_process.precision", "double").toUpperCase());
+        return fit(x, y, kernel, noise, normalize, tol, maxIter, precision);
     }
 
     /**
@@ -327,7 +380,8 @@ public class GaussianProcessRegression<T> implements Regression<T> {
         boolean normalize = Boolean.parseBoolean(params.getProperty("smile.gaussian_process.normalize", "true"));
         double tol = Double.parseDouble(params.getProperty("smile.gaussian_process.tolerance", "1E-5"));
         int maxIter = Integer.parseInt(params.getProperty("smile.gaussian_process.iterations", "0"));
-        return fit(x, y, kernel, noise, normalize, tol, maxIter);
+        Precision precision = Precision.valueOf(params.getProperty("smile.gaussian_process.precision", "double").toUpperCase());
+        return fit(x, y, kernel, noise, normalize, tol, maxIter, precision);
     }
 
     /**
@@ -356,6 +410,31 @@ public class GaussianProcessRegression<T> implements Regression<T> {
      * @return the model.
      */
     public static <T> GaussianProcessRegression<T> fit(T[] x, double[] y, MercerKernel<T> kernel, double noise, boolean normalize, double tol, int maxIter) {
+        return fit(x, y, kernel, noise, normalize, tol, maxIter, Precision.DOUBLE);
+    }
+
+    /**
+     * Fits a regular Gaussian process model.
+     * @param x the training dataset.
+     * @param y the response variable.
+     * @param kernel the Mercer kernel.
+     * @param noise the noise variance, which also works as a regularization parameter.
+     * @param normalize the flag if normalize the response variable.
+     * @param tol the stopping tolerance for HPO.
+     * @param maxIter the maximum number of iterations for HPO. No HPO if {@code maxIter <= 0}.
+     * @param precision the precision of kernel matrix and its Cholesky
+     *                  decomposition. Single precision takes half memory
+     *                  and runs about twice as fast, but requires the
+     *                  noise variance to be large enough relative to the
+     *                  trace of kernel matrix to keep the kernel matrix
+     *                  well-conditioned. The hyperparameter optimization
+     *                  is always in double precision.
+     * @param <T> the data type of samples.
+     * @throws IllegalArgumentException if the noise variance is too small
+     *         for single precision.
+     * @return the model.
+     */
+    public static <T> GaussianProcessRegression<T> fit(T[] x, double[] y, MercerKernel<T> kernel, double noise, boolean normalize, double tol, int maxIter, Precision precision) {
         if (x.length != y.length) {
             throw new IllegalArgumentException(String.format("The sizes of X and Y don't match: %d != %d", x.length, y.length));
         }
@@ -397,6 +476,10 @@ public class GaussianProcessRegression<T> implements Regression<T> {
             noise = params[params.length - 1];
         }
 
+        if (precision == Precision.FLOAT) {
+            return fit32(x, y, kernel, noise, mean, sd);
+        }
+
         Matrix K = kernel.K(x);
         K.addDiag(noise);
 
@@ -408,6 +491,59 @@ public class GaussianProcessRegression<T> implements Regression<T> {
         return new GaussianProcessRegression<>(kernel, x, w, noise, mean, sd, cholesky, L);
     }
 
+    /**
+     * Fits a regular Gaussian process model in single precision.
+     * @param x the training dataset.
+     * @param y the (normalized) response variable.
+     * @param kernel the Mercer kernel.
+     * @param noise the noise variance.
+     * @param mean the mean of response variable.
+     * @param sd the standard deviation of response variable.
+     * @param <T> the data type of samples.
+     * @return the model.
+     */
+    private static <T> GaussianProcessRegression<T> fit32(T[] x, double[] y, MercerKernel<T> kernel, double noise, double mean, double sd) {
+        // The largest eigenvalue of kernel matrix is bounded by its trace.
+        int n = x.length;
+        double trace = 0.0;
+        for (T xi : x) {
+            trace += kernel.k(xi, xi);
+        }
+
+        double condition = 1.0 + trace / noise;
+        if (!(condition <= MAX_FLOAT_CONDITION)) {
+            throw new IllegalArgumentException(String.format(
+                    "The noise variance %.2e is too small for single precision as the condition number of kernel matrix may be up to %.2e. " +
+                    "Use the noise variance at least %.2e or double precision.", noise, condition, trace / (MAX_FLOAT_CONDITION - 1)));
+        }
+
+        smile.math.matrix.fp32.Matrix K = new smile.math.matrix.fp32.Matrix(n, n);
+        IntStream.range(0, n).parallel().forEach(j -> {
+            T xj = x[j];
+            for (int i = 0; i < n; i++) {
+                K.set(i, j, (float) kernel.k(x[i], xj));
+            }
+        });
+        K.uplo(UPLO.LOWER);
+        K.addDiag((float) noise);
+
+        smile.math.matrix.fp32.Matrix.Cholesky cholesky = K.cholesky(true);
+        float[] y32 = new float[n];
+        for (int i = 0; i < n; i++) {
+            y32[i] = (float) y[i];
+        }
+
+        float[] w32 = cholesky.solve(y32);
+        double[] w = new double[n];
+        for (int i = 0; i < n; i++) {
+            w[i] = w32[i];
+        }
+
+        double L = -0.5 * (MathEx.dot(y, w) + cholesky.logdet() + n * Math.log(2.0 * Math.PI));
+
+        return new GaussianProcessRegression<>(kernel, x, w, noise, mean, sd, null, cholesky, L);
+    }
+
     /**
      * Fits an approximate Gaussian process model by the method of subset of regressors.
      * @param x the training dataset.
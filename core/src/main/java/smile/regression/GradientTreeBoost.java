@@ -19,6 +19,7 @@ package smile.regression;
 
 import java.util.Arrays;
 import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.IntStream;
 import smile.base.cart.*;
 import smile.data.DataFrame;
@@ -180,7 +181,9 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
         int nodeSize = Integer.parseInt(params.getProperty("smile.gradient_boost.node_size", "5"));
         double shrinkage = Double.parseDouble(params.getProperty("smile.gradient_boost.shrinkage", "0.05"));
         double subsample = Double.parseDouble(params.getProperty("smile.gradient_boost.sampling_rate", "0.7"));
-        return fit(formula, data, loss, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample);
+        int maxBins = Integer.parseInt(params.getProperty("smile.gradient_boost.max_bins", "0"));
+        int threads = Integer.parseInt(params.getProperty("smile.gradient_boost.threads", "0"));
+        return fit(formula, data, loss, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample, maxBins, threads);
     }
 
     /**
@@ -200,6 +203,57 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
      * @return the model.
      */
     public static GradientTreeBoost fit(Formula formula, DataFrame data, Loss loss, int ntrees, int maxDepth, int maxNodes, int nodeSize, double shrinkage, double subsample) {
+        return fit(formula, data, loss, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample, 0);
+    }
+
+    /**
+     * Fits a gradient tree boosting for regression.
+     *
+     * @param formula a symbolic description of the model to be fitted.
+     * @param data the data frame of the explanatory and response variables.
+     * @param loss loss function for regression. By default, least absolute
+     * deviation is employed for robust regression.
+     * @param ntrees the number of iterations (trees).
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the number of instances in a node below which the tree will
+     *                 not split, setting nodeSize = 5 generally gives good results.
+     * @param shrinkage the shrinkage parameter in (0, 1] controls the learning rate of procedure.
+     * @param subsample the sampling fraction for stochastic tree boosting.
+     * @param maxBins the maximum number of bins of numeric variables for
+     *                histogram-based split finding, which should be at
+     *                most 256. If 0, the trees are split on the exact
+     *                values of presorted numeric variables.
+     * @return the model.
+     */
+    public static GradientTreeBoost fit(Formula formula, DataFrame data, Loss loss, int ntrees, int maxDepth, int maxNodes, int nodeSize, double shrinkage, double subsample, int maxBins) {
+        return fit(formula, data, loss, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample, maxBins, 0);
+    }
+
+    /**
+     * Fits a gradient tree boosting for regression.
+     *
+     * @param formula a symbolic description of the model to be fitted.
+     * @param data the data frame of the explanatory and response variables.
+     * @param loss loss function for regression. By default, least absolute
+     * deviation is employed for robust regression.
+     * @param ntrees the number of iterations (trees).
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the number of instances in a node below which the tree will
+     *                 not split, setting nodeSize = 5 generally gives good results.
+     * @param shrinkage the shrinkage parameter in (0, 1] controls the learning rate of procedure.
+     * @param subsample the sampling fraction for stochastic tree boosting.
+     * @param maxBins the maximum number of bins of numeric variables for
+     *                histogram-based split finding, which should be at
+     *                most 256. If 0, the trees are split on the exact
+     *                values of presorted numeric variables.
+     * @param threads the number of threads to grow the trees. If 0, the
+     *                trees are grown in the common fork-join pool. The
+     *                model doesn't depend on the number of threads.
+     * @return the model.
+     */
+    public static GradientTreeBoost fit(Formula formula, DataFrame data, Loss loss, int ntrees, int maxDepth, int maxNodes, int nodeSize, double shrinkage, double subsample, int maxBins, int threads) {
         if (ntrees < 1) {
             throw new IllegalArgumentException("Invalid number of trees: " + ntrees);
         }
@@ -212,13 +266,18 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
             throw new IllegalArgumentException("Invalid sampling fraction: " + subsample);
         }
 
+        if (threads < 0) {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
+
         formula = formula.expand(data.schema());
         DataFrame x = formula.x(data);
         double[] y = formula.y(data).toDoubleArray();
 
         final int n = x.nrow();
         final int N = (int) Math.round(n * subsample);
-        final int[][] order = CART.order(x);
+        final Bins bins = maxBins > 0 ? Bins.of(x, maxBins) : null;
+        final int[][] order = bins == null ? CART.order(x) : null;
 
         int[] permutation = IntStream.range(0, n).toArray();
         int[] samples = new int[n];
@@ -229,19 +288,28 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
 
         RegressionTree[] trees = new RegressionTree[ntrees];
 
-        for (int t = 0; t < ntrees; t++) {
-            Arrays.fill(samples, 0);
-            MathEx.permutate(permutation);
-            for (int i = 0; i < N; i++) {
-                samples[permutation[i]]++;
-            }
-
-            logger.info("Training {} tree", Strings.ordinal(t+1));
-            trees[t] = new RegressionTree(x, loss, field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, order);
-
-            for (int i = 0; i < n; i++) {
-                residual[i] -= shrinkage * trees[t].predict(x.get(i));
+        // The samples are drawn in this thread so that the random
+        // numbers don't depend on the pool.
+        ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : null;
+        try {
+            for (int t = 0; t < ntrees; t++) {
+                Arrays.fill(samples, 0);
+                MathEx.permutate(permutation);
+                for (int i = 0; i < N; i++) {
+                    samples[permutation[i]]++;
+                }
+
+                logger.info("Training {} tree", Strings.ordinal(t + 1));
+                trees[t] = pool == null ?
+                        new RegressionTree(x, loss, field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, order, bins) :
+                        pool.submit(() -> new RegressionTree(x, loss, field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, order, bins)).join();
+
+                for (int i = 0; i < n; i++) {
+                    residual[i] -= shrinkage * trees[t].predict(x.get(i));
+                }
             }
+        } finally {
+            if (pool != null) pool.shutdown();
         }
         
         double[] importance = new double[x.ncol()];
@@ -323,6 +391,37 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
         return y;
     }
 
+    /**
+     * Compiles the trees into a flat array layout for fast inference.
+     * The compiled model takes the predictors in the order of the model
+     * schema, e.g. the rows of <code>formula.x(data).toArray()</code>,
+     * and gives the same predictions as this model. Its batch method
+     * scores the rows in parallel blocks.
+     *
+     * @return the compiled model.
+     */
+    public Regression<double[]> compile() {
+        FlatForest forest = new FlatForest(trees);
+        int ntrees = trees.length;
+        double b = this.b;
+        double shrinkage = this.shrinkage;
+
+        return new Regression<double[]>() {
+            @Override
+            public double predict(double[] x) {
+                return forest.sum(x, 0, ntrees, shrinkage, b);
+            }
+
+            @Override
+            public double[] predict(double[][] x) {
+                double[] y = new double[x.length];
+                Arrays.fill(y, b);
+                forest.sum(x, 0, ntrees, shrinkage, y);
+                return y;
+            }
+        };
+    }
+
     /**
      * Test the model on a validation dataset.
      *
@@ -21,9 +21,11 @@ import java.util.Arrays;
 import smile.data.CategoricalEncoder;
 import smile.data.DataFrame;
 import smile.data.Tuple;
+import smile.data.formula.CompiledFormula;
 import smile.data.formula.Formula;
 import smile.data.type.StructType;
 import smile.math.MathEx;
+import smile.math.matrix.IMatrix;
 import smile.math.matrix.Matrix;
 import smile.math.special.Beta;
 import smile.stat.Hypothesis;
@@ -63,6 +65,10 @@ public class LinearModel implements DataFrameRegression {
      * Design matrix formula
      */
     Formula formula;
+    /**
+     * The formula compiled against the schema of last input tuple.
+     */
+    private transient CompiledFormula compiled;
     /**
      * The schema of design matrix.
      */
@@ -157,20 +163,47 @@ public class LinearModel implements DataFrameRegression {
      * @param w the linear weights.
      * @param b the intercept.
      */
-    public LinearModel(Formula formula, StructType schema, Matrix X, double[] y, double[] w, double b) {
+    public LinearModel(Formula formula, StructType schema, IMatrix X, double[] y, double[] w, double b) {
+        this(formula, schema, X.colNames(), fittedValues(X, w, b), y, w, b);
+    }
+
+    /**
+     * Constructor. The fitted values are computed in double precision
+     * with the single precision design matrix.
+     *
+     * @param formula a symbolic description of the model to be fitted.
+     * @param schema the schema of input data.
+     * @param X the single precision design matrix.
+     * @param y the responsible variable.
+     * @param w the linear weights.
+     * @param b the intercept.
+     */
+    public LinearModel(Formula formula, StructType schema, smile.math.matrix.fp32.Matrix X, double[] y, double[] w, double b) {
+        this(formula, schema, X.colNames(), fittedValues(X, w, b), y, w, b);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param formula a symbolic description of the model to be fitted.
+     * @param schema the schema of input data.
+     * @param predictors the column names of design matrix.
+     * @param fittedValues the fitted values.
+     * @param y the responsible variable.
+     * @param w the linear weights.
+     * @param b the intercept.
+     */
+    private LinearModel(Formula formula, StructType schema, String[] predictors, double[] fittedValues, double[] y, double[] w, double b) {
         this.formula = formula;
         this.schema = schema;
-        this.predictors = X.colNames();
-        this.p = X.ncol();
+        this.predictors = predictors;
+        this.p = predictors.length;
         this.w = w;
         this.b = b;
         this.bias = predictors[0].equals("Intercept");
+        this.fittedValues = fittedValues;
 
-        int n = X.nrow();
-        fittedValues = new double[n];
-        Arrays.fill(fittedValues, b);
-        X.mv(1.0, w, 1.0, fittedValues);
-
+        int n = fittedValues.length;
         residuals = new double[n];
         RSS = 0.0;
         double TSS = 0.0;
@@ -199,6 +232,40 @@ public class LinearModel implements DataFrameRegression {
         }
     }
 
+    /**
+     * Returns the fitted values.
+     * @param X the design matrix.
+     * @param w the linear weights.
+     * @param b the intercept.
+     * @return the fitted values.
+     */
+    private static double[] fittedValues(IMatrix X, double[] w, double b) {
+        double[] fittedValues = new double[X.nrow()];
+        Arrays.fill(fittedValues, b);
+        X.mv(1.0, w, 1.0, fittedValues);
+        return fittedValues;
+    }
+
+    /**
+     * Returns the fitted values.
+     * @param X the single precision design matrix.
+     * @param w the linear weights.
+     * @param b the intercept.
+     * @return the fitted values.
+     */
+    private static double[] fittedValues(smile.math.matrix.fp32.Matrix X, double[] w, double b) {
+        int n = X.nrow();
+        double[] fittedValues = new double[n];
+        Arrays.fill(fittedValues, b);
+        for (int j = 0; j < w.length; j++) {
+            double wj = w[j];
+            for (int i = 0; i < n; i++) {
+                fittedValues[i] += wj * X.get(i, j);
+            }
+        }
+        return fittedValues;
+    }
+
     @Override
     public Formula formula() {
         return formula;
@@ -346,9 +413,23 @@ public class LinearModel implements DataFrameRegression {
         return y;
     }
 
+    /**
+     * Returns the formula compiled against the schema of tuple.
+     * @param x the input tuple.
+     * @return the compiled formula.
+     */
+    private CompiledFormula compile(Tuple x) {
+        CompiledFormula compiled = this.compiled;
+        if (compiled == null || compiled.schema() != x.schema()) {
+            compiled = formula.compile(x.schema(), false, CategoricalEncoder.DUMMY);
+            this.compiled = compiled;
+        }
+        return compiled;
+    }
+
     @Override
     public double predict(Tuple x) {
-        return predict(formula.x(x).toArray(false, CategoricalEncoder.DUMMY));
+        return predict(compile(x).apply(x));
     }
 
     @Override
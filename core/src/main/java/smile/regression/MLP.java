@@ -22,6 +22,7 @@ import java.util.Properties;
 import smile.base.mlp.*;
 import smile.math.Scaler;
 import smile.math.MathEx;
+import smile.math.matrix.Precision;
 import smile.util.Strings;
 
 /**
@@ -61,24 +62,37 @@ import smile.util.Strings;
      * @param builders the builders of input and hidden layers from bottom to top.
      */
     public MLP(Scaler scaler, LayerBuilder... builders) {
-        super(net(builders));
+        this(scaler, Precision.DOUBLE, builders);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param scaler the scaling function of output values.
+     * @param precision the precision of layer weights and their gradients.
+     *                  The single precision halves the memory of weights
+     *                  and speeds up the matrix-vector operations.
+     * @param builders the builders of input and hidden layers from bottom to top.
+     */
+    public MLP(Scaler scaler, Precision precision, LayerBuilder... builders) {
+        super(net(precision, builders));
         this.scaler = scaler;
     }
 
     /** Builds the layers. */
-    private static Layer[] net(LayerBuilder... builders) {
+    private static Layer[] net(Precision precision, LayerBuilder... builders) {
         int p = 0;
         int l = builders.length;
         Layer[] net = new Layer[l];
 
         for (int i = 0; i < l; i++) {
-            net[i] = builders[i].build(p);
+            net[i] = builders[i].build(p, precision);
             p = builders[i].neurons();
         }
 
         if (!(net[l-1] instanceof OutputLayer)) {
             net = Arrays.copyOf(net, l + 1);
-            net[l] = new OutputLayer(1, p, OutputFunction.LINEAR, Cost.MEAN_SQUARED_ERROR);
+            net[l] = new OutputLayer(1, p, OutputFunction.LINEAR, Cost.MEAN_SQUARED_ERROR, precision);
         }
         return net;
     }
@@ -138,7 +152,8 @@ import smile.util.Strings;
 
         Scaler scaler = Scaler.of(params.getProperty("smile.mlp.scaler"), y);
         LayerBuilder[] layers = Layer.of(0, p, params.getProperty("smile.mlp.layers", "ReLU(100)"));
-        MLP model = new MLP(scaler, layers);
+        Precision precision = Precision.valueOf(params.getProperty("smile.mlp.precision", "double").toUpperCase());
+        MLP model = new MLP(scaler, precision, layers);
         model.setParameters(params);
 
         int epochs = Integer.parseInt(params.getProperty("smile.mlp.epochs", "100"));
@@ -21,7 +21,10 @@ import java.util.Properties;
 import smile.data.DataFrame;
 import smile.data.formula.Formula;
 import smile.data.type.StructType;
+import smile.math.blas.UPLO;
 import smile.math.matrix.Matrix;
+import smile.math.matrix.Precision;
+import smile.math.matrix.TiledMatrix;
 import smile.math.special.Beta;
 
 /**
@@ -92,6 +95,7 @@ public class OLS {
      * <li><code>smile.ols.standard.error</code> (default true) is a boolean. If true, compute the estimated standard
      *     errors of the estimate of parameters
      * <li><code>smile.ols.recursive</code>  (default true) is a boolean. If true, the return model supports recursive least squares
+     * <li><code>smile.ols.precision</code> (default "double") is a string (double or float) for the precision of matrix computation
      * </ul>
      * @param formula a symbolic description of the model to be fitted.
      * @param data the data frame of the explanatory and response variables.
@@ -103,7 +107,8 @@ public class OLS {
         String method = params.getProperty("smile.ols.method", "qr");
         boolean stderr = Boolean.parseBoolean(params.getProperty("smile.ols.standard_error", "true"));
         boolean recursive = Boolean.parseBoolean(params.getProperty("smile.ols.recursive", "true"));
-        return fit(formula, data, method, stderr, recursive);
+        Precision precision = Precision.valueOf(params.getProperty("smile.ols.precision", "double").toUpperCase());
+        return fit(formula, data, method, stderr, recursive, precision);
     }
     
     /**
@@ -117,6 +122,29 @@ public class OLS {
      * @return the model.
      */
     public static LinearModel fit(Formula formula, DataFrame data, String method, boolean stderr, boolean recursive) {
+        return fit(formula, data, method, stderr, recursive, Precision.DOUBLE);
+    }
+
+    /**
+     * Fits an ordinary least squares model.
+     * @param formula a symbolic description of the model to be fitted.
+     * @param data the data frame of the explanatory and response variables.
+     *             NO NEED to include a constant column of 1s for bias.
+     * @param method the fitting method ("svd" or "qr").
+     * @param stderr if true, compute the standard errors of the estimate of parameters.
+     * @param recursive if true, the return model supports recursive least squares.
+     * @param precision the precision of matrix computation. In single
+     *                  precision, the design matrix takes half memory
+     *                  and the decomposition runs about twice as fast.
+     *                  The fitted values and statistics are always
+     *                  computed in double precision.
+     * @return the model.
+     */
+    public static LinearModel fit(Formula formula, DataFrame data, String method, boolean stderr, boolean recursive, Precision precision) {
+        if (precision == Precision.FLOAT) {
+            return fit32(formula, data, method, stderr, recursive);
+        }
+
         formula = formula.expand(data.schema());
         StructType schema = formula.bind(data.schema());
 
@@ -160,19 +188,148 @@ public class OLS {
         }
 
         if (stderr) {
-            double[][] ttest = new double[p][4];
-            model.ttest = ttest;
-
-            for (int i = 0; i < p; i++) {
-                ttest[i][0] = w[i];
-                double se = model.error * Math.sqrt(inv.get(i, i));
-                ttest[i][1] = se;
-                double t = w[i] / se;
-                ttest[i][2] = t;
-                ttest[i][3] = Beta.regularizedIncompleteBetaFunction(0.5 * model.df, 0.5, model.df / (model.df + t * t));
+            ttest(model, w, inv);
+        }
+
+        return model;
+    }
+
+    /**
+     * Fits an ordinary least squares model in single precision.
+     * @param formula a symbolic description of the model to be fitted.
+     * @param data the data frame of the explanatory and response variables.
+     * @param method the fitting method ("svd" or "qr").
+     * @param stderr if true, compute the standard errors of the estimate of parameters.
+     * @param recursive if true, the return model supports recursive least squares.
+     * @return the model.
+     */
+    private static LinearModel fit32(Formula formula, DataFrame data, String method, boolean stderr, boolean recursive) {
+        formula = formula.expand(data.schema());
+        StructType schema = formula.bind(data.schema());
+
+        smile.math.matrix.fp32.Matrix X = formula.floatMatrix(data);
+        double[] y = formula.y(data).toDoubleArray();
+
+        int n = X.nrow();
+        int p = X.ncol();
+
+        if (n <= p) {
+            throw new IllegalArgumentException(String.format("The input matrix is not over determined: %d rows, %d columns", n, p));
+        }
+
+        float[] y32 = new float[n];
+        for (int i = 0; i < n; i++) {
+            y32[i] = (float) y[i];
+        }
+
+        float[] w32;
+        smile.math.matrix.fp32.Matrix.QR qr = null;
+        if (method.equalsIgnoreCase("svd")) {
+            w32 = X.svd().solve(y32);
+        } else {
+            try {
+                qr = X.qr();
+                w32 = qr.solve(y32);
+            } catch (RuntimeException e) {
+                logger.warn("Matrix is not of full rank, try SVD instead");
+                method = "svd";
+                w32 = X.svd().solve(y32);
             }
         }
 
+        double[] w = new double[p];
+        for (int i = 0; i < p; i++) {
+            w[i] = w32[i];
+        }
+
+        LinearModel model = new LinearModel(formula, schema, X, y, w, 0.0);
+
+        Matrix inv = null;
+        if (stderr || recursive) {
+            smile.math.matrix.fp32.Matrix.Cholesky cholesky = method.equalsIgnoreCase("svd") ? X.ata().cholesky(true) : qr.CholeskyOfAtA();
+            inv = Matrix.of(cholesky.inverse());
+            model.V = inv;
+        }
+
+        if (stderr) {
+            ttest(model, w, inv);
+        }
+
         return model;
     }
+
+    /**
+     * Fits an ordinary least squares model on a design matrix that may be
+     * larger than memory. The least squares problem is solved with the
+     * tall-skinny QR decomposition of the augmented matrix {@code [X y]},
+     * which scans the design matrix once without forming Q.
+     *
+     * @param formula a symbolic description of the model, which is used
+     *                to predict on new data.
+     * @param schema the schema of input data bound by the formula.
+     * @param X the design matrix, which includes the constant column of
+     *          1s for bias if the formula does. The column names of
+     *          design matrix must be set as the predictors.
+     * @param y the response variable.
+     * @param stderr if true, compute the standard errors of the estimate of parameters.
+     * @return the model.
+     */
+    public static LinearModel fit(Formula formula, StructType schema, TiledMatrix X, double[] y, boolean stderr) {
+        int n = X.nrow();
+        int p = X.ncol();
+
+        if (n <= p) {
+            throw new IllegalArgumentException(String.format("The input matrix is not over determined: %d rows, %d columns", n, p));
+        }
+
+        if (X.colNames() == null) {
+            throw new IllegalArgumentException("The column names of design matrix are not set");
+        }
+
+        // R factor of [X y], of which the last column is [Q'y; RSS^0.5].
+        Matrix R = X.tsqr(y);
+        Matrix L = new Matrix(p, p);
+        double[] qty = new double[p];
+        for (int i = 0; i < p; i++) {
+            qty[i] = R.get(i, p);
+            for (int j = 0; j <= i; j++) {
+                L.set(i, j, R.get(j, i));
+            }
+        }
+
+        // The SVD of R is that of X without the left singular vectors,
+        // which also handles the rank deficient design matrix.
+        double[] w = L.transpose().svd().solve(qty);
+        LinearModel model = new LinearModel(formula, schema, X, y, w, 0.0);
+
+        if (stderr) {
+            L.uplo(UPLO.LOWER);
+            Matrix inv = new Matrix.Cholesky(L).inverse();
+            model.V = inv;
+            ttest(model, w, inv);
+        }
+
+        return model;
+    }
+
+    /**
+     * Computes the t-test of the coefficients.
+     * @param model the model.
+     * @param w the coefficients.
+     * @param inv the inverse of {@code X' * X}.
+     */
+    private static void ttest(LinearModel model, double[] w, Matrix inv) {
+        int p = w.length;
+        double[][] ttest = new double[p][4];
+        model.ttest = ttest;
+
+        for (int i = 0; i < p; i++) {
+            ttest[i][0] = w[i];
+            double se = model.error * Math.sqrt(inv.get(i, i));
+            ttest[i][1] = se;
+            double t = w[i] / se;
+            ttest[i][2] = t;
+            ttest[i][3] = Beta.regularizedIncompleteBetaFunction(0.5 * model.df, 0.5, model.df / (model.df + t * t));
+        }
+    }
 }
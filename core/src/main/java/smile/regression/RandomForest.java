@@ -22,7 +22,9 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Properties;
 import java.util.stream.LongStream;
+import smile.base.cart.Bins;
 import smile.base.cart.CART;
+import smile.base.cart.FlatForest;
 import smile.base.cart.Loss;
 import smile.data.DataFrame;
 import smile.data.Tuple;
@@ -160,7 +162,8 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
         int maxNodes = Integer.parseInt(params.getProperty("smile.random_forest.max_nodes", String.valueOf(data.size() / 5)));
         int nodeSize = Integer.parseInt(params.getProperty("smile.random_forest.node_size", "5"));
         double subsample = Double.parseDouble(params.getProperty("smile.random_forest.sampling_rate", "1.0"));
-        return fit(formula, data, ntrees, mtry, maxDepth, maxNodes, nodeSize, subsample);
+        int maxBins = Integer.parseInt(params.getProperty("smile.random_forest.max_bins", "0"));
+        return fit(formula, data, ntrees, mtry, maxDepth, maxNodes, nodeSize, subsample, maxBins, null);
     }
 
     /**
@@ -203,6 +206,32 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
      * @return the model.
      */
     public static RandomForest fit(Formula formula, DataFrame data, int ntrees, int mtry, int maxDepth, int maxNodes, int nodeSize, double subsample, LongStream seeds) {
+        return fit(formula, data, ntrees, mtry, maxDepth, maxNodes, nodeSize, subsample, 0, seeds);
+    }
+
+    /**
+     * Fits a random forest for regression.
+     *
+     * @param formula a symbolic description of the model to be fitted.
+     * @param data the data frame of the explanatory and response variables.
+     * @param ntrees the number of trees.
+     * @param mtry the number of input variables to be used to determine the
+     *             decision at a node of the tree. p/3 generally give good
+     *             performance, where p is the number of variables.
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the number of instances in a node below which the tree will
+     *                 not split, nodeSize = 5 generally gives good results.
+     * @param subsample the sampling rate for training tree. 1.0 means sampling with
+     *                  replacement. {@code < 1.0} means sampling without replacement.
+     * @param maxBins the maximum number of bins of numeric variables for
+     *                histogram-based split finding, which should be at
+     *                most 256. If 0, the trees are split on the exact
+     *                values of presorted numeric variables.
+     * @param seeds optional RNG seeds for each regression tree.
+     * @return the model.
+     */
+    public static RandomForest fit(Formula formula, DataFrame data, int ntrees, int mtry, int maxDepth, int maxNodes, int nodeSize, double subsample, int maxBins, LongStream seeds) {
         if (ntrees < 1) {
             throw new IllegalArgumentException("Invalid number of trees: " + ntrees);
         }
@@ -226,7 +255,8 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
         final int n = x.nrow();
         double[] prediction = new double[n];
         int[] oob = new int[n];
-        final int[][] order = CART.order(x);
+        final Bins bins = maxBins > 0 ? Bins.of(x, maxBins) : null;
+        final int[][] order = bins == null ? CART.order(x) : null;
 
         // generate seeds with sequential stream
         long[] seedArray = (seeds != null ? seeds : LongStream.range(-ntrees, 0)).sequential().distinct().limit(ntrees).toArray();
@@ -255,7 +285,7 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
             }
 
             long start = System.nanoTime();
-            RegressionTree tree = new RegressionTree(x, Loss.ls(y), field, maxDepth, maxNodes, nodeSize, mtryFinal, samples, order);
+            RegressionTree tree = new RegressionTree(x, Loss.ls(y), field, maxDepth, maxNodes, nodeSize, mtryFinal, samples, order, bins);
             double fitTime = (System.nanoTime() - start) / 1E6;
 
             // estimate OOB metrics
@@ -461,6 +491,37 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
         return y / models.length;
     }
 
+    /**
+     * Compiles the forest into a flat array layout for fast inference.
+     * The compiled model takes the predictors in the order of the model
+     * schema, e.g. the rows of <code>formula.x(data).toArray()</code>,
+     * and gives the same predictions as this model. Its batch method
+     * scores the rows in parallel blocks.
+     *
+     * @return the compiled model.
+     */
+    public Regression<double[]> compile() {
+        FlatForest forest = new FlatForest(trees());
+        int ntrees = models.length;
+
+        return new Regression<double[]>() {
+            @Override
+            public double predict(double[] x) {
+                return forest.sum(x, 0, ntrees, 1.0, 0.0) / ntrees;
+            }
+
+            @Override
+            public double[] predict(double[][] x) {
+                double[] y = new double[x.length];
+                forest.sum(x, 0, ntrees, 1.0, y);
+                for (int i = 0; i < y.length; i++) {
+                    y[i] /= ntrees;
+                }
+                return y;
+            }
+        };
+    }
+
     /**
      * Test the model on a validation dataset.
      *
@@ -123,6 +123,17 @@ public class RegressionTree extends CART implements DataFrameRegression {
         return new RegressionNode(n, out, mean, rss);
     }
 
+    @Override
+    protected int binStride() {
+        return 2;
+    }
+
+    @Override
+    protected void accumulate(double[] histogram, int offset, int i) {
+        histogram[offset] += samples[i];
+        histogram[offset + 1] += y[i] * samples[i];
+    }
+
     @Override
     protected Optional<Split> findBestSplit(LeafNode leaf, int j, double impurity, int lo, int hi) {
         RegressionNode node = (RegressionNode) leaf;
@@ -179,6 +190,39 @@ public class RegressionTree extends CART implements DataFrameRegression {
                 final int value = splitValue;
                 split = new NominalSplit(leaf, j, splitValue, splitScore, lo, hi, splitTrueCount, splitFalseCount, (int o) -> xj.getInt(o) == value);
             }
+        } else if (bins != null) {
+            int splitBin = -1;
+            int tc = 0;
+            double trueSum = 0.0;
+            double[] histogram = histogram(leaf, j);
+
+            for (int b = 0; b < bins.size(j) - 1; b++) {
+                tc += (int) histogram[2 * b];
+                trueSum += histogram[2 * b + 1];
+                int fc = node.size() - tc;
+
+                // If either side is too small, skip this bin.
+                if (tc >= nodeSize && fc >= nodeSize) {
+                    double trueMean = trueSum / tc;
+                    double falseMean = (sum - trueSum) / fc;
+
+                    double gain = (tc * trueMean * trueMean + fc * falseMean * falseMean) - nodeMeanSquared;
+
+                    // new best split
+                    if (gain > splitScore) {
+                        splitBin = b;
+                        splitTrueCount = tc;
+                        splitFalseCount = fc;
+                        splitScore = gain;
+                    }
+                }
+            }
+
+            if (splitScore > 0.0) {
+                final int bin = splitBin;
+                final Bins bins = this.bins;
+                split = new OrdinalSplit(leaf, j, bins.threshold(j, bin), splitScore, lo, hi, splitTrueCount, splitFalseCount, (int o) -> bins.bin(j, o) <= bin);
+            }
         } else {
             double splitValue = 0.0;
             int tc = 0;
@@ -245,7 +289,30 @@ public class RegressionTree extends CART implements DataFrameRegression {
      *              that only numeric attributes need be sorted.
      */
     public RegressionTree(DataFrame x, Loss loss, StructField response, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, int[][] order) {
-        super(x, response, maxDepth, maxNodes, nodeSize, mtry, samples, order);
+        this(x, loss, response, maxDepth, maxNodes, nodeSize, mtry, samples, order, null);
+    }
+
+    /**
+     * Constructor. Fits a regression tree for AdaBoost and Random Forest.
+     * @param x the data frame of the explanatory variable.
+     * @param loss the loss function.
+     * @param response the metadata of response variable.
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the minimum size of leaf nodes.
+     * @param mtry the number of input variables to pick to split on at each
+     *             node. It seems that sqrt(p) give generally good performance,
+     *             where p is the number of variables.
+     * @param samples the sample set of instances for stochastic learning.
+     *               samples[i] is the number of sampling for instance i.
+     * @param order the index of training values in ascending order. Note
+     *              that only numeric attributes need be sorted.
+     * @param bins the quantized training data for histogram-based split
+     *             finding. If null, the splits are searched on the exact
+     *             values in the order of training values.
+     */
+    public RegressionTree(DataFrame x, Loss loss, StructField response, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, int[][] order, Bins bins) {
+        super(x, response, maxDepth, maxNodes, nodeSize, mtry, samples, order, bins);
         this.loss = loss;
         this.y = loss.response();
 
@@ -254,18 +321,7 @@ public class RegressionTree extends CART implements DataFrameRegression {
 
         Optional<Split> split = findBestSplit(node, 0, index.length, new boolean[x.ncol()]);
 
-        if (maxNodes == Integer.MAX_VALUE) {
-            // deep-first split
-            split.ifPresent(s -> split(s, null));
-        } else {
-            // best-first split
-            PriorityQueue<Split> queue = new PriorityQueue<>(2 * maxNodes, Split.comparator.reversed());
-            split.ifPresent(queue::add);
-
-            for (int leaves = 1; leaves < this.maxNodes && !queue.isEmpty(); ) {
-                if (split(queue.poll(), queue)) leaves++;
-            }
-        }
+        grow(split);
 
         // merge the sister leaves that produce the same output.
         this.root = this.root.merge();
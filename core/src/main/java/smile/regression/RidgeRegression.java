@@ -17,6 +17,8 @@
 
 package smile.regression;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.Properties;
 import smile.data.DataFrame;
@@ -25,6 +27,8 @@ import smile.data.type.StructType;
 import smile.math.MathEx;
 import smile.math.blas.UPLO;
 import smile.math.matrix.Matrix;
+import smile.math.matrix.Precision;
+import smile.math.matrix.TiledMatrix;
 
 /**
  * Ridge Regression. Coefficient estimates for multiple linear regression
@@ -88,6 +92,8 @@ public class RidgeRegression {
      *               Choosing an appropriate value of lambda is important, and also difficult.
      * <li><code>smile.ridge.standard.error</code> is a boolean. If true, compute the estimated standard
      *     errors of the estimate of parameters
+     * <li><code>smile.ridge.precision</code> (default "double") is a string (double or float) for the precision of
+     *     matrix computation
      * </ul>
      * @param formula a symbolic description of the model to be fitted.
      * @param data the data frame of the explanatory and response variables.
@@ -97,7 +103,10 @@ public class RidgeRegression {
      */
     public static LinearModel fit(Formula formula, DataFrame data, Properties params) {
         double lambda = Double.parseDouble(params.getProperty("smile.ridge.lambda", "1"));
-        return fit(formula, data, lambda);
+        Precision precision = Precision.valueOf(params.getProperty("smile.ridge.precision", "double").toUpperCase());
+        double[] weights = new double[data.size()];
+        Arrays.fill(weights, 1.0);
+        return fit(formula, data, weights, new double[]{lambda}, new double[]{0.0}, precision);
     }
 
     /**
@@ -137,14 +146,43 @@ public class RidgeRegression {
      * @return the model.
      */
     public static LinearModel fit(Formula formula, DataFrame data, double[] weights, double[] lambda, double[] beta0) {
+        return fit(formula, data, weights, lambda, beta0, Precision.DOUBLE);
+    }
+
+    /**
+     * Fits a generalized ridge regression model that minimizes a
+     * weighted least squares criterion augmented with a
+     * generalized ridge penalty:
+     * <pre>{@code
+     *     (Y - X'*beta)' * W * (Y - X'*beta) + (beta - beta0)' * lambda * (beta - beta0)
+     * }</pre>
+     *
+     * @param formula a symbolic description of the model to be fitted.
+     * @param data the data frame of the explanatory and response variables.
+     *             NO NEED to include a constant column of 1s for bias.
+     * @param weights sample weights.
+     * @param lambda the shrinkage/regularization parameter. Large lambda
+     *               means more shrinkage. Choosing an appropriate value of
+     *               lambda is important, and also difficult. Its length may
+     *               be 1 so that its value is applied to all variables.
+     * @param beta0 generalized ridge penalty target. Its length may
+     *              be 1 so that its value is applied to all variables.
+     * @param precision the precision of matrix computation. In single
+     *                  precision, the design matrix takes half memory
+     *                  and the normal equations are formed and solved
+     *                  about twice as fast.
+     * @return the model.
+     */
+    public static LinearModel fit(Formula formula, DataFrame data, double[] weights, double[] lambda, double[] beta0, Precision precision) {
         formula = formula.expand(data.schema());
         StructType schema = formula.bind(data.schema());
 
-        Matrix X = formula.matrix(data, false);
+        Matrix X = precision == Precision.DOUBLE ? formula.matrix(data, false) : null;
+        smile.math.matrix.fp32.Matrix X32 = precision == Precision.FLOAT ? formula.floatMatrix(data, false) : null;
         double[] y = formula.y(data).toDoubleArray();
 
-        int n = X.nrow();
-        int p = X.ncol();
+        int n = data.size();
+        int p = X != null ? X.ncol() : X32.ncol();
 
         if (weights.length != n) {
             throw new IllegalArgumentException(String.format("Invalid weights vector size: %d != %d", weights.length, n));
@@ -178,6 +216,10 @@ public class RidgeRegression {
             throw new IllegalArgumentException(String.format("Invalid beta0 vector size: %d != %d", beta0.length, p));
         }
 
+        if (X32 != null) {
+            return fit(formula, schema, X32, y, weights, lambda, beta0);
+        }
+
         double[] center = X.colMeans();
         double[] scale = X.colSds();
 
@@ -213,4 +255,154 @@ public class RidgeRegression {
         double b = MathEx.mean(y) - MathEx.dot(w, center);
         return new LinearModel(formula, schema, X, y, w, b);
     }
+
+    /**
+     * Fits a generalized ridge regression model in single precision.
+     * The column means and standard deviations are accumulated in
+     * double precision.
+     *
+     * @param formula a symbolic description of the model to be fitted.
+     * @param schema the schema of input data bound by the formula.
+     * @param X the single precision design matrix.
+     * @param y the response variable.
+     * @param weights sample weights.
+     * @param lambda the shrinkage/regularization parameters.
+     * @param beta0 generalized ridge penalty target.
+     * @return the model.
+     */
+    private static LinearModel fit(Formula formula, StructType schema, smile.math.matrix.fp32.Matrix X, double[] y, double[] weights, double[] lambda, double[] beta0) {
+        int n = X.nrow();
+        int p = X.ncol();
+
+        double[] center = new double[p];
+        double[] scale = new double[p];
+        for (int j = 0; j < p; j++) {
+            double mu = 0.0;
+            double sumsq = 0.0;
+            for (int i = 0; i < n; i++) {
+                double a = X.get(i, j);
+                mu += a;
+                sumsq += a * a;
+            }
+            mu /= n;
+            center[j] = mu;
+            scale[j] = Math.sqrt(sumsq / n - mu * mu);
+
+            if (MathEx.isZero(scale[j])) {
+                throw new IllegalArgumentException(String.format("The column '%s' is constant", X.colName(j)));
+            }
+        }
+
+        smile.math.matrix.fp32.Matrix scaledX = new smile.math.matrix.fp32.Matrix(n, p);
+        smile.math.matrix.fp32.Matrix XtW = new smile.math.matrix.fp32.Matrix(p, n);
+        for (int j = 0; j < p; j++) {
+            for (int i = 0; i < n; i++) {
+                float x = (float) ((X.get(i, j) - center[j]) / scale[j]);
+                scaledX.set(i, j, x);
+                XtW.set(j, i, (float) (weights[i] * x));
+            }
+        }
+
+        float[] scaledY = new float[p];
+        for (int j = 0; j < p; j++) {
+            double sum = lambda[j] * beta0[j];
+            for (int i = 0; i < n; i++) {
+                sum += XtW.get(j, i) * y[i];
+            }
+            scaledY[j] = (float) sum;
+        }
+
+        smile.math.matrix.fp32.Matrix XtX = XtW.mm(scaledX);
+        XtX.uplo(UPLO.LOWER);
+        for (int j = 0; j < p; j++) {
+            XtX.add(j, j, (float) lambda[j]);
+        }
+
+        float[] w32 = XtX.cholesky(true).solve(scaledY);
+        double[] w = new double[p];
+        for (int j = 0; j < p; j++) {
+            w[j] = w32[j] / scale[j];
+        }
+
+        double b = MathEx.mean(y) - MathEx.dot(w, center);
+        return new LinearModel(formula, schema, X, y, w, b);
+    }
+
+    /**
+     * Fits a ridge regression model on a design matrix that may be
+     * larger than memory. The normal equations are formed with the
+     * tiled product {@code X' * X}, which is centered and scaled
+     * afterwards so that the design matrix is scanned only once.
+     * The regularized system is solved by the tiled Cholesky
+     * decomposition.
+     *
+     * @param formula a symbolic description of the model, which is used
+     *                to predict on new data.
+     * @param schema the schema of input data bound by the formula.
+     * @param X the design matrix without the constant column of 1s.
+     *          The column names of design matrix must be set as the
+     *          predictors.
+     * @param y the response variable.
+     * @param lambda the shrinkage/regularization parameter.
+     * @return the model.
+     */
+    public static LinearModel fit(Formula formula, StructType schema, TiledMatrix X, double[] y, double lambda) {
+        int n = X.nrow();
+        int p = X.ncol();
+
+        if (y.length != n) {
+            throw new IllegalArgumentException(String.format("Invalid response vector size: %d != %d", y.length, n));
+        }
+
+        if (lambda < 0.0) {
+            throw new IllegalArgumentException("Invalid lambda: " + lambda);
+        }
+
+        if (X.colNames() == null) {
+            throw new IllegalArgumentException("The column names of design matrix are not set");
+        }
+
+        double[] ones = new double[n];
+        Arrays.fill(ones, 1.0);
+        double[] center = X.tv(ones);
+        double[] scaledY = X.tv(y);
+        double sumy = MathEx.sum(y);
+
+        for (int j = 0; j < p; j++) {
+            center[j] /= n;
+        }
+
+        try (TiledMatrix XtX = X.ata()) {
+            // The population standard deviation from the diagonal of X' * X.
+            double[] scale = new double[p];
+            for (int j = 0; j < p; j++) {
+                scale[j] = Math.sqrt(Math.max(0.0, XtX.get(j, j) / n - center[j] * center[j]));
+                if (MathEx.isZero(scale[j])) {
+                    throw new IllegalArgumentException(String.format("The column '%s' is constant", X.colName(j)));
+                }
+            }
+
+            // Centers and scales X' * X and X' * y in place.
+            for (int j = 0; j < p; j++) {
+                for (int i = j; i < p; i++) {
+                    double xtx = (XtX.get(i, j) - n * center[i] * center[j]) / (scale[i] * scale[j]);
+                    XtX.set(i, j, i == j ? xtx + lambda : xtx);
+                }
+                scaledY[j] = (scaledY[j] - center[j] * sumy) / scale[j];
+            }
+
+            TiledMatrix.Cholesky cholesky = XtX.cholesky();
+            double[] w = cholesky.solve(scaledY);
+            cholesky.L.close();
+
+            for (int j = 0; j < p; j++) {
+                w[j] /= scale[j];
+            }
+
+            double b = sumy / n - MathEx.dot(w, center);
+            return new LinearModel(formula, schema, X, y, w, b);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
 }
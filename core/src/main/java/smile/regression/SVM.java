@@ -18,6 +18,7 @@
 package smile.regression;
 
 import java.util.Properties;
+import smile.base.svm.KernelCache;
 import smile.base.svm.LinearKernelMachine;
 import smile.math.kernel.*;
 import smile.util.SparseArray;
@@ -57,7 +58,25 @@ public class SVM {
      * @return the model.
      */
     public static Regression<double[]> fit(double[][] x, double[] y, double eps, double C, double tol) {
-        smile.base.svm.SVR<double[]> svr = new smile.base.svm.SVR<>(new LinearKernel(), eps, C, tol);
+        return fit(x, y, eps, C, tol, KernelCache.DEFAULT_SIZE);
+    }
+
+    /**
+     * Fits a linear epsilon-SVR.
+     * @param x training samples.
+     * @param y response variable.
+     * @param eps the parameter of epsilon-insensitive hinge loss.
+     *            There is no penalty associated with samples which are
+     *            predicted within distance epsilon from the actual value.
+     *            Decreasing epsilon forces closer fitting
+     *            to the calibration/training data.
+     * @param C the soft margin penalty parameter.
+     * @param tol the tolerance of convergence test.
+     * @param cacheSize the memory budget of kernel cache in bytes.
+     * @return the model.
+     */
+    public static Regression<double[]> fit(double[][] x, double[] y, double eps, double C, double tol, long cacheSize) {
+        smile.base.svm.SVR<double[]> svr = new smile.base.svm.SVR<>(new LinearKernel(), eps, C, tol, cacheSize);
         KernelMachine<double[]> svm = svr.fit(x, y);
 
         return new Regression<double[]>() {
@@ -142,7 +161,29 @@ public class SVM {
      * @return the model.
      */
     public static <T> KernelMachine<T> fit(T[] x, double[] y, MercerKernel<T> kernel, double eps, double C, double tol) {
-        smile.base.svm.SVR<T> svr = new smile.base.svm.SVR<>(kernel, eps, C, tol);
+        return fit(x, y, kernel, eps, C, tol, KernelCache.DEFAULT_SIZE);
+    }
+
+    /**
+     * Fits an epsilon-SVR.
+     * @param x training samples.
+     * @param y response variable.
+     * @param eps the parameter of epsilon-insensitive hinge loss.
+     *            There is no penalty associated with samples which are
+     *            predicted within distance epsilon from the actual value.
+     *            Decreasing epsilon forces closer fitting
+     *            to the calibration/training data.
+     * @param kernel the kernel function.
+     * @param C the soft margin penalty parameter.
+     * @param tol the tolerance of convergence test.
+     * @param cacheSize the memory budget of kernel cache in bytes.
+     *                  The least recently used rows of kernel matrix
+     *                  are evicted when the budget is exceeded.
+     * @param <T> the data type of samples.
+     * @return the model.
+     */
+    public static <T> KernelMachine<T> fit(T[] x, double[] y, MercerKernel<T> kernel, double eps, double C, double tol, long cacheSize) {
+        smile.base.svm.SVR<T> svr = new smile.base.svm.SVR<>(kernel, eps, C, tol, cacheSize);
         return svr.fit(x, y);
     }
 
@@ -158,11 +199,12 @@ public class SVM {
         double eps = Double.parseDouble(params.getProperty("smile.svm.epsilon", "1.0"));
         double C = Double.parseDouble(params.getProperty("smile.svm.C", "1.0"));
         double tol = Double.parseDouble(params.getProperty("smile.svm.tolerance", "1E-3"));
+        long cacheSize = Long.parseLong(params.getProperty("smile.svm.cache_size", "1024")) << 20;
 
         if (kernel instanceof LinearKernel) {
-            return SVM.fit(x, y, eps, C, tol);
+            return SVM.fit(x, y, eps, C, tol, cacheSize);
         } else {
-            return SVM.fit(x, y, kernel, eps, C, tol);
+            return SVM.fit(x, y, kernel, eps, C, tol, cacheSize);
         }
     }
 }
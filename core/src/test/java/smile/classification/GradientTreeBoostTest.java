@@ -28,6 +28,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -146,6 +147,20 @@ public class GradientTreeBoostTest {
         }
     }
 
+    @Test
+    public void testSegmentHistogram() {
+        System.out.println("Segment with histogram");
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        GradientTreeBoost model = GradientTreeBoost.fit(Segment.formula, Segment.train, 100, 20, 6, 5, 0.05, 0.7, 256);
+
+        int[] prediction = model.predict(Segment.test);
+        int error = Error.of(Segment.testy, prediction);
+
+        System.out.println("Error = " + error);
+        assertEquals(22, error);
+    }
+
     @Test
     public void testUSPS() {
         System.out.println("USPS");
@@ -189,4 +204,59 @@ public class GradientTreeBoostTest {
             System.out.format("%-15s %.4f    %.4f    %.4f%n", fields[i], shap[2*i], shap[2*i+1], shap[2*i+2]);
         }
     }
+
+    @Test
+    public void testCompile() {
+        System.out.println("compile");
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        GradientTreeBoost model = GradientTreeBoost.fit(Segment.formula, Segment.train, 100, 20, 6, 5, 0.05, 0.7);
+        Classifier<double[]> compiled = model.compile();
+
+        double[][] x = Segment.formula.x(Segment.test).toArray();
+        assertArrayEquals(model.predict(Segment.test), compiled.predict(x));
+
+        int k = model.numClasses();
+        double[] expected = new double[k];
+        double[] actual = new double[k];
+        for (int i = 0; i < x.length; i++) {
+            assertEquals(model.predict(Segment.test.get(i), expected), compiled.predict(x[i], actual));
+            assertArrayEquals(expected, actual, 0.0);
+        }
+
+        // binary classification with nominal features
+        model = GradientTreeBoost.fit(WeatherNominal.formula, WeatherNominal.data, 100, 20, 6, 1, 0.05, 0.7);
+        compiled = model.compile();
+        x = WeatherNominal.formula.x(WeatherNominal.data).toArray();
+        assertArrayEquals(model.predict(WeatherNominal.data), compiled.predict(x));
+
+        expected = new double[2];
+        actual = new double[2];
+        for (int i = 0; i < x.length; i++) {
+            assertEquals(model.predict(WeatherNominal.data.get(i), expected), compiled.predict(x[i], actual));
+            assertArrayEquals(expected, actual, 0.0);
+        }
+    }
+
+    @Test
+    public void testThreads() {
+        System.out.println("threads");
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        GradientTreeBoost model = GradientTreeBoost.fit(Segment.formula, Segment.train, 100, 20, 6, 5, 0.05, 0.7, 0, 1);
+        MathEx.setSeed(19650218);
+        GradientTreeBoost parallel = GradientTreeBoost.fit(Segment.formula, Segment.train, 100, 20, 6, 5, 0.05, 0.7, 0, 4);
+
+        assertArrayEquals(model.importance(), parallel.importance(), 0.0);
+        assertArrayEquals(model.predict(Segment.test), parallel.predict(Segment.test));
+
+        // binary classification
+        MathEx.setSeed(19650218);
+        model = GradientTreeBoost.fit(BreastCancer.formula, BreastCancer.data, 100, 20, 6, 5, 0.05, 0.7, 0, 1);
+        MathEx.setSeed(19650218);
+        parallel = GradientTreeBoost.fit(BreastCancer.formula, BreastCancer.data, 100, 20, 6, 5, 0.05, 0.7, 0, 4);
+
+        assertArrayEquals(model.importance(), parallel.importance(), 0.0);
+        assertArrayEquals(model.predict(BreastCancer.data), parallel.predict(BreastCancer.data));
+    }
 }
@@ -24,6 +24,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import smile.data.*;
 import smile.math.MathEx;
+import smile.math.matrix.Precision;
 import smile.validation.*;
 import smile.validation.metric.Error;
 
@@ -64,6 +65,24 @@ public class LDATest {
         assertEquals(0.8533, metrics.accuracy, 1E-4);
     }
 
+    @Test
+    public void testFloat() {
+        System.out.println("float");
+
+        ClassificationMetrics metrics = LOOCV.classification(Iris.x, Iris.y,
+                (x, y) -> LDA.fit(x, y, null, 1E-4, Precision.FLOAT));
+
+        System.out.println(metrics);
+        assertEquals(0.8533, metrics.accuracy, 1E-4);
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        ClassificationValidations<LDA> result = CrossValidation.classification(10, PenDigits.x, PenDigits.y,
+                (x, y) -> LDA.fit(x, y, null, 1E-4, Precision.FLOAT));
+
+        System.out.println(result);
+        assertEquals(0.8820, result.avg.accuracy, 1E-3);
+    }
+
     @Test
     public void testPenDigits() {
         System.out.println("Pen Digits");
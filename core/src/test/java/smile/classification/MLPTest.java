@@ -31,6 +31,7 @@ import smile.feature.Standardizer;
 import smile.feature.WinsorScaler;
 import smile.math.MathEx;
 import smile.math.TimeFunction;
+import smile.math.matrix.Precision;
 import smile.validation.ClassificationValidations;
 import smile.validation.CrossValidation;
 import smile.validation.metric.Error;
@@ -207,6 +208,58 @@ public class MLPTest {
         assertEquals(28, error);
     }
 
+    @Test
+    public void testSegmentFloat() throws Exception {
+        System.out.println("Segment float");
+        MathEx.setSeed(19650218); // to get repeatable results.
+
+        WinsorScaler scaler = WinsorScaler.fit(Segment.x, 0.01, 0.99);
+        double[][] x = scaler.transform(Segment.x);
+        double[][] testx = scaler.transform(Segment.testx);
+        int p = x[0].length;
+        int k = MathEx.max(Segment.y) + 1;
+
+        MLP model = new MLP(Precision.FLOAT,
+                Layer.input(p),
+                Layer.sigmoid(50),
+                Layer.mle(k, OutputFunction.SOFTMAX)
+        );
+
+        model.setLearningRate(TimeFunction.linear(0.1, 10000, 0.01));
+        model.setRMSProp(0.9, 1E-7);
+
+        int batch = 20;
+        double[][] batchx = new double[batch][];
+        int[] batchy = new int[batch];
+        int error = 0;
+        for (int epoch = 1; epoch <= 13; epoch++) {
+            System.out.format("----- epoch %d -----%n", epoch);
+            int[] permutation = MathEx.permutate(x.length);
+            int i = 0;
+            while (i < x.length-batch) {
+                for (int j = 0; j < batch; j++, i++) {
+                    batchx[j] = x[permutation[i]];
+                    batchy[j] = Segment.y[permutation[i]];
+                }
+                model.update(batchx, batchy);
+            }
+
+            for (; i < x.length; i++) {
+                model.update(x[permutation[i]], Segment.y[permutation[i]]);
+            }
+
+            int[] prediction = model.predict(testx);
+            error = Error.of(Segment.testy, prediction);
+            System.out.println("Test Error = " + error);
+        }
+
+        assertEquals(28, error);
+
+        java.nio.file.Path temp = smile.data.Serialize.write(model);
+        MLP copy = (MLP) smile.data.Serialize.read(temp);
+        assertArrayEquals(model.predict(testx), copy.predict(testx));
+    }
+
     @Test
     public void testUSPS() throws Exception {
         System.out.println("USPS SGD");
@@ -180,6 +180,19 @@ public class RandomForestTest {
         }
     }
 
+    @Test
+    public void testSegmentHistogram() {
+        System.out.println("Segment with histogram");
+
+        RandomForest model = RandomForest.fit(Segment.formula, Segment.train, 200, 16, SplitRule.GINI, 20, 100, 5, 1.0, null, 256, Arrays.stream(seeds));
+
+        int[] prediction = model.predict(Segment.test);
+        int error = Error.of(Segment.testy, prediction);
+
+        System.out.println("Error = " + error);
+        assertEquals(30, error);
+    }
+
     @Test
     public void testUSPS() {
         System.out.println("USPS");
@@ -309,4 +322,33 @@ public class RandomForestTest {
             System.out.format("%-15s %.4f    %.4f    %.4f%n", fields[i], shap[2*i], shap[2*i+1], shap[2*i+2]);
         }
     }
+
+    @Test
+    public void testCompile() {
+        System.out.println("compile");
+
+        RandomForest model = RandomForest.fit(Segment.formula, Segment.train, 200, 16, SplitRule.GINI, 20, 100, 5, 1.0, null, Arrays.stream(seeds));
+        Classifier<double[]> compiled = model.compile();
+
+        double[][] x = Segment.formula.x(Segment.test).toArray();
+        assertArrayEquals(model.predict(Segment.test), compiled.predict(x));
+
+        int k = model.numClasses();
+        double[][] posteriori = new double[x.length][k];
+        int[] prediction = compiled.predict(x, posteriori);
+        double[] expected = new double[k];
+        double[] actual = new double[k];
+        for (int i = 0; i < x.length; i++) {
+            assertEquals(model.predict(Segment.test.get(i), expected), prediction[i]);
+            assertEquals(prediction[i], compiled.predict(x[i], actual));
+            assertArrayEquals(expected, posteriori[i], 0.0);
+            assertArrayEquals(expected, actual, 0.0);
+        }
+
+        // nominal features
+        model = RandomForest.fit(WeatherNominal.formula, WeatherNominal.data, 20, 2, SplitRule.GINI, 8, 10, 1, 1.0, null, Arrays.stream(seeds));
+        compiled = model.compile();
+        x = WeatherNominal.formula.x(WeatherNominal.data).toArray();
+        assertArrayEquals(model.predict(WeatherNominal.data), compiled.predict(x));
+    }
 }
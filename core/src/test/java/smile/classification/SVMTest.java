@@ -24,6 +24,9 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import java.io.IOException;
+import smile.base.svm.KernelCache;
+import smile.base.svm.KernelMachine;
+import smile.base.svm.LASVM;
 import smile.data.Dataset;
 import smile.data.Instance;
 import smile.data.Segment;
@@ -100,6 +103,56 @@ public class SVMTest {
         assertEquals(125, error);
     }
 
+    @Test
+    public void testKernelCache() throws IOException {
+        System.out.println("kernel cache");
+
+        Dataset<Instance<SparseArray>> train = Read.libsvm(smile.util.Paths.getTestData("libsvm/svmguide1"));
+        Dataset<Instance<SparseArray>> test  = Read.libsvm(smile.util.Paths.getTestData("libsvm/svmguide1.t"));
+
+        int n = train.size();
+        double[][] x = new double[n][4];
+        int[] y = new int[n];
+        for (int i = 0; i < n; i++) {
+            Instance<SparseArray> sample = train.get(i);
+            for (SparseArray.Entry e : sample.x()) {
+                x[i][e.i] = e.x;
+            }
+            y[i] = sample.label() > 0 ? +1 : -1;
+        }
+
+        n = test.size();
+        double[][] testx = new double[n][4];
+        int[] testy = new int[n];
+        for (int i = 0; i < n; i++) {
+            Instance<SparseArray> sample = test.get(i);
+            for (SparseArray.Entry e : sample.x()) {
+                testx[i][e.i] = e.x;
+            }
+            testy[i] = sample.label() > 0 ? +1 : -1;
+        }
+
+        // The budget holds only about 40 rows of kernel matrix.
+        MathEx.setSeed(19650218); // to get repeatable results.
+        GaussianKernel kernel = new GaussianKernel(90);
+        LASVM<double[]> lasvm = new LASVM<>(kernel, 100, 100, 1E-3, 1L << 20);
+        KernelMachine<double[]> svm = lasvm.fit(x, y, 1);
+        KernelCache cache = lasvm.cache();
+        System.out.println(cache);
+        assertTrue(cache.size() <= cache.capacity());
+        assertTrue(cache.evictions() > 0);
+        assertTrue(cache.hits() > 0);
+
+        SVM<double[]> model = new SVM<>(svm.kernel(), svm.vectors(), svm.weights(), svm.intercept());
+        int error = Error.of(testy, model.predict(testx));
+        System.out.format("Test Error = %d, Accuracy = %.2f%%%n", error, 100.0 - 100.0 * error / testx.length);
+
+        // The evicted rows are recomputed so that the model doesn't change.
+        MathEx.setSeed(19650218);
+        int expected = Error.of(testy, SVM.fit(x, y, kernel, 100, 1E-3, 1).predict(testx));
+        assertEquals(expected, error);
+    }
+
     @Test
     public void testAdult() throws IOException {
         System.out.println("adult");
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.clustering;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.data.GaussianMixture;
+import smile.data.SparseDataset;
+import smile.math.MathEx;
+import smile.util.SparseArray;
+import smile.validation.metric.*;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class MiniBatchKMeansTest {
+    double[][] x = GaussianMixture.x;
+    int[] y = GaussianMixture.y;
+
+    public MiniBatchKMeansTest() {
+
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Returns the cluster labels of data.
+     */
+    private int[] predict(MiniBatchKMeans model, double[][] x) {
+        int[] p = new int[x.length];
+        for (int i = 0; i < x.length; i++) {
+            p[i] = model.predict(x[i]);
+        }
+        return p;
+    }
+
+    @Test
+    public void testSeed() {
+        System.out.println("K-Means||");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        double[][] medoids = new double[4][];
+        int[] label = new int[x.length];
+        double distortion = MathEx.sum(CentroidClustering.seed(x, medoids, label, MathEx::squaredDistance, 5, 8));
+        double kmeanspp = MathEx.sum(PartitionClustering.seed(x, new double[4][], new int[x.length], MathEx::squaredDistance));
+        System.out.format("K-Means|| distortion = %.4f, K-Means++ distortion = %.4f%n", distortion, kmeanspp);
+
+        for (int i = 0; i < x.length; i++) {
+            double nearest = Double.MAX_VALUE;
+            for (double[] medoid : medoids) {
+                nearest = Math.min(nearest, MathEx.squaredDistance(x[i], medoid));
+            }
+            assertEquals(nearest, MathEx.squaredDistance(x[i], medoids[label[i]]), 1E-10);
+        }
+        assertTrue(distortion < 1.5 * kmeanspp);
+    }
+
+    @Test
+    public void testSample() {
+        System.out.println("weighted sampling");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        // Raw counts that do not sum to 1.
+        double[] weight = {0, 10, 30, 60, 0};
+        int n = 100000;
+        int[] count = new int[weight.length];
+        for (int i = 0; i < n; i++) {
+            count[CentroidClustering.sample(weight)]++;
+        }
+
+        assertEquals(0, count[0]);
+        assertEquals(0, count[4]);
+        assertEquals(0.1, (double) count[1] / n, 0.01);
+        assertEquals(0.3, (double) count[2] / n, 0.01);
+        assertEquals(0.6, (double) count[3] / n, 0.01);
+    }
+
+    @Test
+    public void testGaussianMixture() throws Exception {
+        System.out.println("Gaussian Mixture");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        MiniBatchKMeans model = MiniBatchKMeans.fit(x, 4, 256, 100);
+        System.out.println(model);
+
+        int[] p = predict(model, x);
+        double r = RandIndex.of(y, p);
+        double r2 = AdjustedRandIndex.of(y, p);
+        System.out.format("Training rand index = %.2f%%, adjusted rand index = %.2f%%%n", 100.0 * r, 100.0 * r2);
+
+        KMeans kmeans = KMeans.fit(x, 4);
+        double distortion = 0.0;
+        for (double[] xi : x) {
+            distortion += MathEx.squaredDistance(xi, model.quantize(xi));
+        }
+        System.out.format("Distortion = %.4f vs K-Means %.4f%n", distortion, kmeans.distortion);
+        assertEquals(kmeans.distortion, distortion, 0.05 * kmeans.distortion);
+        assertEquals(RandIndex.of(y, kmeans.y), r, 0.05);
+
+        java.nio.file.Path temp = smile.data.Serialize.write(model);
+        smile.data.Serialize.read(temp);
+    }
+
+    @Test
+    public void testSparse() {
+        System.out.println("Sparse");
+        SparseArray[] data = new SparseArray[x.length];
+        for (int i = 0; i < x.length; i++) {
+            data[i] = new SparseArray();
+            for (int j = 0; j < x[i].length; j++) {
+                if (x[i][j] != 0.0) data[i].append(j, x[i][j]);
+            }
+        }
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        MiniBatchKMeans dense = MiniBatchKMeans.fit(x, 4, 256, 100);
+        MathEx.setSeed(19650218); // to get repeatable results.
+        MiniBatchKMeans sparse = MiniBatchKMeans.fit(SparseDataset.of(java.util.Arrays.asList(data)), 4, 256, 100);
+
+        double[][] c1 = dense.centroids();
+        double[][] c2 = sparse.centroids();
+        for (int i = 0; i < 4; i++) {
+            assertArrayEquals(c1[i], c2[i], 1E-7);
+        }
+
+        for (int i = 0; i < x.length; i++) {
+            assertEquals(dense.predict(x[i]), sparse.predict(data[i]));
+        }
+    }
+
+    @Test
+    public void testStream() {
+        System.out.println("Stream");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        KMeans kmeans = KMeans.fit(x, 4);
+
+        // Start from random observations and learn from the stream of batches.
+        int[] index = MathEx.permutate(x.length);
+        double[][] centroids = new double[4][];
+        for (int i = 0; i < 4; i++) {
+            centroids[i] = x[index[i]];
+        }
+
+        MiniBatchKMeans model = new MiniBatchKMeans(centroids);
+        for (int epoch = 0; epoch < 10; epoch++) {
+            double[][] batch = new double[100][];
+            for (int i = 0; i < x.length; i += batch.length) {
+                for (int j = 0; j < batch.length; j++) {
+                    batch[j] = x[index[(i + j) % x.length]];
+                }
+                model.update(batch);
+            }
+        }
+
+        assertEquals(10 * x.length, java.util.Arrays.stream(model.size()).sum());
+        double r = RandIndex.of(kmeans.y, predict(model, x));
+        System.out.format("Rand index to K-Means = %.2f%%%n", 100.0 * r);
+        assertTrue(r > 0.9);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.manifold;
+
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.data.SwissRoll;
+import smile.graph.AdjacencyList;
+import smile.math.MathEx;
+import smile.math.distance.EuclideanDistance;
+import smile.math.matrix.Matrix;
+import smile.neighbor.LinearSearch;
+import smile.neighbor.Neighbor;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class NearestNeighborGraphTest {
+
+    public NearestNeighborGraphTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testDescent() {
+        System.out.println("NN-Descent");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        double[][] data = Matrix.randn(5000, 16).toArray();
+        int n = data.length;
+        int k = 10;
+
+        int[][] neighbors = new int[n][k];
+        double[][] distances = new double[n][k];
+        long start = System.currentTimeMillis();
+        NearestNeighborGraph.descent(data, new EuclideanDistance(), 3 * k, 20, 0.001, neighbors, distances);
+        System.out.format("NN-Descent takes %d ms%n", System.currentTimeMillis() - start);
+
+        LinearSearch<double[]> naive = new LinearSearch<>(data, new EuclideanDistance());
+        int hits = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < k; j++) {
+                assertNotEquals(i, neighbors[i][j]);
+                assertEquals(MathEx.distance(data[i], data[neighbors[i][j]]), distances[i][j], 1E-10);
+                if (j > 0) assertTrue(distances[i][j-1] <= distances[i][j]);
+            }
+
+            int[] truth = Arrays.stream(naive.knn(data[i], k)).mapToInt(neighbor -> neighbor.index).toArray();
+            for (int j : neighbors[i]) {
+                for (int t : truth) {
+                    if (j == t) hits++;
+                }
+            }
+        }
+
+        double recall = (double) hits / (n * k);
+        System.out.format("Recall@%d = %.2f%%%n", k, 100 * recall);
+        assertTrue(recall > 0.93);
+    }
+
+    @Test
+    public void testGraph() {
+        System.out.println("graph");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        double[][] data = new double[1000][];
+        System.arraycopy(SwissRoll.data, 0, data, 0, data.length);
+
+        int k = 7;
+        int[][] N = new int[data.length][k];
+        AdjacencyList graph = NearestNeighborGraph.descent(data, new EuclideanDistance(), k, false, (v1, v2, weight, j) -> N[v1][j] = v2);
+        AdjacencyList exact = NearestNeighborGraph.of(data, k, false, null);
+        assertEquals(data.length, graph.getNumVertices());
+
+        int same = 0;
+        for (int i = 0; i < data.length; i++) {
+            for (int j = 0; j < k; j++) {
+                assertTrue(graph.hasEdge(i, N[i][j]));
+                if (exact.hasEdge(i, N[i][j])) same++;
+            }
+        }
+        System.out.format("%.2f%% edges are exact%n", 100.0 * same / (data.length * k));
+        assertTrue(same > 0.95 * data.length * k);
+
+        LLE lle = LLE.of(data, k, 2, true);
+        assertEquals(data.length, lle.coordinates.length);
+    }
+}
@@ -26,6 +26,7 @@ import smile.data.MNIST;
 import smile.io.Read;
 import smile.math.MathEx;
 import smile.projection.PCA;
+import smile.stat.distribution.GaussianDistribution;
 import smile.util.Paths;
 import org.apache.commons.csv.CSVFormat;
 
@@ -83,4 +84,51 @@ public class TSNETest {
         assertArrayEquals(coord1000, tsne.coordinates[1000], 1E-6);
         assertArrayEquals(coord2000, tsne.coordinates[2000], 1E-6);
     }
+
+    @Test
+    public void testBarnesHut() throws Exception {
+        System.out.println("Barnes-Hut tSNE");
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+
+        // 5 Gaussian clusters in 20 dimensional space.
+        int n = 1000;
+        double[][] X = new double[n][20];
+        int[] y = new int[n];
+        GaussianDistribution gaussian = new GaussianDistribution(0.0, 1.0);
+        for (int i = 0; i < n; i++) {
+            y[i] = i % 5;
+            for (int j = 0; j < 20; j++) {
+                X[i][j] = gaussian.rand();
+            }
+            X[i][y[i]] += 6.0;
+        }
+
+        long start = System.currentTimeMillis();
+        TSNE tsne = new TSNE(X, 2, 20, 200, 500, 0.5);
+        long end = System.currentTimeMillis();
+        System.out.format("Barnes-Hut t-SNE takes %.2f seconds\n", (end - start) / 1000.0);
+        System.out.println("cost = " + tsne.cost());
+        assertTrue(tsne.cost() > 0.0 && tsne.cost() < 5.0);
+
+        // The nearest neighbor in the embedding space is in the same cluster.
+        int error = 0;
+        double[][] Y = tsne.coordinates;
+        for (int i = 0; i < n; i++) {
+            int nearest = -1;
+            double dist = Double.MAX_VALUE;
+            for (int j = 0; j < n; j++) {
+                double d = MathEx.squaredDistance(Y[i], Y[j]);
+                if (j != i && d < dist) {
+                    nearest = j;
+                    dist = d;
+                }
+            }
+            if (y[nearest] != y[i]) error++;
+        }
+        System.out.println("1-NN error = " + error);
+        assertTrue(error < 10);
+
+        assertArrayEquals(new double[2], MathEx.colMeans(Y), 1E-7);
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.manifold;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.math.MathEx;
+import smile.stat.distribution.GaussianDistribution;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class UMAPTest {
+
+    public UMAPTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Returns the samples of 5 Gaussian clusters in 20 dimensional space,
+     * which are close enough to keep most samples in the largest connected
+     * component of the nearest neighbor graph.
+     */
+    private double[][] clusters(int n, int[] y) {
+        double[][] x = new double[n][20];
+        GaussianDistribution gaussian = new GaussianDistribution(0.0, 1.0);
+        for (int i = 0; i < n; i++) {
+            y[i] = i % 5;
+            for (int j = 0; j < 20; j++) {
+                x[i][j] = gaussian.rand();
+            }
+            x[i][y[i]] += 5.0;
+        }
+        return x;
+    }
+
+    /**
+     * Returns the index of nearest point.
+     */
+    private int nearest(double[] q, double[][] data, int skip) {
+        int nearest = -1;
+        double dist = Double.MAX_VALUE;
+        for (int j = 0; j < data.length; j++) {
+            double d = MathEx.squaredDistance(q, data[j]);
+            if (j != skip && d < dist) {
+                nearest = j;
+                dist = d;
+            }
+        }
+        return nearest;
+    }
+
+    @Test
+    public void test() throws Exception {
+        System.out.println("UMAP");
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        int[] y = new int[1000];
+        double[][] x = clusters(y.length, y);
+
+        long start = System.currentTimeMillis();
+        UMAP umap = UMAP.of(x, 15);
+        long end = System.currentTimeMillis();
+        System.out.format("UMAP takes %.2f seconds\n", (end - start) / 1000.0);
+
+        double[][] coordinates = umap.coordinates;
+        assertEquals(umap.index.length, coordinates.length);
+        assertTrue(coordinates.length > 0.9 * x.length);
+
+        // The nearest neighbor in the embedding space is in the same cluster.
+        int error = 0;
+        for (int i = 0; i < coordinates.length; i++) {
+            int j = nearest(coordinates[i], coordinates, i);
+            if (y[umap.index[j]] != y[umap.index[i]]) error++;
+        }
+        System.out.println("1-NN error = " + error);
+        assertTrue(error < 10);
+
+        int[] label = new int[200];
+        double[][] test = clusters(label.length, label);
+        double[][] embedding = umap.transform(test);
+        assertEquals(test.length, embedding.length);
+
+        error = 0;
+        for (int i = 0; i < test.length; i++) {
+            int j = nearest(embedding[i], coordinates, -1);
+            if (y[umap.index[j]] != label[i]) error++;
+        }
+        System.out.println("Out-of-sample 1-NN error = " + error);
+        assertTrue(error < 4);
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.neighbor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.classification.KNN;
+import smile.clustering.DBSCAN;
+import smile.data.GaussianMixture;
+import smile.math.MathEx;
+import smile.math.distance.EuclideanDistance;
+import smile.math.matrix.Matrix;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class HNSWTest {
+
+    public HNSWTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Returns the recall of approximate k-nearest neighbors.
+     */
+    private double recall(KNNSearch<double[], double[]> ann, double[][] data, double[][] queries, int k) {
+        LinearSearch<double[]> naive = new LinearSearch<>(data, new EuclideanDistance());
+        int hits = 0;
+        for (double[] q : queries) {
+            Set<Integer> truth = new HashSet<>();
+            for (Neighbor<double[], double[]> neighbor : naive.knn(q, k)) {
+                truth.add(neighbor.index);
+            }
+
+            for (Neighbor<double[], double[]> neighbor : ann.knn(q, k)) {
+                if (truth.contains(neighbor.index)) hits++;
+            }
+        }
+        return (double) hits / (queries.length * k);
+    }
+
+    @Test
+    public void testKnn() {
+        System.out.println("knn");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        double[][] data = Matrix.randn(2000, 64).toArray();
+        double[][] queries = Matrix.randn(100, 64).toArray();
+        HNSW<double[]> hnsw = new HNSW<>(data, new EuclideanDistance(), 16, 100);
+        System.out.println(hnsw);
+        assertEquals(data.length, hnsw.size());
+
+        double r1 = recall(hnsw.efSearch(10), data, queries, 10);
+        double r2 = recall(hnsw.efSearch(200), data, queries, 10);
+        System.out.format("Recall@10 = %.2f%% with efSearch = 10, %.2f%% with efSearch = 200%n", 100 * r1, 100 * r2);
+        assertTrue(r2 >= r1);
+        assertTrue(r2 > 0.95);
+
+        // The query object itself is excluded.
+        for (int i = 0; i < 100; i++) {
+            Neighbor<double[], double[]>[] neighbors = hnsw.knn(data[i], 5);
+            assertEquals(5, neighbors.length);
+            for (int j = 0; j < neighbors.length; j++) {
+                assertNotEquals(i, neighbors[j].index);
+                assertSame(data[neighbors[j].index], neighbors[j].value);
+                assertEquals(MathEx.distance(data[i], neighbors[j].value), neighbors[j].distance, 1E-10);
+                if (j > 0) assertTrue(neighbors[j-1].distance <= neighbors[j].distance);
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentAdd() throws Exception {
+        System.out.println("concurrent add");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        double[][] data = Matrix.randn(2000, 32).toArray();
+        double[][] queries = Matrix.randn(100, 32).toArray();
+        HNSW<double[]> hnsw = new HNSW<>(new EuclideanDistance(), 12, 100);
+        int[] index = IntStream.range(0, data.length).parallel().map(i -> hnsw.add(data[i])).toArray();
+        assertEquals(data.length, hnsw.size());
+        assertEquals(data.length, IntStream.of(index).distinct().count());
+
+        // The neighbor index is the insertion order.
+        double[][] order = new double[data.length][];
+        for (int i = 0; i < data.length; i++) {
+            order[index[i]] = data[i];
+        }
+
+        double r = recall(hnsw.efSearch(100), order, queries, 10);
+        System.out.format("Recall@10 = %.2f%%%n", 100 * r);
+        assertTrue(r > 0.95);
+
+        java.nio.file.Path temp = smile.data.Serialize.write(hnsw);
+        @SuppressWarnings("unchecked")
+        HNSW<double[]> copy = (HNSW<double[]>) smile.data.Serialize.read(temp);
+        copy.add(queries[0]);
+        assertEquals(data.length + 1, copy.size());
+        Neighbor<double[], double[]> nearest = copy.nearest(queries[0].clone());
+        assertEquals(data.length, nearest.index);
+        assertEquals(0.0, nearest.distance, 1E-10);
+    }
+
+    @Test
+    public void testRange() {
+        System.out.println("range");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        double[][] data = Matrix.randn(1000, 10).toArray();
+        HNSW<double[]> hnsw = new HNSW<>(data, new EuclideanDistance());
+        LinearSearch<double[]> naive = new LinearSearch<>(data, new EuclideanDistance());
+
+        List<Neighbor<double[], double[]>> n1 = new ArrayList<>();
+        List<Neighbor<double[], double[]>> n2 = new ArrayList<>();
+        int found = 0, total = 0;
+        for (double[] datum : data) {
+            hnsw.range(datum, 2.0, n1);
+            naive.range(datum, 2.0, n2);
+            Set<Integer> truth = new HashSet<>();
+            for (Neighbor<double[], double[]> neighbor : n2) {
+                truth.add(neighbor.index);
+            }
+            for (Neighbor<double[], double[]> neighbor : n1) {
+                assertTrue(truth.contains(neighbor.index));
+            }
+            found += n1.size();
+            total += n2.size();
+            n1.clear();
+            n2.clear();
+        }
+
+        System.out.format("Range search recall = %.2f%%%n", 100.0 * found / total);
+        assertTrue(found > 0.95 * total);
+    }
+
+    @Test
+    public void testDropIn() {
+        System.out.println("KNN and DBSCAN");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        double[][] x = new double[2000][];
+        int[] y = new int[x.length];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = GaussianMixture.x[5 * i];
+            y[i] = GaussianMixture.y[5 * i];
+        }
+
+        HNSW<double[]> hnsw = new HNSW<>(x, new EuclideanDistance());
+        KNN<double[]> knn = new KNN<>(hnsw, y, 5);
+        KNN<double[]> exact = KNN.fit(x, y, 5);
+        int agree = 0;
+        for (double[] xi : x) {
+            if (knn.predict(xi) == exact.predict(xi)) agree++;
+        }
+        System.out.format("KNN agreement = %.2f%%%n", 100.0 * agree / x.length);
+        assertTrue(agree > 0.98 * x.length);
+
+        DBSCAN<double[]> dbscan = DBSCAN.fit(x, hnsw, 10, 1.0);
+        DBSCAN<double[]> kdtree = DBSCAN.fit(x, 10, 1.0);
+        System.out.println(dbscan);
+        assertEquals(kdtree.k, dbscan.k);
+    }
+}
@@ -17,6 +17,9 @@
 
 package smile.projection;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -25,6 +28,7 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 import smile.data.USArrests;
 import smile.math.MathEx;
+import smile.math.matrix.Matrix;
 
 /**
  *
@@ -133,6 +137,71 @@ public class PCATest {
         }
     }
 
+    @Test
+    public void testFloat() {
+        System.out.println("float");
+        double[][] x = USArrests.x;
+        float[][] x32 = new float[x.length][x[0].length];
+        for (int i = 0; i < x.length; i++) {
+            for (int j = 0; j < x[i].length; j++) {
+                x32[i][j] = (float) x[i][j];
+            }
+        }
+
+        PCA pca = PCA.fit(x);
+        PCA fpca = PCA.fit(x32);
+        pca.setProjection(4);
+        fpca.setProjection(4);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(pca.variance()[i], fpca.variance()[i], 1E-6 * pca.variance()[i]);
+        }
+        assertTrue(MathEx.equals(pca.varianceProportion(), fpca.varianceProportion(), 1E-6));
+        assertTrue(MathEx.equals(pca.center(), fpca.center(), 1E-5));
+
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                assertEquals(Math.abs(pca.loadings().get(i, j)), Math.abs(fpca.loadings().get(i, j)), 1E-4);
+            }
+        }
+    }
+
+    @Test
+    public void testRandomized() {
+        System.out.println("randomized");
+        MathEx.setSeed(19650218);
+        PCA pca = PCA.fit(USArrests.x);
+        PCA rpca = PCA.fit(USArrests.x, 2);
+        assertEquals(2, rpca.loadings().ncol());
+        assertEquals(pca.variance()[0], rpca.variance()[0], 1E-6);
+        assertEquals(pca.variance()[1], rpca.variance()[1], 1E-6);
+
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 2; j++) {
+                assertEquals(Math.abs(pca.loadings().get(i, j)), Math.abs(rpca.loadings().get(i, j)), 1E-7);
+            }
+        }
+
+        List<Matrix> blocks = new ArrayList<>();
+        for (int i = 0; i < USArrests.x.length; i += 16) {
+            blocks.add(Matrix.of(Arrays.copyOfRange(USArrests.x, i, Math.min(i + 16, USArrests.x.length))));
+        }
+
+        PCA bpca = PCA.fit(blocks, 2);
+        assertArrayEquals(pca.center(), bpca.center(), 1E-10);
+        assertEquals(pca.variance()[0], bpca.variance()[0], 1E-6);
+        assertEquals(pca.variance()[1], bpca.variance()[1], 1E-6);
+
+        bpca.setProjection(2);
+        pca.setProjection(2);
+        double[][] p = pca.project(USArrests.x);
+        double[][] q = bpca.project(USArrests.x);
+        for (int i = 0; i < p.length; i++) {
+            for (int j = 0; j < 2; j++) {
+                assertEquals(Math.abs(p[i][j]), Math.abs(q[i][j]), 1E-5);
+            }
+        }
+    }
+
     @Test
     public void testPCACor() {
         System.out.println("learn");
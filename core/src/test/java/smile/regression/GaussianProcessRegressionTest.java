@@ -29,9 +29,11 @@ import smile.math.MathEx;
 import smile.math.kernel.GaussianKernel;
 import smile.math.kernel.MercerKernel;
 import smile.math.matrix.Matrix;
+import smile.math.matrix.Precision;
 import smile.validation.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 /**
  *
@@ -94,6 +96,43 @@ public class GaussianProcessRegressionTest {
         smile.data.Serialize.read(temp);
     }
 
+    @Test
+    public void testFloat() {
+        System.out.println("float");
+
+        double[][] x = MathEx.clone(CPU.x);
+        MathEx.standardize(x);
+        GaussianKernel kernel = new GaussianKernel(47.02);
+
+        GaussianProcessRegression<double[]> model = GaussianProcessRegression.fit(x, CPU.y, kernel, 0.1, true, 1E-5, 0, Precision.DOUBLE);
+        GaussianProcessRegression<double[]> model32 = GaussianProcessRegression.fit(x, CPU.y, kernel, 0.1, true, 1E-5, 0, Precision.FLOAT);
+        System.out.println(model32);
+        assertEquals(model.L, model32.L, 1E-3 * Math.abs(model.L));
+
+        double[] musd = new double[2];
+        double[] musd32 = new double[2];
+        for (double[] xi : x) {
+            model.predict(xi, musd);
+            model32.predict(xi, musd32);
+            assertEquals(musd[0], musd32[0], 1E-3 * model.sd);
+            assertEquals(musd[1], musd32[1], 1E-3 * model.sd);
+        }
+
+        GaussianProcessRegression<double[]>.JointPrediction joint = model32.query(Arrays.copyOf(x, 10));
+        for (int i = 0; i < 10; i++) {
+            model32.predict(x[i], musd32);
+            assertEquals(musd32[0], joint.mu[i], 1E-4 * model.sd);
+            assertEquals(musd32[1], joint.sd[i], 1E-4 * model.sd);
+        }
+
+        try {
+            GaussianProcessRegression.fit(x, CPU.y, kernel, 1E-10, true, 1E-5, 0, Precision.FLOAT);
+            fail("The noise variance is too small for single precision");
+        } catch (IllegalArgumentException ex) {
+            System.out.println(ex.getMessage());
+        }
+    }
+
     @Test
     public void testHPO() {
         System.out.println("HPO longley");
@@ -106,6 +106,18 @@ public class GradientTreeBoostTest {
         assertEquals(expected, result.avg.rmse, 1E-4);
     }
 
+    @Test
+    public void testCpuHistogram() {
+        System.out.println("CPU with histogram");
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        RegressionValidations<GradientTreeBoost> result = CrossValidation.regression(10, CPU.formula, CPU.data,
+                (f, x) -> GradientTreeBoost.fit(f, x, Loss.ls(), 100, 20, 6, 5, 0.05, 0.7, 256));
+
+        System.out.println(result);
+        assertEquals(56.6055, result.avg.rmse, 1E-4);
+    }
+
     @Test
     public void testCpuLS() {
         test(Loss.ls(), "CPU", CPU.formula, CPU.data, 60.5335);
@@ -310,4 +322,33 @@ public class GradientTreeBoostTest {
         String[] expected = {"CHAS", "ZN", "RAD", "INDUS", "B", "TAX", "AGE", "PTRATIO", "NOX", "CRIM", "DIS", "RM", "LSTAT"};
         assertArrayEquals(expected, fields);
     }
+
+    @Test
+    public void testCompile() {
+        System.out.println("compile");
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        GradientTreeBoost model = GradientTreeBoost.fit(Abalone.formula, Abalone.train, Loss.ls(), 100, 20, 6, 5, 0.05, 0.7);
+        Regression<double[]> compiled = model.compile();
+
+        double[][] x = Abalone.formula.x(Abalone.test).toArray();
+        double[] expected = model.predict(Abalone.test);
+        assertArrayEquals(expected, compiled.predict(x), 0.0);
+        for (int i = 0; i < x.length; i++) {
+            assertEquals(expected[i], compiled.predict(x[i]), 0.0);
+        }
+    }
+
+    @Test
+    public void testThreads() {
+        System.out.println("threads");
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        GradientTreeBoost model = GradientTreeBoost.fit(Abalone.formula, Abalone.train, Loss.lad(), 100, 20, 6, 5, 0.05, 0.7, 0, 1);
+        MathEx.setSeed(19650218);
+        GradientTreeBoost parallel = GradientTreeBoost.fit(Abalone.formula, Abalone.train, Loss.lad(), 100, 20, 6, 5, 0.05, 0.7, 0, 4);
+
+        assertArrayEquals(model.importance(), parallel.importance(), 0.0);
+        assertArrayEquals(model.predict(Abalone.test), parallel.predict(Abalone.test), 0.0);
+    }
 }
@@ -29,6 +29,7 @@ import smile.feature.Standardizer;
 import smile.math.MathEx;
 import smile.math.Scaler;
 import smile.math.TimeFunction;
+import smile.math.matrix.Precision;
 import smile.validation.*;
 import static org.junit.Assert.assertEquals;
 
@@ -77,6 +78,10 @@ public class MLPTest {
     }
 
     public void test(String dataset, double[][] x, double[] y, Scaler scaler, double expected, LayerBuilder... builders) {
+        test(dataset, x, y, scaler, Precision.DOUBLE, expected, builders);
+    }
+
+    public void test(String dataset, double[][] x, double[] y, Scaler scaler, Precision precision, double expected, LayerBuilder... builders) {
         System.out.println(dataset);
 
         MathEx.setSeed(19650218); // to get repeatable results.
@@ -85,7 +90,7 @@ public class MLPTest {
         x = standardizer.transform(x);
 
         RegressionValidations<MLP> result = CrossValidation.regression(10, x, y, (xi, yi) -> {
-            MLP model = new MLP(scaler, builders);
+            MLP model = new MLP(scaler, precision, builders);
             // small learning rate and weight decay to counter exploding gradient
             model.setLearningRate(TimeFunction.linear(0.01, 10000, 0.001));
             model.setWeightDecay(0.1);
@@ -110,6 +115,12 @@ public class MLPTest {
                 Layer.input(CPU.x[0].length), Layer.rectifier(30), Layer.sigmoid(30));
     }
 
+    @Test
+    public void testCPUFloat() {
+        test("CPU float", CPU.x, CPU.y, Scaler.standardizer(CPU.y, true), Precision.FLOAT, 65.4472,
+                Layer.input(CPU.x[0].length), Layer.rectifier(30), Layer.sigmoid(30));
+    }
+
     @Test
     public void test2DPlanes() {
         test("2dplanes", Planes.x, Planes.y, null, 1.5174,
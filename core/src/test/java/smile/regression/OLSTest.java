@@ -27,7 +27,12 @@ import static org.junit.Assert.*;
 import smile.data.CPU;
 import smile.data.Longley;
 import smile.data.Prostate;
+import smile.data.formula.Formula;
+import smile.data.type.StructType;
 import smile.math.MathEx;
+import smile.math.matrix.Matrix;
+import smile.math.matrix.Precision;
+import smile.math.matrix.TiledMatrix;
 import smile.validation.CrossValidation;
 import smile.validation.RegressionValidations;
 import smile.validation.metric.RMSE;
@@ -102,6 +107,55 @@ public class OLSTest {
         smile.data.Serialize.read(temp);
     }
 
+    @Test
+    public void testTiled() throws Exception {
+        System.out.println("tiled");
+
+        LinearModel expected = OLS.fit(Longley.formula, Longley.data);
+        Formula formula = Longley.formula.expand(Longley.data.schema());
+        StructType schema = formula.bind(Longley.data.schema());
+        Matrix X = formula.matrix(Longley.data);
+        double[] y = formula.y(Longley.data).toDoubleArray();
+
+        try (TiledMatrix tiled = TiledMatrix.of(X, 4)) {
+            tiled.colNames(X.colNames());
+            LinearModel model = OLS.fit(formula, schema, tiled, y, true);
+            System.out.println(model);
+
+            assertEquals(expected.intercept(), model.intercept(), 1E-6);
+            assertArrayEquals(expected.coefficients(), model.coefficients(), 1E-7);
+            assertEquals(expected.RSS(), model.RSS(), 1E-7);
+            assertEquals(expected.ftest(), model.ftest(), 1E-6);
+            for (int i = 0; i < expected.ttest().length; i++) {
+                assertArrayEquals(expected.ttest()[i], model.ttest()[i], 1E-6);
+            }
+        }
+    }
+
+    @Test
+    public void testFloat() {
+        System.out.println("float");
+
+        LinearModel expected = OLS.fit(Prostate.formula, Prostate.train);
+        LinearModel model = OLS.fit(Prostate.formula, Prostate.train, "qr", true, true, Precision.FLOAT);
+        System.out.println(model);
+
+        assertEquals(expected.intercept(), model.intercept(), 1E-4);
+        assertArrayEquals(expected.coefficients(), model.coefficients(), 1E-4);
+        assertEquals(expected.RSquared(), model.RSquared(), 1E-6);
+        for (int i = 0; i < expected.ttest().length; i++) {
+            assertEquals(expected.ttest()[i][1], model.ttest()[i][1], 1E-3);
+        }
+
+        model = OLS.fit(Prostate.formula, Prostate.train, "svd", false, false, Precision.FLOAT);
+        assertArrayEquals(expected.coefficients(), model.coefficients(), 1E-4);
+
+        double[] prediction = model.predict(Prostate.test);
+        double rmse = RMSE.of(Prostate.testy, prediction);
+        System.out.println("RMSE on test data = " + rmse);
+        assertEquals(0.721993, rmse, 1E-4);
+    }
+
     @Test
     public void testCPU() {
         System.out.println("CPU");
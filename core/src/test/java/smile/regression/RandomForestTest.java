@@ -254,4 +254,19 @@ public class RandomForestTest {
         String[] expected = {"CHAS", "RAD", "B", "ZN", "AGE", "DIS", "TAX", "CRIM", "INDUS", "NOX", "PTRATIO", "RM", "LSTAT"};
         assertArrayEquals(expected, fields);
     }
+
+    @Test
+    public void testCompile() {
+        System.out.println("compile");
+
+        RandomForest model = RandomForest.fit(Abalone.formula, Abalone.train, 100, 3, 20, 100, 5, 1.0, Arrays.stream(seeds));
+        Regression<double[]> compiled = model.compile();
+
+        double[][] x = Abalone.formula.x(Abalone.test).toArray();
+        double[] expected = model.predict(Abalone.test);
+        assertArrayEquals(expected, compiled.predict(x), 0.0);
+        for (int i = 0; i < x.length; i++) {
+            assertEquals(expected[i], compiled.predict(x[i]), 0.0);
+        }
+    }
 }
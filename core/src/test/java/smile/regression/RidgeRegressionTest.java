@@ -24,7 +24,12 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import smile.data.CPU;
 import smile.data.Longley;
+import smile.data.formula.Formula;
+import smile.data.type.StructType;
 import smile.math.MathEx;
+import smile.math.matrix.Matrix;
+import smile.math.matrix.Precision;
+import smile.math.matrix.TiledMatrix;
 import smile.validation.*;
 
 import static org.junit.Assert.*;
@@ -77,6 +82,46 @@ public class RidgeRegressionTest {
         smile.data.Serialize.read(temp);
     }
 
+    @Test
+    public void testTiled() throws Exception {
+        System.out.println("tiled");
+
+        LinearModel expected = RidgeRegression.fit(Longley.formula, Longley.data, 0.1);
+        Formula formula = Longley.formula.expand(Longley.data.schema());
+        StructType schema = formula.bind(Longley.data.schema());
+        Matrix X = formula.matrix(Longley.data, false);
+        double[] y = formula.y(Longley.data).toDoubleArray();
+
+        try (TiledMatrix tiled = TiledMatrix.of(X, 4)) {
+            tiled.colNames(X.colNames());
+            LinearModel model = RidgeRegression.fit(formula, schema, tiled, y, 0.1);
+            System.out.println(model);
+
+            assertEquals(expected.intercept(), model.intercept(), 1E-6);
+            assertArrayEquals(expected.coefficients(), model.coefficients(), 1E-7);
+            assertEquals(expected.RSS(), model.RSS(), 1E-7);
+        }
+    }
+
+    @Test
+    public void testFloat() {
+        System.out.println("float");
+
+        LinearModel expected = RidgeRegression.fit(Longley.formula, Longley.data, 0.1);
+        double[] weights = new double[Longley.data.size()];
+        java.util.Arrays.fill(weights, 1.0);
+        LinearModel model = RidgeRegression.fit(Longley.formula, Longley.data, weights, new double[]{0.1}, new double[]{0.0}, Precision.FLOAT);
+        System.out.println(model);
+
+        double[] w = expected.coefficients();
+        double[] w32 = model.coefficients();
+        for (int i = 0; i < w.length; i++) {
+            assertEquals(w[i], w32[i], 1E-4 * Math.abs(w[i]));
+        }
+        assertEquals(expected.intercept(), model.intercept(), 1E-3 * Math.abs(expected.intercept()));
+        assertEquals(expected.RSS(), model.RSS(), 1E-3 * expected.RSS());
+    }
+
     @Test
     public void testCPU() {
         System.out.println("CPU");
@@ -1211,6 +1211,200 @@ public interface DataFrame extends Dataset<Tuple>, Iterable<BaseVector> {
         return matrix;
     }
 
+    /**
+     * Return an array obtained by converting all the variables
+     * in a data frame to numeric mode and then binding them together
+     * as the columns of a single precision matrix. Missing values/nulls will be
+     * encoded as Float.NaN. No bias term and uses level encoding
+     * for categorical variables.
+     * @return the single precision numeric array.
+     */
+    default float[][] toFloatArray() {
+        return toFloatArray(false, CategoricalEncoder.LEVEL);
+    }
+
+    /**
+     * Return an array obtained by converting all the variables
+     * in a data frame to numeric mode and then binding them together
+     * as the columns of a single precision matrix. Missing values/nulls will be
+     * encoded as Float.NaN.
+     *
+     * @param bias if true, add the first column of all 1's.
+     * @param encoder the categorical variable encoder.
+     * @return the single precision numeric array.
+     */
+    default float[][] toFloatArray(boolean bias, CategoricalEncoder encoder) {
+        int nrow = nrow();
+        int ncol = ncol();
+        StructType schema = schema();
+
+        ArrayList<String> colNames = new ArrayList<>();
+        if (bias) colNames.add("Intercept");
+        for (int j = 0; j < ncol; j++) {
+            StructField field = schema.field(j);
+
+            Measure measure = field.measure;
+            if (encoder != CategoricalEncoder.LEVEL && measure instanceof CategoricalMeasure) {
+                CategoricalMeasure cat = (CategoricalMeasure) measure;
+                int n = cat.size();
+
+                if (encoder == CategoricalEncoder.DUMMY) {
+                    for (int k = 1; k < n; k++) {
+                        colNames.add(String.format("%s_%s", field.name, cat.level(k)));
+                    }
+                } else if (encoder == CategoricalEncoder.ONE_HOT) {
+                    for (int k = 0; k < n; k++) {
+                        colNames.add(String.format("%s_%s", field.name, cat.level(k)));
+                    }
+                }
+            } else {
+                colNames.add(field.name);
+            }
+        }
+
+        float[][] matrix = new float[nrow][colNames.size()];
+
+        int j = 0;
+        if (bias) {
+            j++;
+            for (int i = 0; i < nrow; i++) {
+                matrix[i][0] = 1.0f;
+            }
+        }
+
+        for (int col = 0; col < ncol; col++) {
+            StructField field = schema.field(col);
+
+            Measure measure = field.measure;
+            if (encoder != CategoricalEncoder.LEVEL && measure instanceof CategoricalMeasure) {
+                CategoricalMeasure cat = (CategoricalMeasure) measure;
+                if (encoder == CategoricalEncoder.DUMMY) {
+                    for (int i = 0; i < nrow; i++) {
+                        int k = cat.factor(getInt(i, col));
+                        if (k > 0) matrix[i][j + k - 1] = 1.0f;
+                    }
+                    j += cat.size() - 1;
+                } else if (encoder == CategoricalEncoder.ONE_HOT) {
+                    for (int i = 0; i < nrow; i++) {
+                        int k = cat.factor(getInt(i, col));
+                        matrix[i][j + k] = 1.0f;
+                    }
+                    j += cat.size();
+                }
+            } else {
+                for (int i = 0; i < nrow; i++) {
+                    matrix[i][j] = (float) getDouble(i, col);
+                }
+                j++;
+            }
+        }
+
+        return matrix;
+    }
+
+    /**
+     * Return a matrix obtained by converting all the variables
+     * in a data frame to numeric mode and then binding them together
+     * as the columns of a single precision matrix. Missing values/nulls will be
+     * encoded as Float.NaN.
+     * @return the single precision numeric matrix.
+     */
+    default smile.math.matrix.fp32.Matrix toFloatMatrix() {
+        return toFloatMatrix(false, CategoricalEncoder.LEVEL, null);
+    }
+
+    /**
+     * Return a matrix obtained by converting all the variables
+     * in a data frame to numeric mode and then binding them together
+     * as the columns of a single precision matrix. Missing values/nulls will be
+     * encoded as Float.NaN. No bias term and uses level encoding
+     * for categorical variables.
+     *
+     * @param bias if true, add the first column of all 1's.
+     * @param encoder the categorical variable encoder.
+     * @param rowNames the column to be used as row names.
+     * @return the single precision numeric matrix.
+     */
+    default smile.math.matrix.fp32.Matrix toFloatMatrix(boolean bias, CategoricalEncoder encoder, String rowNames) {
+        int nrow = nrow();
+        int ncol = ncol();
+        StructType schema = schema();
+
+        ArrayList<String> colNames = new ArrayList<>();
+        if (bias) colNames.add("Intercept");
+        for (int j = 0; j < ncol; j++) {
+            StructField field = schema.field(j);
+            if (field.name.equals(rowNames)) continue;
+
+            Measure measure = field.measure;
+            if (encoder != CategoricalEncoder.LEVEL && measure instanceof CategoricalMeasure) {
+                CategoricalMeasure cat = (CategoricalMeasure) measure;
+                int n = cat.size();
+
+                if (encoder == CategoricalEncoder.DUMMY) {
+                    for (int k = 1; k < n; k++) {
+                        colNames.add(String.format("%s_%s", field.name, cat.level(k)));
+                    }
+                } else if (encoder == CategoricalEncoder.ONE_HOT) {
+                    for (int k = 0; k < n; k++) {
+                        colNames.add(String.format("%s_%s", field.name, cat.level(k)));
+                    }
+                }
+            } else {
+                colNames.add(field.name);
+            }
+        }
+
+        smile.math.matrix.fp32.Matrix matrix = new smile.math.matrix.fp32.Matrix(nrow, colNames.size());
+        matrix.colNames(colNames.toArray(new String[0]));
+        if (rowNames != null) {
+            int j = schema.indexOf(rowNames);
+            String[] rows = new String[nrow];
+            for (int i = 0; i < nrow; i++) {
+                rows[i] = getString(i, j);
+            }
+            matrix.rowNames(rows);
+        }
+
+        int j = 0;
+        if (bias) {
+            j++;
+            for (int i = 0; i < nrow; i++) {
+                matrix.set(i, 0, 1.0f);
+            }
+        }
+
+        for (int col = 0; col < ncol; col++) {
+            StructField field = schema.field(col);
+            if (field.name.equals(rowNames)) continue;
+
+            Measure measure = field.measure;
+            if (encoder != CategoricalEncoder.LEVEL && measure instanceof CategoricalMeasure) {
+                CategoricalMeasure cat = (CategoricalMeasure) measure;
+                if (encoder == CategoricalEncoder.DUMMY) {
+                    for (int i = 0; i < nrow; i++) {
+                        int k = cat.factor(getInt(i, col));
+                        if (k > 0) matrix.set(i, j + k - 1, 1.0f);
+                    }
+                    j += cat.size() - 1;
+                } else if (encoder == CategoricalEncoder.ONE_HOT) {
+                    for (int i = 0; i < nrow; i++) {
+                        int k = cat.factor(getInt(i, col));
+                        matrix.set(i, j + k, 1.0f);
+                    }
+                    j += cat.size();
+                }
+            } else {
+                for (int i = 0; i < nrow; i++) {
+                    matrix.set(i, j, (float) getDouble(i, col));
+                }
+                j++;
+            }
+        }
+
+        return matrix;
+    }
+
     /**
      * Returns the statistic summary of numeric columns.
      * @return the statistic summary of numeric columns.
@@ -19,6 +19,7 @@ package smile.data.formula;
 
 import java.util.ArrayList;
 import java.util.List;
+import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.type.DataType;
 import smile.data.type.StructField;
@@ -89,6 +90,14 @@ public class Abs extends AbstractFunction {
                 public double applyAsDouble(Tuple o) {
                     return Math.abs(feature.applyAsDouble(o));
                 }
+
+                @Override
+                public void applyAsDouble(DataFrame data, double[] values) {
+                    feature.applyAsDouble(data, values);
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = Math.abs(values[i]);
+                    }
+                }
             });
         }
 
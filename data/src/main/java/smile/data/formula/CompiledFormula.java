@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data.formula;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import smile.data.CategoricalEncoder;
+import smile.data.DataFrame;
+import smile.data.Tuple;
+import smile.data.measure.CategoricalMeasure;
+import smile.data.measure.Measure;
+import smile.data.type.DataType;
+import smile.data.type.StructField;
+import smile.data.type.StructType;
+import smile.data.vector.BaseVector;
+import smile.math.matrix.Matrix;
+
+/**
+ * A formula compiled against a schema into the evaluation plan of
+ * design matrix. The layout of design matrix, i.e. the column of each
+ * numeric feature and the columns of each encoded categorical feature,
+ * is resolved once at compilation. The evaluation writes the features
+ * directly into a reusable <code>double[]</code> row buffer, or a
+ * column-blocked <code>Matrix</code>, without the intermediate tuples,
+ * vectors and boxed values of {@link Formula#x(Tuple)} and
+ * {@link Formula#x(DataFrame)}.
+ * <p>
+ * The row evaluation of all features is composed into a single method
+ * handle at compilation, which the JVM may inline as a whole, rather
+ * than interpreting the plan feature by feature on each call.
+ * <p>
+ * The compiled formula is immutable and thread-safe. The input tuples
+ * and data frames must be of the schema that the formula is compiled
+ * against.
+ *
+ * @author Haifeng Li
+ */
+public class CompiledFormula {
+    /** The method handle of Feature.applyAsDouble(Tuple). */
+    private static final MethodHandle APPLY_AS_DOUBLE;
+    /** The method handle of CompiledFormula.encode. */
+    private static final MethodHandle ENCODE;
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            APPLY_AS_DOUBLE = lookup.findVirtual(Feature.class, "applyAsDouble", MethodType.methodType(double.class, Tuple.class));
+            ENCODE = lookup.findStatic(CompiledFormula.class, "encode", MethodType.methodType(void.class,
+                    Feature.class, CategoricalMeasure.class, int.class, int.class, int.class, Tuple.class, double[].class));
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    /** The input schema. */
+    private final StructType schema;
+    /** The column names of design matrix. */
+    private final String[] names;
+    /** If true, the first column is the bias of all 1's. */
+    private final boolean bias;
+    /** The numeric features. */
+    private final Feature[] numeric;
+    /** The column of numeric features in the design matrix. */
+    private final int[] numericColumn;
+    /** The categorical features. */
+    private final Feature[] factors;
+    /** The first column of categorical features in the design matrix. */
+    private final int[] factorColumn;
+    /** The number of columns of categorical features in the design matrix. */
+    private final int[] factorWidth;
+    /** The measure of categorical features. */
+    private final CategoricalMeasure[] measures;
+    /** The level of categorical variables encoded by the first column. */
+    private final int baseLevel;
+    /** The row writer of type (Tuple, double[])void. */
+    private final MethodHandle writer;
+
+    /**
+     * Constructor.
+     * @param schema the input schema.
+     * @param features the bound features of predictors.
+     * @param bias if true, add the first column of all 1's.
+     * @param encoder the categorical variable encoder.
+     */
+    CompiledFormula(StructType schema, Feature[] features, boolean bias, CategoricalEncoder encoder) {
+        this.schema = schema;
+        this.bias = bias;
+        this.baseLevel = encoder == CategoricalEncoder.DUMMY ? 1 : 0;
+
+        List<String> names = new ArrayList<>();
+        if (bias) names.add("Intercept");
+
+        List<Feature> numeric = new ArrayList<>();
+        List<Integer> numericColumn = new ArrayList<>();
+        List<Feature> factors = new ArrayList<>();
+        List<Integer> factorColumn = new ArrayList<>();
+        List<CategoricalMeasure> measures = new ArrayList<>();
+
+        for (Feature feature : features) {
+            StructField field = feature.field();
+            Measure measure = field.measure;
+            if (encoder != CategoricalEncoder.LEVEL && measure instanceof CategoricalMeasure) {
+                CategoricalMeasure cat = (CategoricalMeasure) measure;
+                factors.add(feature);
+                factorColumn.add(names.size());
+                measures.add(cat);
+                for (int k = baseLevel; k < cat.size(); k++) {
+                    names.add(String.format("%s_%s", field.name, cat.level(k)));
+                }
+            } else {
+                numeric.add(feature);
+                numericColumn.add(names.size());
+                names.add(field.name);
+            }
+        }
+
+        this.names = names.toArray(new String[0]);
+        this.numeric = numeric.toArray(new Feature[0]);
+        this.numericColumn = numericColumn.stream().mapToInt(Integer::intValue).toArray();
+        this.factors = factors.toArray(new Feature[0]);
+        this.factorColumn = factorColumn.stream().mapToInt(Integer::intValue).toArray();
+        this.measures = measures.toArray(new CategoricalMeasure[0]);
+        this.factorWidth = measures.stream().mapToInt(cat -> cat.size() - baseLevel).toArray();
+        this.writer = writer();
+    }
+
+    /**
+     * Writes the encoding of a categorical feature into the row.
+     * @param feature the categorical feature.
+     * @param measure the measure of feature.
+     * @param column the first column of encoding.
+     * @param width the number of columns of encoding.
+     * @param baseLevel the level encoded by the first column.
+     * @param x the input tuple.
+     * @param row the output buffer.
+     */
+    private static void encode(Feature feature, CategoricalMeasure measure, int column, int width, int baseLevel, Tuple x, double[] row) {
+        Arrays.fill(row, column, column + width, 0.0);
+        int level = measure.factor(feature.applyAsInt(x)) - baseLevel;
+        if (level >= 0) row[column + level] = 1.0;
+    }
+
+    /**
+     * Composes the bias, numeric features and categorical features into
+     * a single method handle of type (Tuple, double[])void that writes
+     * the design matrix row.
+     */
+    private MethodHandle writer() {
+        MethodType type = MethodType.methodType(void.class, Tuple.class, double[].class);
+        // (double[], int, double)void
+        MethodHandle setter = MethodHandles.arrayElementSetter(double[].class);
+
+        // Starts with a no-op and folds the writers in reverse order
+        // so that the features are evaluated in the column order.
+        MethodHandle noop = MethodHandles.constant(Object.class, null).asType(MethodType.methodType(void.class));
+        MethodHandle writer = MethodHandles.dropArguments(noop, 0, Tuple.class, double[].class);
+
+        for (int k = factors.length - 1; k >= 0; k--) {
+            MethodHandle encode = MethodHandles.insertArguments(ENCODE, 0, factors[k], measures[k], factorColumn[k], factorWidth[k], baseLevel);
+            writer = MethodHandles.foldArguments(writer, encode);
+        }
+
+        for (int k = numeric.length - 1; k >= 0; k--) {
+            // (double[], Tuple)void: row[j] = feature.applyAsDouble(x)
+            MethodHandle set = MethodHandles.insertArguments(setter, 1, numericColumn[k]);
+            set = MethodHandles.filterArguments(set, 1, APPLY_AS_DOUBLE.bindTo(numeric[k]));
+            set = MethodHandles.permuteArguments(set, type, 1, 0);
+            writer = MethodHandles.foldArguments(writer, set);
+        }
+
+        if (bias) {
+            // (double[])void: row[0] = 1.0
+            MethodHandle set = MethodHandles.insertArguments(setter, 1, 0, 1.0);
+            writer = MethodHandles.foldArguments(writer, MethodHandles.dropArguments(set, 0, Tuple.class));
+        }
+
+        return writer;
+    }
+
+    /**
+     * Returns the input schema that the formula is compiled against.
+     * @return the input schema.
+     */
+    public StructType schema() {
+        return schema;
+    }
+
+    /**
+     * Returns the column names of design matrix.
+     * @return the column names of design matrix.
+     */
+    public String[] names() {
+        return names;
+    }
+
+    /**
+     * Returns the number of columns of design matrix.
+     * @return the number of columns of design matrix.
+     */
+    public int length() {
+        return names.length;
+    }
+
+    /**
+     * Returns the design matrix row of a tuple.
+     * @param x the input tuple.
+     * @return the design matrix row.
+     */
+    public double[] apply(Tuple x) {
+        return apply(x, new double[names.length]);
+    }
+
+    /**
+     * Writes the design matrix row of a tuple into the buffer.
+     * Missing values/nulls will be encoded as Double.NaN.
+     * @param x the input tuple.
+     * @param row the output buffer, which may be reused across calls.
+     * @return the output buffer.
+     */
+    public double[] apply(Tuple x, double[] row) {
+        if (row.length != names.length) {
+            throw new IllegalArgumentException(String.format("Invalid row buffer size: %d != %d", row.length, names.length));
+        }
+
+        try {
+            writer.invokeExact(x, row);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        return row;
+    }
+
+    /**
+     * Returns the design matrix of a data frame, which is evaluated
+     * column by column. Missing values/nulls will be encoded as
+     * Double.NaN.
+     * @param data the input data frame.
+     * @return the design matrix.
+     */
+    public Matrix matrix(DataFrame data) {
+        int n = data.size();
+        Matrix X = new Matrix(n, names.length);
+        X.colNames(names);
+
+        if (bias) {
+            for (int i = 0; i < n; i++) {
+                X.set(i, 0, 1.0);
+            }
+        }
+
+        double[] values = new double[n];
+        for (int k = 0; k < numeric.length; k++) {
+            Feature feature = numeric[k];
+            // Nullable types are materialized to keep nulls as NaN.
+            if (feature.field().type.id() == DataType.ID.Double) {
+                feature.applyAsDouble(data, values);
+            } else {
+                BaseVector vector = feature.apply(data);
+                for (int i = 0; i < n; i++) {
+                    values[i] = vector.getDouble(i);
+                }
+            }
+
+            int j = numericColumn[k];
+            for (int i = 0; i < n; i++) {
+                X.set(i, j, values[i]);
+            }
+        }
+
+        for (int k = 0; k < factors.length; k++) {
+            BaseVector vector = factors[k].apply(data);
+            CategoricalMeasure cat = measures[k];
+            int j = factorColumn[k];
+            for (int i = 0; i < n; i++) {
+                int level = cat.factor(vector.getInt(i)) - baseLevel;
+                if (level >= 0) X.set(i, j + level, 1.0);
+            }
+        }
+
+        return X;
+    }
+}
@@ -122,6 +122,19 @@ public interface Feature {
         return false;
     }
 
+    /**
+     * Applies the term on a data frame and writes the double values,
+     * i.e. {@link #applyAsDouble(Tuple)} of each row, into the buffer
+     * without materializing the intermediate vectors.
+     * @param data the data frame.
+     * @param values the output buffer of size {@code data.size()}.
+     */
+    default void applyAsDouble(DataFrame data, double[] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = applyAsDouble(data.get(i));
+        }
+    }
+
     /**
      * Applies the term on a data frame.
      * @param data the data frame.
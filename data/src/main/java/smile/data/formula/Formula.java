@@ -501,6 +501,35 @@ public class Formula implements Serializable {
         return DataFrame.of(vectors);
     }
 
+    /**
+     * Compiles the formula against a schema into the evaluation plan of
+     * design matrix, which is much faster than {@link #x(Tuple)} to
+     * transform the tuples one by one, e.g. in online prediction.
+     * All categorical variables will be dummy encoded. If the formula
+     * doesn't has an Intercept term, the bias column will be included.
+     * Otherwise, it is based on the setting of Intercept term.
+     *
+     * @param schema the input schema.
+     * @return the compiled formula.
+     */
+    public CompiledFormula compile(StructType schema) {
+        return compile(schema, hasBias(), CategoricalEncoder.DUMMY);
+    }
+
+    /**
+     * Compiles the formula against a schema into the evaluation plan of
+     * design matrix.
+     *
+     * @param schema the input schema.
+     * @param bias if true, include the bias column.
+     * @param encoder the categorical variable encoder.
+     * @return the compiled formula.
+     */
+    public CompiledFormula compile(StructType schema, boolean bias, CategoricalEncoder encoder) {
+        bind(schema);
+        return new CompiledFormula(schema, binding.get().x, bias, encoder);
+    }
+
     /**
      * Returns true if the formula has the bias term.
      * We assume the formula has the bias term if it isn't
@@ -543,7 +572,32 @@ public class Formula implements Serializable {
      * @return the design matrix.
      */
     public Matrix matrix(DataFrame data, boolean bias) {
-        return x(data).toMatrix(bias, CategoricalEncoder.DUMMY, null);
+        return compile(data.schema(), bias, CategoricalEncoder.DUMMY).matrix(data);
+    }
+
+    /**
+     * Returns the single precision design matrix of predictors.
+     * All categorical variables will be dummy encoded.
+     * If the formula doesn't has an Intercept term, the bias
+     * column will be included. Otherwise, it is based on the
+     * setting of Intercept term.
+     *
+     * @param data The input data frame.
+     * @return the design matrix.
+     */
+    public smile.math.matrix.fp32.Matrix floatMatrix(DataFrame data) {
+        return floatMatrix(data, hasBias());
+    }
+
+    /**
+     * Returns the single precision design matrix of predictors.
+     * All categorical variables will be dummy encoded.
+     * @param data The input data frame.
+     * @param bias If true, include the bias column.
+     * @return the design matrix.
+     */
+    public smile.math.matrix.fp32.Matrix floatMatrix(DataFrame data, boolean bias) {
+        return x(data).toFloatMatrix(bias, CategoricalEncoder.DUMMY, null);
     }
 
     /**
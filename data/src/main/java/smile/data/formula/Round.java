@@ -17,6 +17,7 @@
 
 package smile.data.formula;
 
+import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.type.DataType;
 import smile.data.type.StructField;
@@ -78,6 +79,14 @@ class Round extends AbstractFunction {
                 public double applyAsDouble(Tuple o) {
                     return Math.round(feature.applyAsDouble(o));
                 }
+
+                @Override
+                public void applyAsDouble(DataFrame data, double[] values) {
+                    feature.applyAsDouble(data, values);
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = Math.round(values[i]);
+                    }
+                }
             });
         }
 
@@ -19,6 +19,7 @@ package smile.data.formula;
 
 import java.util.ArrayList;
 import java.util.List;
+import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.type.DataType;
 import smile.data.type.StructField;
@@ -106,6 +107,16 @@ public class Sub extends Operator {
                 public double applyAsDouble(Tuple o) {
                     return a.applyAsDouble(o) - b.applyAsDouble(o);
                 }
+
+                @Override
+                public void applyAsDouble(DataFrame data, double[] values) {
+                    double[] y = new double[values.length];
+                    a.applyAsDouble(data, values);
+                    b.applyAsDouble(data, y);
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] -= y[i];
+                    }
+                }
             });
         }
 
@@ -21,9 +21,11 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.type.StructField;
 import smile.data.type.StructType;
+import smile.data.vector.BaseVector;
 
 /**
  * A variable in the formula. A variable can be regarded as the
@@ -115,6 +117,14 @@ final class Variable implements Term {
             public double applyAsDouble(Tuple o) {
                 return o.getDouble(index);
             }
+
+            @Override
+            public void applyAsDouble(DataFrame data, double[] values) {
+                BaseVector column = data.column(field.name);
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = column.getDouble(i);
+                }
+            }
         };
 
         return Collections.singletonList(feature);
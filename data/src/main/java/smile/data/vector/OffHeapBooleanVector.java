@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data.vector;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+import smile.data.type.StructField;
+
+/**
+ * An immutable off-heap boolean vector.
+ *
+ * @author Haifeng Li
+ */
+class OffHeapBooleanVector extends OffHeapVector implements BooleanVector {
+    private static final long serialVersionUID = 1L;
+
+    /** Constructor. */
+    public OffHeapBooleanVector(StructField field, int size, ByteBuffer[] segments) {
+        super(field, size, segments);
+        if (field.measure != null) {
+            throw new IllegalArgumentException(String.format("Invalid measure %s for %s", field.measure, type()));
+        }
+    }
+
+    @Override
+    BaseVector onHeap() {
+        return new BooleanVectorImpl(field(), array());
+    }
+
+    @Override
+    public boolean[] array() {
+        boolean[] a = new boolean[size];
+        for (int i = 0; i < size; i++) a[i] = getBoolean(i);
+        return a;
+    }
+
+    @Override
+    public int[] toIntArray(int[] a) {
+        for (int i = 0; i < a.length; i++) a[i] = getBoolean(i) ? 1 : 0;
+        return a;
+    }
+
+    @Override
+    public double[] toDoubleArray(double[] a) {
+        for (int i = 0; i < a.length; i++) a[i] = getBoolean(i) ? 1 : 0;
+        return a;
+    }
+
+    @Override
+    public boolean getBoolean(int i) {
+        return segment(i, 0).get(position(i, 0)) != 0;
+    }
+
+    @Override
+    public Boolean get(int i) {
+        return getBoolean(i);
+    }
+
+    @Override
+    public BooleanVector get(int... index) {
+        boolean[] v = new boolean[index.length];
+        for (int i = 0; i < index.length; i++) v[i] = getBoolean(index[i]);
+        return new BooleanVectorImpl(field(), v);
+    }
+
+    @Override
+    public IntStream stream() {
+        return IntStream.range(0, size).map(i -> getBoolean(i) ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data.vector;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+import smile.data.measure.NumericalMeasure;
+import smile.data.type.StructField;
+
+/**
+ * An immutable off-heap byte vector.
+ *
+ * @author Haifeng Li
+ */
+class OffHeapByteVector extends OffHeapVector implements ByteVector {
+    private static final long serialVersionUID = 1L;
+
+    /** Constructor. */
+    public OffHeapByteVector(StructField field, int size, ByteBuffer[] segments) {
+        super(field, size, segments);
+        if (field.measure instanceof NumericalMeasure) {
+            throw new IllegalArgumentException(String.format("Invalid measure %s for %s", field.measure, type()));
+        }
+    }
+
+    @Override
+    BaseVector onHeap() {
+        return new ByteVectorImpl(field(), array());
+    }
+
+    @Override
+    public byte[] array() {
+        byte[] a = new byte[size];
+        int offset = 0;
+        for (ByteBuffer segment : segments) {
+            int length = Math.min(size - offset, segment.capacity());
+            segment.duplicate().get(a, offset, length);
+            offset += length;
+        }
+        return a;
+    }
+
+    @Override
+    public int[] toIntArray(int[] a) {
+        for (int i = 0; i < a.length; i++) a[i] = getByte(i);
+        return a;
+    }
+
+    @Override
+    public double[] toDoubleArray(double[] a) {
+        for (int i = 0; i < a.length; i++) a[i] = getByte(i);
+        return a;
+    }
+
+    @Override
+    public byte getByte(int i) {
+        return segment(i, 0).get(position(i, 0));
+    }
+
+    @Override
+    public Byte get(int i) {
+        return getByte(i);
+    }
+
+    @Override
+    public ByteVector get(int... index) {
+        byte[] v = new byte[index.length];
+        for (int i = 0; i < index.length; i++) v[i] = getByte(index[i]);
+        return new ByteVectorImpl(field(), v);
+    }
+
+    @Override
+    public IntStream stream() {
+        return IntStream.range(0, size).map(this::getByte);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data.vector;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+import smile.data.type.StructField;
+
+/**
+ * An immutable off-heap char vector.
+ *
+ * @author Haifeng Li
+ */
+class OffHeapCharVector extends OffHeapVector implements CharVector {
+    private static final long serialVersionUID = 1L;
+
+    /** Constructor. */
+    public OffHeapCharVector(StructField field, int size, ByteBuffer[] segments) {
+        super(field, size, segments);
+        if (field.measure != null) {
+            throw new IllegalArgumentException(String.format("Invalid measure %s for %s", field.measure, type()));
+        }
+    }
+
+    @Override
+    BaseVector onHeap() {
+        return new CharVectorImpl(field(), array());
+    }
+
+    @Override
+    public char[] array() {
+        char[] a = new char[size];
+        int offset = 0;
+        for (ByteBuffer segment : segments) {
+            int length = Math.min(size - offset, segment.capacity() >>> 1);
+            segment.asCharBuffer().get(a, offset, length);
+            offset += length;
+        }
+        return a;
+    }
+
+    @Override
+    public int[] toIntArray(int[] a) {
+        for (int i = 0; i < a.length; i++) a[i] = getChar(i);
+        return a;
+    }
+
+    @Override
+    public double[] toDoubleArray(double[] a) {
+        for (int i = 0; i < a.length; i++) a[i] = getChar(i);
+        return a;
+    }
+
+    @Override
+    public char getChar(int i) {
+        return segment(i, 1).getChar(position(i, 1));
+    }
+
+    @Override
+    public Character get(int i) {
+        return getChar(i);
+    }
+
+    @Override
+    public CharVector get(int... index) {
+        char[] v = new char[index.length];
+        for (int i = 0; i < index.length; i++) v[i] = getChar(index[i]);
+        return new CharVectorImpl(field(), v);
+    }
+
+    @Override
+    public IntStream stream() {
+        return IntStream.range(0, size).map(this::getChar);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
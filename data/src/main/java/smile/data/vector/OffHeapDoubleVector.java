@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.data.vector;
+
+import java.nio.ByteBuffer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import smile.data.measure.CategoricalMeasure;
+import smile.data.type.StructField;
+
+/**
+ * An immutable off-heap double vector.
+ *
+ * @author Haifeng Li
+ */
+class OffHeapDoubleVector extends OffHeapVector implements DoubleVector {
+    private static final long serialVersionUID = 1L;
+
+    /** Constructor. */
+    public OffHeapDoubleVector(StructField field, int size, ByteBuffer[] segments) {
+        super(field, size, segments);
+        if (field.measure instanceof CategoricalMeasure) {
+            throw new IllegalArgumentException(String.format("Invalid measure %s for %s", field.measure, type()));
+        }
+    }
+
+    @Override
+    BaseVector onHeap() {
+        return new DoubleVectorImpl(field(), array());
+    }
+
+    @Override
+    public double[] array() {
+        return toDoubleArray(new double[size]);
+    }
+
+    @Override
+    public double[] toDoubleArray(double[] a) {
+        int offset = 0;
+        for (ByteBuffer segment : segments) {
+            int length = Math.min(size - offset, segment.capacity() >>> 3);
+            segment.asDoubleBuffer().get(a, offset, length);
+            offset += length;
+        }
+        return a;
+    }
+
+    @Override
+    public double getDouble(int i) {
+        return segment(i, 3).getDouble(position(i, 3));
+    }
+
+    @Override
+    public Double get(int i) {
+        return getDouble(i);
+    }
+
+    @Override
+    public DoubleVector get(int... index) {
+        double[] v = new double[index.length];
+        for (int i = 0; i < index.length; i++) v[i] = getDouble(index[i]);
+        return new DoubleVectorImpl(field(), v);
+    }
+
+    @Override
+    public DoubleStream stream() {
+        return IntStream.range(0, size).mapToDouble(this::getDouble);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
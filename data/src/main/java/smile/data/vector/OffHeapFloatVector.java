@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data.vector;
+
+import java.nio.ByteBuffer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import smile.data.measure.CategoricalMeasure;
+import smile.data.type.StructField;
+
+/**
+ * An immutable off-heap float vector.
+ *
+ * @author Haifeng Li
+ */
+class OffHeapFloatVector extends OffHeapVector implements FloatVector {
+    private static final long serialVersionUID = 1L;
+
+    /** Constructor. */
+    public OffHeapFloatVector(StructField field, int size, ByteBuffer[] segments) {
+        super(field, size, segments);
+        if (field.measure instanceof CategoricalMeasure) {
+            throw new IllegalArgumentException(String.format("Invalid measure %s for %s", field.measure, type()));
+        }
+    }
+
+    @Override
+    BaseVector onHeap() {
+        return new FloatVectorImpl(field(), array());
+    }
+
+    @Override
+    public float[] array() {
+        float[] a = new float[size];
+        int offset = 0;
+        for (ByteBuffer segment : segments) {
+            int length = Math.min(size - offset, segment.capacity() >>> 2);
+            segment.asFloatBuffer().get(a, offset, length);
+            offset += length;
+        }
+        return a;
+    }
+
+    @Override
+    public double[] toDoubleArray(double[] a) {
+        for (int i = 0; i < a.length; i++) a[i] = getFloat(i);
+        return a;
+    }
+
+    @Override
+    public float getFloat(int i) {
+        return segment(i, 2).getFloat(position(i, 2));
+    }
+
+    @Override
+    public Float get(int i) {
+        return getFloat(i);
+    }
+
+    @Override
+    public FloatVector get(int... index) {
+        float[] v = new float[index.length];
+        for (int i = 0; i < index.length; i++) v[i] = getFloat(index[i]);
+        return new FloatVectorImpl(field(), v);
+    }
+
+    @Override
+    public DoubleStream stream() {
+        return IntStream.range(0, size).mapToDouble(this::getFloat);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
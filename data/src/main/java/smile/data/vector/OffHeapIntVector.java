@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data.vector;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+import smile.data.measure.NumericalMeasure;
+import smile.data.type.StructField;
+
+/**
+ * An immutable off-heap int vector.
+ *
+ * @author Haifeng Li
+ */
+class OffHeapIntVector extends OffHeapVector implements IntVector {
+    private static final long serialVersionUID = 1L;
+
+    /** Constructor. */
+    public OffHeapIntVector(StructField field, int size, ByteBuffer[] segments) {
+        super(field, size, segments);
+        if (field.measure instanceof NumericalMeasure) {
+            throw new IllegalArgumentException(String.format("Invalid measure %s for %s", field.measure, type()));
+        }
+    }
+
+    @Override
+    BaseVector onHeap() {
+        return new IntVectorImpl(field(), array());
+    }
+
+    @Override
+    public int[] array() {
+        return toIntArray(new int[size]);
+    }
+
+    @Override
+    public int[] toIntArray(int[] a) {
+        int offset = 0;
+        for (ByteBuffer segment : segments) {
+            int length = Math.min(size - offset, segment.capacity() >>> 2);
+            segment.asIntBuffer().get(a, offset, length);
+            offset += length;
+        }
+        return a;
+    }
+
+    @Override
+    public double[] toDoubleArray(double[] a) {
+        for (int i = 0; i < a.length; i++) a[i] = getInt(i);
+        return a;
+    }
+
+    @Override
+    public int getInt(int i) {
+        return segment(i, 2).getInt(position(i, 2));
+    }
+
+    @Override
+    public Integer get(int i) {
+        return getInt(i);
+    }
+
+    @Override
+    public IntVector get(int... index) {
+        int[] v = new int[index.length];
+        for (int i = 0; i < index.length; i++) v[i] = getInt(index[i]);
+        return new IntVectorImpl(field(), v);
+    }
+
+    @Override
+    public IntStream stream() {
+        return IntStream.range(0, size).map(this::getInt);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
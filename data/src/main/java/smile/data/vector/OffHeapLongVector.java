@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data.vector;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import smile.data.measure.NumericalMeasure;
+import smile.data.type.StructField;
+
+/**
+ * An immutable off-heap long vector.
+ *
+ * @author Haifeng Li
+ */
+class OffHeapLongVector extends OffHeapVector implements LongVector {
+    private static final long serialVersionUID = 1L;
+
+    /** Constructor. */
+    public OffHeapLongVector(StructField field, int size, ByteBuffer[] segments) {
+        super(field, size, segments);
+        if (field.measure instanceof NumericalMeasure) {
+            throw new IllegalArgumentException(String.format("Invalid measure %s for %s", field.measure, type()));
+        }
+    }
+
+    @Override
+    BaseVector onHeap() {
+        return new LongVectorImpl(field(), array());
+    }
+
+    @Override
+    public long[] array() {
+        long[] a = new long[size];
+        int offset = 0;
+        for (ByteBuffer segment : segments) {
+            int length = Math.min(size - offset, segment.capacity() >>> 3);
+            segment.asLongBuffer().get(a, offset, length);
+            offset += length;
+        }
+        return a;
+    }
+
+    @Override
+    public double[] toDoubleArray(double[] a) {
+        for (int i = 0; i < a.length; i++) a[i] = getLong(i);
+        return a;
+    }
+
+    @Override
+    public long getLong(int i) {
+        return segment(i, 3).getLong(position(i, 3));
+    }
+
+    @Override
+    public Long get(int i) {
+        return getLong(i);
+    }
+
+    @Override
+    public LongVector get(int... index) {
+        long[] v = new long[index.length];
+        for (int i = 0; i < index.length; i++) v[i] = getLong(index[i]);
+        return new LongVectorImpl(field(), v);
+    }
+
+    @Override
+    public LongStream stream() {
+        return IntStream.range(0, size).mapToLong(this::getLong);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
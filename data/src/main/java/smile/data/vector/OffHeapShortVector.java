@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data.vector;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+import smile.data.measure.NumericalMeasure;
+import smile.data.type.StructField;
+
+/**
+ * An immutable off-heap short vector.
+ *
+ * @author Haifeng Li
+ */
+class OffHeapShortVector extends OffHeapVector implements ShortVector {
+    private static final long serialVersionUID = 1L;
+
+    /** Constructor. */
+    public OffHeapShortVector(StructField field, int size, ByteBuffer[] segments) {
+        super(field, size, segments);
+        if (field.measure instanceof NumericalMeasure) {
+            throw new IllegalArgumentException(String.format("Invalid measure %s for %s", field.measure, type()));
+        }
+    }
+
+    @Override
+    BaseVector onHeap() {
+        return new ShortVectorImpl(field(), array());
+    }
+
+    @Override
+    public short[] array() {
+        short[] a = new short[size];
+        int offset = 0;
+        for (ByteBuffer segment : segments) {
+            int length = Math.min(size - offset, segment.capacity() >>> 1);
+            segment.asShortBuffer().get(a, offset, length);
+            offset += length;
+        }
+        return a;
+    }
+
+    @Override
+    public int[] toIntArray(int[] a) {
+        for (int i = 0; i < a.length; i++) a[i] = getShort(i);
+        return a;
+    }
+
+    @Override
+    public double[] toDoubleArray(double[] a) {
+        for (int i = 0; i < a.length; i++) a[i] = getShort(i);
+        return a;
+    }
+
+    @Override
+    public short getShort(int i) {
+        return segment(i, 1).getShort(position(i, 1));
+    }
+
+    @Override
+    public Short get(int i) {
+        return getShort(i);
+    }
+
+    @Override
+    public ShortVector get(int... index) {
+        short[] v = new short[index.length];
+        for (int i = 0; i < index.length; i++) v[i] = getShort(index[i]);
+        return new ShortVectorImpl(field(), v);
+    }
+
+    @Override
+    public IntStream stream() {
+        return IntStream.range(0, size).map(this::getShort);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
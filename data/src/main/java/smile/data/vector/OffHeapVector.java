@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.data.vector;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import smile.data.measure.Measure;
+import smile.data.type.DataType;
+import smile.data.type.StructField;
+
+/**
+ * An immutable vector whose data live outside of the Java heap, e.g.
+ * in direct byte buffers or memory-mapped files. The elements are
+ * stored contiguously in little-endian order. As a single
+ * {@link ByteBuffer} is limited to 2 GB, the data are split into
+ * segments of {@link #SEGMENT_SIZE} bytes (the last segment may be
+ * shorter). Since the element sizes are powers of two, an element
+ * never straddles two segments.
+ * <p>
+ * Off-heap vectors are not scanned by the garbage collector, which
+ * enables data frames much larger than the heap. When serialized,
+ * an off-heap vector is replaced by an on-heap copy.
+ *
+ * @author Haifeng Li
+ */
+public abstract class OffHeapVector implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** The number of bits of segment size. */
+    static final int SEGMENT_BITS = 30;
+    /** The size of segments in bytes. */
+    public static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+    /** The name of vector. */
+    final String name;
+    /** Optional measure. */
+    final Measure measure;
+    /** The number of elements. */
+    final int size;
+    /** The data segments. */
+    final transient ByteBuffer[] segments;
+
+    /**
+     * Constructor.
+     * @param field the struct field of vector.
+     * @param size the number of elements.
+     * @param segments the data segments.
+     */
+    OffHeapVector(StructField field, int size, ByteBuffer[] segments) {
+        long bytes = (long) size * width(field.type);
+        int n = segments(bytes);
+        if (segments.length != n) {
+            throw new IllegalArgumentException(String.format("Expected %d segments for %d bytes, got %d", n, bytes, segments.length));
+        }
+
+        this.segments = new ByteBuffer[n];
+        for (int i = 0; i < n; i++) {
+            long capacity = i < n - 1 ? SEGMENT_SIZE : bytes - (long) i * SEGMENT_SIZE;
+            if (segments[i].capacity() < capacity) {
+                throw new IllegalArgumentException(String.format("Segment %d has %d bytes < %d", i, segments[i].capacity(), capacity));
+            }
+
+            // The byte order of a buffer is not inherited by duplicates,
+            // so we keep our own duplicates with the right order. The
+            // duplicates are only accessed by absolute index or through
+            // new views, which makes the vector safe for concurrent reads.
+            ByteBuffer segment = segments[i].duplicate();
+            segment.clear();
+            this.segments[i] = segment.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        this.name = field.name;
+        this.measure = field.measure;
+        this.size = size;
+    }
+
+    /**
+     * Returns the (optional) name of vector.
+     * @return the (optional) name of vector.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the (optional) level of measurements.
+     * @return the (optional) level of measurements.
+     */
+    public Measure measure() {
+        return measure;
+    }
+
+    /**
+     * Returns the number of elements in the vector.
+     * @return the number of elements in the vector.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an on-heap copy of this vector.
+     * @return an on-heap copy of this vector.
+     */
+    abstract BaseVector onHeap();
+
+    /**
+     * Replaces this vector with an on-heap copy in serialization
+     * as the off-heap segments cannot be serialized.
+     * @return an on-heap copy of this vector.
+     * @throws ObjectStreamException never.
+     */
+    Object writeReplace() throws ObjectStreamException {
+        return onHeap();
+    }
+
+    /**
+     * Returns the segment of element i.
+     * @param i the index of element.
+     * @param shift the log2 of element size in bytes.
+     * @return the segment.
+     */
+    final ByteBuffer segment(int i, int shift) {
+        return segments[i >>> (SEGMENT_BITS - shift)];
+    }
+
+    /**
+     * Returns the byte position of element i in its segment.
+     * @param i the index of element.
+     * @param shift the log2 of element size in bytes.
+     * @return the byte position.
+     */
+    static int position(int i, int shift) {
+        return (i & ((1 << (SEGMENT_BITS - shift)) - 1)) << shift;
+    }
+
+    /**
+     * Returns the size of elements in bytes.
+     * @param type the data type of elements.
+     * @return the size of elements in bytes.
+     */
+    public static int width(DataType type) {
+        switch (type.id()) {
+            case Boolean:
+            case Byte:
+                return 1;
+            case Char:
+            case Short:
+                return 2;
+            case Integer:
+            case Float:
+                return 4;
+            case Long:
+            case Double:
+                return 8;
+            default:
+                throw new UnsupportedOperationException("Unsupported off-heap vector type: " + type);
+        }
+    }
+
+    /**
+     * Returns the number of segments to hold the given number of bytes.
+     * @param bytes the number of bytes.
+     * @return the number of segments.
+     */
+    public static int segments(long bytes) {
+        return (int) ((bytes + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+    }
+
+    /**
+     * Wraps the off-heap data segments as a vector without copying.
+     * The segments are typically memory-mapped regions of a file.
+     * Each segment except the last one must be {@link #SEGMENT_SIZE}
+     * bytes and the elements are in little-endian order. Boolean
+     * values are stored as bytes of 0 or 1.
+     *
+     * @param field the struct field of vector.
+     * @param size the number of elements.
+     * @param segments the data segments.
+     * @return the vector.
+     */
+    public static BaseVector of(StructField field, int size, ByteBuffer... segments) {
+        switch (field.type.id()) {
+            case Boolean: return new OffHeapBooleanVector(field, size, segments);
+            case Byte: return new OffHeapByteVector(field, size, segments);
+            case Char: return new OffHeapCharVector(field, size, segments);
+            case Short: return new OffHeapShortVector(field, size, segments);
+            case Integer: return new OffHeapIntVector(field, size, segments);
+            case Long: return new OffHeapLongVector(field, size, segments);
+            case Float: return new OffHeapFloatVector(field, size, segments);
+            case Double: return new OffHeapDoubleVector(field, size, segments);
+            default: throw new UnsupportedOperationException("Unsupported off-heap vector type: " + field.type);
+        }
+    }
+
+    /**
+     * Allocates the direct byte buffers of given size.
+     * @param bytes the number of bytes.
+     * @return the direct byte buffers.
+     */
+    public static ByteBuffer[] allocate(long bytes) {
+        int n = segments(bytes);
+        ByteBuffer[] segments = new ByteBuffer[n];
+        for (int i = 0; i < n; i++) {
+            int capacity = (int) Math.min(SEGMENT_SIZE, bytes - (long) i * SEGMENT_SIZE);
+            segments[i] = ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return segments;
+    }
+
+    /**
+     * Copies the data of a vector to off-heap direct buffers.
+     * The vector must be of primitive type.
+     *
+     * @param vector the vector.
+     * @return the off-heap vector.
+     */
+    public static BaseVector copyOf(BaseVector vector) {
+        StructField field = vector.field();
+        int n = vector.size();
+        ByteBuffer[] segments = allocate((long) n * width(field.type));
+        write(vector, segments);
+        return of(field, n, segments);
+    }
+
+    /**
+     * Writes the data of a vector into the segments in the off-heap layout.
+     * The vector must be of primitive type.
+     *
+     * @param vector the vector.
+     * @param segments the output data segments.
+     */
+    public static void write(BaseVector vector, ByteBuffer[] segments) {
+        for (ByteBuffer segment : segments) {
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        int n = vector.size();
+        switch (vector.type().id()) {
+            case Boolean: {
+                BooleanVector v = (BooleanVector) vector;
+                for (int i = 0; i < n; i++) {
+                    segments[i >>> SEGMENT_BITS].put(position(i, 0), (byte) (v.getBoolean(i) ? 1 : 0));
+                }
+                break;
+            }
+            case Byte:
+                for (int i = 0; i < n; i++) {
+                    segments[i >>> SEGMENT_BITS].put(position(i, 0), vector.getByte(i));
+                }
+                break;
+            case Char: {
+                CharVector v = (CharVector) vector;
+                for (int i = 0; i < n; i++) {
+                    segments[i >>> (SEGMENT_BITS - 1)].putChar(position(i, 1), v.getChar(i));
+                }
+                break;
+            }
+            case Short:
+                for (int i = 0; i < n; i++) {
+                    segments[i >>> (SEGMENT_BITS - 1)].putShort(position(i, 1), vector.getShort(i));
+                }
+                break;
+            case Integer:
+                for (int i = 0; i < n; i++) {
+                    segments[i >>> (SEGMENT_BITS - 2)].putInt(position(i, 2), vector.getInt(i));
+                }
+                break;
+            case Long:
+                for (int i = 0; i < n; i++) {
+                    segments[i >>> (SEGMENT_BITS - 3)].putLong(position(i, 3), vector.getLong(i));
+                }
+                break;
+            case Float:
+                for (int i = 0; i < n; i++) {
+                    segments[i >>> (SEGMENT_BITS - 2)].putFloat(position(i, 2), vector.getFloat(i));
+                }
+                break;
+            case Double:
+                for (int i = 0; i < n; i++) {
+                    segments[i >>> (SEGMENT_BITS - 3)].putDouble(position(i, 3), vector.getDouble(i));
+                }
+                break;
+            default:
+                throw new UnsupportedOperationException("Unsupported off-heap vector type: " + vector.type());
+        }
+    }
+}
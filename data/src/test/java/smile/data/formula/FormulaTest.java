@@ -24,6 +24,7 @@ import org.junit.Test;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import smile.data.DataFrame;
@@ -262,6 +263,55 @@ public class FormulaTest {
         assertEquals(schema, outputSchema);
     }
 
+    @Test
+    public void testCompile() {
+        System.out.println("compile");
+        Formula formula = Formula.rhs($("age"), $("gender"), $("salary"), log("age"),
+                mul("age", "age"), add(div($("age"), val(2.0)), abs(sub($("age"), val(30.0)))), round(div("salary", "age")));
+
+        CompiledFormula compiled = formula.compile(df.schema());
+        DataFrame x = formula.x(df);
+        assertEquals(8, compiled.length());
+        assertEquals("gender_Female", compiled.names()[2]);
+
+        double[] row = new double[compiled.length()];
+        for (int i = 0; i < df.size(); i++) {
+            double[] expected = formula.x(df.get(i)).toArray(true, smile.data.CategoricalEncoder.DUMMY);
+            assertArrayEquals(expected, compiled.apply(df.get(i), row), 1E-15);
+        }
+
+        Matrix expected = x.toMatrix(true, smile.data.CategoricalEncoder.DUMMY, null);
+        Matrix matrix = compiled.matrix(df);
+        System.out.println(matrix);
+        assertArrayEquals(expected.colNames(), matrix.colNames());
+        for (int i = 0; i < df.size(); i++) {
+            for (int j = 0; j < matrix.ncol(); j++) {
+                assertEquals(expected.get(i, j), matrix.get(i, j), 1E-15);
+            }
+        }
+
+        compiled = formula.compile(df.schema(), false, smile.data.CategoricalEncoder.ONE_HOT);
+        assertEquals(8, compiled.length());
+        assertArrayEquals(new double[]{0, 1}, Arrays.copyOfRange(compiled.apply(df.get(2)), 1, 3), 1E-15);
+    }
+
+    @Test
+    public void testCompileExpression() {
+        System.out.println("compile expression");
+        Formula formula = Formula.rhs(add(log("salary"), mul("age", "salary")), $("gender"));
+        CompiledFormula compiled = formula.compile(df.schema());
+        Matrix matrix = compiled.matrix(df);
+        assertEquals(3, compiled.length());
+
+        double[] row = new double[compiled.length()];
+        for (int i = 0; i < df.size(); i++) {
+            assertArrayEquals(matrix.row(i), compiled.apply(df.get(i), row), 1E-15);
+        }
+
+        assertEquals(Math.log(10000.0) + 38 * 10000.0, matrix.get(0, 1), 1E-7);
+        assertTrue(Double.isNaN(matrix.get(1, 1)));
+    }
+
     @Test
     public void testFormulaDate() {
         System.out.println("date");
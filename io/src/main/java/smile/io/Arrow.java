@@ -22,20 +22,32 @@ import java.io.OutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.net.URISyntaxException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.*;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.stream.Collectors;
+import org.apache.arrow.flatbuf.MessageHeader;
 import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.*;
 import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
 import org.apache.arrow.vector.ipc.ArrowStreamReader;
 import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.ArrowWriter;
+import org.apache.arrow.vector.ipc.ReadChannel;
+import org.apache.arrow.vector.ipc.message.ArrowBlock;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.ipc.message.MessageMetadataResult;
+import org.apache.arrow.vector.ipc.message.MessageSerializer;
 import org.apache.arrow.vector.types.DateUnit;
 import org.apache.arrow.vector.types.FloatingPointPrecision;
 import org.apache.arrow.vector.types.TimeUnit;
@@ -43,6 +55,7 @@ import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.FieldType;
 import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.arrow.vector.util.TransferPair;
 import static org.apache.arrow.vector.types.FloatingPointPrecision.DOUBLE;
 import static org.apache.arrow.vector.types.FloatingPointPrecision.SINGLE;
 import smile.data.DataFrame;
@@ -164,6 +177,10 @@ public class Arrow {
 
     /**
      * Reads a limited number of records from an arrow file.
+     * The columns of double, float, int, long and string types are
+     * wrapped without copying. Other columns are copied into the heap.
+     * As the reader reads the whole record batches, the data frame may
+     * have more records than the limit.
      *
      * @param input the input stream.
      * @param limit the number number of records to read.
@@ -179,92 +196,212 @@ public class Arrow {
 
             // The holder for a set of vectors to be loaded/unloaded.
             VectorSchemaRoot root = reader.getVectorSchemaRoot();
-            List<DataFrame> frames = new ArrayList<>();
+            List<List<FieldVector>> batches = new ArrayList<>();
             int size = 0;
-            while (reader.loadNextBatch() && size < limit) {
+            while (size < limit && reader.loadNextBatch()) {
                 List<FieldVector> fieldVectors = root.getFieldVectors();
                 logger.info("read {} rows and {} columns", root.getRowCount(), fieldVectors.size());
+                if (root.getRowCount() == 0) continue;
+
+                // Take the ownership of buffers from the reader without copying.
+                List<FieldVector> vectors = new ArrayList<>(fieldVectors.size());
+                for (FieldVector fieldVector : fieldVectors) {
+                    TransferPair pair = fieldVector.getTransferPair(allocator);
+                    pair.transfer();
+                    vectors.add((FieldVector) pair.getTo());
+                }
 
-                smile.data.vector.BaseVector[] vectors = new smile.data.vector.BaseVector[fieldVectors.size()];
-                for (int j = 0; j < fieldVectors.size(); j++) {
-                    FieldVector fieldVector = fieldVectors.get(j);
-                    ArrowType type = fieldVector.getField().getType();
-                    switch (type.getTypeID()) {
-                        case Int:
-                            ArrowType.Int itype = (ArrowType.Int) type;
-                            int bitWidth = itype.getBitWidth();
-                            switch (bitWidth) {
-                                case 8:
-                                    vectors[j] = readByteField(fieldVector);
-                                    break;
-                                case 16:
-                                    if (itype.getIsSigned())
-                                        vectors[j] = readShortField(fieldVector);
-                                    else
-                                        vectors[j] = readCharField(fieldVector);
-                                    break;
-                                case 32:
-                                    vectors[j] = readIntField(fieldVector);
-                                    break;
-                                case 64:
-                                    vectors[j] = readLongField(fieldVector);
-                                    break;
-                                default:
-                                    throw new UnsupportedOperationException("Unsupported integer bit width: " + bitWidth);
-                            }
-                            break;
-                        case FloatingPoint:
-                            FloatingPointPrecision precision = ((ArrowType.FloatingPoint) type).getPrecision();
-                            switch (precision) {
-                                case DOUBLE:
-                                    vectors[j] = readDoubleField(fieldVector);
-                                    break;
-                                case SINGLE:
-                                    vectors[j] = readFloatField(fieldVector);
-                                    break;
-                                case HALF:
-                                    throw new UnsupportedOperationException("Unsupported float precision: " + precision);
-                            }
-                            break;
-                        case Decimal:
-                            vectors[j] = readDecimalField(fieldVector);
-                            break;
-                        case Bool:
-                            vectors[j] = readBitField(fieldVector);
-                            break;
-                        case Date:
-                            vectors[j] = readDateField(fieldVector);
-                            break;
-                        case Time:
-                            vectors[j] = readTimeField(fieldVector);
-                            break;
-                        case Timestamp:
-                            vectors[j] = readDateTimeField(fieldVector);
-                            break;
-                        case Binary:
-                        case FixedSizeBinary:
-                            vectors[j] = readByteArrayField(fieldVector);
-                            break;
-                        case Utf8:
-                            vectors[j] = readStringField(fieldVector);
-                            break;
-                        default: throw new UnsupportedOperationException("Unsupported column type: " + fieldVector.getMinorType());
-                    }
+                batches.add(vectors);
+                size += root.getRowCount();
+            }
+
+            return toDataFrame(batches);
+        }
+    }
+
+    /**
+     * Reads an arrow file in the random access (IPC file) format with
+     * memory mapping. The columns of double, float, int, long and string
+     * types are wrapped without copying so that the data stay in the
+     * OS page cache rather than the Java heap. Other columns are copied
+     * into the heap. The mapping remains valid after this method returns
+     * until the data frame is garbage collected.
+     *
+     * @param path the input file path.
+     * @throws IOException when fails to read the file.
+     * @return the data frame.
+     */
+    public DataFrame readFile(Path path) throws IOException {
+        if (allocator == null) {
+            allocate(Long.MAX_VALUE);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             ArrowFileReader reader = new ArrowFileReader(channel, allocator)) {
+
+            Schema schema = reader.getVectorSchemaRoot().getSchema();
+            List<List<FieldVector>> batches = new ArrayList<>();
+            for (ArrowBlock block : reader.getRecordBlocks()) {
+                if (block.getBodyLength() > Integer.MAX_VALUE) {
+                    throw new UnsupportedOperationException("Record batch larger than 2GB: " + block.getBodyLength());
+                }
+
+                channel.position(block.getOffset());
+                MessageMetadataResult message = MessageSerializer.readMessage(new ReadChannel(channel));
+                if (message == null || message.headerType() != MessageHeader.RecordBatch) {
+                    throw new IOException("Invalid record batch at offset " + block.getOffset());
                 }
 
-                DataFrame frame = DataFrame.of(vectors);
-                frames.add(frame);
-                size += frames.size();
+                MappedByteBuffer body = channel.map(FileChannel.MapMode.READ_ONLY, block.getOffset() + block.getMetadataLength(), block.getBodyLength());
+                try (ArrowRecordBatch batch = MessageSerializer.deserializeRecordBatch(message, MappedReferenceManager.wrap(body, allocator))) {
+                    logger.info("read {} rows and {} columns", batch.getLength(), schema.getFields().size());
+                    if (batch.getLength() == 0) continue;
+
+                    // The loaded vectors refer to the mapped region.
+                    VectorSchemaRoot root = VectorSchemaRoot.create(schema, allocator);
+                    new VectorLoader(root).load(batch);
+                    batches.add(root.getFieldVectors());
+                }
             }
 
-            if (frames.isEmpty()) {
-                throw new IllegalStateException("No record batch");
-            } else if (frames.size() == 1) {
-                return frames.get(0);
-            } else {
-                DataFrame df = frames.get(0);
-                return df.union(frames.subList(1, frames.size()).toArray(new DataFrame[frames.size() - 1]));
+            return toDataFrame(batches);
+        }
+    }
+
+    /**
+     * Returns the data frame of record batches.
+     * @param batches the Arrow vectors of non-empty record batches.
+     * @return the data frame.
+     */
+    private DataFrame toDataFrame(List<List<FieldVector>> batches) {
+        if (batches.isEmpty()) {
+            throw new IllegalStateException("No record batch");
+        }
+
+        int p = batches.get(0).size();
+        smile.data.vector.BaseVector[] columns = new smile.data.vector.BaseVector[p];
+        List<Integer> copies = new ArrayList<>();
+        for (int j = 0; j < p; j++) {
+            List<FieldVector> chunks = new ArrayList<>(batches.size());
+            for (List<FieldVector> batch : batches) {
+                chunks.add(batch.get(j));
             }
+
+            columns[j] = wrap(chunks);
+            if (columns[j] == null) {
+                copies.add(j);
+            }
+        }
+
+        if (!copies.isEmpty()) {
+            DataFrame[] frames = new DataFrame[batches.size()];
+            for (int b = 0; b < frames.length; b++) {
+                smile.data.vector.BaseVector[] vectors = new smile.data.vector.BaseVector[copies.size()];
+                for (int k = 0; k < vectors.length; k++) {
+                    try (FieldVector vector = batches.get(b).get(copies.get(k))) {
+                        vectors[k] = copy(vector);
+                    }
+                }
+                frames[b] = DataFrame.of(vectors);
+            }
+
+            DataFrame df = frames.length == 1 ? frames[0] : frames[0].union(Arrays.copyOfRange(frames, 1, frames.length));
+            for (int k = 0; k < copies.size(); k++) {
+                columns[copies.get(k)] = df.column(k);
+            }
+        }
+
+        return DataFrame.of(columns);
+    }
+
+    /**
+     * Returns a vector that wraps the Arrow vectors without copying.
+     * @param chunks the Arrow vectors of a column in record batches.
+     * @return the wrapper vector or null if the type is not supported.
+     */
+    private smile.data.vector.BaseVector wrap(List<FieldVector> chunks) {
+        Field field = chunks.get(0).getField();
+        String name = field.getName();
+        boolean nullable = field.isNullable();
+        ArrowType type = field.getType();
+        switch (type.getTypeID()) {
+            case Int:
+                switch (((ArrowType.Int) type).getBitWidth()) {
+                    case 32:
+                        return nullable ? new ArrowObjectVector<>(name, Integer.class, chunks) : new ArrowIntVector(name, chunks);
+                    case 64:
+                        return nullable ? new ArrowObjectVector<>(name, Long.class, chunks) : new ArrowLongVector(name, chunks);
+                    default:
+                        return null;
+                }
+            case FloatingPoint:
+                switch (((ArrowType.FloatingPoint) type).getPrecision()) {
+                    case DOUBLE:
+                        return nullable ? new ArrowObjectVector<>(name, Double.class, chunks) : new ArrowDoubleVector(name, chunks);
+                    case SINGLE:
+                        return nullable ? new ArrowObjectVector<>(name, Float.class, chunks) : new ArrowFloatVector(name, chunks);
+                    default:
+                        return null;
+                }
+            case Utf8:
+                return new ArrowStringVector(name, chunks);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns an on-heap copy of Arrow vector.
+     * @param vector the Arrow vector.
+     * @return the on-heap copy.
+     */
+    private smile.data.vector.BaseVector copy(FieldVector vector) {
+        ArrowType type = vector.getField().getType();
+        switch (type.getTypeID()) {
+            case Int:
+                ArrowType.Int itype = (ArrowType.Int) type;
+                int bitWidth = itype.getBitWidth();
+                switch (bitWidth) {
+                    case 8:
+                        return readByteField(vector);
+                    case 16:
+                        if (itype.getIsSigned())
+                            return readShortField(vector);
+                        else
+                            return readCharField(vector);
+                    case 32:
+                        return readIntField(vector);
+                    case 64:
+                        return readLongField(vector);
+                    default:
+                        throw new UnsupportedOperationException("Unsupported integer bit width: " + bitWidth);
+                }
+            case FloatingPoint:
+                FloatingPointPrecision precision = ((ArrowType.FloatingPoint) type).getPrecision();
+                switch (precision) {
+                    case DOUBLE:
+                        return readDoubleField(vector);
+                    case SINGLE:
+                        return readFloatField(vector);
+                    default:
+                        throw new UnsupportedOperationException("Unsupported float precision: " + precision);
+                }
+            case Decimal:
+                return readDecimalField(vector);
+            case Bool:
+                return readBitField(vector);
+            case Date:
+                return readDateField(vector);
+            case Time:
+                return readTimeField(vector);
+            case Timestamp:
+                return readDateTimeField(vector);
+            case Binary:
+            case FixedSizeBinary:
+                return readByteArrayField(vector);
+            case Utf8:
+                return readStringField(vector);
+            default: throw new UnsupportedOperationException("Unsupported column type: " + vector.getMinorType());
         }
     }
 
@@ -296,106 +433,141 @@ public class Arrow {
         try (VectorSchemaRoot root = VectorSchemaRoot.create(schema, allocator);
              OutputStream output = Files.newOutputStream(path);
              ArrowStreamWriter writer = new ArrowStreamWriter(root, provider, output)) {
+            write(data, root, writer);
+        }
+    }
+
+    /**
+     * Writes the data frame to an arrow file in the random access
+     * (IPC file) format, which can be memory-mapped by
+     * {@link #readFile(Path)}.
+     *
+     * @param data the data frame.
+     * @param path the output file path.
+     * @throws IOException when fails to write the file.
+     */
+    public void writeFile(DataFrame data, Path path) throws IOException {
+        if (allocator == null) {
+            allocate(Long.MAX_VALUE);
+        }
 
-            writer.start();
-            final int size = data.size();
-            for (int from = 0; from < size; from += batch) {
-                int count = Math.min(batch, size - from);
-                // set the batch row count
-                root.setRowCount(count);
-
-                for (Field field : root.getSchema().getFields()) {
-                    FieldVector vector = root.getVector(field.getName());
-                    DataType type = data.schema().field(field.getName()).type;
-                    switch (type.id()) {
-                        case Integer:
-                            writeIntField(data, vector, from, count);
-                            break;
-                        case Long:
-                            writeLongField(data, vector, from, count);
-                            break;
-                        case Double:
-                            writeDoubleField(data, vector, from, count);
-                            break;
-                        case Float:
-                            writeFloatField(data, vector, from, count);
-                            break;
-                        case Boolean:
-                            writeBooleanField(data, vector, from, count);
-                            break;
-                        case Byte:
-                            writeByteField(data, vector, from, count);
-                            break;
-                        case Short:
-                            writeShortField(data, vector, from, count);
-                            break;
-                        case Char:
-                            writeCharField(data, vector, from, count);
-                            break;
-                        case String:
+        Schema schema = toArrowSchema(data.schema());
+        DictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider();
+        try (VectorSchemaRoot root = VectorSchemaRoot.create(schema, allocator);
+             FileChannel output = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             ArrowFileWriter writer = new ArrowFileWriter(root, provider, output)) {
+            write(data, root, writer);
+        }
+    }
+
+    /**
+     * Writes the data frame in record batches.
+     *
+     * @param data the data frame.
+     * @param root the holder of vectors of a record batch.
+     * @param writer the arrow writer.
+     * @throws IOException when fails to write the file.
+     */
+    private void write(DataFrame data, VectorSchemaRoot root, ArrowWriter writer) throws IOException {
+        writer.start();
+        final int size = data.size();
+        for (int from = 0; from < size; from += batch) {
+            int count = Math.min(batch, size - from);
+            // set the batch row count
+            root.setRowCount(count);
+
+            for (Field field : root.getSchema().getFields()) {
+                FieldVector vector = root.getVector(field.getName());
+                DataType type = data.schema().field(field.getName()).type;
+                switch (type.id()) {
+                    case Integer:
+                        writeIntField(data, vector, from, count);
+                        break;
+                    case Long:
+                        writeLongField(data, vector, from, count);
+                        break;
+                    case Double:
+                        writeDoubleField(data, vector, from, count);
+                        break;
+                    case Float:
+                        writeFloatField(data, vector, from, count);
+                        break;
+                    case Boolean:
+                        writeBooleanField(data, vector, from, count);
+                        break;
+                    case Byte:
+                        writeByteField(data, vector, from, count);
+                        break;
+                    case Short:
+                        writeShortField(data, vector, from, count);
+                        break;
+                    case Char:
+                        writeCharField(data, vector, from, count);
+                        break;
+                    case String:
+                        writeStringField(data, vector, from, count);
+                        break;
+                    case Date:
+                        writeDateField(data, vector, from, count);
+                        break;
+                    case Time:
+                        writeTimeField(data, vector, from, count);
+                        break;
+                    case DateTime:
+                        writeDateTimeField(data, vector, from, count);
+                        break;
+                    case Object: {
+                        Class<?> clazz = ((ObjectType) type).getObjectClass();
+                        if (clazz == Integer.class) {
+                            writeIntObjectField(data, vector, from, count);
+                        } else if (clazz == Long.class) {
+                            writeLongObjectField(data, vector, from, count);
+                        } else if (clazz == Double.class) {
+                            writeDoubleObjectField(data, vector, from, count);
+                        } else if (clazz == Float.class) {
+                            writeFloatObjectField(data, vector, from, count);
+                        } else if (clazz == Boolean.class) {
+                            writeBooleanObjectField(data, vector, from, count);
+                        } else if (clazz == Byte.class) {
+                            writeByteObjectField(data, vector, from, count);
+                        } else if (clazz == Short.class) {
+                            writeShortObjectField(data, vector, from, count);
+                        } else if (clazz == Character.class) {
+                            writeCharObjectField(data, vector, from, count);
+                        } else if (clazz == BigDecimal.class) {
+                            writeDecimalField(data, vector, from, count);
+                        } else if (clazz == String.class) {
                             writeStringField(data, vector, from, count);
-                            break;
-                        case Date:
+                        } else if (clazz == LocalDate.class) {
                             writeDateField(data, vector, from, count);
-                            break;
-                        case Time:
+                        } else if (clazz == LocalTime.class) {
                             writeTimeField(data, vector, from, count);
-                            break;
-                        case DateTime:
+                        } else if (clazz == LocalDateTime.class) {
                             writeDateTimeField(data, vector, from, count);
-                            break;
-                        case Object: {
-                            Class<?> clazz = ((ObjectType) type).getObjectClass();
-                            if (clazz == Integer.class) {
-                                writeIntObjectField(data, vector, from, count);
-                            } else if (clazz == Long.class) {
-                                writeLongObjectField(data, vector, from, count);
-                            } else if (clazz == Double.class) {
-                                writeDoubleObjectField(data, vector, from, count);
-                            } else if (clazz == Float.class) {
-                                writeFloatObjectField(data, vector, from, count);
-                            } else if (clazz == Boolean.class) {
-                                writeBooleanObjectField(data, vector, from, count);
-                            } else if (clazz == Byte.class) {
-                                writeByteObjectField(data, vector, from, count);
-                            } else if (clazz == Short.class) {
-                                writeShortObjectField(data, vector, from, count);
-                            } else if (clazz == Character.class) {
-                                writeCharObjectField(data, vector, from, count);
-                            } else if (clazz == BigDecimal.class) {
-                                writeDecimalField(data, vector, from, count);
-                            } else if (clazz == String.class) {
-                                writeStringField(data, vector, from, count);
-                            } else if (clazz == LocalDate.class) {
-                                writeDateField(data, vector, from, count);
-                            } else if (clazz == LocalTime.class) {
-                                writeTimeField(data, vector, from, count);
-                            } else if (clazz == LocalDateTime.class) {
-                                writeDateTimeField(data, vector, from, count);
-                            } else {
-                                throw new UnsupportedOperationException("Unsupported type: " + type);
-                            }
-                            break;
-                        }
-                        case Array: {
-                            DataType etype = ((ArrayType) type).getComponentType();
-                            if (etype.id() == DataType.ID.Byte) {
-                                writeByteArrayField(data, vector, from, count);
-                            } else {
-                                throw new UnsupportedOperationException("Unsupported type: " + type);
-                            }
-                            break;
+                        } else {
+                            throw new UnsupportedOperationException("Unsupported type: " + type);
                         }
-
-                        default:
+                        break;
+                    }
+                    case Array: {
+                        DataType etype = ((ArrayType) type).getComponentType();
+                        if (etype.id() == DataType.ID.Byte) {
+                            writeByteArrayField(data, vector, from, count);
+                        } else {
                             throw new UnsupportedOperationException("Unsupported type: " + type);
+                        }
+                        break;
                     }
-                }
 
-                writer.writeBatch();
-                logger.info("write {} rows", count);
+                    default:
+                        throw new UnsupportedOperationException("Unsupported type: " + type);
+                }
             }
+
+            writer.writeBatch();
+            logger.info("write {} rows", count);
         }
+        writer.end();
     }
 
     /** Reads a boolean column. */
@@ -722,7 +894,7 @@ public class Arrow {
             if (vector.isNull(i))
                 a[i] = null;
             else
-                a[i] = new String(vector.get(i));
+                a[i] = new String(vector.get(i), StandardCharsets.UTF_8);
         }
 
         return smile.data.vector.Vector.of(fieldVector.getField().getName(), DataTypes.StringType, a);
@@ -750,7 +922,7 @@ public class Arrow {
         IntVector vector = (IntVector) fieldVector;
         smile.data.vector.Vector<Integer> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Integer x = column.get(i);
+            Integer x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -784,7 +956,7 @@ public class Arrow {
         BitVector vector = (BitVector) fieldVector;
         smile.data.vector.Vector<Boolean> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Boolean x = column.get(i);
+            Boolean x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -818,7 +990,7 @@ public class Arrow {
         UInt2Vector vector = (UInt2Vector) fieldVector;
         smile.data.vector.Vector<Character> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Character x = column.get(i);
+            Character x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -852,7 +1024,7 @@ public class Arrow {
         TinyIntVector vector = (TinyIntVector) fieldVector;
         smile.data.vector.Vector<Byte> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Byte x = column.get(i);
+            Byte x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -886,7 +1058,7 @@ public class Arrow {
         SmallIntVector vector = (SmallIntVector) fieldVector;
         smile.data.vector.Vector<Short> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Short x = column.get(i);
+            Short x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -920,7 +1092,7 @@ public class Arrow {
         BigIntVector vector = (BigIntVector) fieldVector;
         smile.data.vector.Vector<Long> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Long x = column.get(i);
+            Long x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -954,7 +1126,7 @@ public class Arrow {
         Float4Vector vector  = (Float4Vector) fieldVector;
         smile.data.vector.Vector<Float> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Float x = column.get(i);
+            Float x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -988,7 +1160,7 @@ public class Arrow {
         Float8Vector vector  = (Float8Vector) fieldVector;
         smile.data.vector.Vector<Double> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Double x = column.get(i);
+            Double x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.io;
+
+import java.util.List;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import smile.data.vector.BaseVector;
+import smile.data.vector.FloatVector;
+
+/**
+ * A float vector that wraps non-nullable Arrow Float4Vector without copying.
+ *
+ * @author Haifeng Li
+ */
+class ArrowFloatVector extends ArrowVector implements FloatVector {
+    private static final long serialVersionUID = 1L;
+
+    /** The data buffers of chunks. */
+    private final transient ArrowBuf[] data;
+
+    /**
+     * Constructor.
+     * @param name the name of vector.
+     * @param chunks the non-empty Arrow vectors of record batches.
+     */
+    public ArrowFloatVector(String name, List<FieldVector> chunks) {
+        super(name, chunks);
+        data = new ArrowBuf[this.chunks.length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = this.chunks[i].getDataBuffer();
+        }
+    }
+
+    @Override
+    BaseVector onHeap() {
+        return FloatVector.of(name, array());
+    }
+
+    @Override
+    public float[] array() {
+        float[] a = new float[size];
+        for (int i = 0; i < size; i++) a[i] = getFloat(i);
+        return a;
+    }
+
+    @Override
+    public double[] toDoubleArray(double[] a) {
+        for (int i = 0; i < size; i++) a[i] = getFloat(i);
+        return a;
+    }
+
+    @Override
+    public float getFloat(int i) {
+        int c = chunk(i);
+        return data[c].getFloat((long) local(c, i) * 4);
+    }
+
+    @Override
+    public Float get(int i) {
+        return getFloat(i);
+    }
+
+    @Override
+    public FloatVector get(int... index) {
+        float[] v = new float[index.length];
+        for (int i = 0; i < index.length; i++) v[i] = getFloat(index[i]);
+        return FloatVector.of(name, v);
+    }
+
+    @Override
+    public DoubleStream stream() {
+        return IntStream.range(0, size).mapToDouble(this::getFloat);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.io;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.vector.FieldVector;
+import smile.data.vector.BaseVector;
+import smile.data.vector.IntVector;
+
+/**
+ * An int vector that wraps non-nullable Arrow IntVector without copying.
+ *
+ * @author Haifeng Li
+ */
+class ArrowIntVector extends ArrowVector implements IntVector {
+    private static final long serialVersionUID = 1L;
+
+    /** The data buffers of chunks. */
+    private final transient ArrowBuf[] data;
+
+    /**
+     * Constructor.
+     * @param name the name of vector.
+     * @param chunks the non-empty Arrow vectors of record batches.
+     */
+    public ArrowIntVector(String name, List<FieldVector> chunks) {
+        super(name, chunks);
+        data = new ArrowBuf[this.chunks.length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = this.chunks[i].getDataBuffer();
+        }
+    }
+
+    @Override
+    BaseVector onHeap() {
+        return IntVector.of(name, array());
+    }
+
+    @Override
+    public int[] array() {
+        int[] a = new int[size];
+        for (int i = 0; i < size; i++) a[i] = getInt(i);
+        return a;
+    }
+
+    @Override
+    public int[] toIntArray(int[] a) {
+        for (int i = 0; i < size; i++) a[i] = getInt(i);
+        return a;
+    }
+
+    @Override
+    public double[] toDoubleArray(double[] a) {
+        for (int i = 0; i < size; i++) a[i] = getInt(i);
+        return a;
+    }
+
+    @Override
+    public int getInt(int i) {
+        int c = chunk(i);
+        return data[c].getInt((long) local(c, i) * 4);
+    }
+
+    @Override
+    public Integer get(int i) {
+        return getInt(i);
+    }
+
+    @Override
+    public IntVector get(int... index) {
+        int[] v = new int[index.length];
+        for (int i = 0; i < index.length; i++) v[i] = getInt(index[i]);
+        return IntVector.of(name, v);
+    }
+
+    @Override
+    public IntStream stream() {
+        return IntStream.range(0, size).map(this::getInt);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
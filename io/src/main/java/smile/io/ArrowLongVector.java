@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.io;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.BigIntVector;
+import smile.data.vector.BaseVector;
+import smile.data.vector.LongVector;
+
+/**
+ * A long vector that wraps non-nullable Arrow BigIntVector without copying.
+ *
+ * @author Haifeng Li
+ */
+class ArrowLongVector extends ArrowVector implements LongVector {
+    private static final long serialVersionUID = 1L;
+
+    /** The data buffers of chunks. */
+    private final transient ArrowBuf[] data;
+
+    /**
+     * Constructor.
+     * @param name the name of vector.
+     * @param chunks the non-empty Arrow vectors of record batches.
+     */
+    public ArrowLongVector(String name, List<FieldVector> chunks) {
+        super(name, chunks);
+        data = new ArrowBuf[this.chunks.length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = this.chunks[i].getDataBuffer();
+        }
+    }
+
+    @Override
+    BaseVector onHeap() {
+        return LongVector.of(name, array());
+    }
+
+    @Override
+    public long[] array() {
+        long[] a = new long[size];
+        for (int i = 0; i < size; i++) a[i] = getLong(i);
+        return a;
+    }
+
+    @Override
+    public double[] toDoubleArray(double[] a) {
+        for (int i = 0; i < size; i++) a[i] = getLong(i);
+        return a;
+    }
+
+    @Override
+    public long getLong(int i) {
+        int c = chunk(i);
+        return data[c].getLong((long) local(c, i) * 8);
+    }
+
+    @Override
+    public Long get(int i) {
+        return getLong(i);
+    }
+
+    @Override
+    public LongVector get(int... index) {
+        long[] v = new long[index.length];
+        for (int i = 0; i < index.length; i++) v[i] = getLong(index[i]);
+        return LongVector.of(name, v);
+    }
+
+    @Override
+    public LongStream stream() {
+        return IntStream.range(0, size).mapToLong(this::getLong);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
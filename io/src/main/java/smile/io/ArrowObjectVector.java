@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.io;
+
+import java.lang.reflect.Array;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.apache.arrow.vector.FieldVector;
+import smile.data.type.DataType;
+import smile.data.type.DataTypes;
+import smile.data.vector.BaseVector;
+import smile.data.vector.Vector;
+
+/**
+ * A vector of boxed values that wraps nullable Arrow vectors without
+ * copying. The values are boxed on access by the Arrow vector's
+ * <code>getObject</code>.
+ *
+ * @param <T> the type of vector elements.
+ *
+ * @author Haifeng Li
+ */
+class ArrowObjectVector<T> extends ArrowVector implements Vector<T> {
+    private static final long serialVersionUID = 1L;
+
+    /** The class of elements. */
+    private final Class<T> clazz;
+    /** The data type of elements. */
+    private final DataType type;
+
+    /**
+     * Constructor.
+     * @param name the name of vector.
+     * @param clazz the class of elements.
+     * @param chunks the non-empty Arrow vectors of record batches.
+     */
+    public ArrowObjectVector(String name, Class<T> clazz, List<FieldVector> chunks) {
+        super(name, chunks);
+        this.clazz = clazz;
+        this.type = DataTypes.object(clazz);
+    }
+
+    @Override
+    BaseVector onHeap() {
+        return Vector.of(name, type, toArray());
+    }
+
+    @Override
+    public DataType type() {
+        return type;
+    }
+
+    @Override
+    public Object array() {
+        return toArray();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T[] toArray() {
+        T[] a = (T[]) Array.newInstance(clazz, size);
+        for (int i = 0; i < size; i++) a[i] = get(i);
+        return a;
+    }
+
+    @Override
+    public double[] toDoubleArray(double[] a) {
+        if (!type.isNumeric()) throw new UnsupportedOperationException(name + ":" + type);
+        for (int i = 0; i < size; i++) a[i] = getDouble(i);
+        return a;
+    }
+
+    @Override
+    public int[] toIntArray(int[] a) {
+        if (!type.isIntegral()) throw new UnsupportedOperationException(name + ":" + type);
+        for (int i = 0; i < size; i++) {
+            Number n = (Number) get(i);
+            a[i] = n == null ? Integer.MIN_VALUE : n.intValue();
+        }
+        return a;
+    }
+
+    @Override
+    public T get(int i) {
+        int c = chunk(i);
+        return clazz.cast(chunks[c].getObject(local(c, i)));
+    }
+
+    @Override
+    public boolean isNullAt(int i) {
+        int c = chunk(i);
+        return chunks[c].isNull(local(c, i));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Vector<T> get(int... index) {
+        T[] v = (T[]) Array.newInstance(clazz, index.length);
+        for (int i = 0; i < index.length; i++) v[i] = get(index[i]);
+        return Vector.of(name, type, v);
+    }
+
+    @Override
+    public Vector<LocalDate> toDate() {
+        return Vector.of(name, type, toArray()).toDate();
+    }
+
+    @Override
+    public Vector<LocalTime> toTime() {
+        return Vector.of(name, type, toArray()).toTime();
+    }
+
+    @Override
+    public Vector<LocalDateTime> toDateTime() {
+        return Vector.of(name, type, toArray()).toDateTime();
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return IntStream.range(0, size).mapToObj(this::get);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
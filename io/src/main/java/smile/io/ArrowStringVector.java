@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.io;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VarCharVector;
+import smile.data.measure.CategoricalMeasure;
+import smile.data.measure.NominalScale;
+import smile.data.type.DataType;
+import smile.data.type.DataTypes;
+import smile.data.vector.BaseVector;
+import smile.data.vector.StringVector;
+import smile.data.vector.Vector;
+
+/**
+ * A string vector that wraps Arrow VarCharVector without copying.
+ * The strings are decoded from UTF-8 on access. The conversions
+ * to other types work on an on-heap copy.
+ *
+ * @author Haifeng Li
+ */
+class ArrowStringVector extends ArrowVector implements StringVector {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor.
+     * @param name the name of vector.
+     * @param chunks the non-empty Arrow vectors of record batches.
+     */
+    public ArrowStringVector(String name, List<FieldVector> chunks) {
+        super(name, chunks);
+    }
+
+    @Override
+    StringVector onHeap() {
+        return StringVector.of(name, toArray());
+    }
+
+    @Override
+    public DataType type() {
+        return DataTypes.StringType;
+    }
+
+    @Override
+    public Object array() {
+        return toArray();
+    }
+
+    @Override
+    public String[] toArray() {
+        String[] a = new String[size];
+        for (int i = 0; i < size; i++) a[i] = get(i);
+        return a;
+    }
+
+    @Override
+    public String get(int i) {
+        int c = chunk(i);
+        VarCharVector vector = (VarCharVector) chunks[c];
+        int j = local(c, i);
+        return vector.isNull(j) ? null : new String(vector.get(j), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean isNullAt(int i) {
+        int c = chunk(i);
+        return chunks[c].isNull(local(c, i));
+    }
+
+    @Override
+    public StringVector get(int... index) {
+        String[] v = new String[index.length];
+        for (int i = 0; i < index.length; i++) v[i] = get(index[i]);
+        return StringVector.of(name, v);
+    }
+
+    @Override
+    public Vector<LocalDate> toDate() {
+        return onHeap().toDate();
+    }
+
+    @Override
+    public Vector<LocalDate> toDate(DateTimeFormatter format) {
+        return onHeap().toDate(format);
+    }
+
+    @Override
+    public Vector<LocalTime> toTime() {
+        return onHeap().toTime();
+    }
+
+    @Override
+    public Vector<LocalTime> toTime(DateTimeFormatter format) {
+        return onHeap().toTime(format);
+    }
+
+    @Override
+    public Vector<LocalDateTime> toDateTime() {
+        return onHeap().toDateTime();
+    }
+
+    @Override
+    public Vector<LocalDateTime> toDateTime(DateTimeFormatter format) {
+        return onHeap().toDateTime(format);
+    }
+
+    @Override
+    public NominalScale nominal() {
+        return onHeap().nominal();
+    }
+
+    @Override
+    public BaseVector factorize(CategoricalMeasure scale) {
+        return onHeap().factorize(scale);
+    }
+
+    @Override
+    public Stream<String> stream() {
+        return IntStream.range(0, size).mapToObj(this::get);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
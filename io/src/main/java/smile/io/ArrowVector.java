@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.io;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.arrow.vector.FieldVector;
+import smile.data.vector.BaseVector;
+
+/**
+ * The base class of Smile vectors that wrap Arrow vectors without
+ * copying. A column of an Arrow file may consist of several record
+ * batches, which are kept as chunks and addressed by the global row
+ * index. The Arrow buffers are released when the wrapper is garbage
+ * collected. When serialized, the vector is replaced by an on-heap
+ * copy.
+ *
+ * @author Haifeng Li
+ */
+abstract class ArrowVector implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** The queue of garbage collected wrappers. */
+    private static final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    /** The pending releases of Arrow vectors. */
+    private static final Set<Release> releases = ConcurrentHashMap.newKeySet();
+
+    /** The name of vector. */
+    final String name;
+    /** The number of elements. */
+    final int size;
+    /** The Arrow vectors of record batches. */
+    final transient FieldVector[] chunks;
+    /** The global index of first element of each chunk. */
+    private final transient int[] start;
+
+    /**
+     * Constructor.
+     * @param name the name of vector.
+     * @param chunks the non-empty Arrow vectors of record batches.
+     */
+    ArrowVector(String name, List<FieldVector> chunks) {
+        this.name = name;
+        this.chunks = chunks.toArray(new FieldVector[0]);
+        this.start = new int[this.chunks.length];
+
+        long n = 0;
+        for (int i = 0; i < this.chunks.length; i++) {
+            start[i] = (int) n;
+            n += this.chunks[i].getValueCount();
+        }
+
+        if (n > Integer.MAX_VALUE) {
+            throw new UnsupportedOperationException("Too many rows: " + n);
+        }
+        this.size = (int) n;
+
+        expunge();
+        releases.add(new Release(this, this.chunks));
+    }
+
+    /**
+     * Returns the (optional) name of vector.
+     * @return the (optional) name of vector.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the number of elements in the vector.
+     * @return the number of elements in the vector.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the chunk of element i.
+     * @param i the global index of element.
+     * @return the index of chunk.
+     */
+    final int chunk(int i) {
+        if (start.length == 1) return 0;
+        int c = Arrays.binarySearch(start, i);
+        return c >= 0 ? c : -c - 2;
+    }
+
+    /**
+     * Returns the index of element i in its chunk.
+     * @param c the index of chunk.
+     * @param i the global index of element.
+     * @return the local index.
+     */
+    final int local(int c, int i) {
+        return i - start[c];
+    }
+
+    /**
+     * Returns an on-heap copy of this vector.
+     * @return an on-heap copy of this vector.
+     */
+    abstract BaseVector onHeap();
+
+    /**
+     * Replaces this vector with an on-heap copy in serialization
+     * as the Arrow buffers cannot be serialized.
+     * @return an on-heap copy of this vector.
+     * @throws ObjectStreamException never.
+     */
+    Object writeReplace() throws ObjectStreamException {
+        return onHeap();
+    }
+
+    /** Releases the Arrow vectors of garbage collected wrappers. */
+    private static void expunge() {
+        for (Reference<?> ref; (ref = queue.poll()) != null; ) {
+            Release release = (Release) ref;
+            releases.remove(release);
+            for (FieldVector chunk : release.chunks) {
+                chunk.close();
+            }
+        }
+    }
+
+    /** The Arrow vectors to release after the wrapper is garbage collected. */
+    private static class Release extends PhantomReference<Object> {
+        /** The Arrow vectors. */
+        final FieldVector[] chunks;
+
+        /**
+         * Constructor.
+         * @param wrapper the wrapper vector.
+         * @param chunks the wrapped Arrow vectors.
+         */
+        Release(Object wrapper, FieldVector[] chunks) {
+            super(wrapper, queue);
+            this.chunks = chunks;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -54,6 +55,8 @@ public class CSV {
     private final CSVFormat format;
     /** Charset of file. */
     private Charset charset = StandardCharsets.UTF_8;
+    /** The size of chunks in bytes for parallel parsing. */
+    private int chunkSize = 64 * 1024 * 1024;
 
     /**
      * Constructor.
@@ -92,6 +95,86 @@ public class CSV {
         return this;
     }
 
+    /**
+     * Sets the size of chunks for parallel parsing.
+     * @param size the size of chunks in bytes.
+     * @return this object.
+     */
+    public CSV chunkSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + size);
+        }
+
+        this.chunkSize = size;
+        return this;
+    }
+
+    /**
+     * Reads a CSV file in parallel. The file is split into byte-range
+     * chunks aligned on line boundaries, which are parsed concurrently
+     * straight into column buffers. The integer and floating columns
+     * are parsed without creating String objects.
+     * <p>
+     * The quoted values must not contain line breaks and the escape
+     * character is not supported. The charset must be ASCII compatible,
+     * e.g. UTF-8. For other charsets, this method falls back to the
+     * sequential parser.
+     *
+     * @param path the input file path.
+     * @throws IOException when fails to read the file.
+     * @return the data frame.
+     */
+    public DataFrame readParallel(Path path) throws IOException {
+        if (!isAsciiCompatible()) {
+            return read(path);
+        }
+
+        return chunkReader(path).read();
+    }
+
+    /**
+     * Returns an iterator of data frames over a CSV file for out-of-core
+     * processing. Each data frame holds the rows in a chunk of about
+     * {@code chunkSize} bytes. The chunks ahead of the consumer are parsed
+     * in parallel. As the missing values are detected per chunk, a column
+     * of primitive type may be boxed in some data frames only.
+     * See {@link #readParallel(Path)} for the restrictions of the format.
+     *
+     * @param path the input file path.
+     * @throws IOException when fails to read the file.
+     * @return the iterator of data frames.
+     */
+    public Iterator<DataFrame> iterator(Path path) throws IOException {
+        if (!isAsciiCompatible()) {
+            return Collections.singletonList(read(path)).iterator();
+        }
+
+        return chunkReader(path).iterator();
+    }
+
+    /**
+     * Returns the chunk reader of a file.
+     * @param path the input file path.
+     * @return the chunk reader.
+     */
+    private CSVChunkReader chunkReader(Path path) throws IOException {
+        if (schema == null) {
+            // infer the schema from top 1000 rows.
+            schema = inferSchema(Files.newBufferedReader(path, charset), 1000);
+        }
+
+        return new CSVChunkReader(path, format, schema, charset, chunkSize);
+    }
+
+    /**
+     * Returns true if the charset encodes ASCII characters as single
+     * bytes and never uses the bytes of ASCII in other characters.
+     */
+    private boolean isAsciiCompatible() {
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
     /**
      * Reads a CSV file.
      * @param path the input file path.
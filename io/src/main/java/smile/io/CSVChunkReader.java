@@ -0,0 +1,691 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.commons.csv.CSVFormat;
+import smile.data.DataFrame;
+import smile.data.type.StructField;
+import smile.data.type.StructType;
+import smile.data.vector.*;
+
+/**
+ * Parses a CSV file in byte-range chunks in parallel. The chunks are
+ * aligned on line boundaries, i.e. a chunk consists of the lines that
+ * start in its byte range. Each chunk is parsed straight into primitive
+ * column buffers. The integer and floating columns without nominal or
+ * numerical measure are parsed from the bytes without creating String
+ * objects.
+ * <p>
+ * As the chunks are split at line breaks, the quoted values must not
+ * contain line breaks. The charset must be ASCII compatible, e.g.
+ * UTF-8 or ISO-8859-1, so that the delimiters, quotes and line breaks
+ * are single bytes. The escape character is not supported.
+ *
+ * @author Haifeng Li
+ */
+class CSVChunkReader {
+    /** The column parsed as int. */
+    private static final int INT = 0;
+    /** The column parsed as long. */
+    private static final int LONG = 1;
+    /** The column parsed as double. */
+    private static final int DOUBLE = 2;
+    /** The column parsed by the field's valueOf. */
+    private static final int OBJECT = 3;
+    /** The powers of 10 that are exactly representable in double. */
+    private static final double[] POW10 = {
+            1E0, 1E1, 1E2, 1E3, 1E4, 1E5, 1E6, 1E7, 1E8, 1E9, 1E10, 1E11,
+            1E12, 1E13, 1E14, 1E15, 1E16, 1E17, 1E18, 1E19, 1E20, 1E21, 1E22
+    };
+
+    /** The file path. */
+    private final Path path;
+    /** The data schema. */
+    private final StructType schema;
+    /** The charset of file. */
+    private final Charset charset;
+    /** The field delimiter. */
+    private final byte delimiter;
+    /** The quote character or -1 if quoting is disabled. */
+    private final int quote;
+    /** The comment marker or -1 if comments are disabled. */
+    private final int comment;
+    /** True if the empty lines are skipped. */
+    private final boolean ignoreEmptyLines;
+    /** True if the first record is the header. */
+    private final boolean skipHeader;
+    /** The size of chunks in bytes. */
+    private final int chunkSize;
+    /** The parsing method of each column. */
+    private final int[] kind;
+    /** The file size. */
+    private final long fileSize;
+
+    /**
+     * Constructor.
+     * @param path the file path.
+     * @param format the CSV file format.
+     * @param schema the data schema.
+     * @param charset the charset of file.
+     * @param chunkSize the size of chunks in bytes.
+     */
+    CSVChunkReader(Path path, CSVFormat format, StructType schema, Charset charset, int chunkSize) throws IOException {
+        if (format.getEscapeCharacter() != null) {
+            throw new UnsupportedOperationException("Escape character is not supported in chunked CSV parsing");
+        }
+
+        this.path = path;
+        this.schema = schema;
+        this.charset = charset;
+        this.chunkSize = chunkSize;
+        this.delimiter = (byte) format.getDelimiter();
+        this.quote = format.getQuoteCharacter() == null ? -1 : format.getQuoteCharacter();
+        this.comment = format.getCommentMarker() == null ? -1 : format.getCommentMarker();
+        this.ignoreEmptyLines = format.getIgnoreEmptyLines();
+        String[] header = format.getHeader();
+        this.skipHeader = header != null && (header.length == 0 || format.getSkipHeaderRecord());
+
+        StructField[] fields = schema.fields();
+        kind = new int[fields.length];
+        for (int j = 0; j < fields.length; j++) {
+            StructField field = fields[j];
+            kind[j] = OBJECT;
+            if (field.measure == null) {
+                switch (field.type.id()) {
+                    case Integer: kind[j] = INT; break;
+                    case Long: kind[j] = LONG; break;
+                    case Double: kind[j] = DOUBLE; break;
+                }
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            fileSize = channel.size();
+        }
+    }
+
+    /**
+     * Returns the number of chunks.
+     * @return the number of chunks.
+     */
+    int chunks() {
+        return (int) Math.max(1, (fileSize + chunkSize - 1) / chunkSize);
+    }
+
+    /**
+     * Reads the whole file into a data frame. The chunks are parsed
+     * in parallel.
+     * @return the data frame.
+     */
+    DataFrame read() {
+        List<Batch> batches = IntStream.range(0, chunks()).parallel()
+                .mapToObj(this::parse)
+                .collect(Collectors.toList());
+        return toDataFrame(batches);
+    }
+
+    /**
+     * Returns an iterator of data frames, one for each non-empty chunk.
+     * The chunks ahead of the consumer are parsed in parallel, bounded
+     * by the parallelism of common pool.
+     * @return the iterator of data frames.
+     */
+    Iterator<DataFrame> iterator() {
+        int window = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+        return new Iterator<DataFrame>() {
+            /** The next chunk to submit. */
+            int chunk = 0;
+            /** The chunks being parsed. */
+            final ArrayDeque<CompletableFuture<Batch>> queue = new ArrayDeque<>();
+            /** The next non-empty batch. */
+            Batch next = advance();
+
+            /** Returns the next non-empty batch or null. */
+            Batch advance() {
+                while (true) {
+                    while (chunk < chunks() && queue.size() < window) {
+                        final int i = chunk++;
+                        queue.add(CompletableFuture.supplyAsync(() -> parse(i)));
+                    }
+
+                    if (queue.isEmpty()) return null;
+                    Batch batch = join(queue.poll());
+                    if (batch.size > 0) return batch;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public DataFrame next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+
+                DataFrame data = toDataFrame(Collections.singletonList(next));
+                next = advance();
+                return data;
+            }
+        };
+    }
+
+    /**
+     * Waits for a parsing task and unwraps its exception.
+     */
+    private static Batch join(CompletableFuture<Batch> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Parses a chunk.
+     * @param chunk the chunk index.
+     * @return the parsed rows.
+     */
+    private Batch parse(int chunk) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long begin = (long) chunk * chunkSize;
+            long end = Math.min(fileSize, begin + chunkSize);
+            // reads one more byte ahead to check if begin is a line start.
+            long from = Math.max(0, begin - 1);
+            byte[] buffer = read(channel, from, (int) (end - from), new byte[(int) (end - from)]);
+            int length = buffer.length;
+
+            int start = 0;
+            if (begin > 0) {
+                while (start < length && buffer[start] != '\n') start++;
+                start++;
+            }
+
+            Batch batch = new Batch(kind, Math.max(16, (length - start) / 32));
+            if (start >= length) return batch;
+
+            // extends the buffer to the end of the last line.
+            if (end < fileSize && buffer[length - 1] != '\n') {
+                long position = end;
+                int tail = length;
+                do {
+                    int size = (int) Math.min(1 << 16, fileSize - position);
+                    buffer = Arrays.copyOf(buffer, tail + size);
+                    read(channel, position, size, ByteBuffer.wrap(buffer, tail, size));
+                    int i = tail;
+                    while (i < tail + size && buffer[i] != '\n') i++;
+                    position += size;
+                    if (i < tail + size) {
+                        length = i + 1;
+                        break;
+                    }
+                    tail += size;
+                    length = tail;
+                } while (position < fileSize);
+            }
+
+            parse(buffer, start, length, chunk == 0 && skipHeader, batch);
+            return batch;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Reads a region of file into the array.
+     */
+    private static byte[] read(FileChannel channel, long position, int size, byte[] buffer) throws IOException {
+        read(channel, position, size, ByteBuffer.wrap(buffer, 0, size));
+        return buffer;
+    }
+
+    /**
+     * Reads a region of file into the buffer.
+     */
+    private static void read(FileChannel channel, long position, int size, ByteBuffer buffer) throws IOException {
+        int n = 0;
+        while (n < size) {
+            int k = channel.read(buffer, position + n);
+            if (k < 0) throw new EOFException();
+            n += k;
+        }
+    }
+
+    /**
+     * Parses the lines in the buffer.
+     * @param b the buffer.
+     * @param start the start of first line.
+     * @param end the end of last line.
+     * @param header true if the first record is the header.
+     * @param batch the output rows.
+     */
+    private void parse(byte[] b, int start, int end, boolean header, Batch batch) {
+        int p = kind.length;
+        byte[] scratch = new byte[256];
+
+        for (int ls = start; ls < end; ) {
+            int le = ls;
+            while (le < end && b[le] != '\n') le++;
+            int next = le + 1;
+            if (le > ls && b[le - 1] == '\r') le--;
+
+            if (le == ls && ignoreEmptyLines) {
+                ls = next;
+                continue;
+            }
+
+            if (comment >= 0 && le > ls && b[ls] == comment) {
+                ls = next;
+                continue;
+            }
+
+            if (header) {
+                header = false;
+                ls = next;
+                continue;
+            }
+
+            int row = batch.add();
+            int pos = ls;
+            for (int j = 0; j < p; j++) {
+                if (pos > le) {
+                    batch.setNull(j, row);
+                    continue;
+                }
+
+                byte[] a = b;
+                int lo, hi;
+                if (quote >= 0 && pos < le && b[pos] == quote) {
+                    // copies the quoted value with doubled quotes unescaped.
+                    int n = 0;
+                    int i = pos + 1;
+                    while (i < le) {
+                        if (b[i] == quote) {
+                            if (i + 1 < le && b[i + 1] == quote) {
+                                i++;
+                            } else {
+                                break;
+                            }
+                        }
+                        if (n == scratch.length) scratch = Arrays.copyOf(scratch, 2 * n);
+                        scratch[n++] = b[i++];
+                    }
+                    while (i < le && b[i] != delimiter) i++;
+                    a = scratch;
+                    lo = 0;
+                    hi = n;
+                    pos = i + 1;
+                } else {
+                    int i = pos;
+                    while (i < le && b[i] != delimiter) i++;
+                    lo = pos;
+                    hi = i;
+                    pos = i + 1;
+                }
+
+                while (lo < hi && (a[lo] & 0xFF) <= ' ') lo++;
+                while (hi > lo && (a[hi - 1] & 0xFF) <= ' ') hi--;
+
+                if (lo == hi) {
+                    batch.setNull(j, row);
+                    continue;
+                }
+
+                switch (kind[j]) {
+                    case INT:
+                        batch.ints[j][row] = parseInt(a, lo, hi);
+                        break;
+                    case LONG:
+                        batch.longs[j][row] = parseLong(a, lo, hi);
+                        break;
+                    case DOUBLE:
+                        batch.doubles[j][row] = parseDouble(a, lo, hi);
+                        break;
+                    default:
+                        batch.objects[j][row] = schema.field(j).valueOf(new String(a, lo, hi - lo, charset));
+                }
+            }
+
+            ls = next;
+        }
+    }
+
+    /**
+     * Parses an int value.
+     */
+    private static int parseInt(byte[] b, int start, int end) {
+        long value = parseLong(b, start, end);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + new String(b, start, end - start) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a long value.
+     */
+    private static long parseLong(byte[] b, int start, int end) {
+        int i = start;
+        boolean negative = b[i] == '-';
+        if (negative || b[i] == '+') i++;
+
+        // 18 digits never overflow long.
+        if (i == end || end - i > 18) {
+            return Long.parseLong(new String(b, start, end - start));
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("For input string: \"" + new String(b, start, end - start) + "\"");
+            }
+            value = value * 10 + d;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a double value. The decimals with at most 15 significant
+     * digits and small exponent are converted exactly by one floating
+     * multiplication or division of exact operands. Other strings
+     * fall back to Double.parseDouble.
+     */
+    private static double parseDouble(byte[] b, int start, int end) {
+        int i = start;
+        boolean negative = b[i] == '-';
+        if (negative || b[i] == '+') i++;
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean any = false;
+        for (; i < end && b[i] >= '0' && b[i] <= '9'; i++) {
+            any = true;
+            if (mantissa > 0 || b[i] != '0') {
+                mantissa = mantissa * 10 + (b[i] - '0');
+                digits++;
+            }
+        }
+
+        if (i < end && b[i] == '.') {
+            for (i++; i < end && b[i] >= '0' && b[i] <= '9'; i++) {
+                any = true;
+                if (mantissa > 0 || b[i] != '0') {
+                    mantissa = mantissa * 10 + (b[i] - '0');
+                    digits++;
+                }
+                scale--;
+            }
+        }
+
+        if (any && i < end && (b[i] == 'e' || b[i] == 'E')) {
+            i++;
+            boolean negativeExponent = i < end && b[i] == '-';
+            if (i < end && (b[i] == '-' || b[i] == '+')) i++;
+            int exponent = 0;
+            int start2 = i;
+            for (; i < end && b[i] >= '0' && b[i] <= '9' && exponent < 10000; i++) {
+                exponent = exponent * 10 + (b[i] - '0');
+            }
+            if (i == start2) any = false;
+            scale += negativeExponent ? -exponent : exponent;
+        }
+
+        if (!any || i != end || digits > 15 || scale < -22 || scale > 22) {
+            return Double.parseDouble(new String(b, start, end - start));
+        }
+
+        double value = scale < 0 ? mantissa / POW10[-scale] : mantissa * POW10[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns the data frame of the rows in the batches.
+     * @param batches the parsed batches.
+     * @return the data frame.
+     */
+    private DataFrame toDataFrame(List<Batch> batches) {
+        int n = batches.stream().mapToInt(batch -> batch.size).sum();
+        StructField[] fields = schema.fields();
+        BaseVector[] columns = new BaseVector[fields.length];
+        for (int j = 0; j < fields.length; j++) {
+            StructField field = fields[j];
+            boolean[] missing = new boolean[n];
+            boolean hasMissing = false;
+            int offset = 0;
+            for (Batch batch : batches) {
+                if (batch.nulls[j] != null) {
+                    hasMissing = true;
+                    System.arraycopy(batch.nulls[j], 0, missing, offset, batch.size);
+                }
+                offset += batch.size;
+            }
+
+            if (kind[j] == OBJECT) {
+                Object[] values = new Object[n];
+                offset = 0;
+                for (Batch batch : batches) {
+                    System.arraycopy(batch.objects[j], 0, values, offset, batch.size);
+                    offset += batch.size;
+                }
+                columns[j] = vector(field, values, hasMissing);
+                continue;
+            }
+
+            Object values;
+            switch (kind[j]) {
+                case INT: values = new int[n]; break;
+                case LONG: values = new long[n]; break;
+                default: values = new double[n];
+            }
+
+            offset = 0;
+            for (Batch batch : batches) {
+                Object a = kind[j] == INT ? batch.ints[j] : kind[j] == LONG ? batch.longs[j] : batch.doubles[j];
+                System.arraycopy(a, 0, values, offset, batch.size);
+                offset += batch.size;
+            }
+
+            if (!hasMissing) {
+                switch (kind[j]) {
+                    case INT: columns[j] = IntVector.of(field, (int[]) values); break;
+                    case LONG: columns[j] = LongVector.of(field, (long[]) values); break;
+                    default: columns[j] = DoubleVector.of(field, (double[]) values);
+                }
+            } else {
+                Object[] boxed = new Object[n];
+                for (int i = 0; i < n; i++) {
+                    if (!missing[i]) {
+                        switch (kind[j]) {
+                            case INT: boxed[i] = ((int[]) values)[i]; break;
+                            case LONG: boxed[i] = ((long[]) values)[i]; break;
+                            default: boxed[i] = ((double[]) values)[i];
+                        }
+                    }
+                }
+                columns[j] = vector(field, boxed, true);
+            }
+        }
+
+        return DataFrame.of(columns);
+    }
+
+    /**
+     * Returns the vector of parsed objects.
+     * @param field the struct field.
+     * @param values the parsed values.
+     * @param hasMissing true if there are missing values.
+     * @return the vector.
+     */
+    private static BaseVector vector(StructField field, Object[] values, boolean hasMissing) {
+        int n = values.length;
+        if (field.type.isPrimitive()) {
+            if (hasMissing) {
+                return Vector.of(new StructField(field.name, field.type.boxed(), field.measure), values);
+            }
+
+            switch (field.type.id()) {
+                case Integer: {
+                    int[] a = new int[n];
+                    for (int i = 0; i < n; i++) a[i] = ((Number) values[i]).intValue();
+                    return IntVector.of(field, a);
+                }
+                case Long: {
+                    long[] a = new long[n];
+                    for (int i = 0; i < n; i++) a[i] = ((Number) values[i]).longValue();
+                    return LongVector.of(field, a);
+                }
+                case Double: {
+                    double[] a = new double[n];
+                    for (int i = 0; i < n; i++) a[i] = ((Number) values[i]).doubleValue();
+                    return DoubleVector.of(field, a);
+                }
+                case Float: {
+                    float[] a = new float[n];
+                    for (int i = 0; i < n; i++) a[i] = ((Number) values[i]).floatValue();
+                    return FloatVector.of(field, a);
+                }
+                case Short: {
+                    short[] a = new short[n];
+                    for (int i = 0; i < n; i++) a[i] = ((Number) values[i]).shortValue();
+                    return ShortVector.of(field, a);
+                }
+                case Byte: {
+                    byte[] a = new byte[n];
+                    for (int i = 0; i < n; i++) a[i] = ((Number) values[i]).byteValue();
+                    return ByteVector.of(field, a);
+                }
+                case Boolean: {
+                    boolean[] a = new boolean[n];
+                    for (int i = 0; i < n; i++) a[i] = (Boolean) values[i];
+                    return BooleanVector.of(field, a);
+                }
+                case Char: {
+                    char[] a = new char[n];
+                    for (int i = 0; i < n; i++) a[i] = (Character) values[i];
+                    return CharVector.of(field, a);
+                }
+            }
+        }
+
+        if (field.type.isString()) {
+            String[] a = new String[n];
+            for (int i = 0; i < n; i++) a[i] = (String) values[i];
+            return StringVector.of(field, a);
+        }
+
+        return Vector.of(field, values);
+    }
+
+    /** The column buffers of parsed rows. */
+    private static class Batch {
+        /** The parsing method of each column. */
+        final int[] kind;
+        /** The int columns. */
+        final int[][] ints;
+        /** The long columns. */
+        final long[][] longs;
+        /** The double columns. */
+        final double[][] doubles;
+        /** The object columns. */
+        final Object[][] objects;
+        /** The missing value flags of each column, allocated on demand. */
+        final boolean[][] nulls;
+        /** The number of rows. */
+        int size;
+        /** The capacity of buffers. */
+        int capacity;
+
+        /**
+         * Constructor.
+         * @param kind the parsing method of each column.
+         * @param capacity the initial capacity.
+         */
+        Batch(int[] kind, int capacity) {
+            int p = kind.length;
+            this.kind = kind;
+            this.capacity = capacity;
+            ints = new int[p][];
+            longs = new long[p][];
+            doubles = new double[p][];
+            objects = new Object[p][];
+            nulls = new boolean[p][];
+            for (int j = 0; j < p; j++) {
+                switch (kind[j]) {
+                    case INT: ints[j] = new int[capacity]; break;
+                    case LONG: longs[j] = new long[capacity]; break;
+                    case DOUBLE: doubles[j] = new double[capacity]; break;
+                    default: objects[j] = new Object[capacity];
+                }
+            }
+        }
+
+        /**
+         * Appends a row.
+         * @return the index of new row.
+         */
+        int add() {
+            if (size == capacity) {
+                capacity *= 2;
+                for (int j = 0; j < kind.length; j++) {
+                    if (ints[j] != null) ints[j] = Arrays.copyOf(ints[j], capacity);
+                    if (longs[j] != null) longs[j] = Arrays.copyOf(longs[j], capacity);
+                    if (doubles[j] != null) doubles[j] = Arrays.copyOf(doubles[j], capacity);
+                    if (objects[j] != null) objects[j] = Arrays.copyOf(objects[j], capacity);
+                    if (nulls[j] != null) nulls[j] = Arrays.copyOf(nulls[j], capacity);
+                }
+            }
+            return size++;
+        }
+
+        /**
+         * Marks a missing value.
+         * @param j the column index.
+         * @param i the row index.
+         */
+        void setNull(int j, int i) {
+            if (nulls[j] == null) nulls[j] = new boolean[capacity];
+            nulls[j][i] = true;
+        }
+    }
+}
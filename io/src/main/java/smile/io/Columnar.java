@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import smile.data.DataFrame;
+import smile.data.type.StructField;
+import smile.data.type.StructType;
+import smile.data.vector.BaseVector;
+import smile.data.vector.OffHeapVector;
+import smile.data.vector.StringVector;
+
+/**
+ * A simple columnar file format that is opened with memory mapping.
+ * The columns of primitive types are stored as contiguous little-endian
+ * arrays so that they are read with zero copy as {@link OffHeapVector}.
+ * The data stay in the OS page cache rather than the Java heap, which
+ * enables data frames larger than the heap and avoids the GC pauses of
+ * huge on-heap arrays. The existing algorithms work on such data frames
+ * unchanged through the <code>DataFrame</code> and <code>Tuple</code>
+ * accessors.
+ * <p>
+ * The file layout is
+ * <pre>
+ *     magic "SMILECOL"           8 bytes
+ *     version                    int
+ *     number of columns p        int
+ *     number of rows n           int
+ *     schema size                int
+ *     schema                     Java serialized StructType
+ *     column offsets             p longs, 8-byte aligned
+ *     column data                p columns, each 8-byte aligned
+ * </pre>
+ * All integers are little-endian. Boolean values are stored as bytes.
+ * String columns are stored as a sequence of (int length, UTF-8 bytes)
+ * where the length of null is -1. String columns are decoded into
+ * the heap on read. Other object types are not supported.
+ *
+ * @author Haifeng Li
+ */
+public class Columnar {
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(Columnar.class);
+
+    /** The magic bytes at the beginning of file. */
+    private static final byte[] MAGIC = "SMILECOL".getBytes(StandardCharsets.US_ASCII);
+    /** The format version. */
+    private static final int VERSION = 1;
+    /** The size of fixed header. */
+    private static final int HEADER_SIZE = MAGIC.length + 16;
+    /** The size of buffer for string columns. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Private constructor to prevent object creation. */
+    private Columnar() {
+
+    }
+
+    /**
+     * Writes a data frame in the columnar format.
+     * @param data the data frame.
+     * @param path the output file path.
+     * @throws IOException when fails to write the file.
+     */
+    public static void write(DataFrame data, Path path) throws IOException {
+        StructType schema = data.schema();
+        int p = data.ncol();
+        int n = data.nrow();
+        for (StructField field : schema.fields()) {
+            if (!field.type.isPrimitive() && !field.type.isString()) {
+                throw new UnsupportedOperationException("Unsupported column type: " + field);
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(schema);
+        }
+        byte[] schemaBytes = bytes.toByteArray();
+
+        long directory = align(HEADER_SIZE + schemaBytes.length);
+        long offset = directory + 8L * p;
+        long[] offsets = new long[p];
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int j = 0; j < p; j++) {
+                offset = align(offset);
+                offsets[j] = offset;
+                BaseVector column = data.column(j);
+                if (column.type().isString()) {
+                    offset = writeStrings(channel, column, offset);
+                } else {
+                    long size = (long) n * OffHeapVector.width(column.type());
+                    OffHeapVector.write(column, map(channel, FileChannel.MapMode.READ_WRITE, offset, size));
+                    offset += size;
+                }
+            }
+
+            ByteBuffer header = ByteBuffer.allocate((int) (directory + 8L * p)).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(p);
+            header.putInt(n);
+            header.putInt(schemaBytes.length);
+            header.put(schemaBytes);
+            header.position((int) directory);
+            for (long o : offsets) {
+                header.putLong(o);
+            }
+            header.flip();
+            writeFully(channel, header, 0);
+        }
+
+        logger.info("Wrote {} x {} data frame to {}", n, p, path);
+    }
+
+    /**
+     * Opens a columnar file. The columns of primitive types are
+     * memory-mapped without copying. The mapping remains valid
+     * after this method returns until the data frame is garbage
+     * collected.
+     *
+     * @param path the input file path.
+     * @throws IOException when fails to read the file.
+     * @return the data frame.
+     */
+    public static DataFrame read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a columnar file: " + path);
+            }
+
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported columnar format version: " + version);
+            }
+
+            int p = header.getInt();
+            int n = header.getInt();
+            int schemaSize = header.getInt();
+
+            StructType schema;
+            ByteBuffer schemaBytes = readFully(channel, HEADER_SIZE, schemaSize);
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(schemaBytes.array()))) {
+                schema = (StructType) in.readObject();
+            } catch (ClassNotFoundException ex) {
+                throw new IOException("Invalid schema", ex);
+            }
+
+            if (schema.length() != p) {
+                throw new IOException(String.format("Schema has %d fields != %d columns", schema.length(), p));
+            }
+
+            ByteBuffer directory = readFully(channel, align(HEADER_SIZE + schemaSize), 8 * p);
+            BaseVector[] columns = new BaseVector[p];
+            for (int j = 0; j < p; j++) {
+                StructField field = schema.field(j);
+                long offset = directory.getLong();
+                if (field.type.isString()) {
+                    columns[j] = StringVector.of(field, readStrings(channel, offset, n));
+                } else {
+                    long size = (long) n * OffHeapVector.width(field.type);
+                    columns[j] = OffHeapVector.of(field, n, map(channel, FileChannel.MapMode.READ_ONLY, offset, size));
+                }
+            }
+
+            return DataFrame.of(columns);
+        }
+    }
+
+    /**
+     * Maps a region of file in segments.
+     * @param channel the file channel.
+     * @param mode the mapping mode.
+     * @param offset the offset of region.
+     * @param size the size of region.
+     * @return the mapped segments.
+     */
+    private static ByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long offset, long size) throws IOException {
+        int n = OffHeapVector.segments(size);
+        ByteBuffer[] segments = new ByteBuffer[n];
+        for (int i = 0; i < n; i++) {
+            long position = (long) i * OffHeapVector.SEGMENT_SIZE;
+            segments[i] = channel.map(mode, offset + position, Math.min(OffHeapVector.SEGMENT_SIZE, size - position));
+        }
+        return segments;
+    }
+
+    /**
+     * Writes a string column.
+     * @param channel the file channel.
+     * @param column the string column.
+     * @param offset the file offset of column.
+     * @return the file offset after the column.
+     */
+    private static long writeStrings(FileChannel channel, BaseVector column, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        int n = column.size();
+        for (int i = 0; i < n; i++) {
+            Object s = column.get(i);
+            byte[] bytes = s == null ? null : s.toString().getBytes(StandardCharsets.UTF_8);
+            int size = 4 + (bytes == null ? 0 : bytes.length);
+            if (buffer.remaining() < size) {
+                buffer.flip();
+                offset += writeFully(channel, buffer, offset);
+                buffer.clear();
+                if (buffer.capacity() < size) {
+                    buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+                }
+            }
+
+            if (bytes == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+            }
+        }
+
+        buffer.flip();
+        return offset + writeFully(channel, buffer, offset);
+    }
+
+    /**
+     * Reads a string column.
+     * @param channel the file channel.
+     * @param offset the file offset of column.
+     * @param n the number of rows.
+     * @return the strings.
+     */
+    private static String[] readStrings(FileChannel channel, long offset, int n) throws IOException {
+        String[] strings = new String[n];
+        ByteBuffer buffer = readFully(channel, offset, 0);
+        for (int i = 0; i < n; i++) {
+            if (buffer.remaining() < 4) {
+                offset += buffer.position();
+                buffer = readFully(channel, offset, 4, BUFFER_SIZE);
+            }
+
+            int length = buffer.getInt();
+            if (length < 0) continue;
+
+            if (buffer.remaining() < length) {
+                offset += buffer.position();
+                buffer = readFully(channel, offset, length, Math.max(length, BUFFER_SIZE));
+            }
+
+            strings[i] = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        }
+        return strings;
+    }
+
+    /**
+     * Reads exactly the given number of bytes from the file.
+     * @param channel the file channel.
+     * @param offset the file offset.
+     * @param size the number of bytes.
+     * @return the little-endian buffer of bytes.
+     */
+    private static ByteBuffer readFully(FileChannel channel, long offset, int size) throws IOException {
+        return readFully(channel, offset, size, size);
+    }
+
+    /**
+     * Reads at least the given number of bytes from the file.
+     * @param channel the file channel.
+     * @param offset the file offset.
+     * @param min the minimum number of bytes to read.
+     * @param max the maximum number of bytes to read.
+     * @return the little-endian buffer of bytes.
+     */
+    private static ByteBuffer readFully(FileChannel channel, long offset, int min, int max) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(max).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.position() < min) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Writes all remaining bytes of buffer to the file.
+     * @param channel the file channel.
+     * @param buffer the buffer.
+     * @param offset the file offset.
+     * @return the number of bytes written.
+     */
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        int size = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + size - buffer.remaining());
+        }
+        return size;
+    }
+
+    /**
+     * Returns the smallest multiple of 8 that is not less than the offset.
+     * @param offset the offset.
+     * @return the 8-byte aligned offset.
+     */
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+}
@@ -22,6 +22,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import org.apache.parquet.io.InputFile;
 import org.apache.parquet.io.SeekableInputStream;
@@ -33,8 +34,8 @@ import org.apache.parquet.io.SeekableInputStream;
  * @author Haifeng Li
  */
 class LocalInputFile implements InputFile {
-    /** Local file object. */
-    private final RandomAccessFile input;
+    /** Local file path. */
+    private final Path path;
 
     /**
      * Constructor.
@@ -42,16 +43,25 @@ class LocalInputFile implements InputFile {
      * @throws FileNotFoundException when file cannot be found.
      */
     public LocalInputFile(Path path) throws FileNotFoundException {
-        input = new RandomAccessFile(path.toFile(), "r");
+        if (!Files.isRegularFile(path)) {
+            throw new FileNotFoundException(path.toString());
+        }
+        this.path = path;
     }
 
     @Override
     public long getLength() throws IOException {
-        return input.length();
+        return Files.size(path);
     }
 
+    /**
+     * Returns a new stream of file. Each stream has its own file
+     * handle so that the file can be read by multiple readers
+     * concurrently.
+     */
     @Override
     public SeekableInputStream newStream() throws IOException {
+        final RandomAccessFile input = new RandomAccessFile(path.toFile(), "r");
         return new SeekableInputStream() {
             private final byte[] page = new byte[8192];
             private long markPos = 0;
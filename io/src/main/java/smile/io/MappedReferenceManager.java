@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.io;
+
+import java.nio.MappedByteBuffer;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OwnershipTransferResult;
+import org.apache.arrow.memory.ReferenceManager;
+import org.apache.arrow.memory.util.MemoryUtil;
+
+/**
+ * The reference manager of Arrow buffers over a memory-mapped file
+ * region. The mapping is not accounted by any allocator. It is kept
+ * alive as long as any buffer derived from it is reachable and is
+ * unmapped by the garbage collector afterwards. Therefore, retain and
+ * release are no-ops.
+ *
+ * @author Haifeng Li
+ */
+class MappedReferenceManager implements ReferenceManager {
+    /** The memory-mapped region. */
+    private final MappedByteBuffer buffer;
+    /** The allocator that the derived vectors are associated with. */
+    private final BufferAllocator allocator;
+
+    /**
+     * Constructor.
+     * @param buffer the memory-mapped region.
+     * @param allocator the allocator that the derived vectors are associated with.
+     */
+    private MappedReferenceManager(MappedByteBuffer buffer, BufferAllocator allocator) {
+        this.buffer = buffer;
+        this.allocator = allocator;
+    }
+
+    /**
+     * Returns an Arrow buffer over the memory-mapped region without copying.
+     * @param buffer the memory-mapped region.
+     * @param allocator the allocator that the derived vectors are associated with.
+     * @return the Arrow buffer.
+     */
+    static ArrowBuf wrap(MappedByteBuffer buffer, BufferAllocator allocator) {
+        MappedReferenceManager manager = new MappedReferenceManager(buffer, allocator);
+        return new ArrowBuf(manager, null, buffer.capacity(), MemoryUtil.getByteBufferAddress(buffer));
+    }
+
+    @Override
+    public int getRefCount() {
+        return 1;
+    }
+
+    @Override
+    public boolean release() {
+        return false;
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return false;
+    }
+
+    @Override
+    public void retain() {
+
+    }
+
+    @Override
+    public void retain(int increment) {
+
+    }
+
+    @Override
+    public ArrowBuf retain(ArrowBuf srcBuffer, BufferAllocator targetAllocator) {
+        return srcBuffer;
+    }
+
+    @Override
+    public ArrowBuf deriveBuffer(ArrowBuf sourceBuffer, long index, long length) {
+        return new ArrowBuf(this, null, length, sourceBuffer.memoryAddress() + index);
+    }
+
+    @Override
+    public OwnershipTransferResult transferOwnership(ArrowBuf sourceBuffer, BufferAllocator targetAllocator) {
+        final ArrowBuf buf = deriveBuffer(sourceBuffer, 0, sourceBuffer.capacity());
+        buf.writerIndex(sourceBuffer.writerIndex());
+        return new OwnershipTransferResult() {
+            @Override
+            public boolean getAllocationFit() {
+                return true;
+            }
+
+            @Override
+            public ArrowBuf getTransferredBuffer() {
+                return buf;
+            }
+        };
+    }
+
+    @Override
+    public BufferAllocator getAllocator() {
+        return allocator;
+    }
+
+    @Override
+    public long getSize() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public long getAccountedSize() {
+        return 0;
+    }
+}
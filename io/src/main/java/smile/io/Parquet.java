@@ -18,6 +18,7 @@
 package smile.io;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URISyntaxException;
@@ -25,20 +26,35 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.file.Path;
 import java.time.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
 
+import org.apache.parquet.ParquetReadOptions;
 import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
 import org.apache.parquet.column.page.PageReadStore;
 import org.apache.parquet.example.data.Group;
 import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
 import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
 import org.apache.parquet.io.ColumnIOFactory;
 import org.apache.parquet.io.InputFile;
 import org.apache.parquet.io.MessageColumnIO;
 import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
 import org.apache.parquet.schema.DecimalMetadata;
+import org.apache.parquet.schema.GroupType;
 import org.apache.parquet.schema.MessageType;
 import org.apache.parquet.schema.OriginalType;
 import org.apache.parquet.schema.PrimitiveType;
@@ -46,6 +62,7 @@ import org.apache.parquet.schema.Type;
 import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.type.*;
+import smile.data.vector.BaseVector;
 
 /**
  * Apache Parquet is a columnar storage format that supports
@@ -126,26 +143,357 @@ public class Parquet {
      * @return the data frame.
      */
     public static DataFrame read(InputFile file, int limit) throws IOException {
-        try (ParquetFileReader reader = ParquetFileReader.open(file)) {
+        return read(file, limit, null, null);
+    }
+
+    /**
+     * Reads selected columns of the records that satisfy a predicate
+     * from a local parquet file.
+     * @param path the input file path.
+     * @param columns the names of columns to read. If null, all columns are read.
+     * @param filter the predicate on records, e.g. built with
+     *               <code>org.apache.parquet.filter2.predicate.FilterApi</code>.
+     *               If null, all records are read.
+     * @throws IOException when fails to write the file.
+     * @return the data frame.
+     */
+    public static DataFrame read(Path path, String[] columns, FilterPredicate filter) throws IOException {
+        return read(new LocalInputFile(path), Integer.MAX_VALUE, columns, filter);
+    }
+
+    /**
+     * Reads selected columns of the records that satisfy a predicate
+     * from a HDFS parquet file.
+     * @param path the input file path.
+     * @param columns the names of columns to read. If null, all columns are read.
+     * @param filter the predicate on records, e.g. built with
+     *               <code>org.apache.parquet.filter2.predicate.FilterApi</code>.
+     *               If null, all records are read.
+     * @throws IOException when fails to write the file.
+     * @throws URISyntaxException when the file path syntax is wrong.
+     * @return the data frame.
+     */
+    public static DataFrame read(String path, String[] columns, FilterPredicate filter) throws IOException, URISyntaxException {
+        return read(HadoopInput.file(path), Integer.MAX_VALUE, columns, filter);
+    }
+
+    /**
+     * Reads a limited number of records from a parquet file.
+     * Only the column chunks of selected columns are read. The filter
+     * predicate is pushed down to skip the row groups by the column
+     * statistics and dictionaries, and then evaluated on the records
+     * of remaining row groups. If no selected column is repeated,
+     * the row groups are decoded column by column in parallel and the
+     * required columns of primitive types are read into primitive
+     * vectors without boxing. Otherwise, the records are assembled
+     * one by one.
+     *
+     * @param file an interface with the methods needed by Parquet
+     *             to read data files. See HadoopInputFile for example.
+     * @param limit the number number of records to read.
+     * @param columns the names of columns to read. If null, all columns are read.
+     *                A nested column is named by the dot path.
+     * @param filter the predicate on records, e.g. built with
+     *               <code>org.apache.parquet.filter2.predicate.FilterApi</code>.
+     *               If null, all records are read.
+     * @throws IOException when fails to write the file.
+     * @return the data frame.
+     */
+    public static DataFrame read(InputFile file, int limit, String[] columns, FilterPredicate filter) throws IOException {
+        ParquetReadOptions.Builder builder = ParquetReadOptions.builder();
+        if (filter != null) {
+            builder.withRecordFilter(FilterCompat.get(filter));
+        }
+        ParquetReadOptions options = builder.build();
+
+        try (ParquetFileReader reader = ParquetFileReader.open(file, options)) {
             ParquetMetadata footer = reader.getFooter();
             MessageType schema = footer.getFileMetaData().getSchema();
-            StructType struct = toSmileSchema(schema);
             logger.debug("The meta data of parquet file {}: {}", file.toString(), ParquetMetadata.toPrettyJSON(footer));
+            logger.info("Read {} of {} row groups", reader.getRowGroups().size(), footer.getBlocks().size());
+
+            List<String> names = new ArrayList<>();
+            if (columns == null) {
+                for (ColumnDescriptor column : schema.getColumns()) {
+                    names.add(String.join(".", column.getPath()));
+                }
+            } else {
+                Set<String> all = new HashSet<>();
+                for (ColumnDescriptor column : schema.getColumns()) {
+                    all.add(String.join(".", column.getPath()));
+                }
+
+                for (String column : columns) {
+                    if (!all.contains(column)) {
+                        throw new IllegalArgumentException("Invalid column: " + column);
+                    }
+                }
+                names.addAll(Arrays.asList(columns));
+            }
+
+            MessageType projection = project(schema, new HashSet<>(names));
+            for (ColumnDescriptor column : projection.getColumns()) {
+                if (column.getMaxRepetitionLevel() > 0) {
+                    // The records with repeated fields have to be assembled.
+                    reader.setRequestedSchema(projection);
+                    DataFrame df = readRecords(reader, projection, filter, limit);
+                    return columns == null ? df : df.select(columns);
+                }
+            }
+
+            Set<String> required = new HashSet<>(names);
+            if (filter != null) {
+                required.addAll(ParquetFilter.columns(filter));
+            }
+            MessageType requested = project(schema, required);
+            List<ColumnDescriptor> descriptors = requested.getColumns();
+
+            List<BlockMetaData> blocks = reader.getRowGroups();
+            int groups = blocks.size();
+            if (filter == null) {
+                // Skip the row groups beyond the limit.
+                long rows = 0;
+                for (int k = 0; k < groups; k++) {
+                    rows += blocks.get(k).getRowCount();
+                    if (rows >= limit) {
+                        groups = k + 1;
+                        break;
+                    }
+                }
+            }
+
+            ParquetColumn[][] data = readRowGroups(file, options, requested, footer.getFileMetaData().getCreatedBy(), filter, groups);
+            limit(data, limit);
+
+            BaseVector[] vectors = new BaseVector[names.size()];
+            for (int j = 0; j < vectors.length; j++) {
+                int index = -1;
+                for (int k = 0; k < descriptors.size(); k++) {
+                    if (String.join(".", descriptors.get(k).getPath()).equals(names.get(j))) {
+                        index = k;
+                        break;
+                    }
+                }
+
+                ColumnDescriptor descriptor = descriptors.get(index);
+                List<ParquetColumn> chunks = new ArrayList<>(data.length);
+                for (ParquetColumn[] group : data) {
+                    chunks.add(group[index]);
+                }
+
+                if (chunks.isEmpty()) {
+                    chunks.add(ParquetColumn.empty(descriptor));
+                }
+                vectors[j] = ParquetColumn.toVector(toSmileField(descriptor), chunks);
+            }
+
+            return DataFrame.of(vectors);
+        }
+    }
+
+    /**
+     * Decodes the row groups column by column in parallel. Each task
+     * opens its own reader and decodes a contiguous range of row groups.
+     * @param file the input file.
+     * @param options the read options.
+     * @param schema the requested schema.
+     * @param createdBy the writer of file.
+     * @param filter the predicate on records. May be null.
+     * @param groups the number of row groups to read.
+     * @return the columns of row groups.
+     */
+    private static ParquetColumn[][] readRowGroups(InputFile file, ParquetReadOptions options, MessageType schema, String createdBy, FilterPredicate filter, int groups) throws IOException {
+        ParquetColumn[][] data = new ParquetColumn[groups][];
+        int tasks = Math.max(1, Math.min(groups, Runtime.getRuntime().availableProcessors()));
+        try {
+            IntStream.range(0, tasks).parallel().forEach(t -> {
+                int from = (int) ((long) t * groups / tasks);
+                int to = (int) ((long) (t + 1) * groups / tasks);
+                try (ParquetFileReader reader = ParquetFileReader.open(file, options)) {
+                    reader.setRequestedSchema(schema);
+                    for (int k = 0; k < from; k++) {
+                        reader.skipNextRowGroup();
+                    }
+
+                    for (int k = from; k < to; k++) {
+                        data[k] = readRowGroup(reader.readNextRowGroup(), schema, createdBy, filter);
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        return data;
+    }
+
+    /**
+     * Decodes a row group column by column.
+     * @param store the pages of row group.
+     * @param schema the requested schema.
+     * @param createdBy the writer of file.
+     * @param filter the predicate on records. May be null.
+     * @return the columns of row group.
+     */
+    private static ParquetColumn[] readRowGroup(PageReadStore store, MessageType schema, String createdBy, FilterPredicate filter) {
+        int n = (int) store.getRowCount();
+        ColumnReadStoreImpl columnStore = new ColumnReadStoreImpl(store, new NoOpConverter(schema), schema, createdBy);
+        List<ColumnDescriptor> descriptors = schema.getColumns();
+        ParquetColumn[] columns = new ParquetColumn[descriptors.size()];
+        for (int j = 0; j < columns.length; j++) {
+            ColumnDescriptor descriptor = descriptors.get(j);
+            columns[j] = ParquetColumn.read(columnStore.getColumnReader(descriptor), descriptor, n);
+        }
+
+        if (filter != null) {
+            Map<String, ParquetColumn> map = new HashMap<>();
+            for (ParquetColumn column : columns) {
+                map.put(String.join(".", column.column.getPath()), column);
+            }
+
+            boolean[] mask = filter.accept(new ParquetFilter(map, n));
+            int count = 0;
+            for (boolean keep : mask) {
+                if (keep) count++;
+            }
+
+            for (ParquetColumn column : columns) {
+                column.select(mask, count);
+            }
+        }
+
+        return columns;
+    }
+
+    /**
+     * Drops the rows beyond the limit.
+     * @param data the columns of row groups.
+     * @param limit the number of records to keep.
+     */
+    private static void limit(ParquetColumn[][] data, int limit) {
+        long rows = 0;
+        for (ParquetColumn[] group : data) {
+            int n = group.length == 0 ? 0 : group[0].size();
+            int count = (int) Math.max(0, Math.min(n, limit - rows));
+            if (count < n) {
+                boolean[] mask = new boolean[n];
+                Arrays.fill(mask, 0, count, true);
+                for (ParquetColumn column : group) {
+                    column.select(mask, count);
+                }
+            }
+            rows += n;
+        }
+    }
+
+    /**
+     * Returns the schema of selected columns.
+     * @param schema the file schema.
+     * @param columns the dot paths of selected columns.
+     * @return the schema of selected columns.
+     */
+    private static MessageType project(MessageType schema, Set<String> columns) {
+        Set<String> missing = new HashSet<>(columns);
+        List<Type> fields = project(schema, "", columns, missing);
+        if (!missing.isEmpty()) {
+            // The predicate may refer to the columns not in the file.
+            logger.debug("Columns not in the parquet file: {}", missing);
+        }
+        return new MessageType(schema.getName(), fields);
+    }
 
-            int nrow = (int) Math.min(reader.getRecordCount(), limit);
-            List<Tuple> rows = new ArrayList<>(nrow);
+    /**
+     * Returns the fields of a group type that contain the selected columns.
+     * @param group the group type.
+     * @param prefix the dot path of group.
+     * @param columns the dot paths of selected columns.
+     * @param missing the selected columns that are not found yet.
+     * @return the fields that contain the selected columns.
+     */
+    private static List<Type> project(GroupType group, String prefix, Set<String> columns, Set<String> missing) {
+        List<Type> fields = new ArrayList<>();
+        for (Type field : group.getFields()) {
+            String name = prefix + field.getName();
+            if (field.isPrimitive()) {
+                if (columns.contains(name)) {
+                    fields.add(field);
+                    missing.remove(name);
+                }
+            } else {
+                List<Type> children = project(field.asGroupType(), name + ".", columns, missing);
+                if (!children.isEmpty()) {
+                    fields.add(field.asGroupType().withNewFields(children));
+                }
+            }
+        }
+        return fields;
+    }
 
-            PageReadStore store;
-            while ((store = reader.readNextRowGroup()) != null) {
-                final long rowCount = store.getRowCount();
-                final MessageColumnIO columnIO = new ColumnIOFactory().getColumnIO(schema);
-                final RecordReader<Group> recordReader = columnIO.getRecordReader(store, new GroupRecordConverter(schema));
-                for (int i = 0; i < rowCount && rows.size() < nrow; i++) {
-                    rows.add(Tuple.of(group2object(recordReader.read(), schema.getColumns(), struct), struct));
+    /**
+     * Reads the records one by one.
+     * @param reader the file reader.
+     * @param schema the requested schema.
+     * @param filter the predicate on records. May be null.
+     * @param limit the number number of records to read.
+     * @return the data frame.
+     */
+    private static DataFrame readRecords(ParquetFileReader reader, MessageType schema, FilterPredicate filter, int limit) throws IOException {
+        StructType struct = toSmileSchema(schema);
+        int nrow = (int) Math.min(reader.getRecordCount(), limit);
+        List<Tuple> rows = new ArrayList<>(nrow);
+        FilterCompat.Filter recordFilter = filter == null ? FilterCompat.NOOP : FilterCompat.get(filter);
+
+        PageReadStore store;
+        while ((store = reader.readNextRowGroup()) != null) {
+            final long rowCount = store.getRowCount();
+            final MessageColumnIO columnIO = new ColumnIOFactory().getColumnIO(schema);
+            final RecordReader<Group> recordReader = columnIO.getRecordReader(store, new GroupRecordConverter(schema), recordFilter);
+            for (int i = 0; i < rowCount && rows.size() < nrow; i++) {
+                Group group = recordReader.read();
+                if (group != null && !recordReader.shouldSkipCurrentRecord()) {
+                    rows.add(Tuple.of(group2object(group, schema.getColumns(), struct), struct));
                 }
             }
+        }
+
+        return DataFrame.of(rows);
+    }
+
+    /**
+     * The converter that ignores the values, which is required by
+     * the column readers although the values are read directly.
+     */
+    private static class NoOpConverter extends GroupConverter {
+        /** The converters of fields. */
+        private final Converter[] converters;
+
+        /**
+         * Constructor.
+         * @param group the group type.
+         */
+        NoOpConverter(GroupType group) {
+            converters = new Converter[group.getFieldCount()];
+            for (int i = 0; i < converters.length; i++) {
+                Type field = group.getType(i);
+                converters[i] = field.isPrimitive() ? new PrimitiveConverter() { } : new NoOpConverter(field.asGroupType());
+            }
+        }
+
+        @Override
+        public Converter getConverter(int fieldIndex) {
+            return converters[fieldIndex];
+        }
+
+        @Override
+        public void start() {
+
+        }
+
+        @Override
+        public void end() {
 
-            return DataFrame.of(rows);
         }
     }
 
@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.io;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveComparator;
+import org.apache.parquet.schema.PrimitiveType;
+import smile.data.type.DataType;
+import smile.data.type.DataTypes;
+import smile.data.type.ObjectType;
+import smile.data.type.StructField;
+import smile.data.vector.*;
+
+/**
+ * The values of a flat (non-repeated) parquet column in a row group.
+ * The values are decoded column by column into the primitive array of
+ * the physical type without boxing. The conversion to logical types
+ * happens when the chunks of row groups are assembled into a vector.
+ *
+ * @author Haifeng Li
+ */
+class ParquetColumn {
+    /** The column descriptor. */
+    final ColumnDescriptor column;
+    /** The physical type. */
+    private final PrimitiveType.PrimitiveTypeName type;
+    /** The number of values. */
+    private int size;
+    /** The null flags, or null if no value is null. */
+    private boolean[] nulls;
+    /** The primitive array or Binary[] of values. */
+    private Object values;
+
+    /**
+     * Constructor.
+     * @param column the column descriptor.
+     * @param size the number of values.
+     * @param nulls the null flags.
+     * @param values the primitive array or Binary[] of values.
+     */
+    private ParquetColumn(ColumnDescriptor column, int size, boolean[] nulls, Object values) {
+        this.column = column;
+        this.type = column.getPrimitiveType().getPrimitiveTypeName();
+        this.size = size;
+        this.nulls = nulls;
+        this.values = values;
+    }
+
+    /**
+     * Returns the number of values.
+     * @return the number of values.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the i-th value is null.
+     * @param i the index of value.
+     * @return true if the i-th value is null.
+     */
+    public boolean isNull(int i) {
+        return nulls != null && nulls[i];
+    }
+
+    /**
+     * Returns the i-th value of the physical type, which is
+     * Integer, Long, Float, Double, Boolean or Binary.
+     * @param i the index of value.
+     * @return the i-th value.
+     */
+    public Comparable<?> get(int i) {
+        if (isNull(i)) return null;
+        switch (type) {
+            case BOOLEAN: return ((boolean[]) values)[i];
+            case INT32: return ((int[]) values)[i];
+            case INT64: return ((long[]) values)[i];
+            case FLOAT: return ((float[]) values)[i];
+            case DOUBLE: return ((double[]) values)[i];
+            default: return ((Binary[]) values)[i];
+        }
+    }
+
+    /**
+     * Compares the non-null i-th value with a value of the physical
+     * type by the column order of parquet, which is also used by the
+     * statistics.
+     * @param i the index of value.
+     * @param value the value to compare with.
+     * @return a negative integer, zero, or a positive integer as
+     *         the i-th value is less than, equal to, or greater than
+     *         the given value.
+     */
+    @SuppressWarnings("unchecked")
+    public int compare(int i, Object value) {
+        PrimitiveComparator<Object> comparator = column.getPrimitiveType().comparator();
+        switch (type) {
+            case BOOLEAN: return comparator.compare(((boolean[]) values)[i], ((Boolean) value).booleanValue());
+            case INT32: return comparator.compare(((int[]) values)[i], ((Integer) value).intValue());
+            case INT64: return comparator.compare(((long[]) values)[i], ((Long) value).longValue());
+            case FLOAT: return comparator.compare(((float[]) values)[i], ((Float) value).floatValue());
+            case DOUBLE: return comparator.compare(((double[]) values)[i], ((Double) value).doubleValue());
+            default: return comparator.compare((Object) ((Binary[]) values)[i], value);
+        }
+    }
+
+    /**
+     * Returns an empty column.
+     * @param column the column descriptor.
+     * @return an empty column.
+     */
+    static ParquetColumn empty(ColumnDescriptor column) {
+        return read(null, column, 0);
+    }
+
+    /**
+     * Reads the values of a column chunk.
+     * @param reader the column reader.
+     * @param column the column descriptor.
+     * @param n the number of rows in the row group.
+     * @return the column values.
+     */
+    static ParquetColumn read(ColumnReader reader, ColumnDescriptor column, int n) {
+        int maxDefinitionLevel = column.getMaxDefinitionLevel();
+        boolean[] nulls = null;
+        PrimitiveType.PrimitiveTypeName type = column.getPrimitiveType().getPrimitiveTypeName();
+        Object values;
+        switch (type) {
+            case BOOLEAN: values = new boolean[n]; break;
+            case INT32: values = new int[n]; break;
+            case INT64: values = new long[n]; break;
+            case FLOAT: values = new float[n]; break;
+            case DOUBLE: values = new double[n]; break;
+            default: values = new Binary[n]; break;
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (reader.getCurrentDefinitionLevel() < maxDefinitionLevel) {
+                if (nulls == null) nulls = new boolean[n];
+                nulls[i] = true;
+            } else {
+                switch (type) {
+                    case BOOLEAN: ((boolean[]) values)[i] = reader.getBoolean(); break;
+                    case INT32: ((int[]) values)[i] = reader.getInteger(); break;
+                    case INT64: ((long[]) values)[i] = reader.getLong(); break;
+                    case FLOAT: ((float[]) values)[i] = reader.getFloat(); break;
+                    case DOUBLE: ((double[]) values)[i] = reader.getDouble(); break;
+                    default: ((Binary[]) values)[i] = reader.getBinary().copy(); break;
+                }
+            }
+            reader.consume();
+        }
+
+        return new ParquetColumn(column, n, nulls, values);
+    }
+
+    /**
+     * Keeps only the selected values in place.
+     * @param mask the selection flags.
+     * @param count the number of selected values.
+     */
+    void select(boolean[] mask, int count) {
+        if (count == size) return;
+
+        int[] index = new int[count];
+        for (int i = 0, j = 0; i < size; i++) {
+            if (mask[i]) index[j++] = i;
+        }
+
+        if (nulls != null) {
+            boolean[] a = new boolean[count];
+            for (int j = 0; j < count; j++) a[j] = nulls[index[j]];
+            nulls = a;
+        }
+
+        switch (type) {
+            case BOOLEAN: {
+                boolean[] x = (boolean[]) values;
+                boolean[] a = new boolean[count];
+                for (int j = 0; j < count; j++) a[j] = x[index[j]];
+                values = a;
+                break;
+            }
+            case INT32: {
+                int[] x = (int[]) values;
+                int[] a = new int[count];
+                for (int j = 0; j < count; j++) a[j] = x[index[j]];
+                values = a;
+                break;
+            }
+            case INT64: {
+                long[] x = (long[]) values;
+                long[] a = new long[count];
+                for (int j = 0; j < count; j++) a[j] = x[index[j]];
+                values = a;
+                break;
+            }
+            case FLOAT: {
+                float[] x = (float[]) values;
+                float[] a = new float[count];
+                for (int j = 0; j < count; j++) a[j] = x[index[j]];
+                values = a;
+                break;
+            }
+            case DOUBLE: {
+                double[] x = (double[]) values;
+                double[] a = new double[count];
+                for (int j = 0; j < count; j++) a[j] = x[index[j]];
+                values = a;
+                break;
+            }
+            default: {
+                Binary[] x = (Binary[]) values;
+                Binary[] a = new Binary[count];
+                for (int j = 0; j < count; j++) a[j] = x[index[j]];
+                values = a;
+                break;
+            }
+        }
+
+        size = count;
+    }
+
+    /**
+     * Returns the concatenated values of row groups.
+     * @param chunks the column chunks of row groups.
+     * @return the concatenated values.
+     */
+    private static ParquetColumn concat(List<ParquetColumn> chunks) {
+        if (chunks.size() == 1) return chunks.get(0);
+
+        ParquetColumn first = chunks.get(0);
+        int n = 0;
+        boolean hasNull = false;
+        for (ParquetColumn chunk : chunks) {
+            n += chunk.size;
+            hasNull |= chunk.nulls != null;
+        }
+
+        boolean[] nulls = hasNull ? new boolean[n] : null;
+        Object values = java.lang.reflect.Array.newInstance(first.values.getClass().getComponentType(), n);
+        int offset = 0;
+        for (ParquetColumn chunk : chunks) {
+            if (chunk.nulls != null) System.arraycopy(chunk.nulls, 0, nulls, offset, chunk.size);
+            System.arraycopy(chunk.values, 0, values, offset, chunk.size);
+            offset += chunk.size;
+        }
+
+        return new ParquetColumn(first.column, n, nulls, values);
+    }
+
+    /**
+     * Returns the vector of column in the logical type.
+     * The required columns of primitive types are returned
+     * as primitive vectors without boxing.
+     * @param field the struct field of column.
+     * @param chunks the column chunks of row groups.
+     * @return the vector.
+     */
+    static BaseVector toVector(StructField field, List<ParquetColumn> chunks) {
+        ParquetColumn data = concat(chunks);
+        String name = field.name;
+        int n = data.size;
+        switch (field.type.id()) {
+            case Boolean:
+                return BooleanVector.of(name, (boolean[]) data.values);
+            case Byte: {
+                int[] x = (int[]) data.values;
+                byte[] a = new byte[n];
+                for (int i = 0; i < n; i++) a[i] = (byte) x[i];
+                return ByteVector.of(name, a);
+            }
+            case Short: {
+                int[] x = (int[]) data.values;
+                short[] a = new short[n];
+                for (int i = 0; i < n; i++) a[i] = (short) x[i];
+                return ShortVector.of(name, a);
+            }
+            case Integer:
+                return IntVector.of(name, (int[]) data.values);
+            case Long:
+                return LongVector.of(name, (long[]) data.values);
+            case Float:
+                return FloatVector.of(name, (float[]) data.values);
+            case Double:
+                return DoubleVector.of(name, (double[]) data.values);
+            case String: {
+                String[] a = new String[n];
+                for (int i = 0; i < n; i++) a[i] = (String) data.object(field.type, i);
+                return StringVector.of(name, a);
+            }
+            default: {
+                Object[] a = (Object[]) java.lang.reflect.Array.newInstance(objectClass(field.type), n);
+                for (int i = 0; i < n; i++) a[i] = data.object(field.type, i);
+                return Vector.of(name, field.type, a);
+            }
+        }
+    }
+
+    /** Returns the class of values of an object type. */
+    private static Class<?> objectClass(DataType type) {
+        switch (type.id()) {
+            case Decimal: return BigDecimal.class;
+            case Date: return LocalDate.class;
+            case Time: return LocalTime.class;
+            case DateTime: return LocalDateTime.class;
+            case Array: return byte[].class;
+            default: return ((ObjectType) type).getObjectClass();
+        }
+    }
+
+    /**
+     * Returns the i-th value in the logical type.
+     * @param type the logical data type.
+     * @param i the index of value.
+     * @return the i-th value.
+     */
+    private Object object(DataType type, int i) {
+        if (isNull(i)) return null;
+
+        PrimitiveType primitiveType = column.getPrimitiveType();
+        OriginalType originalType = primitiveType.getOriginalType();
+        switch (type.id()) {
+            case String:
+                return ((Binary[]) values)[i].toStringUsingUTF8();
+            case Decimal: {
+                int scale = primitiveType.getDecimalMetadata().getScale();
+                switch (this.type) {
+                    case INT32: return BigDecimal.valueOf(((int[]) values)[i], scale);
+                    case INT64: return BigDecimal.valueOf(((long[]) values)[i], scale);
+                    default: return new BigDecimal(new BigInteger(((Binary[]) values)[i].getBytes()), scale);
+                }
+            }
+            case Date:
+                return LocalDate.ofEpochDay(((int[]) values)[i]);
+            case Time:
+                if (originalType == OriginalType.TIME_MILLIS) {
+                    return LocalTime.ofNanoOfDay(((int[]) values)[i] * 1000000L);
+                } else {
+                    return LocalTime.ofNanoOfDay(((long[]) values)[i] * 1000);
+                }
+            case DateTime:
+                if (this.type == PrimitiveType.PrimitiveTypeName.INT96) {
+                    ByteBuffer buf = ((Binary[]) values)[i].toByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+                    long nanoOfDay = buf.getLong();
+                    int julianDay = buf.getInt();
+                    LocalDate date = LocalDate.ofEpochDay(julianDay - 2440588);
+                    LocalTime time = LocalTime.ofNanoOfDay(nanoOfDay);
+                    return LocalDateTime.of(date, time);
+                } else if (originalType == OriginalType.TIMESTAMP_MILLIS) {
+                    return LocalDateTime.ofInstant(Instant.ofEpochMilli(((long[]) values)[i]), ZoneOffset.UTC);
+                } else {
+                    long micros = ((long[]) values)[i];
+                    return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1000000), (int) Math.floorMod(micros, 1000000) * 1000, ZoneOffset.UTC);
+                }
+            case Array:
+                return ((Binary[]) values)[i].getBytes();
+            default: {
+                Class<?> clazz = ((ObjectType) type).getObjectClass();
+                if (clazz == Byte.class) return (byte) ((int[]) values)[i];
+                if (clazz == Short.class) return (short) ((int[]) values)[i];
+                return get(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.io;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.filter2.predicate.UserDefinedPredicate;
+
+/**
+ * Evaluates a parquet filter predicate on the decoded columns of
+ * a row group. The semantics of null values follow the record
+ * filter of parquet, i.e. <code>eq(column, null)</code> keeps the
+ * null values, <code>notEq(column, value)</code> keeps the null
+ * values, and the other comparisons drop them. A column that
+ * does not exist in the file is treated as all null.
+ *
+ * @author Haifeng Li
+ */
+class ParquetFilter implements FilterPredicate.Visitor<boolean[]> {
+    /** The decoded columns by the dot path. */
+    private final Map<String, ParquetColumn> columns;
+    /** The number of rows. */
+    private final int n;
+
+    /**
+     * Constructor.
+     * @param columns the decoded columns by the dot path.
+     * @param n the number of rows.
+     */
+    ParquetFilter(Map<String, ParquetColumn> columns, int n) {
+        this.columns = columns;
+        this.n = n;
+    }
+
+    /** The comparison of a value with the predicate value. */
+    private interface Comparison {
+        /**
+         * Returns true if the comparison holds.
+         * @param cmp the result of comparing the value with the predicate value.
+         */
+        boolean test(int cmp);
+    }
+
+    /**
+     * Returns the decoded column.
+     * @param column the predicate column.
+     * @return the decoded column, or null if the column doesn't exist.
+     */
+    private ParquetColumn column(Operators.Column<?> column) {
+        return columns.get(column.getColumnPath().toDotString());
+    }
+
+    /**
+     * Evaluates the comparison of non-null values. Null values are
+     * evaluated as the given constant.
+     */
+    private boolean[] compare(Operators.Column<?> column, Object value, boolean nullValue, Comparison comparison) {
+        ParquetColumn data = column(column);
+        boolean[] mask = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            if (data == null || data.isNull(i)) {
+                mask[i] = nullValue;
+            } else {
+                mask[i] = value != null && comparison.test(data.compare(i, value));
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public <T extends Comparable<T>> boolean[] visit(Operators.Eq<T> eq) {
+        return compare(eq.getColumn(), eq.getValue(), eq.getValue() == null, cmp -> cmp == 0);
+    }
+
+    @Override
+    public <T extends Comparable<T>> boolean[] visit(Operators.NotEq<T> notEq) {
+        T value = notEq.getValue();
+        ParquetColumn data = column(notEq.getColumn());
+        boolean[] mask = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            if (data == null || data.isNull(i)) {
+                mask[i] = value != null;
+            } else {
+                mask[i] = value == null || data.compare(i, value) != 0;
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public <T extends Comparable<T>> boolean[] visit(Operators.Lt<T> lt) {
+        return compare(lt.getColumn(), lt.getValue(), false, cmp -> cmp < 0);
+    }
+
+    @Override
+    public <T extends Comparable<T>> boolean[] visit(Operators.LtEq<T> ltEq) {
+        return compare(ltEq.getColumn(), ltEq.getValue(), false, cmp -> cmp <= 0);
+    }
+
+    @Override
+    public <T extends Comparable<T>> boolean[] visit(Operators.Gt<T> gt) {
+        return compare(gt.getColumn(), gt.getValue(), false, cmp -> cmp > 0);
+    }
+
+    @Override
+    public <T extends Comparable<T>> boolean[] visit(Operators.GtEq<T> gtEq) {
+        return compare(gtEq.getColumn(), gtEq.getValue(), false, cmp -> cmp >= 0);
+    }
+
+    @Override
+    public boolean[] visit(Operators.And and) {
+        boolean[] mask = and.getLeft().accept(this);
+        boolean[] right = and.getRight().accept(this);
+        for (int i = 0; i < n; i++) mask[i] &= right[i];
+        return mask;
+    }
+
+    @Override
+    public boolean[] visit(Operators.Or or) {
+        boolean[] mask = or.getLeft().accept(this);
+        boolean[] right = or.getRight().accept(this);
+        for (int i = 0; i < n; i++) mask[i] |= right[i];
+        return mask;
+    }
+
+    @Override
+    public boolean[] visit(Operators.Not not) {
+        boolean[] mask = not.getPredicate().accept(this);
+        for (int i = 0; i < n; i++) mask[i] = !mask[i];
+        return mask;
+    }
+
+    @Override
+    public <T extends Comparable<T>, U extends UserDefinedPredicate<T>> boolean[] visit(Operators.UserDefined<T, U> udp) {
+        return keep(udp.getColumn(), udp.getUserDefinedPredicate(), true);
+    }
+
+    @Override
+    public <T extends Comparable<T>, U extends UserDefinedPredicate<T>> boolean[] visit(Operators.LogicalNotUserDefined<T, U> udp) {
+        return keep(udp.getUserDefined().getColumn(), udp.getUserDefined().getUserDefinedPredicate(), false);
+    }
+
+    /** Evaluates a user defined predicate. */
+    @SuppressWarnings("unchecked")
+    private <T extends Comparable<T>> boolean[] keep(Operators.Column<T> column, UserDefinedPredicate<T> predicate, boolean expected) {
+        ParquetColumn data = column(column);
+        boolean[] mask = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            T value = data == null ? null : (T) data.get(i);
+            mask[i] = predicate.keep(value) == expected;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the dot paths of columns in the predicate.
+     * @param predicate the filter predicate.
+     * @return the dot paths of columns.
+     */
+    static Set<String> columns(FilterPredicate predicate) {
+        Set<String> columns = new HashSet<>();
+        predicate.accept(new FilterPredicate.Visitor<Void>() {
+            /** Adds a column. */
+            private Void add(Operators.Column<?> column) {
+                columns.add(column.getColumnPath().toDotString());
+                return null;
+            }
+
+            @Override
+            public <T extends Comparable<T>> Void visit(Operators.Eq<T> eq) {
+                return add(eq.getColumn());
+            }
+
+            @Override
+            public <T extends Comparable<T>> Void visit(Operators.NotEq<T> notEq) {
+                return add(notEq.getColumn());
+            }
+
+            @Override
+            public <T extends Comparable<T>> Void visit(Operators.Lt<T> lt) {
+                return add(lt.getColumn());
+            }
+
+            @Override
+            public <T extends Comparable<T>> Void visit(Operators.LtEq<T> ltEq) {
+                return add(ltEq.getColumn());
+            }
+
+            @Override
+            public <T extends Comparable<T>> Void visit(Operators.Gt<T> gt) {
+                return add(gt.getColumn());
+            }
+
+            @Override
+            public <T extends Comparable<T>> Void visit(Operators.GtEq<T> gtEq) {
+                return add(gtEq.getColumn());
+            }
+
+            @Override
+            public Void visit(Operators.And and) {
+                and.getLeft().accept(this);
+                return and.getRight().accept(this);
+            }
+
+            @Override
+            public Void visit(Operators.Or or) {
+                or.getLeft().accept(this);
+                return or.getRight().accept(this);
+            }
+
+            @Override
+            public Void visit(Operators.Not not) {
+                return not.getPredicate().accept(this);
+            }
+
+            @Override
+            public <T extends Comparable<T>, U extends UserDefinedPredicate<T>> Void visit(Operators.UserDefined<T, U> udp) {
+                return add(udp.getColumn());
+            }
+
+            @Override
+            public <T extends Comparable<T>, U extends UserDefinedPredicate<T>> Void visit(Operators.LogicalNotUserDefined<T, U> udp) {
+                return add(udp.getUserDefined().getColumn());
+            }
+        });
+        return columns;
+    }
+}
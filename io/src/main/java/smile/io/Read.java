@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Locale;
 
 import org.apache.commons.csv.CSVFormat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
 import smile.data.DataFrame;
 import smile.data.Dataset;
 import smile.data.Instance;
@@ -463,6 +464,49 @@ public interface Read {
         return Parquet.read(path);
     }
 
+    /**
+     * Reads selected columns of the records that satisfy a predicate
+     * from an Apache Parquet file. The predicate is pushed down to
+     * skip the row groups by the column statistics.
+     *
+     * @param path the input file path.
+     * @param columns the names of columns to read. If null, all columns are read.
+     * @param filter the predicate on records. If null, all records are read.
+     * @throws IOException when fails to read the file.
+     * @throws URISyntaxException when the file path syntax is wrong.
+     * @return the data frame.
+     */
+    static DataFrame parquet(String path, String[] columns, FilterPredicate filter) throws IOException, URISyntaxException {
+        return Parquet.read(path, columns, filter);
+    }
+
+    /**
+     * Reads selected columns of the records that satisfy a predicate
+     * from an Apache Parquet file. The predicate is pushed down to
+     * skip the row groups by the column statistics.
+     *
+     * @param path the input file path.
+     * @param columns the names of columns to read. If null, all columns are read.
+     * @param filter the predicate on records. If null, all records are read.
+     * @throws IOException when fails to read the file.
+     * @return the data frame.
+     */
+    static DataFrame parquet(Path path, String[] columns, FilterPredicate filter) throws IOException {
+        return Parquet.read(path, columns, filter);
+    }
+
+    /**
+     * Opens a columnar file with memory mapping. The columns of
+     * primitive types are not loaded into the Java heap.
+     *
+     * @param path the input file path.
+     * @throws IOException when fails to read the file.
+     * @return the data frame.
+     */
+    static DataFrame columnar(Path path) throws IOException {
+        return Columnar.read(path);
+    }
+
     /**
      * Reads a libsvm sparse dataset. The format of libsvm file is:
      * <pre>
@@ -79,4 +79,16 @@ public interface Write {
     static void arff(DataFrame data, Path path, String relation) throws IOException {
         Arff.write(data, path, relation);
     }
+
+    /**
+     * Writes the data frame to a columnar file, which can be opened
+     * with memory mapping by {@link Read#columnar(Path)}.
+     *
+     * @param data the data frame.
+     * @param path the output file path.
+     * @throws IOException when fails to write the file.
+     */
+    static void columnar(DataFrame data, Path path) throws IOException {
+        Columnar.write(data, path);
+    }
 }
@@ -23,12 +23,18 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import smile.data.DataFrame;
+import smile.data.type.DataType;
 import smile.data.type.DataTypes;
 import smile.data.type.StructField;
+import smile.data.vector.*;
 import smile.math.matrix.Matrix;
 import smile.util.Paths;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.nio.file.Path;
 import java.sql.*;
 
@@ -180,4 +186,98 @@ public class ArrowTest {
         assertEquals(5.94, output.get(2, 0), 1E-10);
         assertEquals(0.99, output.get(3, 0), 1E-10);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a data frame of wrappable and non-wrappable columns.
+     */
+    private DataFrame types() {
+        int n = 1000;
+        int[] x = new int[n];
+        long[] l = new long[n];
+        float[] f = new float[n];
+        double[] d = new double[n];
+        Double[] nd = new Double[n];
+        short[] s = new short[n];
+        String[] str = new String[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i * 3;
+            l[i] = (long) i << 40;
+            f[i] = i / 7.0f;
+            d[i] = Math.sin(i);
+            nd[i] = i % 7 == 0 ? null : Math.cos(i);
+            s[i] = (short) (i * 37);
+            str[i] = i % 10 == 0 ? null : "行" + i;
+        }
+
+        return DataFrame.of(
+                IntVector.of("x", x),
+                LongVector.of("l", l),
+                FloatVector.of("f", f),
+                DoubleVector.of("d", d),
+                Vector.of("nd", Double.class, nd),
+                ShortVector.of("s", s),
+                StringVector.of("str", str)
+        );
+    }
+
+    /**
+     * Asserts that the columns are wrapped and have the same values.
+     */
+    private void assertWrapped(DataFrame expected, DataFrame actual) {
+        assertEquals(expected.schema(), actual.schema());
+        assertEquals(expected.nrow(), actual.nrow());
+        for (int j = 0; j < expected.ncol(); j++) {
+            assertEquals(expected.column(j).type().id() != DataType.ID.Short, actual.column(j) instanceof ArrowVector);
+            for (int i = 0; i < expected.nrow(); i++) {
+                assertEquals(expected.get(i, j), actual.get(i, j));
+            }
+        }
+
+        assertArrayEquals(expected.doubleVector("d").array(), actual.doubleVector("d").array(), 0.0);
+        assertArrayEquals(expected.column("nd").toDoubleArray(), actual.column("nd").toDoubleArray(), 0.0);
+        assertArrayEquals(expected.intVector("x").toIntArray(), actual.intVector("x").toIntArray());
+        assertEquals(expected.doubleVector("d").stream().sum(), actual.doubleVector("d").stream().sum(), 0.0);
+    }
+
+    @Test
+    public void testBatches() throws Exception {
+        System.out.println("batches");
+        DataFrame data = types();
+        Arrow arrow = new Arrow(300);
+        File temp = File.createTempFile("types", ".arrow");
+        temp.deleteOnExit();
+        arrow.write(data, temp.toPath());
+        assertWrapped(data, arrow.read(temp.toPath()));
+    }
+
+    @Test
+    public void testReadFile() throws Exception {
+        System.out.println("readFile");
+        DataFrame data = types();
+        Arrow arrow = new Arrow(300);
+        File temp = File.createTempFile("types", ".arrow");
+        temp.deleteOnExit();
+        arrow.writeFile(data, temp.toPath());
+        DataFrame df = arrow.readFile(temp.toPath());
+        assertWrapped(data, df);
+
+        // The boxed object types are not serializable.
+        data = data.drop("nd");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(df.drop("nd"));
+        }
+
+        DataFrame copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (DataFrame) in.readObject();
+        }
+
+        assertFalse(copy.column("d") instanceof ArrowVector);
+        for (int j = 0; j < data.ncol(); j++) {
+            for (int i = 0; i < data.nrow(); i++) {
+                assertEquals(data.get(i, j), copy.get(i, j));
+            }
+        }
+    }
+}
@@ -265,4 +265,42 @@ public class CSVTest {
         assertEquals("Internal Auditor", df.getString(0, 11));
         assertEquals("1E+02", df.getString(0, 12));
     }
+
+    /**
+     * Asserts that the parallel and iterator readers agree with the sequential one.
+     */
+    private void assertParallel(CSVFormat format, java.nio.file.Path path) throws Exception {
+        DataFrame expected = new CSV(format).read(path);
+        DataFrame df = new CSV(format).chunkSize(4096).readParallel(path);
+        assertEquals(expected.schema(), df.schema());
+        assertEquals(expected.nrow(), df.nrow());
+        for (int i = 0; i < df.nrow(); i++) {
+            for (int j = 0; j < df.ncol(); j++) {
+                assertEquals(expected.get(i, j), df.get(i, j));
+            }
+        }
+
+        int offset = 0;
+        java.util.Iterator<DataFrame> iter = new CSV(format).chunkSize(4096).iterator(path);
+        while (iter.hasNext()) {
+            DataFrame batch = iter.next();
+            assertTrue(batch.nrow() > 0);
+            for (int i = 0; i < batch.nrow(); i++, offset++) {
+                for (int j = 0; j < batch.ncol(); j++) {
+                    assertEquals(expected.get(offset, j), batch.get(i, j));
+                }
+            }
+        }
+        assertEquals(expected.nrow(), offset);
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        System.out.println("parallel");
+        assertParallel(CSVFormat.DEFAULT, Paths.getTestData("regression/abalone-train.data"));
+        assertParallel(CSVFormat.DEFAULT.withFirstRecordAsHeader(), Paths.getTestData("kylo/userdata1.csv"));
+        assertParallel(CSVFormat.DEFAULT.withFirstRecordAsHeader(), Paths.getTestData("regression/diabetes.csv"));
+        assertParallel(CSVFormat.DEFAULT.withFirstRecordAsHeader().withCommentMarker('%'), Paths.getTestData("regression/gdp.csv"));
+        assertParallel(CSVFormat.newFormat('\t').withFirstRecordAsHeader(), Paths.getTestData("regression/prostate-train.csv"));
+    }
 }
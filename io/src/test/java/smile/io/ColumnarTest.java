@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.data.DataFrame;
+import smile.data.formula.Formula;
+import smile.data.measure.NominalScale;
+import smile.data.type.DataTypes;
+import smile.data.type.StructField;
+import smile.data.vector.*;
+import smile.util.Paths;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class ColumnarTest {
+
+    public ColumnarTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Returns a data frame with columns of all supported types.
+     */
+    private DataFrame types() {
+        int n = 1000;
+        boolean[] z = new boolean[n];
+        byte[] b = new byte[n];
+        char[] c = new char[n];
+        short[] s = new short[n];
+        int[] x = new int[n];
+        long[] l = new long[n];
+        float[] f = new float[n];
+        double[] d = new double[n];
+        String[] str = new String[n];
+        for (int i = 0; i < n; i++) {
+            z[i] = i % 3 == 0;
+            b[i] = (byte) (i - 500);
+            c[i] = (char) ('a' + i % 26);
+            s[i] = (short) (i * 37);
+            x[i] = i % 4;
+            l[i] = (long) i << 40;
+            f[i] = i / 7.0f;
+            d[i] = Math.sin(i);
+            str[i] = i % 10 == 0 ? null : "行" + i;
+        }
+
+        NominalScale scale = new NominalScale("a", "b", "c", "d");
+        return DataFrame.of(
+                BooleanVector.of("z", z),
+                ByteVector.of("b", b),
+                CharVector.of("c", c),
+                ShortVector.of("s", s),
+                IntVector.of(new StructField("x", DataTypes.IntegerType, scale), x),
+                LongVector.of("l", l),
+                FloatVector.of("f", f),
+                DoubleVector.of("d", d),
+                StringVector.of("str", str)
+        );
+    }
+
+    @Test
+    public void testTypes() throws Exception {
+        System.out.println("types");
+        DataFrame df = types();
+        File temp = File.createTempFile("types", ".col");
+        temp.deleteOnExit();
+        Path path = temp.toPath();
+        Write.columnar(df, path);
+        DataFrame data = Read.columnar(path);
+
+        System.out.println(data.structure());
+        assertEquals(df.schema(), data.schema());
+        assertEquals(df.nrow(), data.nrow());
+        for (int j = 0; j < df.ncol(); j++) {
+            if (j < df.ncol() - 1) {
+                assertTrue(data.column(j) instanceof OffHeapVector);
+            }
+
+            for (int i = 0; i < df.nrow(); i++) {
+                assertEquals(df.get(i, j), data.get(i, j));
+            }
+        }
+
+        assertEquals("c", data.getString(2, "x"));
+        assertArrayEquals(df.doubleVector("d").array(), data.doubleVector("d").array(), 0.0);
+        assertArrayEquals(df.intVector("x").toIntArray(), data.intVector("x").toIntArray());
+        assertArrayEquals(df.column("b").toDoubleArray(), data.column("b").toDoubleArray(), 0.0);
+        assertEquals(df.doubleVector("d").stream().sum(), data.doubleVector("d").stream().sum(), 0.0);
+
+        DataFrame slice = data.of(3, 5, 7);
+        assertEquals(df.getFloat(5, "f"), slice.getFloat(1, "f"), 0.0);
+        assertEquals(df.getLong(7, "l"), slice.getLong(2, "l"));
+    }
+
+    @Test
+    public void testSerialize() throws Exception {
+        System.out.println("serialize");
+        DataFrame df = types();
+        File temp = File.createTempFile("types", ".col");
+        temp.deleteOnExit();
+        Write.columnar(df, temp.toPath());
+        DataFrame data = Read.columnar(temp.toPath());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(data);
+        }
+
+        DataFrame copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (DataFrame) in.readObject();
+        }
+
+        assertEquals(df.schema(), copy.schema());
+        assertFalse(copy.column("d") instanceof OffHeapVector);
+        for (int j = 0; j < df.ncol(); j++) {
+            for (int i = 0; i < df.nrow(); i++) {
+                assertEquals(df.get(i, j), copy.get(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void testCopyOf() throws Exception {
+        System.out.println("copyOf");
+        DataFrame df = Read.arff(Paths.getTestData("weka/iris.arff"));
+        BaseVector[] columns = new BaseVector[df.ncol()];
+        for (int j = 0; j < columns.length; j++) {
+            columns[j] = OffHeapVector.copyOf(df.column(j));
+        }
+        DataFrame data = DataFrame.of(columns);
+
+        Formula formula = Formula.lhs("class");
+        assertArrayEquals(formula.y(df).toIntArray(), formula.y(data).toIntArray());
+        double[][] x = formula.x(df).toArray();
+        double[][] y = formula.x(data).toArray();
+        for (int i = 0; i < x.length; i++) {
+            assertArrayEquals(x[i], y[i], 0.0);
+        }
+    }
+}
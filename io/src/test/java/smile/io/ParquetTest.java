@@ -23,6 +23,9 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import java.time.LocalDateTime;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.io.api.Binary;
 import smile.data.DataFrame;
 import smile.data.type.DataTypes;
 import smile.data.type.StructField;
@@ -176,4 +179,51 @@ public class ParquetTest {
         assertEquals(90263.05, output.get(3, 1), 1E-10);
         assertTrue(Double.isNaN(output.get(4, 1)));
     }
-}
\ No newline at end of file
+
+    /**
+     * Test of reading selected columns.
+     */
+    @Test
+    public void testProjection() throws Exception {
+        System.out.println("projection");
+        DataFrame data = Parquet.read(Paths.getTestData("kylo/userdata1.parquet"), new String[]{"salary", "id", "country"}, null);
+        System.out.println(data);
+        assertEquals(df.select("salary", "id", "country").schema(), data.schema());
+        assertEquals(1000, data.nrow());
+        for (int i = 0; i < df.nrow(); i++) {
+            assertEquals(df.get(i, "salary"), data.get(i, 0));
+            assertEquals(df.get(i, "id"), data.get(i, 1));
+            assertEquals(df.get(i, "country"), data.get(i, 2));
+        }
+    }
+
+    /**
+     * Test of filter predicate pushdown.
+     */
+    @Test
+    public void testFilter() throws Exception {
+        System.out.println("filter");
+        FilterPredicate filter = FilterApi.and(
+                FilterApi.gt(FilterApi.doubleColumn("salary"), 100000.0),
+                FilterApi.eq(FilterApi.binaryColumn("gender"), Binary.fromString("Female")));
+        DataFrame data = Parquet.read(Paths.getTestData("kylo/userdata1.parquet"), new String[]{"id", "salary"}, filter);
+        System.out.println(data);
+
+        int n = 0;
+        for (int i = 0; i < df.nrow(); i++) {
+            Double salary = (Double) df.get(i, "salary");
+            if (salary != null && salary > 100000.0 && "Female".equals(df.get(i, "gender"))) {
+                assertEquals(df.get(i, "id"), data.get(n, 0));
+                assertEquals(salary, data.get(n, 1));
+                n++;
+            }
+        }
+        assertEquals(n, data.nrow());
+
+        // The nulls are kept by notEq.
+        filter = FilterApi.notEq(FilterApi.doubleColumn("salary"), 0.0);
+        assertEquals(1000, Parquet.read(Paths.getTestData("kylo/userdata1.parquet"), new String[]{"id"}, filter).nrow());
+        filter = FilterApi.eq(FilterApi.doubleColumn("salary"), null);
+        assertEquals(68, Parquet.read(Paths.getTestData("kylo/userdata1.parquet"), new String[]{"id"}, filter).nrow());
+    }
+}
@@ -68,6 +68,14 @@ public class AdjacencyList implements Graph, Serializable {
         }
     }
 
+    /**
+     * Returns true if the graph is directed.
+     * @return true if the graph is directed.
+     */
+    public boolean isDigraph() {
+        return digraph;
+    }
+
     @Override
     public int getNumVertices() {
         return graph.length;
@@ -63,6 +63,14 @@ public class AdjacencyMatrix implements Graph, Serializable {
         graph = new double[n][n];
     }
 
+    /**
+     * Returns true if the graph is directed.
+     * @return true if the graph is directed.
+     */
+    public boolean isDigraph() {
+        return digraph;
+    }
+
     @Override
     public int getNumVertices() {
         return graph.length;
@@ -0,0 +1,724 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.graph;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+import smile.math.matrix.SparseMatrix;
+import smile.sort.QuickSort;
+import smile.util.PriorityQueue;
+
+/**
+ * An immutable graph in the compressed sparse row (CSR) format. The arcs
+ * from each vertex are stored contiguously in primitive arrays sorted by
+ * the target vertex, which is much more compact and cache friendly than
+ * the linked lists of edge objects in {@link AdjacencyList}. For undirected
+ * graphs, each edge is stored in both directions except for self-loops.
+ * <p>
+ * Besides the traversal algorithms of {@link Graph}, this class provides
+ * parallel all-pairs and multi-source shortest paths, parallel level
+ * synchronous breadth-first search, and parallel connected components
+ * with lock-free union-find. As the graph is immutable, the operations
+ * to add or remove edges or to set edge weights throw
+ * <code>UnsupportedOperationException</code>.
+ *
+ * @author Haifeng Li
+ */
+public class CSRGraph implements Graph, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Is the graph directed?
+     */
+    private final boolean digraph;
+    /**
+     * The index of first arc of each vertex. The arcs of vertex i are
+     * in the range [rowPtr[i], rowPtr[i+1]).
+     */
+    private final int[] rowPtr;
+    /**
+     * The target vertex of arcs.
+     */
+    private final int[] colIndex;
+    /**
+     * The weight of arcs.
+     */
+    private final double[] weights;
+
+    /**
+     * Constructor.
+     *
+     * @param digraph true if this is a directed graph.
+     * @param rowPtr the index of first arc of each vertex, of which the
+     *               length is the number of vertices plus 1.
+     * @param colIndex the target vertex of arcs, which are sorted for
+     *                 each vertex.
+     * @param weights the weight of arcs.
+     */
+    public CSRGraph(boolean digraph, int[] rowPtr, int[] colIndex, double[] weights) {
+        if (colIndex.length != weights.length || rowPtr[rowPtr.length - 1] != colIndex.length) {
+            throw new IllegalArgumentException("Invalid CSR arrays");
+        }
+
+        this.digraph = digraph;
+        this.rowPtr = rowPtr;
+        this.colIndex = colIndex;
+        this.weights = weights;
+    }
+
+    /**
+     * Converts a graph to the CSR format.
+     *
+     * @param graph the graph.
+     * @return the graph in CSR format.
+     */
+    public static CSRGraph of(Graph graph) {
+        boolean digraph = graph instanceof AdjacencyList ? ((AdjacencyList) graph).isDigraph() :
+                graph instanceof AdjacencyMatrix && ((AdjacencyMatrix) graph).isDigraph();
+
+        int n = graph.getNumVertices();
+        int[] rowPtr = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            rowPtr[i + 1] = rowPtr[i] + graph.getEdges(i).size();
+        }
+
+        int[] colIndex = new int[rowPtr[n]];
+        double[] weights = new double[rowPtr[n]];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            int k = rowPtr[i];
+            for (Edge edge : graph.getEdges(i)) {
+                colIndex[k] = edge.v1 == i ? edge.v2 : edge.v1;
+                weights[k++] = edge.weight;
+            }
+            sort(rowPtr[i], rowPtr[i + 1], colIndex, weights);
+        });
+
+        return new CSRGraph(digraph, rowPtr, colIndex, weights);
+    }
+
+    /**
+     * Converts a square sparse matrix to a graph, where the (i, j)-th
+     * nonzero entry is the weight of arc from vertex i to vertex j.
+     * For undirected graph, the matrix should be symmetric.
+     *
+     * @param matrix the adjacency matrix of graph.
+     * @param digraph true if this is a directed graph.
+     * @return the graph in CSR format.
+     */
+    public static CSRGraph of(SparseMatrix matrix, boolean digraph) {
+        if (matrix.nrow() != matrix.ncol()) {
+            throw new IllegalArgumentException(String.format("The matrix is not square: %d x %d", matrix.nrow(), matrix.ncol()));
+        }
+
+        int n = matrix.nrow();
+        int[] rowPtr = new int[n + 1];
+        for (SparseMatrix.Entry entry : matrix) {
+            rowPtr[entry.i + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            rowPtr[i + 1] += rowPtr[i];
+        }
+
+        // The entries are iterated in the column-major order.
+        // So the arcs of each vertex are sorted by the target.
+        int[] pos = Arrays.copyOf(rowPtr, n);
+        int[] colIndex = new int[rowPtr[n]];
+        double[] weights = new double[rowPtr[n]];
+        for (SparseMatrix.Entry entry : matrix) {
+            int k = pos[entry.i]++;
+            colIndex[k] = entry.j;
+            weights[k] = entry.x;
+        }
+
+        return new CSRGraph(digraph, rowPtr, colIndex, weights);
+    }
+
+    /** Sorts the arcs in the range by the target vertex. */
+    private static void sort(int begin, int end, int[] colIndex, double[] weights) {
+        for (int k = begin + 1; k < end; k++) {
+            if (colIndex[k] < colIndex[k - 1]) {
+                int[] index = Arrays.copyOfRange(colIndex, begin, end);
+                double[] w = Arrays.copyOfRange(weights, begin, end);
+                QuickSort.sort(index, w);
+                System.arraycopy(index, 0, colIndex, begin, index.length);
+                System.arraycopy(w, 0, weights, begin, w.length);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the graph is directed.
+     * @return true if the graph is directed.
+     */
+    public boolean isDigraph() {
+        return digraph;
+    }
+
+    /**
+     * Returns the number of arcs. For undirected graphs, each edge
+     * except for self-loops is counted twice.
+     * @return the number of arcs.
+     */
+    public int size() {
+        return colIndex.length;
+    }
+
+    @Override
+    public int getNumVertices() {
+        return rowPtr.length - 1;
+    }
+
+    /**
+     * Returns the position of arc in the arrays, or -1 if not exists.
+     */
+    private int find(int source, int target) {
+        int k = Arrays.binarySearch(colIndex, rowPtr[source], rowPtr[source + 1], target);
+        return k >= 0 ? k : -1;
+    }
+
+    @Override
+    public boolean hasEdge(int source, int target) {
+        return find(source, target) >= 0;
+    }
+
+    @Override
+    public double getWeight(int source, int target) {
+        int k = find(source, target);
+        return k >= 0 ? weights[k] : 0.0;
+    }
+
+    @Override
+    public CSRGraph setWeight(int source, int target, double weight) {
+        throw new UnsupportedOperationException("CSRGraph is immutable");
+    }
+
+    @Override
+    public Collection<Edge> getEdges() {
+        int n = getNumVertices();
+        Collection<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+                if (digraph || colIndex[k] >= i) {
+                    edges.add(new Edge(i, colIndex[k], weights[k]));
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The edges are created on the fly and so the updates of their
+     * weights have no effect on the graph.
+     */
+    @Override
+    public Collection<Edge> getEdges(int vertex) {
+        Collection<Edge> edges = new ArrayList<>(rowPtr[vertex + 1] - rowPtr[vertex]);
+        for (int k = rowPtr[vertex]; k < rowPtr[vertex + 1]; k++) {
+            edges.add(new Edge(vertex, colIndex[k], weights[k]));
+        }
+        return edges;
+    }
+
+    @Override
+    public Collection<Edge> getEdges(int source, int target) {
+        Collection<Edge> edges = new ArrayList<>();
+        int k = find(source, target);
+        if (k >= 0) {
+            // Multigraph has consecutive arcs to the same target.
+            while (k > rowPtr[source] && colIndex[k - 1] == target) k--;
+            for (; k < rowPtr[source + 1] && colIndex[k] == target; k++) {
+                edges.add(new Edge(source, target, weights[k]));
+            }
+        }
+        return edges;
+    }
+
+    @Override
+    public Edge getEdge(int source, int target) {
+        int k = find(source, target);
+        return k >= 0 ? new Edge(source, target, weights[k]) : null;
+    }
+
+    @Override
+    public void addEdge(int source, int target) {
+        throw new UnsupportedOperationException("CSRGraph is immutable");
+    }
+
+    @Override
+    public void addEdge(int source, int target, double weight) {
+        throw new UnsupportedOperationException("CSRGraph is immutable");
+    }
+
+    @Override
+    public void removeEdges(Collection<Edge> edges) {
+        throw new UnsupportedOperationException("CSRGraph is immutable");
+    }
+
+    @Override
+    public void removeEdge(int source, int target) {
+        throw new UnsupportedOperationException("CSRGraph is immutable");
+    }
+
+    @Override
+    public void removeEdge(Edge edge) {
+        throw new UnsupportedOperationException("CSRGraph is immutable");
+    }
+
+    @Override
+    public int getDegree(int vertex) {
+        if (digraph) {
+            return getIndegree(vertex) + getOutdegree(vertex);
+        } else {
+            return getOutdegree(vertex);
+        }
+    }
+
+    @Override
+    public int getIndegree(int vertex) {
+        if (!digraph) {
+            return getOutdegree(vertex);
+        }
+
+        int degree = 0;
+        for (int target : colIndex) {
+            if (target == vertex) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    @Override
+    public int getOutdegree(int vertex) {
+        return rowPtr[vertex + 1] - rowPtr[vertex];
+    }
+
+    @Override
+    public int[] sortdfs() {
+        if (!digraph) {
+            throw new UnsupportedOperationException("Topological sort is only meaningful for digraph.");
+        }
+
+        int n = getNumVertices();
+        int[] ts = new int[n];
+        boolean[] visited = new boolean[n];
+        int[] stack = new int[n];
+        int[] next = new int[n];
+
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (visited[i]) continue;
+
+            // Iterative depth-first search with the position of next arc.
+            int top = 0;
+            stack[0] = i;
+            next[0] = rowPtr[i];
+            visited[i] = true;
+            while (top >= 0) {
+                int v = stack[top];
+                if (next[top] < rowPtr[v + 1]) {
+                    int t = colIndex[next[top]++];
+                    if (!visited[t]) {
+                        visited[t] = true;
+                        stack[++top] = t;
+                        next[top] = rowPtr[t];
+                    }
+                } else {
+                    ts[count++] = v;
+                    top--;
+                }
+            }
+        }
+
+        return ts;
+    }
+
+    @Override
+    public int[][] dfs() {
+        return components(search(null, true));
+    }
+
+    @Override
+    public void dfs(Visitor visitor) {
+        search(visitor, true);
+    }
+
+    @Override
+    public int[] sortbfs() {
+        if (!digraph) {
+            throw new UnsupportedOperationException("Topological sort is only meaningful for digraph.");
+        }
+
+        int n = getNumVertices();
+        int[] in = new int[n];
+        for (int target : colIndex) {
+            in[target]++;
+        }
+
+        int[] ts = new int[n];
+        Arrays.fill(ts, -1);
+        int head = 0, tail = 0;
+        for (int i = 0; i < n; i++) {
+            if (in[i] == 0) {
+                ts[tail++] = i;
+            }
+        }
+
+        while (head < tail) {
+            int t = ts[head++];
+            for (int k = rowPtr[t]; k < rowPtr[t + 1]; k++) {
+                int v = colIndex[k];
+                if (--in[v] == 0) {
+                    ts[tail++] = v;
+                }
+            }
+        }
+
+        return ts;
+    }
+
+    /**
+     * {@inheritDoc}
+     * For undirected graphs, the connected components are found in
+     * parallel by {@link #components()}.
+     */
+    @Override
+    public int[][] bfs() {
+        return components(digraph ? search(null, false) : components());
+    }
+
+    @Override
+    public void bfs(Visitor visitor) {
+        search(visitor, false);
+    }
+
+    /**
+     * Searches the graph from each unvisited vertex in order, which
+     * assigns the component id of vertices.
+     * @param visitor the optional visitor.
+     * @param depthFirst depth-first search if true, otherwise breadth-first.
+     * @return the component id of vertices.
+     */
+    private int[] search(Visitor visitor, boolean depthFirst) {
+        int n = getNumVertices();
+        int[] cc = new int[n];
+        Arrays.fill(cc, -1);
+        int[] stack = new int[n];
+        int[] next = new int[n];
+
+        int id = 0;
+        for (int i = 0; i < n; i++) {
+            if (cc[i] != -1) continue;
+
+            if (visitor != null) visitor.visit(i);
+            cc[i] = id;
+            if (depthFirst) {
+                int top = 0;
+                stack[0] = i;
+                next[0] = rowPtr[i];
+                while (top >= 0) {
+                    int v = stack[top];
+                    if (next[top] < rowPtr[v + 1]) {
+                        int t = colIndex[next[top]++];
+                        if (cc[t] == -1) {
+                            if (visitor != null) visitor.visit(t);
+                            cc[t] = id;
+                            stack[++top] = t;
+                            next[top] = rowPtr[t];
+                        }
+                    } else {
+                        top--;
+                    }
+                }
+            } else {
+                int head = 0, tail = 0;
+                stack[tail++] = i;
+                while (head < tail) {
+                    int v = stack[head++];
+                    for (int k = rowPtr[v]; k < rowPtr[v + 1]; k++) {
+                        int t = colIndex[k];
+                        if (cc[t] == -1) {
+                            if (visitor != null) visitor.visit(t);
+                            cc[t] = id;
+                            stack[tail++] = t;
+                        }
+                    }
+                }
+            }
+            id++;
+        }
+
+        return cc;
+    }
+
+    /**
+     * Groups the vertices by the component id, which are numbered in
+     * the order of their smallest vertex.
+     * @param cc the component id of vertices.
+     * @return the sorted vertices of each component.
+     */
+    private static int[][] components(int[] cc) {
+        int n = cc.length;
+        int[] id = new int[n];
+        Arrays.fill(id, -1);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (id[cc[i]] == -1) {
+                id[cc[i]] = count++;
+            }
+        }
+
+        int[] size = new int[count];
+        for (int i = 0; i < n; i++) {
+            size[id[cc[i]]]++;
+        }
+
+        int[][] components = new int[count][];
+        for (int c = 0; c < count; c++) {
+            components[c] = new int[size[c]];
+        }
+
+        Arrays.fill(size, 0);
+        for (int i = 0; i < n; i++) {
+            int c = id[cc[i]];
+            components[c][size[c]++] = i;
+        }
+
+        return components;
+    }
+
+    /**
+     * Returns the connected components of graph with the lock-free
+     * union-find in parallel. For directed graphs, the arcs are taken
+     * as undirected, i.e. it finds the weakly connected components.
+     *
+     * @return the component id of each vertex, which is the smallest
+     * vertex in the component.
+     */
+    public int[] components() {
+        int n = getNumVertices();
+        AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            parent.set(i, i);
+        }
+
+        IntStream.range(0, n).parallel().forEach(i -> {
+            for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+                union(parent, i, colIndex[k]);
+            }
+        });
+
+        return IntStream.range(0, n).parallel().map(i -> find(parent, i)).toArray();
+    }
+
+    /**
+     * Returns the root of a vertex with path halving.
+     */
+    private static int find(AtomicIntegerArray parent, int v) {
+        int p;
+        while ((p = parent.get(v)) != v) {
+            int gp = parent.get(p);
+            parent.compareAndSet(v, p, gp);
+            v = gp;
+        }
+        return v;
+    }
+
+    /**
+     * Merges the sets of two vertices. The root with larger index is
+     * linked to the smaller one so that the root is the smallest vertex.
+     */
+    private static void union(AtomicIntegerArray parent, int u, int v) {
+        while (true) {
+            u = find(parent, u);
+            v = find(parent, v);
+            if (u == v) return;
+            if (u < v) {
+                int t = u;
+                u = v;
+                v = t;
+            }
+            if (parent.compareAndSet(u, u, v)) return;
+        }
+    }
+
+    /**
+     * Breadth-first search from a source vertex. Each level of the search
+     * expands the frontier in parallel.
+     *
+     * @param source the source vertex.
+     * @return the number of hops from the source to each vertex,
+     * or -1 if the vertex is not reachable.
+     */
+    public int[] bfs(int source) {
+        int n = getNumVertices();
+        AtomicIntegerArray hops = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            hops.set(i, -1);
+        }
+
+        hops.set(source, 0);
+        int[] frontier = {source};
+        for (int level = 1; frontier.length > 0; level++) {
+            final int hop = level;
+            final int[] current = frontier;
+            frontier = IntStream.range(0, current.length).parallel().flatMap(j -> {
+                int v = current[j];
+                return IntStream.range(rowPtr[v], rowPtr[v + 1])
+                        .map(k -> colIndex[k])
+                        .filter(t -> hops.compareAndSet(t, -1, hop));
+            }).toArray();
+        }
+
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = hops.get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public CSRGraph subgraph(int[] vertices) {
+        int[] v = vertices.clone();
+        Arrays.sort(v);
+
+        int n = getNumVertices();
+        int[] index = new int[n];
+        Arrays.fill(index, -1);
+        for (int i = 0; i < v.length; i++) {
+            index[v[i]] = i;
+        }
+
+        int[] ptr = new int[v.length + 1];
+        for (int i = 0; i < v.length; i++) {
+            int count = 0;
+            for (int k = rowPtr[v[i]]; k < rowPtr[v[i] + 1]; k++) {
+                if (index[colIndex[k]] >= 0) count++;
+            }
+            ptr[i + 1] = ptr[i] + count;
+        }
+
+        int[] col = new int[ptr[v.length]];
+        double[] w = new double[ptr[v.length]];
+        for (int i = 0, l = 0; i < v.length; i++) {
+            for (int k = rowPtr[v[i]]; k < rowPtr[v[i] + 1]; k++) {
+                int j = index[colIndex[k]];
+                if (j >= 0) {
+                    col[l] = j;
+                    w[l++] = weights[k];
+                }
+            }
+        }
+
+        return new CSRGraph(digraph, ptr, col, w);
+    }
+
+    @Override
+    public double[] dijkstra(int s) {
+        int n = getNumVertices();
+        double[] wt = new double[n];
+        Arrays.fill(wt, Double.POSITIVE_INFINITY);
+
+        PriorityQueue queue = new PriorityQueue(wt);
+        for (int v = 0; v < n; v++) {
+            queue.insert(v);
+        }
+
+        wt[s] = 0.0;
+        queue.lower(s);
+
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+            if (!Double.isInfinite(wt[v])) {
+                for (int k = rowPtr[v]; k < rowPtr[v + 1]; k++) {
+                    int w = colIndex[k];
+                    double p = wt[v] + weights[k];
+                    if (p < wt[w]) {
+                        wt[w] = p;
+                        queue.lower(w);
+                    }
+                }
+            }
+        }
+
+        return wt;
+    }
+
+    /**
+     * Calculates the all pair shortest path by Dijkstra algorithm.
+     * The single-source searches run in parallel.
+     *
+     * @return the length of shortest path between vertices.
+     */
+    @Override
+    public double[][] dijkstra() {
+        return dijkstra(IntStream.range(0, getNumVertices()).toArray());
+    }
+
+    /**
+     * Calculates the shortest paths from multiple sources to all other
+     * vertices by Dijkstra algorithm. The single-source searches run
+     * in parallel.
+     *
+     * @param sources the source vertices.
+     * @return the length of shortest path from each source to other vertices.
+     */
+    public double[][] dijkstra(int[] sources) {
+        double[][] wt = new double[sources.length][];
+        IntStream.range(0, sources.length).parallel().forEach(i -> wt[i] = dijkstra(sources[i]));
+        return wt;
+    }
+
+    @Override
+    public SparseMatrix toMatrix() {
+        int n = getNumVertices();
+        // The CSR arrays of A are the CSC arrays of A'.
+        return new SparseMatrix(n, n, weights.clone(), colIndex.clone(), rowPtr.clone()).transpose();
+    }
+
+    /**
+     * Converts the graph to an adjacency list.
+     * @return the adjacency list.
+     */
+    public AdjacencyList toAdjacencyList() {
+        int n = getNumVertices();
+        AdjacencyList graph = new AdjacencyList(n, digraph);
+        for (int i = 0; i < n; i++) {
+            for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+                int j = colIndex[k];
+                if (digraph || j >= i) {
+                    graph.addEdge(i, j, weights[k]);
+                }
+            }
+        }
+        return graph;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CSRGraph(%d vertices, %d arcs, %s)", getNumVertices(), size(), digraph ? "directed" : "undirected");
+    }
+}
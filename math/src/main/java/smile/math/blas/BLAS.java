@@ -35,12 +35,35 @@ public interface BLAS {
     BLAS engine = getInstance();
 
     /**
-     * Creates an instance.
+     * Creates an instance. It tries MKL, OpenBLAS, and the pure Java
+     * implementation in order.
      * @return a BLAS instance.
      */
     static BLAS getInstance() {
         BLAS mkl = MKL();
-        return mkl != null ? mkl : new smile.math.blas.openblas.OpenBLAS();
+        if (mkl != null) return mkl;
+
+        BLAS openblas = OpenBLAS();
+        return openblas != null ? openblas : new smile.math.blas.jvm.JavaBLAS();
+    }
+
+    /**
+     * Creates an OpenBLAS instance.
+     * @return a BLAS instance of OpenBLAS, or null if the native library
+     * cannot be loaded.
+     */
+    static BLAS OpenBLAS() {
+        org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(BLAS.class);
+
+        try {
+            // Loads the native library in the static initializer.
+            Class.forName("org.bytedeco.openblas.global.openblas");
+            return new smile.math.blas.openblas.OpenBLAS();
+        } catch (Exception | LinkageError e) {
+            logger.warn("Failed to load OpenBLAS, fall back to pure Java BLAS: {}", e.toString());
+        }
+
+        return null;
     }
 
     /**
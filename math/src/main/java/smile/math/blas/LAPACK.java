@@ -37,12 +37,35 @@ public interface LAPACK {
     LAPACK engine = getInstance();
 
     /**
-     * Creates an instance.
+     * Creates an instance. It tries MKL, OpenBLAS, and the pure Java
+     * implementation in order.
      * @return a LAPACK instance.
      */
     static LAPACK getInstance() {
         LAPACK mkl = MKL();
-        return mkl != null ? mkl : new smile.math.blas.openblas.OpenBLAS();
+        if (mkl != null) return mkl;
+
+        LAPACK openblas = OpenBLAS();
+        return openblas != null ? openblas : new smile.math.blas.jvm.JavaLAPACK();
+    }
+
+    /**
+     * Creates an OpenBLAS instance.
+     * @return a LAPACK instance of OpenBLAS, or null if the native library
+     * cannot be loaded.
+     */
+    static LAPACK OpenBLAS() {
+        org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(LAPACK.class);
+
+        try {
+            // Loads the native library in the static initializer.
+            Class.forName("org.bytedeco.openblas.global.openblas");
+            return new smile.math.blas.openblas.OpenBLAS();
+        } catch (Exception | LinkageError e) {
+            logger.warn("Failed to load OpenBLAS, fall back to pure Java LAPACK: {}", e.toString());
+        }
+
+        return null;
     }
 
     /**
@@ -0,0 +1,1839 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.math.blas.jvm;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import org.bytedeco.javacpp.DoublePointer;
+import smile.math.blas.*;
+
+/**
+ * Pure Java implementation of BLAS. It is the fallback engine when
+ * neither MKL nor OpenBLAS native libraries can be loaded, e.g. in
+ * containers that prohibit native code. Matrix multiplication packs
+ * the blocks of operands into contiguous buffers that fit in the
+ * cache and computes the panels of result in parallel. The inner
+ * loops have unit stride and fused multiply-adds of several columns
+ * so that the JIT compiler can vectorize them with SIMD instructions.
+ * <p>
+ * The <code>DoublePointer</code> variants are not supported as the
+ * off-heap memory of JavaCPP requires the native libraries.
+ *
+ * @author Haifeng Li
+ */
+public class JavaBLAS implements BLAS {
+    /** The number of rows of packed block of A in gemm. */
+    static final int MC = 256;
+    /** The number of columns of packed block of A in gemm. */
+    static final int KC = 128;
+    /** The maximum number of columns of packed panel of B in gemm. */
+    static final int NC = 1024;
+    /** The minimum number of floating point operations to run in parallel. */
+    static final long PARALLEL_FLOPS = 1L << 20;
+
+    /** Constructor. */
+    public JavaBLAS() {
+
+    }
+
+    @Override
+    public double nrm2(int n, double[] x, int incx) {
+        if (n <= 0 || incx <= 0) return 0.0;
+
+        double ssq = 0.0;
+        for (int i = 0, ix = 0; i < n; i++, ix += incx) {
+            ssq += x[ix] * x[ix];
+        }
+
+        if (ssq >= Double.MIN_NORMAL && !Double.isInfinite(ssq)) {
+            return Math.sqrt(ssq);
+        }
+
+        // Scales the elements to avoid overflow or underflow.
+        double scale = 0.0;
+        ssq = 1.0;
+        for (int i = 0, ix = 0; i < n; i++, ix += incx) {
+            if (x[ix] != 0.0) {
+                double a = Math.abs(x[ix]);
+                if (scale < a) {
+                    ssq = 1.0 + ssq * (scale / a) * (scale / a);
+                    scale = a;
+                } else {
+                    ssq += (a / scale) * (a / scale);
+                }
+            }
+        }
+        return scale * Math.sqrt(ssq);
+    }
+
+    @Override
+    public float nrm2(int n, float[] x, int incx) {
+        if (n <= 0 || incx <= 0) return 0.0f;
+
+        // The sum of squares in double precision cannot overflow.
+        double ssq = 0.0;
+        for (int i = 0, ix = 0; i < n; i++, ix += incx) {
+            ssq += (double) x[ix] * x[ix];
+        }
+        return (float) Math.sqrt(ssq);
+    }
+
+    @Override
+    public void gemv(Layout layout, Transpose trans, int m, int n, double alpha, DoublePointer A, int lda, DoublePointer x, int incx, double beta, DoublePointer y, int incy) {
+        throw unsupported();
+    }
+
+    @Override
+    public void symv(Layout layout, UPLO uplo, int n, double alpha, DoublePointer A, int lda, DoublePointer x, int incx, double beta, DoublePointer y, int incy) {
+        throw unsupported();
+    }
+
+    @Override
+    public void trmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, DoublePointer A, int lda, DoublePointer x, int incx) {
+        throw unsupported();
+    }
+
+    @Override
+    public void ger(Layout layout, int m, int n, double alpha, DoublePointer x, int incx, DoublePointer y, int incy, DoublePointer A, int lda) {
+        throw unsupported();
+    }
+
+    @Override
+    public void syr(Layout layout, UPLO uplo, int n, double alpha, DoublePointer x, int incx, DoublePointer A, int lda) {
+        throw unsupported();
+    }
+
+    @Override
+    public void gemm(Layout layout, Transpose transA, Transpose transB, int m, int n, int k, double alpha, DoublePointer A, int lda, DoublePointer B, int ldb, double beta, DoublePointer C, int ldc) {
+        throw unsupported();
+    }
+
+    @Override
+    public void symm(Layout layout, Side side, UPLO uplo, int m, int n, double alpha, DoublePointer A, int lda, DoublePointer B, int ldb, double beta, DoublePointer C, int ldc) {
+        throw unsupported();
+    }
+
+    /**
+     * Returns the exception of off-heap memory operations.
+     * @return the exception of off-heap memory operations.
+     */
+    static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("DoublePointer requires native BLAS library");
+    }
+
+    /**
+     * Returns the index of first element of a strided vector. When
+     * working backward (inc &lt; 0), the vector starts at the end.
+     */
+    static int start(int n, int inc) {
+        return inc < 0 ? (1 - n) * inc : 0;
+    }
+
+    /**
+     * Returns the transpose operation on the transposed matrix.
+     */
+    static Transpose flip(Transpose trans) {
+        return trans == Transpose.NO_TRANSPOSE ? Transpose.TRANSPOSE : Transpose.NO_TRANSPOSE;
+    }
+
+    /**
+     * Returns the triangle of the transposed matrix.
+     */
+    static UPLO flip(UPLO uplo) {
+        return uplo == UPLO.UPPER ? UPLO.LOWER : UPLO.UPPER;
+    }
+
+    /**
+     * Returns the index of first stored element of column j in the
+     * column major packed storage.
+     */
+    static int packed(UPLO uplo, int n, int j) {
+        return uplo == UPLO.UPPER ? j * (j + 1) / 2 : j * (2 * n - j + 1) / 2;
+    }
+
+    /**
+     * Returns the number of columns of C computed by each task of gemm.
+     * The panels are narrowed so that all threads are busy.
+     */
+    private static int panel(int m, int n, int k) {
+        int threads = ForkJoinPool.getCommonPoolParallelism();
+        if (threads <= 1 || (long) m * n * k < PARALLEL_FLOPS) {
+            return Math.min(NC, n);
+        }
+        return Math.max(4, Math.min(NC, (n + threads - 1) / threads));
+    }
+
+    /**
+     * Returns a stream of indices that is parallel if the amount of
+     * work is large enough.
+     * @param begin the first index.
+     * @param end the last index exclusive.
+     * @param flops the number of floating point operations.
+     * @return the stream of indices.
+     */
+    static IntStream range(int begin, int end, long flops) {
+        IntStream stream = IntStream.range(begin, end);
+        return flops >= PARALLEL_FLOPS && end - begin > 1 ? stream.parallel() : stream;
+    }
+
+    @Override
+    public double asum(int n, double[] x, int incx) {
+        if (n <= 0 || incx <= 0) return 0.0;
+
+        double sum = 0.0;
+        for (int i = 0, ix = 0; i < n; i++, ix += incx) {
+            sum += Math.abs(x[ix]);
+        }
+        return sum;
+    }
+
+    @Override
+    public void axpy(int n, double alpha, double[] x, int incx, double[] y, int incy) {
+        if (n <= 0 || alpha == 0.0) return;
+
+        if (incx == 1 && incy == 1) {
+            daxpy(n, alpha, x, 0, y, 0);
+        } else {
+            for (int i = 0, ix = start(n, incx), iy = start(n, incy); i < n; i++, ix += incx, iy += incy) {
+                y[iy] += alpha * x[ix];
+            }
+        }
+    }
+
+    @Override
+    public double dot(int n, double[] x, int incx, double[] y, int incy) {
+        if (n <= 0) return 0.0;
+
+        if (incx == 1 && incy == 1) {
+            return ddot(n, x, 0, y, 0);
+        }
+
+        double sum = 0.0;
+        for (int i = 0, ix = start(n, incx), iy = start(n, incy); i < n; i++, ix += incx, iy += incy) {
+            sum += x[ix] * y[iy];
+        }
+        return sum;
+    }
+
+    @Override
+    public void scal(int n, double alpha, double[] x, int incx) {
+        if (n <= 0 || incx <= 0) return;
+
+        for (int i = 0, ix = 0; i < n; i++, ix += incx) {
+            x[ix] *= alpha;
+        }
+    }
+
+    @Override
+    public void swap(int n, double[] x, int incx, double[] y, int incy) {
+        for (int i = 0, ix = start(n, incx), iy = start(n, incy); i < n; i++, ix += incx, iy += incy) {
+            double t = x[ix];
+            x[ix] = y[iy];
+            y[iy] = t;
+        }
+    }
+
+    @Override
+    public long iamax(int n, double[] x, int incx) {
+        if (n <= 0 || incx <= 0) return 0;
+
+        int index = 0;
+        double max = Math.abs(x[0]);
+        for (int i = 1, ix = incx; i < n; i++, ix += incx) {
+            double a = Math.abs(x[ix]);
+            if (a > max) {
+                max = a;
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public void gemv(Layout layout, Transpose trans, int m, int n, double alpha, double[] A, int lda, double[] x, int incx, double beta, double[] y, int incy) {
+        dgemv(layout, trans, m, n, alpha, A, 0, lda, x, 0, incx, beta, y, 0, incy);
+    }
+
+    @Override
+    public void gemv(Layout layout, Transpose trans, int m, int n, double alpha, DoubleBuffer A, int lda, DoubleBuffer x, int incx, double beta, DoubleBuffer y, int incy) {
+        double[] ya = array(y);
+        dgemv(layout, trans, m, n, alpha, array(A), offset(A), lda, array(x), offset(x), incx, beta, ya, offset(y), incy);
+        write(ya, y);
+    }
+
+    @Override
+    public void symv(Layout layout, UPLO uplo, int n, double alpha, double[] A, int lda, double[] x, int incx, double beta, double[] y, int incy) {
+        dsymv(layout, uplo, n, alpha, A, 0, lda, x, 0, incx, beta, y, 0, incy);
+    }
+
+    @Override
+    public void symv(Layout layout, UPLO uplo, int n, double alpha, DoubleBuffer A, int lda, DoubleBuffer x, int incx, double beta, DoubleBuffer y, int incy) {
+        double[] ya = array(y);
+        dsymv(layout, uplo, n, alpha, array(A), offset(A), lda, array(x), offset(x), incx, beta, ya, offset(y), incy);
+        write(ya, y);
+    }
+
+    @Override
+    public void spmv(Layout layout, UPLO uplo, int n, double alpha, double[] A, double[] x, int incx, double beta, double[] y, int incy) {
+        dspmv(layout, uplo, n, alpha, A, 0, x, 0, incx, beta, y, 0, incy);
+    }
+
+    @Override
+    public void spmv(Layout layout, UPLO uplo, int n, double alpha, DoubleBuffer A, DoubleBuffer x, int incx, double beta, DoubleBuffer y, int incy) {
+        double[] ya = array(y);
+        dspmv(layout, uplo, n, alpha, array(A), offset(A), array(x), offset(x), incx, beta, ya, offset(y), incy);
+        write(ya, y);
+    }
+
+    @Override
+    public void trmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, double[] A, int lda, double[] x, int incx) {
+        dtrmv(layout, uplo, trans, diag, n, A, 0, lda, x, 0, incx);
+    }
+
+    @Override
+    public void trmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, DoubleBuffer A, int lda, DoubleBuffer x, int incx) {
+        double[] xa = array(x);
+        dtrmv(layout, uplo, trans, diag, n, array(A), offset(A), lda, xa, offset(x), incx);
+        write(xa, x);
+    }
+
+    @Override
+    public void tpmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, double[] A, double[] x, int incx) {
+        dtpmv(layout, uplo, trans, diag, n, A, 0, x, 0, incx);
+    }
+
+    @Override
+    public void tpmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, DoubleBuffer A, DoubleBuffer x, int incx) {
+        double[] xa = array(x);
+        dtpmv(layout, uplo, trans, diag, n, array(A), offset(A), xa, offset(x), incx);
+        write(xa, x);
+    }
+
+    @Override
+    public void gbmv(Layout layout, Transpose trans, int m, int n, int kl, int ku, double alpha, double[] A, int lda, double[] x, int incx, double beta, double[] y, int incy) {
+        dgbmv(layout, trans, m, n, kl, ku, alpha, A, 0, lda, x, 0, incx, beta, y, 0, incy);
+    }
+
+    @Override
+    public void gbmv(Layout layout, Transpose trans, int m, int n, int kl, int ku, double alpha, DoubleBuffer A, int lda, DoubleBuffer x, int incx, double beta, DoubleBuffer y, int incy) {
+        double[] ya = array(y);
+        dgbmv(layout, trans, m, n, kl, ku, alpha, array(A), offset(A), lda, array(x), offset(x), incx, beta, ya, offset(y), incy);
+        write(ya, y);
+    }
+
+    @Override
+    public void sbmv(Layout layout, UPLO uplo, int n, int k, double alpha, double[] A, int lda, double[] x, int incx, double beta, double[] y, int incy) {
+        dsbmv(layout, uplo, n, k, alpha, A, 0, lda, x, 0, incx, beta, y, 0, incy);
+    }
+
+    @Override
+    public void sbmv(Layout layout, UPLO uplo, int n, int k, double alpha, DoubleBuffer A, int lda, DoubleBuffer x, int incx, double beta, DoubleBuffer y, int incy) {
+        double[] ya = array(y);
+        dsbmv(layout, uplo, n, k, alpha, array(A), offset(A), lda, array(x), offset(x), incx, beta, ya, offset(y), incy);
+        write(ya, y);
+    }
+
+    @Override
+    public void ger(Layout layout, int m, int n, double alpha, double[] x, int incx, double[] y, int incy, double[] A, int lda) {
+        dger(layout, m, n, alpha, x, 0, incx, y, 0, incy, A, 0, lda);
+    }
+
+    @Override
+    public void ger(Layout layout, int m, int n, double alpha, DoubleBuffer x, int incx, DoubleBuffer y, int incy, DoubleBuffer A, int lda) {
+        double[] a = array(A);
+        dger(layout, m, n, alpha, array(x), offset(x), incx, array(y), offset(y), incy, a, offset(A), lda);
+        write(a, A);
+    }
+
+    @Override
+    public void syr(Layout layout, UPLO uplo, int n, double alpha, double[] x, int incx, double[] A, int lda) {
+        dsyr(layout, uplo, n, alpha, x, 0, incx, A, 0, lda);
+    }
+
+    @Override
+    public void syr(Layout layout, UPLO uplo, int n, double alpha, DoubleBuffer x, int incx, DoubleBuffer A, int lda) {
+        double[] a = array(A);
+        dsyr(layout, uplo, n, alpha, array(x), offset(x), incx, a, offset(A), lda);
+        write(a, A);
+    }
+
+    @Override
+    public void spr(Layout layout, UPLO uplo, int n, double alpha, double[] x, int incx, double[] A) {
+        dspr(layout, uplo, n, alpha, x, 0, incx, A, 0);
+    }
+
+    @Override
+    public void spr(Layout layout, UPLO uplo, int n, double alpha, DoubleBuffer x, int incx, DoubleBuffer A) {
+        double[] a = array(A);
+        dspr(layout, uplo, n, alpha, array(x), offset(x), incx, a, offset(A));
+        write(a, A);
+    }
+
+    @Override
+    public void gemm(Layout layout, Transpose transA, Transpose transB, int m, int n, int k, double alpha, double[] A, int lda, double[] B, int ldb, double beta, double[] C, int ldc) {
+        dgemm(layout, transA, transB, m, n, k, alpha, A, 0, lda, B, 0, ldb, beta, C, 0, ldc);
+    }
+
+    @Override
+    public void gemm(Layout layout, Transpose transA, Transpose transB, int m, int n, int k, double alpha, DoubleBuffer A, int lda, DoubleBuffer B, int ldb, double beta, DoubleBuffer C, int ldc) {
+        double[] c = array(C);
+        dgemm(layout, transA, transB, m, n, k, alpha, array(A), offset(A), lda, array(B), offset(B), ldb, beta, c, offset(C), ldc);
+        write(c, C);
+    }
+
+    @Override
+    public void symm(Layout layout, Side side, UPLO uplo, int m, int n, double alpha, double[] A, int lda, double[] B, int ldb, double beta, double[] C, int ldc) {
+        dsymm(layout, side, uplo, m, n, alpha, A, 0, lda, B, 0, ldb, beta, C, 0, ldc);
+    }
+
+    @Override
+    public void symm(Layout layout, Side side, UPLO uplo, int m, int n, double alpha, DoubleBuffer A, int lda, DoubleBuffer B, int ldb, double beta, DoubleBuffer C, int ldc) {
+        double[] c = array(C);
+        dsymm(layout, side, uplo, m, n, alpha, array(A), offset(A), lda, array(B), offset(B), ldb, beta, c, offset(C), ldc);
+        write(c, C);
+    }
+
+    /**
+     * Returns the backing array of a buffer, or a copy of its remaining
+     * elements if the buffer is direct or read-only.
+     */
+    static double[] array(DoubleBuffer buffer) {
+        if (buffer.hasArray()) {
+            return buffer.array();
+        }
+
+        double[] array = new double[buffer.remaining()];
+        buffer.duplicate().get(array);
+        return array;
+    }
+
+    /**
+     * Returns the offset of buffer position in the array of {@link #array(DoubleBuffer)}.
+     */
+    static int offset(DoubleBuffer buffer) {
+        return buffer.hasArray() ? buffer.arrayOffset() + buffer.position() : 0;
+    }
+
+    /**
+     * Writes back the copy of buffer elements if the buffer is not
+     * backed by the array.
+     */
+    static void write(double[] array, DoubleBuffer buffer) {
+        if (!buffer.hasArray()) {
+            buffer.duplicate().put(array);
+        }
+    }
+
+    /** Returns a contiguous copy of strided vector. */
+    private static double[] gather(int n, double[] x, int xo, int incx) {
+        double[] y = new double[n];
+        for (int i = 0, ix = xo + start(n, incx); i < n; i++, ix += incx) {
+            y[i] = x[ix];
+        }
+        return y;
+    }
+
+    /** Copies a contiguous vector to the strided one. */
+    private static void scatter(int n, double[] y, double[] x, int xo, int incx) {
+        for (int i = 0, ix = xo + start(n, incx); i < n; i++, ix += incx) {
+            x[ix] = y[i];
+        }
+    }
+
+    /** y = beta * y for contiguous y. Sets y = 0 if beta is 0 even if y contains NaN. */
+    static void dscal(int n, double beta, double[] y, int yo) {
+        if (beta == 0.0) {
+            Arrays.fill(y, yo, yo + n, 0.0);
+        } else if (beta != 1.0) {
+            for (int i = yo; i < yo + n; i++) {
+                y[i] *= beta;
+            }
+        }
+    }
+
+    /** y += alpha * x for contiguous vectors. */
+    static void daxpy(int n, double alpha, double[] x, int xo, double[] y, int yo) {
+        for (int i = 0; i < n; i++) {
+            y[yo + i] += alpha * x[xo + i];
+        }
+    }
+
+    /** Returns the dot product of contiguous vectors with four partial sums. */
+    static double ddot(int n, double[] x, int xo, double[] y, int yo) {
+        double s0 = 0.0, s1 = 0.0, s2 = 0.0, s3 = 0.0;
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            s0 += x[xo + i] * y[yo + i];
+            s1 += x[xo + i + 1] * y[yo + i + 1];
+            s2 += x[xo + i + 2] * y[yo + i + 2];
+            s3 += x[xo + i + 3] * y[yo + i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += x[xo + i] * y[yo + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** General matrix-vector multiplication. */
+    static void dgemv(Layout layout, Transpose trans, int m, int n, double alpha, double[] A, int ao, int lda, double[] x, int xo, int incx, double beta, double[] y, int yo, int incy) {
+        if (layout == Layout.ROW_MAJOR) {
+            // A row major matrix is the transpose of a column major one.
+            int t = m;
+            m = n;
+            n = t;
+            trans = flip(trans);
+        }
+
+        boolean transposed = trans != Transpose.NO_TRANSPOSE;
+        int lenx = transposed ? m : n;
+        int leny = transposed ? n : m;
+        if (m <= 0 || n <= 0) return;
+
+        if (incx != 1) {
+            x = gather(lenx, x, xo, incx);
+            xo = 0;
+        }
+
+        double[] yv = y;
+        int yvo = yo;
+        if (incy != 1) {
+            yv = gather(leny, y, yo, incy);
+            yvo = 0;
+        }
+
+        dscal(leny, beta, yv, yvo);
+        if (alpha != 0.0) {
+            if (transposed) {
+                for (int j = 0; j < n; j++) {
+                    yv[yvo + j] += alpha * ddot(m, A, ao + j * lda, x, xo);
+                }
+            } else {
+                // Four columns at a time to save the loads and stores of y.
+                int j = 0;
+                for (; j + 3 < n; j += 4) {
+                    double t0 = alpha * x[xo + j];
+                    double t1 = alpha * x[xo + j + 1];
+                    double t2 = alpha * x[xo + j + 2];
+                    double t3 = alpha * x[xo + j + 3];
+                    int a0 = ao + j * lda;
+                    int a1 = a0 + lda;
+                    int a2 = a1 + lda;
+                    int a3 = a2 + lda;
+                    for (int i = 0; i < m; i++) {
+                        yv[yvo + i] += t0 * A[a0 + i] + t1 * A[a1 + i] + t2 * A[a2 + i] + t3 * A[a3 + i];
+                    }
+                }
+                for (; j < n; j++) {
+                    daxpy(m, alpha * x[xo + j], A, ao + j * lda, yv, yvo);
+                }
+            }
+        }
+
+        if (incy != 1) {
+            scatter(leny, yv, y, yo, incy);
+        }
+    }
+
+    /** Symmetric matrix-vector multiplication. */
+    static void dsymv(Layout layout, UPLO uplo, int n, double alpha, double[] A, int ao, int lda, double[] x, int xo, int incx, double beta, double[] y, int yo, int incy) {
+        if (n <= 0) return;
+        if (layout == Layout.ROW_MAJOR) {
+            uplo = flip(uplo);
+        }
+
+        if (incx != 1) {
+            x = gather(n, x, xo, incx);
+            xo = 0;
+        }
+
+        double[] yv = y;
+        int yvo = yo;
+        if (incy != 1) {
+            yv = gather(n, y, yo, incy);
+            yvo = 0;
+        }
+
+        dscal(n, beta, yv, yvo);
+        if (alpha != 0.0) {
+            for (int j = 0; j < n; j++) {
+                double t = alpha * x[xo + j];
+                int aj = ao + j * lda;
+                if (uplo == UPLO.UPPER) {
+                    daxpy(j, t, A, aj, yv, yvo);
+                    yv[yvo + j] += t * A[aj + j] + alpha * ddot(j, A, aj, x, xo);
+                } else {
+                    int len = n - j - 1;
+                    daxpy(len, t, A, aj + j + 1, yv, yvo + j + 1);
+                    yv[yvo + j] += t * A[aj + j] + alpha * ddot(len, A, aj + j + 1, x, xo + j + 1);
+                }
+            }
+        }
+
+        if (incy != 1) {
+            scatter(n, yv, y, yo, incy);
+        }
+    }
+
+    /** Symmetric packed matrix-vector multiplication. */
+    static void dspmv(Layout layout, UPLO uplo, int n, double alpha, double[] A, int ao, double[] x, int xo, int incx, double beta, double[] y, int yo, int incy) {
+        if (n <= 0) return;
+        if (layout == Layout.ROW_MAJOR) {
+            uplo = flip(uplo);
+        }
+
+        if (incx != 1) {
+            x = gather(n, x, xo, incx);
+            xo = 0;
+        }
+
+        double[] yv = y;
+        int yvo = yo;
+        if (incy != 1) {
+            yv = gather(n, y, yo, incy);
+            yvo = 0;
+        }
+
+        dscal(n, beta, yv, yvo);
+        if (alpha != 0.0) {
+            for (int j = 0; j < n; j++) {
+                double t = alpha * x[xo + j];
+                int aj = ao + packed(uplo, n, j);
+                if (uplo == UPLO.UPPER) {
+                    daxpy(j, t, A, aj, yv, yvo);
+                    yv[yvo + j] += t * A[aj + j] + alpha * ddot(j, A, aj, x, xo);
+                } else {
+                    int len = n - j - 1;
+                    daxpy(len, t, A, aj + 1, yv, yvo + j + 1);
+                    yv[yvo + j] += t * A[aj] + alpha * ddot(len, A, aj + 1, x, xo + j + 1);
+                }
+            }
+        }
+
+        if (incy != 1) {
+            scatter(n, yv, y, yo, incy);
+        }
+    }
+
+    /** Triangular matrix-vector multiplication. */
+    static void dtrmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, double[] A, int ao, int lda, double[] x, int xo, int incx) {
+        if (n <= 0) return;
+        if (layout == Layout.ROW_MAJOR) {
+            uplo = flip(uplo);
+            trans = flip(trans);
+        }
+
+        double[] xv = x;
+        int xvo = xo;
+        if (incx != 1) {
+            xv = gather(n, x, xo, incx);
+            xvo = 0;
+        }
+
+        boolean unit = diag == Diag.UNIT;
+        if (trans == Transpose.NO_TRANSPOSE) {
+            if (uplo == UPLO.UPPER) {
+                for (int j = 0; j < n; j++) {
+                    int aj = ao + j * lda;
+                    daxpy(j, xv[xvo + j], A, aj, xv, xvo);
+                    if (!unit) xv[xvo + j] *= A[aj + j];
+                }
+            } else {
+                for (int j = n - 1; j >= 0; j--) {
+                    int aj = ao + j * lda;
+                    daxpy(n - j - 1, xv[xvo + j], A, aj + j + 1, xv, xvo + j + 1);
+                    if (!unit) xv[xvo + j] *= A[aj + j];
+                }
+            }
+        } else {
+            if (uplo == UPLO.UPPER) {
+                for (int j = n - 1; j >= 0; j--) {
+                    int aj = ao + j * lda;
+                    double t = unit ? xv[xvo + j] : xv[xvo + j] * A[aj + j];
+                    xv[xvo + j] = t + ddot(j, A, aj, xv, xvo);
+                }
+            } else {
+                for (int j = 0; j < n; j++) {
+                    int aj = ao + j * lda;
+                    double t = unit ? xv[xvo + j] : xv[xvo + j] * A[aj + j];
+                    xv[xvo + j] = t + ddot(n - j - 1, A, aj + j + 1, xv, xvo + j + 1);
+                }
+            }
+        }
+
+        if (incx != 1) {
+            scatter(n, xv, x, xo, incx);
+        }
+    }
+
+    /** Triangular packed matrix-vector multiplication. */
+    static void dtpmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, double[] A, int ao, double[] x, int xo, int incx) {
+        if (n <= 0) return;
+        if (layout == Layout.ROW_MAJOR) {
+            uplo = flip(uplo);
+            trans = flip(trans);
+        }
+
+        double[] xv = x;
+        int xvo = xo;
+        if (incx != 1) {
+            xv = gather(n, x, xo, incx);
+            xvo = 0;
+        }
+
+        // The (i, j) element is at aj + i for upper and aj + i - j for lower.
+        boolean unit = diag == Diag.UNIT;
+        if (trans == Transpose.NO_TRANSPOSE) {
+            if (uplo == UPLO.UPPER) {
+                for (int j = 0; j < n; j++) {
+                    int aj = ao + packed(uplo, n, j);
+                    daxpy(j, xv[xvo + j], A, aj, xv, xvo);
+                    if (!unit) xv[xvo + j] *= A[aj + j];
+                }
+            } else {
+                for (int j = n - 1; j >= 0; j--) {
+                    int aj = ao + packed(uplo, n, j);
+                    daxpy(n - j - 1, xv[xvo + j], A, aj + 1, xv, xvo + j + 1);
+                    if (!unit) xv[xvo + j] *= A[aj];
+                }
+            }
+        } else {
+            if (uplo == UPLO.UPPER) {
+                for (int j = n - 1; j >= 0; j--) {
+                    int aj = ao + packed(uplo, n, j);
+                    double t = unit ? xv[xvo + j] : xv[xvo + j] * A[aj + j];
+                    xv[xvo + j] = t + ddot(j, A, aj, xv, xvo);
+                }
+            } else {
+                for (int j = 0; j < n; j++) {
+                    int aj = ao + packed(uplo, n, j);
+                    double t = unit ? xv[xvo + j] : xv[xvo + j] * A[aj];
+                    xv[xvo + j] = t + ddot(n - j - 1, A, aj + 1, xv, xvo + j + 1);
+                }
+            }
+        }
+
+        if (incx != 1) {
+            scatter(n, xv, x, xo, incx);
+        }
+    }
+
+    /** General band matrix-vector multiplication. */
+    static void dgbmv(Layout layout, Transpose trans, int m, int n, int kl, int ku, double alpha, double[] A, int ao, int lda, double[] x, int xo, int incx, double beta, double[] y, int yo, int incy) {
+        if (layout == Layout.ROW_MAJOR) {
+            // A row major band matrix is the transpose of a column major one.
+            int t = m;
+            m = n;
+            n = t;
+            t = kl;
+            kl = ku;
+            ku = t;
+            trans = flip(trans);
+        }
+
+        boolean transposed = trans != Transpose.NO_TRANSPOSE;
+        int lenx = transposed ? m : n;
+        int leny = transposed ? n : m;
+        if (m <= 0 || n <= 0) return;
+
+        if (incx != 1) {
+            x = gather(lenx, x, xo, incx);
+            xo = 0;
+        }
+
+        double[] yv = y;
+        int yvo = yo;
+        if (incy != 1) {
+            yv = gather(leny, y, yo, incy);
+            yvo = 0;
+        }
+
+        // The (i, j) element is at ao + ku + i - j + j * lda.
+        dscal(leny, beta, yv, yvo);
+        if (alpha != 0.0) {
+            for (int j = 0; j < n; j++) {
+                int i0 = Math.max(0, j - ku);
+                int i1 = Math.min(m, j + kl + 1);
+                if (i0 >= i1) continue;
+                int aj = ao + ku - j + j * lda;
+                if (transposed) {
+                    yv[yvo + j] += alpha * ddot(i1 - i0, A, aj + i0, x, xo + i0);
+                } else {
+                    daxpy(i1 - i0, alpha * x[xo + j], A, aj + i0, yv, yvo + i0);
+                }
+            }
+        }
+
+        if (incy != 1) {
+            scatter(leny, yv, y, yo, incy);
+        }
+    }
+
+    /** Symmetric band matrix-vector multiplication. */
+    static void dsbmv(Layout layout, UPLO uplo, int n, int k, double alpha, double[] A, int ao, int lda, double[] x, int xo, int incx, double beta, double[] y, int yo, int incy) {
+        if (n <= 0) return;
+        if (layout == Layout.ROW_MAJOR) {
+            uplo = flip(uplo);
+        }
+
+        if (incx != 1) {
+            x = gather(n, x, xo, incx);
+            xo = 0;
+        }
+
+        double[] yv = y;
+        int yvo = yo;
+        if (incy != 1) {
+            yv = gather(n, y, yo, incy);
+            yvo = 0;
+        }
+
+        // The (i, j) element is at ao + k + i - j + j * lda for upper
+        // and ao + i - j + j * lda for lower.
+        dscal(n, beta, yv, yvo);
+        if (alpha != 0.0) {
+            for (int j = 0; j < n; j++) {
+                double t = alpha * x[xo + j];
+                if (uplo == UPLO.UPPER) {
+                    int i0 = Math.max(0, j - k);
+                    int aj = ao + k - j + j * lda;
+                    daxpy(j - i0, t, A, aj + i0, yv, yvo + i0);
+                    yv[yvo + j] += t * A[aj + j] + alpha * ddot(j - i0, A, aj + i0, x, xo + i0);
+                } else {
+                    int i1 = Math.min(n, j + k + 1);
+                    int aj = ao - j + j * lda;
+                    daxpy(i1 - j - 1, t, A, aj + j + 1, yv, yvo + j + 1);
+                    yv[yvo + j] += t * A[aj + j] + alpha * ddot(i1 - j - 1, A, aj + j + 1, x, xo + j + 1);
+                }
+            }
+        }
+
+        if (incy != 1) {
+            scatter(n, yv, y, yo, incy);
+        }
+    }
+
+    /** Rank-1 update of general matrix. */
+    static void dger(Layout layout, int m, int n, double alpha, double[] x, int xo, int incx, double[] y, int yo, int incy, double[] A, int ao, int lda) {
+        if (layout == Layout.ROW_MAJOR) {
+            // A' = A' + alpha * y * x' in column major.
+            dger(Layout.COL_MAJOR, n, m, alpha, y, yo, incy, x, xo, incx, A, ao, lda);
+            return;
+        }
+
+        if (m <= 0 || n <= 0 || alpha == 0.0) return;
+
+        if (incx != 1) {
+            x = gather(m, x, xo, incx);
+            xo = 0;
+        }
+
+        if (incy != 1) {
+            y = gather(n, y, yo, incy);
+            yo = 0;
+        }
+
+        for (int j = 0; j < n; j++) {
+            daxpy(m, alpha * y[yo + j], x, xo, A, ao + j * lda);
+        }
+    }
+
+    /** Rank-1 update of symmetric matrix. */
+    static void dsyr(Layout layout, UPLO uplo, int n, double alpha, double[] x, int xo, int incx, double[] A, int ao, int lda) {
+        if (n <= 0 || alpha == 0.0) return;
+        if (layout == Layout.ROW_MAJOR) {
+            uplo = flip(uplo);
+        }
+
+        if (incx != 1) {
+            x = gather(n, x, xo, incx);
+            xo = 0;
+        }
+
+        for (int j = 0; j < n; j++) {
+            double t = alpha * x[xo + j];
+            int aj = ao + j * lda;
+            if (uplo == UPLO.UPPER) {
+                daxpy(j + 1, t, x, xo, A, aj);
+            } else {
+                daxpy(n - j, t, x, xo + j, A, aj + j);
+            }
+        }
+    }
+
+    /** Rank-1 update of symmetric packed matrix. */
+    static void dspr(Layout layout, UPLO uplo, int n, double alpha, double[] x, int xo, int incx, double[] A, int ao) {
+        if (n <= 0 || alpha == 0.0) return;
+        if (layout == Layout.ROW_MAJOR) {
+            uplo = flip(uplo);
+        }
+
+        if (incx != 1) {
+            x = gather(n, x, xo, incx);
+            xo = 0;
+        }
+
+        for (int j = 0; j < n; j++) {
+            double t = alpha * x[xo + j];
+            int aj = ao + packed(uplo, n, j);
+            if (uplo == UPLO.UPPER) {
+                daxpy(j + 1, t, x, xo, A, aj);
+            } else {
+                daxpy(n - j, t, x, xo + j, A, aj);
+            }
+        }
+    }
+
+    /**
+     * General matrix-matrix multiplication. The blocks of A and B are
+     * packed into contiguous buffers so that the inner kernel streams
+     * through the cache with unit stride. The column panels of C are
+     * computed in parallel for large matrices.
+     */
+    static void dgemm(Layout layout, Transpose transA, Transpose transB, int m, int n, int k, double alpha, double[] A, int ao, int lda, double[] B, int bo, int ldb, double beta, double[] C, int co, int ldc) {
+        if (layout == Layout.ROW_MAJOR) {
+            // C' = alpha * B' * A' + beta * C' in column major.
+            dgemm(Layout.COL_MAJOR, transB, transA, n, m, k, alpha, B, bo, ldb, A, ao, lda, beta, C, co, ldc);
+            return;
+        }
+
+        if (m <= 0 || n <= 0) return;
+
+        for (int j = 0; j < n; j++) {
+            dscal(m, beta, C, co + j * ldc);
+        }
+
+        if (alpha == 0.0 || k <= 0) return;
+
+        boolean ta = transA != Transpose.NO_TRANSPOSE;
+        boolean tb = transB != Transpose.NO_TRANSPOSE;
+        int nc = panel(m, n, k);
+        range(0, (n + nc - 1) / nc, (long) m * n * k).forEach(jb -> {
+            int j0 = jb * nc;
+            int nb = Math.min(nc, n - j0);
+            double[] packA = new double[Math.min(MC, m) * Math.min(KC, k)];
+            double[] packB = new double[Math.min(KC, k) * nb];
+            for (int p0 = 0; p0 < k; p0 += KC) {
+                int kb = Math.min(KC, k - p0);
+                // Packs alpha * op(B)[p0:p0+kb, j0:j0+nb] in column major.
+                for (int j = 0; j < nb; j++) {
+                    for (int p = 0; p < kb; p++) {
+                        packB[p + j * kb] = alpha * (tb ? B[bo + j0 + j + (p0 + p) * ldb] : B[bo + p0 + p + (j0 + j) * ldb]);
+                    }
+                }
+
+                for (int i0 = 0; i0 < m; i0 += MC) {
+                    int mb = Math.min(MC, m - i0);
+                    // Packs op(A)[i0:i0+mb, p0:p0+kb] in column major.
+                    if (ta) {
+                        for (int i = 0; i < mb; i++) {
+                            int ai = ao + p0 + (i0 + i) * lda;
+                            for (int p = 0; p < kb; p++) {
+                                packA[i + p * mb] = A[ai + p];
+                            }
+                        }
+                    } else {
+                        for (int p = 0; p < kb; p++) {
+                            System.arraycopy(A, ao + i0 + (p0 + p) * lda, packA, p * mb, mb);
+                        }
+                    }
+
+                    dgebp(mb, nb, kb, packA, packB, C, co + i0 + j0 * ldc, ldc);
+                }
+            }
+        });
+    }
+
+    /**
+     * The inner kernel of matrix multiplication C += A * B, where A is
+     * a packed m x k block and B is a packed k x n panel. Four rank-1
+     * updates are fused to save the loads and stores of C.
+     */
+    private static void dgebp(int m, int n, int k, double[] A, double[] B, double[] C, int co, int ldc) {
+        for (int j = 0; j < n; j++) {
+            int cj = co + j * ldc;
+            int bj = j * k;
+            int p = 0;
+            for (; p + 3 < k; p += 4) {
+                double b0 = B[bj + p];
+                double b1 = B[bj + p + 1];
+                double b2 = B[bj + p + 2];
+                double b3 = B[bj + p + 3];
+                int a0 = p * m;
+                int a1 = a0 + m;
+                int a2 = a1 + m;
+                int a3 = a2 + m;
+                for (int i = 0; i < m; i++) {
+                    C[cj + i] += b0 * A[a0 + i] + b1 * A[a1 + i] + b2 * A[a2 + i] + b3 * A[a3 + i];
+                }
+            }
+            for (; p < k; p++) {
+                daxpy(m, B[bj + p], A, p * m, C, cj);
+            }
+        }
+    }
+
+    /** Symmetric matrix-matrix multiplication. */
+    static void dsymm(Layout layout, Side side, UPLO uplo, int m, int n, double alpha, double[] A, int ao, int lda, double[] B, int bo, int ldb, double beta, double[] C, int co, int ldc) {
+        if (layout == Layout.ROW_MAJOR) {
+            // C' = alpha * B' * A + beta * C' in column major for left side.
+            dsymm(Layout.COL_MAJOR, side == Side.LEFT ? Side.RIGHT : Side.LEFT, flip(uplo), n, m, alpha, A, ao, lda, B, bo, ldb, beta, C, co, ldc);
+            return;
+        }
+
+        // Expands the symmetric matrix to use the blocked gemm.
+        int na = side == Side.LEFT ? m : n;
+        double[] full = new double[na * na];
+        for (int j = 0; j < na; j++) {
+            for (int i = 0; i < na; i++) {
+                boolean stored = uplo == UPLO.UPPER ? i <= j : i >= j;
+                full[i + j * na] = stored ? A[ao + i + j * lda] : A[ao + j + i * lda];
+            }
+        }
+
+        if (side == Side.LEFT) {
+            dgemm(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, Transpose.NO_TRANSPOSE, m, n, m, alpha, full, 0, na, B, bo, ldb, beta, C, co, ldc);
+        } else {
+            dgemm(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, Transpose.NO_TRANSPOSE, m, n, n, alpha, B, bo, ldb, full, 0, na, beta, C, co, ldc);
+        }
+    }
+
+    @Override
+    public float asum(int n, float[] x, int incx) {
+        if (n <= 0 || incx <= 0) return 0.0f;
+
+        float sum = 0.0f;
+        for (int i = 0, ix = 0; i < n; i++, ix += incx) {
+            sum += Math.abs(x[ix]);
+        }
+        return sum;
+    }
+
+    @Override
+    public void axpy(int n, float alpha, float[] x, int incx, float[] y, int incy) {
+        if (n <= 0 || alpha == 0.0f) return;
+
+        if (incx == 1 && incy == 1) {
+            saxpy(n, alpha, x, 0, y, 0);
+        } else {
+            for (int i = 0, ix = start(n, incx), iy = start(n, incy); i < n; i++, ix += incx, iy += incy) {
+                y[iy] += alpha * x[ix];
+            }
+        }
+    }
+
+    @Override
+    public float dot(int n, float[] x, int incx, float[] y, int incy) {
+        if (n <= 0) return 0.0f;
+
+        if (incx == 1 && incy == 1) {
+            return sdot(n, x, 0, y, 0);
+        }
+
+        float sum = 0.0f;
+        for (int i = 0, ix = start(n, incx), iy = start(n, incy); i < n; i++, ix += incx, iy += incy) {
+            sum += x[ix] * y[iy];
+        }
+        return sum;
+    }
+
+    @Override
+    public void scal(int n, float alpha, float[] x, int incx) {
+        if (n <= 0 || incx <= 0) return;
+
+        for (int i = 0, ix = 0; i < n; i++, ix += incx) {
+            x[ix] *= alpha;
+        }
+    }
+
+    @Override
+    public void swap(int n, float[] x, int incx, float[] y, int incy) {
+        for (int i = 0, ix = start(n, incx), iy = start(n, incy); i < n; i++, ix += incx, iy += incy) {
+            float t = x[ix];
+            x[ix] = y[iy];
+            y[iy] = t;
+        }
+    }
+
+    @Override
+    public long iamax(int n, float[] x, int incx) {
+        if (n <= 0 || incx <= 0) return 0;
+
+        int index = 0;
+        float max = Math.abs(x[0]);
+        for (int i = 1, ix = incx; i < n; i++, ix += incx) {
+            float a = Math.abs(x[ix]);
+            if (a > max) {
+                max = a;
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public void gemv(Layout layout, Transpose trans, int m, int n, float alpha, float[] A, int lda, float[] x, int incx, float beta, float[] y, int incy) {
+        sgemv(layout, trans, m, n, alpha, A, 0, lda, x, 0, incx, beta, y, 0, incy);
+    }
+
+    @Override
+    public void gemv(Layout layout, Transpose trans, int m, int n, float alpha, FloatBuffer A, int lda, FloatBuffer x, int incx, float beta, FloatBuffer y, int incy) {
+        float[] ya = array(y);
+        sgemv(layout, trans, m, n, alpha, array(A), offset(A), lda, array(x), offset(x), incx, beta, ya, offset(y), incy);
+        write(ya, y);
+    }
+
+    @Override
+    public void symv(Layout layout, UPLO uplo, int n, float alpha, float[] A, int lda, float[] x, int incx, float beta, float[] y, int incy) {
+        ssymv(layout, uplo, n, alpha, A, 0, lda, x, 0, incx, beta, y, 0, incy);
+    }
+
+    @Override
+    public void symv(Layout layout, UPLO uplo, int n, float alpha, FloatBuffer A, int lda, FloatBuffer x, int incx, float beta, FloatBuffer y, int incy) {
+        float[] ya = array(y);
+        ssymv(layout, uplo, n, alpha, array(A), offset(A), lda, array(x), offset(x), incx, beta, ya, offset(y), incy);
+        write(ya, y);
+    }
+
+    @Override
+    public void spmv(Layout layout, UPLO uplo, int n, float alpha, float[] A, float[] x, int incx, float beta, float[] y, int incy) {
+        sspmv(layout, uplo, n, alpha, A, 0, x, 0, incx, beta, y, 0, incy);
+    }
+
+    @Override
+    public void spmv(Layout layout, UPLO uplo, int n, float alpha, FloatBuffer A, FloatBuffer x, int incx, float beta, FloatBuffer y, int incy) {
+        float[] ya = array(y);
+        sspmv(layout, uplo, n, alpha, array(A), offset(A), array(x), offset(x), incx, beta, ya, offset(y), incy);
+        write(ya, y);
+    }
+
+    @Override
+    public void trmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, float[] A, int lda, float[] x, int incx) {
+        strmv(layout, uplo, trans, diag, n, A, 0, lda, x, 0, incx);
+    }
+
+    @Override
+    public void trmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, FloatBuffer A, int lda, FloatBuffer x, int incx) {
+        float[] xa = array(x);
+        strmv(layout, uplo, trans, diag, n, array(A), offset(A), lda, xa, offset(x), incx);
+        write(xa, x);
+    }
+
+    @Override
+    public void tpmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, float[] A, float[] x, int incx) {
+        stpmv(layout, uplo, trans, diag, n, A, 0, x, 0, incx);
+    }
+
+    @Override
+    public void tpmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, FloatBuffer A, FloatBuffer x, int incx) {
+        float[] xa = array(x);
+        stpmv(layout, uplo, trans, diag, n, array(A), offset(A), xa, offset(x), incx);
+        write(xa, x);
+    }
+
+    @Override
+    public void gbmv(Layout layout, Transpose trans, int m, int n, int kl, int ku, float alpha, float[] A, int lda, float[] x, int incx, float beta, float[] y, int incy) {
+        sgbmv(layout, trans, m, n, kl, ku, alpha, A, 0, lda, x, 0, incx, beta, y, 0, incy);
+    }
+
+    @Override
+    public void gbmv(Layout layout, Transpose trans, int m, int n, int kl, int ku, float alpha, FloatBuffer A, int lda, FloatBuffer x, int incx, float beta, FloatBuffer y, int incy) {
+        float[] ya = array(y);
+        sgbmv(layout, trans, m, n, kl, ku, alpha, array(A), offset(A), lda, array(x), offset(x), incx, beta, ya, offset(y), incy);
+        write(ya, y);
+    }
+
+    @Override
+    public void sbmv(Layout layout, UPLO uplo, int n, int k, float alpha, float[] A, int lda, float[] x, int incx, float beta, float[] y, int incy) {
+        ssbmv(layout, uplo, n, k, alpha, A, 0, lda, x, 0, incx, beta, y, 0, incy);
+    }
+
+    @Override
+    public void sbmv(Layout layout, UPLO uplo, int n, int k, float alpha, FloatBuffer A, int lda, FloatBuffer x, int incx, float beta, FloatBuffer y, int incy) {
+        float[] ya = array(y);
+        ssbmv(layout, uplo, n, k, alpha, array(A), offset(A), lda, array(x), offset(x), incx, beta, ya, offset(y), incy);
+        write(ya, y);
+    }
+
+    @Override
+    public void ger(Layout layout, int m, int n, float alpha, float[] x, int incx, float[] y, int incy, float[] A, int lda) {
+        sger(layout, m, n, alpha, x, 0, incx, y, 0, incy, A, 0, lda);
+    }
+
+    @Override
+    public void ger(Layout layout, int m, int n, float alpha, FloatBuffer x, int incx, FloatBuffer y, int incy, FloatBuffer A, int lda) {
+        float[] a = array(A);
+        sger(layout, m, n, alpha, array(x), offset(x), incx, array(y), offset(y), incy, a, offset(A), lda);
+        write(a, A);
+    }
+
+    @Override
+    public void syr(Layout layout, UPLO uplo, int n, float alpha, float[] x, int incx, float[] A, int lda) {
+        ssyr(layout, uplo, n, alpha, x, 0, incx, A, 0, lda);
+    }
+
+    @Override
+    public void syr(Layout layout, UPLO uplo, int n, float alpha, FloatBuffer x, int incx, FloatBuffer A, int lda) {
+        float[] a = array(A);
+        ssyr(layout, uplo, n, alpha, array(x), offset(x), incx, a, offset(A), lda);
+        write(a, A);
+    }
+
+    @Override
+    public void spr(Layout layout, UPLO uplo, int n, float alpha, float[] x, int incx, float[] A) {
+        sspr(layout, uplo, n, alpha, x, 0, incx, A, 0);
+    }
+
+    @Override
+    public void spr(Layout layout, UPLO uplo, int n, float alpha, FloatBuffer x, int incx, FloatBuffer A) {
+        float[] a = array(A);
+        sspr(layout, uplo, n, alpha, array(x), offset(x), incx, a, offset(A));
+        write(a, A);
+    }
+
+    @Override
+    public void gemm(Layout layout, Transpose transA, Transpose transB, int m, int n, int k, float alpha, float[] A, int lda, float[] B, int ldb, float beta, float[] C, int ldc) {
+        sgemm(layout, transA, transB, m, n, k, alpha, A, 0, lda, B, 0, ldb, beta, C, 0, ldc);
+    }
+
+    @Override
+    public void gemm(Layout layout, Transpose transA, Transpose transB, int m, int n, int k, float alpha, FloatBuffer A, int lda, FloatBuffer B, int ldb, float beta, FloatBuffer C, int ldc) {
+        float[] c = array(C);
+        sgemm(layout, transA, transB, m, n, k, alpha, array(A), offset(A), lda, array(B), offset(B), ldb, beta, c, offset(C), ldc);
+        write(c, C);
+    }
+
+    @Override
+    public void symm(Layout layout, Side side, UPLO uplo, int m, int n, float alpha, float[] A, int lda, float[] B, int ldb, float beta, float[] C, int ldc) {
+        ssymm(layout, side, uplo, m, n, alpha, A, 0, lda, B, 0, ldb, beta, C, 0, ldc);
+    }
+
+    @Override
+    public void symm(Layout layout, Side side, UPLO uplo, int m, int n, float alpha, FloatBuffer A, int lda, FloatBuffer B, int ldb, float beta, FloatBuffer C, int ldc) {
+        float[] c = array(C);
+        ssymm(layout, side, uplo, m, n, alpha, array(A), offset(A), lda, array(B), offset(B), ldb, beta, c, offset(C), ldc);
+        write(c, C);
+    }
+
+    /**
+     * Returns the backing array of a buffer, or a copy of its remaining
+     * elements if the buffer is direct or read-only.
+     */
+    static float[] array(FloatBuffer buffer) {
+        if (buffer.hasArray()) {
+            return buffer.array();
+        }
+
+        float[] array = new float[buffer.remaining()];
+        buffer.duplicate().get(array);
+        return array;
+    }
+
+    /**
+     * Returns the offset of buffer position in the array of {@link #array(FloatBuffer)}.
+     */
+    static int offset(FloatBuffer buffer) {
+        return buffer.hasArray() ? buffer.arrayOffset() + buffer.position() : 0;
+    }
+
+    /**
+     * Writes back the copy of buffer elements if the buffer is not
+     * backed by the array.
+     */
+    static void write(float[] array, FloatBuffer buffer) {
+        if (!buffer.hasArray()) {
+            buffer.duplicate().put(array);
+        }
+    }
+
+    /** Returns a contiguous copy of strided vector. */
+    private static float[] gather(int n, float[] x, int xo, int incx) {
+        float[] y = new float[n];
+        for (int i = 0, ix = xo + start(n, incx); i < n; i++, ix += incx) {
+            y[i] = x[ix];
+        }
+        return y;
+    }
+
+    /** Copies a contiguous vector to the strided one. */
+    private static void scatter(int n, float[] y, float[] x, int xo, int incx) {
+        for (int i = 0, ix = xo + start(n, incx); i < n; i++, ix += incx) {
+            x[ix] = y[i];
+        }
+    }
+
+    /** y = beta * y for contiguous y. Sets y = 0 if beta is 0 even if y contains NaN. */
+    static void sscal(int n, float beta, float[] y, int yo) {
+        if (beta == 0.0f) {
+            Arrays.fill(y, yo, yo + n, 0.0f);
+        } else if (beta != 1.0f) {
+            for (int i = yo; i < yo + n; i++) {
+                y[i] *= beta;
+            }
+        }
+    }
+
+    /** y += alpha * x for contiguous vectors. */
+    static void saxpy(int n, float alpha, float[] x, int xo, float[] y, int yo) {
+        for (int i = 0; i < n; i++) {
+            y[yo + i] += alpha * x[xo + i];
+        }
+    }
+
+    /** Returns the dot product of contiguous vectors with four partial sums. */
+    static float sdot(int n, float[] x, int xo, float[] y, int yo) {
+        float s0 = 0.0f, s1 = 0.0f, s2 = 0.0f, s3 = 0.0f;
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            s0 += x[xo + i] * y[yo + i];
+            s1 += x[xo + i + 1] * y[yo + i + 1];
+            s2 += x[xo + i + 2] * y[yo + i + 2];
+            s3 += x[xo + i + 3] * y[yo + i + 3];
+        }
+        for (; i < n; i++) {
+            s0 += x[xo + i] * y[yo + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** General matrix-vector multiplication. */
+    static void sgemv(Layout layout, Transpose trans, int m, int n, float alpha, float[] A, int ao, int lda, float[] x, int xo, int incx, float beta, float[] y, int yo, int incy) {
+        if (layout == Layout.ROW_MAJOR) {
+            // A row major matrix is the transpose of a column major one.
+            int t = m;
+            m = n;
+            n = t;
+            trans = flip(trans);
+        }
+
+        boolean transposed = trans != Transpose.NO_TRANSPOSE;
+        int lenx = transposed ? m : n;
+        int leny = transposed ? n : m;
+        if (m <= 0 || n <= 0) return;
+
+        if (incx != 1) {
+            x = gather(lenx, x, xo, incx);
+            xo = 0;
+        }
+
+        float[] yv = y;
+        int yvo = yo;
+        if (incy != 1) {
+            yv = gather(leny, y, yo, incy);
+            yvo = 0;
+        }
+
+        sscal(leny, beta, yv, yvo);
+        if (alpha != 0.0f) {
+            if (transposed) {
+                for (int j = 0; j < n; j++) {
+                    yv[yvo + j] += alpha * sdot(m, A, ao + j * lda, x, xo);
+                }
+            } else {
+                // Four columns at a time to save the loads and stores of y.
+                int j = 0;
+                for (; j + 3 < n; j += 4) {
+                    float t0 = alpha * x[xo + j];
+                    float t1 = alpha * x[xo + j + 1];
+                    float t2 = alpha * x[xo + j + 2];
+                    float t3 = alpha * x[xo + j + 3];
+                    int a0 = ao + j * lda;
+                    int a1 = a0 + lda;
+                    int a2 = a1 + lda;
+                    int a3 = a2 + lda;
+                    for (int i = 0; i < m; i++) {
+                        yv[yvo + i] += t0 * A[a0 + i] + t1 * A[a1 + i] + t2 * A[a2 + i] + t3 * A[a3 + i];
+                    }
+                }
+                for (; j < n; j++) {
+                    saxpy(m, alpha * x[xo + j], A, ao + j * lda, yv, yvo);
+                }
+            }
+        }
+
+        if (incy != 1) {
+            scatter(leny, yv, y, yo, incy);
+        }
+    }
+
+    /** Symmetric matrix-vector multiplication. */
+    static void ssymv(Layout layout, UPLO uplo, int n, float alpha, float[] A, int ao, int lda, float[] x, int xo, int incx, float beta, float[] y, int yo, int incy) {
+        if (n <= 0) return;
+        if (layout == Layout.ROW_MAJOR) {
+            uplo = flip(uplo);
+        }
+
+        if (incx != 1) {
+            x = gather(n, x, xo, incx);
+            xo = 0;
+        }
+
+        float[] yv = y;
+        int yvo = yo;
+        if (incy != 1) {
+            yv = gather(n, y, yo, incy);
+            yvo = 0;
+        }
+
+        sscal(n, beta, yv, yvo);
+        if (alpha != 0.0f) {
+            for (int j = 0; j < n; j++) {
+                float t = alpha * x[xo + j];
+                int aj = ao + j * lda;
+                if (uplo == UPLO.UPPER) {
+                    saxpy(j, t, A, aj, yv, yvo);
+                    yv[yvo + j] += t * A[aj + j] + alpha * sdot(j, A, aj, x, xo);
+                } else {
+                    int len = n - j - 1;
+                    saxpy(len, t, A, aj + j + 1, yv, yvo + j + 1);
+                    yv[yvo + j] += t * A[aj + j] + alpha * sdot(len, A, aj + j + 1, x, xo + j + 1);
+                }
+            }
+        }
+
+        if (incy != 1) {
+            scatter(n, yv, y, yo, incy);
+        }
+    }
+
+    /** Symmetric packed matrix-vector multiplication. */
+    static void sspmv(Layout layout, UPLO uplo, int n, float alpha, float[] A, int ao, float[] x, int xo, int incx, float beta, float[] y, int yo, int incy) {
+        if (n <= 0) return;
+        if (layout == Layout.ROW_MAJOR) {
+            uplo = flip(uplo);
+        }
+
+        if (incx != 1) {
+            x = gather(n, x, xo, incx);
+            xo = 0;
+        }
+
+        float[] yv = y;
+        int yvo = yo;
+        if (incy != 1) {
+            yv = gather(n, y, yo, incy);
+            yvo = 0;
+        }
+
+        sscal(n, beta, yv, yvo);
+        if (alpha != 0.0f) {
+            for (int j = 0; j < n; j++) {
+                float t = alpha * x[xo + j];
+                int aj = ao + packed(uplo, n, j);
+                if (uplo == UPLO.UPPER) {
+                    saxpy(j, t, A, aj, yv, yvo);
+                    yv[yvo + j] += t * A[aj + j] + alpha * sdot(j, A, aj, x, xo);
+                } else {
+                    int len = n - j - 1;
+                    saxpy(len, t, A, aj + 1, yv, yvo + j + 1);
+                    yv[yvo + j] += t * A[aj] + alpha * sdot(len, A, aj + 1, x, xo + j + 1);
+                }
+            }
+        }
+
+        if (incy != 1) {
+            scatter(n, yv, y, yo, incy);
+        }
+    }
+
+    /** Triangular matrix-vector multiplication. */
+    static void strmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, float[] A, int ao, int lda, float[] x, int xo, int incx) {
+        if (n <= 0) return;
+        if (layout == Layout.ROW_MAJOR) {
+            uplo = flip(uplo);
+            trans = flip(trans);
+        }
+
+        float[] xv = x;
+        int xvo = xo;
+        if (incx != 1) {
+            xv = gather(n, x, xo, incx);
+            xvo = 0;
+        }
+
+        boolean unit = diag == Diag.UNIT;
+        if (trans == Transpose.NO_TRANSPOSE) {
+            if (uplo == UPLO.UPPER) {
+                for (int j = 0; j < n; j++) {
+                    int aj = ao + j * lda;
+                    saxpy(j, xv[xvo + j], A, aj, xv, xvo);
+                    if (!unit) xv[xvo + j] *= A[aj + j];
+                }
+            } else {
+                for (int j = n - 1; j >= 0; j--) {
+                    int aj = ao + j * lda;
+                    saxpy(n - j - 1, xv[xvo + j], A, aj + j + 1, xv, xvo + j + 1);
+                    if (!unit) xv[xvo + j] *= A[aj + j];
+                }
+            }
+        } else {
+            if (uplo == UPLO.UPPER) {
+                for (int j = n - 1; j >= 0; j--) {
+                    int aj = ao + j * lda;
+                    float t = unit ? xv[xvo + j] : xv[xvo + j] * A[aj + j];
+                    xv[xvo + j] = t + sdot(j, A, aj, xv, xvo);
+                }
+            } else {
+                for (int j = 0; j < n; j++) {
+                    int aj = ao + j * lda;
+                    float t = unit ? xv[xvo + j] : xv[xvo + j] * A[aj + j];
+                    xv[xvo + j] = t + sdot(n - j - 1, A, aj + j + 1, xv, xvo + j + 1);
+                }
+            }
+        }
+
+        if (incx != 1) {
+            scatter(n, xv, x, xo, incx);
+        }
+    }
+
+    /** Triangular packed matrix-vector multiplication. */
+    static void stpmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, float[] A, int ao, float[] x, int xo, int incx) {
+        if (n <= 0) return;
+        if (layout == Layout.ROW_MAJOR) {
+            uplo = flip(uplo);
+            trans = flip(trans);
+        }
+
+        float[] xv = x;
+        int xvo = xo;
+        if (incx != 1) {
+            xv = gather(n, x, xo, incx);
+            xvo = 0;
+        }
+
+        // The (i, j) element is at aj + i for upper and aj + i - j for lower.
+        boolean unit = diag == Diag.UNIT;
+        if (trans == Transpose.NO_TRANSPOSE) {
+            if (uplo == UPLO.UPPER) {
+                for (int j = 0; j < n; j++) {
+                    int aj = ao + packed(uplo, n, j);
+                    saxpy(j, xv[xvo + j], A, aj, xv, xvo);
+                    if (!unit) xv[xvo + j] *= A[aj + j];
+                }
+            } else {
+                for (int j = n - 1; j >= 0; j--) {
+                    int aj = ao + packed(uplo, n, j);
+                    saxpy(n - j - 1, xv[xvo + j], A, aj + 1, xv, xvo + j + 1);
+                    if (!unit) xv[xvo + j] *= A[aj];
+                }
+            }
+        } else {
+            if (uplo == UPLO.UPPER) {
+                for (int j = n - 1; j >= 0; j--) {
+                    int aj = ao + packed(uplo, n, j);
+                    float t = unit ? xv[xvo + j] : xv[xvo + j] * A[aj + j];
+                    xv[xvo + j] = t + sdot(j, A, aj, xv, xvo);
+                }
+            } else {
+                for (int j = 0; j < n; j++) {
+                    int aj = ao + packed(uplo, n, j);
+                    float t = unit ? xv[xvo + j] : xv[xvo + j] * A[aj];
+                    xv[xvo + j] = t + sdot(n - j - 1, A, aj + 1, xv, xvo + j + 1);
+                }
+            }
+        }
+
+        if (incx != 1) {
+            scatter(n, xv, x, xo, incx);
+        }
+    }
+
+    /** General band matrix-vector multiplication. */
+    static void sgbmv(Layout layout, Transpose trans, int m, int n, int kl, int ku, float alpha, float[] A, int ao, int lda, float[] x, int xo, int incx, float beta, float[] y, int yo, int incy) {
+        if (layout == Layout.ROW_MAJOR) {
+            // A row major band matrix is the transpose of a column major one.
+            int t = m;
+            m = n;
+            n = t;
+            t = kl;
+            kl = ku;
+            ku = t;
+            trans = flip(trans);
+        }
+
+        boolean transposed = trans != Transpose.NO_TRANSPOSE;
+        int lenx = transposed ? m : n;
+        int leny = transposed ? n : m;
+        if (m <= 0 || n <= 0) return;
+
+        if (incx != 1) {
+            x = gather(lenx, x, xo, incx);
+            xo = 0;
+        }
+
+        float[] yv = y;
+        int yvo = yo;
+        if (incy != 1) {
+            yv = gather(leny, y, yo, incy);
+            yvo = 0;
+        }
+
+        // The (i, j) element is at ao + ku + i - j + j * lda.
+        sscal(leny, beta, yv, yvo);
+        if (alpha != 0.0f) {
+            for (int j = 0; j < n; j++) {
+                int i0 = Math.max(0, j - ku);
+                int i1 = Math.min(m, j + kl + 1);
+                if (i0 >= i1) continue;
+                int aj = ao + ku - j + j * lda;
+                if (transposed) {
+                    yv[yvo + j] += alpha * sdot(i1 - i0, A, aj + i0, x, xo + i0);
+                } else {
+                    saxpy(i1 - i0, alpha * x[xo + j], A, aj + i0, yv, yvo + i0);
+                }
+            }
+        }
+
+        if (incy != 1) {
+            scatter(leny, yv, y, yo, incy);
+        }
+    }
+
+    /** Symmetric band matrix-vector multiplication. */
+    static void ssbmv(Layout layout, UPLO uplo, int n, int k, float alpha, float[] A, int ao, int lda, float[] x, int xo, int incx, float beta, float[] y, int yo, int incy) {
+        if (n <= 0) return;
+        if (layout == Layout.ROW_MAJOR) {
+            uplo = flip(uplo);
+        }
+
+        if (incx != 1) {
+            x = gather(n, x, xo, incx);
+            xo = 0;
+        }
+
+        float[] yv = y;
+        int yvo = yo;
+        if (incy != 1) {
+            yv = gather(n, y, yo, incy);
+            yvo = 0;
+        }
+
+        // The (i, j) element is at ao + k + i - j + j * lda for upper
+        // and ao + i - j + j * lda for lower.
+        sscal(n, beta, yv, yvo);
+        if (alpha != 0.0f) {
+            for (int j = 0; j < n; j++) {
+                float t = alpha * x[xo + j];
+                if (uplo == UPLO.UPPER) {
+                    int i0 = Math.max(0, j - k);
+                    int aj = ao + k - j + j * lda;
+                    saxpy(j - i0, t, A, aj + i0, yv, yvo + i0);
+                    yv[yvo + j] += t * A[aj + j] + alpha * sdot(j - i0, A, aj + i0, x, xo + i0);
+                } else {
+                    int i1 = Math.min(n, j + k + 1);
+                    int aj = ao - j + j * lda;
+                    saxpy(i1 - j - 1, t, A, aj + j + 1, yv, yvo + j + 1);
+                    yv[yvo + j] += t * A[aj + j] + alpha * sdot(i1 - j - 1, A, aj + j + 1, x, xo + j + 1);
+                }
+            }
+        }
+
+        if (incy != 1) {
+            scatter(n, yv, y, yo, incy);
+        }
+    }
+
+    /** Rank-1 update of general matrix. */
+    static void sger(Layout layout, int m, int n, float alpha, float[] x, int xo, int incx, float[] y, int yo, int incy, float[] A, int ao, int lda) {
+        if (layout == Layout.ROW_MAJOR) {
+            // A' = A' + alpha * y * x' in column major.
+            sger(Layout.COL_MAJOR, n, m, alpha, y, yo, incy, x, xo, incx, A, ao, lda);
+            return;
+        }
+
+        if (m <= 0 || n <= 0 || alpha == 0.0f) return;
+
+        if (incx != 1) {
+            x = gather(m, x, xo, incx);
+            xo = 0;
+        }
+
+        if (incy != 1) {
+            y = gather(n, y, yo, incy);
+            yo = 0;
+        }
+
+        for (int j = 0; j < n; j++) {
+            saxpy(m, alpha * y[yo + j], x, xo, A, ao + j * lda);
+        }
+    }
+
+    /** Rank-1 update of symmetric matrix. */
+    static void ssyr(Layout layout, UPLO uplo, int n, float alpha, float[] x, int xo, int incx, float[] A, int ao, int lda) {
+        if (n <= 0 || alpha == 0.0f) return;
+        if (layout == Layout.ROW_MAJOR) {
+            uplo = flip(uplo);
+        }
+
+        if (incx != 1) {
+            x = gather(n, x, xo, incx);
+            xo = 0;
+        }
+
+        for (int j = 0; j < n; j++) {
+            float t = alpha * x[xo + j];
+            int aj = ao + j * lda;
+            if (uplo == UPLO.UPPER) {
+                saxpy(j + 1, t, x, xo, A, aj);
+            } else {
+                saxpy(n - j, t, x, xo + j, A, aj + j);
+            }
+        }
+    }
+
+    /** Rank-1 update of symmetric packed matrix. */
+    static void sspr(Layout layout, UPLO uplo, int n, float alpha, float[] x, int xo, int incx, float[] A, int ao) {
+        if (n <= 0 || alpha == 0.0f) return;
+        if (layout == Layout.ROW_MAJOR) {
+            uplo = flip(uplo);
+        }
+
+        if (incx != 1) {
+            x = gather(n, x, xo, incx);
+            xo = 0;
+        }
+
+        for (int j = 0; j < n; j++) {
+            float t = alpha * x[xo + j];
+            int aj = ao + packed(uplo, n, j);
+            if (uplo == UPLO.UPPER) {
+                saxpy(j + 1, t, x, xo, A, aj);
+            } else {
+                saxpy(n - j, t, x, xo + j, A, aj);
+            }
+        }
+    }
+
+    /**
+     * General matrix-matrix multiplication. The blocks of A and B are
+     * packed into contiguous buffers so that the inner kernel streams
+     * through the cache with unit stride. The column panels of C are
+     * computed in parallel for large matrices.
+     */
+    static void sgemm(Layout layout, Transpose transA, Transpose transB, int m, int n, int k, float alpha, float[] A, int ao, int lda, float[] B, int bo, int ldb, float beta, float[] C, int co, int ldc) {
+        if (layout == Layout.ROW_MAJOR) {
+            // C' = alpha * B' * A' + beta * C' in column major.
+            sgemm(Layout.COL_MAJOR, transB, transA, n, m, k, alpha, B, bo, ldb, A, ao, lda, beta, C, co, ldc);
+            return;
+        }
+
+        if (m <= 0 || n <= 0) return;
+
+        for (int j = 0; j < n; j++) {
+            sscal(m, beta, C, co + j * ldc);
+        }
+
+        if (alpha == 0.0f || k <= 0) return;
+
+        boolean ta = transA != Transpose.NO_TRANSPOSE;
+        boolean tb = transB != Transpose.NO_TRANSPOSE;
+        int nc = panel(m, n, k);
+        range(0, (n + nc - 1) / nc, (long) m * n * k).forEach(jb -> {
+            int j0 = jb * nc;
+            int nb = Math.min(nc, n - j0);
+            float[] packA = new float[Math.min(MC, m) * Math.min(KC, k)];
+            float[] packB = new float[Math.min(KC, k) * nb];
+            for (int p0 = 0; p0 < k; p0 += KC) {
+                int kb = Math.min(KC, k - p0);
+                // Packs alpha * op(B)[p0:p0+kb, j0:j0+nb] in column major.
+                for (int j = 0; j < nb; j++) {
+                    for (int p = 0; p < kb; p++) {
+                        packB[p + j * kb] = alpha * (tb ? B[bo + j0 + j + (p0 + p) * ldb] : B[bo + p0 + p + (j0 + j) * ldb]);
+                    }
+                }
+
+                for (int i0 = 0; i0 < m; i0 += MC) {
+                    int mb = Math.min(MC, m - i0);
+                    // Packs op(A)[i0:i0+mb, p0:p0+kb] in column major.
+                    if (ta) {
+                        for (int i = 0; i < mb; i++) {
+                            int ai = ao + p0 + (i0 + i) * lda;
+                            for (int p = 0; p < kb; p++) {
+                                packA[i + p * mb] = A[ai + p];
+                            }
+                        }
+                    } else {
+                        for (int p = 0; p < kb; p++) {
+                            System.arraycopy(A, ao + i0 + (p0 + p) * lda, packA, p * mb, mb);
+                        }
+                    }
+
+                    sgebp(mb, nb, kb, packA, packB, C, co + i0 + j0 * ldc, ldc);
+                }
+            }
+        });
+    }
+
+    /**
+     * The inner kernel of matrix multiplication C += A * B, where A is
+     * a packed m x k block and B is a packed k x n panel. Four rank-1
+     * updates are fused to save the loads and stores of C.
+     */
+    private static void sgebp(int m, int n, int k, float[] A, float[] B, float[] C, int co, int ldc) {
+        for (int j = 0; j < n; j++) {
+            int cj = co + j * ldc;
+            int bj = j * k;
+            int p = 0;
+            for (; p + 3 < k; p += 4) {
+                float b0 = B[bj + p];
+                float b1 = B[bj + p + 1];
+                float b2 = B[bj + p + 2];
+                float b3 = B[bj + p + 3];
+                int a0 = p * m;
+                int a1 = a0 + m;
+                int a2 = a1 + m;
+                int a3 = a2 + m;
+                for (int i = 0; i < m; i++) {
+                    C[cj + i] += b0 * A[a0 + i] + b1 * A[a1 + i] + b2 * A[a2 + i] + b3 * A[a3 + i];
+                }
+            }
+            for (; p < k; p++) {
+                saxpy(m, B[bj + p], A, p * m, C, cj);
+            }
+        }
+    }
+
+    /** Symmetric matrix-matrix multiplication. */
+    static void ssymm(Layout layout, Side side, UPLO uplo, int m, int n, float alpha, float[] A, int ao, int lda, float[] B, int bo, int ldb, float beta, float[] C, int co, int ldc) {
+        if (layout == Layout.ROW_MAJOR) {
+            // C' = alpha * B' * A + beta * C' in column major for left side.
+            ssymm(Layout.COL_MAJOR, side == Side.LEFT ? Side.RIGHT : Side.LEFT, flip(uplo), n, m, alpha, A, ao, lda, B, bo, ldb, beta, C, co, ldc);
+            return;
+        }
+
+        // Expands the symmetric matrix to use the blocked gemm.
+        int na = side == Side.LEFT ? m : n;
+        float[] full = new float[na * na];
+        for (int j = 0; j < na; j++) {
+            for (int i = 0; i < na; i++) {
+                boolean stored = uplo == UPLO.UPPER ? i <= j : i >= j;
+                full[i + j * na] = stored ? A[ao + i + j * lda] : A[ao + j + i * lda];
+            }
+        }
+
+        if (side == Side.LEFT) {
+            sgemm(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, Transpose.NO_TRANSPOSE, m, n, m, alpha, full, 0, na, B, bo, ldb, beta, C, co, ldc);
+        } else {
+            sgemm(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, Transpose.NO_TRANSPOSE, m, n, n, alpha, B, bo, ldb, full, 0, na, beta, C, co, ldc);
+        }
+    }
+}
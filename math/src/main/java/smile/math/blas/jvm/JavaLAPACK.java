@@ -0,0 +1,4852 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.math.blas.jvm;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import org.bytedeco.javacpp.DoublePointer;
+import org.bytedeco.javacpp.IntPointer;
+import smile.math.blas.*;
+
+/**
+ * Pure Java implementation of a subset of LAPACK. It is the fallback
+ * engine when neither MKL nor OpenBLAS native libraries can be loaded.
+ * It provides the blocked LU, Cholesky and QR decompositions and the
+ * associated linear solvers, of which the trailing updates run in
+ * parallel on top of {@link JavaBLAS}. It also provides the dense
+ * routines that {@link smile.math.matrix.Matrix} relies on:
+ * <ul>
+ * <li>symmetric indefinite solver <code>sysv</code> by LU decomposition
+ *     of the full matrix,</li>
+ * <li>symmetric eigen decomposition <code>syev/syevd</code> by Householder
+ *     tridiagonalization and the implicit QL method,</li>
+ * <li>general eigen decomposition <code>geev</code> by Hessenberg
+ *     reduction and the shifted QR iterations,</li>
+ * <li>singular value decomposition <code>gesvd/gesdd</code> by the QR
+ *     decomposition and the one-sided Jacobi method,</li>
+ * <li>band LU and Cholesky decompositions <code>gbtrf/pbtrf</code> and
+ *     the solvers, which work on the band storage directly,</li>
+ * <li>packed Cholesky and Bunch-Kaufman decompositions <code>pptrf/sptrf</code>
+ *     and the solvers, which work on the unpacked triangle,</li>
+ * <li>least squares solvers <code>gels</code> by QR decomposition,
+ *     <code>gelsy</code> by QR decomposition with column pivoting, and
+ *     <code>gelss/gelsd</code> by singular value decomposition,</li>
+ * <li>generalized least squares <code>gglse/ggglm</code> by the QR
+ *     decomposition of the constraint and the model matrix respectively,</li>
+ * <li>the selected eigenvalues <code>syevr</code> of all computed by
+ *     <code>syev</code>.</li>
+ * </ul>
+ * The single precision routines other than the dense LU, Cholesky and QR
+ * decompositions compute in double precision. The JavaCPP pointer
+ * overloads throw <code>UnsupportedOperationException</code>.
+ *
+ * @author Haifeng Li
+ */
+public class JavaLAPACK implements LAPACK {
+    /** The block size of decompositions. */
+    static final int NB = 64;
+
+    /** Constructor. */
+    public JavaLAPACK() {
+
+    }
+
+    /**
+     * Returns the backing array of a buffer, or a copy of its remaining
+     * elements if the buffer is direct or read-only.
+     */
+    private static int[] array(IntBuffer buffer) {
+        if (buffer.hasArray()) {
+            return buffer.array();
+        }
+
+        int[] array = new int[buffer.remaining()];
+        buffer.duplicate().get(array);
+        return array;
+    }
+
+    /**
+     * Returns the offset of buffer position in the array of {@link #array(IntBuffer)}.
+     */
+    private static int offset(IntBuffer buffer) {
+        return buffer.hasArray() ? buffer.arrayOffset() + buffer.position() : 0;
+    }
+
+    /**
+     * Writes back the copy of buffer elements if the buffer is not
+     * backed by the array.
+     */
+    private static void write(int[] array, IntBuffer buffer) {
+        if (!buffer.hasArray()) {
+            buffer.duplicate().put(array);
+        }
+    }
+
+    @Override
+    public int gesv(Layout layout, int n, int nrhs, DoublePointer A, int lda, IntPointer ipiv, DoublePointer B, int ldb) {
+        throw JavaBLAS.unsupported();
+    }
+
+    @Override
+    public int sysv(Layout layout, UPLO uplo, int n, int nrhs, double[] A, int lda, int[] ipiv, double[] B, int ldb) {
+        return dsysv(layout, uplo, n, nrhs, A, 0, lda, ipiv, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int sysv(Layout layout, UPLO uplo, int n, int nrhs, DoubleBuffer A, int lda, IntBuffer ipiv, DoubleBuffer B, int ldb) {
+        double[] a = JavaBLAS.array(A);
+        double[] b = JavaBLAS.array(B);
+        int[] p = array(ipiv);
+        int info = dsysv(layout, uplo, n, nrhs, a, JavaBLAS.offset(A), lda, p, offset(ipiv), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        write(p, ipiv);
+        return info;
+    }
+
+    @Override
+    public int sysv(Layout layout, UPLO uplo, int n, int nrhs, DoublePointer A, int lda, IntPointer ipiv, DoublePointer B, int ldb) {
+        throw JavaBLAS.unsupported();
+    }
+
+    @Override
+    public int sysv(Layout layout, UPLO uplo, int n, int nrhs, float[] A, int lda, int[] ipiv, float[] B, int ldb) {
+        return ssysv(layout, uplo, n, nrhs, A, 0, lda, ipiv, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int sysv(Layout layout, UPLO uplo, int n, int nrhs, FloatBuffer A, int lda, IntBuffer ipiv, FloatBuffer B, int ldb) {
+        float[] a = JavaBLAS.array(A);
+        float[] b = JavaBLAS.array(B);
+        int[] p = array(ipiv);
+        int info = ssysv(layout, uplo, n, nrhs, a, JavaBLAS.offset(A), lda, p, offset(ipiv), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        write(p, ipiv);
+        return info;
+    }
+
+    @Override
+    public int spsv(Layout layout, UPLO uplo, int n, int nrhs, double[] A, int[] ipiv, double[] B, int ldb) {
+        return dspsv(layout, uplo, n, nrhs, A, 0, ipiv, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int spsv(Layout layout, UPLO uplo, int n, int nrhs, DoubleBuffer A, IntBuffer ipiv, DoubleBuffer B, int ldb) {
+        double[] a = JavaBLAS.array(A);
+        int[] p = array(ipiv);
+        double[] b = JavaBLAS.array(B);
+        int info = dspsv(layout, uplo, n, nrhs, a, JavaBLAS.offset(A), p, offset(ipiv), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(a, A);
+        write(p, ipiv);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int spsv(Layout layout, UPLO uplo, int n, int nrhs, float[] A, int[] ipiv, float[] B, int ldb) {
+        return sspsv(layout, uplo, n, nrhs, A, 0, ipiv, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int spsv(Layout layout, UPLO uplo, int n, int nrhs, FloatBuffer A, IntBuffer ipiv, FloatBuffer B, int ldb) {
+        float[] a = JavaBLAS.array(A);
+        int[] p = array(ipiv);
+        float[] b = JavaBLAS.array(B);
+        int info = sspsv(layout, uplo, n, nrhs, a, JavaBLAS.offset(A), p, offset(ipiv), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(a, A);
+        write(p, ipiv);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int ppsv(Layout layout, UPLO uplo, int n, int nrhs, double[] A, double[] B, int ldb) {
+        return dppsv(layout, uplo, n, nrhs, A, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int ppsv(Layout layout, UPLO uplo, int n, int nrhs, DoubleBuffer A, DoubleBuffer B, int ldb) {
+        double[] a = JavaBLAS.array(A);
+        double[] b = JavaBLAS.array(B);
+        int info = dppsv(layout, uplo, n, nrhs, a, JavaBLAS.offset(A), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int ppsv(Layout layout, UPLO uplo, int n, int nrhs, float[] A, float[] B, int ldb) {
+        return sppsv(layout, uplo, n, nrhs, A, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int ppsv(Layout layout, UPLO uplo, int n, int nrhs, FloatBuffer A, FloatBuffer B, int ldb) {
+        float[] a = JavaBLAS.array(A);
+        float[] b = JavaBLAS.array(B);
+        int info = sppsv(layout, uplo, n, nrhs, a, JavaBLAS.offset(A), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int gbsv(Layout layout, int n, int kl, int ku, int nrhs, double[] A, int lda, int[] ipiv, double[] B, int ldb) {
+        return dgbsv(layout, n, kl, ku, nrhs, A, 0, lda, ipiv, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int gbsv(Layout layout, int n, int kl, int ku, int nrhs, DoubleBuffer A, int lda, IntBuffer ipiv, DoubleBuffer B, int ldb) {
+        double[] a = JavaBLAS.array(A);
+        int[] p = array(ipiv);
+        double[] b = JavaBLAS.array(B);
+        int info = dgbsv(layout, n, kl, ku, nrhs, a, JavaBLAS.offset(A), lda, p, offset(ipiv), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(a, A);
+        write(p, ipiv);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int gbsv(Layout layout, int n, int kl, int ku, int nrhs, float[] A, int lda, int[] ipiv, float[] B, int ldb) {
+        return sgbsv(layout, n, kl, ku, nrhs, A, 0, lda, ipiv, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int gbsv(Layout layout, int n, int kl, int ku, int nrhs, FloatBuffer A, int lda, IntBuffer ipiv, FloatBuffer B, int ldb) {
+        float[] a = JavaBLAS.array(A);
+        int[] p = array(ipiv);
+        float[] b = JavaBLAS.array(B);
+        int info = sgbsv(layout, n, kl, ku, nrhs, a, JavaBLAS.offset(A), lda, p, offset(ipiv), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(a, A);
+        write(p, ipiv);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int gels(Layout layout, Transpose trans, int m, int n, int nrhs, double[] A, int lda, double[] B, int ldb) {
+        return dgels(layout, trans, m, n, nrhs, A, 0, lda, B, 0, ldb);
+    }
+
+    @Override
+    public int gels(Layout layout, Transpose trans, int m, int n, int nrhs, DoubleBuffer A, int lda, DoubleBuffer B, int ldb) {
+        double[] a = JavaBLAS.array(A);
+        double[] b = JavaBLAS.array(B);
+        int info = dgels(layout, trans, m, n, nrhs, a, JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int gels(Layout layout, Transpose trans, int m, int n, int nrhs, float[] A, int lda, float[] B, int ldb) {
+        return sgels(layout, trans, m, n, nrhs, A, 0, lda, B, 0, ldb);
+    }
+
+    @Override
+    public int gels(Layout layout, Transpose trans, int m, int n, int nrhs, FloatBuffer A, int lda, FloatBuffer B, int ldb) {
+        float[] a = JavaBLAS.array(A);
+        float[] b = JavaBLAS.array(B);
+        int info = sgels(layout, trans, m, n, nrhs, a, JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int gelsy(Layout layout, int m, int n, int nrhs, double[] A, int lda, double[] B, int ldb, int[] jpvt, double rcond, int[] rank) {
+        return dgelsy(layout, m, n, nrhs, A, 0, lda, B, 0, ldb, jpvt, 0, rcond, rank, 0);
+    }
+
+    @Override
+    public int gelsy(Layout layout, int m, int n, int nrhs, DoubleBuffer A, int lda, DoubleBuffer B, int ldb, IntBuffer jpvt, double rcond, IntBuffer rank) {
+        double[] a = JavaBLAS.array(A);
+        double[] b = JavaBLAS.array(B);
+        int[] pvt = array(jpvt);
+        int[] r = array(rank);
+        int info = dgelsy(layout, m, n, nrhs, a, JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb, pvt, offset(jpvt), rcond, r, offset(rank));
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        write(pvt, jpvt);
+        write(r, rank);
+        return info;
+    }
+
+    @Override
+    public int gelsy(Layout layout, int m, int n, int nrhs, float[] A, int lda, float[] B, int ldb, int[] jpvt, float rcond, int[] rank) {
+        return sgelsy(layout, m, n, nrhs, A, 0, lda, B, 0, ldb, jpvt, 0, rcond, rank, 0);
+    }
+
+    @Override
+    public int gelsy(Layout layout, int m, int n, int nrhs, FloatBuffer A, int lda, FloatBuffer B, int ldb, IntBuffer jpvt, float rcond, IntBuffer rank) {
+        float[] a = JavaBLAS.array(A);
+        float[] b = JavaBLAS.array(B);
+        int[] pvt = array(jpvt);
+        int[] r = array(rank);
+        int info = sgelsy(layout, m, n, nrhs, a, JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb, pvt, offset(jpvt), rcond, r, offset(rank));
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        write(pvt, jpvt);
+        write(r, rank);
+        return info;
+    }
+
+    @Override
+    public int gelss(Layout layout, int m, int n, int nrhs, double[] A, int lda, double[] B, int ldb, double[] s, double rcond, int[] rank) {
+        return dgelss(layout, m, n, nrhs, A, 0, lda, B, 0, ldb, s, 0, rcond, rank, 0);
+    }
+
+    @Override
+    public int gelss(Layout layout, int m, int n, int nrhs, DoubleBuffer A, int lda, DoubleBuffer B, int ldb, DoubleBuffer s, double rcond, IntBuffer rank) {
+        double[] a = JavaBLAS.array(A);
+        double[] b = JavaBLAS.array(B);
+        double[] sv = JavaBLAS.array(s);
+        int[] r = array(rank);
+        int info = dgelss(layout, m, n, nrhs, a, JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb, sv, JavaBLAS.offset(s), rcond, r, offset(rank));
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        JavaBLAS.write(sv, s);
+        write(r, rank);
+        return info;
+    }
+
+    @Override
+    public int gelss(Layout layout, int m, int n, int nrhs, float[] A, int lda, float[] B, int ldb, float[] s, float rcond, int[] rank) {
+        return sgelss(layout, m, n, nrhs, A, 0, lda, B, 0, ldb, s, 0, rcond, rank, 0);
+    }
+
+    @Override
+    public int gelss(Layout layout, int m, int n, int nrhs, FloatBuffer A, int lda, FloatBuffer B, int ldb, FloatBuffer s, float rcond, IntBuffer rank) {
+        float[] a = JavaBLAS.array(A);
+        float[] b = JavaBLAS.array(B);
+        float[] sv = JavaBLAS.array(s);
+        int[] r = array(rank);
+        int info = sgelss(layout, m, n, nrhs, a, JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb, sv, JavaBLAS.offset(s), rcond, r, offset(rank));
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        JavaBLAS.write(sv, s);
+        write(r, rank);
+        return info;
+    }
+
+    @Override
+    public int gelsd(Layout layout, int m, int n, int nrhs, double[] A, int lda, double[] B, int ldb, double[] s, double rcond, int[] rank) {
+        return dgelss(layout, m, n, nrhs, A, 0, lda, B, 0, ldb, s, 0, rcond, rank, 0);
+    }
+
+    @Override
+    public int gelsd(Layout layout, int m, int n, int nrhs, DoubleBuffer A, int lda, DoubleBuffer B, int ldb, DoubleBuffer s, double rcond, IntBuffer rank) {
+        double[] a = JavaBLAS.array(A);
+        double[] b = JavaBLAS.array(B);
+        double[] sv = JavaBLAS.array(s);
+        int[] r = array(rank);
+        int info = dgelss(layout, m, n, nrhs, a, JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb, sv, JavaBLAS.offset(s), rcond, r, offset(rank));
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        JavaBLAS.write(sv, s);
+        write(r, rank);
+        return info;
+    }
+
+    @Override
+    public int gelsd(Layout layout, int m, int n, int nrhs, float[] A, int lda, float[] B, int ldb, float[] s, float rcond, int[] rank) {
+        return sgelss(layout, m, n, nrhs, A, 0, lda, B, 0, ldb, s, 0, rcond, rank, 0);
+    }
+
+    @Override
+    public int gelsd(Layout layout, int m, int n, int nrhs, FloatBuffer A, int lda, FloatBuffer B, int ldb, FloatBuffer s, float rcond, IntBuffer rank) {
+        float[] a = JavaBLAS.array(A);
+        float[] b = JavaBLAS.array(B);
+        float[] sv = JavaBLAS.array(s);
+        int[] r = array(rank);
+        int info = sgelss(layout, m, n, nrhs, a, JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb, sv, JavaBLAS.offset(s), rcond, r, offset(rank));
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        JavaBLAS.write(sv, s);
+        write(r, rank);
+        return info;
+    }
+
+    @Override
+    public int gglse(Layout layout, int m, int n, int p, double[] A, int lda, double[] B, int ldb, double[] c, double[] d, double[] x) {
+        return dgglse(layout, m, n, p, A, 0, lda, B, 0, ldb, c, 0, d, 0, x, 0);
+    }
+
+    @Override
+    public int gglse(Layout layout, int m, int n, int p, DoubleBuffer A, int lda, DoubleBuffer B, int ldb, DoubleBuffer c, DoubleBuffer d, DoubleBuffer x) {
+        double[] a = JavaBLAS.array(A);
+        double[] b = JavaBLAS.array(B);
+        double[] cv = JavaBLAS.array(c);
+        double[] dv = JavaBLAS.array(d);
+        double[] xv = JavaBLAS.array(x);
+        int info = dgglse(layout, m, n, p, a, JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb, cv, JavaBLAS.offset(c), dv, JavaBLAS.offset(d), xv, JavaBLAS.offset(x));
+        JavaBLAS.write(cv, c);
+        JavaBLAS.write(xv, x);
+        return info;
+    }
+
+    @Override
+    public int gglse(Layout layout, int m, int n, int p, float[] A, int lda, float[] B, int ldb, float[] c, float[] d, float[] x) {
+        return sgglse(layout, m, n, p, A, 0, lda, B, 0, ldb, c, 0, d, 0, x, 0);
+    }
+
+    @Override
+    public int gglse(Layout layout, int m, int n, int p, FloatBuffer A, int lda, FloatBuffer B, int ldb, FloatBuffer c, FloatBuffer d, FloatBuffer x) {
+        float[] a = JavaBLAS.array(A);
+        float[] b = JavaBLAS.array(B);
+        float[] cv = JavaBLAS.array(c);
+        float[] dv = JavaBLAS.array(d);
+        float[] xv = JavaBLAS.array(x);
+        int info = sgglse(layout, m, n, p, a, JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb, cv, JavaBLAS.offset(c), dv, JavaBLAS.offset(d), xv, JavaBLAS.offset(x));
+        JavaBLAS.write(cv, c);
+        JavaBLAS.write(xv, x);
+        return info;
+    }
+
+    @Override
+    public int ggglm(Layout layout, int n, int m, int p, double[] A, int lda, double[] B, int ldb, double[] d, double[] x, double[] y) {
+        return dggglm(layout, n, m, p, A, 0, lda, B, 0, ldb, d, 0, x, 0, y, 0);
+    }
+
+    @Override
+    public int ggglm(Layout layout, int n, int m, int p, DoubleBuffer A, int lda, DoubleBuffer B, int ldb, DoubleBuffer d, DoubleBuffer x, DoubleBuffer y) {
+        double[] a = JavaBLAS.array(A);
+        double[] b = JavaBLAS.array(B);
+        double[] dv = JavaBLAS.array(d);
+        double[] xv = JavaBLAS.array(x);
+        double[] yv = JavaBLAS.array(y);
+        int info = dggglm(layout, n, m, p, a, JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb, dv, JavaBLAS.offset(d), xv, JavaBLAS.offset(x), yv, JavaBLAS.offset(y));
+        JavaBLAS.write(xv, x);
+        JavaBLAS.write(yv, y);
+        return info;
+    }
+
+    @Override
+    public int ggglm(Layout layout, int n, int m, int p, float[] A, int lda, float[] B, int ldb, float[] d, float[] x, float[] y) {
+        return sggglm(layout, n, m, p, A, 0, lda, B, 0, ldb, d, 0, x, 0, y, 0);
+    }
+
+    @Override
+    public int ggglm(Layout layout, int n, int m, int p, FloatBuffer A, int lda, FloatBuffer B, int ldb, FloatBuffer d, FloatBuffer x, FloatBuffer y) {
+        float[] a = JavaBLAS.array(A);
+        float[] b = JavaBLAS.array(B);
+        float[] dv = JavaBLAS.array(d);
+        float[] xv = JavaBLAS.array(x);
+        float[] yv = JavaBLAS.array(y);
+        int info = sggglm(layout, n, m, p, a, JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb, dv, JavaBLAS.offset(d), xv, JavaBLAS.offset(x), yv, JavaBLAS.offset(y));
+        JavaBLAS.write(xv, x);
+        JavaBLAS.write(yv, y);
+        return info;
+    }
+
+    @Override
+    public int geev(Layout layout, EVDJob jobvl, EVDJob jobvr, int n, double[] A, int lda, double[] wr, double[] wi, double[] Vl, int ldvl, double[] Vr, int ldvr) {
+        return dgeev(layout, jobvl, jobvr, n, A, 0, lda, wr, 0, wi, 0, Vl, 0, ldvl, Vr, 0, ldvr);
+    }
+
+    @Override
+    public int geev(Layout layout, EVDJob jobvl, EVDJob jobvr, int n, DoubleBuffer A, int lda, DoubleBuffer wr, DoubleBuffer wi, DoubleBuffer Vl, int ldvl, DoubleBuffer Vr, int ldvr) {
+        double[] a = JavaBLAS.array(A);
+        double[] r = JavaBLAS.array(wr);
+        double[] i = JavaBLAS.array(wi);
+        double[] vl = JavaBLAS.array(Vl);
+        double[] vr = JavaBLAS.array(Vr);
+        int info = dgeev(layout, jobvl, jobvr, n, a, JavaBLAS.offset(A), lda, r, JavaBLAS.offset(wr), i, JavaBLAS.offset(wi),
+                vl, JavaBLAS.offset(Vl), ldvl, vr, JavaBLAS.offset(Vr), ldvr);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(r, wr);
+        JavaBLAS.write(i, wi);
+        JavaBLAS.write(vl, Vl);
+        JavaBLAS.write(vr, Vr);
+        return info;
+    }
+
+    @Override
+    public int geev(Layout layout, EVDJob jobvl, EVDJob jobvr, int n, DoublePointer A, int lda, DoublePointer wr, DoublePointer wi, DoublePointer Vl, int ldvl, DoublePointer Vr, int ldvr) {
+        throw JavaBLAS.unsupported();
+    }
+
+    @Override
+    public int geev(Layout layout, EVDJob jobvl, EVDJob jobvr, int n, float[] A, int lda, float[] wr, float[] wi, float[] Vl, int ldvl, float[] Vr, int ldvr) {
+        return sgeev(layout, jobvl, jobvr, n, A, 0, lda, wr, 0, wi, 0, Vl, 0, ldvl, Vr, 0, ldvr);
+    }
+
+    @Override
+    public int geev(Layout layout, EVDJob jobvl, EVDJob jobvr, int n, FloatBuffer A, int lda, FloatBuffer wr, FloatBuffer wi, FloatBuffer Vl, int ldvl, FloatBuffer Vr, int ldvr) {
+        float[] a = JavaBLAS.array(A);
+        float[] r = JavaBLAS.array(wr);
+        float[] i = JavaBLAS.array(wi);
+        float[] vl = JavaBLAS.array(Vl);
+        float[] vr = JavaBLAS.array(Vr);
+        int info = sgeev(layout, jobvl, jobvr, n, a, JavaBLAS.offset(A), lda, r, JavaBLAS.offset(wr), i, JavaBLAS.offset(wi),
+                vl, JavaBLAS.offset(Vl), ldvl, vr, JavaBLAS.offset(Vr), ldvr);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(r, wr);
+        JavaBLAS.write(i, wi);
+        JavaBLAS.write(vl, Vl);
+        JavaBLAS.write(vr, Vr);
+        return info;
+    }
+
+    @Override
+    public int syev(Layout layout, EVDJob jobz, UPLO uplo, int n, double[] A, int lda, double[] w) {
+        return dsyev(layout, jobz, uplo, n, A, 0, lda, w, 0);
+    }
+
+    @Override
+    public int syev(Layout layout, EVDJob jobz, UPLO uplo, int n, DoubleBuffer A, int lda, DoubleBuffer w) {
+        double[] a = JavaBLAS.array(A);
+        double[] x = JavaBLAS.array(w);
+        int info = dsyev(layout, jobz, uplo, n, a, JavaBLAS.offset(A), lda, x, JavaBLAS.offset(w));
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(x, w);
+        return info;
+    }
+
+    @Override
+    public int syev(Layout layout, EVDJob jobz, UPLO uplo, int n, float[] A, int lda, float[] w) {
+        return ssyev(layout, jobz, uplo, n, A, 0, lda, w, 0);
+    }
+
+    @Override
+    public int syev(Layout layout, EVDJob jobz, UPLO uplo, int n, FloatBuffer A, int lda, FloatBuffer w) {
+        float[] a = JavaBLAS.array(A);
+        float[] x = JavaBLAS.array(w);
+        int info = ssyev(layout, jobz, uplo, n, a, JavaBLAS.offset(A), lda, x, JavaBLAS.offset(w));
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(x, w);
+        return info;
+    }
+
+    @Override
+    public int syevd(Layout layout, EVDJob jobz, UPLO uplo, int n, double[] A, int lda, double[] w) {
+        return dsyev(layout, jobz, uplo, n, A, 0, lda, w, 0);
+    }
+
+    @Override
+    public int syevd(Layout layout, EVDJob jobz, UPLO uplo, int n, DoubleBuffer A, int lda, DoubleBuffer w) {
+        double[] a = JavaBLAS.array(A);
+        double[] x = JavaBLAS.array(w);
+        int info = dsyev(layout, jobz, uplo, n, a, JavaBLAS.offset(A), lda, x, JavaBLAS.offset(w));
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(x, w);
+        return info;
+    }
+
+    @Override
+    public int syevd(Layout layout, EVDJob jobz, UPLO uplo, int n, DoublePointer A, int lda, DoublePointer w) {
+        throw JavaBLAS.unsupported();
+    }
+
+    @Override
+    public int syevd(Layout layout, EVDJob jobz, UPLO uplo, int n, float[] A, int lda, float[] w) {
+        return ssyev(layout, jobz, uplo, n, A, 0, lda, w, 0);
+    }
+
+    @Override
+    public int syevd(Layout layout, EVDJob jobz, UPLO uplo, int n, FloatBuffer A, int lda, FloatBuffer w) {
+        float[] a = JavaBLAS.array(A);
+        float[] x = JavaBLAS.array(w);
+        int info = ssyev(layout, jobz, uplo, n, a, JavaBLAS.offset(A), lda, x, JavaBLAS.offset(w));
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(x, w);
+        return info;
+    }
+
+    @Override
+    public int syevr(Layout layout, EVDJob jobz, EigenRange range, UPLO uplo, int n, double[] A, int lda, double vl, double vu, int il, int iu, double abstol, int[] m, double[] w, double[] Z, int ldz, int[] isuppz) {
+        return dsyevr(layout, jobz, range, uplo, n, A, 0, lda, vl, vu, il, iu, m, 0, w, 0, Z, 0, ldz, isuppz, 0);
+    }
+
+    @Override
+    public int syevr(Layout layout, EVDJob jobz, EigenRange range, UPLO uplo, int n, DoubleBuffer A, int lda, double vl, double vu, int il, int iu, double abstol, IntBuffer m, DoubleBuffer w, DoubleBuffer Z, int ldz, IntBuffer isuppz) {
+        double[] a = JavaBLAS.array(A);
+        double[] x = JavaBLAS.array(w);
+        double[] z = Z == null ? null : JavaBLAS.array(Z);
+        int[] k = array(m);
+        int[] supp = isuppz == null ? null : array(isuppz);
+        int info = dsyevr(layout, jobz, range, uplo, n, a, JavaBLAS.offset(A), lda, vl, vu, il, iu, k, offset(m), x, JavaBLAS.offset(w),
+                z, Z == null ? 0 : JavaBLAS.offset(Z), ldz, supp, isuppz == null ? 0 : offset(isuppz));
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(x, w);
+        if (z != null) JavaBLAS.write(z, Z);
+        write(k, m);
+        if (supp != null) write(supp, isuppz);
+        return info;
+    }
+
+    @Override
+    public int syevr(Layout layout, EVDJob jobz, EigenRange range, UPLO uplo, int n, float[] A, int lda, float vl, float vu, int il, int iu, float abstol, int[] m, float[] w, float[] Z, int ldz, int[] isuppz) {
+        return ssyevr(layout, jobz, range, uplo, n, A, 0, lda, vl, vu, il, iu, m, 0, w, 0, Z, 0, ldz, isuppz, 0);
+    }
+
+    @Override
+    public int syevr(Layout layout, EVDJob jobz, EigenRange range, UPLO uplo, int n, FloatBuffer A, int lda, float vl, float vu, int il, int iu, float abstol, IntBuffer m, FloatBuffer w, FloatBuffer Z, int ldz, IntBuffer isuppz) {
+        float[] a = JavaBLAS.array(A);
+        float[] x = JavaBLAS.array(w);
+        float[] z = Z == null ? null : JavaBLAS.array(Z);
+        int[] k = array(m);
+        int[] supp = isuppz == null ? null : array(isuppz);
+        int info = ssyevr(layout, jobz, range, uplo, n, a, JavaBLAS.offset(A), lda, vl, vu, il, iu, k, offset(m), x, JavaBLAS.offset(w),
+                z, Z == null ? 0 : JavaBLAS.offset(Z), ldz, supp, isuppz == null ? 0 : offset(isuppz));
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(x, w);
+        if (z != null) JavaBLAS.write(z, Z);
+        write(k, m);
+        if (supp != null) write(supp, isuppz);
+        return info;
+    }
+
+    @Override
+    public int gesvd(Layout layout, SVDJob jobu, SVDJob jobvt, int m, int n, double[] A, int lda, double[] s, double[] U, int ldu, double[] VT, int ldvt, double[] superb) {
+        return dgesvd(layout, jobu, jobvt, m, n, A, 0, lda, s, 0, U, 0, ldu, VT, 0, ldvt);
+    }
+
+    @Override
+    public int gesvd(Layout layout, SVDJob jobu, SVDJob jobvt, int m, int n, DoubleBuffer A, int lda, DoubleBuffer s, DoubleBuffer U, int ldu, DoubleBuffer VT, int ldvt, DoubleBuffer superb) {
+        double[] a = JavaBLAS.array(A);
+        double[] sv = JavaBLAS.array(s);
+        double[] u = JavaBLAS.array(U);
+        double[] vt = JavaBLAS.array(VT);
+        int info = dgesvd(layout, jobu, jobvt, m, n, a, JavaBLAS.offset(A), lda, sv, JavaBLAS.offset(s),
+                u, JavaBLAS.offset(U), ldu, vt, JavaBLAS.offset(VT), ldvt);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(sv, s);
+        JavaBLAS.write(u, U);
+        JavaBLAS.write(vt, VT);
+        return info;
+    }
+
+    @Override
+    public int gesvd(Layout layout, SVDJob jobu, SVDJob jobvt, int m, int n, float[] A, int lda, float[] s, float[] U, int ldu, float[] VT, int ldvt, float[] superb) {
+        return sgesvd(layout, jobu, jobvt, m, n, A, 0, lda, s, 0, U, 0, ldu, VT, 0, ldvt);
+    }
+
+    @Override
+    public int gesvd(Layout layout, SVDJob jobu, SVDJob jobvt, int m, int n, FloatBuffer A, int lda, FloatBuffer s, FloatBuffer U, int ldu, FloatBuffer VT, int ldvt, FloatBuffer superb) {
+        float[] a = JavaBLAS.array(A);
+        float[] sv = JavaBLAS.array(s);
+        float[] u = JavaBLAS.array(U);
+        float[] vt = JavaBLAS.array(VT);
+        int info = sgesvd(layout, jobu, jobvt, m, n, a, JavaBLAS.offset(A), lda, sv, JavaBLAS.offset(s),
+                u, JavaBLAS.offset(U), ldu, vt, JavaBLAS.offset(VT), ldvt);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(sv, s);
+        JavaBLAS.write(u, U);
+        JavaBLAS.write(vt, VT);
+        return info;
+    }
+
+    @Override
+    public int gesdd(Layout layout, SVDJob jobz, int m, int n, double[] A, int lda, double[] s, double[] U, int ldu, double[] VT, int ldvt) {
+        return dgesdd(layout, jobz, m, n, A, 0, lda, s, 0, U, 0, ldu, VT, 0, ldvt);
+    }
+
+    @Override
+    public int gesdd(Layout layout, SVDJob jobz, int m, int n, DoubleBuffer A, int lda, DoubleBuffer s, DoubleBuffer U, int ldu, DoubleBuffer VT, int ldvt) {
+        double[] a = JavaBLAS.array(A);
+        double[] sv = JavaBLAS.array(s);
+        double[] u = JavaBLAS.array(U);
+        double[] vt = JavaBLAS.array(VT);
+        int info = dgesdd(layout, jobz, m, n, a, JavaBLAS.offset(A), lda, sv, JavaBLAS.offset(s),
+                u, JavaBLAS.offset(U), ldu, vt, JavaBLAS.offset(VT), ldvt);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(sv, s);
+        JavaBLAS.write(u, U);
+        JavaBLAS.write(vt, VT);
+        return info;
+    }
+
+    @Override
+    public int gesdd(Layout layout, SVDJob jobz, int m, int n, DoublePointer A, int lda, DoublePointer s, DoublePointer U, int ldu, DoublePointer VT, int ldvt) {
+        throw JavaBLAS.unsupported();
+    }
+
+    @Override
+    public int gesdd(Layout layout, SVDJob jobz, int m, int n, float[] A, int lda, float[] s, float[] U, int ldu, float[] VT, int ldvt) {
+        return sgesdd(layout, jobz, m, n, A, 0, lda, s, 0, U, 0, ldu, VT, 0, ldvt);
+    }
+
+    @Override
+    public int gesdd(Layout layout, SVDJob jobz, int m, int n, FloatBuffer A, int lda, FloatBuffer s, FloatBuffer U, int ldu, FloatBuffer VT, int ldvt) {
+        float[] a = JavaBLAS.array(A);
+        float[] sv = JavaBLAS.array(s);
+        float[] u = JavaBLAS.array(U);
+        float[] vt = JavaBLAS.array(VT);
+        int info = sgesdd(layout, jobz, m, n, a, JavaBLAS.offset(A), lda, sv, JavaBLAS.offset(s),
+                u, JavaBLAS.offset(U), ldu, vt, JavaBLAS.offset(VT), ldvt);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(sv, s);
+        JavaBLAS.write(u, U);
+        JavaBLAS.write(vt, VT);
+        return info;
+    }
+
+    @Override
+    public int getrf(Layout layout, int m, int n, DoublePointer A, int lda, IntPointer ipiv) {
+        throw JavaBLAS.unsupported();
+    }
+
+    @Override
+    public int getrf2(Layout layout, int m, int n, double[] A, int lda, int[] ipiv) {
+        return getrf(layout, m, n, A, lda, ipiv);
+    }
+
+    @Override
+    public int getrf2(Layout layout, int m, int n, DoubleBuffer A, int lda, IntBuffer ipiv) {
+        return getrf(layout, m, n, A, lda, ipiv);
+    }
+
+    @Override
+    public int getrf2(Layout layout, int m, int n, float[] A, int lda, int[] ipiv) {
+        return getrf(layout, m, n, A, lda, ipiv);
+    }
+
+    @Override
+    public int getrf2(Layout layout, int m, int n, FloatBuffer A, int lda, IntBuffer ipiv) {
+        return getrf(layout, m, n, A, lda, ipiv);
+    }
+
+    @Override
+    public int gbtrf(Layout layout, int m, int n, int kl, int ku, double[] AB, int ldab, int[] ipiv) {
+        return dgbtrf(layout, m, n, kl, ku, AB, 0, ldab, ipiv, 0);
+    }
+
+    @Override
+    public int gbtrf(Layout layout, int m, int n, int kl, int ku, DoubleBuffer AB, int ldab, IntBuffer ipiv) {
+        double[] ab = JavaBLAS.array(AB);
+        int[] p = array(ipiv);
+        int info = dgbtrf(layout, m, n, kl, ku, ab, JavaBLAS.offset(AB), ldab, p, offset(ipiv));
+        JavaBLAS.write(ab, AB);
+        write(p, ipiv);
+        return info;
+    }
+
+    @Override
+    public int gbtrf(Layout layout, int m, int n, int kl, int ku, float[] AB, int ldab, int[] ipiv) {
+        return sgbtrf(layout, m, n, kl, ku, AB, 0, ldab, ipiv, 0);
+    }
+
+    @Override
+    public int gbtrf(Layout layout, int m, int n, int kl, int ku, FloatBuffer AB, int ldab, IntBuffer ipiv) {
+        float[] ab = JavaBLAS.array(AB);
+        int[] p = array(ipiv);
+        int info = sgbtrf(layout, m, n, kl, ku, ab, JavaBLAS.offset(AB), ldab, p, offset(ipiv));
+        JavaBLAS.write(ab, AB);
+        write(p, ipiv);
+        return info;
+    }
+
+    @Override
+    public int sptrf(Layout layout, UPLO uplo, int n, double[] AP, int[] ipiv) {
+        return dsptrf(layout, uplo, n, AP, 0, ipiv, 0);
+    }
+
+    @Override
+    public int sptrf(Layout layout, UPLO uplo, int n, DoubleBuffer AP, IntBuffer ipiv) {
+        double[] ap = JavaBLAS.array(AP);
+        int[] p = array(ipiv);
+        int info = dsptrf(layout, uplo, n, ap, JavaBLAS.offset(AP), p, offset(ipiv));
+        JavaBLAS.write(ap, AP);
+        write(p, ipiv);
+        return info;
+    }
+
+    @Override
+    public int sptrf(Layout layout, UPLO uplo, int n, float[] AP, int[] ipiv) {
+        return ssptrf(layout, uplo, n, AP, 0, ipiv, 0);
+    }
+
+    @Override
+    public int sptrf(Layout layout, UPLO uplo, int n, FloatBuffer AP, IntBuffer ipiv) {
+        float[] ap = JavaBLAS.array(AP);
+        int[] p = array(ipiv);
+        int info = ssptrf(layout, uplo, n, ap, JavaBLAS.offset(AP), p, offset(ipiv));
+        JavaBLAS.write(ap, AP);
+        write(p, ipiv);
+        return info;
+    }
+
+    @Override
+    public int getrs(Layout layout, Transpose trans, int n, int nrhs, DoublePointer A, int lda, IntPointer ipiv, DoublePointer B, int ldb) {
+        throw JavaBLAS.unsupported();
+    }
+
+    @Override
+    public int gbtrs(Layout layout, Transpose trans, int n, int kl, int ku, int nrhs, double[] AB, int ldab, int[] ipiv, double[] B, int ldb) {
+        return dgbtrs(layout, trans, n, kl, ku, nrhs, AB, 0, ldab, ipiv, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int gbtrs(Layout layout, Transpose trans, int n, int kl, int ku, int nrhs, DoubleBuffer AB, int ldab, IntBuffer ipiv, DoubleBuffer B, int ldb) {
+        double[] ab = JavaBLAS.array(AB);
+        int[] p = array(ipiv);
+        double[] b = JavaBLAS.array(B);
+        int info = dgbtrs(layout, trans, n, kl, ku, nrhs, ab, JavaBLAS.offset(AB), ldab, p, offset(ipiv), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int gbtrs(Layout layout, Transpose trans, int n, int kl, int ku, int nrhs, float[] AB, int ldab, int[] ipiv, float[] B, int ldb) {
+        return sgbtrs(layout, trans, n, kl, ku, nrhs, AB, 0, ldab, ipiv, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int gbtrs(Layout layout, Transpose trans, int n, int kl, int ku, int nrhs, FloatBuffer AB, int ldab, IntBuffer ipiv, FloatBuffer B, int ldb) {
+        float[] ab = JavaBLAS.array(AB);
+        int[] p = array(ipiv);
+        float[] b = JavaBLAS.array(B);
+        int info = sgbtrs(layout, trans, n, kl, ku, nrhs, ab, JavaBLAS.offset(AB), ldab, p, offset(ipiv), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int sptrs(Layout layout, UPLO uplo, int n, int nrhs, double[] AP, int[] ipiv, double[] B, int ldb) {
+        return dsptrs(layout, uplo, n, nrhs, AP, 0, ipiv, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int sptrs(Layout layout, UPLO uplo, int n, int nrhs, DoubleBuffer AP, IntBuffer ipiv, DoubleBuffer B, int ldb) {
+        double[] ap = JavaBLAS.array(AP);
+        int[] p = array(ipiv);
+        double[] b = JavaBLAS.array(B);
+        int info = dsptrs(layout, uplo, n, nrhs, ap, JavaBLAS.offset(AP), p, offset(ipiv), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int sptrs(Layout layout, UPLO uplo, int n, int nrhs, FloatBuffer AP, IntBuffer ipiv, FloatBuffer B, int ldb) {
+        float[] ap = JavaBLAS.array(AP);
+        int[] p = array(ipiv);
+        float[] b = JavaBLAS.array(B);
+        int info = ssptrs(layout, uplo, n, nrhs, ap, JavaBLAS.offset(AP), p, offset(ipiv), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int sptrs(Layout layout, UPLO uplo, int n, int nrhs, float[] AP, int[] ipiv, float[] B, int ldb) {
+        return ssptrs(layout, uplo, n, nrhs, AP, 0, ipiv, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int potrf(Layout layout, UPLO uplo, int n, DoublePointer A, int lda) {
+        throw JavaBLAS.unsupported();
+    }
+
+    @Override
+    public int potrf2(Layout layout, UPLO uplo, int n, double[] A, int lda) {
+        return potrf(layout, uplo, n, A, lda);
+    }
+
+    @Override
+    public int potrf2(Layout layout, UPLO uplo, int n, DoubleBuffer A, int lda) {
+        return potrf(layout, uplo, n, A, lda);
+    }
+
+    @Override
+    public int potrf2(Layout layout, UPLO uplo, int n, float[] A, int lda) {
+        return potrf(layout, uplo, n, A, lda);
+    }
+
+    @Override
+    public int potrf2(Layout layout, UPLO uplo, int n, FloatBuffer A, int lda) {
+        return potrf(layout, uplo, n, A, lda);
+    }
+
+    @Override
+    public int pbtrf(Layout layout, UPLO uplo, int n, int kd, double[] AB, int ldab) {
+        return dpbtrf(layout, uplo, n, kd, AB, 0, ldab);
+    }
+
+    @Override
+    public int pbtrf(Layout layout, UPLO uplo, int n, int kd, DoubleBuffer AB, int ldab) {
+        double[] ab = JavaBLAS.array(AB);
+        int info = dpbtrf(layout, uplo, n, kd, ab, JavaBLAS.offset(AB), ldab);
+        JavaBLAS.write(ab, AB);
+        return info;
+    }
+
+    @Override
+    public int pbtrf(Layout layout, UPLO uplo, int n, int kd, float[] AB, int ldab) {
+        return spbtrf(layout, uplo, n, kd, AB, 0, ldab);
+    }
+
+    @Override
+    public int pbtrf(Layout layout, UPLO uplo, int n, int kd, FloatBuffer AB, int ldab) {
+        float[] ab = JavaBLAS.array(AB);
+        int info = spbtrf(layout, uplo, n, kd, ab, JavaBLAS.offset(AB), ldab);
+        JavaBLAS.write(ab, AB);
+        return info;
+    }
+
+    @Override
+    public int pptrf(Layout layout, UPLO uplo, int n, double[] AP) {
+        return dpptrf(layout, uplo, n, AP, 0);
+    }
+
+    @Override
+    public int pptrf(Layout layout, UPLO uplo, int n, DoubleBuffer AP) {
+        double[] ap = JavaBLAS.array(AP);
+        int info = dpptrf(layout, uplo, n, ap, JavaBLAS.offset(AP));
+        JavaBLAS.write(ap, AP);
+        return info;
+    }
+
+    @Override
+    public int pptrf(Layout layout, UPLO uplo, int n, float[] AP) {
+        return spptrf(layout, uplo, n, AP, 0);
+    }
+
+    @Override
+    public int pptrf(Layout layout, UPLO uplo, int n, FloatBuffer AP) {
+        float[] ap = JavaBLAS.array(AP);
+        int info = spptrf(layout, uplo, n, ap, JavaBLAS.offset(AP));
+        JavaBLAS.write(ap, AP);
+        return info;
+    }
+
+    @Override
+    public int potrs(Layout layout, UPLO uplo, int n, int nrhs, DoublePointer A, int lda, DoublePointer B, int ldb) {
+        throw JavaBLAS.unsupported();
+    }
+
+    @Override
+    public int pbtrs(Layout layout, UPLO uplo, int n, int kd, int nrhs, double[] AB, int ldab, double[] B, int ldb) {
+        return dpbtrs(layout, uplo, n, kd, nrhs, AB, 0, ldab, B, 0, ldb);
+    }
+
+    @Override
+    public int pbtrs(Layout layout, UPLO uplo, int n, int kd, int nrhs, DoubleBuffer AB, int ldab, DoubleBuffer B, int ldb) {
+        double[] ab = JavaBLAS.array(AB);
+        double[] b = JavaBLAS.array(B);
+        int info = dpbtrs(layout, uplo, n, kd, nrhs, ab, JavaBLAS.offset(AB), ldab, b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int pbtrs(Layout layout, UPLO uplo, int n, int kd, int nrhs, float[] AB, int ldab, float[] B, int ldb) {
+        return spbtrs(layout, uplo, n, kd, nrhs, AB, 0, ldab, B, 0, ldb);
+    }
+
+    @Override
+    public int pbtrs(Layout layout, UPLO uplo, int n, int kd, int nrhs, FloatBuffer AB, int ldab, FloatBuffer B, int ldb) {
+        float[] ab = JavaBLAS.array(AB);
+        float[] b = JavaBLAS.array(B);
+        int info = spbtrs(layout, uplo, n, kd, nrhs, ab, JavaBLAS.offset(AB), ldab, b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int pptrs(Layout layout, UPLO uplo, int n, int nrhs, double[] AP, double[] B, int ldb) {
+        return dpptrs(layout, uplo, n, nrhs, AP, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int pptrs(Layout layout, UPLO uplo, int n, int nrhs, DoubleBuffer AP, DoubleBuffer B, int ldb) {
+        double[] ap = JavaBLAS.array(AP);
+        double[] b = JavaBLAS.array(B);
+        int info = dpptrs(layout, uplo, n, nrhs, ap, JavaBLAS.offset(AP), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int pptrs(Layout layout, UPLO uplo, int n, int nrhs, float[] AP, float[] B, int ldb) {
+        return spptrs(layout, uplo, n, nrhs, AP, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int pptrs(Layout layout, UPLO uplo, int n, int nrhs, FloatBuffer AP, FloatBuffer B, int ldb) {
+        float[] ap = JavaBLAS.array(AP);
+        float[] b = JavaBLAS.array(B);
+        int info = spptrs(layout, uplo, n, nrhs, ap, JavaBLAS.offset(AP), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int geqrf(Layout layout, int m, int n, DoublePointer A, int lda, DoublePointer tau) {
+        throw JavaBLAS.unsupported();
+    }
+
+    @Override
+    public int ormqr(Layout layout, Side side, Transpose trans, int m, int n, int k, DoublePointer A, int lda, DoublePointer tau, DoublePointer C, int ldc) {
+        throw JavaBLAS.unsupported();
+    }
+
+    @Override
+    public int orgqr(Layout layout, int m, int n, int k, DoublePointer A, int lda, DoublePointer tau) {
+        throw JavaBLAS.unsupported();
+    }
+
+    @Override
+    public int trtrs(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, int nrhs, DoublePointer A, int lda, DoublePointer B, int ldb) {
+        throw JavaBLAS.unsupported();
+    }
+
+    @Override
+    public int gesv(Layout layout, int n, int nrhs, double[] A, int lda, int[] ipiv, double[] B, int ldb) {
+        return dgesv(layout, n, nrhs, A, 0, lda, ipiv, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int gesv(Layout layout, int n, int nrhs, DoubleBuffer A, int lda, IntBuffer ipiv, DoubleBuffer B, int ldb) {
+        double[] a = JavaBLAS.array(A);
+        double[] b = JavaBLAS.array(B);
+        int[] p = array(ipiv);
+        int info = dgesv(layout, n, nrhs, a, JavaBLAS.offset(A), lda, p, offset(ipiv), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        write(p, ipiv);
+        return info;
+    }
+
+    @Override
+    public int posv(Layout layout, UPLO uplo, int n, int nrhs, double[] A, int lda, double[] B, int ldb) {
+        return dposv(layout, uplo, n, nrhs, A, 0, lda, B, 0, ldb);
+    }
+
+    @Override
+    public int posv(Layout layout, UPLO uplo, int n, int nrhs, DoubleBuffer A, int lda, DoubleBuffer B, int ldb) {
+        double[] a = JavaBLAS.array(A);
+        double[] b = JavaBLAS.array(B);
+        int info = dposv(layout, uplo, n, nrhs, a, JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int getrf(Layout layout, int m, int n, double[] A, int lda, int[] ipiv) {
+        return dgetrf(layout, m, n, A, 0, lda, ipiv, 0);
+    }
+
+    @Override
+    public int getrf(Layout layout, int m, int n, DoubleBuffer A, int lda, IntBuffer ipiv) {
+        double[] a = JavaBLAS.array(A);
+        int[] p = array(ipiv);
+        int info = dgetrf(layout, m, n, a, JavaBLAS.offset(A), lda, p, offset(ipiv));
+        JavaBLAS.write(a, A);
+        write(p, ipiv);
+        return info;
+    }
+
+    @Override
+    public int getrs(Layout layout, Transpose trans, int n, int nrhs, double[] A, int lda, int[] ipiv, double[] B, int ldb) {
+        return dgetrs(layout, trans, n, nrhs, A, 0, lda, ipiv, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int getrs(Layout layout, Transpose trans, int n, int nrhs, DoubleBuffer A, int lda, IntBuffer ipiv, DoubleBuffer B, int ldb) {
+        double[] b = JavaBLAS.array(B);
+        int info = dgetrs(layout, trans, n, nrhs, JavaBLAS.array(A), JavaBLAS.offset(A), lda, array(ipiv), offset(ipiv), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int potrf(Layout layout, UPLO uplo, int n, double[] A, int lda) {
+        return dpotrf(layout, uplo, n, A, 0, lda);
+    }
+
+    @Override
+    public int potrf(Layout layout, UPLO uplo, int n, DoubleBuffer A, int lda) {
+        double[] a = JavaBLAS.array(A);
+        int info = dpotrf(layout, uplo, n, a, JavaBLAS.offset(A), lda);
+        JavaBLAS.write(a, A);
+        return info;
+    }
+
+    @Override
+    public int potrs(Layout layout, UPLO uplo, int n, int nrhs, double[] A, int lda, double[] B, int ldb) {
+        return dpotrs(layout, uplo, n, nrhs, A, 0, lda, B, 0, ldb);
+    }
+
+    @Override
+    public int potrs(Layout layout, UPLO uplo, int n, int nrhs, DoubleBuffer A, int lda, DoubleBuffer B, int ldb) {
+        double[] b = JavaBLAS.array(B);
+        int info = dpotrs(layout, uplo, n, nrhs, JavaBLAS.array(A), JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int geqrf(Layout layout, int m, int n, double[] A, int lda, double[] tau) {
+        return dgeqrf(layout, m, n, A, 0, lda, tau, 0);
+    }
+
+    @Override
+    public int geqrf(Layout layout, int m, int n, DoubleBuffer A, int lda, DoubleBuffer tau) {
+        double[] a = JavaBLAS.array(A);
+        double[] t = JavaBLAS.array(tau);
+        int info = dgeqrf(layout, m, n, a, JavaBLAS.offset(A), lda, t, JavaBLAS.offset(tau));
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(t, tau);
+        return info;
+    }
+
+    @Override
+    public int ormqr(Layout layout, Side side, Transpose trans, int m, int n, int k, double[] A, int lda, double[] tau, double[] C, int ldc) {
+        return dormqr(layout, side, trans, m, n, k, A, 0, lda, tau, 0, C, 0, ldc);
+    }
+
+    @Override
+    public int ormqr(Layout layout, Side side, Transpose trans, int m, int n, int k, DoubleBuffer A, int lda, DoubleBuffer tau, DoubleBuffer C, int ldc) {
+        double[] c = JavaBLAS.array(C);
+        int info = dormqr(layout, side, trans, m, n, k, JavaBLAS.array(A), JavaBLAS.offset(A), lda, JavaBLAS.array(tau), JavaBLAS.offset(tau), c, JavaBLAS.offset(C), ldc);
+        JavaBLAS.write(c, C);
+        return info;
+    }
+
+    @Override
+    public int orgqr(Layout layout, int m, int n, int k, double[] A, int lda, double[] tau) {
+        return dorgqr(layout, m, n, k, A, 0, lda, tau, 0);
+    }
+
+    @Override
+    public int orgqr(Layout layout, int m, int n, int k, DoubleBuffer A, int lda, DoubleBuffer tau) {
+        double[] a = JavaBLAS.array(A);
+        int info = dorgqr(layout, m, n, k, a, JavaBLAS.offset(A), lda, JavaBLAS.array(tau), JavaBLAS.offset(tau));
+        JavaBLAS.write(a, A);
+        return info;
+    }
+
+    @Override
+    public int trtrs(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, int nrhs, double[] A, int lda, double[] B, int ldb) {
+        return dtrtrs(layout, uplo, trans, diag, n, nrhs, A, 0, lda, B, 0, ldb);
+    }
+
+    @Override
+    public int trtrs(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, int nrhs, DoubleBuffer A, int lda, DoubleBuffer B, int ldb) {
+        double[] b = JavaBLAS.array(B);
+        int info = dtrtrs(layout, uplo, trans, diag, n, nrhs, JavaBLAS.array(A), JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    /**
+     * Copies the transpose of column major m x n matrix A to B.
+     */
+    private static void dtranspose(int m, int n, double[] A, int ao, int lda, double[] B, int bo, int ldb) {
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                B[bo + j + i * ldb] = A[ao + i + j * lda];
+            }
+        }
+    }
+
+    /**
+     * Returns the column major copy of row major m x n matrix.
+     */
+    private static double[] dcolMajor(int m, int n, double[] A, int ao, int lda) {
+        int ld = Math.max(1, m);
+        double[] B = new double[ld * n];
+        dtranspose(n, m, A, ao, lda, B, 0, ld);
+        return B;
+    }
+
+    /**
+     * Copies the column major m x n matrix B back to the row major one.
+     */
+    private static void drowMajor(int m, int n, double[] B, double[] A, int ao, int lda) {
+        dtranspose(m, n, B, 0, Math.max(1, m), A, ao, lda);
+    }
+
+    /** Returns the 2-norm of contiguous vector without overflow. */
+    private static double dnrm2(int n, double[] x, int xo) {
+        double scale = 0.0;
+        for (int i = xo; i < xo + n; i++) {
+            scale = Math.max(scale, Math.abs(x[i]));
+        }
+
+        if (scale == 0.0) return 0.0;
+
+        double r = 1.0 / scale;
+        double ssq = 0.0;
+        for (int i = xo; i < xo + n; i++) {
+            double a = x[i] * r;
+            ssq += a * a;
+        }
+        return scale * Math.sqrt(ssq);
+    }
+
+    /**
+     * Solves the triangular system op(A) * X = B in place of B
+     * for column major matrices. The columns of B are solved in parallel.
+     */
+    static void dtrsm(UPLO uplo, Transpose trans, Diag diag, int n, int nrhs, double[] A, int ao, int lda, double[] B, int bo, int ldb) {
+        boolean unit = diag == Diag.UNIT;
+        boolean lower = uplo == UPLO.LOWER;
+        boolean transposed = trans != Transpose.NO_TRANSPOSE;
+        JavaBLAS.range(0, nrhs, (long) n * n * nrhs).forEach(c -> {
+            int b = bo + c * ldb;
+            if (!transposed) {
+                if (lower) {
+                    for (int j = 0; j < n; j++) {
+                        int aj = ao + j * lda;
+                        if (!unit) B[b + j] /= A[aj + j];
+                        JavaBLAS.daxpy(n - j - 1, -B[b + j], A, aj + j + 1, B, b + j + 1);
+                    }
+                } else {
+                    for (int j = n - 1; j >= 0; j--) {
+                        int aj = ao + j * lda;
+                        if (!unit) B[b + j] /= A[aj + j];
+                        JavaBLAS.daxpy(j, -B[b + j], A, aj, B, b);
+                    }
+                }
+            } else {
+                if (lower) {
+                    for (int j = n - 1; j >= 0; j--) {
+                        int aj = ao + j * lda;
+                        double t = B[b + j] - JavaBLAS.ddot(n - j - 1, A, aj + j + 1, B, b + j + 1);
+                        B[b + j] = unit ? t : t / A[aj + j];
+                    }
+                } else {
+                    for (int j = 0; j < n; j++) {
+                        int aj = ao + j * lda;
+                        double t = B[b + j] - JavaBLAS.ddot(j, A, aj, B, b);
+                        B[b + j] = unit ? t : t / A[aj + j];
+                    }
+                }
+            }
+        });
+    }
+
+    /** Swaps two rows in the columns [c0, c1) of column major matrix. */
+    private static void dswap(double[] A, int ao, int lda, int r1, int r2, int c0, int c1) {
+        for (int c = c0; c < c1; c++) {
+            int j = ao + c * lda;
+            double t = A[j + r1];
+            A[j + r1] = A[j + r2];
+            A[j + r2] = t;
+        }
+    }
+
+    /** Solves a general linear system with LU decomposition. */
+    static int dgesv(Layout layout, int n, int nrhs, double[] A, int ao, int lda, int[] ipiv, int po, double[] B, int bo, int ldb) {
+        int info = dgetrf(layout, n, n, A, ao, lda, ipiv, po);
+        if (info == 0) {
+            info = dgetrs(layout, Transpose.NO_TRANSPOSE, n, nrhs, A, ao, lda, ipiv, po, B, bo, ldb);
+        }
+        return info;
+    }
+
+    /**
+     * Blocked right-looking LU decomposition with partial pivoting.
+     * The trailing submatrix is updated by the blocked gemm.
+     */
+    static int dgetrf(Layout layout, int m, int n, double[] A, int ao, int lda, int[] ipiv, int po) {
+        if (layout == Layout.ROW_MAJOR) {
+            double[] a = dcolMajor(m, n, A, ao, lda);
+            int info = dgetrf(Layout.COL_MAJOR, m, n, a, 0, Math.max(1, m), ipiv, po);
+            drowMajor(m, n, a, A, ao, lda);
+            return info;
+        }
+
+        int info = 0;
+        int mn = Math.min(m, n);
+        for (int j0 = 0; j0 < mn; j0 += NB) {
+            int jb = Math.min(NB, mn - j0);
+            // Factorizes the panel A[j0:m, j0:j0+jb].
+            for (int j = j0; j < j0 + jb; j++) {
+                int aj = ao + j * lda;
+                int p = j;
+                double max = Math.abs(A[aj + j]);
+                for (int i = j + 1; i < m; i++) {
+                    double a = Math.abs(A[aj + i]);
+                    if (a > max) {
+                        max = a;
+                        p = i;
+                    }
+                }
+
+                ipiv[po + j] = p + 1;
+                if (A[aj + p] != 0.0) {
+                    if (p != j) {
+                        dswap(A, ao, lda, j, p, j0, j0 + jb);
+                    }
+                    JavaBLAS.dscal(m - j - 1, 1.0 / A[aj + j], A, aj + j + 1);
+                } else if (info == 0) {
+                    info = j + 1;
+                }
+
+                for (int c = j + 1; c < j0 + jb; c++) {
+                    int ac = ao + c * lda;
+                    JavaBLAS.daxpy(m - j - 1, -A[ac + j], A, aj + j + 1, A, ac + j + 1);
+                }
+            }
+
+            // Applies the row interchanges to the columns out of panel.
+            for (int j = j0; j < j0 + jb; j++) {
+                int p = ipiv[po + j] - 1;
+                if (p != j) {
+                    dswap(A, ao, lda, j, p, 0, j0);
+                    dswap(A, ao, lda, j, p, j0 + jb, n);
+                }
+            }
+
+            int j1 = j0 + jb;
+            if (j1 < n) {
+                // U12 = L11^-1 * A12
+                dtrsm(UPLO.LOWER, Transpose.NO_TRANSPOSE, Diag.UNIT, jb, n - j1, A, ao + j0 + j0 * lda, lda, A, ao + j0 + j1 * lda, lda);
+                if (j1 < m) {
+                    // A22 = A22 - L21 * U12
+                    JavaBLAS.dgemm(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, Transpose.NO_TRANSPOSE, m - j1, n - j1, jb,
+                            -1.0, A, ao + j1 + j0 * lda, lda, A, ao + j0 + j1 * lda, lda, 1.0, A, ao + j1 + j1 * lda, lda);
+                }
+            }
+        }
+
+        return info;
+    }
+
+    /** Solves a general linear system with the LU decomposition. */
+    static int dgetrs(Layout layout, Transpose trans, int n, int nrhs, double[] A, int ao, int lda, int[] ipiv, int po, double[] B, int bo, int ldb) {
+        if (layout == Layout.ROW_MAJOR) {
+            double[] a = dcolMajor(n, n, A, ao, lda);
+            double[] b = dcolMajor(n, nrhs, B, bo, ldb);
+            int info = dgetrs(Layout.COL_MAJOR, trans, n, nrhs, a, 0, Math.max(1, n), ipiv, po, b, 0, Math.max(1, n));
+            drowMajor(n, nrhs, b, B, bo, ldb);
+            return info;
+        }
+
+        if (trans == Transpose.NO_TRANSPOSE) {
+            for (int j = 0; j < n; j++) {
+                int p = ipiv[po + j] - 1;
+                if (p != j) dswap(B, bo, ldb, j, p, 0, nrhs);
+            }
+            dtrsm(UPLO.LOWER, Transpose.NO_TRANSPOSE, Diag.UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+            dtrsm(UPLO.UPPER, Transpose.NO_TRANSPOSE, Diag.NON_UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+        } else {
+            dtrsm(UPLO.UPPER, Transpose.TRANSPOSE, Diag.NON_UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+            dtrsm(UPLO.LOWER, Transpose.TRANSPOSE, Diag.UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+            for (int j = n - 1; j >= 0; j--) {
+                int p = ipiv[po + j] - 1;
+                if (p != j) dswap(B, bo, ldb, j, p, 0, nrhs);
+            }
+        }
+
+        return 0;
+    }
+
+    /** Solves a symmetric positive definite linear system with Cholesky decomposition. */
+    static int dposv(Layout layout, UPLO uplo, int n, int nrhs, double[] A, int ao, int lda, double[] B, int bo, int ldb) {
+        int info = dpotrf(layout, uplo, n, A, ao, lda);
+        if (info == 0) {
+            info = dpotrs(layout, uplo, n, nrhs, A, ao, lda, B, bo, ldb);
+        }
+        return info;
+    }
+
+    /**
+     * Blocked right-looking Cholesky decomposition. The columns of
+     * trailing submatrix are updated in parallel.
+     */
+    static int dpotrf(Layout layout, UPLO uplo, int n, double[] A, int ao, int lda) {
+        if (layout == Layout.ROW_MAJOR) {
+            // The row major triangle is the other triangle of column major one.
+            return dpotrf(Layout.COL_MAJOR, JavaBLAS.flip(uplo), n, A, ao, lda);
+        }
+
+        if (uplo == UPLO.UPPER) {
+            // A = U' * U = L * L' where L = U'.
+            int ld = Math.max(1, n);
+            double[] L = new double[ld * n];
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i <= j; i++) {
+                    L[j + i * ld] = A[ao + i + j * lda];
+                }
+            }
+
+            int info = dpotrf(Layout.COL_MAJOR, UPLO.LOWER, n, L, 0, ld);
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i <= j; i++) {
+                    A[ao + i + j * lda] = L[j + i * ld];
+                }
+            }
+            return info;
+        }
+
+        for (int j0 = 0; j0 < n; j0 += NB) {
+            int jb = Math.min(NB, n - j0);
+            // Factorizes the panel A[j0:n, j0:j0+jb].
+            for (int j = j0; j < j0 + jb; j++) {
+                int aj = ao + j * lda;
+                double d = A[aj + j];
+                if (!(d > 0.0)) {
+                    return j + 1;
+                }
+
+                d = Math.sqrt(d);
+                A[aj + j] = d;
+                JavaBLAS.dscal(n - j - 1, 1.0 / d, A, aj + j + 1);
+                for (int c = j + 1; c < j0 + jb; c++) {
+                    JavaBLAS.daxpy(n - c, -A[aj + c], A, aj + c, A, ao + c * lda + c);
+                }
+            }
+
+            // A22 = A22 - L21 * L21' on the lower triangle.
+            int p0 = j0;
+            int p1 = j0 + jb;
+            JavaBLAS.range(p1, n, (long) (n - p1) * (n - p1) * jb).forEach(c -> {
+                int ac = ao + c * lda;
+                int p = p0;
+                for (; p + 3 < p1; p += 4) {
+                    int a0 = ao + p * lda;
+                    int a1 = a0 + lda;
+                    int a2 = a1 + lda;
+                    int a3 = a2 + lda;
+                    double l0 = A[a0 + c];
+                    double l1 = A[a1 + c];
+                    double l2 = A[a2 + c];
+                    double l3 = A[a3 + c];
+                    for (int i = c; i < n; i++) {
+                        A[ac + i] -= l0 * A[a0 + i] + l1 * A[a1 + i] + l2 * A[a2 + i] + l3 * A[a3 + i];
+                    }
+                }
+                for (; p < p1; p++) {
+                    int ap = ao + p * lda;
+                    JavaBLAS.daxpy(n - c, -A[ap + c], A, ap + c, A, ac + c);
+                }
+            });
+        }
+
+        return 0;
+    }
+
+    /** Solves a symmetric positive definite linear system with the Cholesky decomposition. */
+    static int dpotrs(Layout layout, UPLO uplo, int n, int nrhs, double[] A, int ao, int lda, double[] B, int bo, int ldb) {
+        if (layout == Layout.ROW_MAJOR) {
+            double[] b = dcolMajor(n, nrhs, B, bo, ldb);
+            int info = dpotrs(Layout.COL_MAJOR, JavaBLAS.flip(uplo), n, nrhs, A, ao, lda, b, 0, Math.max(1, n));
+            drowMajor(n, nrhs, b, B, bo, ldb);
+            return info;
+        }
+
+        if (uplo == UPLO.LOWER) {
+            dtrsm(UPLO.LOWER, Transpose.NO_TRANSPOSE, Diag.NON_UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+            dtrsm(UPLO.LOWER, Transpose.TRANSPOSE, Diag.NON_UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+        } else {
+            dtrsm(UPLO.UPPER, Transpose.TRANSPOSE, Diag.NON_UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+            dtrsm(UPLO.UPPER, Transpose.NO_TRANSPOSE, Diag.NON_UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+        }
+        return 0;
+    }
+
+    /**
+     * Generates an elementary reflector H = I - tau * v * v' such that
+     * H * x = (beta, 0, ..., 0)'. On output, x[0] is beta and the rest
+     * of x is v[1:n] as v[0] = 1.
+     * @return tau.
+     */
+    private static double dlarfg(int n, double[] x, int xo) {
+        if (n <= 1) return 0.0;
+
+        double xnorm = dnrm2(n - 1, x, xo + 1);
+        if (xnorm == 0.0) return 0.0;
+
+        double alpha = x[xo];
+        double beta = -Math.copySign(Math.hypot(alpha, xnorm), alpha);
+        JavaBLAS.dscal(n - 1, 1.0 / (alpha - beta), x, xo + 1);
+        x[xo] = beta;
+        return (beta - alpha) / beta;
+    }
+
+    /**
+     * Applies an elementary reflector H = I - tau * v * v' to a column
+     * vector c, where v[0] = 1 is implicit.
+     */
+    private static void dlarf(int n, double[] v, int vo, double tau, double[] c, int co) {
+        if (tau == 0.0) return;
+
+        double w = tau * (c[co] + JavaBLAS.ddot(n - 1, v, vo + 1, c, co + 1));
+        c[co] -= w;
+        JavaBLAS.daxpy(n - 1, -w, v, vo + 1, c, co + 1);
+    }
+
+    /**
+     * Blocked Householder QR decomposition. The reflectors of each panel
+     * are applied to the trailing columns in parallel.
+     */
+    static int dgeqrf(Layout layout, int m, int n, double[] A, int ao, int lda, double[] tau, int to) {
+        if (layout == Layout.ROW_MAJOR) {
+            double[] a = dcolMajor(m, n, A, ao, lda);
+            int info = dgeqrf(Layout.COL_MAJOR, m, n, a, 0, Math.max(1, m), tau, to);
+            drowMajor(m, n, a, A, ao, lda);
+            return info;
+        }
+
+        int k = Math.min(m, n);
+        for (int j0 = 0; j0 < k; j0 += NB) {
+            int jb = Math.min(NB, k - j0);
+            // Factorizes the panel A[j0:m, j0:j0+jb].
+            for (int j = j0; j < j0 + jb; j++) {
+                int aj = ao + j + j * lda;
+                tau[to + j] = dlarfg(m - j, A, aj);
+                for (int c = j + 1; c < j0 + jb; c++) {
+                    dlarf(m - j, A, aj, tau[to + j], A, ao + j + c * lda);
+                }
+            }
+
+            int p0 = j0;
+            int p1 = j0 + jb;
+            JavaBLAS.range(p1, n, (long) (m - p0) * (n - p1) * jb).forEach(c -> {
+                for (int j = p0; j < p1; j++) {
+                    dlarf(m - j, A, ao + j + j * lda, tau[to + j], A, ao + j + c * lda);
+                }
+            });
+        }
+
+        return 0;
+    }
+
+    /** Generates the m x n matrix Q with orthonormal columns of QR decomposition. */
+    static int dorgqr(Layout layout, int m, int n, int k, double[] A, int ao, int lda, double[] tau, int to) {
+        if (layout == Layout.ROW_MAJOR) {
+            double[] a = dcolMajor(m, n, A, ao, lda);
+            int info = dorgqr(Layout.COL_MAJOR, m, n, k, a, 0, Math.max(1, m), tau, to);
+            drowMajor(m, n, a, A, ao, lda);
+            return info;
+        }
+
+        for (int j = k; j < n; j++) {
+            int aj = ao + j * lda;
+            Arrays.fill(A, aj, aj + m, 0.0);
+            A[aj + j] = 1.0;
+        }
+
+        for (int i = k - 1; i >= 0; i--) {
+            int ai = ao + i + i * lda;
+            double t = tau[to + i];
+            int r = i;
+            JavaBLAS.range(i + 1, n, (long) (m - i) * (n - i)).forEach(c -> dlarf(m - r, A, ai, t, A, ao + r + c * lda));
+            JavaBLAS.dscal(m - i - 1, -t, A, ai + 1);
+            A[ai] = 1.0 - t;
+            Arrays.fill(A, ao + i * lda, ai, 0.0);
+        }
+
+        return 0;
+    }
+
+    /** Multiplies a matrix by the orthogonal matrix Q of QR decomposition. */
+    static int dormqr(Layout layout, Side side, Transpose trans, int m, int n, int k, double[] A, int ao, int lda, double[] tau, int to, double[] C, int co, int ldc) {
+        int nq = side == Side.LEFT ? m : n;
+        if (layout == Layout.ROW_MAJOR) {
+            double[] a = dcolMajor(nq, k, A, ao, lda);
+            double[] c = dcolMajor(m, n, C, co, ldc);
+            int info = dormqr(Layout.COL_MAJOR, side, trans, m, n, k, a, 0, Math.max(1, nq), tau, to, c, 0, Math.max(1, m));
+            drowMajor(m, n, c, C, co, ldc);
+            return info;
+        }
+
+        if (side == Side.RIGHT) {
+            // C * op(Q) = (op(Q)' * C')'
+            int ld = Math.max(1, n);
+            double[] c = new double[ld * m];
+            dtranspose(m, n, C, co, ldc, c, 0, ld);
+            int info = dormqr(Layout.COL_MAJOR, Side.LEFT, JavaBLAS.flip(trans), n, m, k, A, ao, lda, tau, to, c, 0, ld);
+            dtranspose(n, m, c, 0, ld, C, co, ldc);
+            return info;
+        }
+
+        // Q = H(1) H(2) ... H(k) so Q' * C applies H(1) first.
+        boolean forward = trans != Transpose.NO_TRANSPOSE;
+        JavaBLAS.range(0, n, (long) m * n * k).forEach(j -> {
+            int cj = co + j * ldc;
+            for (int s = 0; s < k; s++) {
+                int i = forward ? s : k - 1 - s;
+                dlarf(m - i, A, ao + i + i * lda, tau[to + i], C, cj + i);
+            }
+        });
+
+        return 0;
+    }
+
+    /** Solves a triangular linear system. */
+    static int dtrtrs(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, int nrhs, double[] A, int ao, int lda, double[] B, int bo, int ldb) {
+        if (layout == Layout.ROW_MAJOR) {
+            double[] b = dcolMajor(n, nrhs, B, bo, ldb);
+            int info = dtrtrs(Layout.COL_MAJOR, JavaBLAS.flip(uplo), JavaBLAS.flip(trans), diag, n, nrhs, A, ao, lda, b, 0, Math.max(1, n));
+            drowMajor(n, nrhs, b, B, bo, ldb);
+            return info;
+        }
+
+        if (diag == Diag.NON_UNIT) {
+            for (int i = 0; i < n; i++) {
+                if (A[ao + i + i * lda] == 0.0) {
+                    return i + 1;
+                }
+            }
+        }
+
+        dtrsm(uplo, trans, diag, n, nrhs, A, ao, lda, B, bo, ldb);
+        return 0;
+    }
+
+    /** The machine epsilon of double precision. */
+    private static final double EPSILON = Math.ulp(1.0);
+
+    /** Returns A[i, j] of a matrix in the given layout. */
+    private static double get(Layout layout, double[] A, int ao, int lda, int i, int j) {
+        return layout == Layout.COL_MAJOR ? A[ao + i + j * lda] : A[ao + i * lda + j];
+    }
+
+    /** Sets A[i, j] of a matrix in the given layout. */
+    private static void set(Layout layout, double[] A, int ao, int lda, int i, int j, double x) {
+        if (layout == Layout.COL_MAJOR) {
+            A[ao + i + j * lda] = x;
+        } else {
+            A[ao + i * lda + j] = x;
+        }
+    }
+
+    /**
+     * Copies the m x n matrix to the other in the given layout. The source
+     * is a column major matrix with the leading dimension m, or its transpose
+     * with the leading dimension n if transposed is true.
+     */
+    private static void dput(Layout layout, int m, int n, double[] src, boolean transposed, double[] A, int ao, int lda) {
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                set(layout, A, ao, lda, i, j, transposed ? src[j + i * n] : src[i + j * m]);
+            }
+        }
+    }
+
+    /** Returns the double precision copy of array. */
+    private static double[] toDouble(float[] x) {
+        if (x == null) return null;
+        double[] y = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            y[i] = x[i];
+        }
+        return y;
+    }
+
+    /** Copies the double precision array back to the single precision one. */
+    private static void toFloat(double[] x, float[] y) {
+        if (x == null) return;
+        for (int i = 0; i < x.length; i++) {
+            y[i] = (float) x[i];
+        }
+    }
+
+    /**
+     * Copies the stored triangle of symmetric column major matrix
+     * to the other triangle.
+     */
+    private static void dsymmetrize(UPLO uplo, int n, double[] A, int ao, int lda) {
+        for (int j = 0; j < n; j++) {
+            for (int i = j + 1; i < n; i++) {
+                if (uplo == UPLO.LOWER) {
+                    A[ao + j + i * lda] = A[ao + i + j * lda];
+                } else {
+                    A[ao + i + j * lda] = A[ao + j + i * lda];
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the stored triangle of symmetric column major matrix
+     * to the other triangle.
+     */
+    private static void ssymmetrize(UPLO uplo, int n, float[] A, int ao, int lda) {
+        for (int j = 0; j < n; j++) {
+            for (int i = j + 1; i < n; i++) {
+                if (uplo == UPLO.LOWER) {
+                    A[ao + j + i * lda] = A[ao + i + j * lda];
+                } else {
+                    A[ao + i + j * lda] = A[ao + j + i * lda];
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves a symmetric indefinite linear system. Instead of the
+     * Bunch-Kaufman diagonal pivoting, the full matrix is restored from
+     * the given triangle and factorized by LU with partial pivoting,
+     * which is as stable. On output, A holds the LU factors and ipiv
+     * the row interchanges as {@link #getrf}, which is not compatible
+     * with <code>sytrs</code>.
+     */
+    static int dsysv(Layout layout, UPLO uplo, int n, int nrhs, double[] A, int ao, int lda, int[] ipiv, int po, double[] B, int bo, int ldb) {
+        // The full symmetric matrix is the same in both layouts while
+        // the row major triangle is the other triangle of column major one.
+        dsymmetrize(layout == Layout.ROW_MAJOR ? JavaBLAS.flip(uplo) : uplo, n, A, ao, lda);
+        return dgesv(layout, n, nrhs, A, ao, lda, ipiv, po, B, bo, ldb);
+    }
+
+    /** Solves a symmetric indefinite linear system by LU decomposition. */
+    static int ssysv(Layout layout, UPLO uplo, int n, int nrhs, float[] A, int ao, int lda, int[] ipiv, int po, float[] B, int bo, int ldb) {
+        ssymmetrize(layout == Layout.ROW_MAJOR ? JavaBLAS.flip(uplo) : uplo, n, A, ao, lda);
+        return sgesv(layout, n, nrhs, A, ao, lda, ipiv, po, B, bo, ldb);
+    }
+
+    /**
+     * Computes the eigenvalues and optionally eigenvectors of a symmetric
+     * matrix by Householder tridiagonalization and the implicit QL method.
+     * The eigenvalues are in ascending order. If jobz is VECTORS, A is
+     * overwritten by the orthonormal eigenvectors in columns.
+     */
+    static int dsyev(Layout layout, EVDJob jobz, UPLO uplo, int n, double[] A, int ao, int lda, double[] w, int wo) {
+        if (n == 0) return 0;
+
+        UPLO triangle = layout == Layout.ROW_MAJOR ? JavaBLAS.flip(uplo) : uplo;
+        double[][] V = new double[n][n];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                boolean stored = triangle == UPLO.LOWER ? i >= j : i <= j;
+                V[i][j] = stored ? A[ao + i + j * lda] : A[ao + j + i * lda];
+            }
+        }
+
+        double[] d = new double[n];
+        double[] e = new double[n];
+        tred2(n, V, d, e);
+
+        boolean vectors = jobz == EVDJob.VECTORS;
+        double[][] Z = null;
+        if (vectors) {
+            // Z[j] is the j-th column of V so that the rotations
+            // in tql2 access contiguous memory.
+            Z = new double[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    Z[j][i] = V[i][j];
+                }
+            }
+        }
+        V = null;
+
+        int info = tql2(n, d, e, Z);
+        System.arraycopy(d, 0, w, wo, n);
+        if (vectors) {
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i < n; i++) {
+                    set(layout, A, ao, lda, i, j, Z[j][i]);
+                }
+            }
+        }
+        return info;
+    }
+
+    /** Computes the eigen decomposition of a symmetric matrix in double precision. */
+    static int ssyev(Layout layout, EVDJob jobz, UPLO uplo, int n, float[] A, int ao, int lda, float[] w, int wo) {
+        double[] a = toDouble(A);
+        double[] x = toDouble(w);
+        int info = dsyev(layout, jobz, uplo, n, a, ao, lda, x, wo);
+        toFloat(a, A);
+        toFloat(x, w);
+        return info;
+    }
+
+    /**
+     * Householder reduction of a symmetric matrix to tridiagonal form,
+     * derived from the Algol procedure tred2 by Bowdler, Martin, Reinsch
+     * and Wilkinson, Handbook for Auto. Comp., Vol.ii-Linear Algebra, and
+     * the corresponding Fortran subroutine in EISPACK.
+     * @param V on input, the symmetric matrix. On output, the orthogonal
+     *          transformation.
+     * @param d on output, the diagonal elements.
+     * @param e on output, the subdiagonal elements in e[1:n].
+     */
+    private static void tred2(int n, double[][] V, double[] d, double[] e) {
+        System.arraycopy(V[n - 1], 0, d, 0, n);
+
+        for (int i = n - 1; i > 0; i--) {
+            // Scale to avoid under/overflow.
+            double scale = 0.0;
+            double h = 0.0;
+            for (int k = 0; k < i; k++) {
+                scale += Math.abs(d[k]);
+            }
+
+            if (scale == 0.0) {
+                e[i] = d[i - 1];
+                for (int j = 0; j < i; j++) {
+                    d[j] = V[i - 1][j];
+                    V[i][j] = 0.0;
+                    V[j][i] = 0.0;
+                }
+            } else {
+                // Generate Householder vector.
+                for (int k = 0; k < i; k++) {
+                    d[k] /= scale;
+                    h += d[k] * d[k];
+                }
+
+                double f = d[i - 1];
+                double g = Math.sqrt(h);
+                if (f > 0) g = -g;
+                e[i] = scale * g;
+                h = h - f * g;
+                d[i - 1] = f - g;
+                Arrays.fill(e, 0, i, 0.0);
+
+                // Apply similarity transformation to remaining columns.
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    V[j][i] = f;
+                    g = e[j] + V[j][j] * f;
+                    for (int k = j + 1; k <= i - 1; k++) {
+                        g += V[k][j] * d[k];
+                        e[k] += V[k][j] * f;
+                    }
+                    e[j] = g;
+                }
+
+                f = 0.0;
+                for (int j = 0; j < i; j++) {
+                    e[j] /= h;
+                    f += e[j] * d[j];
+                }
+
+                double hh = f / (h + h);
+                for (int j = 0; j < i; j++) {
+                    e[j] -= hh * d[j];
+                }
+
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    g = e[j];
+                    for (int k = j; k <= i - 1; k++) {
+                        V[k][j] -= (f * e[k] + g * d[k]);
+                    }
+                    d[j] = V[i - 1][j];
+                    V[i][j] = 0.0;
+                }
+            }
+            d[i] = h;
+        }
+
+        // Accumulate transformations.
+        for (int i = 0; i < n - 1; i++) {
+            V[n - 1][i] = V[i][i];
+            V[i][i] = 1.0;
+            double h = d[i + 1];
+            if (h != 0.0) {
+                for (int k = 0; k <= i; k++) {
+                    d[k] = V[k][i + 1] / h;
+                }
+
+                for (int j = 0; j <= i; j++) {
+                    double g = 0.0;
+                    for (int k = 0; k <= i; k++) {
+                        g += V[k][i + 1] * V[k][j];
+                    }
+                    for (int k = 0; k <= i; k++) {
+                        V[k][j] -= g * d[k];
+                    }
+                }
+            }
+
+            for (int k = 0; k <= i; k++) {
+                V[k][i + 1] = 0.0;
+            }
+        }
+
+        for (int j = 0; j < n; j++) {
+            d[j] = V[n - 1][j];
+            V[n - 1][j] = 0.0;
+        }
+        V[n - 1][n - 1] = 1.0;
+        e[0] = 0.0;
+    }
+
+    /**
+     * Symmetric tridiagonal QL algorithm, derived from the Algol procedure
+     * tql2 by Bowdler, Martin, Reinsch and Wilkinson, Handbook for Auto.
+     * Comp., Vol.ii-Linear Algebra, and the corresponding Fortran subroutine
+     * in EISPACK. The eigenvalues are sorted in ascending order.
+     * @param d on input, the diagonal elements. On output, the eigenvalues.
+     * @param e on input, the subdiagonal elements in e[1:n].
+     * @param Z on input, the transpose of the transformation of tred2.
+     *          On output, Z[j] is the j-th eigenvector. May be null.
+     * @return 0 on success, or i if the i-th eigenvalue fails to converge.
+     */
+    private static int tql2(int n, double[] d, double[] e, double[][] Z) {
+        System.arraycopy(e, 1, e, 0, n - 1);
+        e[n - 1] = 0.0;
+
+        double f = 0.0;
+        double tst1 = 0.0;
+        for (int l = 0; l < n; l++) {
+            // Find small subdiagonal element.
+            tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+            int m = l;
+            while (m < n - 1) {
+                if (Math.abs(e[m]) <= EPSILON * tst1) break;
+                m++;
+            }
+
+            // If m == l, d[l] is an eigenvalue, otherwise, iterate.
+            if (m > l) {
+                int iter = 0;
+                do {
+                    if (++iter > 30) {
+                        return l + 1;
+                    }
+
+                    // Compute implicit shift.
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2.0 * e[l]);
+                    double r = Math.hypot(p, 1.0);
+                    if (p < 0) r = -r;
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for (int i = l + 2; i < n; i++) {
+                        d[i] -= h;
+                    }
+                    f += h;
+
+                    // Implicit QL transformation.
+                    p = d[m];
+                    double c = 1.0;
+                    double c2 = c;
+                    double c3 = c;
+                    double el1 = e[l + 1];
+                    double s = 0.0;
+                    double s2 = 0.0;
+                    for (int i = m - 1; i >= l; i--) {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = Math.hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+
+                        // Accumulate transformation.
+                        if (Z != null) {
+                            double[] zi = Z[i];
+                            double[] zi1 = Z[i + 1];
+                            for (int k = 0; k < n; k++) {
+                                h = zi1[k];
+                                zi1[k] = s * zi[k] + c * h;
+                                zi[k] = c * zi[k] - s * h;
+                            }
+                        }
+                    }
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+
+                    // Check for convergence.
+                } while (Math.abs(e[l]) > EPSILON * tst1);
+            }
+            d[l] = d[l] + f;
+            e[l] = 0.0;
+        }
+
+        // Sort eigenvalues and corresponding vectors.
+        for (int i = 0; i < n - 1; i++) {
+            int k = i;
+            double p = d[i];
+            for (int j = i + 1; j < n; j++) {
+                if (d[j] < p) {
+                    k = j;
+                    p = d[j];
+                }
+            }
+
+            if (k != i) {
+                d[k] = d[i];
+                d[i] = p;
+                if (Z != null) {
+                    double[] z = Z[i];
+                    Z[i] = Z[k];
+                    Z[k] = z;
+                }
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Computes the eigenvalues and optionally the left and/or right
+     * eigenvectors of a general matrix. The matrix is reduced to the upper
+     * Hessenberg form by orthogonal similarity transformations and then
+     * to the real Schur form by the shifted QR iterations. The eigenvectors
+     * are computed by back substitution, which are normalized to have the
+     * Euclidean norm 1 and the largest component real as LAPACK does.
+     * The left eigenvectors are the conjugate rows of the inverse of right
+     * eigenvectors, which requires the matrix to be diagonalizable.
+     */
+    static int dgeev(Layout layout, EVDJob jobvl, EVDJob jobvr, int n, double[] A, int ao, int lda, double[] wr, int wro, double[] wi, int wio,
+                     double[] Vl, int vlo, int ldvl, double[] Vr, int vro, int ldvr) {
+        if (n == 0) return 0;
+
+        double[][] H = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                H[i][j] = get(layout, A, ao, lda, i, j);
+            }
+        }
+
+        boolean left = jobvl == EVDJob.VECTORS;
+        boolean right = jobvr == EVDJob.VECTORS;
+        double[][] V = new double[n][n];
+        double[] d = new double[n];
+        double[] e = new double[n];
+        orthes(n, H, V);
+        int info = hqr2(n, H, V, d, e, left || right);
+        if (info != 0) return info;
+
+        System.arraycopy(d, 0, wr, wro, n);
+        System.arraycopy(e, 0, wi, wio, n);
+        if (left) {
+            double[][] U = leftEigenvectors(n, V, e);
+            if (U == null) return n + 1;
+            normalize(n, U, e);
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    set(layout, Vl, vlo, ldvl, i, j, U[i][j]);
+                }
+            }
+        }
+
+        if (right) {
+            normalize(n, V, e);
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    set(layout, Vr, vro, ldvr, i, j, V[i][j]);
+                }
+            }
+        }
+
+        return 0;
+    }
+
+    /** Computes the eigen decomposition of a general matrix in double precision. */
+    static int sgeev(Layout layout, EVDJob jobvl, EVDJob jobvr, int n, float[] A, int ao, int lda, float[] wr, int wro, float[] wi, int wio,
+                     float[] Vl, int vlo, int ldvl, float[] Vr, int vro, int ldvr) {
+        double[] a = toDouble(A);
+        double[] r = toDouble(wr);
+        double[] i = toDouble(wi);
+        double[] vl = toDouble(Vl);
+        double[] vr = toDouble(Vr);
+        int info = dgeev(layout, jobvl, jobvr, n, a, ao, lda, r, wro, i, wio, vl, vlo, ldvl, vr, vro, ldvr);
+        toFloat(a, A);
+        toFloat(r, wr);
+        toFloat(i, wi);
+        toFloat(vl, Vl);
+        toFloat(vr, Vr);
+        return info;
+    }
+
+    /**
+     * Reduction of a general matrix to the upper Hessenberg form by
+     * orthogonal similarity transformations, derived from the Algol
+     * procedures orthes and ortran by Martin and Wilkinson, Handbook
+     * for Auto. Comp., Vol.ii-Linear Algebra, and the corresponding
+     * Fortran subroutines in EISPACK.
+     * @param H on input, the matrix. On output, the Hessenberg form.
+     * @param V on output, the orthogonal transformation.
+     */
+    private static void orthes(int n, double[][] H, double[][] V) {
+        int high = n - 1;
+        double[] ort = new double[n];
+
+        for (int m = 1; m <= high - 1; m++) {
+            // Scale column.
+            double scale = 0.0;
+            for (int i = m; i <= high; i++) {
+                scale += Math.abs(H[i][m - 1]);
+            }
+
+            if (scale != 0.0) {
+                // Compute Householder transformation.
+                double h = 0.0;
+                for (int i = high; i >= m; i--) {
+                    ort[i] = H[i][m - 1] / scale;
+                    h += ort[i] * ort[i];
+                }
+
+                double g = Math.sqrt(h);
+                if (ort[m] > 0) g = -g;
+                h = h - ort[m] * g;
+                ort[m] = ort[m] - g;
+
+                // Apply Householder similarity transformation
+                // H = (I - u * u' / h) * H * (I - u * u') / h)
+                for (int j = m; j < n; j++) {
+                    double f = 0.0;
+                    for (int i = high; i >= m; i--) {
+                        f += ort[i] * H[i][j];
+                    }
+                    f = f / h;
+                    for (int i = m; i <= high; i++) {
+                        H[i][j] -= f * ort[i];
+                    }
+                }
+
+                for (int i = 0; i <= high; i++) {
+                    double[] hi = H[i];
+                    double f = 0.0;
+                    for (int j = high; j >= m; j--) {
+                        f += ort[j] * hi[j];
+                    }
+                    f = f / h;
+                    for (int j = m; j <= high; j++) {
+                        hi[j] -= f * ort[j];
+                    }
+                }
+                ort[m] = scale * ort[m];
+                H[m][m - 1] = scale * g;
+            }
+        }
+
+        // Accumulate transformations.
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(V[i], 0.0);
+            V[i][i] = 1.0;
+        }
+
+        for (int m = high - 1; m >= 1; m--) {
+            if (H[m][m - 1] != 0.0) {
+                for (int i = m + 1; i <= high; i++) {
+                    ort[i] = H[i][m - 1];
+                }
+
+                for (int j = m; j <= high; j++) {
+                    double g = 0.0;
+                    for (int i = m; i <= high; i++) {
+                        g += ort[i] * V[i][j];
+                    }
+                    // Double division avoids possible underflow.
+                    g = (g / ort[m]) / H[m][m - 1];
+                    for (int i = m; i <= high; i++) {
+                        V[i][j] += g * ort[i];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reduction from the Hessenberg form to the real Schur form by the
+     * shifted QR iterations, derived from the Algol procedure hqr2 by
+     * Martin and Wilkinson, Handbook for Auto. Comp., Vol.ii-Linear
+     * Algebra, and the corresponding Fortran subroutine in EISPACK.
+     * @param H on input, the Hessenberg form. It is destroyed on output.
+     * @param V on input, the transformation of orthes. On output, the
+     *          eigenvectors if vectors is true. For the complex conjugate
+     *          pair of eigenvalues d[j] + i * e[j] and d[j] - i * e[j] with
+     *          e[j] &gt; 0, the eigenvectors are V[:, j] + i * V[:, j+1]
+     *          and its conjugate.
+     * @param d on output, the real parts of eigenvalues.
+     * @param e on output, the imaginary parts of eigenvalues.
+     * @param vectors the flag if computing the eigenvectors.
+     * @return 0 on success, or i if the i-th eigenvalue fails to converge.
+     */
+    private static int hqr2(int nn, double[][] H, double[][] V, double[] d, double[] e, boolean vectors) {
+        int n = nn - 1;
+        int low = 0;
+        int high = nn - 1;
+        double exshift = 0.0;
+        double p = 0, q = 0, r = 0, s = 0, z = 0, t, w, x, y;
+
+        // Compute matrix norm.
+        double norm = 0.0;
+        for (int i = 0; i < nn; i++) {
+            for (int j = Math.max(i - 1, 0); j < nn; j++) {
+                norm += Math.abs(H[i][j]);
+            }
+        }
+
+        // Outer loop over eigenvalue index.
+        int iter = 0;
+        while (n >= low) {
+            // Look for single small sub-diagonal element.
+            int l = n;
+            while (l > low) {
+                s = Math.abs(H[l - 1][l - 1]) + Math.abs(H[l][l]);
+                if (s == 0.0) s = norm;
+                if (Math.abs(H[l][l - 1]) < EPSILON * s) break;
+                l--;
+            }
+
+            // Check for convergence.
+            if (l == n) {
+                // One root found.
+                H[n][n] = H[n][n] + exshift;
+                d[n] = H[n][n];
+                e[n] = 0.0;
+                n--;
+                iter = 0;
+            } else if (l == n - 1) {
+                // Two roots found.
+                w = H[n][n - 1] * H[n - 1][n];
+                p = (H[n - 1][n - 1] - H[n][n]) / 2.0;
+                q = p * p + w;
+                z = Math.sqrt(Math.abs(q));
+                H[n][n] = H[n][n] + exshift;
+                H[n - 1][n - 1] = H[n - 1][n - 1] + exshift;
+                x = H[n][n];
+
+                if (q >= 0) {
+                    // Real pair.
+                    z = p >= 0 ? p + z : p - z;
+                    d[n - 1] = x + z;
+                    d[n] = d[n - 1];
+                    if (z != 0.0) d[n] = x - w / z;
+                    e[n - 1] = 0.0;
+                    e[n] = 0.0;
+                    x = H[n][n - 1];
+                    s = Math.abs(x) + Math.abs(z);
+                    p = x / s;
+                    q = z / s;
+                    r = Math.sqrt(p * p + q * q);
+                    p = p / r;
+                    q = q / r;
+
+                    // Row modification.
+                    for (int j = n - 1; j < nn; j++) {
+                        z = H[n - 1][j];
+                        H[n - 1][j] = q * z + p * H[n][j];
+                        H[n][j] = q * H[n][j] - p * z;
+                    }
+
+                    // Column modification.
+                    for (int i = 0; i <= n; i++) {
+                        z = H[i][n - 1];
+                        H[i][n - 1] = q * z + p * H[i][n];
+                        H[i][n] = q * H[i][n] - p * z;
+                    }
+
+                    // Accumulate transformations.
+                    if (vectors) {
+                        for (int i = low; i <= high; i++) {
+                            z = V[i][n - 1];
+                            V[i][n - 1] = q * z + p * V[i][n];
+                            V[i][n] = q * V[i][n] - p * z;
+                        }
+                    }
+                } else {
+                    // Complex pair.
+                    d[n - 1] = x + p;
+                    d[n] = x + p;
+                    e[n - 1] = z;
+                    e[n] = -z;
+                }
+                n = n - 2;
+                iter = 0;
+            } else {
+                // No convergence yet. Form shift.
+                x = H[n][n];
+                y = 0.0;
+                w = 0.0;
+                if (l < n) {
+                    y = H[n - 1][n - 1];
+                    w = H[n][n - 1] * H[n - 1][n];
+                }
+
+                // Wilkinson's original ad hoc shift.
+                if (iter == 10) {
+                    exshift += x;
+                    for (int i = low; i <= n; i++) {
+                        H[i][i] -= x;
+                    }
+                    s = Math.abs(H[n][n - 1]) + Math.abs(H[n - 1][n - 2]);
+                    x = y = 0.75 * s;
+                    w = -0.4375 * s * s;
+                }
+
+                // MATLAB's new ad hoc shift.
+                if (iter == 30) {
+                    s = (y - x) / 2.0;
+                    s = s * s + w;
+                    if (s > 0) {
+                        s = Math.sqrt(s);
+                        if (y < x) s = -s;
+                        s = x - w / ((y - x) / 2.0 + s);
+                        for (int i = low; i <= n; i++) {
+                            H[i][i] -= s;
+                        }
+                        exshift += s;
+                        x = y = w = 0.964;
+                    }
+                }
+
+                if (++iter > 100) {
+                    return n + 1;
+                }
+
+                // Look for two consecutive small sub-diagonal elements.
+                int m = n - 2;
+                while (m >= l) {
+                    z = H[m][m];
+                    r = x - z;
+                    s = y - z;
+                    p = (r * s - w) / H[m + 1][m] + H[m][m + 1];
+                    q = H[m + 1][m + 1] - z - r - s;
+                    r = H[m + 2][m + 1];
+                    s = Math.abs(p) + Math.abs(q) + Math.abs(r);
+                    p = p / s;
+                    q = q / s;
+                    r = r / s;
+                    if (m == l) break;
+                    if (Math.abs(H[m][m - 1]) * (Math.abs(q) + Math.abs(r)) <
+                            EPSILON * (Math.abs(p) * (Math.abs(H[m - 1][m - 1]) + Math.abs(z) + Math.abs(H[m + 1][m + 1])))) {
+                        break;
+                    }
+                    m--;
+                }
+
+                for (int i = m + 2; i <= n; i++) {
+                    H[i][i - 2] = 0.0;
+                    if (i > m + 2) {
+                        H[i][i - 3] = 0.0;
+                    }
+                }
+
+                // Double QR step involving rows l:n and columns m:n.
+                for (int k = m; k <= n - 1; k++) {
+                    boolean notlast = (k != n - 1);
+                    if (k != m) {
+                        p = H[k][k - 1];
+                        q = H[k + 1][k - 1];
+                        r = (notlast ? H[k + 2][k - 1] : 0.0);
+                        x = Math.abs(p) + Math.abs(q) + Math.abs(r);
+                        if (x == 0.0) continue;
+                        p = p / x;
+                        q = q / x;
+                        r = r / x;
+                    }
+
+                    s = Math.sqrt(p * p + q * q + r * r);
+                    if (p < 0) s = -s;
+                    if (s != 0) {
+                        if (k != m) {
+                            H[k][k - 1] = -s * x;
+                        } else if (l != m) {
+                            H[k][k - 1] = -H[k][k - 1];
+                        }
+                        p = p + s;
+                        x = p / s;
+                        y = q / s;
+                        z = r / s;
+                        q = q / p;
+                        r = r / p;
+
+                        // Row modification.
+                        for (int j = k; j < nn; j++) {
+                            p = H[k][j] + q * H[k + 1][j];
+                            if (notlast) {
+                                p = p + r * H[k + 2][j];
+                                H[k + 2][j] = H[k + 2][j] - p * z;
+                            }
+                            H[k][j] = H[k][j] - p * x;
+                            H[k + 1][j] = H[k + 1][j] - p * y;
+                        }
+
+                        // Column modification.
+                        for (int i = 0; i <= Math.min(n, k + 3); i++) {
+                            p = x * H[i][k] + y * H[i][k + 1];
+                            if (notlast) {
+                                p = p + z * H[i][k + 2];
+                                H[i][k + 2] = H[i][k + 2] - p * r;
+                            }
+                            H[i][k] = H[i][k] - p;
+                            H[i][k + 1] = H[i][k + 1] - p * q;
+                        }
+
+                        // Accumulate transformations.
+                        if (vectors) {
+                            for (int i = low; i <= high; i++) {
+                                p = x * V[i][k] + y * V[i][k + 1];
+                                if (notlast) {
+                                    p = p + z * V[i][k + 2];
+                                    V[i][k + 2] = V[i][k + 2] - p * r;
+                                }
+                                V[i][k] = V[i][k] - p;
+                                V[i][k + 1] = V[i][k + 1] - p * q;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // Backsubstitute to find vectors of upper triangular form.
+        if (!vectors || norm == 0.0) return 0;
+
+        double[] c = new double[2];
+        for (n = nn - 1; n >= 0; n--) {
+            p = d[n];
+            q = e[n];
+
+            if (q == 0) {
+                // Real vector.
+                int l = n;
+                H[n][n] = 1.0;
+                for (int i = n - 1; i >= 0; i--) {
+                    w = H[i][i] - p;
+                    r = 0.0;
+                    for (int j = l; j <= n; j++) {
+                        r = r + H[i][j] * H[j][n];
+                    }
+
+                    if (e[i] < 0.0) {
+                        z = w;
+                        s = r;
+                    } else {
+                        l = i;
+                        if (e[i] == 0.0) {
+                            H[i][n] = w != 0.0 ? -r / w : -r / (EPSILON * norm);
+                        } else {
+                            // Solve real equations.
+                            x = H[i][i + 1];
+                            y = H[i + 1][i];
+                            q = (d[i] - p) * (d[i] - p) + e[i] * e[i];
+                            t = (x * s - z * r) / q;
+                            H[i][n] = t;
+                            H[i + 1][n] = Math.abs(x) > Math.abs(z) ? (-r - w * t) / x : (-s - y * t) / z;
+                        }
+
+                        // Overflow control.
+                        t = Math.abs(H[i][n]);
+                        if ((EPSILON * t) * t > 1) {
+                            for (int j = i; j <= n; j++) {
+                                H[j][n] = H[j][n] / t;
+                            }
+                        }
+                    }
+                }
+            } else if (q < 0) {
+                // Complex vector.
+                int l = n - 1;
+
+                // Last vector component imaginary so matrix is triangular.
+                if (Math.abs(H[n][n - 1]) > Math.abs(H[n - 1][n])) {
+                    H[n - 1][n - 1] = q / H[n][n - 1];
+                    H[n - 1][n] = -(H[n][n] - p) / H[n][n - 1];
+                } else {
+                    cdiv(0.0, -H[n - 1][n], H[n - 1][n - 1] - p, q, c);
+                    H[n - 1][n - 1] = c[0];
+                    H[n - 1][n] = c[1];
+                }
+                H[n][n - 1] = 0.0;
+                H[n][n] = 1.0;
+
+                for (int i = n - 2; i >= 0; i--) {
+                    double ra = 0.0;
+                    double sa = 0.0;
+                    for (int j = l; j <= n; j++) {
+                        ra = ra + H[i][j] * H[j][n - 1];
+                        sa = sa + H[i][j] * H[j][n];
+                    }
+                    w = H[i][i] - p;
+
+                    if (e[i] < 0.0) {
+                        z = w;
+                        r = ra;
+                        s = sa;
+                    } else {
+                        l = i;
+                        if (e[i] == 0) {
+                            cdiv(-ra, -sa, w, q, c);
+                            H[i][n - 1] = c[0];
+                            H[i][n] = c[1];
+                        } else {
+                            // Solve complex equations.
+                            x = H[i][i + 1];
+                            y = H[i + 1][i];
+                            double vr = (d[i] - p) * (d[i] - p) + e[i] * e[i] - q * q;
+                            double vi = (d[i] - p) * 2.0 * q;
+                            if (vr == 0.0 && vi == 0.0) {
+                                vr = EPSILON * norm * (Math.abs(w) + Math.abs(q) + Math.abs(x) + Math.abs(y) + Math.abs(z));
+                            }
+                            cdiv(x * r - z * ra + q * sa, x * s - z * sa - q * ra, vr, vi, c);
+                            H[i][n - 1] = c[0];
+                            H[i][n] = c[1];
+                            if (Math.abs(x) > (Math.abs(z) + Math.abs(q))) {
+                                H[i + 1][n - 1] = (-ra - w * H[i][n - 1] + q * H[i][n]) / x;
+                                H[i + 1][n] = (-sa - w * H[i][n] - q * H[i][n - 1]) / x;
+                            } else {
+                                cdiv(-r - y * H[i][n - 1], -s - y * H[i][n], z, q, c);
+                                H[i + 1][n - 1] = c[0];
+                                H[i + 1][n] = c[1];
+                            }
+                        }
+
+                        // Overflow control.
+                        t = Math.max(Math.abs(H[i][n - 1]), Math.abs(H[i][n]));
+                        if ((EPSILON * t) * t > 1) {
+                            for (int j = i; j <= n; j++) {
+                                H[j][n - 1] = H[j][n - 1] / t;
+                                H[j][n] = H[j][n] / t;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // Back transformation to get eigenvectors of original matrix.
+        for (int j = nn - 1; j >= low; j--) {
+            for (int i = low; i <= high; i++) {
+                z = 0.0;
+                for (int k = low; k <= Math.min(j, high); k++) {
+                    z = z + V[i][k] * H[k][j];
+                }
+                V[i][j] = z;
+            }
+        }
+
+        return 0;
+    }
+
+    /** Complex scalar division (xr + i * xi) / (yr + i * yi). */
+    private static void cdiv(double xr, double xi, double yr, double yi, double[] c) {
+        double r, d;
+        if (Math.abs(yr) > Math.abs(yi)) {
+            r = yi / yr;
+            d = yr + r * yi;
+            c[0] = (xr + r * xi) / d;
+            c[1] = (xi - r * xr) / d;
+        } else {
+            r = yr / yi;
+            d = yi + r * yr;
+            c[0] = (r * xr + xi) / d;
+            c[1] = (r * xi - xr) / d;
+        }
+    }
+
+    /**
+     * Normalizes the eigenvectors to have the Euclidean norm 1 and the
+     * largest component real.
+     * @param V the eigenvectors in the real representation of hqr2.
+     * @param e the imaginary parts of eigenvalues.
+     */
+    private static void normalize(int n, double[][] V, double[] e) {
+        for (int j = 0; j < n; j++) {
+            if (e[j] == 0.0) {
+                double norm = 0.0;
+                for (int i = 0; i < n; i++) {
+                    norm += V[i][j] * V[i][j];
+                }
+
+                norm = Math.sqrt(norm);
+                if (norm > 0.0) {
+                    for (int i = 0; i < n; i++) {
+                        V[i][j] /= norm;
+                    }
+                }
+            } else if (e[j] > 0.0) {
+                int k = 0;
+                double max = -1.0;
+                double norm = 0.0;
+                for (int i = 0; i < n; i++) {
+                    double a = V[i][j] * V[i][j] + V[i][j + 1] * V[i][j + 1];
+                    norm += a;
+                    if (a > max) {
+                        max = a;
+                        k = i;
+                    }
+                }
+
+                if (max > 0.0) {
+                    // Multiply by conj(v[k]) / (|v[k]| * |v|).
+                    double cr = V[k][j] / Math.sqrt(max * norm);
+                    double ci = -V[k][j + 1] / Math.sqrt(max * norm);
+                    for (int i = 0; i < n; i++) {
+                        double a = V[i][j];
+                        double b = V[i][j + 1];
+                        V[i][j] = a * cr - b * ci;
+                        V[i][j + 1] = a * ci + b * cr;
+                    }
+                    V[k][j + 1] = 0.0;
+                }
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Returns the left eigenvectors in the real representation, which
+     * are the conjugate transpose of the rows of inverse of the complex
+     * right eigenvectors.
+     * @param V the right eigenvectors in the real representation of hqr2.
+     * @param e the imaginary parts of eigenvalues.
+     * @return the left eigenvectors, or null if the right eigenvectors
+     * are singular.
+     */
+    private static double[][] leftEigenvectors(int n, double[][] V, double[] e) {
+        // Gauss-Jordan elimination on [V | I] in complex arithmetic.
+        double[][] re = new double[n][2 * n];
+        double[][] im = new double[n][2 * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (e[j] == 0.0) {
+                    re[i][j] = V[i][j];
+                } else if (e[j] > 0.0) {
+                    re[i][j] = V[i][j];
+                    im[i][j] = V[i][j + 1];
+                    re[i][j + 1] = V[i][j];
+                    im[i][j + 1] = -V[i][j + 1];
+                }
+            }
+            re[i][n + i] = 1.0;
+        }
+
+        for (int c = 0; c < n; c++) {
+            int p = c;
+            double max = 0.0;
+            for (int r = c; r < n; r++) {
+                double a = re[r][c] * re[r][c] + im[r][c] * im[r][c];
+                if (a > max) {
+                    max = a;
+                    p = r;
+                }
+            }
+
+            if (max == 0.0) return null;
+
+            double[] t = re[p]; re[p] = re[c]; re[c] = t;
+            t = im[p]; im[p] = im[c]; im[c] = t;
+
+            // Scale the pivot row by 1 / pivot.
+            double pr = re[c][c] / max;
+            double pi = -im[c][c] / max;
+            for (int j = c; j < 2 * n; j++) {
+                double a = re[c][j];
+                double b = im[c][j];
+                re[c][j] = a * pr - b * pi;
+                im[c][j] = a * pi + b * pr;
+            }
+
+            for (int r = 0; r < n; r++) {
+                double fr = re[r][c];
+                double fi = im[r][c];
+                if (r == c || (fr == 0.0 && fi == 0.0)) continue;
+                for (int j = c; j < 2 * n; j++) {
+                    double a = re[c][j];
+                    double b = im[c][j];
+                    re[r][j] -= fr * a - fi * b;
+                    im[r][j] -= fr * b + fi * a;
+                }
+            }
+        }
+
+        // u_j = conj(W[j, :])' where W is the inverse.
+        double[][] U = new double[n][n];
+        for (int j = 0; j < n; j++) {
+            if (e[j] == 0.0) {
+                for (int i = 0; i < n; i++) {
+                    U[i][j] = re[j][n + i];
+                }
+            } else if (e[j] > 0.0) {
+                for (int i = 0; i < n; i++) {
+                    U[i][j] = re[j][n + i];
+                    U[i][j + 1] = -im[j][n + i];
+                }
+                j++;
+            }
+        }
+        return U;
+    }
+
+    /**
+     * Computes the singular value decomposition of a general matrix
+     * by the one-sided Jacobi method, which is preceded by the QR
+     * decomposition if the matrix has more rows than columns. The
+     * singular values are in descending order. The job of U and VT
+     * is one of ALL, COMPACT, OVERWRITE and NO_VECTORS as LAPACK
+     * <code>gesvd</code>.
+     */
+    static int dgesvd(Layout layout, SVDJob jobu, SVDJob jobvt, int m, int n, double[] A, int ao, int lda, double[] s, int so,
+                      double[] U, int uo, int ldu, double[] VT, int vo, int ldvt) {
+        if (jobu == SVDJob.OVERWRITE && jobvt == SVDJob.OVERWRITE) {
+            return -3;
+        }
+
+        int k = Math.min(m, n);
+        if (k == 0) return 0;
+
+        double[] a = new double[m * n];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                a[i + j * m] = get(layout, A, ao, lda, i, j);
+            }
+        }
+
+        boolean wantu = jobu != SVDJob.NO_VECTORS;
+        boolean wantv = jobvt != SVDJob.NO_VECTORS;
+        double[] u = wantu ? new double[m * k] : null;
+        double[] v = wantv ? new double[n * k] : null;
+        double[] sv = new double[k];
+        int info = dsvd(m, n, a, sv, u, v);
+
+        System.arraycopy(sv, 0, s, so, k);
+        if (wantu) {
+            int cols = jobu == SVDJob.ALL ? m : k;
+            double[] uc = cols > k ? dcomplete(m, k, cols, u) : u;
+            if (jobu == SVDJob.OVERWRITE) {
+                dput(layout, m, k, uc, false, A, ao, lda);
+            } else {
+                dput(layout, m, cols, uc, false, U, uo, ldu);
+            }
+        }
+
+        if (wantv) {
+            int rows = jobvt == SVDJob.ALL ? n : k;
+            double[] vc = rows > k ? dcomplete(n, k, rows, v) : v;
+            if (jobvt == SVDJob.OVERWRITE) {
+                dput(layout, k, n, vc, true, A, ao, lda);
+            } else {
+                dput(layout, rows, n, vc, true, VT, vo, ldvt);
+            }
+        }
+
+        return info;
+    }
+
+    /**
+     * Computes the singular value decomposition as LAPACK <code>gesdd</code>.
+     * With OVERWRITE, U is written to A if m &ge; n, otherwise VT is.
+     */
+    static int dgesdd(Layout layout, SVDJob jobz, int m, int n, double[] A, int ao, int lda, double[] s, int so,
+                      double[] U, int uo, int ldu, double[] VT, int vo, int ldvt) {
+        SVDJob jobu = jobz;
+        SVDJob jobvt = jobz;
+        if (jobz == SVDJob.OVERWRITE) {
+            if (m >= n) {
+                jobvt = SVDJob.ALL;
+            } else {
+                jobu = SVDJob.ALL;
+            }
+        }
+        return dgesvd(layout, jobu, jobvt, m, n, A, ao, lda, s, so, U, uo, ldu, VT, vo, ldvt);
+    }
+
+    /** Computes the singular value decomposition in double precision. */
+    static int sgesvd(Layout layout, SVDJob jobu, SVDJob jobvt, int m, int n, float[] A, int ao, int lda, float[] s, int so,
+                      float[] U, int uo, int ldu, float[] VT, int vo, int ldvt) {
+        double[] a = toDouble(A);
+        double[] sv = toDouble(s);
+        double[] u = toDouble(U);
+        double[] vt = toDouble(VT);
+        int info = dgesvd(layout, jobu, jobvt, m, n, a, ao, lda, sv, so, u, uo, ldu, vt, vo, ldvt);
+        toFloat(a, A);
+        toFloat(sv, s);
+        toFloat(u, U);
+        toFloat(vt, VT);
+        return info;
+    }
+
+    /** Computes the singular value decomposition in double precision. */
+    static int sgesdd(Layout layout, SVDJob jobz, int m, int n, float[] A, int ao, int lda, float[] s, int so,
+                      float[] U, int uo, int ldu, float[] VT, int vo, int ldvt) {
+        double[] a = toDouble(A);
+        double[] sv = toDouble(s);
+        double[] u = toDouble(U);
+        double[] vt = toDouble(VT);
+        int info = dgesdd(layout, jobz, m, n, a, ao, lda, sv, so, u, uo, ldu, vt, vo, ldvt);
+        toFloat(a, A);
+        toFloat(sv, s);
+        toFloat(u, U);
+        toFloat(vt, VT);
+        return info;
+    }
+
+    /**
+     * Computes the compact singular value decomposition A = U * S * V'.
+     * @param a the column major m x n matrix with the leading dimension m,
+     *          which is destroyed on output.
+     * @param s on output, the singular values in descending order.
+     * @param U on output, the column major m x k left singular vectors.
+     *          May be null.
+     * @param V on output, the column major n x k right singular vectors.
+     *          May be null.
+     * @return 0 on success, or a positive value if the Jacobi sweeps
+     * fail to converge.
+     */
+    private static int dsvd(int m, int n, double[] a, double[] s, double[] U, double[] V) {
+        if (m < n) {
+            // A' = V * S * U'
+            double[] t = new double[n * m];
+            dtranspose(m, n, a, 0, m, t, 0, n);
+            return dsvd(n, m, t, s, V, U);
+        }
+
+        // R = A if m == n. Otherwise, A = Q * R.
+        double[] R = a;
+        double[] tau = null;
+        if (m > n) {
+            tau = new double[n];
+            dgeqrf(Layout.COL_MAJOR, m, n, a, 0, m, tau, 0);
+            R = new double[n * n];
+            for (int j = 0; j < n; j++) {
+                System.arraycopy(a, j * m, R, j * n, j + 1);
+            }
+        }
+
+        double[] W = null;
+        if (V != null) {
+            W = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                W[i + i * n] = 1.0;
+            }
+        }
+
+        int info = djacobi(n, n, R, W);
+
+        // The singular values are the norms of rotated columns.
+        double[] norm = new double[n];
+        Integer[] index = new Integer[n];
+        for (int j = 0; j < n; j++) {
+            norm[j] = dnrm2(n, R, j * n);
+            index[j] = j;
+        }
+        Arrays.sort(index, (i, j) -> Double.compare(norm[j], norm[i]));
+        for (int j = 0; j < n; j++) {
+            s[j] = norm[index[j]];
+        }
+
+        if (V != null) {
+            for (int j = 0; j < n; j++) {
+                System.arraycopy(W, index[j] * n, V, j * n, n);
+            }
+        }
+
+        if (U != null) {
+            double[] ur = m == n ? U : new double[n * n];
+            double tol = s[0] * Math.sqrt(EPSILON);
+            for (int j = 0; j < n; j++) {
+                int uj = j * n;
+                if (s[j] > 0.0) {
+                    System.arraycopy(R, index[j] * n, ur, uj, n);
+                    JavaBLAS.dscal(n, 1.0 / s[j], ur, uj);
+                }
+
+                // The directions of tiny singular values are not accurate
+                // enough to be orthogonal to the others.
+                if (s[j] <= tol && dorthogonalize(n, j, ur, uj) < 0.5) {
+                    dcomplete(n, j, ur);
+                }
+            }
+
+            if (m > n) {
+                // U = Q * [Ur; 0]
+                for (int j = 0; j < n; j++) {
+                    System.arraycopy(ur, j * n, U, j * m, n);
+                }
+                dormqr(Layout.COL_MAJOR, Side.LEFT, Transpose.NO_TRANSPOSE, m, n, n, a, 0, m, tau, 0, U, 0, m);
+            }
+        }
+
+        return info;
+    }
+
+    /**
+     * One-sided Jacobi rotations of the columns of m x n matrix G until
+     * they are mutually orthogonal. The pairs of columns are visited in
+     * the round-robin order so that the disjoint pairs of each step are
+     * rotated in parallel.
+     * @param G the column major matrix with the leading dimension m.
+     * @param V the column major n x n matrix to accumulate rotations.
+     *          May be null.
+     * @return 0 on success, or n if not converged.
+     */
+    private static int djacobi(int m, int n, double[] G, double[] V) {
+        double tol = Math.sqrt(m) * EPSILON;
+        double[] norm = new double[n];
+        int players = n + (n & 1);
+        int pairs = players / 2;
+        boolean[] rotated = new boolean[pairs];
+
+        for (int sweep = 0; sweep < 60; sweep++) {
+            double frobenius = 0.0;
+            for (int j = 0; j < n; j++) {
+                norm[j] = JavaBLAS.ddot(m, G, j * m, G, j * m);
+                frobenius += norm[j];
+            }
+
+            // The columns of which the norm is at the level of round-off
+            // are numerically zero, which would never be orthogonal to
+            // the others relative to their own norm.
+            double small = EPSILON * EPSILON * frobenius;
+            boolean converged = true;
+            for (int round = 0; round < players - 1; round++) {
+                int r = round;
+                JavaBLAS.range(0, pairs, 6L * m * pairs).forEach(k -> {
+                    rotated[k] = false;
+                    int p = k == 0 ? 0 : 1 + (k - 1 + r) % (players - 1);
+                    int q = 1 + (players - 2 - k + r) % (players - 1);
+                    if (p >= n || q >= n) return;
+
+                    double alpha = norm[p];
+                    double beta = norm[q];
+                    if (alpha <= small || beta <= small) return;
+
+                    double gamma = JavaBLAS.ddot(m, G, p * m, G, q * m);
+                    if (Math.abs(gamma) <= tol * Math.sqrt(alpha * beta)) return;
+
+                    double zeta = (beta - alpha) / (2.0 * gamma);
+                    double t = Math.copySign(1.0, zeta) / (Math.abs(zeta) + Math.sqrt(1.0 + zeta * zeta));
+                    double c = 1.0 / Math.sqrt(1.0 + t * t);
+                    double s = c * t;
+                    drot(m, G, p * m, q * m, c, s);
+                    if (V != null) {
+                        drot(n, V, p * n, q * n, c, s);
+                    }
+                    norm[p] = alpha - t * gamma;
+                    norm[q] = beta + t * gamma;
+                    rotated[k] = true;
+                });
+
+                for (boolean b : rotated) {
+                    if (b) converged = false;
+                }
+            }
+
+            if (converged) return 0;
+        }
+
+        return n;
+    }
+
+    /** Applies the plane rotation to the columns x and y of length n. */
+    private static void drot(int n, double[] A, int x, int y, double c, double s) {
+        for (int i = 0; i < n; i++) {
+            double a = A[x + i];
+            double b = A[y + i];
+            A[x + i] = c * a - s * b;
+            A[y + i] = s * a + c * b;
+        }
+    }
+
+    /**
+     * Orthogonalizes the column of length m against the previous j columns
+     * of orthonormal matrix by the modified Gram-Schmidt process twice and
+     * normalizes it.
+     * @return the norm of column before normalization.
+     */
+    private static double dorthogonalize(int m, int j, double[] U, int uj) {
+        for (int pass = 0; pass < 2; pass++) {
+            for (int l = 0; l < j; l++) {
+                double r = JavaBLAS.ddot(m, U, l * m, U, uj);
+                JavaBLAS.daxpy(m, -r, U, l * m, U, uj);
+            }
+        }
+
+        double norm = dnrm2(m, U, uj);
+        if (norm > 0.0) {
+            JavaBLAS.dscal(m, 1.0 / norm, U, uj);
+        }
+        return norm;
+    }
+
+    /**
+     * Sets the j-th column of m x m matrix to a unit vector orthogonal
+     * to the previous orthonormal columns. The unit vector of the row
+     * with the least norm in the previous columns is orthogonalized,
+     * whose residual has the norm at least sqrt(1 - j/m).
+     */
+    private static void dcomplete(int m, int j, double[] U) {
+        int row = 0;
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < m; i++) {
+            double norm = 0.0;
+            for (int l = 0; l < j; l++) {
+                norm += U[i + l * m] * U[i + l * m];
+            }
+
+            if (norm < min) {
+                min = norm;
+                row = i;
+            }
+        }
+
+        int uj = j * m;
+        Arrays.fill(U, uj, uj + m, 0.0);
+        U[uj + row] = 1.0;
+        dorthogonalize(m, j, U, uj);
+    }
+
+    /**
+     * Returns the m x n matrix of which the first k orthonormal columns
+     * are copied from U and the rest complete the orthonormal basis.
+     */
+    private static double[] dcomplete(int m, int k, int n, double[] U) {
+        double[] B = Arrays.copyOf(U, m * n);
+        for (int j = k; j < n; j++) {
+            dcomplete(m, j, B);
+        }
+        return B;
+    }
+
+    /**
+     * LU decomposition of a general band matrix with partial pivoting,
+     * a port of LAPACK <code>gbtf2</code>. A[i, j] is stored in
+     * AB[kl+ku+i-j, j] of the column major AB with 2*kl+ku+1 rows,
+     * of which the first kl rows are the workspace of fill-ins. On output,
+     * U is stored in the first kl+ku+1 rows and the multipliers of L in
+     * the rest.
+     */
+    static int dgbtrf(Layout layout, int m, int n, int kl, int ku, double[] AB, int ao, int ldab, int[] ipiv, int po) {
+        if (layout == Layout.ROW_MAJOR) {
+            int rows = 2 * kl + ku + 1;
+            double[] ab = dcolMajor(rows, n, AB, ao, ldab);
+            int info = dgbtrf(Layout.COL_MAJOR, m, n, kl, ku, ab, 0, rows, ipiv, po);
+            drowMajor(rows, n, ab, AB, ao, ldab);
+            return info;
+        }
+
+        int kv = kl + ku;
+        // Zeros the fill-ins of the first kv columns.
+        for (int j = ku + 1; j < Math.min(kv, n); j++) {
+            for (int i = kv - j; i < kl; i++) {
+                AB[ao + i + j * ldab] = 0.0;
+            }
+        }
+
+        int info = 0;
+        // The last column of U touched by the row interchanges so far.
+        int ju = 0;
+        int mn = Math.min(m, n);
+        for (int j = 0; j < mn; j++) {
+            if (j + kv < n) {
+                int fill = ao + (j + kv) * ldab;
+                Arrays.fill(AB, fill, fill + kl, 0.0);
+            }
+
+            // A[j, j] is AB[aj] and A[i, c] is AB[ao + kv + i + c * (ldab-1)].
+            int aj = ao + kv + j * ldab;
+            int km = Math.min(kl, m - j - 1);
+            int p = 0;
+            double max = Math.abs(AB[aj]);
+            for (int i = 1; i <= km; i++) {
+                double a = Math.abs(AB[aj + i]);
+                if (a > max) {
+                    max = a;
+                    p = i;
+                }
+            }
+
+            ipiv[po + j] = j + p + 1;
+            if (AB[aj + p] != 0.0) {
+                ju = Math.max(ju, Math.min(j + ku + p, n - 1));
+                if (p != 0) {
+                    for (int c = j; c <= ju; c++) {
+                        int x = ao + kv + j + c * (ldab - 1);
+                        double t = AB[x];
+                        AB[x] = AB[x + p];
+                        AB[x + p] = t;
+                    }
+                }
+
+                if (km > 0) {
+                    JavaBLAS.dscal(km, 1.0 / AB[aj], AB, aj + 1);
+                    for (int c = j + 1; c <= ju; c++) {
+                        int x = ao + kv + j + c * (ldab - 1);
+                        JavaBLAS.daxpy(km, -AB[x], AB, aj + 1, AB, x + 1);
+                    }
+                }
+            } else if (info == 0) {
+                info = j + 1;
+            }
+        }
+
+        return info;
+    }
+
+    /** Solves a general band linear system with the LU decomposition of {@link #dgbtrf}. */
+    static int dgbtrs(Layout layout, Transpose trans, int n, int kl, int ku, int nrhs, double[] AB, int ao, int ldab, int[] ipiv, int po, double[] B, int bo, int ldb) {
+        if (layout == Layout.ROW_MAJOR) {
+            int rows = 2 * kl + ku + 1;
+            double[] ab = dcolMajor(rows, n, AB, ao, ldab);
+            double[] b = dcolMajor(n, nrhs, B, bo, ldb);
+            int info = dgbtrs(Layout.COL_MAJOR, trans, n, kl, ku, nrhs, ab, 0, rows, ipiv, po, b, 0, Math.max(1, n));
+            drowMajor(n, nrhs, b, B, bo, ldb);
+            return info;
+        }
+
+        int kv = kl + ku;
+        boolean transposed = trans != Transpose.NO_TRANSPOSE;
+        JavaBLAS.range(0, nrhs, (long) n * (kv + kl + 1) * nrhs).forEach(c -> {
+            int b = bo + c * ldb;
+            if (!transposed) {
+                // L * Y = P * B
+                for (int j = 0; j < n - 1; j++) {
+                    int p = ipiv[po + j] - 1;
+                    if (p != j) {
+                        double t = B[b + p];
+                        B[b + p] = B[b + j];
+                        B[b + j] = t;
+                    }
+                    JavaBLAS.daxpy(Math.min(kl, n - j - 1), -B[b + j], AB, ao + kv + 1 + j * ldab, B, b + j + 1);
+                }
+
+                // U * X = Y, where U has kv superdiagonals.
+                for (int j = n - 1; j >= 0; j--) {
+                    int aj = ao + kv + j * ldab;
+                    int len = Math.min(kv, j);
+                    B[b + j] /= AB[aj];
+                    JavaBLAS.daxpy(len, -B[b + j], AB, aj - len, B, b + j - len);
+                }
+            } else {
+                // U' * Y = B
+                for (int j = 0; j < n; j++) {
+                    int aj = ao + kv + j * ldab;
+                    int len = Math.min(kv, j);
+                    B[b + j] = (B[b + j] - JavaBLAS.ddot(len, AB, aj - len, B, b + j - len)) / AB[aj];
+                }
+
+                // L' * P * X = Y
+                for (int j = n - 2; j >= 0; j--) {
+                    B[b + j] -= JavaBLAS.ddot(Math.min(kl, n - j - 1), AB, ao + kv + 1 + j * ldab, B, b + j + 1);
+                    int p = ipiv[po + j] - 1;
+                    if (p != j) {
+                        double t = B[b + p];
+                        B[b + p] = B[b + j];
+                        B[b + j] = t;
+                    }
+                }
+            }
+        });
+
+        return 0;
+    }
+
+    /** Solves a general band linear system with LU decomposition. */
+    static int dgbsv(Layout layout, int n, int kl, int ku, int nrhs, double[] AB, int ao, int ldab, int[] ipiv, int po, double[] B, int bo, int ldb) {
+        int info = dgbtrf(layout, n, n, kl, ku, AB, ao, ldab, ipiv, po);
+        if (info == 0) {
+            info = dgbtrs(layout, Transpose.NO_TRANSPOSE, n, kl, ku, nrhs, AB, ao, ldab, ipiv, po, B, bo, ldb);
+        }
+        return info;
+    }
+
+    /**
+     * Cholesky decomposition of a symmetric positive definite band matrix,
+     * a port of LAPACK <code>pbtf2</code>. If uplo is LOWER, A[i, j] is
+     * stored in AB[i-j, j] of the column major AB for j &le; i &le; j+kd.
+     * Otherwise, A[i, j] is stored in AB[kd+i-j, j] for j-kd &le; i &le; j.
+     */
+    static int dpbtrf(Layout layout, UPLO uplo, int n, int kd, double[] AB, int ao, int ldab) {
+        if (layout == Layout.ROW_MAJOR) {
+            double[] ab = dcolMajor(kd + 1, n, AB, ao, ldab);
+            int info = dpbtrf(Layout.COL_MAJOR, uplo, n, kd, ab, 0, kd + 1);
+            drowMajor(kd + 1, n, ab, AB, ao, ldab);
+            return info;
+        }
+
+        boolean lower = uplo == UPLO.LOWER;
+        // L[j+i, j] or U[j, j+i] is AB[aj + i * inc].
+        int inc = lower ? 1 : ldab - 1;
+        for (int j = 0; j < n; j++) {
+            int aj = ao + (lower ? 0 : kd) + j * ldab;
+            double d = AB[aj];
+            if (!(d > 0.0)) {
+                return j + 1;
+            }
+
+            d = Math.sqrt(d);
+            AB[aj] = d;
+            int kn = Math.min(kd, n - j - 1);
+            for (int i = 1; i <= kn; i++) {
+                AB[aj + i * inc] /= d;
+            }
+
+            // The rank-1 update of the trailing kn x kn triangle.
+            for (int c = 1; c <= kn; c++) {
+                double t = AB[aj + c * inc];
+                if (lower) {
+                    JavaBLAS.daxpy(kn - c + 1, -t, AB, aj + c, AB, ao + (j + c) * ldab);
+                } else {
+                    for (int r = 1; r <= c; r++) {
+                        AB[ao + kd + r - c + (j + c) * ldab] -= t * AB[aj + r * inc];
+                    }
+                }
+            }
+        }
+
+        return 0;
+    }
+
+    /** Solves a symmetric positive definite band linear system with the Cholesky decomposition. */
+    static int dpbtrs(Layout layout, UPLO uplo, int n, int kd, int nrhs, double[] AB, int ao, int ldab, double[] B, int bo, int ldb) {
+        if (layout == Layout.ROW_MAJOR) {
+            double[] ab = dcolMajor(kd + 1, n, AB, ao, ldab);
+            double[] b = dcolMajor(n, nrhs, B, bo, ldb);
+            int info = dpbtrs(Layout.COL_MAJOR, uplo, n, kd, nrhs, ab, 0, kd + 1, b, 0, Math.max(1, n));
+            drowMajor(n, nrhs, b, B, bo, ldb);
+            return info;
+        }
+
+        boolean lower = uplo == UPLO.LOWER;
+        JavaBLAS.range(0, nrhs, 4L * n * (kd + 1) * nrhs).forEach(c -> {
+            int b = bo + c * ldb;
+            if (lower) {
+                // L * Y = B
+                for (int j = 0; j < n; j++) {
+                    int aj = ao + j * ldab;
+                    B[b + j] /= AB[aj];
+                    JavaBLAS.daxpy(Math.min(kd, n - j - 1), -B[b + j], AB, aj + 1, B, b + j + 1);
+                }
+
+                // L' * X = Y
+                for (int j = n - 1; j >= 0; j--) {
+                    int aj = ao + j * ldab;
+                    B[b + j] = (B[b + j] - JavaBLAS.ddot(Math.min(kd, n - j - 1), AB, aj + 1, B, b + j + 1)) / AB[aj];
+                }
+            } else {
+                // U' * Y = B
+                for (int j = 0; j < n; j++) {
+                    int aj = ao + kd + j * ldab;
+                    int len = Math.min(kd, j);
+                    B[b + j] = (B[b + j] - JavaBLAS.ddot(len, AB, aj - len, B, b + j - len)) / AB[aj];
+                }
+
+                // U * X = Y
+                for (int j = n - 1; j >= 0; j--) {
+                    int aj = ao + kd + j * ldab;
+                    int len = Math.min(kd, j);
+                    B[b + j] /= AB[aj];
+                    JavaBLAS.daxpy(len, -B[b + j], AB, aj - len, B, b + j - len);
+                }
+            }
+        });
+
+        return 0;
+    }
+
+    /** Solves a symmetric positive definite band linear system with Cholesky decomposition. */
+    static int dpbsv(Layout layout, UPLO uplo, int n, int kd, int nrhs, double[] AB, int ao, int ldab, double[] B, int bo, int ldb) {
+        int info = dpbtrf(layout, uplo, n, kd, AB, ao, ldab);
+        if (info == 0) {
+            info = dpbtrs(layout, uplo, n, kd, nrhs, AB, ao, ldab, B, bo, ldb);
+        }
+        return info;
+    }
+
+    /**
+     * Returns the column major n x n matrix of the packed triangle,
+     * of which the other triangle is zero.
+     */
+    private static double[] dunpack(UPLO uplo, int n, double[] AP, int ao) {
+        double[] A = new double[n * n];
+        for (int j = 0; j < n; j++) {
+            int aj = ao + JavaBLAS.packed(uplo, n, j);
+            if (uplo == UPLO.UPPER) {
+                System.arraycopy(AP, aj, A, j * n, j + 1);
+            } else {
+                System.arraycopy(AP, aj, A, j * n + j, n - j);
+            }
+        }
+        return A;
+    }
+
+    /** Copies the triangle of column major n x n matrix to the packed storage. */
+    private static void dpack(UPLO uplo, int n, double[] A, double[] AP, int ao) {
+        for (int j = 0; j < n; j++) {
+            int aj = ao + JavaBLAS.packed(uplo, n, j);
+            if (uplo == UPLO.UPPER) {
+                System.arraycopy(A, j * n, AP, aj, j + 1);
+            } else {
+                System.arraycopy(A, j * n + j, AP, aj, n - j);
+            }
+        }
+    }
+
+    /**
+     * Cholesky decomposition of a symmetric positive definite packed matrix.
+     * The packed triangle is unpacked to the dense storage for {@link #dpotrf}.
+     */
+    static int dpptrf(Layout layout, UPLO uplo, int n, double[] AP, int ao) {
+        // The row major packed triangle is the other triangle of column major one.
+        UPLO triangle = layout == Layout.ROW_MAJOR ? JavaBLAS.flip(uplo) : uplo;
+        double[] A = dunpack(triangle, n, AP, ao);
+        int info = dpotrf(Layout.COL_MAJOR, triangle, n, A, 0, Math.max(1, n));
+        dpack(triangle, n, A, AP, ao);
+        return info;
+    }
+
+    /** Solves a symmetric positive definite packed linear system with the Cholesky decomposition. */
+    static int dpptrs(Layout layout, UPLO uplo, int n, int nrhs, double[] AP, int ao, double[] B, int bo, int ldb) {
+        if (layout == Layout.ROW_MAJOR) {
+            double[] b = dcolMajor(n, nrhs, B, bo, ldb);
+            int info = dpptrs(Layout.COL_MAJOR, JavaBLAS.flip(uplo), n, nrhs, AP, ao, b, 0, Math.max(1, n));
+            drowMajor(n, nrhs, b, B, bo, ldb);
+            return info;
+        }
+
+        double[] A = dunpack(uplo, n, AP, ao);
+        return dpotrs(Layout.COL_MAJOR, uplo, n, nrhs, A, 0, Math.max(1, n), B, bo, ldb);
+    }
+
+    /** Solves a symmetric positive definite packed linear system with Cholesky decomposition. */
+    static int dppsv(Layout layout, UPLO uplo, int n, int nrhs, double[] AP, int ao, double[] B, int bo, int ldb) {
+        int info = dpptrf(layout, uplo, n, AP, ao);
+        if (info == 0) {
+            info = dpptrs(layout, uplo, n, nrhs, AP, ao, B, bo, ldb);
+        }
+        return info;
+    }
+
+    /**
+     * Bunch-Kaufman decomposition of a symmetric indefinite packed matrix.
+     * The packed triangle is unpacked to the dense storage for {@link #dsytf2}.
+     */
+    static int dsptrf(Layout layout, UPLO uplo, int n, double[] AP, int ao, int[] ipiv, int po) {
+        UPLO triangle = layout == Layout.ROW_MAJOR ? JavaBLAS.flip(uplo) : uplo;
+        double[] A = dunpack(triangle, n, AP, ao);
+        int info = dsytf2(triangle, n, A, ipiv, po);
+        dpack(triangle, n, A, AP, ao);
+        return info;
+    }
+
+    /** Solves a symmetric indefinite packed linear system with the Bunch-Kaufman decomposition. */
+    static int dsptrs(Layout layout, UPLO uplo, int n, int nrhs, double[] AP, int ao, int[] ipiv, int po, double[] B, int bo, int ldb) {
+        if (layout == Layout.ROW_MAJOR) {
+            double[] b = dcolMajor(n, nrhs, B, bo, ldb);
+            int info = dsptrs(Layout.COL_MAJOR, JavaBLAS.flip(uplo), n, nrhs, AP, ao, ipiv, po, b, 0, Math.max(1, n));
+            drowMajor(n, nrhs, b, B, bo, ldb);
+            return info;
+        }
+
+        double[] A = dunpack(uplo, n, AP, ao);
+        JavaBLAS.range(0, nrhs, 2L * n * n * nrhs).forEach(c -> dsytrs(uplo, n, A, ipiv, po, B, bo + c * ldb));
+        return 0;
+    }
+
+    /** Solves a symmetric indefinite packed linear system with Bunch-Kaufman decomposition. */
+    static int dspsv(Layout layout, UPLO uplo, int n, int nrhs, double[] AP, int ao, int[] ipiv, int po, double[] B, int bo, int ldb) {
+        int info = dsptrf(layout, uplo, n, AP, ao, ipiv, po);
+        if (info == 0) {
+            info = dsptrs(layout, uplo, n, nrhs, AP, ao, ipiv, po, B, bo, ldb);
+        }
+        return info;
+    }
+
+    /** Returns the index of the first element of the largest absolute value. */
+    private static int idamax(int n, double[] x, int xo) {
+        int k = 0;
+        double max = Math.abs(x[xo]);
+        for (int i = 1; i < n; i++) {
+            double a = Math.abs(x[xo + i]);
+            if (a > max) {
+                max = a;
+                k = i;
+            }
+        }
+        return k;
+    }
+
+    /** Swaps two elements of array. */
+    private static void dswap(double[] x, int i, int j) {
+        double t = x[i];
+        x[i] = x[j];
+        x[j] = t;
+    }
+
+    /**
+     * Bunch-Kaufman decomposition A = U * D * U' or A = L * D * L' with the
+     * diagonal pivoting, a port of LAPACK <code>sytf2</code>. D is block
+     * diagonal with 1 x 1 and 2 x 2 blocks. If ipiv[k] &gt; 0, D[k, k] is
+     * a 1 x 1 block and the rows and columns k and ipiv[k]-1 were interchanged.
+     * If ipiv[k] = ipiv[k-1] &lt; 0 (UPPER) or ipiv[k] = ipiv[k+1] &lt; 0 (LOWER),
+     * D has a 2 x 2 block and the rows and columns k-1 (UPPER) or k+1 (LOWER)
+     * and -ipiv[k]-1 were interchanged.
+     * @param A the column major n x n matrix with the leading dimension n,
+     *          of which only the given triangle is referenced.
+     */
+    private static int dsytf2(UPLO uplo, int n, double[] A, int[] ipiv, int po) {
+        final double alpha = (1.0 + Math.sqrt(17.0)) / 8.0;
+        int info = 0;
+        if (uplo == UPLO.UPPER) {
+            int k = n - 1;
+            while (k >= 0) {
+                int kstep = 1;
+                int kp = k;
+                int kn = k * n;
+                double absakk = Math.abs(A[kn + k]);
+                int imax = k > 0 ? idamax(k, A, kn) : 0;
+                double colmax = k > 0 ? Math.abs(A[kn + imax]) : 0.0;
+
+                if (Math.max(absakk, colmax) == 0.0 || Double.isNaN(absakk)) {
+                    if (info == 0) info = k + 1;
+                } else {
+                    if (absakk < alpha * colmax) {
+                        // The largest off-diagonal element in row/column imax.
+                        double rowmax = 0.0;
+                        for (int j = imax + 1; j <= k; j++) {
+                            rowmax = Math.max(rowmax, Math.abs(A[imax + j * n]));
+                        }
+                        for (int i = 0; i < imax; i++) {
+                            rowmax = Math.max(rowmax, Math.abs(A[i + imax * n]));
+                        }
+
+                        if (absakk >= alpha * colmax * (colmax / rowmax)) {
+                            kp = k;
+                        } else if (Math.abs(A[imax + imax * n]) >= alpha * rowmax) {
+                            kp = imax;
+                        } else {
+                            kp = imax;
+                            kstep = 2;
+                        }
+                    }
+
+                    int kk = k - kstep + 1;
+                    if (kp != kk) {
+                        // Interchanges the rows and columns kk and kp of A[0:k, 0:k].
+                        for (int i = 0; i < kp; i++) {
+                            dswap(A, i + kk * n, i + kp * n);
+                        }
+                        for (int j = kp + 1; j < kk; j++) {
+                            dswap(A, j + kk * n, kp + j * n);
+                        }
+                        dswap(A, kk + kk * n, kp + kp * n);
+                        if (kstep == 2) {
+                            dswap(A, k - 1 + kn, kp + kn);
+                        }
+                    }
+
+                    if (kstep == 1) {
+                        // A[0:k, 0:k] -= U[:, k] * D[k, k] * U[:, k]'
+                        double r = 1.0 / A[kn + k];
+                        for (int j = 0; j < k; j++) {
+                            JavaBLAS.daxpy(j + 1, -r * A[kn + j], A, kn, A, j * n);
+                        }
+                        JavaBLAS.dscal(k, r, A, kn);
+                    } else if (k > 1) {
+                        // A[0:k-1, 0:k-1] -= U[:, k-1:k] * D[k-1:k, k-1:k] * U[:, k-1:k]'
+                        int km1 = kn - n;
+                        double d12 = A[kn + k - 1];
+                        double d22 = A[km1 + k - 1] / d12;
+                        double d11 = A[kn + k] / d12;
+                        d12 = 1.0 / (d11 * d22 - 1.0) / d12;
+                        for (int j = k - 2; j >= 0; j--) {
+                            double wkm1 = d12 * (d11 * A[km1 + j] - A[kn + j]);
+                            double wk = d12 * (d22 * A[kn + j] - A[km1 + j]);
+                            for (int i = j; i >= 0; i--) {
+                                A[i + j * n] -= A[kn + i] * wk + A[km1 + i] * wkm1;
+                            }
+                            A[kn + j] = wk;
+                            A[km1 + j] = wkm1;
+                        }
+                    }
+                }
+
+                if (kstep == 1) {
+                    ipiv[po + k] = kp + 1;
+                } else {
+                    ipiv[po + k] = -(kp + 1);
+                    ipiv[po + k - 1] = -(kp + 1);
+                }
+                k -= kstep;
+            }
+        } else {
+            int k = 0;
+            while (k < n) {
+                int kstep = 1;
+                int kp = k;
+                int kn = k * n;
+                double absakk = Math.abs(A[kn + k]);
+                int imax = k < n - 1 ? k + 1 + idamax(n - k - 1, A, kn + k + 1) : k;
+                double colmax = k < n - 1 ? Math.abs(A[kn + imax]) : 0.0;
+
+                if (Math.max(absakk, colmax) == 0.0 || Double.isNaN(absakk)) {
+                    if (info == 0) info = k + 1;
+                } else {
+                    if (absakk < alpha * colmax) {
+                        // The largest off-diagonal element in row/column imax.
+                        double rowmax = 0.0;
+                        for (int j = k; j < imax; j++) {
+                            rowmax = Math.max(rowmax, Math.abs(A[imax + j * n]));
+                        }
+                        for (int i = imax + 1; i < n; i++) {
+                            rowmax = Math.max(rowmax, Math.abs(A[i + imax * n]));
+                        }
+
+                        if (absakk >= alpha * colmax * (colmax / rowmax)) {
+                            kp = k;
+                        } else if (Math.abs(A[imax + imax * n]) >= alpha * rowmax) {
+                            kp = imax;
+                        } else {
+                            kp = imax;
+                            kstep = 2;
+                        }
+                    }
+
+                    int kk = k + kstep - 1;
+                    if (kp != kk) {
+                        // Interchanges the rows and columns kk and kp of A[k:n, k:n].
+                        for (int i = kp + 1; i < n; i++) {
+                            dswap(A, i + kk * n, i + kp * n);
+                        }
+                        for (int j = kk + 1; j < kp; j++) {
+                            dswap(A, j + kk * n, kp + j * n);
+                        }
+                        dswap(A, kk + kk * n, kp + kp * n);
+                        if (kstep == 2) {
+                            dswap(A, k + 1 + kn, kp + kn);
+                        }
+                    }
+
+                    if (kstep == 1) {
+                        // A[k+1:n, k+1:n] -= L[:, k] * D[k, k] * L[:, k]'
+                        double r = 1.0 / A[kn + k];
+                        for (int j = k + 1; j < n; j++) {
+                            JavaBLAS.daxpy(n - j, -r * A[kn + j], A, kn + j, A, j * n + j);
+                        }
+                        JavaBLAS.dscal(n - k - 1, r, A, kn + k + 1);
+                    } else if (k < n - 2) {
+                        // A[k+2:n, k+2:n] -= L[:, k:k+1] * D[k:k+1, k:k+1] * L[:, k:k+1]'
+                        int kp1 = kn + n;
+                        double d21 = A[kn + k + 1];
+                        double d11 = A[kp1 + k + 1] / d21;
+                        double d22 = A[kn + k] / d21;
+                        d21 = 1.0 / (d11 * d22 - 1.0) / d21;
+                        for (int j = k + 2; j < n; j++) {
+                            double wk = d21 * (d11 * A[kn + j] - A[kp1 + j]);
+                            double wkp1 = d21 * (d22 * A[kp1 + j] - A[kn + j]);
+                            for (int i = j; i < n; i++) {
+                                A[i + j * n] -= A[kn + i] * wk + A[kp1 + i] * wkp1;
+                            }
+                            A[kn + j] = wk;
+                            A[kp1 + j] = wkp1;
+                        }
+                    }
+                }
+
+                if (kstep == 1) {
+                    ipiv[po + k] = kp + 1;
+                } else {
+                    ipiv[po + k] = -(kp + 1);
+                    ipiv[po + k + 1] = -(kp + 1);
+                }
+                k += kstep;
+            }
+        }
+
+        return info;
+    }
+
+    /**
+     * Solves A * x = b in place of b with the Bunch-Kaufman decomposition
+     * of {@link #dsytf2}, a port of LAPACK <code>sytrs</code>.
+     */
+    private static void dsytrs(UPLO uplo, int n, double[] A, int[] ipiv, int po, double[] b, int bo) {
+        if (uplo == UPLO.UPPER) {
+            // U * D * y = b
+            int k = n - 1;
+            while (k >= 0) {
+                int kn = k * n;
+                if (ipiv[po + k] > 0) {
+                    dswap(b, bo + k, bo + ipiv[po + k] - 1);
+                    JavaBLAS.daxpy(k, -b[bo + k], A, kn, b, bo);
+                    b[bo + k] /= A[kn + k];
+                    k -= 1;
+                } else {
+                    int km1 = kn - n;
+                    dswap(b, bo + k - 1, bo - ipiv[po + k] - 1);
+                    JavaBLAS.daxpy(k - 1, -b[bo + k], A, kn, b, bo);
+                    JavaBLAS.daxpy(k - 1, -b[bo + k - 1], A, km1, b, bo);
+                    double akm1k = A[kn + k - 1];
+                    double akm1 = A[km1 + k - 1] / akm1k;
+                    double ak = A[kn + k] / akm1k;
+                    double denom = akm1 * ak - 1.0;
+                    double bkm1 = b[bo + k - 1] / akm1k;
+                    double bk = b[bo + k] / akm1k;
+                    b[bo + k - 1] = (ak * bkm1 - bk) / denom;
+                    b[bo + k] = (akm1 * bk - bkm1) / denom;
+                    k -= 2;
+                }
+            }
+
+            // U' * x = y
+            k = 0;
+            while (k < n) {
+                int kn = k * n;
+                b[bo + k] -= JavaBLAS.ddot(k, A, kn, b, bo);
+                if (ipiv[po + k] > 0) {
+                    dswap(b, bo + k, bo + ipiv[po + k] - 1);
+                    k += 1;
+                } else {
+                    b[bo + k + 1] -= JavaBLAS.ddot(k, A, kn + n, b, bo);
+                    dswap(b, bo + k, bo - ipiv[po + k] - 1);
+                    k += 2;
+                }
+            }
+        } else {
+            // L * D * y = b
+            int k = 0;
+            while (k < n) {
+                int kn = k * n;
+                if (ipiv[po + k] > 0) {
+                    dswap(b, bo + k, bo + ipiv[po + k] - 1);
+                    JavaBLAS.daxpy(n - k - 1, -b[bo + k], A, kn + k + 1, b, bo + k + 1);
+                    b[bo + k] /= A[kn + k];
+                    k += 1;
+                } else {
+                    int kp1 = kn + n;
+                    dswap(b, bo + k + 1, bo - ipiv[po + k] - 1);
+                    JavaBLAS.daxpy(n - k - 2, -b[bo + k], A, kn + k + 2, b, bo + k + 2);
+                    JavaBLAS.daxpy(n - k - 2, -b[bo + k + 1], A, kp1 + k + 2, b, bo + k + 2);
+                    double akm1k = A[kn + k + 1];
+                    double akm1 = A[kn + k] / akm1k;
+                    double ak = A[kp1 + k + 1] / akm1k;
+                    double denom = akm1 * ak - 1.0;
+                    double bkm1 = b[bo + k] / akm1k;
+                    double bk = b[bo + k + 1] / akm1k;
+                    b[bo + k] = (ak * bkm1 - bk) / denom;
+                    b[bo + k + 1] = (akm1 * bk - bkm1) / denom;
+                    k += 2;
+                }
+            }
+
+            // L' * x = y
+            k = n - 1;
+            while (k >= 0) {
+                int kn = k * n;
+                b[bo + k] -= JavaBLAS.ddot(n - k - 1, A, kn + k + 1, b, bo + k + 1);
+                if (ipiv[po + k] > 0) {
+                    dswap(b, bo + k, bo + ipiv[po + k] - 1);
+                    k -= 1;
+                } else {
+                    b[bo + k - 1] -= JavaBLAS.ddot(n - k - 1, A, kn - n + k + 1, b, bo + k + 1);
+                    dswap(b, bo + k, bo - ipiv[po + k] - 1);
+                    k -= 2;
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves the overdetermined or underdetermined system with the QR
+     * decomposition of A if m &ge; n, or that of A' otherwise, which is
+     * the LQ decomposition of A. The former gives the least squares
+     * solution of A * X = B and the minimum norm solution of A' * X = B.
+     * The latter gives the minimum norm solution of A * X = B and the
+     * least squares solution of A' * X = B.
+     */
+    static int dgels(Layout layout, Transpose trans, int m, int n, int nrhs, double[] A, int ao, int lda, double[] B, int bo, int ldb) {
+        int mn = Math.max(m, n);
+        if (layout == Layout.ROW_MAJOR) {
+            double[] a = dcolMajor(m, n, A, ao, lda);
+            double[] b = dcolMajor(mn, nrhs, B, bo, ldb);
+            int info = dgels(Layout.COL_MAJOR, trans, m, n, nrhs, a, 0, Math.max(1, m), b, 0, Math.max(1, mn));
+            drowMajor(m, n, a, A, ao, lda);
+            drowMajor(mn, nrhs, b, B, bo, ldb);
+            return info;
+        }
+
+        int k = Math.min(m, n);
+        if (k == 0) {
+            for (int j = 0; j < nrhs; j++) {
+                Arrays.fill(B, bo + j * ldb, bo + j * ldb + mn, 0.0);
+            }
+            return 0;
+        }
+
+        // F = A if m >= n, otherwise A'. F is p x k with p >= k.
+        boolean qr = m >= n;
+        int p = mn;
+        double[] F = A;
+        int fo = ao;
+        int ldf = lda;
+        if (!qr) {
+            F = new double[n * m];
+            fo = 0;
+            ldf = n;
+            dtranspose(m, n, A, ao, lda, F, 0, n);
+        }
+
+        double[] tau = new double[k];
+        dgeqrf(Layout.COL_MAJOR, p, k, F, fo, ldf, tau, 0);
+        if (!qr) {
+            dtranspose(n, m, F, 0, n, A, ao, lda);
+        }
+
+        if (qr == (trans == Transpose.NO_TRANSPOSE)) {
+            // F * X = B: R * X = Q' * B
+            dormqr(Layout.COL_MAJOR, Side.LEFT, Transpose.TRANSPOSE, p, nrhs, k, F, fo, ldf, tau, 0, B, bo, ldb);
+            return dtrtrs(Layout.COL_MAJOR, UPLO.UPPER, Transpose.NO_TRANSPOSE, Diag.NON_UNIT, k, nrhs, F, fo, ldf, B, bo, ldb);
+        }
+
+        // F' * X = B: X = Q * [R'^-1 * B; 0]
+        int info = dtrtrs(Layout.COL_MAJOR, UPLO.UPPER, Transpose.TRANSPOSE, Diag.NON_UNIT, k, nrhs, F, fo, ldf, B, bo, ldb);
+        if (info != 0) return info;
+        for (int j = 0; j < nrhs; j++) {
+            Arrays.fill(B, bo + k + j * ldb, bo + p + j * ldb, 0.0);
+        }
+        return dormqr(Layout.COL_MAJOR, Side.LEFT, Transpose.NO_TRANSPOSE, p, nrhs, k, F, fo, ldf, tau, 0, B, bo, ldb);
+    }
+
+    /**
+     * Computes the minimum norm solution to a linear least squares problem
+     * with the singular value decomposition of A. The singular values
+     * s[i] &le; rcond * s[0] are treated as zero. If rcond &lt; 0, the machine
+     * precision is used instead. On output, the first min(m, n) rows of A
+     * are overwritten with the right singular vectors.
+     */
+    static int dgelss(Layout layout, int m, int n, int nrhs, double[] A, int ao, int lda, double[] B, int bo, int ldb, double[] s, int so, double rcond, int[] rank, int ro) {
+        int mn = Math.max(m, n);
+        if (layout == Layout.ROW_MAJOR) {
+            double[] a = dcolMajor(m, n, A, ao, lda);
+            double[] b = dcolMajor(mn, nrhs, B, bo, ldb);
+            int info = dgelss(Layout.COL_MAJOR, m, n, nrhs, a, 0, Math.max(1, m), b, 0, Math.max(1, mn), s, so, rcond, rank, ro);
+            drowMajor(m, n, a, A, ao, lda);
+            drowMajor(mn, nrhs, b, B, bo, ldb);
+            return info;
+        }
+
+        int k = Math.min(m, n);
+        rank[ro] = 0;
+        if (k == 0) {
+            for (int j = 0; j < nrhs; j++) {
+                Arrays.fill(B, bo + j * ldb, bo + j * ldb + mn, 0.0);
+            }
+            return 0;
+        }
+
+        double[] a = new double[m * n];
+        for (int j = 0; j < n; j++) {
+            System.arraycopy(A, ao + j * lda, a, j * m, m);
+        }
+
+        double[] U = new double[m * k];
+        double[] V = new double[n * k];
+        double[] sv = new double[k];
+        int info = dsvd(m, n, a, sv, U, V);
+        System.arraycopy(sv, 0, s, so, k);
+
+        double tol = (rcond < 0.0 ? EPSILON : rcond) * sv[0];
+        int r = 0;
+        while (r < k && sv[r] > tol) r++;
+        rank[ro] = r;
+
+        // X = V * S^-1 * U' * B
+        double[] c = new double[r];
+        for (int j = 0; j < nrhs; j++) {
+            int bj = bo + j * ldb;
+            for (int l = 0; l < r; l++) {
+                c[l] = JavaBLAS.ddot(m, U, l * m, B, bj) / sv[l];
+            }
+
+            Arrays.fill(B, bj, bj + n, 0.0);
+            for (int l = 0; l < r; l++) {
+                JavaBLAS.daxpy(n, c[l], V, l * n, B, bj);
+            }
+        }
+
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < k; i++) {
+                A[ao + i + j * lda] = V[j + i * n];
+            }
+        }
+
+        return info;
+    }
+
+    /**
+     * QR decomposition with column pivoting A * P = Q * R. The columns
+     * with nonzero jpvt on input are moved to the front and factorized
+     * first. Each of the other steps picks the remaining column of the
+     * largest norm. On output, jpvt[j] = k if the j-th column of A * P
+     * is the k-th column of A.
+     */
+    private static void dgeqp3(int m, int n, double[] A, int ao, int lda, int[] jpvt, int jo, double[] tau) {
+        int[] perm = new int[n];
+        int fixed = 0;
+        for (int j = 0; j < n; j++) {
+            perm[j] = j;
+            if (jpvt[jo + j] != 0) {
+                if (j != fixed) {
+                    dswapColumn(m, A, ao, lda, j, fixed);
+                    perm[j] = perm[fixed];
+                    perm[fixed] = j;
+                }
+                fixed++;
+            }
+        }
+
+        int k = Math.min(m, n);
+        for (int i = 0; i < k; i++) {
+            if (i >= fixed) {
+                int p = i;
+                double max = -1.0;
+                for (int j = i; j < n; j++) {
+                    double norm = dnrm2(m - i, A, ao + i + j * lda);
+                    if (norm > max) {
+                        max = norm;
+                        p = j;
+                    }
+                }
+
+                if (p != i) {
+                    dswapColumn(m, A, ao, lda, i, p);
+                    int t = perm[i];
+                    perm[i] = perm[p];
+                    perm[p] = t;
+                }
+            }
+
+            int ai = ao + i + i * lda;
+            tau[i] = dlarfg(m - i, A, ai);
+            for (int c = i + 1; c < n; c++) {
+                dlarf(m - i, A, ai, tau[i], A, ao + i + c * lda);
+            }
+        }
+
+        for (int j = 0; j < n; j++) {
+            jpvt[jo + j] = perm[j] + 1;
+        }
+    }
+
+    /** Swaps two columns of column major m x n matrix. */
+    private static void dswapColumn(int m, double[] A, int ao, int lda, int c1, int c2) {
+        int a1 = ao + c1 * lda;
+        int a2 = ao + c2 * lda;
+        for (int i = 0; i < m; i++) {
+            dswap(A, a1 + i, a2 + i);
+        }
+    }
+
+    /**
+     * Computes the minimum norm solution to a linear least squares problem
+     * with the QR decomposition with column pivoting A * P = Q * [R11 R12; 0 R22].
+     * The effective rank is the largest r such that |R[r-1, r-1]| &gt;
+     * rcond * |R[0, 0]|, which simplifies the incremental condition
+     * estimation of LAPACK. Instead of the RZ decomposition of [R11 R12],
+     * its minimum norm system is solved by {@link #dgels}. On output,
+     * A holds the QR decomposition with column pivoting.
+     */
+    static int dgelsy(Layout layout, int m, int n, int nrhs, double[] A, int ao, int lda, double[] B, int bo, int ldb, int[] jpvt, int jo, double rcond, int[] rank, int ro) {
+        int mn = Math.max(m, n);
+        if (layout == Layout.ROW_MAJOR) {
+            double[] a = dcolMajor(m, n, A, ao, lda);
+            double[] b = dcolMajor(mn, nrhs, B, bo, ldb);
+            int info = dgelsy(Layout.COL_MAJOR, m, n, nrhs, a, 0, Math.max(1, m), b, 0, Math.max(1, mn), jpvt, jo, rcond, rank, ro);
+            drowMajor(m, n, a, A, ao, lda);
+            drowMajor(mn, nrhs, b, B, bo, ldb);
+            return info;
+        }
+
+        int k = Math.min(m, n);
+        rank[ro] = 0;
+        if (k == 0) {
+            for (int j = 0; j < nrhs; j++) {
+                Arrays.fill(B, bo + j * ldb, bo + j * ldb + mn, 0.0);
+            }
+            return 0;
+        }
+
+        double[] tau = new double[k];
+        dgeqp3(m, n, A, ao, lda, jpvt, jo, tau);
+
+        double r0 = Math.abs(A[ao]);
+        int r = 0;
+        if (r0 > 0.0) {
+            r = 1;
+            while (r < k && Math.abs(A[ao + r + r * lda]) > rcond * r0) r++;
+        }
+        rank[ro] = r;
+
+        // Q' * B
+        dormqr(Layout.COL_MAJOR, Side.LEFT, Transpose.TRANSPOSE, m, nrhs, k, A, ao, lda, tau, 0, B, bo, ldb);
+
+        // The minimum norm solution of [R11 R12] * Y = (Q' * B)[0:r].
+        double[] Y = new double[n * nrhs];
+        if (r > 0) {
+            double[] R = new double[r * n];
+            for (int j = 0; j < n; j++) {
+                System.arraycopy(A, ao + j * lda, R, j * r, Math.min(j + 1, r));
+            }
+            for (int j = 0; j < nrhs; j++) {
+                System.arraycopy(B, bo + j * ldb, Y, j * n, r);
+            }
+
+            int info = dgels(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, r, n, nrhs, R, 0, r, Y, 0, n);
+            if (info != 0) return info;
+        }
+
+        // X = P * Y
+        for (int j = 0; j < nrhs; j++) {
+            for (int i = 0; i < n; i++) {
+                B[bo + jpvt[jo + i] - 1 + j * ldb] = Y[i + j * n];
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Solves the linear equality-constrained least squares problem
+     * minimize ||c - A * x|| subject to B * x = d by the null space method.
+     * With the QR decomposition B' = Q * [R; 0] and y = Q' * x, the
+     * constraint gives y[0:p] = R'^-1 * d and y[p:n] is the least squares
+     * solution of (A * Q)[:, p:n] * y[p:n] = c - (A * Q)[:, 0:p] * y[0:p].
+     * A and B are not changed.
+     */
+    static int dgglse(Layout layout, int m, int n, int p, double[] A, int ao, int lda, double[] B, int bo, int ldb,
+                      double[] c, int co, double[] d, int dof, double[] x, int xo) {
+        int ldm = Math.max(1, m);
+        int ldn = Math.max(1, n);
+        double[] a = new double[ldm * n];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                a[i + j * ldm] = get(layout, A, ao, lda, i, j);
+            }
+        }
+
+        // B' is n x p.
+        double[] bt = new double[ldn * p];
+        for (int i = 0; i < p; i++) {
+            for (int j = 0; j < n; j++) {
+                bt[j + i * ldn] = get(layout, B, bo, ldb, i, j);
+            }
+        }
+
+        double[] tau = new double[p];
+        dgeqrf(Layout.COL_MAJOR, n, p, bt, 0, ldn, tau, 0);
+
+        double[] y = new double[ldn];
+        System.arraycopy(d, dof, y, 0, p);
+        if (dtrtrs(Layout.COL_MAJOR, UPLO.UPPER, Transpose.TRANSPOSE, Diag.NON_UNIT, p, 1, bt, 0, ldn, y, 0, ldn) != 0) {
+            return 1;
+        }
+
+        // r = c - (A * Q)[:, 0:p] * y[0:p]
+        dormqr(Layout.COL_MAJOR, Side.RIGHT, Transpose.NO_TRANSPOSE, m, n, p, bt, 0, ldn, tau, 0, a, 0, ldm);
+        double[] r = new double[Math.max(ldm, n - p)];
+        System.arraycopy(c, co, r, 0, m);
+        JavaBLAS.dgemv(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, m, p, -1.0, a, 0, ldm, y, 0, 1, 1.0, r, 0, 1);
+
+        if (n > p) {
+            if (dgels(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, m, n - p, 1, a, p * ldm, ldm, r, 0, r.length) != 0) {
+                return 2;
+            }
+            System.arraycopy(r, 0, y, p, n - p);
+        }
+
+        // The residual sum of squares is that of c[n-p:m].
+        System.arraycopy(r, 0, c, co, m);
+
+        // x = Q * y
+        dormqr(Layout.COL_MAJOR, Side.LEFT, Transpose.NO_TRANSPOSE, n, 1, p, bt, 0, ldn, tau, 0, y, 0, ldn);
+        System.arraycopy(y, 0, x, xo, n);
+        return 0;
+    }
+
+    /**
+     * Solves the general Gauss-Markov linear model problem minimize ||y||
+     * subject to d = A * x + B * y. With the QR decomposition A = Q * [R; 0],
+     * y is the minimum norm solution of (Q' * B)[m:n, :] * y = (Q' * d)[m:n]
+     * and x = R^-1 * (Q' * d - Q' * B * y)[0:m]. A and B are not changed.
+     */
+    static int dggglm(Layout layout, int n, int m, int p, double[] A, int ao, int lda, double[] B, int bo, int ldb,
+                      double[] d, int dof, double[] x, int xo, double[] y, int yo) {
+        int ld = Math.max(1, n);
+        double[] a = new double[ld * m];
+        for (int j = 0; j < m; j++) {
+            for (int i = 0; i < n; i++) {
+                a[i + j * ld] = get(layout, A, ao, lda, i, j);
+            }
+        }
+
+        double[] b = new double[ld * p];
+        for (int j = 0; j < p; j++) {
+            for (int i = 0; i < n; i++) {
+                b[i + j * ld] = get(layout, B, bo, ldb, i, j);
+            }
+        }
+
+        double[] e = Arrays.copyOfRange(d, dof, dof + n);
+        double[] tau = new double[m];
+        dgeqrf(Layout.COL_MAJOR, n, m, a, 0, ld, tau, 0);
+        dormqr(Layout.COL_MAJOR, Side.LEFT, Transpose.TRANSPOSE, n, p, m, a, 0, ld, tau, 0, b, 0, ld);
+        dormqr(Layout.COL_MAJOR, Side.LEFT, Transpose.TRANSPOSE, n, 1, m, a, 0, ld, tau, 0, e, 0, ld);
+
+        double[] z = new double[Math.max(p, n - m)];
+        if (n > m) {
+            int nm = n - m;
+            double[] T = new double[nm * p];
+            for (int j = 0; j < p; j++) {
+                System.arraycopy(b, m + j * ld, T, j * nm, nm);
+            }
+            System.arraycopy(e, m, z, 0, nm);
+            if (dgels(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, nm, p, 1, T, 0, nm, z, 0, z.length) != 0) {
+                return 2;
+            }
+        }
+
+        double[] w = Arrays.copyOf(e, Math.max(1, m));
+        JavaBLAS.dgemv(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, m, p, -1.0, b, 0, ld, z, 0, 1, 1.0, w, 0, 1);
+        if (dtrtrs(Layout.COL_MAJOR, UPLO.UPPER, Transpose.NO_TRANSPOSE, Diag.NON_UNIT, m, 1, a, 0, ld, w, 0, w.length) != 0) {
+            return 1;
+        }
+
+        System.arraycopy(w, 0, x, xo, m);
+        System.arraycopy(z, 0, y, yo, p);
+        return 0;
+    }
+
+    /**
+     * Computes the selected eigenvalues and optionally eigenvectors of
+     * a symmetric matrix. All eigenvalues are computed by {@link #dsyev},
+     * of which those in the range are returned. The absolute tolerance
+     * abstol is not used. The support of each eigenvector is the range
+     * of its nonzero elements.
+     */
+    static int dsyevr(Layout layout, EVDJob jobz, EigenRange range, UPLO uplo, int n, double[] A, int ao, int lda, double vl, double vu, int il, int iu,
+                      int[] m, int mo, double[] w, int wo, double[] Z, int zo, int ldz, int[] isuppz, int io) {
+        if (range == EigenRange.VALUE && n > 0 && vu <= vl) return -8;
+        if (range == EigenRange.INDEX) {
+            if (il < 1 || il > Math.max(1, n)) return -9;
+            if (iu < Math.min(n, il) || iu > n) return -10;
+        }
+
+        m[mo] = 0;
+        if (n == 0) return 0;
+
+        double[] ev = new double[n];
+        int info = dsyev(layout, jobz, uplo, n, A, ao, lda, ev, 0);
+        if (info != 0) return info;
+
+        // The selected eigenvalues are ev[lo:hi].
+        int lo = 0;
+        int hi = n;
+        if (range == EigenRange.VALUE) {
+            while (lo < n && ev[lo] <= vl) lo++;
+            hi = lo;
+            while (hi < n && ev[hi] <= vu) hi++;
+        } else if (range == EigenRange.INDEX) {
+            lo = il - 1;
+            hi = iu;
+        }
+
+        int k = hi - lo;
+        m[mo] = k;
+        System.arraycopy(ev, lo, w, wo, k);
+
+        if (jobz == EVDJob.VECTORS) {
+            for (int j = 0; j < k; j++) {
+                int first = -1;
+                int last = -1;
+                for (int i = 0; i < n; i++) {
+                    double v = get(layout, A, ao, lda, i, lo + j);
+                    set(layout, Z, zo, ldz, i, j, v);
+                    if (v != 0.0) {
+                        if (first < 0) first = i;
+                        last = i;
+                    }
+                }
+
+                if (isuppz != null) {
+                    isuppz[io + 2 * j] = first + 1;
+                    isuppz[io + 2 * j + 1] = last + 1;
+                }
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    public int gesv(Layout layout, int n, int nrhs, float[] A, int lda, int[] ipiv, float[] B, int ldb) {
+        return sgesv(layout, n, nrhs, A, 0, lda, ipiv, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int gesv(Layout layout, int n, int nrhs, FloatBuffer A, int lda, IntBuffer ipiv, FloatBuffer B, int ldb) {
+        float[] a = JavaBLAS.array(A);
+        float[] b = JavaBLAS.array(B);
+        int[] p = array(ipiv);
+        int info = sgesv(layout, n, nrhs, a, JavaBLAS.offset(A), lda, p, offset(ipiv), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        write(p, ipiv);
+        return info;
+    }
+
+    @Override
+    public int posv(Layout layout, UPLO uplo, int n, int nrhs, float[] A, int lda, float[] B, int ldb) {
+        return sposv(layout, uplo, n, nrhs, A, 0, lda, B, 0, ldb);
+    }
+
+    @Override
+    public int posv(Layout layout, UPLO uplo, int n, int nrhs, FloatBuffer A, int lda, FloatBuffer B, int ldb) {
+        float[] a = JavaBLAS.array(A);
+        float[] b = JavaBLAS.array(B);
+        int info = sposv(layout, uplo, n, nrhs, a, JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int getrf(Layout layout, int m, int n, float[] A, int lda, int[] ipiv) {
+        return sgetrf(layout, m, n, A, 0, lda, ipiv, 0);
+    }
+
+    @Override
+    public int getrf(Layout layout, int m, int n, FloatBuffer A, int lda, IntBuffer ipiv) {
+        float[] a = JavaBLAS.array(A);
+        int[] p = array(ipiv);
+        int info = sgetrf(layout, m, n, a, JavaBLAS.offset(A), lda, p, offset(ipiv));
+        JavaBLAS.write(a, A);
+        write(p, ipiv);
+        return info;
+    }
+
+    @Override
+    public int getrs(Layout layout, Transpose trans, int n, int nrhs, float[] A, int lda, int[] ipiv, float[] B, int ldb) {
+        return sgetrs(layout, trans, n, nrhs, A, 0, lda, ipiv, 0, B, 0, ldb);
+    }
+
+    @Override
+    public int getrs(Layout layout, Transpose trans, int n, int nrhs, FloatBuffer A, int lda, IntBuffer ipiv, FloatBuffer B, int ldb) {
+        float[] b = JavaBLAS.array(B);
+        int info = sgetrs(layout, trans, n, nrhs, JavaBLAS.array(A), JavaBLAS.offset(A), lda, array(ipiv), offset(ipiv), b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int potrf(Layout layout, UPLO uplo, int n, float[] A, int lda) {
+        return spotrf(layout, uplo, n, A, 0, lda);
+    }
+
+    @Override
+    public int potrf(Layout layout, UPLO uplo, int n, FloatBuffer A, int lda) {
+        float[] a = JavaBLAS.array(A);
+        int info = spotrf(layout, uplo, n, a, JavaBLAS.offset(A), lda);
+        JavaBLAS.write(a, A);
+        return info;
+    }
+
+    @Override
+    public int potrs(Layout layout, UPLO uplo, int n, int nrhs, float[] A, int lda, float[] B, int ldb) {
+        return spotrs(layout, uplo, n, nrhs, A, 0, lda, B, 0, ldb);
+    }
+
+    @Override
+    public int potrs(Layout layout, UPLO uplo, int n, int nrhs, FloatBuffer A, int lda, FloatBuffer B, int ldb) {
+        float[] b = JavaBLAS.array(B);
+        int info = spotrs(layout, uplo, n, nrhs, JavaBLAS.array(A), JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    @Override
+    public int geqrf(Layout layout, int m, int n, float[] A, int lda, float[] tau) {
+        return sgeqrf(layout, m, n, A, 0, lda, tau, 0);
+    }
+
+    @Override
+    public int geqrf(Layout layout, int m, int n, FloatBuffer A, int lda, FloatBuffer tau) {
+        float[] a = JavaBLAS.array(A);
+        float[] t = JavaBLAS.array(tau);
+        int info = sgeqrf(layout, m, n, a, JavaBLAS.offset(A), lda, t, JavaBLAS.offset(tau));
+        JavaBLAS.write(a, A);
+        JavaBLAS.write(t, tau);
+        return info;
+    }
+
+    @Override
+    public int ormqr(Layout layout, Side side, Transpose trans, int m, int n, int k, float[] A, int lda, float[] tau, float[] C, int ldc) {
+        return sormqr(layout, side, trans, m, n, k, A, 0, lda, tau, 0, C, 0, ldc);
+    }
+
+    @Override
+    public int ormqr(Layout layout, Side side, Transpose trans, int m, int n, int k, FloatBuffer A, int lda, FloatBuffer tau, FloatBuffer C, int ldc) {
+        float[] c = JavaBLAS.array(C);
+        int info = sormqr(layout, side, trans, m, n, k, JavaBLAS.array(A), JavaBLAS.offset(A), lda, JavaBLAS.array(tau), JavaBLAS.offset(tau), c, JavaBLAS.offset(C), ldc);
+        JavaBLAS.write(c, C);
+        return info;
+    }
+
+    @Override
+    public int orgqr(Layout layout, int m, int n, int k, float[] A, int lda, float[] tau) {
+        return sorgqr(layout, m, n, k, A, 0, lda, tau, 0);
+    }
+
+    @Override
+    public int orgqr(Layout layout, int m, int n, int k, FloatBuffer A, int lda, FloatBuffer tau) {
+        float[] a = JavaBLAS.array(A);
+        int info = sorgqr(layout, m, n, k, a, JavaBLAS.offset(A), lda, JavaBLAS.array(tau), JavaBLAS.offset(tau));
+        JavaBLAS.write(a, A);
+        return info;
+    }
+
+    @Override
+    public int trtrs(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, int nrhs, float[] A, int lda, float[] B, int ldb) {
+        return strtrs(layout, uplo, trans, diag, n, nrhs, A, 0, lda, B, 0, ldb);
+    }
+
+    @Override
+    public int trtrs(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, int nrhs, FloatBuffer A, int lda, FloatBuffer B, int ldb) {
+        float[] b = JavaBLAS.array(B);
+        int info = strtrs(layout, uplo, trans, diag, n, nrhs, JavaBLAS.array(A), JavaBLAS.offset(A), lda, b, JavaBLAS.offset(B), ldb);
+        JavaBLAS.write(b, B);
+        return info;
+    }
+
+    /**
+     * Copies the transpose of column major m x n matrix A to B.
+     */
+    private static void stranspose(int m, int n, float[] A, int ao, int lda, float[] B, int bo, int ldb) {
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                B[bo + j + i * ldb] = A[ao + i + j * lda];
+            }
+        }
+    }
+
+    /**
+     * Returns the column major copy of row major m x n matrix.
+     */
+    private static float[] scolMajor(int m, int n, float[] A, int ao, int lda) {
+        int ld = Math.max(1, m);
+        float[] B = new float[ld * n];
+        stranspose(n, m, A, ao, lda, B, 0, ld);
+        return B;
+    }
+
+    /**
+     * Copies the column major m x n matrix B back to the row major one.
+     */
+    private static void srowMajor(int m, int n, float[] B, float[] A, int ao, int lda) {
+        stranspose(m, n, B, 0, Math.max(1, m), A, ao, lda);
+    }
+
+    /** Returns the 2-norm of contiguous vector without overflow. */
+    private static float snrm2(int n, float[] x, int xo) {
+        float scale = 0.0f;
+        for (int i = xo; i < xo + n; i++) {
+            scale = Math.max(scale, Math.abs(x[i]));
+        }
+
+        if (scale == 0.0f) return 0.0f;
+
+        float r = 1.0f / scale;
+        float ssq = 0.0f;
+        for (int i = xo; i < xo + n; i++) {
+            float a = x[i] * r;
+            ssq += a * a;
+        }
+        return scale * (float) Math.sqrt(ssq);
+    }
+
+    /**
+     * Solves the triangular system op(A) * X = B in place of B
+     * for column major matrices. The columns of B are solved in parallel.
+     */
+    static void strsm(UPLO uplo, Transpose trans, Diag diag, int n, int nrhs, float[] A, int ao, int lda, float[] B, int bo, int ldb) {
+        boolean unit = diag == Diag.UNIT;
+        boolean lower = uplo == UPLO.LOWER;
+        boolean transposed = trans != Transpose.NO_TRANSPOSE;
+        JavaBLAS.range(0, nrhs, (long) n * n * nrhs).forEach(c -> {
+            int b = bo + c * ldb;
+            if (!transposed) {
+                if (lower) {
+                    for (int j = 0; j < n; j++) {
+                        int aj = ao + j * lda;
+                        if (!unit) B[b + j] /= A[aj + j];
+                        JavaBLAS.saxpy(n - j - 1, -B[b + j], A, aj + j + 1, B, b + j + 1);
+                    }
+                } else {
+                    for (int j = n - 1; j >= 0; j--) {
+                        int aj = ao + j * lda;
+                        if (!unit) B[b + j] /= A[aj + j];
+                        JavaBLAS.saxpy(j, -B[b + j], A, aj, B, b);
+                    }
+                }
+            } else {
+                if (lower) {
+                    for (int j = n - 1; j >= 0; j--) {
+                        int aj = ao + j * lda;
+                        float t = B[b + j] - JavaBLAS.sdot(n - j - 1, A, aj + j + 1, B, b + j + 1);
+                        B[b + j] = unit ? t : t / A[aj + j];
+                    }
+                } else {
+                    for (int j = 0; j < n; j++) {
+                        int aj = ao + j * lda;
+                        float t = B[b + j] - JavaBLAS.sdot(j, A, aj, B, b);
+                        B[b + j] = unit ? t : t / A[aj + j];
+                    }
+                }
+            }
+        });
+    }
+
+    /** Swaps two rows in the columns [c0, c1) of column major matrix. */
+    private static void sswap(float[] A, int ao, int lda, int r1, int r2, int c0, int c1) {
+        for (int c = c0; c < c1; c++) {
+            int j = ao + c * lda;
+            float t = A[j + r1];
+            A[j + r1] = A[j + r2];
+            A[j + r2] = t;
+        }
+    }
+
+    /** Solves a general linear system with LU decomposition. */
+    static int sgesv(Layout layout, int n, int nrhs, float[] A, int ao, int lda, int[] ipiv, int po, float[] B, int bo, int ldb) {
+        int info = sgetrf(layout, n, n, A, ao, lda, ipiv, po);
+        if (info == 0) {
+            info = sgetrs(layout, Transpose.NO_TRANSPOSE, n, nrhs, A, ao, lda, ipiv, po, B, bo, ldb);
+        }
+        return info;
+    }
+
+    /**
+     * Blocked right-looking LU decomposition with partial pivoting.
+     * The trailing submatrix is updated by the blocked gemm.
+     */
+    static int sgetrf(Layout layout, int m, int n, float[] A, int ao, int lda, int[] ipiv, int po) {
+        if (layout == Layout.ROW_MAJOR) {
+            float[] a = scolMajor(m, n, A, ao, lda);
+            int info = sgetrf(Layout.COL_MAJOR, m, n, a, 0, Math.max(1, m), ipiv, po);
+            srowMajor(m, n, a, A, ao, lda);
+            return info;
+        }
+
+        int info = 0;
+        int mn = Math.min(m, n);
+        for (int j0 = 0; j0 < mn; j0 += NB) {
+            int jb = Math.min(NB, mn - j0);
+            // Factorizes the panel A[j0:m, j0:j0+jb].
+            for (int j = j0; j < j0 + jb; j++) {
+                int aj = ao + j * lda;
+                int p = j;
+                float max = Math.abs(A[aj + j]);
+                for (int i = j + 1; i < m; i++) {
+                    float a = Math.abs(A[aj + i]);
+                    if (a > max) {
+                        max = a;
+                        p = i;
+                    }
+                }
+
+                ipiv[po + j] = p + 1;
+                if (A[aj + p] != 0.0f) {
+                    if (p != j) {
+                        sswap(A, ao, lda, j, p, j0, j0 + jb);
+                    }
+                    JavaBLAS.sscal(m - j - 1, 1.0f / A[aj + j], A, aj + j + 1);
+                } else if (info == 0) {
+                    info = j + 1;
+                }
+
+                for (int c = j + 1; c < j0 + jb; c++) {
+                    int ac = ao + c * lda;
+                    JavaBLAS.saxpy(m - j - 1, -A[ac + j], A, aj + j + 1, A, ac + j + 1);
+                }
+            }
+
+            // Applies the row interchanges to the columns out of panel.
+            for (int j = j0; j < j0 + jb; j++) {
+                int p = ipiv[po + j] - 1;
+                if (p != j) {
+                    sswap(A, ao, lda, j, p, 0, j0);
+                    sswap(A, ao, lda, j, p, j0 + jb, n);
+                }
+            }
+
+            int j1 = j0 + jb;
+            if (j1 < n) {
+                // U12 = L11^-1 * A12
+                strsm(UPLO.LOWER, Transpose.NO_TRANSPOSE, Diag.UNIT, jb, n - j1, A, ao + j0 + j0 * lda, lda, A, ao + j0 + j1 * lda, lda);
+                if (j1 < m) {
+                    // A22 = A22 - L21 * U12
+                    JavaBLAS.sgemm(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, Transpose.NO_TRANSPOSE, m - j1, n - j1, jb,
+                            -1.0f, A, ao + j1 + j0 * lda, lda, A, ao + j0 + j1 * lda, lda, 1.0f, A, ao + j1 + j1 * lda, lda);
+                }
+            }
+        }
+
+        return info;
+    }
+
+    /** Solves a general linear system with the LU decomposition. */
+    static int sgetrs(Layout layout, Transpose trans, int n, int nrhs, float[] A, int ao, int lda, int[] ipiv, int po, float[] B, int bo, int ldb) {
+        if (layout == Layout.ROW_MAJOR) {
+            float[] a = scolMajor(n, n, A, ao, lda);
+            float[] b = scolMajor(n, nrhs, B, bo, ldb);
+            int info = sgetrs(Layout.COL_MAJOR, trans, n, nrhs, a, 0, Math.max(1, n), ipiv, po, b, 0, Math.max(1, n));
+            srowMajor(n, nrhs, b, B, bo, ldb);
+            return info;
+        }
+
+        if (trans == Transpose.NO_TRANSPOSE) {
+            for (int j = 0; j < n; j++) {
+                int p = ipiv[po + j] - 1;
+                if (p != j) sswap(B, bo, ldb, j, p, 0, nrhs);
+            }
+            strsm(UPLO.LOWER, Transpose.NO_TRANSPOSE, Diag.UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+            strsm(UPLO.UPPER, Transpose.NO_TRANSPOSE, Diag.NON_UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+        } else {
+            strsm(UPLO.UPPER, Transpose.TRANSPOSE, Diag.NON_UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+            strsm(UPLO.LOWER, Transpose.TRANSPOSE, Diag.UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+            for (int j = n - 1; j >= 0; j--) {
+                int p = ipiv[po + j] - 1;
+                if (p != j) sswap(B, bo, ldb, j, p, 0, nrhs);
+            }
+        }
+
+        return 0;
+    }
+
+    /** Solves a symmetric positive definite linear system with Cholesky decomposition. */
+    static int sposv(Layout layout, UPLO uplo, int n, int nrhs, float[] A, int ao, int lda, float[] B, int bo, int ldb) {
+        int info = spotrf(layout, uplo, n, A, ao, lda);
+        if (info == 0) {
+            info = spotrs(layout, uplo, n, nrhs, A, ao, lda, B, bo, ldb);
+        }
+        return info;
+    }
+
+    /**
+     * Blocked right-looking Cholesky decomposition. The columns of
+     * trailing submatrix are updated in parallel.
+     */
+    static int spotrf(Layout layout, UPLO uplo, int n, float[] A, int ao, int lda) {
+        if (layout == Layout.ROW_MAJOR) {
+            // The row major triangle is the other triangle of column major one.
+            return spotrf(Layout.COL_MAJOR, JavaBLAS.flip(uplo), n, A, ao, lda);
+        }
+
+        if (uplo == UPLO.UPPER) {
+            // A = U' * U = L * L' where L = U'.
+            int ld = Math.max(1, n);
+            float[] L = new float[ld * n];
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i <= j; i++) {
+                    L[j + i * ld] = A[ao + i + j * lda];
+                }
+            }
+
+            int info = spotrf(Layout.COL_MAJOR, UPLO.LOWER, n, L, 0, ld);
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i <= j; i++) {
+                    A[ao + i + j * lda] = L[j + i * ld];
+                }
+            }
+            return info;
+        }
+
+        for (int j0 = 0; j0 < n; j0 += NB) {
+            int jb = Math.min(NB, n - j0);
+            // Factorizes the panel A[j0:n, j0:j0+jb].
+            for (int j = j0; j < j0 + jb; j++) {
+                int aj = ao + j * lda;
+                float d = A[aj + j];
+                if (!(d > 0.0f)) {
+                    return j + 1;
+                }
+
+                d = (float) Math.sqrt(d);
+                A[aj + j] = d;
+                JavaBLAS.sscal(n - j - 1, 1.0f / d, A, aj + j + 1);
+                for (int c = j + 1; c < j0 + jb; c++) {
+                    JavaBLAS.saxpy(n - c, -A[aj + c], A, aj + c, A, ao + c * lda + c);
+                }
+            }
+
+            // A22 = A22 - L21 * L21' on the lower triangle.
+            int p0 = j0;
+            int p1 = j0 + jb;
+            JavaBLAS.range(p1, n, (long) (n - p1) * (n - p1) * jb).forEach(c -> {
+                int ac = ao + c * lda;
+                int p = p0;
+                for (; p + 3 < p1; p += 4) {
+                    int a0 = ao + p * lda;
+                    int a1 = a0 + lda;
+                    int a2 = a1 + lda;
+                    int a3 = a2 + lda;
+                    float l0 = A[a0 + c];
+                    float l1 = A[a1 + c];
+                    float l2 = A[a2 + c];
+                    float l3 = A[a3 + c];
+                    for (int i = c; i < n; i++) {
+                        A[ac + i] -= l0 * A[a0 + i] + l1 * A[a1 + i] + l2 * A[a2 + i] + l3 * A[a3 + i];
+                    }
+                }
+                for (; p < p1; p++) {
+                    int ap = ao + p * lda;
+                    JavaBLAS.saxpy(n - c, -A[ap + c], A, ap + c, A, ac + c);
+                }
+            });
+        }
+
+        return 0;
+    }
+
+    /** Solves a symmetric positive definite linear system with the Cholesky decomposition. */
+    static int spotrs(Layout layout, UPLO uplo, int n, int nrhs, float[] A, int ao, int lda, float[] B, int bo, int ldb) {
+        if (layout == Layout.ROW_MAJOR) {
+            float[] b = scolMajor(n, nrhs, B, bo, ldb);
+            int info = spotrs(Layout.COL_MAJOR, JavaBLAS.flip(uplo), n, nrhs, A, ao, lda, b, 0, Math.max(1, n));
+            srowMajor(n, nrhs, b, B, bo, ldb);
+            return info;
+        }
+
+        if (uplo == UPLO.LOWER) {
+            strsm(UPLO.LOWER, Transpose.NO_TRANSPOSE, Diag.NON_UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+            strsm(UPLO.LOWER, Transpose.TRANSPOSE, Diag.NON_UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+        } else {
+            strsm(UPLO.UPPER, Transpose.TRANSPOSE, Diag.NON_UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+            strsm(UPLO.UPPER, Transpose.NO_TRANSPOSE, Diag.NON_UNIT, n, nrhs, A, ao, lda, B, bo, ldb);
+        }
+        return 0;
+    }
+
+    /**
+     * Generates an elementary reflector H = I - tau * v * v' such that
+     * H * x = (beta, 0, ..., 0)'. On output, x[0] is beta and the rest
+     * of x is v[1:n] as v[0] = 1.
+     * @return tau.
+     */
+    private static float slarfg(int n, float[] x, int xo) {
+        if (n <= 1) return 0.0f;
+
+        float xnorm = snrm2(n - 1, x, xo + 1);
+        if (xnorm == 0.0f) return 0.0f;
+
+        float alpha = x[xo];
+        float beta = -Math.copySign((float) Math.hypot(alpha, xnorm), alpha);
+        JavaBLAS.sscal(n - 1, 1.0f / (alpha - beta), x, xo + 1);
+        x[xo] = beta;
+        return (beta - alpha) / beta;
+    }
+
+    /**
+     * Applies an elementary reflector H = I - tau * v * v' to a column
+     * vector c, where v[0] = 1 is implicit.
+     */
+    private static void slarf(int n, float[] v, int vo, float tau, float[] c, int co) {
+        if (tau == 0.0f) return;
+
+        float w = tau * (c[co] + JavaBLAS.sdot(n - 1, v, vo + 1, c, co + 1));
+        c[co] -= w;
+        JavaBLAS.saxpy(n - 1, -w, v, vo + 1, c, co + 1);
+    }
+
+    /**
+     * Blocked Householder QR decomposition. The reflectors of each panel
+     * are applied to the trailing columns in parallel.
+     */
+    static int sgeqrf(Layout layout, int m, int n, float[] A, int ao, int lda, float[] tau, int to) {
+        if (layout == Layout.ROW_MAJOR) {
+            float[] a = scolMajor(m, n, A, ao, lda);
+            int info = sgeqrf(Layout.COL_MAJOR, m, n, a, 0, Math.max(1, m), tau, to);
+            srowMajor(m, n, a, A, ao, lda);
+            return info;
+        }
+
+        int k = Math.min(m, n);
+        for (int j0 = 0; j0 < k; j0 += NB) {
+            int jb = Math.min(NB, k - j0);
+            // Factorizes the panel A[j0:m, j0:j0+jb].
+            for (int j = j0; j < j0 + jb; j++) {
+                int aj = ao + j + j * lda;
+                tau[to + j] = slarfg(m - j, A, aj);
+                for (int c = j + 1; c < j0 + jb; c++) {
+                    slarf(m - j, A, aj, tau[to + j], A, ao + j + c * lda);
+                }
+            }
+
+            int p0 = j0;
+            int p1 = j0 + jb;
+            JavaBLAS.range(p1, n, (long) (m - p0) * (n - p1) * jb).forEach(c -> {
+                for (int j = p0; j < p1; j++) {
+                    slarf(m - j, A, ao + j + j * lda, tau[to + j], A, ao + j + c * lda);
+                }
+            });
+        }
+
+        return 0;
+    }
+
+    /** Generates the m x n matrix Q with orthonormal columns of QR decomposition. */
+    static int sorgqr(Layout layout, int m, int n, int k, float[] A, int ao, int lda, float[] tau, int to) {
+        if (layout == Layout.ROW_MAJOR) {
+            float[] a = scolMajor(m, n, A, ao, lda);
+            int info = sorgqr(Layout.COL_MAJOR, m, n, k, a, 0, Math.max(1, m), tau, to);
+            srowMajor(m, n, a, A, ao, lda);
+            return info;
+        }
+
+        for (int j = k; j < n; j++) {
+            int aj = ao + j * lda;
+            Arrays.fill(A, aj, aj + m, 0.0f);
+            A[aj + j] = 1.0f;
+        }
+
+        for (int i = k - 1; i >= 0; i--) {
+            int ai = ao + i + i * lda;
+            float t = tau[to + i];
+            int r = i;
+            JavaBLAS.range(i + 1, n, (long) (m - i) * (n - i)).forEach(c -> slarf(m - r, A, ai, t, A, ao + r + c * lda));
+            JavaBLAS.sscal(m - i - 1, -t, A, ai + 1);
+            A[ai] = 1.0f - t;
+            Arrays.fill(A, ao + i * lda, ai, 0.0f);
+        }
+
+        return 0;
+    }
+
+    /** Multiplies a matrix by the orthogonal matrix Q of QR decomposition. */
+    static int sormqr(Layout layout, Side side, Transpose trans, int m, int n, int k, float[] A, int ao, int lda, float[] tau, int to, float[] C, int co, int ldc) {
+        int nq = side == Side.LEFT ? m : n;
+        if (layout == Layout.ROW_MAJOR) {
+            float[] a = scolMajor(nq, k, A, ao, lda);
+            float[] c = scolMajor(m, n, C, co, ldc);
+            int info = sormqr(Layout.COL_MAJOR, side, trans, m, n, k, a, 0, Math.max(1, nq), tau, to, c, 0, Math.max(1, m));
+            srowMajor(m, n, c, C, co, ldc);
+            return info;
+        }
+
+        if (side == Side.RIGHT) {
+            // C * op(Q) = (op(Q)' * C')'
+            int ld = Math.max(1, n);
+            float[] c = new float[ld * m];
+            stranspose(m, n, C, co, ldc, c, 0, ld);
+            int info = sormqr(Layout.COL_MAJOR, Side.LEFT, JavaBLAS.flip(trans), n, m, k, A, ao, lda, tau, to, c, 0, ld);
+            stranspose(n, m, c, 0, ld, C, co, ldc);
+            return info;
+        }
+
+        // Q = H(1) H(2) ... H(k) so Q' * C applies H(1) first.
+        boolean forward = trans != Transpose.NO_TRANSPOSE;
+        JavaBLAS.range(0, n, (long) m * n * k).forEach(j -> {
+            int cj = co + j * ldc;
+            for (int s = 0; s < k; s++) {
+                int i = forward ? s : k - 1 - s;
+                slarf(m - i, A, ao + i + i * lda, tau[to + i], C, cj + i);
+            }
+        });
+
+        return 0;
+    }
+
+    /** Solves a triangular linear system. */
+    static int strtrs(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, int nrhs, float[] A, int ao, int lda, float[] B, int bo, int ldb) {
+        if (layout == Layout.ROW_MAJOR) {
+            float[] b = scolMajor(n, nrhs, B, bo, ldb);
+            int info = strtrs(Layout.COL_MAJOR, JavaBLAS.flip(uplo), JavaBLAS.flip(trans), diag, n, nrhs, A, ao, lda, b, 0, Math.max(1, n));
+            srowMajor(n, nrhs, b, B, bo, ldb);
+            return info;
+        }
+
+        if (diag == Diag.NON_UNIT) {
+            for (int i = 0; i < n; i++) {
+                if (A[ao + i + i * lda] == 0.0f) {
+                    return i + 1;
+                }
+            }
+        }
+
+        strsm(uplo, trans, diag, n, nrhs, A, ao, lda, B, bo, ldb);
+        return 0;
+    }
+
+    /** LU decomposition of a general band matrix in double precision. */
+    static int sgbtrf(Layout layout, int m, int n, int kl, int ku, float[] AB, int ao, int ldab, int[] ipiv, int po) {
+        double[] ab = toDouble(AB);
+        int info = dgbtrf(layout, m, n, kl, ku, ab, ao, ldab, ipiv, po);
+        toFloat(ab, AB);
+        return info;
+    }
+
+    /** Solves a general band linear system with the LU decomposition in double precision. */
+    static int sgbtrs(Layout layout, Transpose trans, int n, int kl, int ku, int nrhs, float[] AB, int ao, int ldab, int[] ipiv, int po, float[] B, int bo, int ldb) {
+        double[] b = toDouble(B);
+        int info = dgbtrs(layout, trans, n, kl, ku, nrhs, toDouble(AB), ao, ldab, ipiv, po, b, bo, ldb);
+        toFloat(b, B);
+        return info;
+    }
+
+    /** Solves a general band linear system with LU decomposition in double precision. */
+    static int sgbsv(Layout layout, int n, int kl, int ku, int nrhs, float[] AB, int ao, int ldab, int[] ipiv, int po, float[] B, int bo, int ldb) {
+        double[] ab = toDouble(AB);
+        double[] b = toDouble(B);
+        int info = dgbsv(layout, n, kl, ku, nrhs, ab, ao, ldab, ipiv, po, b, bo, ldb);
+        toFloat(ab, AB);
+        toFloat(b, B);
+        return info;
+    }
+
+    /** Cholesky decomposition of a symmetric positive definite band matrix in double precision. */
+    static int spbtrf(Layout layout, UPLO uplo, int n, int kd, float[] AB, int ao, int ldab) {
+        double[] ab = toDouble(AB);
+        int info = dpbtrf(layout, uplo, n, kd, ab, ao, ldab);
+        toFloat(ab, AB);
+        return info;
+    }
+
+    /** Solves a symmetric positive definite band linear system with the Cholesky decomposition in double precision. */
+    static int spbtrs(Layout layout, UPLO uplo, int n, int kd, int nrhs, float[] AB, int ao, int ldab, float[] B, int bo, int ldb) {
+        double[] b = toDouble(B);
+        int info = dpbtrs(layout, uplo, n, kd, nrhs, toDouble(AB), ao, ldab, b, bo, ldb);
+        toFloat(b, B);
+        return info;
+    }
+
+    /** Solves a symmetric positive definite band linear system with Cholesky decomposition in double precision. */
+    static int spbsv(Layout layout, UPLO uplo, int n, int kd, int nrhs, float[] AB, int ao, int ldab, float[] B, int bo, int ldb) {
+        double[] ab = toDouble(AB);
+        double[] b = toDouble(B);
+        int info = dpbsv(layout, uplo, n, kd, nrhs, ab, ao, ldab, b, bo, ldb);
+        toFloat(ab, AB);
+        toFloat(b, B);
+        return info;
+    }
+
+    /** Cholesky decomposition of a symmetric positive definite packed matrix in double precision. */
+    static int spptrf(Layout layout, UPLO uplo, int n, float[] AP, int ao) {
+        double[] ap = toDouble(AP);
+        int info = dpptrf(layout, uplo, n, ap, ao);
+        toFloat(ap, AP);
+        return info;
+    }
+
+    /** Solves a symmetric positive definite packed linear system with the Cholesky decomposition in double precision. */
+    static int spptrs(Layout layout, UPLO uplo, int n, int nrhs, float[] AP, int ao, float[] B, int bo, int ldb) {
+        double[] b = toDouble(B);
+        int info = dpptrs(layout, uplo, n, nrhs, toDouble(AP), ao, b, bo, ldb);
+        toFloat(b, B);
+        return info;
+    }
+
+    /** Solves a symmetric positive definite packed linear system with Cholesky decomposition in double precision. */
+    static int sppsv(Layout layout, UPLO uplo, int n, int nrhs, float[] AP, int ao, float[] B, int bo, int ldb) {
+        double[] ap = toDouble(AP);
+        double[] b = toDouble(B);
+        int info = dppsv(layout, uplo, n, nrhs, ap, ao, b, bo, ldb);
+        toFloat(ap, AP);
+        toFloat(b, B);
+        return info;
+    }
+
+    /** Bunch-Kaufman decomposition of a symmetric indefinite packed matrix in double precision. */
+    static int ssptrf(Layout layout, UPLO uplo, int n, float[] AP, int ao, int[] ipiv, int po) {
+        double[] ap = toDouble(AP);
+        int info = dsptrf(layout, uplo, n, ap, ao, ipiv, po);
+        toFloat(ap, AP);
+        return info;
+    }
+
+    /** Solves a symmetric indefinite packed linear system with the Bunch-Kaufman decomposition in double precision. */
+    static int ssptrs(Layout layout, UPLO uplo, int n, int nrhs, float[] AP, int ao, int[] ipiv, int po, float[] B, int bo, int ldb) {
+        double[] b = toDouble(B);
+        int info = dsptrs(layout, uplo, n, nrhs, toDouble(AP), ao, ipiv, po, b, bo, ldb);
+        toFloat(b, B);
+        return info;
+    }
+
+    /** Solves a symmetric indefinite packed linear system with Bunch-Kaufman decomposition in double precision. */
+    static int sspsv(Layout layout, UPLO uplo, int n, int nrhs, float[] AP, int ao, int[] ipiv, int po, float[] B, int bo, int ldb) {
+        double[] ap = toDouble(AP);
+        double[] b = toDouble(B);
+        int info = dspsv(layout, uplo, n, nrhs, ap, ao, ipiv, po, b, bo, ldb);
+        toFloat(ap, AP);
+        toFloat(b, B);
+        return info;
+    }
+
+    /** Solves the overdetermined or underdetermined system in double precision. */
+    static int sgels(Layout layout, Transpose trans, int m, int n, int nrhs, float[] A, int ao, int lda, float[] B, int bo, int ldb) {
+        double[] a = toDouble(A);
+        double[] b = toDouble(B);
+        int info = dgels(layout, trans, m, n, nrhs, a, ao, lda, b, bo, ldb);
+        toFloat(a, A);
+        toFloat(b, B);
+        return info;
+    }
+
+    /** Computes the minimum norm least squares solution by SVD in double precision. */
+    static int sgelss(Layout layout, int m, int n, int nrhs, float[] A, int ao, int lda, float[] B, int bo, int ldb, float[] s, int so, float rcond, int[] rank, int ro) {
+        double[] a = toDouble(A);
+        double[] b = toDouble(B);
+        double[] sv = toDouble(s);
+        int info = dgelss(layout, m, n, nrhs, a, ao, lda, b, bo, ldb, sv, so, rcond < 0.0f ? Math.ulp(1.0f) : rcond, rank, ro);
+        toFloat(a, A);
+        toFloat(b, B);
+        toFloat(sv, s);
+        return info;
+    }
+
+    /** Computes the minimum norm least squares solution by QR with column pivoting in double precision. */
+    static int sgelsy(Layout layout, int m, int n, int nrhs, float[] A, int ao, int lda, float[] B, int bo, int ldb, int[] jpvt, int jo, float rcond, int[] rank, int ro) {
+        double[] a = toDouble(A);
+        double[] b = toDouble(B);
+        int info = dgelsy(layout, m, n, nrhs, a, ao, lda, b, bo, ldb, jpvt, jo, rcond, rank, ro);
+        toFloat(a, A);
+        toFloat(b, B);
+        return info;
+    }
+
+    /** Solves the linear equality-constrained least squares problem in double precision. */
+    static int sgglse(Layout layout, int m, int n, int p, float[] A, int ao, int lda, float[] B, int bo, int ldb,
+                      float[] c, int co, float[] d, int dof, float[] x, int xo) {
+        double[] cv = toDouble(c);
+        double[] xv = toDouble(x);
+        int info = dgglse(layout, m, n, p, toDouble(A), ao, lda, toDouble(B), bo, ldb, cv, co, toDouble(d), dof, xv, xo);
+        toFloat(cv, c);
+        toFloat(xv, x);
+        return info;
+    }
+
+    /** Solves the general Gauss-Markov linear model problem in double precision. */
+    static int sggglm(Layout layout, int n, int m, int p, float[] A, int ao, int lda, float[] B, int bo, int ldb,
+                      float[] d, int dof, float[] x, int xo, float[] y, int yo) {
+        double[] xv = toDouble(x);
+        double[] yv = toDouble(y);
+        int info = dggglm(layout, n, m, p, toDouble(A), ao, lda, toDouble(B), bo, ldb, toDouble(d), dof, xv, xo, yv, yo);
+        toFloat(xv, x);
+        toFloat(yv, y);
+        return info;
+    }
+
+    /** Computes the selected eigenvalues and eigenvectors of a symmetric matrix in double precision. */
+    static int ssyevr(Layout layout, EVDJob jobz, EigenRange range, UPLO uplo, int n, float[] A, int ao, int lda, float vl, float vu, int il, int iu,
+                      int[] m, int mo, float[] w, int wo, float[] Z, int zo, int ldz, int[] isuppz, int io) {
+        double[] a = toDouble(A);
+        double[] ev = toDouble(w);
+        double[] z = toDouble(Z);
+        int info = dsyevr(layout, jobz, range, uplo, n, a, ao, lda, vl, vu, il, iu, m, mo, ev, wo, z, zo, ldz, isuppz, io);
+        toFloat(a, A);
+        toFloat(ev, w);
+        toFloat(z, Z);
+        return info;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.math.matrix;
+
+import smile.math.blas.Transpose;
+import smile.util.SparseArray;
+
+/**
+ * A sparse matrix in compressed sparse row (CSR) format. It is the row
+ * oriented companion of {@link SparseMatrix}, which is column compressed.
+ * Nonzero values are stored row by row. The column indices corresponding
+ * to the values are also stored. Besides, a list of pointers are indexes
+ * where each row starts. This format is efficient for row slicing, e.g.
+ * scoring the samples of a sparse dataset with a linear model, and
+ * for matrix-vector products, of which the rows are processed in
+ * parallel on large matrices.
+ * <p>
+ * The arrays of a matrix in CSR format are the same as those of its
+ * transpose in CSC format. Therefore, the conversions between the
+ * formats are as cheap as a transpose.
+ *
+ * @author Haifeng Li
+ */
+public class CSRMatrix extends IMatrix {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of rows.
+     */
+    private final int m;
+    /**
+     * The number of columns.
+     */
+    private final int n;
+    /**
+     * The index of the start of rows.
+     */
+    private final int[] rowIndex;
+    /**
+     * The column indices of nonzero values.
+     */
+    private final int[] colIndex;
+    /**
+     * The array of nonzero values stored row by row.
+     */
+    private final double[] nonzeros;
+
+    /**
+     * Constructor.
+     * @param m the number of rows in the matrix.
+     * @param n the number of columns in the matrix.
+     * @param nonzeros the array of nonzero values stored row by row.
+     * @param colIndex the column indices of nonzero values.
+     * @param rowIndex the index of the start of rows.
+     */
+    public CSRMatrix(int m, int n, double[] nonzeros, int[] colIndex, int[] rowIndex) {
+        if (rowIndex.length != m + 1) {
+            throw new IllegalArgumentException(String.format("Invalid row index length: %d != %d", rowIndex.length, m + 1));
+        }
+
+        if (colIndex.length < rowIndex[m] || nonzeros.length < rowIndex[m]) {
+            throw new IllegalArgumentException(String.format("Invalid number of nonzeros: %d", rowIndex[m]));
+        }
+
+        this.m = m;
+        this.n = n;
+        this.rowIndex = rowIndex;
+        this.colIndex = colIndex;
+        this.nonzeros = nonzeros;
+    }
+
+    @Override
+    public CSRMatrix clone() {
+        return new CSRMatrix(m, n, nonzeros.clone(), colIndex.clone(), rowIndex.clone());
+    }
+
+    @Override
+    public int nrow() {
+        return m;
+    }
+
+    @Override
+    public int ncol() {
+        return n;
+    }
+
+    @Override
+    public long size() {
+        return rowIndex[m];
+    }
+
+    /**
+     * Returns the matrix in compressed sparse column format.
+     * @return the matrix in compressed sparse column format.
+     */
+    public SparseMatrix toCSC() {
+        return new SparseMatrix(n, m, nonzeros, colIndex, rowIndex).transpose();
+    }
+
+    /**
+     * Returns the transpose of matrix.
+     * @return the transpose of matrix.
+     */
+    public CSRMatrix transpose() {
+        return new SparseMatrix(n, m, nonzeros, colIndex, rowIndex).toCSR();
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (i < 0 || i >= m || j < 0 || j >= n) {
+            throw new IllegalArgumentException("Invalid index: row = " + i + " col = " + j);
+        }
+
+        for (int k = rowIndex[i]; k < rowIndex[i + 1]; k++) {
+            if (colIndex[k] == j) {
+                return nonzeros[k];
+            }
+        }
+
+        return 0.0;
+    }
+
+    /**
+     * Returns the i-th row.
+     * @param i the row index.
+     * @return the i-th row.
+     */
+    public SparseArray row(int i) {
+        SparseArray row = new SparseArray(rowIndex[i + 1] - rowIndex[i]);
+        for (int k = rowIndex[i]; k < rowIndex[i + 1]; k++) {
+            row.append(colIndex[k], nonzeros[k]);
+        }
+        return row;
+    }
+
+    /**
+     * Returns the dot product of the i-th row and a vector.
+     * @param i the row index.
+     * @param x the vector.
+     * @return the dot product.
+     */
+    public double dot(int i, double[] x) {
+        double s = 0.0;
+        for (int k = rowIndex[i]; k < rowIndex[i + 1]; k++) {
+            s += nonzeros[k] * x[colIndex[k]];
+        }
+        return s;
+    }
+
+    /**
+     * For each loop on non-zero elements. This will be a bit faster than
+     * iterating the rows by avoiding object creation.
+     *
+     * @param consumer The matrix element consumer.
+     */
+    public void forEachNonZero(DoubleConsumer consumer) {
+        forEachNonZero(0, m, consumer);
+    }
+
+    /**
+     * For each loop on non-zero elements in the given row range.
+     *
+     * @param beginRow The beginning row, inclusive.
+     * @param endRow   The end row, exclusive.
+     * @param consumer The matrix element consumer.
+     */
+    public void forEachNonZero(int beginRow, int endRow, DoubleConsumer consumer) {
+        if (beginRow < 0 || beginRow > m) {
+            throw new IllegalArgumentException("Invalid begin row: " + beginRow);
+        }
+
+        if (endRow < beginRow || endRow > m) {
+            throw new IllegalArgumentException("Invalid end row: " + endRow);
+        }
+
+        for (int i = beginRow; i < endRow; i++) {
+            for (int k = rowIndex[i]; k < rowIndex[i + 1]; k++) {
+                consumer.accept(i, colIndex[k], nonzeros[k]);
+            }
+        }
+    }
+
+    @Override
+    public void mv(Transpose trans, double alpha, double[] x, double beta, double[] y) {
+        int k = trans == Transpose.NO_TRANSPOSE ? m : n;
+        double[] ax = beta == 0.0 ? y : new double[k];
+
+        if (trans == Transpose.NO_TRANSPOSE) {
+            SparseMatrix.gather(m, rowIndex, colIndex, nonzeros, x, 0, ax, 0);
+        } else {
+            SparseMatrix.scatter(m, n, rowIndex, colIndex, nonzeros, x, 0, ax, 0);
+        }
+
+        if (beta != 0.0 || alpha != 1.0) {
+            for (int i = 0; i < k; i++) {
+                y[i] = alpha * ax[i] + beta * y[i];
+            }
+        }
+    }
+
+    @Override
+    public void mv(double[] work, int inputOffset, int outputOffset) {
+        SparseMatrix.gather(m, rowIndex, colIndex, nonzeros, work, inputOffset, work, outputOffset);
+    }
+
+    @Override
+    public void tv(double[] work, int inputOffset, int outputOffset) {
+        SparseMatrix.scatter(m, n, rowIndex, colIndex, nonzeros, work, inputOffset, work, outputOffset);
+    }
+
+    @Override
+    public double[] diag() {
+        int n = Math.min(m, this.n);
+        double[] d = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            for (int k = rowIndex[i]; k < rowIndex[i + 1]; k++) {
+                if (colIndex[k] == i) {
+                    d[i] = nonzeros[k];
+                    break;
+                }
+            }
+        }
+
+        return d;
+    }
+}
@@ -161,6 +161,28 @@ public class Matrix extends IMatrix {
         return matrix;
     }
 
+    /**
+     * Returns a double precision copy of a single precision matrix.
+     * The column and row names are kept.
+     * @param A the single precision matrix.
+     * @return the double precision matrix.
+     */
+    public static Matrix of(smile.math.matrix.fp32.Matrix A) {
+        int m = A.nrow();
+        int n = A.ncol();
+        Matrix matrix = new Matrix(m, n);
+        matrix.colNames(A.colNames());
+        matrix.rowNames(A.rowNames());
+
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                matrix.set(i, j, A.get(i, j));
+            }
+        }
+
+        return matrix;
+    }
+
     /**
      * Returns a column vector/matrix.
      * @param A the column vector.
@@ -1821,6 +1843,33 @@ public class Matrix extends IMatrix {
         }
     }
 
+    /**
+     * Randomized truncated singular value decomposition, which computes
+     * the k largest singular triples with 10 oversamples and 2 power
+     * iterations. It is much faster than the full decomposition when
+     * k is much smaller than the matrix dimensions.
+     *
+     * @param k the number of singular triples to compute.
+     * @return truncated singular value decomposition.
+     * @see RandomizedSVD
+     */
+    public SVD rsvd(int k) {
+        return RandomizedSVD.of(this, k);
+    }
+
+    /**
+     * Randomized truncated singular value decomposition.
+     *
+     * @param k the number of singular triples to compute.
+     * @param p the number of oversamples.
+     * @param q the number of power iterations.
+     * @return truncated singular value decomposition.
+     * @see RandomizedSVD
+     */
+    public SVD rsvd(int k, int p, int q) {
+        return RandomizedSVD.of(this, k, p, q);
+    }
+
     /**
      * Eigenvalue Decomposition. For a symmetric matrix, all eigenvalues are
      * real values. Otherwise, the eigenvalues may be complex numbers.
@@ -1950,6 +1999,22 @@ public class Matrix extends IMatrix {
             this.V = null;
         }
 
+        /**
+         * Constructor of the decomposition without left singular vectors,
+         * e.g. of a matrix too tall to keep them in memory.
+         * @param m the number of rows of matrix.
+         * @param n the number of columns of matrix.
+         * @param s the singular values in descending order.
+         * @param V the right singular vectors.
+         */
+        public SVD(int m, int n, double[] s, Matrix V) {
+            this.m = m;
+            this.n = n;
+            this.s = s;
+            this.U = null;
+            this.V = V;
+        }
+
         /**
          * Constructor.
          * @param s the singular values in descending order.
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.math.matrix;
+
+/**
+ * The floating-point precision of matrix computation. Single precision
+ * halves the memory footprint of matrices and doubles the throughput of
+ * BLAS and LAPACK routines, at the cost of about 7 significant digits.
+ * It is suitable for the training on large, noisy or standardized data
+ * where the accuracy of double precision is not needed.
+ *
+ * @author Haifeng Li
+ */
+public enum Precision {
+    /** Single precision (32-bit) floating-point number. */
+    FLOAT,
+    /** Double precision (64-bit) floating-point number. */
+    DOUBLE
+}
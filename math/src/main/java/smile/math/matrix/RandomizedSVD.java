@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.math.matrix;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import smile.math.blas.Transpose;
+
+import static smile.math.blas.Transpose.NO_TRANSPOSE;
+import static smile.math.blas.Transpose.TRANSPOSE;
+import static smile.math.blas.UPLO.LOWER;
+
+/**
+ * Randomized truncated singular value decomposition. The randomized range
+ * finder of Halko, Martinsson and Tropp multiplies the matrix with a
+ * Gaussian random matrix of k + p columns, where p is the oversampling
+ * parameter, and orthonormalizes the product to get a basis Q that
+ * captures the dominant range of the matrix. A few power iterations
+ * with the matrix and its transpose sharpen the basis when the singular
+ * values decay slowly. The k largest singular triples are then computed
+ * from the small matrix Q' * A with dense SVD.
+ * <p>
+ * Different from {@link ARPACK#svd(IMatrix, int)}, which performs one
+ * matrix-vector product per iteration, the algorithm works on blocks of
+ * vectors. The products with dense matrices go through multithreaded
+ * BLAS. For sparse matrices, the columns of the block are multiplied in
+ * parallel. For data that don't fit in memory, the algorithm also runs
+ * on a sequence of row blocks, which are scanned once per power iteration.
+ * Optionally, the matrix is centered by columns implicitly, which keeps
+ * the sparsity of input in principal component analysis.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li>N. Halko, P. G. Martinsson, and J. A. Tropp. Finding structure with randomness: Probabilistic algorithms for constructing approximate matrix decompositions. SIAM Review, 53(2):217-288, 2011.</li>
+ * </ol>
+ *
+ * @author Haifeng Li
+ */
+public class RandomizedSVD {
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(RandomizedSVD.class);
+
+    /** Private constructor to prevent object creation. */
+    private RandomizedSVD() {
+
+    }
+
+    /**
+     * Computes k largest approximate singular triples of a matrix
+     * with 10 oversamples and 2 power iterations.
+     *
+     * @param A the matrix to decompose.
+     * @param k the number of singular triples to compute.
+     * @return the singular value decomposition.
+     */
+    public static Matrix.SVD of(IMatrix A, int k) {
+        return of(A, k, 10, 2);
+    }
+
+    /**
+     * Computes k largest approximate singular triples of a matrix.
+     *
+     * @param A the matrix to decompose.
+     * @param k the number of singular triples to compute.
+     * @param p the number of oversamples.
+     * @param q the number of power iterations.
+     * @return the singular value decomposition.
+     */
+    public static Matrix.SVD of(IMatrix A, int k, int p, int q) {
+        return of(A, null, k, p, q);
+    }
+
+    /**
+     * Computes k largest approximate singular triples of a matrix,
+     * which is optionally centered by columns. The centered matrix
+     * {@code A - 1 * center'} is never formed explicitly.
+     *
+     * @param A the matrix to decompose.
+     * @param center the column center to subtract. If null, the matrix
+     *               is decomposed as is.
+     * @param k the number of singular triples to compute.
+     * @param p the number of oversamples.
+     * @param q the number of power iterations.
+     * @return the singular value decomposition.
+     */
+    public static Matrix.SVD of(IMatrix A, double[] center, int k, int p, int q) {
+        int m = A.nrow();
+        int n = A.ncol();
+        int l = sketch(m, n, center, k, p, q);
+
+        // Works on the transpose of wide matrices so that the
+        // projected matrix B = Q' * op(A) is small.
+        Transpose trans = m >= n ? NO_TRANSPOSE : TRANSPOSE;
+        Transpose flip = m >= n ? TRANSPOSE : NO_TRANSPOSE;
+        int N = Math.min(m, n);
+
+        Matrix Q = orthonormalize(product(A, trans, center, Matrix.randn(N, l)));
+        for (int iter = 0; iter < q; iter++) {
+            Matrix Z = orthonormalize(product(A, flip, center, Q));
+            Q = orthonormalize(product(A, trans, center, Z));
+        }
+
+        // B' = op(A)' * Q = Ub * S * Vb', so that op(A) = (Q * Vb) * S * Ub'.
+        Matrix.SVD svd = product(A, flip, center, Q).svd(true, true);
+        Matrix U = Q.mm(svd.V).submatrix(0, 0, Q.nrow() - 1, k - 1);
+        Matrix V = svd.U.submatrix(0, 0, N - 1, k - 1);
+        double[] s = Arrays.copyOf(svd.s, k);
+
+        return m >= n ? new Matrix.SVD(s, U, V) : new Matrix.SVD(s, V, U);
+    }
+
+    /**
+     * Computes k largest approximate singular values and right singular
+     * vectors of a matrix stored as a sequence of row blocks with 10
+     * oversamples and 2 power iterations.
+     *
+     * @param blocks the row blocks of matrix, which may be iterated
+     *               multiple times, e.g. read from disk on each pass.
+     * @param k the number of singular triples to compute.
+     * @return the singular value decomposition without left singular vectors.
+     */
+    public static Matrix.SVD of(Iterable<Matrix> blocks, int k) {
+        return of(blocks, null, k, 10, 2);
+    }
+
+    /**
+     * Computes k largest approximate singular values and right singular
+     * vectors of a matrix stored as a sequence of row blocks, which is
+     * optionally centered by columns. As the left singular vectors are
+     * as tall as the matrix, they are not computed. Each power iteration
+     * scans the blocks once and works on the normal matrix {@code A' * A}
+     * so that only matrices of n rows are kept in memory.
+     *
+     * @param blocks the row blocks of matrix, which may be iterated
+     *               multiple times, e.g. read from disk on each pass.
+     * @param center the column center to subtract. If null, the matrix
+     *               is decomposed as is.
+     * @param k the number of singular triples to compute.
+     * @param p the number of oversamples.
+     * @param q the number of power iterations.
+     * @return the singular value decomposition without left singular vectors.
+     */
+    public static Matrix.SVD of(Iterable<Matrix> blocks, double[] center, int k, int p, int q) {
+        int m = 0;
+        int n = -1;
+        for (Matrix block : blocks) {
+            if (n < 0) {
+                n = block.ncol();
+            } else if (block.ncol() != n) {
+                throw new IllegalArgumentException(String.format("Row blocks have different number of columns: %d != %d", block.ncol(), n));
+            }
+            m += block.nrow();
+        }
+
+        if (n < 0) {
+            throw new IllegalArgumentException("Empty row blocks");
+        }
+
+        int l = sketch(m, n, center, k, p, q);
+
+        Matrix Z = gram(blocks, center, Matrix.randn(n, l));
+        for (int iter = 0; iter < q; iter++) {
+            Z = gram(blocks, center, orthonormalize(Z));
+        }
+
+        // Rayleigh-Ritz projection of A' * A on the basis Q.
+        Matrix Q = orthonormalize(Z);
+        Matrix G = Q.tm(gram(blocks, center, Q));
+        for (int j = 0; j < l; j++) {
+            for (int i = 0; i < j; i++) {
+                double g = 0.5 * (G.get(i, j) + G.get(j, i));
+                G.set(i, j, g);
+                G.set(j, i, g);
+            }
+        }
+
+        G.uplo(LOWER);
+        Matrix.EVD eigen = G.eigen(false, true, true).sort();
+        double[] s = new double[k];
+        for (int i = 0; i < k; i++) {
+            s[i] = Math.sqrt(Math.max(eigen.wr[i], 0.0));
+        }
+
+        Matrix V = Q.mm(eigen.Vr.submatrix(0, 0, l - 1, k - 1));
+        return new Matrix.SVD(m, n, s, V);
+    }
+
+    /**
+     * Validates the parameters and returns the number of sketch vectors.
+     */
+    private static int sketch(int m, int n, double[] center, int k, int p, int q) {
+        if (k < 1 || k > Math.min(m, n)) {
+            throw new IllegalArgumentException("Invalid number of singular triples: " + k);
+        }
+
+        if (p < 0) {
+            throw new IllegalArgumentException("Invalid number of oversamples: " + p);
+        }
+
+        if (q < 0) {
+            throw new IllegalArgumentException("Invalid number of power iterations: " + q);
+        }
+
+        if (center != null && center.length != n) {
+            throw new IllegalArgumentException(String.format("Invalid center vector size: %d, expected: %d", center.length, n));
+        }
+
+        int l = Math.min(k + p, Math.min(m, n));
+        logger.info("Randomized SVD of {} x {} matrix with {} sketch vectors and {} power iterations", m, n, l, q);
+        return l;
+    }
+
+    /**
+     * Returns the orthonormal basis of the column space.
+     */
+    private static Matrix orthonormalize(Matrix Y) {
+        return Y.qr(true).Q();
+    }
+
+    /**
+     * Returns op(A - 1 * center') * B. The products with dense matrices
+     * are computed by BLAS. Otherwise, the columns of B are multiplied
+     * in parallel if the matrix-vector product of A is thread safe.
+     */
+    private static Matrix product(IMatrix A, Transpose trans, double[] center, Matrix B) {
+        int rows = trans == NO_TRANSPOSE ? A.nrow() : A.ncol();
+        int cols = B.ncol();
+        Matrix C = new Matrix(rows, cols);
+
+        if (A instanceof Matrix) {
+            C.mm(trans, (Matrix) A, NO_TRANSPOSE, B);
+        } else {
+            IntStream stream = IntStream.range(0, cols);
+            if (A instanceof SparseMatrix || A instanceof CSRMatrix) {
+                stream = stream.parallel();
+            }
+
+            stream.forEach(j -> {
+                double[] y = new double[rows];
+                A.mv(trans, 1.0, B.col(j), 0.0, y);
+                for (int i = 0; i < rows; i++) {
+                    C.set(i, j, y[i]);
+                }
+            });
+        }
+
+        if (center != null) {
+            for (int j = 0; j < cols; j++) {
+                if (trans == NO_TRANSPOSE) {
+                    double c = 0.0;
+                    for (int i = 0; i < center.length; i++) {
+                        c += center[i] * B.get(i, j);
+                    }
+                    for (int i = 0; i < rows; i++) {
+                        C.sub(i, j, c);
+                    }
+                } else {
+                    double c = 0.0;
+                    for (int i = 0; i < B.nrow(); i++) {
+                        c += B.get(i, j);
+                    }
+                    for (int i = 0; i < rows; i++) {
+                        C.sub(i, j, center[i] * c);
+                    }
+                }
+            }
+        }
+
+        return C;
+    }
+
+    /**
+     * Returns (A - 1 * center')' * (A - 1 * center') * X by scanning
+     * the row blocks of A once.
+     */
+    private static Matrix gram(Iterable<Matrix> blocks, double[] center, Matrix X) {
+        Matrix Z = new Matrix(X.nrow(), X.ncol());
+        for (Matrix block : blocks) {
+            Matrix Y = product(block, NO_TRANSPOSE, center, X);
+            Z.add(product(block, TRANSPOSE, center, Y));
+        }
+        return Z;
+    }
+}
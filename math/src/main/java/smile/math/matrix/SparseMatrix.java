@@ -22,6 +22,8 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -58,12 +60,22 @@ import static java.util.Spliterator.*;
  * The direct functional API is faster (and is about as fast as writing the
  * low-level loops against the internals of the matrix itself) while the
  * streaming interface is more flexible.
+ * <p>
+ * The matrix-vector and matrix-matrix products run in parallel on large
+ * matrices, with the columns partitioned by the number of nonzeros.
+ * For row-wise access, convert the matrix to {@link CSRMatrix} with
+ * {@link #toCSR()}.
  *
  * @author Haifeng Li
  */
 public class SparseMatrix extends IMatrix implements Iterable<SparseMatrix.Entry> {
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(SparseMatrix.class);
     private static final long serialVersionUID = 2L;
+    /**
+     * The minimum number of nonzeros or multiply-adds to run
+     * the matrix products in parallel.
+     */
+    static final int PARALLEL_WORK = 1 << 16;
 
     /**
      * The number of rows.
@@ -373,25 +385,12 @@ public class SparseMatrix extends IMatrix implements Iterable<SparseMatrix.Entry
     @Override
     public void mv(Transpose trans, double alpha, double[] x, double beta, double[] y) {
         int k = trans == Transpose.NO_TRANSPOSE ? m : n;
-        double[] ax = y;
-        if (beta == 0.0) {
-            Arrays.fill(y, 0.0);
-        } else {
-            ax = new double[k];
-        }
+        double[] ax = beta == 0.0 ? y : new double[k];
 
         if (trans == Transpose.NO_TRANSPOSE) {
-            for (int j = 0; j < n; j++) {
-                for (int i = colIndex[j]; i < colIndex[j + 1]; i++) {
-                    ax[rowIndex[i]] += nonzeros[i] * x[j];
-                }
-            }
+            scatter(n, m, colIndex, rowIndex, nonzeros, x, 0, ax, 0);
         } else {
-            for (int i = 0; i < n; i++) {
-                for (int j = colIndex[i]; j < colIndex[i + 1]; j++) {
-                    ax[i] += nonzeros[j] * x[rowIndex[j]];
-                }
-            }
+            gather(n, colIndex, rowIndex, nonzeros, x, 0, ax, 0);
         }
 
         if (beta != 0.0 || alpha != 1.0) {
@@ -403,24 +402,12 @@ public class SparseMatrix extends IMatrix implements Iterable<SparseMatrix.Entry
 
     @Override
     public void mv(double[] work, int inputOffset, int outputOffset) {
-        Arrays.fill(work, outputOffset, outputOffset + m, 0.0);
-
-        for (int j = 0; j < n; j++) {
-            for (int i = colIndex[j]; i < colIndex[j + 1]; i++) {
-                work[outputOffset + rowIndex[i]] += nonzeros[i] * work[inputOffset + j];
-            }
-        }
+        scatter(n, m, colIndex, rowIndex, nonzeros, work, inputOffset, work, outputOffset);
     }
 
     @Override
     public void tv(double[] work, int inputOffset, int outputOffset) {
-        Arrays.fill(work, outputOffset, outputOffset + n, 0.0);
-
-        for (int i = 0; i < n; i++) {
-            for (int j = colIndex[i]; j < colIndex[i + 1]; j++) {
-                work[outputOffset + i] += nonzeros[j] * work[inputOffset + rowIndex[j]];
-            }
-        }
+        gather(n, colIndex, rowIndex, nonzeros, work, inputOffset, work, outputOffset);
     }
 
     /**
@@ -457,7 +444,24 @@ public class SparseMatrix extends IMatrix implements Iterable<SparseMatrix.Entry
     }
 
     /**
-     * Returns the matrix multiplication C = A * B.
+     * Returns the matrix in compressed sparse row format, which
+     * provides efficient row access.
+     * @return the matrix in compressed sparse row format.
+     */
+    public CSRMatrix toCSR() {
+        SparseMatrix trans = transpose();
+        return new CSRMatrix(m, n, trans.nonzeros, trans.rowIndex, trans.colIndex);
+    }
+
+    /**
+     * Returns the matrix multiplication C = A * B. The product is
+     * computed in two phases. The symbolic phase determines the sparsity
+     * pattern of C and the numeric phase fills in the values. Both phases
+     * run in parallel on the columns of B. The row indices of each column
+     * of C are sorted. To compute products of matrices with the same
+     * sparsity patterns repeatedly, pass the result to
+     * {@link #mm(SparseMatrix, SparseMatrix)} to skip the symbolic phase.
+     *
      * @param B the operand.
      * @return the multiplication.
      */
@@ -467,74 +471,137 @@ public class SparseMatrix extends IMatrix implements Iterable<SparseMatrix.Entry
         }
 
         int n = B.n;
-        int anz = colIndex[n];
         int[] Bp = B.colIndex;
         int[] Bi = B.rowIndex;
-        double[] Bx = B.nonzeros;
-        int bnz = Bp[n];
-
-        int[] w = new int[m];
-        double[] abj = new double[m];
-
-        int nzmax = Math.max(anz + bnz, m);
-
-        SparseMatrix C = new SparseMatrix(m, n, nzmax);
-        int[] Cp = C.colIndex;
-        int[] Ci = C.rowIndex;
-        double[] Cx = C.nonzeros;
-
-        int nz = 0;
-        for (int j = 0; j < n; j++) {
-            if (nz + m > nzmax) {
-                nzmax = 2 * nzmax + m;
-                double[] Cx2 = new double[nzmax];
-                int[] Ci2 = new int[nzmax];
-                System.arraycopy(Ci, 0, Ci2, 0, nz);
-                System.arraycopy(Cx, 0, Cx2, 0, nz);
-                Ci = Ci2;
-                Cx = Cx2;
-                C = new SparseMatrix(m, n, Cx2, Ci2, Cp);
-            }
-
-            // column j of C starts here
-            Cp[j] = nz;
-
-            for (int p = Bp[j]; p < Bp[j + 1]; p++) {
-                nz = scatter(this, Bi[p], Bx[p], w, abj, j + 1, C, nz);
+        int[] bounds = partition(Bp, n, 4 * parallelism(flops(B)));
+
+        // Symbolic phase: count the nonzeros of each column of C.
+        int[] Cp = new int[n + 1];
+        IntStream.range(0, bounds.length - 1).parallel().forEach(part -> {
+            int[] w = new int[m];
+            Arrays.fill(w, -1);
+            for (int j = bounds[part]; j < bounds[part + 1]; j++) {
+                int nz = 0;
+                for (int p = Bp[j]; p < Bp[j + 1]; p++) {
+                    int k = Bi[p];
+                    for (int q = colIndex[k]; q < colIndex[k + 1]; q++) {
+                        int i = rowIndex[q];
+                        if (w[i] != j) {
+                            w[i] = j;
+                            nz++;
+                        }
+                    }
+                }
+                Cp[j + 1] = nz;
             }
+        });
 
-            for (int p = Cp[j]; p < nz; p++) {
-                Cx[p] = abj[Ci[p]];
+        long nnz = 0;
+        for (int j = 0; j < n; j++) {
+            nnz += Cp[j + 1];
+            if (nnz > Integer.MAX_VALUE) {
+                throw new UnsupportedOperationException("Too many nonzeros in the product matrix");
+            }
+            Cp[j + 1] = (int) nnz;
+        }
+
+        // Symbolic phase: fill in the sorted row indices of C.
+        int[] Ci = new int[(int) nnz];
+        IntStream.range(0, bounds.length - 1).parallel().forEach(part -> {
+            int[] w = new int[m];
+            Arrays.fill(w, -1);
+            for (int j = bounds[part]; j < bounds[part + 1]; j++) {
+                int nz = Cp[j];
+                for (int p = Bp[j]; p < Bp[j + 1]; p++) {
+                    int k = Bi[p];
+                    for (int q = colIndex[k]; q < colIndex[k + 1]; q++) {
+                        int i = rowIndex[q];
+                        if (w[i] != j) {
+                            w[i] = j;
+                            Ci[nz++] = i;
+                        }
+                    }
+                }
+                Arrays.sort(Ci, Cp[j], nz);
             }
-        }
-
-        // finalize the last column of C
-        Cp[n] = nz;
+        });
 
+        SparseMatrix C = new SparseMatrix(m, n, new double[(int) nnz], Ci, Cp);
+        mm(B, C);
         return C;
     }
 
     /**
-     * x = x + beta * A(:,j), where x is a dense vector and A(:,j) is sparse.
+     * Computes the matrix multiplication C = A * B in the sparsity pattern
+     * of C. This is the numeric phase of {@link #mm(SparseMatrix)}, which
+     * only updates the nonzero values of C. The sparsity pattern of C must
+     * contain that of A * B, e.g. C is the result of a previous product of
+     * matrices with the same sparsity patterns as A and B.
+     *
+     * @param B the operand.
+     * @param C the product matrix, of which the nonzero values are overwritten.
      */
-    private static int scatter(SparseMatrix A, int j, double beta, int[] w, double[] x, int mark, SparseMatrix C, int nz) {
-        int[] Ap = A.colIndex;
-        int[] Ai = A.rowIndex;
-        double[] Ax = A.nonzeros;
+    public void mm(SparseMatrix B, SparseMatrix C) {
+        if (n != B.m) {
+            throw new IllegalArgumentException(String.format("Matrix dimensions do not match for matrix multiplication: %d x %d vs %d x %d", nrow(), ncol(), B.nrow(), B.ncol()));
+        }
+
+        if (C.m != m || C.n != B.n) {
+            throw new IllegalArgumentException(String.format("Invalid product matrix dimensions: %d x %d, expected %d x %d", C.nrow(), C.ncol(), m, B.n));
+        }
 
+        int n = B.n;
+        int[] Bp = B.colIndex;
+        int[] Bi = B.rowIndex;
+        double[] Bx = B.nonzeros;
+        int[] Cp = C.colIndex;
         int[] Ci = C.rowIndex;
-        for (int p = Ap[j]; p < Ap[j + 1]; p++) {
-            int i = Ai[p];                // A(i,j) is nonzero
-            if (w[i] < mark) {
-                w[i] = mark;              // i is new entry in column j
-                Ci[nz++] = i;             // add i to pattern of C(:,j)
-                x[i] = beta * Ax[p];      // x(i) = beta*A(i,j)
-            } else {
-                x[i] += beta * Ax[p];     // i exists in C(:,j) already
+        double[] Cx = C.nonzeros;
+        int[] bounds = partition(Bp, n, 4 * parallelism(flops(B)));
+
+        IntStream.range(0, bounds.length - 1).parallel().forEach(part -> {
+            int[] w = new int[m];
+            double[] x = new double[m];
+            Arrays.fill(w, -1);
+            for (int j = bounds[part]; j < bounds[part + 1]; j++) {
+                for (int p = Cp[j]; p < Cp[j + 1]; p++) {
+                    int i = Ci[p];
+                    w[i] = j;
+                    x[i] = 0.0;
+                }
+
+                for (int p = Bp[j]; p < Bp[j + 1]; p++) {
+                    int k = Bi[p];
+                    double b = Bx[p];
+                    for (int q = colIndex[k]; q < colIndex[k + 1]; q++) {
+                        int i = rowIndex[q];
+                        if (w[i] != j) {
+                            throw new IllegalArgumentException(String.format("The sparsity pattern of product matrix has no entry (%d, %d)", i, j));
+                        }
+                        x[i] += nonzeros[q] * b;
+                    }
+                }
+
+                for (int p = Cp[j]; p < Cp[j + 1]; p++) {
+                    Cx[p] = x[Ci[p]];
+                }
             }
-        }
+        });
+    }
 
-        return nz;
+    /**
+     * Returns the number of multiply-adds in the product A * B.
+     * @param B the operand.
+     * @return the number of multiply-adds.
+     */
+    private long flops(SparseMatrix B) {
+        long flops = 0;
+        int nnz = B.colIndex[B.n];
+        for (int p = 0; p < nnz; p++) {
+            int k = B.rowIndex[p];
+            flops += colIndex[k + 1] - colIndex[k];
+        }
+        return flops;
     }
 
     /**
@@ -542,8 +609,7 @@ public class SparseMatrix extends IMatrix implements Iterable<SparseMatrix.Entry
      * @return {@code A' * A}
      */
     public SparseMatrix ata() {
-        SparseMatrix AT = transpose();
-        return AT.aat(this);
+        return transpose().mm(this);
     }
 
     /**
@@ -551,86 +617,122 @@ public class SparseMatrix extends IMatrix implements Iterable<SparseMatrix.Entry
      * @return {@code A * A'}
      */
     public SparseMatrix aat() {
-        SparseMatrix AT = transpose();
-        return aat(AT);
+        return mm(transpose());
     }
 
-    /** Returns A * A' */
-    private SparseMatrix aat(SparseMatrix AT) {
-        int[] done = new int[m];
-        for (int i = 0; i < m; i++) {
-            done[i] = -1;
-        }
-
-        // First pass determines the number of nonzeros.
-        int nvals = 0;
-        // Outer loop over columns of A' in AA'
-        for (int j = 0; j < m; j++) {
-            for (int i = AT.colIndex[j]; i < AT.colIndex[j + 1]; i++) {
-                int k = AT.rowIndex[i];
-                for (int l = colIndex[k]; l < colIndex[k + 1]; l++) {
-                    int h = rowIndex[l];
-                    // Test if contribution already included.
-                    if (done[h] != j) {
-                        done[h] = j;
-                        nvals++;
-                    }
-                }
-            }
-        }
+    /**
+     * Returns the number of parallel tasks for the given amount of work.
+     * @param work the number of nonzeros or multiply-adds.
+     * @return the number of parallel tasks.
+     */
+    static int parallelism(long work) {
+        return work < PARALLEL_WORK ? 1 : ForkJoinPool.getCommonPoolParallelism();
+    }
 
-        SparseMatrix aat = new SparseMatrix(m, m, nvals);
+    /**
+     * Partitions the compressed vectors into contiguous ranges of
+     * about the same number of nonzeros.
+     * @param ptr the index of the start of compressed vectors.
+     * @param n the number of compressed vectors.
+     * @param parts the maximum number of partitions.
+     * @return the boundaries of partitions.
+     */
+    static int[] partition(int[] ptr, int n, int parts) {
+        parts = Math.max(1, Math.min(parts, n));
+        int[] bounds = new int[parts + 1];
+        bounds[parts] = n;
 
-        nvals = 0;
-        for (int i = 0; i < m; i++) {
-            done[i] = -1;
+        long nnz = ptr[n];
+        for (int k = 1; k < parts; k++) {
+            int target = (int) (nnz * k / parts);
+            int j = Arrays.binarySearch(ptr, 0, n + 1, target);
+            if (j < 0) j = -j - 2;
+            bounds[k] = Math.max(bounds[k - 1], Math.min(j, n));
         }
 
-        // Second pass determines columns of aat. Code is identical to first
-        // pass except colIndex and rowIndex get assigned at appropriate places.
-        for (int j = 0; j < m; j++) {
-            aat.colIndex[j] = nvals;
-            for (int i = AT.colIndex[j]; i < AT.colIndex[j + 1]; i++) {
-                int k = AT.rowIndex[i];
-                for (int l = colIndex[k]; l < colIndex[k + 1]; l++) {
-                    int h = rowIndex[l];
-                    if (done[h] != j) {
-                        done[h] = j;
-                        aat.rowIndex[nvals] = h;
-                        nvals++;
-                    }
+        return bounds;
+    }
+
+    /**
+     * Computes y = A * x, where each element of y is the dot product
+     * of x and a compressed vector of A, i.e. the product of matrix
+     * in CSR format or the transpose of matrix in CSC format. The
+     * compressed vectors are processed in parallel.
+     *
+     * @param n the number of compressed vectors.
+     * @param ptr the index of the start of compressed vectors.
+     * @param index the indices of nonzero values.
+     * @param values the nonzero values.
+     * @param x the input vector.
+     * @param xOffset the offset of input vector.
+     * @param y the output vector.
+     * @param yOffset the offset of output vector.
+     */
+    static void gather(int n, int[] ptr, int[] index, double[] values, double[] x, int xOffset, double[] y, int yOffset) {
+        int[] bounds = partition(ptr, n, 4 * parallelism(ptr[n]));
+        IntStream.range(0, bounds.length - 1).parallel().forEach(part -> {
+            for (int j = bounds[part]; j < bounds[part + 1]; j++) {
+                double s = 0.0;
+                for (int p = ptr[j]; p < ptr[j + 1]; p++) {
+                    s += values[p] * x[xOffset + index[p]];
                 }
+                y[yOffset + j] = s;
             }
-        }
+        });
+    }
 
-        // Set last value.
-        aat.colIndex[m] = nvals;
+    /**
+     * Computes y = A * x, where y is the linear combination of the
+     * compressed vectors of A, i.e. the product of matrix in CSC format
+     * or the transpose of matrix in CSR format. In parallel, each task
+     * accumulates a range of compressed vectors in a private buffer,
+     * which are summed at the end. The number of tasks is limited so
+     * that each of them has at least as many nonzeros as the length
+     * of y.
+     *
+     * @param n the number of compressed vectors.
+     * @param m the length of output vector.
+     * @param ptr the index of the start of compressed vectors.
+     * @param index the indices of nonzero values.
+     * @param values the nonzero values.
+     * @param x the input vector.
+     * @param xOffset the offset of input vector.
+     * @param y the output vector.
+     * @param yOffset the offset of output vector.
+     */
+    static void scatter(int n, int m, int[] ptr, int[] index, double[] values, double[] x, int xOffset, double[] y, int yOffset) {
+        int parts = Math.min(parallelism(ptr[n]), ptr[n] / Math.max(m, 1));
+        int[] bounds = partition(ptr, n, parts);
 
-        // Sort columns.
-        for (int j = 0; j < m; j++) {
-            if (aat.colIndex[j + 1] - aat.colIndex[j] > 1) {
-                Arrays.sort(aat.rowIndex, aat.colIndex[j], aat.colIndex[j + 1]);
+        if (bounds.length == 2) {
+            Arrays.fill(y, yOffset, yOffset + m, 0.0);
+            for (int j = 0; j < n; j++) {
+                double b = x[xOffset + j];
+                for (int p = ptr[j]; p < ptr[j + 1]; p++) {
+                    y[yOffset + index[p]] += values[p] * b;
+                }
             }
+            return;
         }
 
-        double[] temp = new double[m];
-        for (int i = 0; i < m; i++) {
-            for (int j = AT.colIndex[i]; j < AT.colIndex[i + 1]; j++) {
-                int k = AT.rowIndex[j];
-                for (int l = colIndex[k]; l < colIndex[k + 1]; l++) {
-                    int h = rowIndex[l];
-                    temp[h] += AT.nonzeros[j] * nonzeros[l];
+        double[][] buffer = new double[bounds.length - 1][m];
+        IntStream.range(0, buffer.length).parallel().forEach(part -> {
+            double[] z = buffer[part];
+            for (int j = bounds[part]; j < bounds[part + 1]; j++) {
+                double b = x[xOffset + j];
+                for (int p = ptr[j]; p < ptr[j + 1]; p++) {
+                    z[index[p]] += values[p] * b;
                 }
             }
+        });
 
-            for (int j = aat.colIndex[i]; j < aat.colIndex[i + 1]; j++) {
-                int k = aat.rowIndex[j];
-                aat.nonzeros[j] = temp[k];
-                temp[k] = 0.0;
+        IntStream.range(0, m).parallel().forEach(i -> {
+            double s = 0.0;
+            for (double[] z : buffer) {
+                s += z[i];
             }
-        }
-
-        return aat;
+            y[yOffset + i] = s;
+        });
     }
 
     @Override
@@ -0,0 +1,847 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.math.matrix;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import smile.math.blas.LAPACK;
+import smile.math.blas.Transpose;
+
+import static smile.math.blas.Diag.NON_UNIT;
+import static smile.math.blas.Layout.COL_MAJOR;
+import static smile.math.blas.Transpose.NO_TRANSPOSE;
+import static smile.math.blas.Transpose.TRANSPOSE;
+import static smile.math.blas.UPLO.LOWER;
+
+/**
+ * Big dense matrix stored out of core in square tiles of a file.
+ * Different from {@link BigMatrix}, which keeps all elements in a single
+ * off-heap buffer, the tiles are memory-mapped so that the matrix may be
+ * larger than the memory. The operating system pages the tiles in and
+ * out on demand.
+ * <p>
+ * The operations are scheduled on tiles. Each parallel task copies a few
+ * tiles into heap, works on them with BLAS and LAPACK, and writes the
+ * output tile back. Therefore, the memory usage is bounded by the number
+ * of threads times a few tiles, no matter how large the matrix is. This
+ * class provides tiled matrix multiplication, {@code A' * A}, Cholesky
+ * decomposition, and tall-skinny QR decomposition (TSQR), which are
+ * sufficient to solve least squares problems, e.g. in <code>OLS</code>
+ * and <code>RidgeRegression</code>, on design matrices larger than memory.
+ * <p>
+ * The file starts with a header of the magic bytes, the number of rows,
+ * the number of columns, and the tile size. The tiles follow in column
+ * major order, each in a slot of {@code tile * tile} little-endian doubles
+ * in column major order. The matrix created without a file path is backed
+ * by a temporary file, which is deleted when the matrix is closed or when
+ * the JVM exits.
+ *
+ * @author Haifeng Li
+ */
+public class TiledMatrix extends IMatrix implements AutoCloseable {
+    private static final long serialVersionUID = 1L;
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TiledMatrix.class);
+
+    /** The default tile size. */
+    public static final int DEFAULT_TILE_SIZE = 1024;
+    /** The magic bytes at the beginning of file. */
+    private static final byte[] MAGIC = "SMILETIL".getBytes(StandardCharsets.US_ASCII);
+    /** The size of file header. */
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * The number of rows.
+     */
+    private final int m;
+    /**
+     * The number of columns.
+     */
+    private final int n;
+    /**
+     * The tile size.
+     */
+    private final int tile;
+    /**
+     * The number of tile rows.
+     */
+    private final int mt;
+    /**
+     * The number of tile columns.
+     */
+    private final int nt;
+    /**
+     * The file path.
+     */
+    private final String path;
+    /**
+     * True if the file is deleted on close.
+     */
+    private final boolean temporary;
+    /**
+     * The file channel.
+     */
+    private transient FileChannel channel;
+    /**
+     * The memory-mapped tiles.
+     */
+    private transient MappedByteBuffer[] tiles;
+
+    /**
+     * Constructor of zero matrix backed by a temporary file
+     * with the default tile size.
+     * @param m the number of rows.
+     * @param n the number of columns.
+     */
+    public TiledMatrix(int m, int n) {
+        this(m, n, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Constructor of zero matrix backed by a temporary file.
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @param tile the tile size.
+     */
+    public TiledMatrix(int m, int n, int tile) {
+        this(m, n, tile, null);
+    }
+
+    /**
+     * Constructor of zero matrix. If the file exists, it is overwritten.
+     * @param m the number of rows.
+     * @param n the number of columns.
+     * @param tile the tile size.
+     * @param path the file path. If null, a temporary file is created,
+     *             which is deleted on close.
+     */
+    public TiledMatrix(int m, int n, int tile, Path path) {
+        if (m <= 0 || n <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid matrix size: %d x %d", m, n));
+        }
+
+        if (tile <= 0 || tile > 8192) {
+            throw new IllegalArgumentException("Invalid tile size: " + tile);
+        }
+
+        this.m = m;
+        this.n = n;
+        this.tile = tile;
+        this.mt = (m + tile - 1) / tile;
+        this.nt = (n + tile - 1) / tile;
+        this.temporary = path == null;
+
+        try {
+            if (path == null) {
+                File file = File.createTempFile("smile", ".tile");
+                file.deleteOnExit();
+                path = file.toPath();
+            }
+            this.path = path.toString();
+
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC);
+            header.putInt(m);
+            header.putInt(n);
+            header.putInt(tile);
+            header.position(HEADER_SIZE);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            // Extends the file, which is sparse on most file systems.
+            channel.write(ByteBuffer.allocate(1), offset(mt * nt) - 1);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        tiles = new MappedByteBuffer[mt * nt];
+        logger.info("Create {} x {} tiled matrix of {} x {} tiles at {}", m, n, mt, nt, this.path);
+    }
+
+    /**
+     * Constructor of existing file.
+     */
+    private TiledMatrix(int m, int n, int tile, Path path, FileChannel channel) {
+        this.m = m;
+        this.n = n;
+        this.tile = tile;
+        this.mt = (m + tile - 1) / tile;
+        this.nt = (n + tile - 1) / tile;
+        this.path = path.toString();
+        this.temporary = false;
+        this.channel = channel;
+        this.tiles = new MappedByteBuffer[mt * nt];
+    }
+
+    /**
+     * Opens an existing tiled matrix file.
+     * @param path the file path.
+     * @throws IOException when fails to read the file.
+     * @return the matrix.
+     */
+    public static TiledMatrix open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                channel.close();
+                throw new IOException("Not a tiled matrix file: " + path);
+            }
+        }
+        header.flip();
+
+        byte[] magic = new byte[MAGIC.length];
+        header.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            channel.close();
+            throw new IOException("Not a tiled matrix file: " + path);
+        }
+
+        int m = header.getInt();
+        int n = header.getInt();
+        int tile = header.getInt();
+        return new TiledMatrix(m, n, tile, path, channel);
+    }
+
+    /**
+     * Returns a tiled copy of the matrix with the default tile size.
+     * @param A the matrix.
+     * @return the tiled matrix.
+     */
+    public static TiledMatrix of(Matrix A) {
+        return of(A, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Returns a tiled copy of the matrix.
+     * @param A the matrix.
+     * @param tile the tile size.
+     * @return the tiled matrix.
+     */
+    public static TiledMatrix of(Matrix A, int tile) {
+        TiledMatrix matrix = new TiledMatrix(A.nrow(), A.ncol(), tile);
+        matrix.set(0, 0, A);
+        return matrix;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+            Arrays.fill(tiles, null);
+        }
+
+        if (temporary) {
+            Files.deleteIfExists(Paths.get(path));
+        }
+    }
+
+    @Override
+    public int nrow() {
+        return m;
+    }
+
+    @Override
+    public int ncol() {
+        return n;
+    }
+
+    @Override
+    public long size() {
+        return (long) m * n;
+    }
+
+    /**
+     * Returns the tile size.
+     * @return the tile size.
+     */
+    public int tileSize() {
+        return tile;
+    }
+
+    /**
+     * Returns the file offset of tile slot.
+     */
+    private long offset(int index) {
+        return HEADER_SIZE + (long) index * tile * tile * Double.BYTES;
+    }
+
+    /**
+     * Returns the number of rows of tile row.
+     */
+    private int rows(int ti) {
+        return Math.min(tile, m - ti * tile);
+    }
+
+    /**
+     * Returns the number of columns of tile column.
+     */
+    private int cols(int tj) {
+        return Math.min(tile, n - tj * tile);
+    }
+
+    /**
+     * Customized object serialization. The file is reopened and the tiles
+     * are mapped on the first access.
+     * @param in the input stream.
+     * @throws IOException when fails to read the stream.
+     * @throws ClassNotFoundException when fails to load the class.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        tiles = new MappedByteBuffer[mt * nt];
+    }
+
+    /**
+     * Returns the memory-mapped buffer of a tile, which is stored in column
+     * major order with the leading dimension of the number of tile rows.
+     */
+    private DoubleBuffer buffer(int ti, int tj) {
+        int index = tj * mt + ti;
+        MappedByteBuffer buffer;
+        synchronized (this) {
+            buffer = tiles[index];
+            if (buffer == null) {
+                try {
+                    if (channel == null) {
+                        channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    }
+                    long size = (long) rows(ti) * cols(tj) * Double.BYTES;
+                    buffer = channel.map(FileChannel.MapMode.READ_WRITE, offset(index), size);
+                    tiles[index] = buffer;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        }
+        return buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    /**
+     * Reads a tile into heap.
+     * @param ti the tile row index.
+     * @param tj the tile column index.
+     * @return the tile.
+     */
+    private Matrix read(int ti, int tj) {
+        int rows = rows(ti);
+        double[] A = new double[rows * cols(tj)];
+        buffer(ti, tj).get(A);
+        return new Matrix(rows, A.length / rows, rows, A);
+    }
+
+    /**
+     * Writes a tile from heap.
+     * @param ti the tile row index.
+     * @param tj the tile column index.
+     * @param A the tile, which must be a compact column major matrix.
+     */
+    private void write(int ti, int tj, Matrix A) {
+        buffer(ti, tj).put(A.A, 0, A.m * A.n);
+    }
+
+    /**
+     * Returns a compact column major copy of the matrix.
+     */
+    private static Matrix compact(Matrix A) {
+        if (A.layout() == COL_MAJOR && A.ld == A.m) {
+            return A;
+        }
+
+        Matrix B = new Matrix(A.m, A.n, A.m, new double[A.m * A.n]);
+        for (int j = 0; j < A.n; j++) {
+            for (int i = 0; i < A.m; i++) {
+                B.A[j * A.m + i] = A.get(i, j);
+            }
+        }
+        return B;
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (i < 0 || i >= m || j < 0 || j >= n) {
+            throw new IllegalArgumentException("Invalid index: row = " + i + " col = " + j);
+        }
+
+        int ti = i / tile;
+        int tj = j / tile;
+        return buffer(ti, tj).get((j % tile) * rows(ti) + i % tile);
+    }
+
+    @Override
+    public void set(int i, int j, double x) {
+        if (i < 0 || i >= m || j < 0 || j >= n) {
+            throw new IllegalArgumentException("Invalid index: row = " + i + " col = " + j);
+        }
+
+        int ti = i / tile;
+        int tj = j / tile;
+        buffer(ti, tj).put((j % tile) * rows(ti) + i % tile, x);
+    }
+
+    /**
+     * Copies a block into the matrix with the top left at (i, j).
+     * It is useful to fill the matrix with row blocks of data.
+     *
+     * @param i the row index of top left.
+     * @param j the column index of top left.
+     * @param B the block.
+     */
+    public void set(int i, int j, Matrix B) {
+        int k = i + B.nrow() - 1;
+        int l = j + B.ncol() - 1;
+        if (i < 0 || j < 0 || k >= m || l >= n) {
+            throw new IllegalArgumentException(String.format("Invalid block range (%d:%d, %d:%d) of %d x %d", i, k, j, l, m, n));
+        }
+
+        IntStream.rangeClosed(j / tile, l / tile).parallel().forEach(tj -> {
+            for (int ti = i / tile; ti <= k / tile; ti++) {
+                int rows = rows(ti);
+                int r0 = Math.max(i, ti * tile);
+                int r1 = Math.min(k, ti * tile + rows - 1);
+                int c0 = Math.max(j, tj * tile);
+                int c1 = Math.min(l, tj * tile + cols(tj) - 1);
+                DoubleBuffer buffer = buffer(ti, tj);
+                double[] column = new double[r1 - r0 + 1];
+                for (int c = c0; c <= c1; c++) {
+                    for (int r = r0; r <= r1; r++) {
+                        column[r - r0] = B.get(r - i, c - j);
+                    }
+                    buffer.position((c - tj * tile) * rows + r0 - ti * tile);
+                    buffer.put(column);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the submatrix which top left at (i, j) and bottom right at (k, l).
+     *
+     * @param i the beginning row, inclusive.
+     * @param j the beginning column, inclusive,
+     * @param k the ending row, inclusive.
+     * @param l the ending column, inclusive.
+     * @return the submatrix in memory.
+     */
+    public Matrix submatrix(int i, int j, int k, int l) {
+        if (i < 0 || i >= m || k < i || k >= m || j < 0 || j >= n || l < j || l >= n) {
+            throw new IllegalArgumentException(String.format("Invalid submatrix range (%d:%d, %d:%d) of %d x %d", i, k, j, l, m, n));
+        }
+
+        int rows = k - i + 1;
+        Matrix sub = new Matrix(rows, l - j + 1, rows, new double[rows * (l - j + 1)]);
+        IntStream.rangeClosed(j / tile, l / tile).parallel().forEach(tj -> {
+            for (int ti = i / tile; ti <= k / tile; ti++) {
+                int r0 = Math.max(i, ti * tile);
+                int r1 = Math.min(k, ti * tile + rows(ti) - 1);
+                int c0 = Math.max(j, tj * tile);
+                int c1 = Math.min(l, tj * tile + cols(tj) - 1);
+                DoubleBuffer buffer = buffer(ti, tj);
+                for (int c = c0; c <= c1; c++) {
+                    buffer.position((c - tj * tile) * rows(ti) + r0 - ti * tile);
+                    buffer.get(sub.A, (c - j) * rows + r0 - i, r1 - r0 + 1);
+                }
+            }
+        });
+        return sub;
+    }
+
+    /**
+     * Returns the matrix in memory.
+     * @return the matrix in memory.
+     */
+    public Matrix toMatrix() {
+        return submatrix(0, 0, m - 1, n - 1);
+    }
+
+    /**
+     * Returns op(A) * x. The tile rows (or columns if transposed)
+     * are processed in parallel.
+     */
+    private double[] product(Transpose trans, double[] x, int offset) {
+        boolean transpose = trans == TRANSPOSE;
+        double[] y = new double[transpose ? n : m];
+        IntStream.range(0, transpose ? nt : mt).parallel().forEach(t -> {
+            int len = transpose ? cols(t) : rows(t);
+            double[] yt = new double[len];
+            for (int s = 0; s < (transpose ? mt : nt); s++) {
+                Matrix A = transpose ? read(s, t) : read(t, s);
+                int xlen = transpose ? rows(s) : cols(s);
+                double[] xs = Arrays.copyOfRange(x, offset + s * tile, offset + s * tile + xlen);
+                A.mv(trans, 1.0, xs, 1.0, yt);
+            }
+            System.arraycopy(yt, 0, y, t * tile, len);
+        });
+        return y;
+    }
+
+    @Override
+    public void mv(Transpose trans, double alpha, double[] x, double beta, double[] y) {
+        double[] ax = product(trans, x, 0);
+        for (int i = 0; i < ax.length; i++) {
+            y[i] = alpha * ax[i] + beta * y[i];
+        }
+    }
+
+    @Override
+    public void mv(double[] work, int inputOffset, int outputOffset) {
+        double[] ax = product(NO_TRANSPOSE, work, inputOffset);
+        System.arraycopy(ax, 0, work, outputOffset, m);
+    }
+
+    @Override
+    public void tv(double[] work, int inputOffset, int outputOffset) {
+        double[] atx = product(TRANSPOSE, work, inputOffset);
+        System.arraycopy(atx, 0, work, outputOffset, n);
+    }
+
+    /**
+     * Returns the matrix multiplication {@code A * B}. The output tiles
+     * are computed in parallel, each of which holds three tiles in heap.
+     *
+     * @param B the operand, which must have the same tile size.
+     * @return the multiplication backed by a temporary file.
+     */
+    public TiledMatrix mm(TiledMatrix B) {
+        if (n != B.m) {
+            throw new IllegalArgumentException(String.format("Matrix dimensions do not match for matrix multiplication: %d x %d vs %d x %d", m, n, B.m, B.n));
+        }
+
+        if (tile != B.tile) {
+            throw new IllegalArgumentException(String.format("Tile sizes do not match: %d vs %d", tile, B.tile));
+        }
+
+        TiledMatrix C = new TiledMatrix(m, B.n, tile);
+        IntStream.range(0, mt * C.nt).parallel().forEach(index -> {
+            int ti = index % mt;
+            int tj = index / mt;
+            Matrix Cij = C.read(ti, tj);
+            for (int k = 0; k < nt; k++) {
+                Cij.mm(NO_TRANSPOSE, read(ti, k), NO_TRANSPOSE, B.read(k, tj), 1.0, 1.0);
+            }
+            C.write(ti, tj, Cij);
+        });
+        return C;
+    }
+
+    /**
+     * Returns {@code A' * A}. The output tiles of lower triangle are
+     * computed in parallel and mirrored to the upper triangle.
+     *
+     * @return {@code A' * A} backed by a temporary file.
+     */
+    public TiledMatrix ata() {
+        TiledMatrix C = new TiledMatrix(n, n, tile);
+        int tasks = nt * (nt + 1) / 2;
+        IntStream.range(0, tasks).parallel().forEach(index -> {
+            int ti = row(index);
+            int tj = index - ti * (ti + 1) / 2;
+
+            Matrix Cij = C.read(ti, tj);
+            for (int k = 0; k < mt; k++) {
+                Cij.mm(TRANSPOSE, read(k, ti), NO_TRANSPOSE, read(k, tj), 1.0, 1.0);
+            }
+            C.write(ti, tj, Cij);
+            if (ti != tj) {
+                C.write(tj, ti, compact(Cij.transpose(false)));
+            }
+        });
+        return C;
+    }
+
+    /**
+     * Returns the tiled Cholesky decomposition of a symmetric positive
+     * definite matrix, of which only the lower triangle is referenced.
+     * The decomposition is computed by the right-looking tile algorithm.
+     * At each step, the diagonal tile is factorized, the tiles below
+     * it are solved in parallel, and the trailing tiles are updated in
+     * parallel.
+     *
+     * @return the Cholesky decomposition with the factor backed by a
+     *         temporary file.
+     * @throws ArithmeticException if the matrix is not positive definite.
+     */
+    public Cholesky cholesky() {
+        if (m != n) {
+            throw new IllegalArgumentException(String.format("The matrix is not square: %d x %d", m, n));
+        }
+
+        TiledMatrix L = new TiledMatrix(n, n, tile);
+        IntStream.range(0, nt * (nt + 1) / 2).parallel().forEach(index -> {
+            int ti = row(index);
+            int tj = index - ti * (ti + 1) / 2;
+            L.write(ti, tj, read(ti, tj));
+        });
+
+        for (int k = 0; k < nt; k++) {
+            int step = k;
+            Matrix Lkk = L.read(k, k);
+            Lkk.uplo(LOWER);
+            int info = LAPACK.engine.potrf(Lkk.layout(), LOWER, Lkk.n, Lkk.A, Lkk.ld);
+            if (info != 0) {
+                logger.error("LAPACK POTRF error code: {}", info);
+                throw new ArithmeticException("LAPACK POTRF error code: " + (step * tile + info));
+            }
+            for (int j = 1; j < Lkk.n; j++) {
+                for (int i = 0; i < j; i++) {
+                    Lkk.set(i, j, 0.0);
+                }
+            }
+            L.write(k, k, Lkk);
+
+            // L(i, k) = A(i, k) * inv(L(k, k))'
+            IntStream.range(k + 1, nt).parallel().forEach(ti -> {
+                Matrix X = compact(L.read(ti, step).transpose(false));
+                int ret = LAPACK.engine.trtrs(X.layout(), LOWER, NO_TRANSPOSE, NON_UNIT, Lkk.n, X.n, Lkk.A, Lkk.ld, X.A, X.ld);
+                if (ret != 0) {
+                    throw new ArithmeticException("LAPACK TRTRS error code: " + ret);
+                }
+                L.write(ti, step, compact(X.transpose(false)));
+            });
+
+            // A(i, j) -= L(i, k) * L(j, k)' for k < j <= i
+            int r = nt - k - 1;
+            IntStream.range(0, r * (r + 1) / 2).parallel().forEach(index -> {
+                int ti = row(index);
+                int tj = index - ti * (ti + 1) / 2;
+                ti += step + 1;
+                tj += step + 1;
+
+                Matrix Aij = L.read(ti, tj);
+                Aij.mm(NO_TRANSPOSE, L.read(ti, step), TRANSPOSE, L.read(tj, step), -1.0, 1.0);
+                L.write(ti, tj, Aij);
+            });
+        }
+
+        return new Cholesky(L);
+    }
+
+    /**
+     * Returns the row of the element in the lower triangle, which
+     * are enumerated row by row, i.e. (0, 0), (1, 0), (1, 1), ...
+     * @param index the index of element in the enumeration.
+     * @return the row index.
+     */
+    private static int row(int index) {
+        int i = (int) ((Math.sqrt(8.0 * index + 1) - 1) / 2);
+        while (i * (i + 1) / 2 > index) i--;
+        while ((i + 1) * (i + 2) / 2 <= index) i++;
+        return i;
+    }
+
+    /**
+     * Returns the upper triangular factor R of tall-skinny QR decomposition.
+     * The row panels of tiles are factorized in parallel and the factors
+     * are reduced by QR of stacked factors. Each task holds a row panel
+     * of {@code tile * ncol} elements in heap.
+     *
+     * @return the upper triangular factor R.
+     */
+    public Matrix tsqr() {
+        return tsqr(null);
+    }
+
+    /**
+     * Returns the upper triangular factor R of tall-skinny QR decomposition
+     * of the augmented matrix {@code [A y]}. The first n elements of the
+     * last column of R are {@code Q' * y} and the absolute value of the last
+     * diagonal element is the norm of least squares residuals. Therefore,
+     * the least squares problem is solved without forming Q.
+     *
+     * @param y the right hand side. If null, returns the R factor of A.
+     * @return the upper triangular factor R of {@code [A y]}.
+     */
+    public Matrix tsqr(double[] y) {
+        if (y != null && y.length != m) {
+            throw new IllegalArgumentException(String.format("Invalid vector size: %d, expected: %d", y.length, m));
+        }
+
+        int p = y == null ? n : n + 1;
+        int tasks = Math.min(mt, 4 * ForkJoinPool.getCommonPoolParallelism());
+        Matrix[] partial = new Matrix[tasks];
+        IntStream.range(0, tasks).parallel().forEach(task -> {
+            Matrix R = null;
+            for (int ti = task; ti < mt; ti += tasks) {
+                int rows = rows(ti);
+                Matrix panel = submatrix(ti * tile, 0, ti * tile + rows - 1, n - 1);
+                if (y != null) {
+                    Matrix augmented = new Matrix(rows, p, rows, Arrays.copyOf(panel.A, rows * p));
+                    System.arraycopy(y, ti * tile, augmented.A, rows * n, rows);
+                    panel = augmented;
+                }
+                R = R == null ? panel : stack(R, panel);
+                if (R.m >= p) {
+                    R = triu(R);
+                }
+            }
+            partial[task] = R;
+        });
+
+        Matrix R = partial[0];
+        for (int i = 1; i < tasks; i++) {
+            R = stack(R, partial[i]);
+        }
+
+        if (R.m < p) {
+            throw new IllegalArgumentException(String.format("The matrix is not over determined: %d rows, %d columns", m, p));
+        }
+        return triu(R);
+    }
+
+    /**
+     * Returns the vertical concatenation of two matrices.
+     */
+    private static Matrix stack(Matrix A, Matrix B) {
+        int rows = A.m + B.m;
+        Matrix C = new Matrix(rows, A.n, rows, new double[rows * A.n]);
+        for (int j = 0; j < A.n; j++) {
+            for (int i = 0; i < A.m; i++) {
+                C.A[j * rows + i] = A.get(i, j);
+            }
+            for (int i = 0; i < B.m; i++) {
+                C.A[j * rows + A.m + i] = B.get(i, j);
+            }
+        }
+        return C;
+    }
+
+    /**
+     * Returns the R factor of QR decomposition of a matrix with
+     * at least as many rows as columns.
+     */
+    private static Matrix triu(Matrix A) {
+        int p = A.n;
+        Matrix qr = A.qr(true).qr;
+        Matrix R = new Matrix(p, p, p, new double[p * p]);
+        for (int j = 0; j < p; j++) {
+            for (int i = 0; i <= j; i++) {
+                R.A[j * p + i] = qr.get(i, j);
+            }
+        }
+        return R;
+    }
+
+    /**
+     * The tiled Cholesky decomposition of a symmetric positive definite
+     * matrix {@code A = L * L'}.
+     */
+    public static class Cholesky {
+        /**
+         * The lower triangular factor.
+         */
+        public final TiledMatrix L;
+
+        /**
+         * Constructor.
+         * @param L the lower triangular factor.
+         */
+        public Cholesky(TiledMatrix L) {
+            if (L.m != L.n) {
+                throw new UnsupportedOperationException("Cholesky constructor on a non-square matrix");
+            }
+            this.L = L;
+        }
+
+        /**
+         * Returns the log of matrix determinant.
+         * @return the log of matrix determinant.
+         */
+        public double logdet() {
+            double d = 0.0;
+            for (int i = 0; i < L.n; i++) {
+                d += Math.log(L.get(i, i));
+            }
+
+            return 2.0 * d;
+        }
+
+        /**
+         * Solves the linear system {@code A * x = b} by the forward
+         * and backward substitution on tiles.
+         * @param b the right hand side of linear system.
+         * @return the solution vector.
+         */
+        public double[] solve(double[] b) {
+            int n = L.n;
+            int nt = L.nt;
+            int tile = L.tile;
+            if (b.length != n) {
+                throw new IllegalArgumentException(String.format("Row dimensions do not agree: A is %d x %d, but b is %d x 1", n, n, b.length));
+            }
+
+            double[] x = b.clone();
+            // L * z = b
+            for (int ti = 0; ti < nt; ti++) {
+                int len = L.rows(ti);
+                double[] r = Arrays.copyOfRange(x, ti * tile, ti * tile + len);
+                for (int tj = 0; tj < ti; tj++) {
+                    double[] z = Arrays.copyOfRange(x, tj * tile, tj * tile + L.cols(tj));
+                    L.read(ti, tj).mv(NO_TRANSPOSE, -1.0, z, 1.0, r);
+                }
+                solve(L.read(ti, ti), NO_TRANSPOSE, r);
+                System.arraycopy(r, 0, x, ti * tile, len);
+            }
+
+            // L' * x = z
+            for (int ti = nt - 1; ti >= 0; ti--) {
+                int len = L.rows(ti);
+                double[] r = Arrays.copyOfRange(x, ti * tile, ti * tile + len);
+                for (int tj = ti + 1; tj < nt; tj++) {
+                    double[] z = Arrays.copyOfRange(x, tj * tile, tj * tile + L.rows(tj));
+                    L.read(tj, ti).mv(TRANSPOSE, -1.0, z, 1.0, r);
+                }
+                solve(L.read(ti, ti), TRANSPOSE, r);
+                System.arraycopy(r, 0, x, ti * tile, len);
+            }
+
+            return x;
+        }
+
+        /**
+         * Solves the triangular system op(L) * x = b in place.
+         */
+        private static void solve(Matrix L, Transpose trans, double[] b) {
+            int info = LAPACK.engine.trtrs(L.layout(), LOWER, trans, NON_UNIT, L.n, 1, L.A, L.ld, b, b.length);
+            if (info != 0) {
+                logger.error("LAPACK TRTRS error code: {}", info);
+                throw new ArithmeticException("LAPACK TRTRS error code: " + info);
+            }
+        }
+    }
+}
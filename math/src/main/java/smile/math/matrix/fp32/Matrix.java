@@ -180,6 +180,28 @@ public class Matrix extends IMatrix {
         return matrix;
     }
 
+    /**
+     * Returns a single precision copy of a double precision matrix.
+     * The column and row names are kept.
+     * @param A the double precision matrix.
+     * @return the single precision matrix.
+     */
+    public static Matrix of(smile.math.matrix.Matrix A) {
+        int m = A.nrow();
+        int n = A.ncol();
+        Matrix matrix = new Matrix(m, n);
+        matrix.colNames(A.colNames());
+        matrix.rowNames(A.rowNames());
+
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                matrix.set(i, j, (float) A.get(i, j));
+            }
+        }
+
+        return matrix;
+    }
+
     /**
      * Returns a column vector/matrix.
      * @param A the column vector.
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.graph;
+
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.math.MathEx;
+import smile.math.matrix.SparseMatrix;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class CSRGraphTest {
+
+    public CSRGraphTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Returns the directed acyclic graph of topological sort tests.
+     */
+    private AdjacencyList dag() {
+        AdjacencyList graph = new AdjacencyList(13, true);
+        graph.addEdge(8, 7);
+        graph.addEdge(7, 6);
+        graph.addEdge(0, 1);
+        graph.addEdge(0, 2);
+        graph.addEdge(0, 3);
+        graph.addEdge(0, 5);
+        graph.addEdge(0, 6);
+        graph.addEdge(2, 3);
+        graph.addEdge(3, 4);
+        graph.addEdge(3, 5);
+        graph.addEdge(6, 4);
+        graph.addEdge(6, 9);
+        graph.addEdge(4, 9);
+        graph.addEdge(9, 10);
+        graph.addEdge(9, 11);
+        graph.addEdge(9, 12);
+        graph.addEdge(11, 12);
+        return graph;
+    }
+
+    /**
+     * Returns a random undirected graph.
+     */
+    private AdjacencyList random(int n, int m) {
+        MathEx.setSeed(19650218);
+        AdjacencyList graph = new AdjacencyList(n, false);
+        for (int e = 0; e < m; e++) {
+            int i = MathEx.randomInt(n);
+            int j = MathEx.randomInt(n);
+            if (!graph.hasEdge(i, j)) {
+                graph.addEdge(i, j, MathEx.random());
+            }
+        }
+        return graph;
+    }
+
+    @Test
+    public void testEdges() {
+        System.out.println("edges");
+        AdjacencyList g1 = dag();
+        CSRGraph g2 = CSRGraph.of(g1);
+        assertTrue(g2.isDigraph());
+        assertEquals(13, g2.getNumVertices());
+        assertEquals(17, g2.size());
+        assertEquals(17, g2.getEdges().size());
+        for (int i = 0; i < 13; i++) {
+            assertEquals(g1.getIndegree(i), g2.getIndegree(i));
+            assertEquals(g1.getOutdegree(i), g2.getOutdegree(i));
+            assertEquals(g1.getDegree(i), g2.getDegree(i));
+            for (int j = 0; j < 13; j++) {
+                assertEquals(g1.hasEdge(i, j), g2.hasEdge(i, j));
+                assertEquals(g1.getWeight(i, j), g2.getWeight(i, j), 0.0);
+            }
+        }
+
+        AdjacencyList g3 = random(100, 300);
+        CSRGraph g4 = CSRGraph.of(g3);
+        assertFalse(g4.isDigraph());
+        assertEquals(g3.getEdges().size(), g4.getEdges().size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(g3.getDegree(i), g4.getDegree(i));
+            for (int j = 0; j < 100; j++) {
+                assertEquals(g3.getWeight(i, j), g4.getWeight(i, j), 0.0);
+                assertEquals(g4.getWeight(i, j), g4.getWeight(j, i), 0.0);
+            }
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        System.out.println("immutable");
+        CSRGraph graph = CSRGraph.of(dag());
+        graph.addEdge(1, 4);
+    }
+
+    @Test
+    public void testSort() {
+        System.out.println("sort");
+        int[] dfs = {1, 10, 12, 11, 9, 4, 5, 3, 2, 6, 0, 7, 8};
+        int[] bfs = {0, 8, 1, 2, 7, 3, 6, 5, 4, 9, 10, 11, 12};
+        CSRGraph graph = CSRGraph.of(dag());
+        assertArrayEquals(dfs, graph.sortdfs());
+        assertArrayEquals(bfs, graph.sortbfs());
+    }
+
+    @Test
+    public void testComponents() {
+        System.out.println("connected components");
+        int[][] cc = {{0, 2, 6}, {1, 3, 4, 5, 7}};
+
+        AdjacencyList graph = new AdjacencyList(8);
+        graph.addEdge(0, 2);
+        graph.addEdge(1, 7);
+        graph.addEdge(2, 6);
+        graph.addEdge(7, 4);
+        graph.addEdge(3, 4);
+        graph.addEdge(3, 5);
+        graph.addEdge(5, 4);
+
+        CSRGraph csr = CSRGraph.of(graph);
+        assertTrue(Arrays.deepEquals(cc, csr.dfs()));
+        assertTrue(Arrays.deepEquals(cc, csr.bfs()));
+        assertArrayEquals(new int[]{0, 1, 0, 1, 1, 1, 0, 1}, csr.components());
+
+        AdjacencyList g = random(1000, 600);
+        assertTrue(Arrays.deepEquals(g.bfs(), CSRGraph.of(g).bfs()));
+        assertTrue(Arrays.deepEquals(g.dfs(), CSRGraph.of(g).dfs()));
+    }
+
+    @Test
+    public void testBfs() {
+        System.out.println("bfs levels");
+        AdjacencyList graph = new AdjacencyList(8);
+        graph.addEdge(0, 2);
+        graph.addEdge(1, 7);
+        graph.addEdge(2, 6);
+        graph.addEdge(7, 4);
+        graph.addEdge(3, 4);
+        graph.addEdge(3, 5);
+        graph.addEdge(5, 4);
+
+        int[] hops = {-1, 0, -1, 3, 2, 3, -1, 1};
+        assertArrayEquals(hops, CSRGraph.of(graph).bfs(1));
+
+        // The hops are the shortest paths of unit weights.
+        AdjacencyList g = random(500, 1500);
+        for (Graph.Edge edge : g.getEdges()) {
+            edge.weight = 1.0;
+        }
+        CSRGraph csr = CSRGraph.of(g);
+        int[] level = csr.bfs(0);
+        double[] wt = csr.dijkstra(0);
+        for (int i = 0; i < 500; i++) {
+            assertEquals(Double.isInfinite(wt[i]) ? -1 : (int) wt[i], level[i]);
+        }
+    }
+
+    @Test
+    public void testDijkstra() {
+        System.out.println("Dijkstra");
+        double[][] wt = {
+            {0.00, 0.41, 0.82, 0.86, 0.50, 0.29},
+            {1.13, 0.00, 0.51, 0.68, 0.32, 1.06},
+            {0.95, 1.17, 0.00, 0.50, 1.09, 0.88},
+            {0.45, 0.67, 0.91, 0.00, 0.59, 0.38},
+            {0.81, 1.03, 0.32, 0.36, 0.00, 0.74},
+            {1.02, 0.29, 0.53, 0.57, 0.21, 0.00},
+        };
+
+        AdjacencyList graph = new AdjacencyList(6, true);
+        graph.addEdge(0, 1, 0.41);
+        graph.addEdge(1, 2, 0.51);
+        graph.addEdge(2, 3, 0.50);
+        graph.addEdge(4, 3, 0.36);
+        graph.addEdge(3, 5, 0.38);
+        graph.addEdge(3, 0, 0.45);
+        graph.addEdge(0, 5, 0.29);
+        graph.addEdge(5, 4, 0.21);
+        graph.addEdge(1, 4, 0.32);
+        graph.addEdge(4, 2, 0.32);
+        graph.addEdge(5, 1, 0.29);
+
+        assertTrue(MathEx.equals(wt, CSRGraph.of(graph).dijkstra()));
+
+        AdjacencyList g = random(300, 900);
+        double[][] wt1 = g.dijkstra();
+        double[][] wt2 = CSRGraph.of(g).dijkstra();
+        for (int i = 0; i < 300; i++) {
+            assertArrayEquals(wt1[i], wt2[i], 1E-10);
+        }
+    }
+
+    @Test
+    public void testMatrix() {
+        System.out.println("matrix");
+        AdjacencyList g = random(100, 300);
+        SparseMatrix matrix = g.toMatrix();
+        CSRGraph csr = CSRGraph.of(matrix, false);
+        SparseMatrix copy = csr.toMatrix();
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 100; j++) {
+                assertEquals(g.getWeight(i, j), csr.getWeight(i, j), 0.0);
+                assertEquals(matrix.get(i, j), copy.get(i, j), 0.0);
+            }
+        }
+
+        CSRGraph digraph = CSRGraph.of(dag().toMatrix(), true);
+        assertArrayEquals(new int[]{0, 8, 1, 2, 7, 3, 6, 5, 4, 9, 10, 11, 12}, digraph.sortbfs());
+    }
+
+    @Test
+    public void testSubgraph() {
+        System.out.println("subgraph");
+        AdjacencyList g = random(100, 300);
+        int[] vertices = {3, 7, 11, 20, 45, 46, 80, 99};
+        Graph g1 = g.subgraph(vertices);
+        CSRGraph g2 = CSRGraph.of(g).subgraph(vertices);
+        for (int i = 0; i < vertices.length; i++) {
+            for (int j = 0; j < vertices.length; j++) {
+                assertEquals(g1.getWeight(i, j), g2.getWeight(i, j), 0.0);
+            }
+        }
+    }
+}
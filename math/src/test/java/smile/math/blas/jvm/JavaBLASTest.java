@@ -0,0 +1,1002 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.math.blas.jvm;
+
+import java.util.Arrays;
+import org.bytedeco.javacpp.DoublePointer;
+import org.bytedeco.javacpp.IntPointer;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.math.MathEx;
+import smile.math.blas.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test pure Java BLAS and LAPACK.
+ *
+ * @author Haifeng Li
+ */
+public class JavaBLASTest {
+    JavaBLAS blas = new JavaBLAS();
+    JavaLAPACK lapack = new JavaLAPACK();
+
+    public JavaBLASTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+        MathEx.setSeed(19650218);
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /** Returns a random column major m x n matrix. */
+    private double[] random(int m, int n) {
+        double[] A = new double[m * n];
+        for (int i = 0; i < A.length; i++) {
+            A[i] = MathEx.random(-1, 1);
+        }
+        return A;
+    }
+
+    /** Returns op(A)[i, j] of column major matrix. */
+    private double get(double[] A, int lda, Transpose trans, int i, int j) {
+        return trans == Transpose.NO_TRANSPOSE ? A[i + j * lda] : A[j + i * lda];
+    }
+
+    @Test
+    public void testGemm() {
+        System.out.println("gemm");
+        int m = 300, n = 270, k = 150;
+        Transpose[] ops = {Transpose.NO_TRANSPOSE, Transpose.TRANSPOSE};
+        for (Transpose transA : ops) {
+            for (Transpose transB : ops) {
+                int lda = transA == Transpose.NO_TRANSPOSE ? m : k;
+                int ldb = transB == Transpose.NO_TRANSPOSE ? k : n;
+                double[] A = random(m, k);
+                double[] B = random(k, n);
+                double[] C = random(m, n);
+                double[] D = C.clone();
+                blas.gemm(Layout.COL_MAJOR, transA, transB, m, n, k, 2.0, A, lda, B, ldb, 0.5, D, m);
+
+                for (int i = 0; i < m; i++) {
+                    for (int j = 0; j < n; j++) {
+                        double c = 0.0;
+                        for (int p = 0; p < k; p++) {
+                            c += get(A, lda, transA, i, p) * get(B, ldb, transB, p, j);
+                        }
+                        assertEquals(2.0 * c + 0.5 * C[i + j * m], D[i + j * m], 1E-10);
+                    }
+                }
+            }
+        }
+
+        // C' = B' * A' in row major layout.
+        double[] A = random(m, k);
+        double[] B = random(k, n);
+        double[] C = new double[m * n];
+        double[] D = new double[m * n];
+        blas.gemm(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, Transpose.NO_TRANSPOSE, m, n, k, 1.0, A, m, B, k, 0.0, C, m);
+        blas.gemm(Layout.ROW_MAJOR, Transpose.NO_TRANSPOSE, Transpose.NO_TRANSPOSE, n, m, k, 1.0, B, k, A, m, 0.0, D, m);
+        assertArrayEquals(C, D, 1E-10);
+    }
+
+    @Test
+    public void testGemv() {
+        System.out.println("gemv");
+        int m = 130, n = 70;
+        double[] A = random(m, n);
+        double[] x = random(m, 1);
+        double[] y = random(n, 1);
+
+        double[] z = y.clone();
+        blas.gemv(Layout.COL_MAJOR, Transpose.TRANSPOSE, m, n, 1.0, A, m, x, 1, 1.0, z, 1);
+        for (int j = 0; j < n; j++) {
+            double s = y[j];
+            for (int i = 0; i < m; i++) {
+                s += A[i + j * m] * x[i];
+            }
+            assertEquals(s, z[j], 1E-12);
+        }
+
+        double[] w = new double[m];
+        blas.gemv(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, m, n, 1.0, A, m, y, 1, 0.0, w, 1);
+        assertEquals(MathEx.dot(z, y) - MathEx.dot(y, y), MathEx.dot(w, x), 1E-10);
+        assertEquals(MathEx.dot(x, x), blas.dot(x, x), 1E-12);
+        assertEquals(Math.sqrt(MathEx.dot(x, x)), blas.nrm2(x), 1E-12);
+    }
+
+    @Test
+    public void testLU() {
+        System.out.println("LU");
+        int n = 200, nrhs = 3;
+        double[] A = random(n, n);
+        double[] B = random(n, nrhs);
+        double[] LU = A.clone();
+        double[] X = B.clone();
+        int[] ipiv = new int[n];
+        assertEquals(0, lapack.gesv(Layout.COL_MAJOR, n, nrhs, LU, n, ipiv, X, n));
+
+        // A * X = B
+        double[] R = B.clone();
+        blas.gemm(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, Transpose.NO_TRANSPOSE, n, nrhs, n, 1.0, A, n, X, n, -1.0, R, n);
+        for (double r : R) {
+            assertEquals(0.0, r, 1E-10);
+        }
+
+        // A' * X = B
+        X = B.clone();
+        assertEquals(0, lapack.getrs(Layout.COL_MAJOR, Transpose.TRANSPOSE, n, nrhs, LU, n, ipiv, X, n));
+        R = B.clone();
+        blas.gemm(Layout.COL_MAJOR, Transpose.TRANSPOSE, Transpose.NO_TRANSPOSE, n, nrhs, n, 1.0, A, n, X, n, -1.0, R, n);
+        for (double r : R) {
+            assertEquals(0.0, r, 1E-10);
+        }
+
+        // Singular matrix.
+        double[] S = random(n, n);
+        Arrays.fill(S, 5 * n, 6 * n, 0.0);
+        assertEquals(6, lapack.getrf(Layout.COL_MAJOR, n, n, S, n, ipiv));
+    }
+
+    @Test
+    public void testCholesky() {
+        System.out.println("Cholesky");
+        int n = 150, nrhs = 2;
+        double[] M = random(n, n);
+        double[] A = new double[n * n];
+        blas.gemm(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, Transpose.TRANSPOSE, n, n, n, 1.0, M, n, M, n, 0.0, A, n);
+        for (int i = 0; i < n; i++) {
+            A[i + i * n] += 1.0;
+        }
+
+        double[] B = random(n, nrhs);
+        for (UPLO uplo : UPLO.values()) {
+            double[] L = A.clone();
+            double[] X = B.clone();
+            assertEquals(0, lapack.posv(Layout.COL_MAJOR, uplo, n, nrhs, L, n, X, n));
+
+            double[] R = B.clone();
+            blas.gemm(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, Transpose.NO_TRANSPOSE, n, nrhs, n, 1.0, A, n, X, n, -1.0, R, n);
+            for (double r : R) {
+                assertEquals(0.0, r, 1E-9);
+            }
+        }
+
+        double[] L = A.clone();
+        L[10 + 10 * n] = -1.0;
+        assertEquals(11, lapack.potrf(Layout.COL_MAJOR, UPLO.LOWER, n, L, n));
+    }
+
+    @Test
+    public void testQR() {
+        System.out.println("QR");
+        int m = 200, n = 90;
+        double[] A = random(m, n);
+        double[] QR = A.clone();
+        double[] tau = new double[n];
+        assertEquals(0, lapack.geqrf(Layout.COL_MAJOR, m, n, QR, m, tau));
+
+        double[] Q = QR.clone();
+        assertEquals(0, lapack.orgqr(Layout.COL_MAJOR, m, n, n, Q, m, tau));
+
+        // Q' * Q = I
+        double[] I = new double[n * n];
+        blas.gemm(Layout.COL_MAJOR, Transpose.TRANSPOSE, Transpose.NO_TRANSPOSE, n, n, m, 1.0, Q, m, Q, m, 0.0, I, n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                assertEquals(i == j ? 1.0 : 0.0, I[i + j * n], 1E-12);
+            }
+        }
+
+        // Q * R = A
+        double[] R = new double[n * n];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i <= j; i++) {
+                R[i + j * n] = QR[i + j * m];
+            }
+        }
+        double[] B = A.clone();
+        blas.gemm(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, Transpose.NO_TRANSPOSE, m, n, n, 1.0, Q, m, R, n, -1.0, B, m);
+        for (double b : B) {
+            assertEquals(0.0, b, 1E-12);
+        }
+
+        // Q' * A = R
+        B = A.clone();
+        assertEquals(0, lapack.ormqr(Layout.COL_MAJOR, Side.LEFT, Transpose.TRANSPOSE, m, n, n, QR, m, tau, B, m));
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                assertEquals(i < n ? R[i + j * n] : 0.0, B[i + j * m], 1E-12);
+            }
+        }
+    }
+
+    /** Returns the column major product A * B. */
+    private double[] multiply(int m, int n, int k, double[] A, int lda, Transpose transA, double[] B, int ldb, Transpose transB) {
+        double[] C = new double[m * n];
+        blas.gemm(Layout.COL_MAJOR, transA, transB, m, n, k, 1.0, A, lda, B, ldb, 0.0, C, m);
+        return C;
+    }
+
+    /** Asserts that the columns of column major m x n matrix are orthonormal. */
+    private void assertOrthonormal(int m, int n, double[] Q, double eps) {
+        double[] I = multiply(n, n, m, Q, m, Transpose.TRANSPOSE, Q, m, Transpose.NO_TRANSPOSE);
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                assertEquals(i == j ? 1.0 : 0.0, I[i + j * n], eps);
+            }
+        }
+    }
+
+    @Test
+    public void testSysv() {
+        System.out.println("sysv");
+        int n = 150, nrhs = 3;
+        double[] S = random(n, n);
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < j; i++) {
+                S[i + j * n] = S[j + i * n];
+            }
+        }
+
+        double[] B = random(n, nrhs);
+        for (UPLO uplo : UPLO.values()) {
+            // Only the given triangle is referenced.
+            double[] A = S.clone();
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i < n; i++) {
+                    if (uplo == UPLO.LOWER ? i < j : i > j) A[i + j * n] = Double.NaN;
+                }
+            }
+
+            double[] X = B.clone();
+            assertEquals(0, lapack.sysv(Layout.COL_MAJOR, uplo, n, nrhs, A, n, new int[n], X, n));
+            double[] AX = multiply(n, nrhs, n, S, n, Transpose.NO_TRANSPOSE, X, n, Transpose.NO_TRANSPOSE);
+            for (int i = 0; i < B.length; i++) {
+                assertEquals(B[i], AX[i], 1E-10);
+            }
+
+            // The row major lower triangle is the column major upper one.
+            double[] R = A.clone();
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i < n; i++) {
+                    R[i + j * n] = uplo == UPLO.LOWER ? (i > j ? Double.NaN : S[i + j * n]) : (i < j ? Double.NaN : S[i + j * n]);
+                }
+            }
+            double[] Y = new double[n * nrhs];
+            for (int j = 0; j < nrhs; j++) {
+                for (int i = 0; i < n; i++) {
+                    Y[i * nrhs + j] = B[i + j * n];
+                }
+            }
+            assertEquals(0, lapack.sysv(Layout.ROW_MAJOR, uplo, n, nrhs, R, n, new int[n], Y, nrhs));
+            for (int j = 0; j < nrhs; j++) {
+                for (int i = 0; i < n; i++) {
+                    assertEquals(X[i + j * n], Y[i * nrhs + j], 1E-10);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSyevd() {
+        System.out.println("syevd");
+        int n = 120;
+        double[] G = random(n, n);
+        double[] S = multiply(n, n, n, G, n, Transpose.TRANSPOSE, G, n, Transpose.NO_TRANSPOSE);
+        for (int i = 0; i < n; i++) {
+            S[i + i * n] -= 10.0;
+        }
+
+        double[] V = S.clone();
+        double[] w = new double[n];
+        assertEquals(0, lapack.syevd(Layout.COL_MAJOR, EVDJob.VECTORS, UPLO.LOWER, n, V, n, w));
+        for (int i = 1; i < n; i++) {
+            assertTrue(w[i - 1] <= w[i]);
+        }
+        assertOrthonormal(n, n, V, 1E-10);
+
+        // A * V = V * D
+        double[] AV = multiply(n, n, n, S, n, Transpose.NO_TRANSPOSE, V, n, Transpose.NO_TRANSPOSE);
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                assertEquals(V[i + j * n] * w[j], AV[i + j * n], 1E-10);
+            }
+        }
+
+        double[] U = S.clone();
+        double[] e = new double[n];
+        assertEquals(0, lapack.syev(Layout.ROW_MAJOR, EVDJob.NO_VECTORS, UPLO.UPPER, n, U, n, e));
+        assertArrayEquals(w, e, 1E-10);
+
+        float[] F = new float[n * n];
+        for (int i = 0; i < F.length; i++) {
+            F[i] = (float) S[i];
+        }
+        float[] f = new float[n];
+        assertEquals(0, lapack.syevd(Layout.COL_MAJOR, EVDJob.VECTORS, UPLO.UPPER, n, F, n, f));
+        for (int i = 0; i < n; i++) {
+            assertEquals(w[i], f[i], 1E-3);
+        }
+    }
+
+    @Test
+    public void testGeev() {
+        System.out.println("geev");
+        int n = 100;
+        double[] A = random(n, n);
+        double[] wr = new double[n];
+        double[] wi = new double[n];
+        double[] Vl = new double[n * n];
+        double[] Vr = new double[n * n];
+        double[] H = A.clone();
+        assertEquals(0, lapack.geev(Layout.COL_MAJOR, EVDJob.VECTORS, EVDJob.VECTORS, n, H, n, wr, wi, Vl, n, Vr, n));
+
+        int complex = 0;
+        double[] AV = multiply(n, n, n, A, n, Transpose.NO_TRANSPOSE, Vr, n, Transpose.NO_TRANSPOSE);
+        double[] UA = multiply(n, n, n, Vl, n, Transpose.TRANSPOSE, A, n, Transpose.NO_TRANSPOSE);
+        for (int j = 0; j < n; j++) {
+            if (wi[j] == 0.0) {
+                // A * v = lambda * v and u' * A = lambda * u'
+                for (int i = 0; i < n; i++) {
+                    assertEquals(wr[j] * Vr[i + j * n], AV[i + j * n], 1E-10);
+                    assertEquals(wr[j] * Vl[i + j * n], UA[j + i * n], 1E-10);
+                }
+            } else {
+                // The conjugate pair with the positive imaginary part first.
+                assertTrue(wi[j] > 0.0);
+                assertEquals(-wi[j], wi[j + 1], 1E-12);
+                assertEquals(wr[j], wr[j + 1], 1E-12);
+                for (int i = 0; i < n; i++) {
+                    double re = Vr[i + j * n], im = Vr[i + (j + 1) * n];
+                    assertEquals(wr[j] * re - wi[j] * im, AV[i + j * n], 1E-10);
+                    assertEquals(wr[j] * im + wi[j] * re, AV[i + (j + 1) * n], 1E-10);
+
+                    // u^H * A = lambda * u^H
+                    re = Vl[i + j * n];
+                    im = Vl[i + (j + 1) * n];
+                    assertEquals(wr[j] * re + wi[j] * im, UA[j + i * n], 1E-10);
+                    assertEquals(wr[j] * im - wi[j] * re, UA[j + 1 + i * n], 1E-10);
+                }
+                complex += 2;
+                j++;
+            }
+        }
+        assertTrue(complex > 0);
+
+        // Unit norm
+        for (int j = 0; j < n; j++) {
+            double norm = 0.0;
+            for (int i = 0; i < n; i++) {
+                norm += Vr[i + j * n] * Vr[i + j * n];
+                if (wi[j] != 0.0) {
+                    int k = wi[j] > 0 ? j + 1 : j - 1;
+                    norm += Vr[i + k * n] * Vr[i + k * n];
+                }
+            }
+            assertEquals(1.0, norm, 1E-10);
+        }
+
+        // Row major
+        double[] R = new double[n * n];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                R[i * n + j] = A[i + j * n];
+            }
+        }
+        double[] er = new double[n];
+        double[] ei = new double[n];
+        assertEquals(0, lapack.geev(Layout.ROW_MAJOR, EVDJob.NO_VECTORS, EVDJob.NO_VECTORS, n, R, n, er, ei, new double[1], 1, new double[1], 1));
+        assertArrayEquals(wr, er, 1E-10);
+        assertArrayEquals(wi, ei, 1E-10);
+    }
+
+    @Test
+    public void testSVD() {
+        System.out.println("SVD");
+        int[][] shapes = {{160, 70}, {70, 160}, {90, 90}};
+        for (int[] shape : shapes) {
+            int m = shape[0], n = shape[1], k = Math.min(m, n);
+            double[] A = random(m, n);
+            // Rank deficient with the duplicate rows and columns.
+            System.arraycopy(A, 0, A, m, m);
+            for (int j = 0; j < n; j++) {
+                A[1 + j * m] = A[j * m];
+            }
+
+            double[] W = A.clone();
+            double[] s = new double[k];
+            double[] U = new double[m * k];
+            double[] VT = new double[k * n];
+            assertEquals(0, lapack.gesdd(Layout.COL_MAJOR, SVDJob.COMPACT, m, n, W, m, s, U, m, VT, k));
+            for (int i = 1; i < k; i++) {
+                assertTrue(s[i - 1] >= s[i]);
+            }
+            assertEquals(0.0, s[k - 1], 1E-10);
+            assertOrthonormal(m, k, U, 1E-10);
+            double[] V = new double[n * k];
+            for (int j = 0; j < k; j++) {
+                for (int i = 0; i < n; i++) {
+                    V[i + j * n] = VT[j + i * k];
+                }
+            }
+            assertOrthonormal(n, k, V, 1E-10);
+
+            // A = U * S * V'
+            for (int j = 0; j < k; j++) {
+                for (int i = 0; i < m; i++) {
+                    U[i + j * m] *= s[j];
+                }
+            }
+            double[] USV = multiply(m, n, k, U, m, Transpose.NO_TRANSPOSE, VT, k, Transpose.NO_TRANSPOSE);
+            for (int i = 0; i < A.length; i++) {
+                assertEquals(A[i], USV[i], 1E-10);
+            }
+
+            // The complete orthogonal matrices of row major matrix
+            double[] R = new double[m * n];
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i < m; i++) {
+                    R[i * n + j] = A[i + j * m];
+                }
+            }
+            double[] sv = new double[k];
+            double[] Ur = new double[m * m];
+            double[] Vr = new double[n * n];
+            assertEquals(0, lapack.gesvd(Layout.ROW_MAJOR, SVDJob.ALL, SVDJob.ALL, m, n, R, n, sv, Ur, m, Vr, n, new double[k]));
+            assertArrayEquals(s, sv, 1E-10);
+            double[] Uc = new double[m * m];
+            for (int j = 0; j < m; j++) {
+                for (int i = 0; i < m; i++) {
+                    Uc[i + j * m] = Ur[i * m + j];
+                }
+            }
+            assertOrthonormal(m, m, Uc, 1E-10);
+            // Vr is V' in row major, i.e. V in column major.
+            assertOrthonormal(n, n, Vr, 1E-10);
+
+            double[] sn = new double[k];
+            assertEquals(0, lapack.gesdd(Layout.COL_MAJOR, SVDJob.NO_VECTORS, m, n, A.clone(), m, sn, new double[1], 1, new double[1], 1));
+            assertArrayEquals(s, sn, 1E-10);
+        }
+    }
+
+
+    /** Returns the column major general band storage with kl extra rows for fill-ins. */
+    private double[] band(int n, int kl, int ku, double[] A) {
+        int ld = 2 * kl + ku + 1;
+        double[] AB = new double[ld * n];
+        for (int j = 0; j < n; j++) {
+            for (int i = Math.max(0, j - ku); i <= Math.min(n - 1, j + kl); i++) {
+                AB[kl + ku + i - j + j * ld] = A[i + j * n];
+            }
+        }
+        return AB;
+    }
+
+    /** Returns a random symmetric n x n matrix. */
+    private double[] symmetric(int n) {
+        double[] S = random(n, n);
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < j; i++) {
+                S[i + j * n] = S[j + i * n];
+            }
+        }
+        return S;
+    }
+
+    /** Returns the column major packed triangle of symmetric matrix. */
+    private double[] pack(UPLO uplo, int n, double[] S) {
+        double[] AP = new double[n * (n + 1) / 2];
+        for (int j = 0, k = 0; j < n; j++) {
+            int lo = uplo == UPLO.LOWER ? j : 0;
+            int hi = uplo == UPLO.LOWER ? n : j + 1;
+            for (int i = lo; i < hi; i++) {
+                AP[k++] = S[i + j * n];
+            }
+        }
+        return AP;
+    }
+
+    /** Returns the row major copy of column major matrix. */
+    private double[] rowMajor(int m, int n, double[] A) {
+        double[] R = new double[m * n];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                R[i * n + j] = A[i + j * m];
+            }
+        }
+        return R;
+    }
+
+    /** Asserts that op(A) * X = B. */
+    private void assertSolution(int n, int nrhs, double[] A, Transpose trans, double[] X, double[] B, double eps) {
+        double[] AX = multiply(n, nrhs, n, A, n, trans, X, n, Transpose.NO_TRANSPOSE);
+        for (int i = 0; i < B.length; i++) {
+            assertEquals(B[i], AX[i], eps);
+        }
+    }
+
+    @Test
+    public void testBandLU() {
+        System.out.println("gbtrf");
+        int n = 80, kl = 3, ku = 2, nrhs = 3;
+        int ld = 2 * kl + ku + 1;
+        double[] A = new double[n * n];
+        for (int j = 0; j < n; j++) {
+            for (int i = Math.max(0, j - ku); i <= Math.min(n - 1, j + kl); i++) {
+                A[i + j * n] = MathEx.random(-1, 1);
+            }
+        }
+
+        double[] LU = band(n, kl, ku, A);
+        int[] ipiv = new int[n];
+        assertEquals(0, lapack.gbtrf(Layout.COL_MAJOR, n, n, kl, ku, LU, ld, ipiv));
+
+        double[] D = A.clone();
+        int[] piv = new int[n];
+        assertEquals(0, lapack.getrf(Layout.COL_MAJOR, n, n, D, n, piv));
+        double det = 1.0, bandDet = 1.0;
+        for (int j = 0; j < n; j++) {
+            det *= D[j + j * n] * (piv[j] != j + 1 ? -1 : 1);
+            bandDet *= LU[kl + ku + j * ld] * (ipiv[j] != j + 1 ? -1 : 1);
+        }
+        assertEquals(1.0, bandDet / det, 1E-10);
+
+        double[] B = random(n, nrhs);
+        for (Transpose trans : Transpose.values()) {
+            if (trans == Transpose.CONJUGATE_TRANSPOSE) continue;
+            double[] X = B.clone();
+            assertEquals(0, lapack.gbtrs(Layout.COL_MAJOR, trans, n, kl, ku, nrhs, LU, ld, ipiv, X, n));
+            assertSolution(n, nrhs, A, trans, X, B, 1E-10);
+        }
+
+        double[] X = B.clone();
+        assertEquals(0, lapack.gbsv(Layout.COL_MAJOR, n, kl, ku, nrhs, band(n, kl, ku, A), ld, new int[n], X, n));
+        assertSolution(n, nrhs, A, Transpose.NO_TRANSPOSE, X, B, 1E-10);
+
+        // The row major band storage is the transpose of column major one.
+        double[] Y = rowMajor(n, nrhs, B);
+        assertEquals(0, lapack.gbsv(Layout.ROW_MAJOR, n, kl, ku, nrhs, rowMajor(ld, n, band(n, kl, ku, A)), n, new int[n], Y, nrhs));
+        assertArrayEquals(rowMajor(n, nrhs, X), Y, 1E-10);
+
+        float[] F = new float[ld * n];
+        double[] AB = band(n, kl, ku, A);
+        for (int i = 0; i < F.length; i++) {
+            F[i] = (float) AB[i];
+        }
+        float[] f = new float[n * nrhs];
+        for (int i = 0; i < f.length; i++) {
+            f[i] = (float) B[i];
+        }
+        assertEquals(0, lapack.gbtrf(Layout.COL_MAJOR, n, n, kl, ku, F, ld, ipiv));
+        assertEquals(0, lapack.gbtrs(Layout.COL_MAJOR, Transpose.NO_TRANSPOSE, n, kl, ku, nrhs, F, ld, ipiv, f, n));
+        for (int i = 0; i < f.length; i++) {
+            assertEquals(X[i], f[i], 1E-3 * Math.max(1.0, Math.abs(X[i])));
+        }
+    }
+
+    @Test
+    public void testBandCholesky() {
+        System.out.println("pbtrf");
+        int n = 80, kd = 4, nrhs = 3;
+        int ld = kd + 1;
+        double[] A = new double[n * n];
+        for (int j = 0; j < n; j++) {
+            A[j + j * n] = 2 * kd + MathEx.random();
+            for (int i = j + 1; i <= Math.min(n - 1, j + kd); i++) {
+                A[i + j * n] = MathEx.random(-1, 1);
+                A[j + i * n] = A[i + j * n];
+            }
+        }
+
+        double[] L = A.clone();
+        assertEquals(0, lapack.potrf(Layout.COL_MAJOR, UPLO.LOWER, n, L, n));
+
+        double[] B = random(n, nrhs);
+        for (UPLO uplo : UPLO.values()) {
+            double[] AB = new double[ld * n];
+            for (int j = 0; j < n; j++) {
+                for (int i = Math.max(0, j - kd); i <= Math.min(n - 1, j + kd); i++) {
+                    if (uplo == UPLO.LOWER && i >= j) AB[i - j + j * ld] = A[i + j * n];
+                    if (uplo == UPLO.UPPER && i <= j) AB[kd + i - j + j * ld] = A[i + j * n];
+                }
+            }
+
+            double[] U = AB.clone();
+            assertEquals(0, lapack.pbtrf(Layout.COL_MAJOR, uplo, n, kd, U, ld));
+            for (int j = 0; j < n; j++) {
+                assertEquals(L[j + j * n], U[(uplo == UPLO.LOWER ? 0 : kd) + j * ld], 1E-10);
+            }
+
+            double[] X = B.clone();
+            assertEquals(0, lapack.pbtrs(Layout.COL_MAJOR, uplo, n, kd, nrhs, U, ld, X, n));
+            assertSolution(n, nrhs, A, Transpose.NO_TRANSPOSE, X, B, 1E-10);
+
+            // The row major band storage is the transpose of column major one.
+            double[] R = rowMajor(ld, n, AB);
+            double[] Z = rowMajor(n, nrhs, B);
+            assertEquals(0, lapack.pbtrf(Layout.ROW_MAJOR, uplo, n, kd, R, n));
+            assertEquals(0, lapack.pbtrs(Layout.ROW_MAJOR, uplo, n, kd, nrhs, R, n, Z, nrhs));
+            assertArrayEquals(rowMajor(n, nrhs, X), Z, 1E-10);
+        }
+
+        // Not positive definite.
+        A[40 + 40 * n] = -1.0;
+        double[] AB = new double[ld * n];
+        for (int j = 0; j < n; j++) {
+            for (int i = j; i <= Math.min(n - 1, j + kd); i++) {
+                AB[i - j + j * ld] = A[i + j * n];
+            }
+        }
+        assertEquals(41, lapack.pbtrf(Layout.COL_MAJOR, UPLO.LOWER, n, kd, AB, ld));
+    }
+
+    @Test
+    public void testPackedBunchKaufman() {
+        System.out.println("sptrf");
+        int n = 90, nrhs = 3;
+        double[] S = symmetric(n);
+        // Zero diagonal forces 2 x 2 pivots.
+        for (int i = 0; i < n; i += 2) {
+            S[i + i * n] = 0.0;
+        }
+
+        double[] B = random(n, nrhs);
+        for (UPLO uplo : UPLO.values()) {
+            double[] AP = pack(uplo, n, S);
+            int[] ipiv = new int[n];
+            assertEquals(0, lapack.sptrf(Layout.COL_MAJOR, uplo, n, AP, ipiv));
+
+            double[] X = B.clone();
+            assertEquals(0, lapack.sptrs(Layout.COL_MAJOR, uplo, n, nrhs, AP, ipiv, X, n));
+            assertSolution(n, nrhs, S, Transpose.NO_TRANSPOSE, X, B, 1E-10);
+
+            double[] Y = B.clone();
+            assertEquals(0, lapack.spsv(Layout.COL_MAJOR, uplo, n, nrhs, pack(uplo, n, S), new int[n], Y, n));
+            assertArrayEquals(X, Y, 1E-10);
+
+            // The row major upper packed triangle is the column major lower one.
+            double[] Z = rowMajor(n, nrhs, B);
+            UPLO flip = uplo == UPLO.LOWER ? UPLO.UPPER : UPLO.LOWER;
+            assertEquals(0, lapack.spsv(Layout.ROW_MAJOR, flip, n, nrhs, pack(uplo, n, S), new int[n], Z, nrhs));
+            assertArrayEquals(rowMajor(n, nrhs, X), Z, 1E-10);
+
+            float[] F = new float[AP.length];
+            double[] P = pack(uplo, n, S);
+            for (int i = 0; i < F.length; i++) {
+                F[i] = (float) P[i];
+            }
+            float[] f = new float[n * nrhs];
+            for (int i = 0; i < f.length; i++) {
+                f[i] = (float) B[i];
+            }
+            assertEquals(0, lapack.spsv(Layout.COL_MAJOR, uplo, n, nrhs, F, new int[n], f, n));
+            for (int i = 0; i < f.length; i++) {
+                assertEquals(X[i], f[i], 1E-3 * Math.max(1.0, Math.abs(X[i])));
+            }
+        }
+    }
+
+    @Test
+    public void testPackedCholesky() {
+        System.out.println("pptrf");
+        int n = 90, nrhs = 3;
+        double[] G = random(n, n);
+        double[] A = multiply(n, n, n, G, n, Transpose.TRANSPOSE, G, n, Transpose.NO_TRANSPOSE);
+        for (int i = 0; i < n; i++) {
+            A[i + i * n] += 1.0;
+        }
+
+        double[] L = A.clone();
+        assertEquals(0, lapack.potrf(Layout.COL_MAJOR, UPLO.LOWER, n, L, n));
+
+        double[] B = random(n, nrhs);
+        for (UPLO uplo : UPLO.values()) {
+            double[] AP = pack(uplo, n, A);
+            assertEquals(0, lapack.pptrf(Layout.COL_MAJOR, uplo, n, AP));
+            for (int j = 0; j < n; j++) {
+                assertEquals(L[j + j * n], AP[JavaBLAS.packed(uplo, n, j) + (uplo == UPLO.LOWER ? 0 : j)], 1E-10);
+            }
+
+            double[] X = B.clone();
+            assertEquals(0, lapack.pptrs(Layout.COL_MAJOR, uplo, n, nrhs, AP, X, n));
+            assertSolution(n, nrhs, A, Transpose.NO_TRANSPOSE, X, B, 1E-10);
+
+            double[] Y = B.clone();
+            assertEquals(0, lapack.ppsv(Layout.COL_MAJOR, uplo, n, nrhs, pack(uplo, n, A), Y, n));
+            assertArrayEquals(X, Y, 1E-10);
+
+            double[] Z = rowMajor(n, nrhs, B);
+            UPLO flip = uplo == UPLO.LOWER ? UPLO.UPPER : UPLO.LOWER;
+            assertEquals(0, lapack.ppsv(Layout.ROW_MAJOR, flip, n, nrhs, pack(uplo, n, A), Z, nrhs));
+            assertArrayEquals(rowMajor(n, nrhs, X), Z, 1E-10);
+        }
+
+        A[30 + 30 * n] = -1.0;
+        assertEquals(31, lapack.pptrf(Layout.COL_MAJOR, UPLO.LOWER, n, pack(UPLO.LOWER, n, A)));
+    }
+
+    @Test
+    public void testLeastSquares() {
+        System.out.println("gels");
+        int nrhs = 2;
+        int[][] shapes = {{90, 40}, {40, 90}};
+        for (int[] shape : shapes) {
+            int m = shape[0], n = shape[1];
+            double[] A = random(m, n);
+            for (Transpose trans : Transpose.values()) {
+                if (trans == Transpose.CONJUGATE_TRANSPOSE) continue;
+                // op(A) is p x q.
+                int p = trans == Transpose.NO_TRANSPOSE ? m : n;
+                int q = trans == Transpose.NO_TRANSPOSE ? n : m;
+                int ldb = Math.max(m, n);
+                double[] B = new double[ldb * nrhs];
+                for (int j = 0; j < nrhs; j++) {
+                    for (int i = 0; i < p; i++) {
+                        B[i + j * ldb] = MathEx.random(-1, 1);
+                    }
+                }
+
+                double[] X = B.clone();
+                assertEquals(0, lapack.gels(Layout.COL_MAJOR, trans, m, n, nrhs, A.clone(), m, X, ldb));
+
+                // The minimum norm least squares solution by SVD.
+                double[] opA = new double[p * q];
+                for (int j = 0; j < q; j++) {
+                    for (int i = 0; i < p; i++) {
+                        opA[i + j * p] = get(A, m, trans, i, j);
+                    }
+                }
+                double[] Y = B.clone();
+                double[] s = new double[Math.min(m, n)];
+                int[] rank = new int[1];
+                assertEquals(0, lapack.gelss(Layout.COL_MAJOR, p, q, nrhs, opA.clone(), p, Y, ldb, s, -1, rank));
+                assertEquals(Math.min(m, n), rank[0]);
+
+                double[] Z = B.clone();
+                assertEquals(0, lapack.gelsd(Layout.COL_MAJOR, p, q, nrhs, opA.clone(), p, Z, ldb, s, -1, rank));
+
+                double[] W = B.clone();
+                assertEquals(0, lapack.gelsy(Layout.COL_MAJOR, p, q, nrhs, opA.clone(), p, W, ldb, new int[q], 1E-10, rank));
+                assertEquals(Math.min(m, n), rank[0]);
+
+                for (int j = 0; j < nrhs; j++) {
+                    for (int i = 0; i < q; i++) {
+                        assertEquals(Y[i + j * ldb], X[i + j * ldb], 1E-10);
+                        assertEquals(Y[i + j * ldb], Z[i + j * ldb], 1E-10);
+                        assertEquals(Y[i + j * ldb], W[i + j * ldb], 1E-10);
+                    }
+                }
+
+                if (p > q) {
+                    // The normal equations A' * (A * x - b) = 0.
+                    double[] R = new double[p * nrhs];
+                    for (int j = 0; j < nrhs; j++) {
+                        for (int i = 0; i < p; i++) {
+                            double r = -B[i + j * ldb];
+                            for (int k = 0; k < q; k++) {
+                                r += opA[i + k * p] * X[k + j * ldb];
+                            }
+                            R[i + j * p] = r;
+                        }
+                    }
+                    double[] AR = multiply(q, nrhs, p, opA, p, Transpose.TRANSPOSE, R, p, Transpose.NO_TRANSPOSE);
+                    for (double r : AR) {
+                        assertEquals(0.0, r, 1E-10);
+                    }
+                }
+            }
+        }
+
+        // Rank deficient matrix.
+        int m = 70, n = 50, r = 30;
+        double[] A = multiply(m, n, r, random(m, r), m, Transpose.NO_TRANSPOSE, random(r, n), r, Transpose.NO_TRANSPOSE);
+        double[] B = random(m, nrhs);
+        double[] X = B.clone();
+        int[] rank = new int[1];
+        assertEquals(0, lapack.gelss(Layout.COL_MAJOR, m, n, nrhs, A.clone(), m, X, m, new double[n], 1E-10, rank));
+        assertEquals(r, rank[0]);
+
+        double[] Y = B.clone();
+        assertEquals(0, lapack.gelsy(Layout.COL_MAJOR, m, n, nrhs, A.clone(), m, Y, m, new int[n], 1E-10, rank));
+        assertEquals(r, rank[0]);
+        for (int j = 0; j < nrhs; j++) {
+            for (int i = 0; i < n; i++) {
+                assertEquals(X[i + j * m], Y[i + j * m], 1E-8);
+            }
+        }
+
+        double[] Z = rowMajor(m, nrhs, B);
+        assertEquals(0, lapack.gelsy(Layout.ROW_MAJOR, m, n, nrhs, rowMajor(m, n, A), n, Z, nrhs, new int[n], 1E-10, rank));
+        for (int j = 0; j < nrhs; j++) {
+            for (int i = 0; i < n; i++) {
+                assertEquals(X[i + j * m], Z[i * nrhs + j], 1E-8);
+            }
+        }
+
+        float[] F = new float[m * n];
+        for (int i = 0; i < F.length; i++) {
+            F[i] = (float) A[i];
+        }
+        float[] f = new float[m * nrhs];
+        for (int i = 0; i < f.length; i++) {
+            f[i] = (float) B[i];
+        }
+        assertEquals(0, lapack.gelsd(Layout.COL_MAJOR, m, n, nrhs, F, m, f, m, new float[n], 1E-5f, rank));
+        assertEquals(r, rank[0]);
+        for (int j = 0; j < nrhs; j++) {
+            for (int i = 0; i < n; i++) {
+                assertEquals(X[i + j * m], f[i + j * m], 1E-3);
+            }
+        }
+    }
+
+    @Test
+    public void testGglse() {
+        System.out.println("gglse");
+        int m = 60, n = 25, p = 6;
+        double[] A = random(m, n);
+        double[] B = random(p, n);
+        double[] c = random(m, 1);
+        double[] d = random(p, 1);
+
+        double[] x = new double[n];
+        double[] r = c.clone();
+        assertEquals(0, lapack.gglse(Layout.COL_MAJOR, m, n, p, A.clone(), m, B.clone(), p, r, d.clone(), x));
+
+        // The KKT system [A'A B'; B 0] [x; l] = [A'c; d].
+        int k = n + p;
+        double[] K = new double[k * k];
+        double[] AA = multiply(n, n, m, A, m, Transpose.TRANSPOSE, A, m, Transpose.NO_TRANSPOSE);
+        double[] Ac = multiply(n, 1, m, A, m, Transpose.TRANSPOSE, c, m, Transpose.NO_TRANSPOSE);
+        double[] y = new double[k];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                K[i + j * k] = AA[i + j * n];
+            }
+            for (int i = 0; i < p; i++) {
+                K[n + i + j * k] = B[i + j * p];
+                K[j + (n + i) * k] = B[i + j * p];
+            }
+            y[j] = Ac[j];
+        }
+        System.arraycopy(d, 0, y, n, p);
+        assertEquals(0, lapack.gesv(Layout.COL_MAJOR, k, 1, K, k, new int[k], y, k));
+        for (int i = 0; i < n; i++) {
+            assertEquals(y[i], x[i], 1E-10);
+        }
+
+        // The residual sum of squares.
+        double[] Ax = multiply(m, 1, n, A, m, Transpose.NO_TRANSPOSE, x, n, Transpose.NO_TRANSPOSE);
+        double rss = 0.0, tail = 0.0;
+        for (int i = 0; i < m; i++) {
+            rss += (Ax[i] - c[i]) * (Ax[i] - c[i]);
+        }
+        for (int i = n - p; i < m; i++) {
+            tail += r[i] * r[i];
+        }
+        assertEquals(rss, tail, 1E-10);
+
+        double[] z = new double[n];
+        assertEquals(0, lapack.gglse(Layout.ROW_MAJOR, m, n, p, rowMajor(m, n, A), n, rowMajor(p, n, B), n, c.clone(), d.clone(), z));
+        assertArrayEquals(x, z, 1E-10);
+    }
+
+    @Test
+    public void testGgglm() {
+        System.out.println("ggglm");
+        int n = 40, m = 15, p = 30;
+        double[] A = random(n, m);
+        double[] B = random(n, p);
+        double[] d = random(n, 1);
+
+        double[] x = new double[m];
+        double[] y = new double[p];
+        assertEquals(0, lapack.ggglm(Layout.COL_MAJOR, n, m, p, A.clone(), n, B.clone(), n, d.clone(), x, y));
+
+        // The KKT system [0 0 A'; 0 I -B'; A B 0] [x; y; l] = [0; 0; d].
+        int k = m + p + n;
+        double[] K = new double[k * k];
+        double[] z = new double[k];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                K[j + (m + p + i) * k] = A[i + j * n];
+                K[m + p + i + j * k] = A[i + j * n];
+            }
+            for (int j = 0; j < p; j++) {
+                K[m + j + (m + p + i) * k] = -B[i + j * n];
+                K[m + p + i + (m + j) * k] = B[i + j * n];
+            }
+            z[m + p + i] = d[i];
+        }
+        for (int j = 0; j < p; j++) {
+            K[m + j + (m + j) * k] = 1.0;
+        }
+        assertEquals(0, lapack.gesv(Layout.COL_MAJOR, k, 1, K, k, new int[k], z, k));
+        for (int i = 0; i < m; i++) {
+            assertEquals(z[i], x[i], 1E-10);
+        }
+        for (int i = 0; i < p; i++) {
+            assertEquals(z[m + i], y[i], 1E-10);
+        }
+
+        double[] u = new double[m];
+        double[] v = new double[p];
+        assertEquals(0, lapack.ggglm(Layout.ROW_MAJOR, n, m, p, rowMajor(n, m, A), m, rowMajor(n, p, B), p, d.clone(), u, v));
+        assertArrayEquals(x, u, 1E-10);
+        assertArrayEquals(y, v, 1E-10);
+    }
+
+    @Test
+    public void testSyevr() {
+        System.out.println("syevr");
+        int n = 60;
+        double[] S = symmetric(n);
+        double[] w = new double[n];
+        assertEquals(0, lapack.syevd(Layout.COL_MAJOR, EVDJob.NO_VECTORS, UPLO.LOWER, n, S.clone(), n, w));
+
+        int[] m = new int[1];
+        double[] e = new double[n];
+        double[] Z = new double[n * n];
+        int[] isuppz = new int[2 * n];
+        assertEquals(0, lapack.syevr(Layout.COL_MAJOR, EVDJob.VECTORS, EigenRange.ALL, UPLO.UPPER, n, S.clone(), n, 0.0, 0.0, 0, 0, 0.0, m, e, Z, n, isuppz));
+        assertEquals(n, m[0]);
+        assertArrayEquals(w, e, 1E-10);
+
+        assertEquals(0, lapack.syevr(Layout.COL_MAJOR, EVDJob.VECTORS, EigenRange.INDEX, UPLO.LOWER, n, S.clone(), n, 0.0, 0.0, 5, 12, 0.0, m, e, Z, n, isuppz));
+        assertEquals(8, m[0]);
+        double[] SZ = multiply(n, m[0], n, S, n, Transpose.NO_TRANSPOSE, Z, n, Transpose.NO_TRANSPOSE);
+        for (int j = 0; j < m[0]; j++) {
+            assertEquals(w[j + 4], e[j], 1E-10);
+            for (int i = 0; i < n; i++) {
+                assertEquals(Z[i + j * n] * e[j], SZ[i + j * n], 1E-10);
+            }
+        }
+        assertOrthonormal(n, m[0], Z, 1E-10);
+
+        // The half-open interval (vl, vu].
+        assertEquals(0, lapack.syevr(Layout.ROW_MAJOR, EVDJob.NO_VECTORS, EigenRange.VALUE, UPLO.UPPER, n, S.clone(), n, w[9], w[29], 0, 0, 0.0, m, e, Z, n, isuppz));
+        assertEquals(20, m[0]);
+        for (int j = 0; j < m[0]; j++) {
+            assertEquals(w[j + 10], e[j], 1E-10);
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnsupported() {
+        System.out.println("unsupported");
+        lapack.gesv(Layout.COL_MAJOR, 1, 1, (DoublePointer) null, 1, (IntPointer) null, (DoublePointer) null, 1);
+    }
+}
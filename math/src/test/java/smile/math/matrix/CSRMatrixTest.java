@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.math.matrix;
+
+import smile.math.MathEx;
+import smile.util.SparseArray;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static smile.math.blas.Transpose.TRANSPOSE;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class CSRMatrixTest {
+
+    double[][] A = {
+            {0.9000, 0.4000, 0.0000},
+            {0.4000, 0.5000, 0.3000},
+            {0.0000, 0.3000, 0.8000},
+            {0.0000, 0.0000, 0.6000}
+    };
+
+    CSRMatrix csr = new SparseMatrix(A, 1E-8).toCSR();
+
+    public CSRMatrixTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testGet() {
+        System.out.println("get");
+        assertEquals(4, csr.nrow());
+        assertEquals(3, csr.ncol());
+        assertEquals(8, csr.size());
+        for (int i = 0; i < A.length; i++) {
+            for (int j = 0; j < A[i].length; j++) {
+                assertEquals(A[i][j], csr.get(i, j), 0.0);
+            }
+        }
+
+        SparseArray row = csr.row(1);
+        assertEquals(3, row.size());
+        assertEquals(0.3, row.get(2), 0.0);
+        assertEquals(0.0, csr.row(3).get(0), 0.0);
+        assertEquals(0.8, csr.dot(0, new double[]{1.0, -0.25, 5.0}), 1E-15);
+        assertArrayEquals(new double[]{0.9, 0.5, 0.8}, csr.diag(), 0.0);
+    }
+
+    @Test
+    public void testConversion() {
+        System.out.println("conversion");
+        SparseMatrix csc = csr.toCSC();
+        CSRMatrix t = csr.transpose();
+        assertEquals(3, t.nrow());
+        assertEquals(4, t.ncol());
+        for (int i = 0; i < A.length; i++) {
+            for (int j = 0; j < A[i].length; j++) {
+                assertEquals(A[i][j], csc.get(i, j), 0.0);
+                assertEquals(A[i][j], t.get(j, i), 0.0);
+            }
+        }
+
+        int[] count = new int[1];
+        csr.forEachNonZero(1, 3, (i, j, x) -> {
+            assertTrue(i >= 1 && i < 3);
+            assertEquals(A[i][j], x, 0.0);
+            count[0]++;
+        });
+        assertEquals(5, count[0]);
+    }
+
+    @Test
+    public void testMv() {
+        System.out.println("mv");
+        MathEx.setSeed(19650218);
+        int m = 3000, n = 1000;
+        double[][] d = new double[m][n];
+        for (int k = 0; k < 100000; k++) {
+            d[MathEx.randomInt(m)][MathEx.randomInt(n)] = MathEx.random() - 0.5;
+        }
+        CSRMatrix a = new SparseMatrix(d, 1E-12).toCSR();
+        Matrix dense = Matrix.of(d);
+
+        double[] x = new double[n];
+        double[] y = new double[m];
+        for (int j = 0; j < n; j++) x[j] = MathEx.random();
+        for (int i = 0; i < m; i++) y[i] = MathEx.random();
+        assertArrayEquals(dense.mv(x), a.mv(x), 1E-10);
+        assertArrayEquals(dense.tv(y), a.tv(y), 1E-10);
+
+        double[] z = y.clone();
+        double[] expected = y.clone();
+        a.mv(0.5, x, 2.0, z);
+        dense.mv(0.5, x, 2.0, expected);
+        assertArrayEquals(expected, z, 1E-10);
+
+        z = x.clone();
+        expected = x.clone();
+        a.mv(TRANSPOSE, 0.5, y, 2.0, z);
+        dense.mv(TRANSPOSE, 0.5, y, 2.0, expected);
+        assertArrayEquals(expected, z, 1E-10);
+    }
+}
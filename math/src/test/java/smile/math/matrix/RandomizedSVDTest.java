@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.math.matrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import smile.math.MathEx;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class RandomizedSVDTest {
+
+    public RandomizedSVDTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Returns a random matrix with exponentially decaying singular values.
+     */
+    private Matrix lowrank(int m, int n) {
+        int r = Math.min(m, n);
+        Matrix U = Matrix.randn(m, r).qr(true).Q();
+        Matrix V = Matrix.randn(n, r).qr(true).Q();
+        for (int j = 0; j < r; j++) {
+            double s = 100 * Math.pow(0.7, j);
+            for (int i = 0; i < m; i++) {
+                U.mul(i, j, s);
+            }
+        }
+        return U.mt(V);
+    }
+
+    /**
+     * Asserts that the singular vectors are equal up to signs.
+     */
+    private void assertVectors(Matrix expected, Matrix actual, int k, double eps) {
+        for (int j = 0; j < k; j++) {
+            double sign = Math.signum(expected.get(0, j) * actual.get(0, j));
+            for (int i = 0; i < expected.nrow(); i++) {
+                assertEquals(expected.get(i, j), sign * actual.get(i, j), eps);
+            }
+        }
+    }
+
+    @Test
+    public void testTall() {
+        System.out.println("tall");
+        MathEx.setSeed(19650218);
+        Matrix A = lowrank(500, 80);
+        Matrix.SVD svd = A.svd();
+        Matrix.SVD rsvd = A.rsvd(10);
+
+        assertEquals(500, rsvd.m);
+        assertEquals(80, rsvd.n);
+        assertEquals(10, rsvd.s.length);
+        assertArrayEquals(Arrays.copyOf(svd.s, 10), rsvd.s, 1E-7);
+        assertVectors(svd.U, rsvd.U, 10, 1E-7);
+        assertVectors(svd.V, rsvd.V, 10, 1E-7);
+    }
+
+    @Test
+    public void testWide() {
+        System.out.println("wide");
+        MathEx.setSeed(19650218);
+        Matrix A = lowrank(60, 400);
+        Matrix.SVD svd = A.svd();
+        Matrix.SVD rsvd = A.rsvd(8, 10, 4);
+
+        assertEquals(60, rsvd.U.nrow());
+        assertEquals(400, rsvd.V.nrow());
+        assertArrayEquals(Arrays.copyOf(svd.s, 8), rsvd.s, 1E-6);
+        assertVectors(svd.U, rsvd.U, 8, 1E-6);
+        assertVectors(svd.V, rsvd.V, 8, 1E-6);
+    }
+
+    @Test
+    public void testSparse() {
+        System.out.println("sparse");
+        MathEx.setSeed(19650218);
+        int m = 1000, n = 300;
+        double[][] data = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                // Each row is sampled from one of 4 topics of 75 columns.
+                double prob = j / 75 == i % 4 ? 0.3 : 0.01;
+                if (MathEx.random() < prob) {
+                    data[i][j] = MathEx.random() + 1.0;
+                }
+            }
+        }
+
+        double[] mu = MathEx.colMeans(data);
+        Matrix X = Matrix.of(data);
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                X.sub(i, j, mu[j]);
+            }
+        }
+
+        Matrix.SVD svd = X.svd();
+        SparseMatrix sparse = new SparseMatrix(data);
+        Matrix.SVD rsvd = RandomizedSVD.of(sparse, mu, 3, 10, 5);
+        assertArrayEquals(Arrays.copyOf(svd.s, 3), rsvd.s, 1E-6);
+        assertVectors(svd.U, rsvd.U, 3, 1E-5);
+        assertVectors(svd.V, rsvd.V, 3, 1E-5);
+
+        rsvd = RandomizedSVD.of(sparse.toCSR(), mu, 3, 10, 5);
+        assertArrayEquals(Arrays.copyOf(svd.s, 3), rsvd.s, 1E-6);
+    }
+
+    @Test
+    public void testRowBlocks() {
+        System.out.println("row blocks");
+        MathEx.setSeed(19650218);
+        Matrix A = lowrank(700, 50);
+        List<Matrix> blocks = new ArrayList<>();
+        for (int i = 0; i < 700; i += 128) {
+            blocks.add(A.submatrix(i, 0, Math.min(i + 128, 700) - 1, 49));
+        }
+
+        Matrix.SVD svd = A.svd();
+        Matrix.SVD rsvd = RandomizedSVD.of(blocks, 6);
+        assertEquals(700, rsvd.m);
+        assertEquals(50, rsvd.n);
+        assertNull(rsvd.U);
+        assertArrayEquals(Arrays.copyOf(svd.s, 6), rsvd.s, 1E-6);
+        assertVectors(svd.V, rsvd.V, 6, 1E-6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRank() {
+        System.out.println("invalid rank");
+        Matrix.randn(10, 5).rsvd(6);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.math.matrix;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Path;
+import smile.math.MathEx;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static smile.math.blas.Transpose.TRANSPOSE;
+import static smile.math.blas.UPLO.LOWER;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class TiledMatrixTest {
+
+    Matrix A;
+    TiledMatrix tiled;
+
+    public TiledMatrixTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        MathEx.setSeed(19650218);
+        A = Matrix.randn(53, 19);
+        tiled = TiledMatrix.of(A, 8);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        tiled.close();
+    }
+
+    @Test
+    public void testGetSet() {
+        System.out.println("get/set");
+        assertEquals(53, tiled.nrow());
+        assertEquals(19, tiled.ncol());
+        assertEquals(8, tiled.tileSize());
+        for (int i = 0; i < A.nrow(); i++) {
+            for (int j = 0; j < A.ncol(); j++) {
+                assertEquals(A.get(i, j), tiled.get(i, j), 0.0);
+            }
+        }
+
+        tiled.set(50, 17, 3.0);
+        assertEquals(3.0, tiled.get(50, 17), 0.0);
+
+        Matrix sub = tiled.submatrix(5, 3, 20, 18);
+        assertEquals(16, sub.nrow());
+        assertEquals(16, sub.ncol());
+        for (int i = 0; i < sub.nrow(); i++) {
+            for (int j = 0; j < sub.ncol(); j++) {
+                assertEquals(tiled.get(i + 5, j + 3), sub.get(i, j), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testOpen() throws Exception {
+        System.out.println("open");
+        File file = File.createTempFile("tiled", ".tile");
+        file.deleteOnExit();
+        Path path = file.toPath();
+        try (TiledMatrix matrix = new TiledMatrix(53, 19, 8, path)) {
+            matrix.set(0, 0, A);
+        }
+
+        try (TiledMatrix matrix = TiledMatrix.open(path)) {
+            assertEquals(53, matrix.nrow());
+            assertEquals(19, matrix.ncol());
+            assertTrue(A.equals(matrix.toMatrix(), 1E-15));
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        System.out.println("serialization");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(tiled);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            TiledMatrix matrix = (TiledMatrix) in.readObject();
+            assertEquals(53, matrix.nrow());
+            assertEquals(19, matrix.ncol());
+            assertEquals(A.get(50, 17), matrix.get(50, 17), 0.0);
+            matrix.set(50, 17, 3.0);
+            assertEquals(3.0, tiled.get(50, 17), 0.0);
+            assertTrue(tiled.toMatrix().equals(matrix.toMatrix(), 1E-15));
+            matrix.close();
+        }
+    }
+
+    @Test
+    public void testMv() {
+        System.out.println("mv");
+        double[] x = new double[19];
+        double[] y = new double[53];
+        for (int i = 0; i < x.length; i++) x[i] = MathEx.random();
+        for (int i = 0; i < y.length; i++) y[i] = MathEx.random();
+        assertArrayEquals(A.mv(x), tiled.mv(x), 1E-12);
+        assertArrayEquals(A.tv(y), tiled.tv(y), 1E-12);
+
+        double[] z = y.clone();
+        double[] expected = y.clone();
+        tiled.mv(2.0, x, 0.5, z);
+        A.mv(2.0, x, 0.5, expected);
+        assertArrayEquals(expected, z, 1E-12);
+
+        z = x.clone();
+        expected = x.clone();
+        tiled.mv(TRANSPOSE, 2.0, y, 0.5, z);
+        A.mv(TRANSPOSE, 2.0, y, 0.5, expected);
+        assertArrayEquals(expected, z, 1E-12);
+    }
+
+    @Test
+    public void testMm() throws Exception {
+        System.out.println("mm");
+        Matrix B = Matrix.randn(19, 30);
+        try (TiledMatrix b = TiledMatrix.of(B, 8);
+             TiledMatrix c = tiled.mm(b)) {
+            assertTrue(A.mm(B).equals(c.toMatrix(), 1E-12));
+        }
+
+        try (TiledMatrix ata = tiled.ata()) {
+            assertTrue(A.ata().equals(ata.toMatrix(), 1E-12));
+        }
+    }
+
+    @Test
+    public void testCholesky() throws Exception {
+        System.out.println("cholesky");
+        double[] b = new double[19];
+        for (int i = 0; i < b.length; i++) b[i] = MathEx.random();
+
+        Matrix ata = A.ata();
+        ata.uplo(LOWER);
+        Matrix.Cholesky expected = ata.cholesky();
+
+        try (TiledMatrix C = tiled.ata()) {
+            TiledMatrix.Cholesky cholesky = C.cholesky();
+            assertArrayEquals(expected.solve(b), cholesky.solve(b), 1E-10);
+            assertEquals(expected.logdet(), cholesky.logdet(), 1E-10);
+            cholesky.L.close();
+        }
+    }
+
+    @Test
+    public void testTSQR() {
+        System.out.println("tsqr");
+        double[] y = new double[53];
+        for (int i = 0; i < y.length; i++) y[i] = MathEx.random();
+
+        Matrix R = tiled.tsqr();
+        assertTrue(A.ata().equals(R.tm(R), 1E-10));
+
+        Matrix Ry = tiled.tsqr(y);
+        double[] c = new double[19];
+        Matrix R0 = Ry.submatrix(0, 0, 18, 18);
+        for (int i = 0; i < 19; i++) {
+            c[i] = Ry.get(i, 19);
+        }
+        double[] w = R0.inverse().mv(c);
+        assertArrayEquals(A.qr().solve(y), w, 1E-10);
+    }
+}
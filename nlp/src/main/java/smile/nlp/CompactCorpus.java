@@ -0,0 +1,1112 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.nlp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import smile.nlp.dictionary.EnglishPunctuations;
+import smile.nlp.dictionary.EnglishStopWords;
+import smile.nlp.dictionary.Punctuations;
+import smile.nlp.dictionary.StopWords;
+import smile.nlp.relevance.BM25;
+import smile.nlp.relevance.Relevance;
+import smile.nlp.relevance.RelevanceRanker;
+import smile.nlp.relevance.TFIDF;
+import smile.nlp.tokenizer.SentenceSplitter;
+import smile.nlp.tokenizer.SimpleSentenceSplitter;
+import smile.nlp.tokenizer.SimpleTokenizer;
+import smile.nlp.tokenizer.Tokenizer;
+import smile.util.MutableInt;
+
+/**
+ * A text corpus with a compact inverted index. Unlike {@link SimpleCorpus},
+ * which keeps the documents and lists of document references in the heap,
+ * this corpus keeps only the id and title of documents, and the postings
+ * are compressed as variable-length integers of document number gaps and
+ * term frequencies. The document lengths and maximum term frequencies are
+ * kept in primitive arrays for ranking. The index can be written to a file
+ * and opened with memory mapping so that it is not limited by the heap.
+ * <p>
+ * The top-k search uses the block-max WAND algorithm, which skips the
+ * documents and blocks of postings whose upper bound of relevance score
+ * cannot enter the top k. The upper bounds are derived from the maximum
+ * term frequency and the range of document length of each term and block,
+ * which are valid for {@link BM25} and {@link TFIDF}. With other rankers,
+ * the search evaluates all matching documents. As the index does not keep
+ * the document bodies, the rankers are given the document length and
+ * maximum term frequency only.
+ * <p>
+ * The documents are numbered in the order of addition. The bodies of
+ * documents returned by the search are null.
+ * <p>
+ * The index file layout is
+ * <pre>
+ *     header                     magic "SMILEIDX", version, segment bits,
+ *                                counts and section offsets
+ *     document lengths           n ints
+ *     maximum term frequencies   n ints
+ *     document texts             n x (id, title)
+ *     document text offsets      n longs
+ *     posting lists              block entries and encoded postings
+ *     term records               (term, count, df, max tf, min length,
+ *                                max length, size, posting list offset)
+ *     term record offsets        longs
+ *     bigram records             (w1, w2, count)
+ *     bigram record offsets      longs
+ * </pre>
+ * All integers are little-endian. Strings are stored as (int length,
+ * UTF-8 bytes) where the length of null is -1. No record crosses the
+ * boundary of 1 GB segments, which are memory-mapped separately.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li> A. Z. Broder, D. Carmel, M. Herscovici, A. Soffer, and J. Zien. Efficient query evaluation using a two-level retrieval process. CIKM, 2003.</li>
+ * <li> S. Ding and T. Suel. Faster top-k document retrieval using block-max indexes. SIGIR, 2011.</li>
+ * </ol>
+ *
+ * @author Haifeng Li
+ */
+public class CompactCorpus implements Corpus {
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CompactCorpus.class);
+
+    /** The magic bytes at the beginning of file. */
+    private static final byte[] MAGIC = "SMILEIDX".getBytes(StandardCharsets.US_ASCII);
+    /** The format version. */
+    private static final int VERSION = 1;
+    /** The size of header. */
+    private static final int HEADER_SIZE = 96;
+    /** The default number of bits of segment size. */
+    private static final int SEGMENT_BITS = 30;
+    /** The size of I/O buffer. */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The number of terms in the corpus.
+     */
+    private long size;
+    /**
+     * The number of documents.
+     */
+    private int ndoc;
+    /**
+     * The posting lists, which also count the frequency of single tokens.
+     */
+    private final HashMap<String, PostingList> index = new HashMap<>();
+    /**
+     * Frequency of bigrams.
+     */
+    private final HashMap<Bigram, MutableInt> freq2 = new HashMap<>();
+    /**
+     * The length of documents.
+     */
+    private int[] length = new int[1024];
+    /**
+     * The maximum term frequency of documents.
+     */
+    private int[] maxtf = new int[1024];
+    /**
+     * The id of documents.
+     */
+    private final List<String> ids = new ArrayList<>();
+    /**
+     * The title of documents.
+     */
+    private final List<String> titles = new ArrayList<>();
+    /**
+     * Sentence splitter.
+     */
+    private final SentenceSplitter splitter;
+    /**
+     * Tokenizer.
+     */
+    private final Tokenizer tokenizer;
+    /**
+     * The set of stop words.
+     */
+    private final StopWords stopWords;
+    /**
+     * The set of punctuations marks.
+     */
+    private final Punctuations punctuations;
+
+    /**
+     * The memory-mapped segments of index file.
+     */
+    private ByteBuffer[] segments;
+    /**
+     * The number of bits of segment size.
+     */
+    private int segmentBits;
+    /**
+     * The file offset of document lengths.
+     */
+    private long lengthOffset;
+    /**
+     * The file offset of maximum term frequencies.
+     */
+    private long maxtfOffset;
+    /**
+     * The file offset of document text offsets.
+     */
+    private long textOffset;
+
+    /**
+     * Constructor.
+     */
+    public CompactCorpus() {
+        this(SimpleSentenceSplitter.getInstance(), new SimpleTokenizer(), EnglishStopWords.DEFAULT, EnglishPunctuations.getInstance());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param splitter the sentence splitter.
+     * @param tokenizer the word tokenizer.
+     * @param stopWords the set of stop words to exclude.
+     * @param punctuations the set of punctuation marks to exclude. Set to null to keep all punctuation marks.
+     */
+    public CompactCorpus(SentenceSplitter splitter, Tokenizer tokenizer, StopWords stopWords, Punctuations punctuations) {
+        this.splitter = splitter;
+        this.tokenizer = tokenizer;
+        this.stopWords = stopWords;
+        this.punctuations = punctuations;
+    }
+
+    /**
+     * Adds a document to the corpus.
+     * @param text the document text.
+     * @return the document number.
+     */
+    public int add(Text text) {
+        if (segments != null) {
+            throw new UnsupportedOperationException("Read-only corpus");
+        }
+
+        int doc = ndoc;
+        int bag = 0;
+        HashMap<String, MutableInt> tf = new HashMap<>();
+
+        for (String sentence : splitter.split(text.body)) {
+            String[] tokens = tokenizer.split(sentence);
+            for (int i = 0; i < tokens.length; i++) {
+                tokens[i] = tokens[i].toLowerCase();
+            }
+
+            for (String w : tokens) {
+                boolean keep = true;
+                if (punctuations != null && punctuations.contains(w)) {
+                    keep = false;
+                } else if (stopWords != null && stopWords.contains(w)) {
+                    keep = false;
+                }
+
+                if (keep) {
+                    size++;
+                    bag++;
+
+                    PostingList postings = index.computeIfAbsent(w, k -> new PostingList());
+                    postings.count++;
+
+                    MutableInt count = tf.get(w);
+                    if (count == null) {
+                        tf.put(w, new MutableInt(1));
+                    } else {
+                        count.increment();
+                    }
+                }
+            }
+
+            for (int i = 0; i < tokens.length - 1; i++) {
+                String w1 = tokens[i];
+                String w2 = tokens[i + 1];
+
+                if (index.containsKey(w1) && index.containsKey(w2)) {
+                    Bigram bigram = new Bigram(w1, w2);
+                    MutableInt count = freq2.get(bigram);
+                    if (count == null) {
+                        freq2.put(bigram, new MutableInt(1));
+                    } else {
+                        count.increment();
+                    }
+                }
+            }
+        }
+
+        int max = 0;
+        for (Map.Entry<String, MutableInt> e : tf.entrySet()) {
+            int count = e.getValue().value;
+            max = Math.max(max, count);
+            index.get(e.getKey()).add(doc, count, bag);
+        }
+
+        if (doc == length.length) {
+            length = Arrays.copyOf(length, 2 * doc);
+            maxtf = Arrays.copyOf(maxtf, 2 * doc);
+        }
+        length[doc] = bag;
+        maxtf[doc] = max;
+        ids.add(text.id);
+        titles.add(text.title);
+        ndoc++;
+
+        return doc;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public int ndoc() {
+        return ndoc;
+    }
+
+    @Override
+    public int nterm() {
+        return index.size();
+    }
+
+    @Override
+    public long nbigram() {
+        return freq2.size();
+    }
+
+    @Override
+    public int avgDocSize() {
+        return (int) (size / ndoc);
+    }
+
+    @Override
+    public int count(String term) {
+        PostingList postings = index.get(term);
+        return postings == null ? 0 : postings.count;
+    }
+
+    @Override
+    public int count(Bigram bigram) {
+        MutableInt count = freq2.get(bigram);
+        return count == null ? 0 : count.value;
+    }
+
+    @Override
+    public Iterator<String> terms() {
+        return index.keySet().iterator();
+    }
+
+    @Override
+    public Iterator<Bigram> bigrams() {
+        return freq2.keySet().iterator();
+    }
+
+    /**
+     * Returns the number of documents containing the term.
+     * @param term the term.
+     * @return the number of documents containing the term.
+     */
+    public int df(String term) {
+        PostingList postings = index.get(term);
+        return postings == null ? 0 : postings.df;
+    }
+
+    /**
+     * Returns the length of a document, i.e. the number of terms
+     * after excluding stop words and punctuations.
+     * @param doc the document number.
+     * @return the length of document.
+     */
+    public int length(int doc) {
+        return segments == null ? length[doc] : getInt(lengthOffset + 4L * doc);
+    }
+
+    /**
+     * Returns the maximum term frequency of a document.
+     * @param doc the document number.
+     * @return the maximum term frequency of document.
+     */
+    public int maxtf(int doc) {
+        return segments == null ? maxtf[doc] : getInt(maxtfOffset + 4L * doc);
+    }
+
+    /**
+     * Returns the document without body.
+     * @param doc the document number.
+     * @return the document.
+     */
+    public Text get(int doc) {
+        if (segments == null) {
+            return new Text(ids.get(doc), titles.get(doc), null);
+        }
+
+        long offset = getLong(textOffset + 8L * doc);
+        String id = getString(offset);
+        String title = getString(offset + stringSize(offset));
+        return new Text(id, title, null);
+    }
+
+    @Override
+    public Iterator<Text> search(String term) {
+        PostingList postings = index.get(term);
+        if (postings == null) {
+            return Collections.emptyIterator();
+        }
+
+        PostingList.Cursor cursor = postings.cursor();
+        return new Iterator<Text>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.doc != PostingList.END;
+            }
+
+            @Override
+            public Text next() {
+                if (cursor.doc == PostingList.END) {
+                    throw new NoSuchElementException();
+                }
+
+                Text text = get(cursor.doc);
+                cursor.next();
+                return text;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Relevance> search(RelevanceRanker ranker, String term) {
+        return search(ranker, new String[]{term}, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns an iterator over the set of documents containing any of
+     * the terms in descending order of relevance. The relevance score
+     * is the sum of scores of each term with its own document frequency.
+     * @param ranker the relevance ranker.
+     * @param terms the search terms.
+     * @return the iterator of relevance.
+     */
+    @Override
+    public Iterator<Relevance> search(RelevanceRanker ranker, String[] terms) {
+        return search(ranker, terms, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the top k documents of highest relevance to the terms
+     * in descending order of relevance. The relevance score is the sum
+     * of scores of each term with its own document frequency.
+     * @param ranker the relevance ranker.
+     * @param terms the search terms.
+     * @param k the number of documents to return.
+     * @return the iterator of relevance.
+     */
+    public Iterator<Relevance> search(RelevanceRanker ranker, String[] terms, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Invalid k = " + k);
+        }
+
+        boolean bounded = ranker instanceof BM25 || ranker instanceof TFIDF;
+        Stats stats = new Stats();
+        List<Scorer> list = new ArrayList<>();
+        long hits = 0;
+        for (String term : terms) {
+            PostingList postings = index.get(term);
+            if (postings != null) {
+                list.add(new Scorer(term, postings, ranker, stats, bounded));
+                hits += postings.df;
+            }
+        }
+
+        if (list.isEmpty()) {
+            return Collections.emptyIterator();
+        }
+
+        Scorer[] scorers = list.toArray(new Scorer[0]);
+        TopK top = new TopK((int) Math.min(k, Math.min(hits, ndoc)));
+        int m = scorers.length;
+        while (true) {
+            sort(scorers);
+
+            // Find the pivot, the first document that may enter the top k.
+            double threshold = top.threshold();
+            double sum = 0.0;
+            int p = -1;
+            for (int i = 0; i < m && scorers[i].cursor.doc != PostingList.END; i++) {
+                sum += scorers[i].bound;
+                if (sum > threshold) {
+                    p = i;
+                    break;
+                }
+            }
+
+            if (p < 0) break;
+
+            int pivot = scorers[p].cursor.doc;
+            while (p + 1 < m && scorers[p + 1].cursor.doc == pivot) p++;
+
+            double blockMax = 0.0;
+            for (int i = 0; i <= p; i++) {
+                blockMax += scorers[i].blockBound(pivot);
+            }
+
+            if (blockMax > threshold) {
+                if (scorers[0].cursor.doc == pivot) {
+                    stats.doc = pivot;
+                    stats.size = length(pivot);
+                    stats.maxtf = maxtf(pivot);
+                    double score = 0.0;
+                    for (int i = 0; i <= p; i++) {
+                        score += scorers[i].score();
+                        scorers[i].cursor.next();
+                    }
+                    top.add(pivot, score);
+                } else {
+                    for (int i = 0; i < p && scorers[i].cursor.doc < pivot; i++) {
+                        scorers[i].cursor.advance(pivot);
+                    }
+                }
+            } else {
+                // Skip the blocks that cannot enter the top k.
+                int next = p + 1 < m ? scorers[p + 1].cursor.doc : PostingList.END;
+                for (int i = 0; i <= p; i++) {
+                    int end = scorers[i].blockEnd(pivot);
+                    if (end < next) next = end;
+                }
+
+                for (int i = 0; i <= p; i++) {
+                    scorers[i].cursor.advance(next);
+                }
+            }
+        }
+
+        return top.toList(this).iterator();
+    }
+
+    /**
+     * Sorts the scorers by the current document with insertion sort
+     * as there are only a few of them.
+     * @param scorers the scorers.
+     */
+    private static void sort(Scorer[] scorers) {
+        for (int i = 1; i < scorers.length; i++) {
+            Scorer s = scorers[i];
+            int j = i - 1;
+            while (j >= 0 && scorers[j].cursor.doc > s.cursor.doc) {
+                scorers[j + 1] = scorers[j];
+                j--;
+            }
+            scorers[j + 1] = s;
+        }
+    }
+
+    /**
+     * The document statistics given to the relevance ranker.
+     */
+    private static class Stats implements TextTerms {
+        /** The document number. */
+        int doc;
+        /** The document length. */
+        int size;
+        /** The maximum term frequency. */
+        int maxtf;
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterable<String> words() {
+            throw new UnsupportedOperationException("The index does not keep document bodies");
+        }
+
+        @Override
+        public Iterable<String> unique() {
+            throw new UnsupportedOperationException("The index does not keep document bodies");
+        }
+
+        @Override
+        public int tf(String term) {
+            throw new UnsupportedOperationException("The index does not keep document bodies");
+        }
+
+        @Override
+        public int maxtf() {
+            return maxtf;
+        }
+    }
+
+    /**
+     * The scorer of a query term with the upper bounds of its score.
+     */
+    private class Scorer {
+        /** The query term. */
+        final String term;
+        /** The posting list cursor. */
+        final PostingList.Cursor cursor;
+        /** The relevance ranker. */
+        final RelevanceRanker ranker;
+        /** The statistics of current document. */
+        final Stats stats;
+        /** True if the score is bounded by the block statistics. */
+        final boolean bounded;
+        /** The upper bound of score in the posting list. */
+        final double bound;
+        /** The block of cached upper bound. */
+        int block = -1;
+        /** The cached upper bound of block. */
+        double blockBound;
+
+        /**
+         * Constructor.
+         * @param term the query term.
+         * @param postings the posting list.
+         * @param ranker the relevance ranker.
+         * @param stats the statistics of current document.
+         * @param bounded true if the score is bounded by the block statistics.
+         */
+        Scorer(String term, PostingList postings, RelevanceRanker ranker, Stats stats, boolean bounded) {
+            this.term = term;
+            this.cursor = postings.cursor();
+            this.ranker = ranker;
+            this.stats = stats;
+            this.bounded = bounded;
+            this.bound = bounded ? bound(postings.maxTf, postings.minLength, postings.maxLength) : Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Returns the score of current document.
+         * @return the score of current document.
+         */
+        double score() {
+            return ranker.rank(CompactCorpus.this, stats, term, cursor.tf, cursor.list().df);
+        }
+
+        /**
+         * Returns the upper bound of score in the block containing
+         * the target document.
+         * @param target the target document number.
+         * @return the upper bound.
+         */
+        double blockBound(int target) {
+            if (!bounded) return bound;
+
+            int b = cursor.block(target);
+            if (b >= cursor.list().blocks()) return 0.0;
+            if (b != block) {
+                block = b;
+                blockBound = bound(cursor.maxTf(b), cursor.minLength(b), cursor.maxLength(b));
+            }
+            return blockBound;
+        }
+
+        /**
+         * Returns the document number after the block containing
+         * the target document.
+         * @param target the target document number.
+         * @return the document number after the block.
+         */
+        int blockEnd(int target) {
+            int b = cursor.block(target);
+            return b >= cursor.list().blocks() ? PostingList.END : cursor.lastDoc(b) + 1;
+        }
+
+        /**
+         * Returns the upper bound of score. The score of BM25 is
+         * monotone in term frequency and document length, which
+         * attains the maximum at the corners. The score of TFIDF
+         * is maximized when the term frequency is the maximum one.
+         * Negative scores are bounded by 0, which keeps the sum of
+         * bounds of any subset of terms below the sum of all.
+         * @param maxTf the maximum term frequency.
+         * @param minLength the minimum document length.
+         * @param maxLength the maximum document length.
+         * @return the upper bound.
+         */
+        private double bound(int maxTf, int minLength, int maxLength) {
+            int df = cursor.list().df;
+            Stats corner = new Stats();
+            corner.size = minLength;
+            corner.maxtf = maxTf;
+            double high = ranker.rank(CompactCorpus.this, corner, term, maxTf, df);
+            corner.size = maxLength;
+            corner.maxtf = Integer.MAX_VALUE;
+            double low = ranker.rank(CompactCorpus.this, corner, term, 1, df);
+            return Math.max(0.0, Math.max(high, low));
+        }
+    }
+
+    /**
+     * The min-heap of top k documents.
+     */
+    private static class TopK {
+        /** The number of documents to keep. */
+        final int k;
+        /** The document numbers. */
+        final int[] doc;
+        /** The scores. */
+        final double[] score;
+        /** The number of documents in the heap. */
+        int size;
+
+        /**
+         * Constructor.
+         * @param k the number of documents to keep.
+         */
+        TopK(int k) {
+            this.k = k;
+            this.doc = new int[k];
+            this.score = new double[k];
+        }
+
+        /**
+         * Returns the minimum score to enter the heap.
+         * @return the minimum score to enter the heap.
+         */
+        double threshold() {
+            return size < k ? Double.NEGATIVE_INFINITY : score[0];
+        }
+
+        /**
+         * Adds a document.
+         * @param d the document number.
+         * @param s the score.
+         */
+        void add(int d, double s) {
+            if (size < k) {
+                int child = size++;
+                while (child > 0) {
+                    int parent = (child - 1) >> 1;
+                    if (score[parent] <= s) break;
+                    score[child] = score[parent];
+                    doc[child] = doc[parent];
+                    child = parent;
+                }
+                score[child] = s;
+                doc[child] = d;
+            } else if (s > score[0]) {
+                int parent = 0;
+                while (true) {
+                    int child = 2 * parent + 1;
+                    if (child >= k) break;
+                    if (child + 1 < k && score[child + 1] < score[child]) child++;
+                    if (s <= score[child]) break;
+                    score[parent] = score[child];
+                    doc[parent] = doc[child];
+                    parent = child;
+                }
+                score[parent] = s;
+                doc[parent] = d;
+            }
+        }
+
+        /**
+         * Returns the documents in descending order of score.
+         * @param corpus the corpus.
+         * @return the documents in descending order of score.
+         */
+        List<Relevance> toList(CompactCorpus corpus) {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> {
+                int c = Double.compare(score[b], score[a]);
+                return c == 0 ? Integer.compare(doc[a], doc[b]) : c;
+            });
+
+            List<Relevance> list = new ArrayList<>(size);
+            for (int i : order) {
+                list.add(new Relevance(corpus.get(doc[i]), score[i]));
+            }
+            return list;
+        }
+    }
+
+    /**
+     * Writes the corpus to an index file.
+     * @param path the output file path.
+     * @throws IOException when fails to write the file.
+     */
+    public void write(Path path) throws IOException {
+        write(path, SEGMENT_BITS);
+    }
+
+    /**
+     * Writes the corpus to an index file. No record of index crosses
+     * the boundary of segments, which are memory-mapped separately.
+     * @param path the output file path.
+     * @param segmentBits the number of bits of segment size.
+     * @throws IOException when fails to write the file.
+     */
+    void write(Path path, int segmentBits) throws IOException {
+        try (Output out = new Output(path, segmentBits)) {
+            out.seek(HEADER_SIZE);
+
+            out.align(4);
+            long lengthOffset = out.position;
+            for (int i = 0; i < ndoc; i++) out.putInt(length(i));
+            long maxtfOffset = out.position;
+            for (int i = 0; i < ndoc; i++) out.putInt(maxtf(i));
+
+            long[] offsets = new long[ndoc];
+            for (int i = 0; i < ndoc; i++) {
+                Text text = get(i);
+                byte[] id = bytes(text.id);
+                byte[] title = bytes(text.title);
+                out.reserve(8 + size(id) + size(title));
+                offsets[i] = out.position;
+                out.putBytes(id);
+                out.putBytes(title);
+            }
+
+            out.align(8);
+            long textOffset = out.position;
+            for (long offset : offsets) out.putLong(offset);
+
+            List<String> terms = new ArrayList<>(index.keySet());
+            Collections.sort(terms);
+            long[] positions = new long[terms.size()];
+            for (int t = 0; t < positions.length; t++) {
+                PostingList postings = index.get(terms.get(t));
+                IntBuffer blocks = postings.blockBuffer();
+                ByteBuffer data = postings.dataBuffer();
+                out.align(4);
+                out.reserve(4 * blocks.remaining() + data.remaining());
+                positions[t] = out.position;
+                while (blocks.hasRemaining()) out.putInt(blocks.get());
+                while (data.hasRemaining()) out.putByte(data.get());
+            }
+
+            long[] records = new long[positions.length];
+            for (int t = 0; t < positions.length; t++) {
+                PostingList postings = index.get(terms.get(t));
+                byte[] term = bytes(terms.get(t));
+                out.reserve(32 + size(term));
+                records[t] = out.position;
+                out.putBytes(term);
+                out.putInt(postings.count);
+                out.putInt(postings.df);
+                out.putInt(postings.maxTf);
+                out.putInt(postings.minLength);
+                out.putInt(postings.maxLength);
+                out.putInt(postings.size());
+                out.putLong(positions[t]);
+            }
+
+            out.align(8);
+            long termOffset = out.position;
+            for (long record : records) out.putLong(record);
+
+            records = new long[freq2.size()];
+            int i = 0;
+            for (Map.Entry<Bigram, MutableInt> e : freq2.entrySet()) {
+                byte[] w1 = bytes(e.getKey().w1);
+                byte[] w2 = bytes(e.getKey().w2);
+                out.reserve(4 + size(w1) + size(w2));
+                records[i++] = out.position;
+                out.putBytes(w1);
+                out.putBytes(w2);
+                out.putInt(e.getValue().value);
+            }
+
+            out.align(8);
+            long bigramOffset = out.position;
+            for (long record : records) out.putLong(record);
+
+            out.seek(0);
+            for (byte b : MAGIC) out.putByte(b);
+            out.putInt(VERSION);
+            out.putInt(segmentBits);
+            out.putInt(ndoc);
+            out.putInt(index.size());
+            out.putInt(freq2.size());
+            out.putInt(0);
+            out.putLong(size);
+            out.putLong(lengthOffset);
+            out.putLong(maxtfOffset);
+            out.putLong(textOffset);
+            out.putLong(termOffset);
+            out.putLong(bigramOffset);
+        }
+
+        logger.info("Wrote index of {} documents and {} terms to {}", ndoc, index.size(), path);
+    }
+
+    /**
+     * Opens an index file. The postings and documents are memory-mapped.
+     * The term and bigram dictionaries are loaded into the heap. The
+     * returned corpus is read-only.
+     *
+     * @param path the index file path.
+     * @throws IOException when fails to read the file.
+     * @return the corpus.
+     */
+    public static CompactCorpus open(Path path) throws IOException {
+        CompactCorpus corpus = new CompactCorpus(null, null, null, null);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not an index file: " + path);
+            }
+
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported index version: " + version);
+            }
+
+            int segmentBits = header.getInt();
+            long fileSize = channel.size();
+            long segmentSize = 1L << segmentBits;
+            int nsegments = (int) ((fileSize + segmentSize - 1) >>> segmentBits);
+            corpus.segmentBits = segmentBits;
+            corpus.segments = new ByteBuffer[nsegments];
+            for (int s = 0; s < nsegments; s++) {
+                long offset = (long) s << segmentBits;
+                corpus.segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(segmentSize, fileSize - offset))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            corpus.ndoc = header.getInt();
+            int nterm = header.getInt();
+            int nbigram = header.getInt();
+            header.getInt();
+            corpus.size = header.getLong();
+            corpus.lengthOffset = header.getLong();
+            corpus.maxtfOffset = header.getLong();
+            corpus.textOffset = header.getLong();
+            long termOffset = header.getLong();
+            long bigramOffset = header.getLong();
+
+            for (int t = 0; t < nterm; t++) {
+                long offset = corpus.getLong(termOffset + 8L * t);
+                String term = corpus.getString(offset);
+                offset += corpus.stringSize(offset);
+                int count = corpus.getInt(offset);
+                int df = corpus.getInt(offset + 4);
+                int maxTf = corpus.getInt(offset + 8);
+                int minLength = corpus.getInt(offset + 12);
+                int maxLength = corpus.getInt(offset + 16);
+                int size = corpus.getInt(offset + 20);
+                long position = corpus.getLong(offset + 24);
+
+                ByteBuffer segment = corpus.segments[(int) (position >>> segmentBits)];
+                int local = (int) (position & (segmentSize - 1));
+                corpus.index.put(term, new PostingList(count, df, maxTf, minLength, maxLength, size, segment, local));
+            }
+
+            for (int i = 0; i < nbigram; i++) {
+                long offset = corpus.getLong(bigramOffset + 8L * i);
+                String w1 = corpus.getString(offset);
+                offset += corpus.stringSize(offset);
+                String w2 = corpus.getString(offset);
+                offset += corpus.stringSize(offset);
+                corpus.freq2.put(new Bigram(w1, w2), new MutableInt(corpus.getInt(offset)));
+            }
+        }
+
+        return corpus;
+    }
+
+    /**
+     * Returns the integer at the file offset.
+     * @param offset the file offset.
+     * @return the integer.
+     */
+    private int getInt(long offset) {
+        return segments[(int) (offset >>> segmentBits)].getInt((int) (offset & ((1L << segmentBits) - 1)));
+    }
+
+    /**
+     * Returns the long integer at the file offset.
+     * @param offset the file offset.
+     * @return the long integer.
+     */
+    private long getLong(long offset) {
+        return segments[(int) (offset >>> segmentBits)].getLong((int) (offset & ((1L << segmentBits) - 1)));
+    }
+
+    /**
+     * Returns the string at the file offset, which is stored as
+     * (int length, UTF-8 bytes) where the length of null is -1.
+     * @param offset the file offset.
+     * @return the string.
+     */
+    private String getString(long offset) {
+        int length = getInt(offset);
+        if (length < 0) return null;
+
+        ByteBuffer buffer = segments[(int) (offset >>> segmentBits)].duplicate();
+        buffer.position((int) (offset & ((1L << segmentBits) - 1)) + 4);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the size of string record at the file offset.
+     * @param offset the file offset.
+     * @return the size of string record.
+     */
+    private int stringSize(long offset) {
+        return 4 + Math.max(0, getInt(offset));
+    }
+
+    /**
+     * Returns the UTF-8 bytes of a string.
+     * @param s the string.
+     * @return the UTF-8 bytes, or null.
+     */
+    private static byte[] bytes(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the size of string record.
+     * @param bytes the UTF-8 bytes of string.
+     * @return the size of string record.
+     */
+    private static int size(byte[] bytes) {
+        return 4 + (bytes == null ? 0 : bytes.length);
+    }
+
+    /**
+     * The buffered output of index file.
+     */
+    private static class Output implements Closeable {
+        /** The file channel. */
+        final FileChannel channel;
+        /** The number of bits of segment size. */
+        final int segmentBits;
+        /** The I/O buffer. */
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        /** The file offset of buffer. */
+        long offset;
+        /** The file offset of next write. */
+        long position;
+
+        /**
+         * Constructor.
+         * @param path the output file path.
+         * @param segmentBits the number of bits of segment size.
+         */
+        Output(Path path, int segmentBits) throws IOException {
+            this.segmentBits = segmentBits;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Moves to the file offset.
+         * @param offset the file offset.
+         */
+        void seek(long offset) throws IOException {
+            flush();
+            this.offset = offset;
+            this.position = offset;
+        }
+
+        /**
+         * Pads to the multiple of bytes.
+         * @param bytes the alignment.
+         */
+        void align(int bytes) throws IOException {
+            while (position % bytes != 0) putByte((byte) 0);
+        }
+
+        /**
+         * Pads to the next segment if a record of given size would
+         * cross the boundary of segments.
+         * @param size the size of record.
+         */
+        void reserve(long size) throws IOException {
+            if (size > (1L << segmentBits)) {
+                throw new IOException("Record larger than segment: " + size);
+            }
+
+            if ((position >>> segmentBits) != ((position + size - 1) >>> segmentBits)) {
+                seek(((position >>> segmentBits) + 1) << segmentBits);
+            }
+        }
+
+        /** Writes a byte. */
+        void putByte(byte b) throws IOException {
+            if (!buffer.hasRemaining()) flush();
+            buffer.put(b);
+            position++;
+        }
+
+        /** Writes an integer. */
+        void putInt(int i) throws IOException {
+            if (buffer.remaining() < 4) flush();
+            buffer.putInt(i);
+            position += 4;
+        }
+
+        /** Writes a long integer. */
+        void putLong(long l) throws IOException {
+            if (buffer.remaining() < 8) flush();
+            buffer.putLong(l);
+            position += 8;
+        }
+
+        /** Writes a string record of UTF-8 bytes. */
+        void putBytes(byte[] bytes) throws IOException {
+            if (bytes == null) {
+                putInt(-1);
+            } else {
+                putInt(bytes.length);
+                for (byte b : bytes) putByte(b);
+            }
+        }
+
+        /** Writes the buffered bytes to the file. */
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                offset += channel.write(buffer, offset);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
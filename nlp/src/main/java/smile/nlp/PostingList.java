@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.nlp;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * The compressed posting list of a term. The postings are sorted by
+ * document number and encoded as variable-length integers of the gap
+ * to previous document and the term frequency. The postings are grouped
+ * into fixed-size blocks. Each block has an entry of the last document
+ * number, the byte offset of block, the maximum term frequency, and the
+ * minimum and maximum document length in the block, which supports
+ * both skipping and block-max upper bounds of relevance scores.
+ * <p>
+ * The posting list is either built in memory by appending postings in
+ * the order of document numbers or a read-only view of a memory-mapped
+ * index file.
+ *
+ * @author Haifeng Li
+ */
+class PostingList {
+    /** The number of postings per block. */
+    static final int BLOCK_SIZE = 128;
+    /** The number of integers per block entry. */
+    static final int BLOCK_WIDTH = 5;
+    /** The document number of exhausted cursors. */
+    static final int END = Integer.MAX_VALUE;
+
+    /** The frequency of term in the corpus. */
+    int count;
+    /** The number of documents containing the term. */
+    int df;
+    /** The maximum term frequency in a document. */
+    int maxTf;
+    /** The minimum length of documents containing the term. */
+    int minLength = Integer.MAX_VALUE;
+    /** The maximum length of documents containing the term. */
+    int maxLength;
+
+    /** The encoded postings of in-memory list. */
+    private byte[] data;
+    /** The number of bytes of encoded postings. */
+    private int size;
+    /** The block entries of in-memory list. */
+    private int[] blocks;
+    /** The last document number. */
+    private int lastDoc = -1;
+    /** The memory-mapped segment of read-only list. */
+    private ByteBuffer segment;
+    /** The offset of list in the segment. */
+    private int position;
+
+    /**
+     * Constructor of an empty in-memory list.
+     */
+    PostingList() {
+        data = new byte[16];
+        blocks = new int[BLOCK_WIDTH];
+    }
+
+    /**
+     * Constructor of a read-only list in a memory-mapped segment.
+     * @param count the frequency of term in the corpus.
+     * @param df the number of documents containing the term.
+     * @param maxTf the maximum term frequency in a document.
+     * @param minLength the minimum length of documents containing the term.
+     * @param maxLength the maximum length of documents containing the term.
+     * @param size the number of bytes of encoded postings.
+     * @param segment the memory-mapped segment.
+     * @param position the offset of block entries in the segment,
+     *                 which are followed by the encoded postings.
+     */
+    PostingList(int count, int df, int maxTf, int minLength, int maxLength, int size, ByteBuffer segment, int position) {
+        this.count = count;
+        this.df = df;
+        this.maxTf = maxTf;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.size = size;
+        this.segment = segment;
+        this.position = position;
+    }
+
+    /**
+     * Appends a posting. The document number must be greater than
+     * that of previous posting.
+     * @param doc the document number.
+     * @param tf the term frequency in the document.
+     * @param length the document length.
+     */
+    void add(int doc, int tf, int length) {
+        if (segment != null) {
+            throw new UnsupportedOperationException("Read-only posting list");
+        }
+
+        if (doc <= lastDoc) {
+            throw new IllegalArgumentException(String.format("Document %d after %d", doc, lastDoc));
+        }
+
+        int b = (df / BLOCK_SIZE) * BLOCK_WIDTH;
+        if (df % BLOCK_SIZE == 0) {
+            if (b + BLOCK_WIDTH > blocks.length) {
+                blocks = Arrays.copyOf(blocks, 2 * blocks.length);
+            }
+            blocks[b + 1] = size;
+            blocks[b + 2] = 0;
+            blocks[b + 3] = Integer.MAX_VALUE;
+            blocks[b + 4] = 0;
+        }
+
+        blocks[b] = doc;
+        blocks[b + 2] = Math.max(blocks[b + 2], tf);
+        blocks[b + 3] = Math.min(blocks[b + 3], length);
+        blocks[b + 4] = Math.max(blocks[b + 4], length);
+
+        if (size + 10 > data.length) {
+            data = Arrays.copyOf(data, 2 * data.length);
+        }
+        writeVarint(doc - lastDoc);
+        writeVarint(tf);
+
+        lastDoc = doc;
+        df++;
+        maxTf = Math.max(maxTf, tf);
+        minLength = Math.min(minLength, length);
+        maxLength = Math.max(maxLength, length);
+    }
+
+    /**
+     * Writes a variable-length integer to the in-memory list.
+     * @param value the non-negative value.
+     */
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            data[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[size++] = (byte) value;
+    }
+
+    /**
+     * Returns the number of blocks.
+     * @return the number of blocks.
+     */
+    int blocks() {
+        return (df + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /**
+     * Returns the number of bytes of encoded postings.
+     * @return the number of bytes of encoded postings.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the block entries.
+     * @return the block entries.
+     */
+    IntBuffer blockBuffer() {
+        if (segment == null) {
+            return IntBuffer.wrap(blocks, 0, blocks() * BLOCK_WIDTH);
+        }
+
+        ByteBuffer buffer = segment.duplicate();
+        buffer.limit(position + 4 * BLOCK_WIDTH * blocks());
+        buffer.position(position);
+        return buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * Returns the encoded postings.
+     * @return the encoded postings.
+     */
+    ByteBuffer dataBuffer() {
+        if (segment == null) {
+            return ByteBuffer.wrap(data, 0, size);
+        }
+
+        int start = position + 4 * BLOCK_WIDTH * blocks();
+        ByteBuffer buffer = segment.duplicate();
+        buffer.limit(start + size);
+        buffer.position(start);
+        return buffer.slice();
+    }
+
+    /**
+     * Returns a cursor positioned at the first posting.
+     * @return a cursor positioned at the first posting.
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * The cursor that iterates the postings in the order of document
+     * numbers with block skipping.
+     */
+    class Cursor {
+        /** The block entries. */
+        private final IntBuffer blocks = blockBuffer();
+        /** The encoded postings. */
+        private final ByteBuffer data = dataBuffer();
+        /** The number of blocks. */
+        private final int nblocks = blocks();
+        /** The current block. */
+        private int block;
+        /** The number of remaining postings in the current block. */
+        private int remaining;
+        /** The offset of next posting. */
+        private int pos;
+        /** The block of last shallow move. */
+        private int shallow;
+        /** The current document number. */
+        int doc = -1;
+        /** The term frequency in the current document. */
+        int tf;
+
+        /**
+         * Constructor.
+         */
+        Cursor() {
+            if (nblocks == 0) {
+                doc = END;
+            } else {
+                enter(0);
+                next();
+            }
+        }
+
+        /**
+         * Returns the posting list of cursor.
+         * @return the posting list of cursor.
+         */
+        PostingList list() {
+            return PostingList.this;
+        }
+
+        /**
+         * Positions at the beginning of a block.
+         * @param b the block index.
+         */
+        private void enter(int b) {
+            block = b;
+            pos = blocks.get(b * BLOCK_WIDTH + 1);
+            remaining = Math.min(BLOCK_SIZE, df - b * BLOCK_SIZE);
+        }
+
+        /**
+         * Moves to the next posting.
+         */
+        void next() {
+            if (remaining == 0) {
+                if (block + 1 >= nblocks) {
+                    doc = END;
+                    return;
+                }
+                enter(block + 1);
+            }
+
+            doc += readVarint();
+            tf = readVarint();
+            remaining--;
+        }
+
+        /**
+         * Moves to the first posting whose document number is not
+         * less than the target.
+         * @param target the target document number.
+         */
+        void advance(int target) {
+            if (doc >= target) return;
+
+            if (lastDoc(block) < target) {
+                int b = block(target);
+                if (b >= nblocks) {
+                    block = nblocks - 1;
+                    remaining = 0;
+                    doc = END;
+                    return;
+                }
+                doc = lastDoc(b - 1);
+                enter(b);
+            }
+
+            do {
+                next();
+            } while (doc < target);
+        }
+
+        /**
+         * Returns the first block from the current one whose last
+         * document number is not less than the target, without
+         * decoding any postings.
+         * @param target the target document number.
+         * @return the block index, or the number of blocks if none.
+         */
+        int block(int target) {
+            int b = Math.max(block, shallow);
+            while (b < nblocks && lastDoc(b) < target) b++;
+            shallow = b;
+            return b;
+        }
+
+        /**
+         * Returns the last document number of a block.
+         * @param b the block index.
+         * @return the last document number.
+         */
+        int lastDoc(int b) {
+            return blocks.get(b * BLOCK_WIDTH);
+        }
+
+        /**
+         * Returns the maximum term frequency of a block.
+         * @param b the block index.
+         * @return the maximum term frequency.
+         */
+        int maxTf(int b) {
+            return blocks.get(b * BLOCK_WIDTH + 2);
+        }
+
+        /**
+         * Returns the minimum document length of a block.
+         * @param b the block index.
+         * @return the minimum document length.
+         */
+        int minLength(int b) {
+            return blocks.get(b * BLOCK_WIDTH + 3);
+        }
+
+        /**
+         * Returns the maximum document length of a block.
+         * @param b the block index.
+         * @return the maximum document length.
+         */
+        int maxLength(int b) {
+            return blocks.get(b * BLOCK_WIDTH + 4);
+        }
+
+        /**
+         * Reads a variable-length integer.
+         * @return the value.
+         */
+        private int readVarint() {
+            byte b = data.get(pos++);
+            int value = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = data.get(pos++);
+                value |= (b & 0x7F) << shift;
+            }
+            return value;
+        }
+    }
+}
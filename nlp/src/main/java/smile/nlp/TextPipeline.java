@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.nlp;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import smile.nlp.dictionary.Dictionary;
+import smile.nlp.dictionary.EnglishPunctuations;
+import smile.nlp.dictionary.EnglishStopWords;
+import smile.nlp.dictionary.Punctuations;
+import smile.nlp.dictionary.StopWords;
+import smile.nlp.normalizer.Normalizer;
+import smile.nlp.normalizer.SimpleNormalizer;
+import smile.nlp.stemmer.Stemmer;
+import smile.nlp.tokenizer.DFATokenizer;
+import smile.nlp.tokenizer.SentenceSplitter;
+import smile.nlp.tokenizer.Tokenizer;
+import smile.util.IntArrayList;
+
+/**
+ * A text processing pipeline of normalization, sentence splitting,
+ * tokenization, lower casing, stop word and punctuation removal, and
+ * stemming. A batch of documents is processed in parallel on the
+ * fork-join pool, with the order of documents preserved.
+ * <p>
+ * The pipeline avoids the intermediate strings as much as possible.
+ * With {@link DFATokenizer}, the tokens are scanned as offsets in the
+ * sentence and lower cased into a per-thread buffer, where the stop
+ * words and punctuations are looked up without creating strings. Only
+ * the surviving terms are materialized as strings. The stemmers may not
+ * be thread safe and are created per thread.
+ *
+ * @author Haifeng Li
+ */
+public class TextPipeline implements Function<String, String[]> {
+    /** The normalizer. May be null. */
+    private final Normalizer normalizer;
+    /** The sentence splitter. May be null. */
+    private final SentenceSplitter splitter;
+    /** The tokenizer. */
+    private final Tokenizer tokenizer;
+    /** True if the tokens are lower cased. */
+    private final boolean lowercase;
+    /** The stop words and punctuations to remove. */
+    private final Lexicon filter;
+    /** The per-thread stemmers. May be null. */
+    private final ThreadLocal<Stemmer> stemmer;
+    /** The per-thread token buffers. */
+    private final ThreadLocal<Buffer> buffer = ThreadLocal.withInitial(Buffer::new);
+
+    /**
+     * Constructor with simple normalizer, DFA tokenizer, lower casing,
+     * English stop words and punctuations removal, and no stemming.
+     */
+    public TextPipeline() {
+        this(SimpleNormalizer.getInstance(), null, DFATokenizer.getInstance(), true,
+                EnglishStopWords.DEFAULT, EnglishPunctuations.getInstance(), null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param normalizer the normalizer. Set to null to skip normalization.
+     * @param splitter the sentence splitter. Set to null to tokenize
+     *                 the whole text as a sentence.
+     * @param tokenizer the word tokenizer.
+     * @param lowercase if true, the tokens are lower cased.
+     * @param stopWords the set of stop words to exclude. May be null.
+     * @param punctuations the set of punctuation marks to exclude. May be null.
+     * @param stemmer the factory of stemmers. Set to null to skip stemming.
+     */
+    public TextPipeline(Normalizer normalizer, SentenceSplitter splitter, Tokenizer tokenizer, boolean lowercase,
+                        StopWords stopWords, Punctuations punctuations, Supplier<Stemmer> stemmer) {
+        this.normalizer = normalizer;
+        this.splitter = splitter;
+        this.tokenizer = tokenizer;
+        this.lowercase = lowercase;
+        this.filter = new Lexicon(stopWords, punctuations);
+        this.stemmer = stemmer == null ? null : ThreadLocal.withInitial(stemmer);
+    }
+
+    /**
+     * Processes a document.
+     * @param text the document text.
+     * @return the terms of document.
+     */
+    @Override
+    public String[] apply(String text) {
+        if (normalizer != null) {
+            text = normalizer.normalize(text);
+        }
+
+        Buffer buf = buffer.get();
+        Stemmer stem = stemmer == null ? null : stemmer.get();
+        List<String> terms = new ArrayList<>();
+        String[] sentences = splitter == null ? new String[]{text} : splitter.split(text);
+        for (String sentence : sentences) {
+            if (tokenizer instanceof DFATokenizer) {
+                IntArrayList spans = buf.spans;
+                spans.clear();
+                DFATokenizer dfa = (DFATokenizer) tokenizer;
+                int n = dfa.tokenize(sentence, spans);
+                int abbreviation = dfa.isDetachedAbbreviation(sentence, spans) ? n - 2 : -1;
+                for (int i = 0; i < n; i++) {
+                    term(sentence, spans.get(2 * i), spans.get(2 * i + 1), i == abbreviation, buf, stem, terms);
+                }
+            } else {
+                for (String token : tokenizer.split(sentence)) {
+                    term(token, 0, token.length(), false, buf, stem, terms);
+                }
+            }
+        }
+
+        return terms.toArray(new String[0]);
+    }
+
+    /**
+     * Processes the documents in parallel. The order of documents
+     * is preserved.
+     * @param docs the documents.
+     * @return the terms of documents.
+     */
+    public Stream<String[]> apply(Stream<String> docs) {
+        return docs.parallel().map(this);
+    }
+
+    /**
+     * Processes the documents in parallel. The order of documents
+     * is preserved.
+     * @param docs the documents.
+     * @return the terms of documents.
+     */
+    public Stream<String[]> apply(Iterator<String> docs) {
+        Spliterator<String> spliterator = Spliterators.spliteratorUnknownSize(docs, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, true).map(this);
+    }
+
+    /**
+     * Processes a token and appends it to the terms if it survives
+     * the filter.
+     * @param text the text containing the token.
+     * @param start the start of token.
+     * @param end the end of token.
+     * @param period if true, append a period to the token.
+     * @param buf the token buffer.
+     * @param stem the stemmer. May be null.
+     * @param terms the terms.
+     */
+    private void term(CharSequence text, int start, int end, boolean period, Buffer buf, Stemmer stem, List<String> terms) {
+        int length = end - start;
+        char[] chars = buf.chars(length + 1);
+        boolean ascii = true;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(start + i);
+            if (c >= 128) ascii = false;
+            if (lowercase && c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            chars[i] = c;
+        }
+
+        if (period) {
+            chars[length++] = '.';
+        }
+
+        String term;
+        if (ascii || !lowercase) {
+            if (filter.contains(chars, length)) return;
+            term = new String(chars, 0, length);
+        } else {
+            // String.toLowerCase handles the special cases of Unicode.
+            term = text.subSequence(start, end).toString();
+            if (period) term = term + ".";
+            term = term.toLowerCase();
+            if (filter.contains(term)) return;
+        }
+
+        terms.add(stem == null ? term : stem.stem(term));
+    }
+
+    /**
+     * The per-thread buffers.
+     */
+    private static class Buffer {
+        /** The token offsets. */
+        final IntArrayList spans = new IntArrayList();
+        /** The token characters. */
+        char[] chars = new char[64];
+
+        /**
+         * Returns the character buffer of at least the given size.
+         * @param size the size.
+         * @return the character buffer.
+         */
+        char[] chars(int size) {
+            if (chars.length < size) {
+                chars = new char[Math.max(size, 2 * chars.length)];
+            }
+            return chars;
+        }
+    }
+
+    /**
+     * An open addressing hash set of words that is looked up with
+     * a character array without creating a string. The hash code
+     * is the same as String.hashCode().
+     */
+    private static class Lexicon {
+        /** The hash table. */
+        private final String[] table;
+        /** The mask of table index. */
+        private final int mask;
+
+        /**
+         * Constructor.
+         * @param dictionaries the dictionaries. The null ones are ignored.
+         */
+        Lexicon(Dictionary... dictionaries) {
+            int size = 0;
+            for (Dictionary dictionary : dictionaries) {
+                if (dictionary != null) size += dictionary.size();
+            }
+
+            table = new String[Integer.highestOneBit(Math.max(2, size) * 2 - 1) << 1];
+            mask = table.length - 1;
+            for (Dictionary dictionary : dictionaries) {
+                if (dictionary == null) continue;
+                Iterator<String> iter = dictionary.iterator();
+                while (iter.hasNext()) {
+                    String word = iter.next();
+                    int slot = slot(word.hashCode());
+                    while (table[slot] != null && !table[slot].equals(word)) {
+                        slot = (slot + 1) & mask;
+                    }
+                    table[slot] = word;
+                }
+            }
+        }
+
+        /**
+         * Returns the first slot of a hash code.
+         * @param hash the hash code.
+         * @return the slot.
+         */
+        private int slot(int hash) {
+            hash *= 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        /**
+         * Returns true if the set contains the word.
+         * @param word the word.
+         * @return true if the set contains the word.
+         */
+        boolean contains(String word) {
+            for (int slot = slot(word.hashCode()); table[slot] != null; slot = (slot + 1) & mask) {
+                if (table[slot].equals(word)) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Returns true if the set contains the word.
+         * @param chars the characters of word.
+         * @param length the length of word.
+         * @return true if the set contains the word.
+         */
+        boolean contains(char[] chars, int length) {
+            int hash = 0;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + chars[i];
+            }
+
+            for (int slot = slot(hash); table[slot] != null; slot = (slot + 1) & mask) {
+                String word = table[slot];
+                if (word.length() == length && equals(word, chars)) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Returns true if the word equals the characters.
+         * @param word the word.
+         * @param chars the characters of same length.
+         * @return true if the word equals the characters.
+         */
+        private static boolean equals(String word, char[] chars) {
+            for (int i = 0; i < word.length(); i++) {
+                if (word.charAt(i) != chars[i]) return false;
+            }
+            return true;
+        }
+    }
+}
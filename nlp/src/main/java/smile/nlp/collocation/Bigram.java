@@ -154,7 +154,7 @@ public class Bigram extends smile.nlp.Bigram implements Comparable<Bigram> {
      * @param c12 the number of occurrences of w1 w2.
      * @param N the number of tokens in the corpus.
      */
-    private static double likelihoodRatio(int c1, int c2, int c12, long N) {
+    static double likelihoodRatio(int c1, int c2, int c12, long N) {
         double p = (double) c2 / N;
         double p1 = (double) c12 / c1;
         double p2 = (double) (c2 - c12) / (N - c1);
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.nlp.collocation;
+
+/**
+ * Count-min sketch is a sub-linear space summary of the frequencies of
+ * items in a data stream. It consists of a few rows of counters. Each
+ * item is mapped to one counter per row by independent hash functions.
+ * The estimated frequency of an item is the minimum of its counters,
+ * which never underestimates the true frequency. With width w and depth
+ * d, the overestimate is at most e N / w with probability
+ * 1 - exp(-d), where N is the total count of stream.
+ * <p>
+ * The sketches of disjoint streams may be merged by summing the counters,
+ * which gives the sketch of the union stream.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li> G. Cormode and S. Muthukrishnan. An Improved Data Stream Summary: The Count-Min Sketch and its Applications. Journal of Algorithms, 55(1):58-75, 2005.</li>
+ * </ol>
+ *
+ * @author Haifeng Li
+ */
+class CountMinSketch {
+    /** The number of rows. */
+    private final int depth;
+    /** The number of counters per row, which is a power of 2. */
+    private final int width;
+    /** The counters in row major. */
+    private final int[] table;
+
+    /**
+     * Constructor.
+     * @param width the number of counters per row, which is rounded up to
+     *              a power of 2.
+     * @param depth the number of rows.
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || width > 1 << 30) {
+            throw new IllegalArgumentException("Invalid width: " + width);
+        }
+
+        if (depth <= 0 || (long) depth * width > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid depth: " + depth);
+        }
+
+        this.depth = depth;
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.table = new int[this.width * depth];
+    }
+
+    /**
+     * Adds an occurrence of item.
+     * @param hash the 64-bit hash code of item.
+     */
+    public void add(long hash) {
+        hash = mix(hash);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int mask = width - 1;
+        for (int r = 0, offset = 0; r < depth; r++, offset += width) {
+            int i = offset + ((h1 + r * h2) & mask);
+            if (table[i] != Integer.MAX_VALUE) {
+                table[i]++;
+            }
+        }
+    }
+
+    /**
+     * Returns the estimated frequency of item, which is never less than
+     * the true frequency.
+     * @param hash the 64-bit hash code of item.
+     * @return the estimated frequency.
+     */
+    public int estimate(long hash) {
+        hash = mix(hash);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int mask = width - 1;
+        int min = Integer.MAX_VALUE;
+        for (int r = 0, offset = 0; r < depth; r++, offset += width) {
+            min = Math.min(min, table[offset + ((h1 + r * h2) & mask)]);
+        }
+        return min;
+    }
+
+    /**
+     * Merges the counters of another sketch of same shape into this one.
+     * @param other the sketch of a disjoint stream.
+     */
+    public void merge(CountMinSketch other) {
+        if (width != other.width || depth != other.depth) {
+            throw new IllegalArgumentException(String.format("Sketch shape mismatch: %d x %d vs %d x %d", depth, width, other.depth, other.width));
+        }
+
+        for (int i = 0; i < table.length; i++) {
+            long sum = (long) table[i] + other.table[i];
+            table[i] = (int) Math.min(sum, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * The finalization mix of MurmurHash3 so that the low and high
+     * halves of hash code are well distributed.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,682 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.nlp.collocation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import smile.nlp.dictionary.EnglishPunctuations;
+import smile.nlp.dictionary.EnglishStopWords;
+import smile.sort.HeapSelect;
+import smile.stat.distribution.ChiSquareDistribution;
+import smile.util.MutableInt;
+
+/**
+ * A streaming n-gram counter for the corpora that do not fit in memory.
+ * Different from {@link NGram#of(Collection, int, int)} and
+ * {@link Bigram#of(smile.nlp.Corpus, double, int)}, which keep the counts
+ * of all n-grams in hash maps, the counter holds at most a fixed number of
+ * distinct n-grams in memory per task.
+ * <p>
+ * The sentences are counted by a parallel map phase. Each task counts the
+ * n-grams in a hash map. When the map grows beyond the buffer size, its
+ * entries are sorted and spilled to a temporary file as a sorted run. The
+ * runs are then merged externally by a k-way merge, which sums the counts
+ * of same n-gram and drops the n-grams less frequent than the threshold.
+ * The punctuation marks break the n-grams as in <code>NGram.of</code>.
+ * <p>
+ * Optionally, a count-min sketch of all n-grams is built by a first
+ * pass over the corpus. As the sketch never underestimates the frequency,
+ * an n-gram whose estimate is below the threshold is rare for sure and
+ * is dropped in the map phase, together with all its extensions. This
+ * cuts most of the spills on natural language corpora where the majority
+ * of n-grams occur only once, at the cost of reading the corpus twice.
+ * <p>
+ * As the runs are ordered by the n-gram length first, the merge pass sees
+ * all unigrams before bigrams. Therefore, the likelihood ratio of bigram
+ * collocations is computed in the merge pass with the frequent unigrams
+ * only, which include both words of any frequent bigram.
+ *
+ * @author Haifeng Li
+ */
+public class NGramCounter {
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(NGramCounter.class);
+
+    /** The default number of distinct n-grams in memory per task. */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    /** The number of rows of count-min sketch. */
+    private static final int SKETCH_DEPTH = 4;
+    /** Chi-square distribution with 1 degree of freedom. */
+    private static final ChiSquareDistribution chisq = new ChiSquareDistribution(1);
+
+    /** The minimum frequency of n-grams. */
+    private final int minFrequency;
+    /** The maximum number of distinct n-grams in memory per task. */
+    private final int bufferSize;
+    /** The width of count-min sketch. Zero to disable the pre-filter. */
+    private final int sketchWidth;
+    /** The directory of temporary files. Null for the system default. */
+    private final Path directory;
+
+    /**
+     * Constructor without the count-min sketch pre-filter.
+     * @param minFrequency the minimum frequency of n-grams.
+     */
+    public NGramCounter(int minFrequency) {
+        this(minFrequency, DEFAULT_BUFFER_SIZE, 0, null);
+    }
+
+    /**
+     * Constructor.
+     * @param minFrequency the minimum frequency of n-grams.
+     * @param bufferSize the maximum number of distinct n-grams in memory
+     *                   per task before spilling to the disk.
+     * @param sketchWidth the number of counters per row of count-min sketch.
+     *                    If zero, the sketch pre-filter is disabled and the
+     *                    corpus is read only once.
+     * @param directory the directory of temporary files. If null, the
+     *                  default temporary-file directory is used.
+     */
+    public NGramCounter(int minFrequency, int bufferSize, int sketchWidth, Path directory) {
+        if (minFrequency < 1) {
+            throw new IllegalArgumentException("Invalid minimum frequency: " + minFrequency);
+        }
+
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Invalid buffer size: " + bufferSize);
+        }
+
+        if (sketchWidth < 0) {
+            throw new IllegalArgumentException("Invalid sketch width: " + sketchWidth);
+        }
+
+        this.minFrequency = minFrequency;
+        this.bufferSize = bufferSize;
+        this.sketchWidth = sketchWidth;
+        this.directory = directory;
+    }
+
+    /**
+     * Extracts the n-grams of length at most maxNGramSize that occur at
+     * least minFrequency times. The results are same as
+     * {@link NGram#of(Collection, int, int)}.
+     *
+     * @param sentences the supplier of the stream of sentences (already
+     *                  split). It is called twice if the sketch pre-filter
+     *                  is enabled. The stream is closed after use.
+     * @param maxNGramSize the maximum length of n-gram.
+     * @throws IOException when fails to spill or merge the sorted runs.
+     * @return an array of n-gram sets. The i-th entry is the set of i-grams
+     * in descending order of frequency.
+     */
+    public NGram[][] count(Supplier<? extends Stream<String[]>> sentences, int maxNGramSize) throws IOException {
+        if (maxNGramSize < 1 || maxNGramSize > 255) {
+            throw new IllegalArgumentException("Invalid maximum n-gram size: " + maxNGramSize);
+        }
+
+        EnglishPunctuations punctuations = EnglishPunctuations.getInstance();
+        List<List<NGram>> features = new ArrayList<>(maxNGramSize + 1);
+        for (int n = 0; n <= maxNGramSize; n++) {
+            features.add(new ArrayList<>());
+        }
+
+        // filter out stop words
+        EnglishStopWords stopWords = EnglishStopWords.DEFAULT;
+        count(sentences, maxNGramSize, punctuations::contains, tokens -> (words, count) -> {
+            boolean stopWord = true;
+            if (!stopWords.contains(words[0]) && !stopWords.contains(words[words.length - 1])) {
+                for (String word : words) {
+                    if (!stopWords.contains(word)) {
+                        stopWord = false;
+                        break;
+                    }
+                }
+            }
+
+            if (!stopWord) {
+                features.get(words.length).add(new NGram(words, toInt(count)));
+            }
+        });
+
+        return features.stream().map(ngrams -> {
+            NGram[] collocations = ngrams.toArray(new NGram[0]);
+            Arrays.sort(collocations, Collections.reverseOrder());
+            return collocations;
+        }).toArray(NGram[][]::new);
+    }
+
+    /**
+     * Finds top k bigram collocations. As {@link smile.nlp.SimpleCorpus},
+     * the stop words and punctuation marks are excluded, which also break
+     * the bigrams.
+     *
+     * @param sentences the supplier of the stream of sentences (already
+     *                  split and lowercased). It is called twice if the
+     *                  sketch pre-filter is enabled. The stream is closed
+     *                  after use.
+     * @param k the top k bigram to compute.
+     * @throws IOException when fails to spill or merge the sorted runs.
+     * @return the significant bigram collocations in the descending order
+     * of likelihood ratio.
+     */
+    public Bigram[] collocations(Supplier<? extends Stream<String[]>> sentences, int k) throws IOException {
+        if (k < 1) {
+            throw new IllegalArgumentException("Invalid k = " + k);
+        }
+
+        Bigram[] bigrams = new Bigram[k];
+        HeapSelect<Bigram> heap = new HeapSelect<>(bigrams);
+        int[] size = {0};
+        score(sentences, bigram -> {
+            heap.add(new Bigram(bigram.w1, bigram.w2, bigram.count, -bigram.score));
+            size[0]++;
+        });
+
+        heap.sort();
+
+        int m = Math.min(k, size[0]);
+        Bigram[] collocations = new Bigram[m];
+        for (int i = 0; i < m; i++) {
+            Bigram bigram = bigrams[m-i-1];
+            collocations[i] = new Bigram(bigram.w1, bigram.w2, bigram.count, -bigram.score);
+        }
+
+        return collocations;
+    }
+
+    /**
+     * Finds bigram collocations whose p-value is less than the given
+     * threshold. As {@link smile.nlp.SimpleCorpus}, the stop words and
+     * punctuation marks are excluded, which also break the bigrams.
+     *
+     * @param sentences the supplier of the stream of sentences (already
+     *                  split and lowercased). It is called twice if the
+     *                  sketch pre-filter is enabled. The stream is closed
+     *                  after use.
+     * @param p the p-value threshold.
+     * @throws IOException when fails to spill or merge the sorted runs.
+     * @return the significant bigram collocations in descending order of
+     * likelihood ratio.
+     */
+    public Bigram[] collocations(Supplier<? extends Stream<String[]>> sentences, double p) throws IOException {
+        if (p <= 0.0 || p >= 1.0) {
+            throw new IllegalArgumentException("Invalid p = " + p);
+        }
+
+        double cutoff = chisq.quantile(p);
+        ArrayList<Bigram> bigrams = new ArrayList<>();
+        score(sentences, bigram -> {
+            if (bigram.score > cutoff) {
+                bigrams.add(bigram);
+            }
+        });
+
+        Bigram[] collocations = bigrams.toArray(new Bigram[0]);
+        Arrays.sort(collocations, Collections.reverseOrder());
+        return collocations;
+    }
+
+    /**
+     * Scores the frequent bigrams by likelihood ratio in the merge pass.
+     * @param sentences the supplier of the stream of sentences.
+     * @param action the action on the scored bigrams.
+     */
+    private void score(Supplier<? extends Stream<String[]>> sentences, Consumer<Bigram> action) throws IOException {
+        EnglishPunctuations punctuations = EnglishPunctuations.getInstance();
+        EnglishStopWords stopWords = EnglishStopWords.DEFAULT;
+        Predicate<String> exclude = word -> punctuations.contains(word) || stopWords.contains(word);
+
+        HashMap<String, MutableInt> unigrams = new HashMap<>();
+        count(sentences, 2, exclude, tokens -> (words, count) -> {
+            if (words.length == 1) {
+                unigrams.put(words[0], new MutableInt(toInt(count)));
+            } else {
+                int c1 = unigrams.get(words[0]).value;
+                int c2 = unigrams.get(words[1]).value;
+                int c12 = toInt(count);
+                double score = Bigram.likelihoodRatio(c1, c2, c12, tokens);
+                action.accept(new Bigram(words[0], words[1], c12, score));
+            }
+        });
+    }
+
+    /**
+     * Counts the n-grams and calls the action on the frequent ones in the
+     * order of length and then words.
+     * @param sentences the supplier of the stream of sentences.
+     * @param maxNGramSize the maximum length of n-gram.
+     * @param exclude the predicate of words to exclude, which also break
+     *                the n-grams.
+     * @param action the function that returns the action on the frequent
+     *               n-grams and their counts, given the number of tokens
+     *               not excluded.
+     */
+    private void count(Supplier<? extends Stream<String[]>> sentences, int maxNGramSize, Predicate<String> exclude, LongFunction<ObjLongConsumer<String[]>> action) throws IOException {
+        CountMinSketch sketch = null;
+        if (sketchWidth > 0) {
+            sketch = sketch(sentences, maxNGramSize, exclude);
+        }
+
+        Queue<Path> files = new ConcurrentLinkedQueue<>();
+        try {
+            Buffer buffer;
+            CountMinSketch filter = sketch;
+            try (Stream<String[]> stream = sentences.get()) {
+                buffer = stream.parallel().collect(
+                        () -> new Buffer(maxNGramSize, exclude, filter, files),
+                        Buffer::add,
+                        Buffer::combine);
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+
+            ArrayList<Run> runs = new ArrayList<>();
+            try {
+                if (buffer.runs.isEmpty()) {
+                    runs.add(new MemoryRun(buffer.sort()));
+                } else {
+                    buffer.spill();
+                    for (Path file : buffer.runs) {
+                        runs.add(new FileRun(file));
+                    }
+                }
+
+                logger.info("Merge {} sorted runs of {} tokens", runs.size(), buffer.tokens);
+                merge(runs, action.apply(buffer.tokens));
+            } finally {
+                for (Run run : runs) {
+                    run.close();
+                }
+            }
+        } finally {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Builds the count-min sketch of n-grams. Each thread updates its
+     * own sketch, which are merged at the end.
+     * @param sentences the supplier of the stream of sentences.
+     * @param maxNGramSize the maximum length of n-gram.
+     * @param exclude the predicate of words to exclude.
+     * @return the count-min sketch.
+     */
+    private CountMinSketch sketch(Supplier<? extends Stream<String[]>> sentences, int maxNGramSize, Predicate<String> exclude) {
+        ConcurrentHashMap<Thread, CountMinSketch> sketches = new ConcurrentHashMap<>();
+        try (Stream<String[]> stream = sentences.get()) {
+            stream.parallel().forEach(sentence -> {
+                CountMinSketch sketch = sketches.computeIfAbsent(Thread.currentThread(), thread -> new CountMinSketch(sketchWidth, SKETCH_DEPTH));
+                int n = sentence.length;
+                long[] hash = hash(sentence, exclude);
+                for (int i = 0; i < n; i++) {
+                    long h = 0;
+                    for (int j = i; j < n && j - i < maxNGramSize && hash[j] != 0; j++) {
+                        h = mix(h, hash[j]);
+                        sketch.add(h);
+                    }
+                }
+            });
+        }
+
+        if (sketches.isEmpty()) {
+            return new CountMinSketch(sketchWidth, SKETCH_DEPTH);
+        }
+
+        Iterator<CountMinSketch> iterator = sketches.values().iterator();
+        CountMinSketch sketch = iterator.next();
+        while (iterator.hasNext()) {
+            sketch.merge(iterator.next());
+        }
+        return sketch;
+    }
+
+    /**
+     * Merges the sorted runs.
+     * @param runs the sorted runs.
+     * @param action the action on the frequent n-grams and their counts.
+     */
+    private void merge(List<Run> runs, ObjLongConsumer<String[]> action) throws IOException {
+        PriorityQueue<Run> queue = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) -> compare(a.words, b.words));
+        for (Run run : runs) {
+            if (run.next()) queue.add(run);
+        }
+
+        while (!queue.isEmpty()) {
+            Run run = queue.poll();
+            String[] words = run.words;
+            long count = run.count;
+            if (run.next()) queue.add(run);
+
+            while (!queue.isEmpty() && compare(queue.peek().words, words) == 0) {
+                run = queue.poll();
+                count += run.count;
+                if (run.next()) queue.add(run);
+            }
+
+            if (count >= minFrequency) {
+                action.accept(words, count);
+            }
+        }
+    }
+
+    /**
+     * Returns the hash codes of words. The hash code of excluded words is 0.
+     * @param sentence the sentence.
+     * @param exclude the predicate of words to exclude.
+     * @return the hash codes of words.
+     */
+    private static long[] hash(String[] sentence, Predicate<String> exclude) {
+        long[] hash = new long[sentence.length];
+        for (int i = 0; i < hash.length; i++) {
+            String word = sentence[i];
+            if (!exclude.test(word)) {
+                long h = 1125899906842597L;
+                for (int j = 0; j < word.length(); j++) {
+                    h = 31 * h + word.charAt(j);
+                }
+                hash[i] = h == 0 ? 1 : h;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the hash code of n-gram extended by a word.
+     * @param h the hash code of n-gram.
+     * @param word the hash code of word.
+     * @return the hash code of extended n-gram.
+     */
+    private static long mix(long h, long word) {
+        h = (h + word) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Compares n-grams by length and then words.
+     * @param a an n-gram.
+     * @param b an n-gram.
+     * @return a negative integer, zero, or a positive integer as a is less
+     * than, equal to, or greater than b.
+     */
+    private static int compare(String[] a, String[] b) {
+        if (a.length != b.length) {
+            return Integer.compare(a.length, b.length);
+        }
+
+        for (int i = 0; i < a.length; i++) {
+            int c = a[i].compareTo(b[i]);
+            if (c != 0) return c;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the count as int, which saturates at Integer.MAX_VALUE.
+     */
+    private static int toInt(long count) {
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The n-gram counts of a task in the map phase.
+     */
+    private class Buffer {
+        /** The maximum length of n-gram. */
+        final int maxNGramSize;
+        /** The predicate of words to exclude. */
+        final Predicate<String> exclude;
+        /** The count-min sketch pre-filter. May be null. */
+        final CountMinSketch sketch;
+        /** The temporary files of all tasks. */
+        final Queue<Path> files;
+        /** The n-gram counts in memory. */
+        HashMap<smile.nlp.NGram, MutableInt> counts = new HashMap<>();
+        /** The spilled sorted runs. */
+        final ArrayList<Path> runs = new ArrayList<>();
+        /** The number of tokens not excluded. */
+        long tokens;
+
+        /**
+         * Constructor.
+         * @param maxNGramSize the maximum length of n-gram.
+         * @param exclude the predicate of words to exclude.
+         * @param sketch the count-min sketch pre-filter. May be null.
+         * @param files the temporary files of all tasks.
+         */
+        Buffer(int maxNGramSize, Predicate<String> exclude, CountMinSketch sketch, Queue<Path> files) {
+            this.maxNGramSize = maxNGramSize;
+            this.exclude = exclude;
+            this.sketch = sketch;
+            this.files = files;
+        }
+
+        /**
+         * Counts the n-grams of a sentence.
+         * @param sentence the sentence.
+         */
+        void add(String[] sentence) {
+            int n = sentence.length;
+            long[] hash = hash(sentence, exclude);
+            for (int i = 0; i < n; i++) {
+                if (hash[i] == 0) continue;
+                tokens++;
+
+                long h = 0;
+                for (int j = i; j < n && j - i < maxNGramSize && hash[j] != 0; j++) {
+                    // An n-gram is no more frequent than its prefix.
+                    if (sketch != null) {
+                        h = mix(h, hash[j]);
+                        if (sketch.estimate(h) < minFrequency) break;
+                    }
+
+                    smile.nlp.NGram ngram = new smile.nlp.NGram(Arrays.copyOfRange(sentence, i, j + 1));
+                    MutableInt count = counts.get(ngram);
+                    if (count == null) {
+                        counts.put(ngram, new MutableInt(1));
+                    } else {
+                        count.increment();
+                    }
+                }
+            }
+
+            if (counts.size() >= bufferSize) {
+                spill();
+            }
+        }
+
+        /**
+         * Merges the counts of another task.
+         * @param other the buffer of another task.
+         */
+        void combine(Buffer other) {
+            tokens += other.tokens;
+            runs.addAll(other.runs);
+            if (counts.size() < other.counts.size()) {
+                HashMap<smile.nlp.NGram, MutableInt> swap = counts;
+                counts = other.counts;
+                other.counts = swap;
+            }
+
+            for (Map.Entry<smile.nlp.NGram, MutableInt> entry : other.counts.entrySet()) {
+                MutableInt count = counts.get(entry.getKey());
+                if (count == null) {
+                    counts.put(entry.getKey(), entry.getValue());
+                } else {
+                    count.increment(entry.getValue().value);
+                }
+            }
+            other.counts = null;
+
+            if (counts.size() >= bufferSize) {
+                spill();
+            }
+        }
+
+        /**
+         * Returns the n-gram counts in sorted order and clears the buffer.
+         * @return the sorted n-gram counts.
+         */
+        @SuppressWarnings("unchecked")
+        Map.Entry<smile.nlp.NGram, MutableInt>[] sort() {
+            Map.Entry<smile.nlp.NGram, MutableInt>[] entries = counts.entrySet().toArray(new Map.Entry[0]);
+            Arrays.sort(entries, (a, b) -> compare(a.getKey().words, b.getKey().words));
+            counts = new HashMap<>();
+            return entries;
+        }
+
+        /**
+         * Writes the n-gram counts as a sorted run to a temporary file.
+         */
+        void spill() {
+            if (counts.isEmpty()) return;
+
+            Map.Entry<smile.nlp.NGram, MutableInt>[] entries = sort();
+            try {
+                Path file = directory == null ? Files.createTempFile("ngram", ".run") : Files.createTempFile(directory, "ngram", ".run");
+                files.add(file);
+                runs.add(file);
+
+                try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+                    for (Map.Entry<smile.nlp.NGram, MutableInt> entry : entries) {
+                        String[] words = entry.getKey().words;
+                        output.writeByte(words.length);
+                        for (String word : words) {
+                            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+                            output.writeInt(bytes.length);
+                            output.write(bytes);
+                        }
+                        output.writeInt(entry.getValue().value);
+                    }
+                    output.writeByte(0);
+                }
+
+                logger.debug("Spill {} n-grams to {}", entries.length, file);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * A sorted run of n-gram counts.
+     */
+    private static abstract class Run implements Closeable {
+        /** The current n-gram. */
+        String[] words;
+        /** The count of current n-gram. */
+        long count;
+
+        /**
+         * Moves to the next n-gram.
+         * @return false if the run is exhausted.
+         */
+        abstract boolean next() throws IOException;
+
+        @Override
+        public void close() throws IOException {
+
+        }
+    }
+
+    /**
+     * A sorted run in memory.
+     */
+    private static class MemoryRun extends Run {
+        /** The sorted n-gram counts. */
+        final Map.Entry<smile.nlp.NGram, MutableInt>[] entries;
+        /** The index of next entry. */
+        int index;
+
+        /**
+         * Constructor.
+         * @param entries the sorted n-gram counts.
+         */
+        MemoryRun(Map.Entry<smile.nlp.NGram, MutableInt>[] entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        boolean next() {
+            if (index >= entries.length) return false;
+            Map.Entry<smile.nlp.NGram, MutableInt> entry = entries[index++];
+            words = entry.getKey().words;
+            count = entry.getValue().value;
+            return true;
+        }
+    }
+
+    /**
+     * A sorted run in a temporary file.
+     */
+    private static class FileRun extends Run {
+        /** The input stream. */
+        final DataInputStream input;
+        /** The buffer of word bytes. */
+        byte[] buffer = new byte[256];
+
+        /**
+         * Constructor.
+         * @param file the temporary file.
+         */
+        FileRun(Path file) throws IOException {
+            input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        }
+
+        @Override
+        boolean next() throws IOException {
+            int n = input.readUnsignedByte();
+            if (n == 0) return false;
+
+            words = new String[n];
+            for (int i = 0; i < n; i++) {
+                int length = input.readInt();
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, 2 * buffer.length)];
+                }
+                input.readFully(buffer, 0, length);
+                words[i] = new String(buffer, 0, length, StandardCharsets.UTF_8);
+            }
+            count = input.readInt();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
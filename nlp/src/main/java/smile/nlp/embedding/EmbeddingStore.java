@@ -0,0 +1,785 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.nlp.embedding;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import smile.neighbor.Neighbor;
+
+/**
+ * A memory-mapped store of word embeddings. The vectors are normalized
+ * to unit length and stored row-major in a file, which is mapped in
+ * segments so that the store is not limited to 2 GB and the vectors stay
+ * in the OS page cache rather than the Java heap. Only the vocabulary,
+ * the norms of original vectors and the quantization scales are loaded
+ * into the heap.
+ * <p>
+ * The nearest neighbor search by cosine similarity is an exhaustive scan
+ * that computes the dot products of query with blocks of rows in parallel.
+ * Optionally, the vectors may be quantized to 8-bit integers with a scale
+ * per row, which reduces the memory footprint by 4 times at a small loss
+ * of accuracy.
+ * <p>
+ * The file layout is
+ * <pre>
+ *     magic "SMILEEMB"           8 bytes
+ *     version                    int
+ *     vocabulary size n          int
+ *     dimension d                int
+ *     quantized                  int
+ *     vectors offset             long
+ *     norms offset               long
+ *     words offset               long
+ *     vectors                    n x d floats or bytes, row-major
+ *     norms                      n floats
+ *     scales                     n floats, only if quantized
+ *     words                      n x (int length, UTF-8 bytes)
+ * </pre>
+ * All integers are little-endian.
+ *
+ * @author Haifeng Li
+ */
+public class EmbeddingStore {
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(EmbeddingStore.class);
+
+    /** The magic bytes at the beginning of file. */
+    private static final byte[] MAGIC = "SMILEEMB".getBytes(StandardCharsets.US_ASCII);
+    /** The format version. */
+    private static final int VERSION = 1;
+    /** The size of fixed header. */
+    private static final int HEADER_SIZE = MAGIC.length + 40;
+    /** The file offset of vectors. */
+    private static final int VECTOR_OFFSET = 64;
+    /** The maximum size of mapped segments. */
+    private static final int SEGMENT_SIZE = 1 << 30;
+    /** The number of vector elements in a block of search. */
+    private static final int BLOCK_SIZE = 1 << 14;
+    /** The size of I/O buffer. */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /** The vocabulary. */
+    private final String[] words;
+    /** The open addressing hash table of word index plus 1. */
+    private final int[] table;
+    /** The dimension of vectors. */
+    private final int dim;
+    /** True if the vectors are quantized to 8-bit integers. */
+    private final boolean quantized;
+    /** The norms of original vectors. */
+    private final float[] norms;
+    /** The quantization scales of rows. */
+    private final float[] scales;
+    /** The number of rows per segment. */
+    private final int rowsPerSegment;
+    /** The segments of normalized vectors. */
+    private final FloatBuffer[] floats;
+    /** The segments of quantized vectors. */
+    private final ByteBuffer[] bytes;
+    /** The number of rows per search block. */
+    private final int blockRows;
+
+    /**
+     * Constructor.
+     * @param path the file path.
+     * @param segmentSize the maximum size of mapped segments.
+     */
+    EmbeddingStore(Path path, int segmentSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not an embedding store: " + path);
+            }
+
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported embedding store version: " + version);
+            }
+
+            int n = header.getInt();
+            dim = header.getInt();
+            quantized = header.getInt() != 0;
+            long vectorOffset = header.getLong();
+            long normOffset = header.getLong();
+            long wordOffset = header.getLong();
+
+            int rowBytes = quantized ? dim : 4 * dim;
+            rowsPerSegment = Math.max(1, segmentSize / rowBytes);
+            blockRows = Math.max(1, Math.min(rowsPerSegment, BLOCK_SIZE / dim));
+            int segments = (n + rowsPerSegment - 1) / rowsPerSegment;
+            floats = quantized ? null : new FloatBuffer[segments];
+            bytes = quantized ? new ByteBuffer[segments] : null;
+            for (int s = 0; s < segments; s++) {
+                int rows = Math.min(rowsPerSegment, n - s * rowsPerSegment);
+                long offset = vectorOffset + (long) s * rowsPerSegment * rowBytes;
+                ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, offset, (long) rows * rowBytes);
+                segment.order(ByteOrder.LITTLE_ENDIAN);
+                if (quantized) {
+                    bytes[s] = segment;
+                } else {
+                    floats[s] = segment.asFloatBuffer();
+                }
+            }
+
+            norms = new float[n];
+            readFully(channel, normOffset, 4 * n).asFloatBuffer().get(norms);
+            if (quantized) {
+                scales = new float[n];
+                readFully(channel, normOffset + 4L * n, 4 * n).asFloatBuffer().get(scales);
+            } else {
+                scales = null;
+            }
+
+            words = readWords(channel, wordOffset, n);
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2, words.length) * 2 - 1) << 1;
+        table = new int[capacity];
+        for (int i = 0; i < words.length; i++) {
+            int slot = slot(words[i]);
+            if (table[slot] == 0) {
+                table[slot] = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Opens an embedding store. The vectors are memory-mapped without
+     * copying. The mapping remains valid after this method returns
+     * until the store is garbage collected.
+     *
+     * @param path the file path.
+     * @throws IOException when fails to read the file.
+     * @return the embedding store.
+     */
+    public static EmbeddingStore open(Path path) throws IOException {
+        return new EmbeddingStore(path, SEGMENT_SIZE);
+    }
+
+    /**
+     * Returns the size of vocabulary.
+     * @return the size of vocabulary.
+     */
+    public int size() {
+        return words.length;
+    }
+
+    /**
+     * Returns the dimension of embedding vector space.
+     * @return the dimension of embedding vector space.
+     */
+    public int dimension() {
+        return dim;
+    }
+
+    /**
+     * Returns true if the vectors are quantized to 8-bit integers.
+     * @return true if the vectors are quantized to 8-bit integers.
+     */
+    public boolean isQuantized() {
+        return quantized;
+    }
+
+    /**
+     * Returns the i-th word of vocabulary.
+     * @param i the index of word.
+     * @return the word.
+     */
+    public String word(int i) {
+        return words[i];
+    }
+
+    /**
+     * Returns the index of a word in the vocabulary.
+     * @param word the word.
+     * @return the index of word, or -1 if the word is not in the vocabulary.
+     */
+    public int indexOf(String word) {
+        int slot = slot(word);
+        return table[slot] - 1;
+    }
+
+    /**
+     * Returns the embedding vector of a word.
+     * @param word the word.
+     * @return the embedding vector, or null if the word is not in the vocabulary.
+     */
+    public float[] get(String word) {
+        int i = indexOf(word);
+        return i < 0 ? null : get(i);
+    }
+
+    /**
+     * Returns the embedding vector of i-th word. If the store is
+     * quantized, the vector is an approximation of original one.
+     * @param i the index of word.
+     * @return the embedding vector.
+     */
+    public float[] get(int i) {
+        float[] vector = unit(i);
+        float norm = norms[i];
+        for (int j = 0; j < dim; j++) {
+            vector[j] *= norm;
+        }
+        return vector;
+    }
+
+    /**
+     * Returns the embedding vector of a word. For Scala convenience.
+     * @param word the word.
+     * @return the embedding vector, or null if the word is not in the vocabulary.
+     */
+    public float[] apply(String word) {
+        return get(word);
+    }
+
+    /**
+     * Returns the k nearest words of a word by cosine similarity.
+     * The query word itself is excluded. The distance of neighbors
+     * is 1 - cosine similarity.
+     *
+     * @param word the query word.
+     * @param k the number of nearest neighbors.
+     * @return the nearest neighbors in ascending order of distance,
+     *         or null if the word is not in the vocabulary.
+     */
+    public Neighbor<String, float[]>[] nearest(String word, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Invalid k: " + k);
+        }
+
+        int i = indexOf(word);
+        if (i < 0) return null;
+
+        float[] q = unit(i);
+        if (quantized) {
+            normalize(q);
+        }
+        return search(q, k, i);
+    }
+
+    /**
+     * Returns the k nearest words of a vector by cosine similarity.
+     * The distance of neighbors is 1 - cosine similarity.
+     *
+     * @param vector the query vector.
+     * @param k the number of nearest neighbors.
+     * @return the nearest neighbors in ascending order of distance.
+     */
+    public Neighbor<String, float[]>[] nearest(float[] vector, int k) {
+        if (vector.length != dim) {
+            throw new IllegalArgumentException(String.format("Invalid vector dimension: %d != %d", vector.length, dim));
+        }
+
+        if (k <= 0) {
+            throw new IllegalArgumentException("Invalid k: " + k);
+        }
+
+        float[] q = vector.clone();
+        normalize(q);
+        return search(q, k, -1);
+    }
+
+    /**
+     * Scans the blocks of rows in parallel for the nearest neighbors.
+     * @param q the normalized query vector.
+     * @param k the number of nearest neighbors.
+     * @param exclude the index of row to exclude, or -1.
+     * @return the nearest neighbors.
+     */
+    @SuppressWarnings("unchecked")
+    private Neighbor<String, float[]>[] search(float[] q, int k, int exclude) {
+        int segments = quantized ? bytes.length : floats.length;
+        int blocksPerSegment = (rowsPerSegment + blockRows - 1) / blockRows;
+        TopK top = IntStream.range(0, segments * blocksPerSegment).parallel().collect(
+                () -> new TopK(k, blockRows * dim, quantized),
+                (heap, block) -> scan(q, block / blocksPerSegment, (block % blocksPerSegment) * blockRows, heap, exclude),
+                TopK::merge);
+
+        int m = top.size;
+        Integer[] order = new Integer[m];
+        for (int i = 0; i < m; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            int c = Float.compare(top.score[b], top.score[a]);
+            return c == 0 ? Integer.compare(top.index[a], top.index[b]) : c;
+        });
+
+        Neighbor<String, float[]>[] neighbors = new Neighbor[m];
+        for (int i = 0; i < m; i++) {
+            int j = top.index[order[i]];
+            neighbors[i] = new Neighbor<>(words[j], get(j), j, 1.0 - top.score[order[i]]);
+        }
+        return neighbors;
+    }
+
+    /**
+     * Computes the similarities of query with a block of rows.
+     * @param q the normalized query vector.
+     * @param segment the index of segment.
+     * @param start the first row of block in the segment.
+     * @param heap the heap of nearest neighbors.
+     * @param exclude the index of row to exclude, or -1.
+     */
+    private void scan(float[] q, int segment, int start, TopK heap, int exclude) {
+        int base = segment * rowsPerSegment;
+        int rows = Math.min(blockRows, Math.min(rowsPerSegment, words.length - base) - start);
+        if (rows <= 0) return;
+
+        int first = base + start;
+        if (quantized) {
+            ByteBuffer buffer = bytes[segment].duplicate();
+            buffer.position(start * dim);
+            buffer.get(heap.bytes, 0, rows * dim);
+            for (int r = 0; r < rows; r++) {
+                int i = first + r;
+                if (i != exclude) {
+                    heap.add(i, scales[i] * dot(q, heap.bytes, r * dim, dim));
+                }
+            }
+        } else {
+            FloatBuffer buffer = floats[segment].duplicate();
+            buffer.position(start * dim);
+            buffer.get(heap.floats, 0, rows * dim);
+            for (int r = 0; r < rows; r++) {
+                int i = first + r;
+                if (i != exclude) {
+                    heap.add(i, dot(q, heap.floats, r * dim, dim));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the normalized (and possibly dequantized) vector of i-th word.
+     * @param i the index of word.
+     * @return the vector.
+     */
+    private float[] unit(int i) {
+        int segment = i / rowsPerSegment;
+        int offset = (i % rowsPerSegment) * dim;
+        float[] vector = new float[dim];
+        if (quantized) {
+            ByteBuffer buffer = bytes[segment];
+            float scale = scales[i];
+            for (int j = 0; j < dim; j++) {
+                vector[j] = scale * buffer.get(offset + j);
+            }
+        } else {
+            FloatBuffer buffer = floats[segment].duplicate();
+            buffer.position(offset);
+            buffer.get(vector);
+        }
+        return vector;
+    }
+
+    /**
+     * Returns the slot of a word in the hash table, which is either
+     * occupied by the word or empty.
+     * @param word the word.
+     * @return the slot.
+     */
+    private int slot(String word) {
+        int mask = table.length - 1;
+        int h = word.hashCode() * 0x9E3779B9;
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (table[slot] != 0 && !words[table[slot] - 1].equals(word)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the dot product of query and a row of block.
+     * @param q the query vector.
+     * @param x the block of rows.
+     * @param offset the offset of row in the block.
+     * @param d the dimension.
+     * @return the dot product.
+     */
+    private static float dot(float[] q, float[] x, int offset, int d) {
+        float s0 = 0.0f, s1 = 0.0f, s2 = 0.0f, s3 = 0.0f;
+        int j = 0;
+        for (; j + 3 < d; j += 4) {
+            s0 += q[j] * x[offset + j];
+            s1 += q[j + 1] * x[offset + j + 1];
+            s2 += q[j + 2] * x[offset + j + 2];
+            s3 += q[j + 3] * x[offset + j + 3];
+        }
+        for (; j < d; j++) {
+            s0 += q[j] * x[offset + j];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the dot product of query and a quantized row of block.
+     * @param q the query vector.
+     * @param x the block of quantized rows.
+     * @param offset the offset of row in the block.
+     * @param d the dimension.
+     * @return the dot product.
+     */
+    private static float dot(float[] q, byte[] x, int offset, int d) {
+        float s0 = 0.0f, s1 = 0.0f, s2 = 0.0f, s3 = 0.0f;
+        int j = 0;
+        for (; j + 3 < d; j += 4) {
+            s0 += q[j] * x[offset + j];
+            s1 += q[j + 1] * x[offset + j + 1];
+            s2 += q[j + 2] * x[offset + j + 2];
+            s3 += q[j + 3] * x[offset + j + 3];
+        }
+        for (; j < d; j++) {
+            s0 += q[j] * x[offset + j];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Normalizes a vector to unit length in place.
+     * @param x the vector.
+     * @return the norm of original vector.
+     */
+    private static float normalize(float[] x) {
+        double norm = 0.0;
+        for (float xi : x) {
+            norm += xi * xi;
+        }
+        norm = Math.sqrt(norm);
+
+        if (norm > 0.0) {
+            for (int j = 0; j < x.length; j++) {
+                x[j] /= norm;
+            }
+        }
+        return (float) norm;
+    }
+
+    /**
+     * Reads the vocabulary.
+     * @param channel the file channel.
+     * @param offset the file offset of words.
+     * @param n the size of vocabulary.
+     * @return the words.
+     */
+    private static String[] readWords(FileChannel channel, long offset, int n) throws IOException {
+        String[] words = new String[n];
+        ByteBuffer buffer = readFully(channel, offset, 0, 0);
+        for (int i = 0; i < n; i++) {
+            if (buffer.remaining() < 4) {
+                offset += buffer.position();
+                buffer = readFully(channel, offset, 4, BUFFER_SIZE);
+            }
+
+            int length = buffer.getInt();
+            if (buffer.remaining() < length) {
+                offset += buffer.position();
+                buffer = readFully(channel, offset, length, Math.max(length, BUFFER_SIZE));
+            }
+
+            words[i] = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        }
+        return words;
+    }
+
+    /**
+     * Reads exactly the given number of bytes from the file.
+     * @param channel the file channel.
+     * @param offset the file offset.
+     * @param size the number of bytes.
+     * @return the little-endian buffer of bytes.
+     */
+    private static ByteBuffer readFully(FileChannel channel, long offset, int size) throws IOException {
+        return readFully(channel, offset, size, size);
+    }
+
+    /**
+     * Reads at least the given number of bytes from the file.
+     * @param channel the file channel.
+     * @param offset the file offset.
+     * @param min the minimum number of bytes to read.
+     * @param max the maximum number of bytes to read.
+     * @return the little-endian buffer of bytes.
+     */
+    private static ByteBuffer readFully(FileChannel channel, long offset, int min, int max) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(max).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.position() < min) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Writes all remaining bytes of buffer to the file.
+     * @param channel the file channel.
+     * @param buffer the buffer.
+     * @param offset the file offset.
+     * @return the number of bytes written.
+     */
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        int size = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + size - buffer.remaining());
+        }
+        return size;
+    }
+
+    /**
+     * The heap of k nearest neighbors found by a search task, which
+     * also holds the buffer of row blocks.
+     */
+    private static class TopK {
+        /** The number of nearest neighbors. */
+        final int k;
+        /** The similarities in a min-heap. */
+        final float[] score;
+        /** The row indices. */
+        final int[] index;
+        /** The number of neighbors in the heap. */
+        int size;
+        /** The buffer of normalized vectors. */
+        final float[] floats;
+        /** The buffer of quantized vectors. */
+        final byte[] bytes;
+
+        /**
+         * Constructor.
+         * @param k the number of nearest neighbors.
+         * @param block the size of block buffer.
+         * @param quantized true if the vectors are quantized.
+         */
+        TopK(int k, int block, boolean quantized) {
+            this.k = k;
+            this.score = new float[k];
+            this.index = new int[k];
+            this.floats = quantized ? null : new float[block];
+            this.bytes = quantized ? new byte[block] : null;
+        }
+
+        /**
+         * Adds a candidate.
+         * @param i the row index.
+         * @param s the similarity.
+         */
+        void add(int i, float s) {
+            if (size < k) {
+                int child = size++;
+                while (child > 0) {
+                    int parent = (child - 1) >> 1;
+                    if (score[parent] <= s) break;
+                    score[child] = score[parent];
+                    index[child] = index[parent];
+                    child = parent;
+                }
+                score[child] = s;
+                index[child] = i;
+            } else if (s > score[0]) {
+                int parent = 0;
+                while (true) {
+                    int child = 2 * parent + 1;
+                    if (child >= k) break;
+                    if (child + 1 < k && score[child + 1] < score[child]) child++;
+                    if (s <= score[child]) break;
+                    score[parent] = score[child];
+                    index[parent] = index[child];
+                    parent = child;
+                }
+                score[parent] = s;
+                index[parent] = i;
+            }
+        }
+
+        /**
+         * Merges the neighbors found by another task.
+         * @param other the heap of another task.
+         */
+        void merge(TopK other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.index[i], other.score[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes word embeddings into a store file in a streaming fashion.
+     * The vectors are written to the file as they are added so that
+     * the vocabulary of any size can be converted in bounded memory.
+     */
+    public static class Writer implements Closeable {
+        /** The file path. */
+        private final Path path;
+        /** The file channel. */
+        private final FileChannel channel;
+        /** The dimension of vectors. */
+        private final int dim;
+        /** True if the vectors are quantized to 8-bit integers. */
+        private final boolean quantized;
+        /** The I/O buffer. */
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        /** The file offset of next write. */
+        private long offset = VECTOR_OFFSET;
+        /** The vocabulary. */
+        private final List<String> words = new ArrayList<>();
+        /** The norms of vectors. */
+        private float[] norms = new float[1024];
+        /** The quantization scales of rows. */
+        private float[] scales = new float[1024];
+
+        /**
+         * Constructor.
+         * @param path the output file path.
+         * @param dim the dimension of vectors.
+         * @param quantized true if the vectors are quantized to 8-bit integers.
+         * @throws IOException when fails to create the file.
+         */
+        public Writer(Path path, int dim, boolean quantized) throws IOException {
+            if (dim <= 0) {
+                throw new IllegalArgumentException("Invalid dimension: " + dim);
+            }
+
+            this.path = path;
+            this.dim = dim;
+            this.quantized = quantized;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Adds the embedding vector of a word.
+         * @param word the word.
+         * @param vector the embedding vector.
+         * @throws IOException when fails to write the file.
+         */
+        public void add(String word, float[] vector) throws IOException {
+            if (vector.length != dim) {
+                throw new IllegalArgumentException(String.format("Invalid vector dimension: %d != %d", vector.length, dim));
+            }
+
+            int i = words.size();
+            if (i == norms.length) {
+                norms = Arrays.copyOf(norms, 2 * i);
+                scales = Arrays.copyOf(scales, 2 * i);
+            }
+
+            float[] x = vector.clone();
+            norms[i] = normalize(x);
+            words.add(word);
+
+            int rowBytes = quantized ? dim : 4 * dim;
+            if (buffer.remaining() < rowBytes) {
+                flush();
+                if (buffer.capacity() < rowBytes) {
+                    buffer = ByteBuffer.allocate(rowBytes).order(ByteOrder.LITTLE_ENDIAN);
+                }
+            }
+
+            if (quantized) {
+                float max = 0.0f;
+                for (float xi : x) {
+                    max = Math.max(max, Math.abs(xi));
+                }
+
+                float scale = max > 0.0f ? max / 127 : 1.0f;
+                scales[i] = scale;
+                for (float xi : x) {
+                    buffer.put((byte) Math.round(xi / scale));
+                }
+            } else {
+                for (float xi : x) {
+                    buffer.putFloat(xi);
+                }
+            }
+        }
+
+        /** Writes the buffered bytes to the file. */
+        private void flush() throws IOException {
+            buffer.flip();
+            offset += writeFully(channel, buffer, offset);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                int n = words.size();
+                long normOffset = (offset + 7) & ~7L;
+                offset = normOffset;
+                for (int i = 0; i < n; i++) {
+                    if (buffer.remaining() < 4) flush();
+                    buffer.putFloat(norms[i]);
+                }
+
+                if (quantized) {
+                    for (int i = 0; i < n; i++) {
+                        if (buffer.remaining() < 4) flush();
+                        buffer.putFloat(scales[i]);
+                    }
+                }
+
+                flush();
+                long wordOffset = offset;
+                for (String word : words) {
+                    byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+                    int size = 4 + bytes.length;
+                    if (buffer.remaining() < size) {
+                        flush();
+                        if (buffer.capacity() < size) {
+                            buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+                        }
+                    }
+                    buffer.putInt(bytes.length);
+                    buffer.put(bytes);
+                }
+                flush();
+
+                ByteBuffer header = ByteBuffer.allocate(VECTOR_OFFSET).order(ByteOrder.LITTLE_ENDIAN);
+                header.put(MAGIC);
+                header.putInt(VERSION);
+                header.putInt(n);
+                header.putInt(dim);
+                header.putInt(quantized ? 1 : 0);
+                header.putLong(VECTOR_OFFSET);
+                header.putLong(normOffset);
+                header.putLong(wordOffset);
+                header.clear();
+                writeFully(channel, header, 0);
+                logger.info("Wrote {} x {} embeddings to {}", n, dim, path);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@
 
 package smile.nlp.embedding;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -81,4 +82,47 @@ public class GloVe {
             return new Word2Vec(words.toArray(new String[n]), pivot);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Converts a GloVe model to an embedding store. The model is
+     * streamed so that it may be larger than the heap and 2 GB.
+     * @param file the path to model file.
+     * @param output the path to embedding store file.
+     * @param quantized true if the vectors are quantized to 8-bit integers.
+     * @throws IOException when fails to read or write the file.
+     * @return the embedding store.
+     */
+    public static EmbeddingStore store(Path file, Path output, boolean quantized) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            EmbeddingStore.Writer writer = null;
+            try {
+                float[] vector = null;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] tokens = line.split("\\s+");
+                    if (writer == null) {
+                        vector = new float[tokens.length - 1];
+                        writer = new EmbeddingStore.Writer(output, vector.length, quantized);
+                    }
+
+                    if (tokens.length - 1 != vector.length) {
+                        throw new IllegalStateException("Invalid line: " + tokens[0]);
+                    }
+
+                    for (int i = 0; i < vector.length; i++) {
+                        vector[i] = Float.parseFloat(tokens[i+1]);
+                    }
+                    writer.add(tokens[0], vector);
+                }
+            } finally {
+                if (writer != null) writer.close();
+            }
+
+            if (writer == null) {
+                throw new IllegalStateException("Empty model file: " + file);
+            }
+        }
+
+        return EmbeddingStore.open(output);
+    }
+}
@@ -17,13 +17,20 @@
 
 package smile.nlp.embedding;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.file.Path;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.stream.IntStream;
 import smile.data.DataFrame;
@@ -202,4 +209,65 @@ public class Word2Vec {
             return new Word2Vec(words, vectors);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Converts a <a href="https://code.google.com/archive/p/word2vec/">pre-trained</a>
+     * word2vec model in binary file to an embedding store. The model
+     * is streamed so that it may be larger than the heap and 2 GB.
+     * @param file the path to model file.
+     * @param order the byte order of model file.
+     * @param output the path to embedding store file.
+     * @param quantized true if the vectors are quantized to 8-bit integers.
+     * @throws IOException when fails to read or write the file.
+     * @return the embedding store.
+     */
+    public static EmbeddingStore store(Path file, ByteOrder order, Path output, boolean quantized) throws IOException {
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            String line = readUntil(input, '\n', bytes);
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens.length != 2) {
+                throw new IllegalStateException("Invalid first line: " + line);
+            }
+
+            int size = Integer.parseInt(tokens[0]);
+            int dim = Integer.parseInt(tokens[1]);
+            byte[] buffer = new byte[4 * dim];
+            float[] vector = new float[dim];
+
+            try (EmbeddingStore.Writer writer = new EmbeddingStore.Writer(output, dim, quantized)) {
+                for (int i = 0; i < size; i++) {
+                    String word = readUntil(input, ' ', bytes);
+                    for (int k = 0; k < buffer.length; ) {
+                        int n = input.read(buffer, k, buffer.length - k);
+                        if (n < 0) throw new EOFException();
+                        k += n;
+                    }
+                    ByteBuffer.wrap(buffer).order(order).asFloatBuffer().get(vector);
+                    writer.add(word, vector);
+                }
+            }
+        }
+
+        return EmbeddingStore.open(output);
+    }
+
+    /**
+     * Reads the UTF-8 string until the delimiter, skipping newlines.
+     * @param input the input stream.
+     * @param delimiter the delimiter.
+     * @param bytes the reusable byte buffer.
+     * @return the string.
+     */
+    private static String readUntil(InputStream input, char delimiter, ByteArrayOutputStream bytes) throws IOException {
+        bytes.reset();
+        int c = input.read();
+        while (c != delimiter) {
+            if (c < 0) throw new EOFException();
+            // some binary files have newline
+            if (c != '\n') bytes.write(c);
+            c = input.read();
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -17,8 +17,6 @@
 
 package smile.nlp.normalizer;
 
-import java.util.regex.Pattern;
-
 /**
  * A baseline normalizer for processing Unicode text.
  * <ul>
@@ -32,16 +30,6 @@ import java.util.regex.Pattern;
  */
 public class SimpleNormalizer implements Normalizer {
 
-    private static final Pattern WHITESPACE = Pattern.compile("(?U)\\s+");
-
-    private static final Pattern CONTROL_FORMAT_CHARS = Pattern.compile("[\\p{Cc}\\p{Cf}]");
-
-    private static final Pattern DOUBLE_QUOTES = Pattern.compile("[\\u02BA\\u201C\\u201D\\u201E\\u201F\\u2033\\u2036\\u275D\\u275E\\u301D\\u301E\\u301F\\uFF02]");
-
-    private static final Pattern SINGLE_QUOTES = Pattern.compile("[\\u0060\\u02BB\\u02BC\\u02BD\\u2018\\u2019\\u201A\\u201B\\u275B\\u275C]");
-
-    private static final Pattern DASH = Pattern.compile("[\\u2012\\u2013\\u2014\\u2015\\u2053]");
-
     /**
      * The singleton instance.
      */
@@ -66,16 +54,59 @@ public class SimpleNormalizer implements Normalizer {
             text = java.text.Normalizer.normalize(text, java.text.Normalizer.Form.NFKC);
         }
 
-        text = WHITESPACE.matcher(text).replaceAll(" ");
-
-        text = CONTROL_FORMAT_CHARS.matcher(text).replaceAll("");
-
-        text = DOUBLE_QUOTES.matcher(text).replaceAll("\"");
-
-        text = SINGLE_QUOTES.matcher(text).replaceAll("'");
+        // All steps are done in a single pass. A run of white spaces
+        // is compressed into a single space. A removed control or
+        // formatting character breaks the run.
+        int n = text.length();
+        StringBuilder sb = new StringBuilder(n);
+        boolean space = false;
+        for (int i = 0; i < n; ) {
+            int c = text.codePointAt(i);
+            i += Character.charCount(c);
+
+            if (isWhitespace(c)) {
+                if (!space) sb.append(' ');
+                space = true;
+                continue;
+            }
+
+            space = false;
+            int type = Character.getType(c);
+            if (type == Character.CONTROL || type == Character.FORMAT) {
+                continue;
+            }
+
+            switch (c) {
+                case 0x02BA: case 0x201C: case 0x201D: case 0x201E: case 0x201F: case 0x2033:
+                case 0x2036: case 0x275D: case 0x275E: case 0x301D: case 0x301E: case 0x301F:
+                case 0xFF02:
+                    sb.append('"');
+                    break;
+                case 0x0060: case 0x02BB: case 0x02BC: case 0x02BD: case 0x2018: case 0x2019:
+                case 0x201A: case 0x201B: case 0x275B: case 0x275C:
+                    sb.append('\'');
+                    break;
+                case 0x2012: case 0x2013: case 0x2014: case 0x2015: case 0x2053:
+                    sb.append("--");
+                    break;
+                default:
+                    sb.appendCodePoint(c);
+            }
+        }
 
-        text = DASH.matcher(text).replaceAll("--");
+        int start = 0;
+        int end = sb.length();
+        while (start < end && sb.charAt(start) == ' ') start++;
+        while (end > start && sb.charAt(end - 1) == ' ') end--;
+        return sb.substring(start, end);
+    }
 
-        return text.trim();
+    /**
+     * Returns true if the code point is a Unicode white space.
+     * @param c the code point.
+     * @return true if the code point is a Unicode white space.
+     */
+    private static boolean isWhitespace(int c) {
+        return Character.isSpaceChar(c) || (c >= 0x09 && c <= 0x0D) || c == 0x85;
     }
 }
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.nlp.tokenizer;
+
+import smile.util.IntArrayList;
+
+/**
+ * A word tokenizer implemented as a hand-written deterministic finite
+ * automaton. It produces the same tokens as {@link SimpleTokenizer}
+ * without splitting contractions, but scans the text in a single pass
+ * with a character class table rather than a series of regular
+ * expression substitutions. Besides the tokens as strings, it can
+ * report the tokens as (start, end) offsets in a {@link CharSequence}
+ * so that the callers may process the tokens without copying substrings.
+ * <p>
+ * The characters are classified into three classes: white spaces,
+ * word characters (Unicode letters, digits, marks and connector
+ * punctuations as well as <code>. ' - / , &amp;</code>), and other
+ * punctuations. The white spaces separate the tokens. Each of other
+ * punctuations is a token by itself. A run of word characters is a
+ * token except that
+ * <ul>
+ * <li>a trailing comma is separated if the run is followed by any
+ * other character,</li>
+ * <li>a trailing single quote is separated if the run is followed by
+ * any other character or the trailing comma is separated,</li>
+ * <li>a trailing period is separated if it is followed by only spaces
+ * before a newline or the end of text,</li>
+ * <li>three or more continuous periods are separated.</li>
+ * </ul>
+ * If the last token is a period and the previous token is a known
+ * abbreviation, the abbreviation keeps the period as well. With the
+ * offset API, this is done only if the period immediately follows the
+ * abbreviation. Otherwise, it is reported by
+ * {@link #isDetachedAbbreviation(CharSequence, IntArrayList)}.
+ *
+ * @author Haifeng Li
+ */
+public class DFATokenizer implements Tokenizer {
+    /** The character class of white spaces. */
+    private static final byte SPACE = 0;
+    /** The character class of word characters. */
+    private static final byte WORD = 1;
+    /** The character class of other punctuations. */
+    private static final byte PUNCT = 2;
+    /** The character classes of ASCII characters. */
+    private static final byte[] ASCII = new byte[128];
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            ASCII[c] = classify(c);
+        }
+    }
+
+    /**
+     * The singleton instance.
+     */
+    private static final DFATokenizer singleton = new DFATokenizer();
+
+    /**
+     * Constructor.
+     */
+    private DFATokenizer() {
+
+    }
+
+    /**
+     * Returns the singleton instance.
+     * @return the singleton instance.
+     */
+    public static DFATokenizer getInstance() {
+        return singleton;
+    }
+
+    @Override
+    public String[] split(String text) {
+        IntArrayList spans = new IntArrayList();
+        tokenize(text, spans);
+
+        int n = spans.size() / 2;
+        String[] tokens = new String[n];
+        for (int i = 0; i < n; i++) {
+            tokens[i] = text.substring(spans.get(2 * i), spans.get(2 * i + 1));
+        }
+
+        if (isDetachedAbbreviation(text, spans)) {
+            tokens[n-2] = tokens[n-2] + ".";
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Tokenizes the text and appends the (start, end) offsets of tokens
+     * to the list. A token is the subsequence of text in [start, end).
+     * @param text the text.
+     * @param spans the list of token offsets.
+     * @return the number of tokens.
+     */
+    public int tokenize(CharSequence text, IntArrayList spans) {
+        int first = spans.size();
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            int c = Character.codePointAt(text, i);
+            int width = Character.charCount(c);
+            byte type = c < 128 ? ASCII[c] : classify(c);
+            if (type == SPACE) {
+                i += width;
+            } else if (type == PUNCT) {
+                spans.add(i);
+                spans.add(i + width);
+                i += width;
+            } else {
+                int start = i;
+                i += width;
+                while (i < n) {
+                    c = Character.codePointAt(text, i);
+                    if ((c < 128 ? ASCII[c] : classify(c)) != WORD) break;
+                    i += Character.charCount(c);
+                }
+                run(text, start, i, spans);
+            }
+        }
+
+        int size = spans.size();
+        if (size - first >= 4) {
+            int start = spans.get(size - 2);
+            int end = spans.get(size - 1);
+            if (end - start == 1 && text.charAt(start) == '.' && spans.get(size - 3) == start) {
+                String word = text.subSequence(spans.get(size - 4), start).toString();
+                if (EnglishAbbreviations.contains(word)) {
+                    spans.set(size - 3, end);
+                }
+            }
+        }
+
+        return (spans.size() - first) / 2;
+    }
+
+    /**
+     * Returns true if the last token is a period and the previous token
+     * is an abbreviation separated from it by white spaces. In this case,
+     * the abbreviation should keep the period as well, which cannot be
+     * represented by the offsets.
+     * @param text the text.
+     * @param spans the token offsets of text.
+     * @return true if the second last token is a detached abbreviation.
+     */
+    public boolean isDetachedAbbreviation(CharSequence text, IntArrayList spans) {
+        int size = spans.size();
+        if (size < 4) return false;
+
+        int start = spans.get(size - 2);
+        int end = spans.get(size - 1);
+        if (end - start != 1 || text.charAt(start) != '.' || spans.get(size - 3) >= start) {
+            return false;
+        }
+
+        String word = text.subSequence(spans.get(size - 4), spans.get(size - 3)).toString();
+        return EnglishAbbreviations.contains(word);
+    }
+
+    /**
+     * Splits a maximal run of word characters into tokens.
+     * @param text the text.
+     * @param start the start of run.
+     * @param end the end of run.
+     * @param spans the list of token offsets.
+     */
+    private static void run(CharSequence text, int start, int end, IntArrayList spans) {
+        int n = text.length();
+        boolean followed = end < n;
+
+        int e = end;
+        boolean comma = followed && text.charAt(e - 1) == ',';
+        if (comma) e--;
+
+        boolean quote = e > start && (followed || comma) && text.charAt(e - 1) == '\'';
+        if (quote) e--;
+
+        boolean period = false;
+        if (!comma && !quote && text.charAt(e - 1) == '.') {
+            int j = end;
+            while (j < n && text.charAt(j) == ' ') j++;
+            period = j == n || text.charAt(j) == '\n';
+            if (period) e--;
+        }
+
+        // Separate the runs of three or more periods.
+        int s = start;
+        int j = start;
+        while (j < e) {
+            if (text.charAt(j) == '.') {
+                int k = j + 1;
+                while (k < e && text.charAt(k) == '.') k++;
+                if (k - j >= 3) {
+                    if (j > s) {
+                        spans.add(s);
+                        spans.add(j);
+                    }
+                    spans.add(j);
+                    spans.add(k);
+                    s = k;
+                }
+                j = k;
+            } else {
+                j++;
+            }
+        }
+
+        if (e > s) {
+            spans.add(s);
+            spans.add(e);
+        }
+
+        if (period) {
+            spans.add(e);
+            spans.add(e + 1);
+        }
+
+        if (quote) {
+            spans.add(e);
+            spans.add(e + 1);
+        }
+
+        if (comma) {
+            spans.add(end - 1);
+            spans.add(end);
+        }
+    }
+
+    /**
+     * Returns the character class of a code point.
+     * @param c the code point.
+     * @return the character class.
+     */
+    private static byte classify(int c) {
+        if (Character.isSpaceChar(c) || (c >= 0x09 && c <= 0x0D) || c == 0x85) {
+            return SPACE;
+        }
+
+        if (Character.isAlphabetic(c) || Character.isDigit(c) || c == 0x200C || c == 0x200D) {
+            return WORD;
+        }
+
+        switch (Character.getType(c)) {
+            case Character.NON_SPACING_MARK:
+            case Character.ENCLOSING_MARK:
+            case Character.COMBINING_SPACING_MARK:
+            case Character.CONNECTOR_PUNCTUATION:
+                return WORD;
+        }
+
+        switch (c) {
+            case '.':
+            case '\'':
+            case '-':
+            case '/':
+            case ',':
+            case '&':
+                return WORD;
+            default:
+                return PUNCT;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.nlp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.math.MathEx;
+import smile.nlp.relevance.BM25;
+import smile.nlp.relevance.Relevance;
+import smile.nlp.relevance.RelevanceRanker;
+import smile.nlp.relevance.TFIDF;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class CompactCorpusTest {
+    static SimpleCorpus simple = new SimpleCorpus();
+    static CompactCorpus corpus = new CompactCorpus();
+
+    public CompactCorpusTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        smile.util.Paths.getTestDataLines("text/plot.tok.gt9.5000")
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .forEach(line -> {
+                    Text text = new Text(line);
+                    simple.add(text);
+                    corpus.add(text);
+                });
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Returns a corpus of documents whose words follow the Zipf's law,
+     * so that the frequent words have posting lists of many blocks.
+     */
+    private CompactCorpus zipf() {
+        MathEx.setSeed(19650218);
+        int vocabulary = 2000;
+        double[] cdf = new double[vocabulary];
+        double sum = 0.0;
+        for (int i = 0; i < vocabulary; i++) {
+            sum += 1.0 / (i + 1);
+            cdf[i] = sum;
+        }
+
+        CompactCorpus corpus = new CompactCorpus(
+                smile.nlp.tokenizer.SimpleSentenceSplitter.getInstance(),
+                new smile.nlp.tokenizer.SimpleTokenizer(), null, null);
+        StringBuilder sb = new StringBuilder();
+        for (int d = 0; d < 10000; d++) {
+            sb.setLength(0);
+            int length = 5 + MathEx.randomInt(60);
+            for (int j = 0; j < length; j++) {
+                double u = MathEx.random() * sum;
+                int w = Arrays.binarySearch(cdf, u);
+                if (w < 0) w = Math.min(-w - 1, vocabulary - 1);
+                sb.append(" w").append(w);
+            }
+            corpus.add(new Text("d" + d, "title " + d, sb.toString()));
+        }
+        return corpus;
+    }
+
+    /** Returns the relevance list of search. */
+    private List<Relevance> list(Iterator<Relevance> hits) {
+        List<Relevance> list = new ArrayList<>();
+        hits.forEachRemaining(list::add);
+        return list;
+    }
+
+    @Test
+    public void testStatistics() {
+        System.out.println("statistics");
+        assertEquals(simple.size(), corpus.size());
+        assertEquals(simple.ndoc(), corpus.ndoc());
+        assertEquals(simple.nterm(), corpus.nterm());
+        assertEquals(simple.nbigram(), corpus.nbigram());
+        assertEquals(simple.avgDocSize(), corpus.avgDocSize());
+        assertEquals(27, corpus.count("romantic"));
+        assertEquals(27, corpus.df("romantic"));
+        assertEquals(9, corpus.count(new Bigram("romantic", "comedy")));
+    }
+
+    @Test
+    public void testSearch() {
+        System.out.println("search");
+        Map<String, Integer> expected = new HashMap<>();
+        simple.search("romantic").forEachRemaining(text -> expected.merge(text.id, 1, Integer::sum));
+        Map<String, Integer> hits = new HashMap<>();
+        corpus.search("romantic").forEachRemaining(text -> hits.merge(text.id, 1, Integer::sum));
+        assertEquals(expected, hits);
+        assertEquals(Collections.emptyIterator(), corpus.search(new BM25(), "find"));
+        assertFalse(corpus.search(new BM25(), new String[]{"thisisnotaword"}).hasNext());
+    }
+
+    @Test
+    public void testRank() {
+        System.out.println("rank");
+        for (RelevanceRanker ranker : new RelevanceRanker[]{new BM25(), new TFIDF()}) {
+            for (String term : new String[]{"romantic", "comedy", "life", "story"}) {
+                List<Relevance> expected = list(simple.search(ranker, term));
+                List<Relevance> hits = list(corpus.search(ranker, term));
+                assertEquals(expected.size(), hits.size());
+                for (int i = 0; i < hits.size(); i++) {
+                    assertEquals(expected.get(i).score, hits.get(i).score, 1E-10);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTopK() {
+        System.out.println("top k");
+        CompactCorpus corpus = zipf();
+        String[][] queries = {{"w0"}, {"w0", "w1"}, {"w3", "w50", "w700"}, {"w1", "w10", "w100", "w1000"}, {"w5", "w5"}};
+        for (RelevanceRanker ranker : new RelevanceRanker[]{new BM25(), new TFIDF(), new BM25(2.0, 0.75, 0.0)}) {
+            for (String[] query : queries) {
+                List<Relevance> all = list(corpus.search(ranker, query));
+                for (int k : new int[]{1, 10, 100}) {
+                    List<Relevance> top = list(corpus.search(ranker, query, k));
+                    assertEquals(Math.min(k, all.size()), top.size());
+                    for (int i = 0; i < top.size(); i++) {
+                        assertEquals(all.get(i).score, top.get(i).score, 1E-10);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        System.out.println("write");
+        CompactCorpus corpus = zipf();
+        File temp = File.createTempFile("corpus", ".idx");
+        temp.deleteOnExit();
+        // Small segments to exercise the segmented mapping.
+        corpus.write(temp.toPath(), 16);
+        CompactCorpus index = CompactCorpus.open(temp.toPath());
+
+        assertEquals(corpus.size(), index.size());
+        assertEquals(corpus.ndoc(), index.ndoc());
+        assertEquals(corpus.nterm(), index.nterm());
+        assertEquals(corpus.nbigram(), index.nbigram());
+        assertEquals(corpus.count("w7"), index.count("w7"));
+        assertEquals(corpus.count(new Bigram("w0", "w1")), index.count(new Bigram("w0", "w1")));
+        for (int i = 0; i < corpus.ndoc(); i += 101) {
+            assertEquals(corpus.length(i), index.length(i));
+            assertEquals(corpus.maxtf(i), index.maxtf(i));
+            assertEquals(corpus.get(i).id, index.get(i).id);
+            assertEquals(corpus.get(i).title, index.get(i).title);
+        }
+
+        BM25 ranker = new BM25();
+        String[] query = {"w2", "w30", "w400"};
+        List<Relevance> expected = list(corpus.search(ranker, query, 20));
+        List<Relevance> hits = list(index.search(ranker, query, 20));
+        assertEquals(expected.size(), hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            assertEquals(expected.get(i).text.id, hits.get(i).text.id);
+            assertEquals(expected.get(i).score, hits.get(i).score, 1E-10);
+        }
+
+        int n = 0;
+        Iterator<Text> docs = index.search("w0");
+        while (docs.hasNext()) {
+            docs.next();
+            n++;
+        }
+        assertEquals(corpus.df("w0"), n);
+    }
+}
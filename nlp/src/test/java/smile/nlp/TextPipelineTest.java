@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.nlp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.nlp.dictionary.EnglishPunctuations;
+import smile.nlp.dictionary.EnglishStopWords;
+import smile.nlp.normalizer.SimpleNormalizer;
+import smile.nlp.stemmer.PorterStemmer;
+import smile.nlp.tokenizer.DFATokenizer;
+import smile.nlp.tokenizer.SimpleSentenceSplitter;
+import smile.nlp.tokenizer.SimpleTokenizer;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class TextPipelineTest {
+    static List<String> docs;
+
+    public TextPipelineTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        docs = smile.util.Paths.getTestDataLines("text/plot.tok.gt9.5000")
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Returns the terms of a document in the same way as SimpleCorpus.
+     */
+    private String[] terms(String text, PorterStemmer stemmer) {
+        List<String> terms = new ArrayList<>();
+        SimpleTokenizer tokenizer = new SimpleTokenizer();
+        for (String sentence : SimpleSentenceSplitter.getInstance().split(text)) {
+            for (String token : tokenizer.split(sentence)) {
+                String w = token.toLowerCase();
+                if (!EnglishPunctuations.getInstance().contains(w) && !EnglishStopWords.DEFAULT.contains(w)) {
+                    terms.add(stemmer == null ? w : stemmer.stem(w));
+                }
+            }
+        }
+        return terms.toArray(new String[0]);
+    }
+
+    @Test
+    public void testApply() {
+        System.out.println("apply");
+        TextPipeline pipeline = new TextPipeline(null, SimpleSentenceSplitter.getInstance(), DFATokenizer.getInstance(),
+                true, EnglishStopWords.DEFAULT, EnglishPunctuations.getInstance(), null);
+
+        for (int i = 0; i < 500; i++) {
+            assertArrayEquals(terms(docs.get(i), null), pipeline.apply(docs.get(i)));
+        }
+
+        String[] terms = pipeline.apply("The Café at Noon, and NOTHING else!");
+        assertArrayEquals(new String[]{"café", "noon"}, terms);
+    }
+
+    @Test
+    public void testParallel() {
+        System.out.println("parallel");
+        TextPipeline pipeline = new TextPipeline(SimpleNormalizer.getInstance(), SimpleSentenceSplitter.getInstance(),
+                DFATokenizer.getInstance(), true, EnglishStopWords.DEFAULT, EnglishPunctuations.getInstance(), PorterStemmer::new);
+
+        PorterStemmer stemmer = new PorterStemmer();
+        List<String[]> expected = docs.stream().map(doc -> terms(doc, stemmer)).collect(Collectors.toList());
+
+        List<String[]> terms = pipeline.apply(docs.stream()).collect(Collectors.toList());
+        assertEquals(expected.size(), terms.size());
+        for (int i = 0; i < terms.size(); i++) {
+            assertArrayEquals(expected.get(i), terms.get(i));
+        }
+
+        terms = pipeline.apply(docs.iterator()).collect(Collectors.toList());
+        assertEquals(expected.size(), terms.size());
+        for (int i = 0; i < terms.size(); i++) {
+            assertArrayEquals(expected.get(i), terms.get(i));
+        }
+    }
+
+    @Test
+    public void testTokenizer() {
+        System.out.println("tokenizer");
+        TextPipeline dfa = new TextPipeline();
+        TextPipeline simple = new TextPipeline(SimpleNormalizer.getInstance(), null, new SimpleTokenizer(),
+                true, EnglishStopWords.DEFAULT, EnglishPunctuations.getInstance(), null);
+        for (String doc : docs) {
+            assertArrayEquals(simple.apply(doc), dfa.apply(doc));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.nlp.collocation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.nlp.SimpleCorpus;
+import smile.nlp.Text;
+import smile.nlp.stemmer.PorterStemmer;
+import smile.nlp.tokenizer.SimpleParagraphSplitter;
+import smile.nlp.tokenizer.SimpleSentenceSplitter;
+import smile.nlp.tokenizer.SimpleTokenizer;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class NGramCounterTest {
+    ArrayList<String[]> turing = new ArrayList<>();
+    ArrayList<String[]> plot = new ArrayList<>();
+    SimpleCorpus corpus = new SimpleCorpus();
+
+    public NGramCounterTest() {
+        try {
+            String text = new String(Files.readAllBytes(smile.util.Paths.getTestData("text/turing.txt")));
+            PorterStemmer stemmer = new PorterStemmer();
+            SimpleTokenizer tokenizer = new SimpleTokenizer();
+            for (String paragraph : SimpleParagraphSplitter.getInstance().split(text)) {
+                for (String s : SimpleSentenceSplitter.getInstance().split(paragraph)) {
+                    String[] sentence = tokenizer.split(s);
+                    for (int i = 0; i < sentence.length; i++) {
+                        sentence[i] = stemmer.stripPluralParticiple(sentence[i]).toLowerCase();
+                    }
+                    turing.add(sentence);
+                }
+            }
+
+            smile.util.Paths.getTestDataLines("text/plot.tok.gt9.5000")
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty())
+                    .forEach(line -> {
+                        corpus.add(new Text(line));
+                        for (String s : SimpleSentenceSplitter.getInstance().split(line)) {
+                            String[] sentence = tokenizer.split(s);
+                            for (int i = 0; i < sentence.length; i++) {
+                                sentence[i] = sentence[i].toLowerCase();
+                            }
+                            plot.add(sentence);
+                        }
+                    });
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Asserts that the n-grams and their counts are same.
+     */
+    private void assertNGramEquals(NGram[][] expected, NGram[][] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int n = 0; n < expected.length; n++) {
+            assertEquals(expected[n].length, actual[n].length);
+            Map<smile.nlp.NGram, Integer> counts = new HashMap<>();
+            for (NGram ngram : expected[n]) {
+                counts.put(new smile.nlp.NGram(ngram.words), ngram.count);
+            }
+
+            for (int i = 0; i < actual[n].length; i++) {
+                NGram ngram = actual[n][i];
+                assertEquals(counts.get(new smile.nlp.NGram(ngram.words)), Integer.valueOf(ngram.count));
+                if (i > 0) {
+                    assertTrue(actual[n][i-1].count >= ngram.count);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCount() throws IOException {
+        System.out.println("count");
+        NGramCounter counter = new NGramCounter(4);
+        NGram[][] result = counter.count(turing::stream, 4);
+
+        assertEquals(5, result.length);
+        assertEquals(0, result[0].length);
+        assertEquals(16, result[2].length);
+        assertEquals(7, result[3].length);
+        assertEquals(0, result[4].length);
+        assertNGramEquals(NGram.of(turing, 4, 4), result);
+    }
+
+    @Test
+    public void testSpill() throws IOException {
+        System.out.println("spill");
+        NGram[][] expected = NGram.of(turing, 4, 4);
+
+        NGramCounter counter = new NGramCounter(4, 100, 0, null);
+        assertNGramEquals(expected, counter.count(turing::stream, 4));
+
+        counter = new NGramCounter(4, 100, 1 << 12, null);
+        assertNGramEquals(expected, counter.count(turing::stream, 4));
+
+        // A tiny sketch overestimates a lot but never drops frequent n-grams.
+        counter = new NGramCounter(4, 100, 16, null);
+        assertNGramEquals(expected, counter.count(turing::stream, 4));
+    }
+
+    @Test
+    public void testCollocations() throws IOException {
+        System.out.println("collocations");
+        NGramCounter counter = new NGramCounter(6, 1000, 1 << 16, null);
+
+        Bigram[] expected = Bigram.of(corpus, 0.0001, 5);
+        Bigram[] result = counter.collocations(plot::stream, 0.0001);
+        assertEquals(63, result.length);
+        for (int i = 0; i < result.length; i++) {
+            assertEquals(expected[i].count, result[i].count);
+            assertEquals(expected[i].score, result[i].score, 1E-7);
+        }
+
+        result = counter.collocations(plot::stream, 10);
+        assertEquals(10, result.length);
+        for (Bigram bigram : result) {
+            System.out.println(bigram);
+        }
+
+        assertEquals(46, result[0].count);
+        assertEquals(545.16, result[0].score, 1E-2);
+        assertEquals(19, result[9].count);
+        assertEquals(186.69, result[9].score, 1E-2);
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.nlp.embedding;
+
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.math.MathEx;
+import smile.neighbor.Neighbor;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class EmbeddingStoreTest {
+    static final int n = 2000;
+    static final int d = 50;
+    static String[] words = new String[n];
+    static float[][] vectors = new float[n][d];
+
+    public EmbeddingStoreTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        MathEx.setSeed(19650218);
+        for (int i = 0; i < n; i++) {
+            words[i] = i % 7 == 0 ? "词" + i : "w" + i;
+            for (int j = 0; j < d; j++) {
+                vectors[i][j] = (float) MathEx.random(-1, 1);
+            }
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /** Writes the test vectors to a store file. */
+    private Path write(boolean quantized) throws Exception {
+        File temp = File.createTempFile("embedding", ".emb");
+        temp.deleteOnExit();
+        try (EmbeddingStore.Writer writer = new EmbeddingStore.Writer(temp.toPath(), d, quantized)) {
+            for (int i = 0; i < n; i++) {
+                writer.add(words[i], vectors[i]);
+            }
+        }
+        return temp.toPath();
+    }
+
+    /** Returns the indices of k most similar vectors by brute force. */
+    private int[] bruteForce(float[] q, int k, int exclude) {
+        double[] sim = new double[n];
+        for (int i = 0; i < n; i++) {
+            double dot = 0.0, norm = 0.0;
+            for (int j = 0; j < d; j++) {
+                dot += q[j] * vectors[i][j];
+                norm += vectors[i][j] * vectors[i][j];
+            }
+            sim[i] = dot / Math.sqrt(norm);
+        }
+
+        return IntStream.range(0, n).filter(i -> i != exclude).boxed()
+                .sorted(Comparator.comparingDouble(i -> -sim[i]))
+                .limit(k).mapToInt(i -> i).toArray();
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        System.out.println("get");
+        // Small segments to exercise the segmented mapping.
+        EmbeddingStore store = new EmbeddingStore(write(false), 4096);
+        assertEquals(n, store.size());
+        assertEquals(d, store.dimension());
+        assertFalse(store.isQuantized());
+        for (int i = 0; i < n; i++) {
+            assertEquals(words[i], store.word(i));
+            assertEquals(i, store.indexOf(words[i]));
+            assertArrayEquals(vectors[i], store.get(words[i]), 1E-6f);
+        }
+        assertEquals(-1, store.indexOf("unknown"));
+        assertNull(store.get("unknown"));
+        assertNull(store.nearest("unknown", 10));
+    }
+
+    @Test
+    public void testNearest() throws Exception {
+        System.out.println("nearest");
+        Path path = write(false);
+        for (EmbeddingStore store : new EmbeddingStore[]{EmbeddingStore.open(path), new EmbeddingStore(path, 4096)}) {
+            for (int i = 0; i < n; i += 97) {
+                Neighbor<String, float[]>[] neighbors = store.nearest(words[i], 10);
+                int[] truth = bruteForce(vectors[i], 10, i);
+                assertEquals(10, neighbors.length);
+                for (int j = 0; j < 10; j++) {
+                    assertEquals(truth[j], neighbors[j].index);
+                    assertEquals(words[truth[j]], neighbors[j].key);
+                    assertArrayEquals(vectors[truth[j]], neighbors[j].value, 1E-6f);
+                }
+            }
+
+            Neighbor<String, float[]>[] neighbors = store.nearest(vectors[5], 3);
+            assertEquals(5, neighbors[0].index);
+            assertEquals(0.0, neighbors[0].distance, 1E-6);
+            assertTrue(neighbors[1].distance <= neighbors[2].distance);
+        }
+    }
+
+    @Test
+    public void testQuantized() throws Exception {
+        System.out.println("quantized");
+        EmbeddingStore store = new EmbeddingStore(write(true), 4096);
+        assertTrue(store.isQuantized());
+
+        double error = 0.0;
+        for (int i = 0; i < n; i++) {
+            float[] x = store.get(i);
+            for (int j = 0; j < d; j++) {
+                error = Math.max(error, Math.abs(x[j] - vectors[i][j]));
+            }
+        }
+        System.out.println("Max quantization error: " + error);
+        assertTrue(error < 0.01);
+
+        int hits = 0;
+        for (int i = 0; i < n; i += 97) {
+            int[] truth = bruteForce(vectors[i], 10, i);
+            Neighbor<String, float[]>[] neighbors = store.nearest(words[i], 10);
+            for (Neighbor<String, float[]> neighbor : neighbors) {
+                if (Arrays.stream(truth).anyMatch(t -> t == neighbor.index)) hits++;
+            }
+        }
+        double recall = hits / (10.0 * ((n + 96) / 97));
+        System.out.println("Recall@10: " + recall);
+        assertTrue(recall > 0.9);
+    }
+
+    @Test
+    public void testWord2Vec() throws Exception {
+        System.out.println("word2vec");
+        File temp = File.createTempFile("word2vec", ".bin");
+        temp.deleteOnExit();
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp.toPath()))) {
+            out.write(String.format("%d %d\n", n, d).getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.allocate(4 * d).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < n; i++) {
+                out.write((words[i] + " ").getBytes(StandardCharsets.UTF_8));
+                buffer.clear();
+                buffer.asFloatBuffer().put(vectors[i]);
+                out.write(buffer.array());
+                out.write('\n');
+            }
+        }
+
+        File output = File.createTempFile("word2vec", ".emb");
+        output.deleteOnExit();
+        EmbeddingStore store = Word2Vec.store(temp.toPath(), ByteOrder.LITTLE_ENDIAN, output.toPath(), false);
+        assertEquals(n, store.size());
+        assertEquals(d, store.dimension());
+        for (int i = 0; i < n; i++) {
+            assertArrayEquals(vectors[i], store.get(words[i]), 1E-6f);
+        }
+    }
+
+    @Test
+    public void testGloVe() throws Exception {
+        System.out.println("GloVe");
+        File temp = File.createTempFile("glove", ".txt");
+        temp.deleteOnExit();
+        try (BufferedWriter out = Files.newBufferedWriter(temp.toPath())) {
+            for (int i = 0; i < n; i++) {
+                out.write(words[i]);
+                for (int j = 0; j < d; j++) {
+                    out.write(" " + vectors[i][j]);
+                }
+                out.newLine();
+            }
+        }
+
+        File output = File.createTempFile("glove", ".emb");
+        output.deleteOnExit();
+        EmbeddingStore store = GloVe.store(temp.toPath(), output.toPath(), true);
+        assertEquals(n, store.size());
+        assertEquals(d, store.dimension());
+        assertTrue(store.isQuantized());
+        for (int i = 0; i < n; i++) {
+            assertArrayEquals(vectors[i], store.get(words[i]), 0.01f);
+        }
+    }
+}
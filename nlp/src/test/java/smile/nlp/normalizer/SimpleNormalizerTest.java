@@ -53,4 +53,15 @@ public class SimpleNormalizerTest {
 
         assertEquals(expected, result);
     }
+
+    /**
+     * Test of normalize method with control and formatting characters.
+     */
+    @Test
+    public void testControl() {
+        System.out.println("normalize control characters");
+        String text = " a\u0000b \u200B c\u2014d\uFEFF\u0085\u3000`e\u2019 \uFF02f\uFF02\t";
+        String expected = "ab  c--d 'e' \"f\"";
+        assertEquals(expected, SimpleNormalizer.getInstance().normalize(text));
+    }
 }
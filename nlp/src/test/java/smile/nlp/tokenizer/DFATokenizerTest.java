@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2010-2020 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.nlp.tokenizer;
+
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.util.IntArrayList;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class DFATokenizerTest {
+
+    public DFATokenizerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testTokenize() {
+        System.out.println("tokenize");
+        String text = "Good muffins cost $3.88\nin New York.  Please buy "
+                + "me\ntwo of them.\n\nYou cannot eat them. I gonna eat them. "
+                + "Thanks. Of course, I won't. ";
+
+        String[] expResult = {"Good", "muffins", "cost", "$", "3.88", "in",
+            "New", "York.", "Please", "buy", "me", "two", "of", "them", ".",
+            "You", "cannot", "eat", "them.", "I", "gonna", "eat",
+            "them.", "Thanks.", "Of", "course", ",", "I", "won't", "."};
+
+        String[] result = DFATokenizer.getInstance().split(text);
+        assertArrayEquals(expResult, result);
+    }
+
+    @Test
+    public void testSpans() {
+        System.out.println("spans");
+        String text = "Wait... it's 2,500 (or so), parents' money etc.";
+        IntArrayList spans = new IntArrayList();
+        int n = DFATokenizer.getInstance().tokenize(text, spans);
+
+        String[] expResult = {"Wait", "...", "it's", "2,500", "(", "or", "so", ")", ",",
+            "parents", "'", "money", "etc.", "."};
+        assertEquals(expResult.length, n);
+        for (int i = 0; i < n; i++) {
+            assertEquals(expResult[i], text.substring(spans.get(2 * i), spans.get(2 * i + 1)));
+        }
+        assertArrayEquals(expResult, DFATokenizer.getInstance().split(text));
+    }
+
+    @Test
+    public void testSimpleTokenizer() throws Exception {
+        System.out.println("SimpleTokenizer");
+        SimpleTokenizer simple = new SimpleTokenizer();
+        DFATokenizer dfa = DFATokenizer.getInstance();
+        List<String> lines = java.nio.file.Files.readAllLines(smile.util.Paths.getTestData("text/turing.txt"));
+        StringBuilder paragraph = new StringBuilder();
+        for (String line : lines) {
+            assertArrayEquals(line, simple.split(line), dfa.split(line));
+            paragraph.append(line).append('\n');
+        }
+
+        String text = paragraph.toString();
+        assertArrayEquals(simple.split(text), dfa.split(text));
+
+        String[] tricky = {
+            "", " ", ".", "etc .", "Mr.", "a,", "a, ", "a',b", "a', b", "a,' b", "x...., y",
+            "end.  \n next", "end. \t", "café näive   ’quote’ 😀!",
+            "(etc.)", "...", "....", "a,,b ,, c", "'tis", "\"Hello,\" she said."
+        };
+        for (String s : tricky) {
+            assertArrayEquals(s, simple.split(s), dfa.split(s));
+        }
+    }
+}